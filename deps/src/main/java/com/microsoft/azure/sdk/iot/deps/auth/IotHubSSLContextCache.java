@@ -0,0 +1,259 @@
+/*
+ *  Copyright (c) Microsoft. All rights reserved.
+ *  Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.sdk.iot.deps.auth;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyManagementException;
+import java.security.KeyStoreException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.UnrecoverableKeyException;
+import java.security.cert.CertificateException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Process wide cache of the {@link IotHubSSLContext}, keyed by the credentials and trusted certificates used to
+ * create them.
+ *
+ * <p>
+ *     Creating an IotHubSSLContext parses the trusted certificates and builds a new key store, and each new
+ *     SSLContext starts with an empty TLS session cache. All the connections that share the same credentials
+ *     share one cached SSLContext, so the trust material is parsed once and a reconnect can resume the TLS session
+ *     of a previous connection instead of running a full handshake.
+ * </p>
+ */
+public final class IotHubSSLContextCache
+{
+    static final int MAX_CACHED_CONTEXTS = 1000;
+    static final int DEFAULT_SESSION_CACHE_SIZE = 1000;
+    static final int DEFAULT_SESSION_TIMEOUT_IN_SECONDS = 24 * 60 * 60;
+
+    private static final String KEY_DIGEST_ALGORITHM = "SHA-256";
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private static final ConcurrentMap<String, IotHubSSLContext> CACHE = new ConcurrentHashMap<>();
+    private static volatile int sessionCacheSize = DEFAULT_SESSION_CACHE_SIZE;
+    private static volatile int sessionTimeoutInSeconds = DEFAULT_SESSION_TIMEOUT_IN_SECONDS;
+
+    private IotHubSSLContextCache()
+    {
+    }
+
+    /**
+     * Getter for the IotHubSSLContext that trusts the default IotHub certificates.
+     *
+     * @return the cached IotHubSSLContext.
+     * @throws KeyStoreException if the trusted certificates cannot be loaded into a key store.
+     * @throws KeyManagementException if the SSLContext cannot be initialized.
+     * @throws IOException if the trusted certificates cannot be read.
+     * @throws CertificateException if the trusted certificates are invalid.
+     * @throws NoSuchAlgorithmException if the SSLContext cannot be created.
+     */
+    public static IotHubSSLContext getIotHubSSLContext()
+            throws KeyStoreException, KeyManagementException, IOException, CertificateException, NoSuchAlgorithmException
+    {
+        //Codes_SRS_IOTHUBSSLCONTEXTCACHE_21_001: [The getIotHubSSLContext shall return the cached IotHubSSLContext for the same credentials and trusted certificate, creating it if it does not exist.]
+        String key = createKey(null, null, null, false);
+        IotHubSSLContext iotHubSSLContext = CACHE.get(key);
+        if (iotHubSSLContext == null)
+        {
+            iotHubSSLContext = cache(key, new IotHubSSLContext());
+        }
+        return iotHubSSLContext;
+    }
+
+    /**
+     * Getter for the IotHubSSLContext that trusts the provided certificate.
+     *
+     * @param trustedCert the trusted certificate, or the path to the file that contains it.
+     * @param isPath if the trustedCert is a path to a file.
+     * @return the cached IotHubSSLContext.
+     * @throws KeyStoreException if the trusted certificates cannot be loaded into a key store.
+     * @throws KeyManagementException if the SSLContext cannot be initialized.
+     * @throws IOException if the trusted certificates cannot be read.
+     * @throws CertificateException if the trusted certificates are invalid.
+     * @throws NoSuchAlgorithmException if the SSLContext cannot be created.
+     */
+    public static IotHubSSLContext getIotHubSSLContext(String trustedCert, boolean isPath)
+            throws KeyStoreException, KeyManagementException, IOException, CertificateException, NoSuchAlgorithmException
+    {
+        //Codes_SRS_IOTHUBSSLCONTEXTCACHE_21_001: [The getIotHubSSLContext shall return the cached IotHubSSLContext for the same credentials and trusted certificate, creating it if it does not exist.]
+        String key = createKey(null, null, trustedCert, isPath);
+        IotHubSSLContext iotHubSSLContext = CACHE.get(key);
+        if (iotHubSSLContext == null)
+        {
+            iotHubSSLContext = cache(key, new IotHubSSLContext(trustedCert, isPath));
+        }
+        return iotHubSSLContext;
+    }
+
+    /**
+     * Getter for the IotHubSSLContext that authenticates with the provided x509 certificate and trusts the default
+     * IotHub certificates.
+     *
+     * @param publicKeyCertificateString the PEM formatted public key certificate.
+     * @param privateKeyString the PEM formatted private key.
+     * @return the cached IotHubSSLContext.
+     * @throws KeyStoreException if the keys cannot be loaded into a key store.
+     * @throws KeyManagementException if the SSLContext cannot be initialized.
+     * @throws IOException if the trusted certificates cannot be read.
+     * @throws CertificateException if the certificates or the keys are invalid.
+     * @throws NoSuchAlgorithmException if the SSLContext cannot be created.
+     * @throws UnrecoverableKeyException if the private key cannot be read from the key store.
+     */
+    public static IotHubSSLContext getIotHubSSLContext(String publicKeyCertificateString, String privateKeyString)
+            throws KeyStoreException, KeyManagementException, IOException, CertificateException, NoSuchAlgorithmException, UnrecoverableKeyException
+    {
+        //Codes_SRS_IOTHUBSSLCONTEXTCACHE_21_001: [The getIotHubSSLContext shall return the cached IotHubSSLContext for the same credentials and trusted certificate, creating it if it does not exist.]
+        String key = createKey(publicKeyCertificateString, privateKeyString, null, false);
+        IotHubSSLContext iotHubSSLContext = CACHE.get(key);
+        if (iotHubSSLContext == null)
+        {
+            iotHubSSLContext = cache(key, new IotHubSSLContext(publicKeyCertificateString, privateKeyString));
+        }
+        return iotHubSSLContext;
+    }
+
+    /**
+     * Getter for the IotHubSSLContext that authenticates with the provided x509 certificate and trusts the provided
+     * certificate.
+     *
+     * @param publicKeyCertificateString the PEM formatted public key certificate.
+     * @param privateKeyString the PEM formatted private key.
+     * @param trustedCert the trusted certificate, or the path to the file that contains it.
+     * @param isPath if the trustedCert is a path to a file.
+     * @return the cached IotHubSSLContext.
+     * @throws KeyStoreException if the keys cannot be loaded into a key store.
+     * @throws KeyManagementException if the SSLContext cannot be initialized.
+     * @throws IOException if the trusted certificates cannot be read.
+     * @throws CertificateException if the certificates or the keys are invalid.
+     * @throws NoSuchAlgorithmException if the SSLContext cannot be created.
+     * @throws UnrecoverableKeyException if the private key cannot be read from the key store.
+     */
+    public static IotHubSSLContext getIotHubSSLContext(String publicKeyCertificateString, String privateKeyString, String trustedCert, boolean isPath)
+            throws KeyStoreException, KeyManagementException, IOException, CertificateException, NoSuchAlgorithmException, UnrecoverableKeyException
+    {
+        //Codes_SRS_IOTHUBSSLCONTEXTCACHE_21_001: [The getIotHubSSLContext shall return the cached IotHubSSLContext for the same credentials and trusted certificate, creating it if it does not exist.]
+        String key = createKey(publicKeyCertificateString, privateKeyString, trustedCert, isPath);
+        IotHubSSLContext iotHubSSLContext = CACHE.get(key);
+        if (iotHubSSLContext == null)
+        {
+            iotHubSSLContext = cache(key, new IotHubSSLContext(publicKeyCertificateString, privateKeyString, trustedCert, isPath));
+        }
+        return iotHubSSLContext;
+    }
+
+    /**
+     * Setter for the maximum number of TLS sessions that each cached SSLContext keeps to resume connections.
+     *
+     * @param size the number of sessions, or 0 for no limit.
+     * @throws IllegalArgumentException if the size is negative.
+     */
+    public static void setSessionCacheSize(int size) throws IllegalArgumentException
+    {
+        if (size < 0)
+        {
+            //Codes_SRS_IOTHUBSSLCONTEXTCACHE_21_004: [If the provided size is negative, the setSessionCacheSize shall throw IllegalArgumentException.]
+            throw new IllegalArgumentException("session cache size cannot be negative");
+        }
+
+        //Codes_SRS_IOTHUBSSLCONTEXTCACHE_21_005: [The setSessionCacheSize shall set the TLS session cache size of the cached SSLContexts and of the ones created after it.]
+        sessionCacheSize = size;
+        for (IotHubSSLContext iotHubSSLContext : CACHE.values())
+        {
+            configureSessions(iotHubSSLContext);
+        }
+    }
+
+    /**
+     * Setter for the time that a TLS session can be resumed after it was created.
+     *
+     * @param timeoutInSeconds the timeout in seconds, or 0 for no limit.
+     * @throws IllegalArgumentException if the timeout is negative.
+     */
+    public static void setSessionTimeoutInSeconds(int timeoutInSeconds) throws IllegalArgumentException
+    {
+        if (timeoutInSeconds < 0)
+        {
+            //Codes_SRS_IOTHUBSSLCONTEXTCACHE_21_006: [If the provided timeout is negative, the setSessionTimeoutInSeconds shall throw IllegalArgumentException.]
+            throw new IllegalArgumentException("session timeout cannot be negative");
+        }
+
+        //Codes_SRS_IOTHUBSSLCONTEXTCACHE_21_007: [The setSessionTimeoutInSeconds shall set the TLS session timeout of the cached SSLContexts and of the ones created after it.]
+        sessionTimeoutInSeconds = timeoutInSeconds;
+        for (IotHubSSLContext iotHubSSLContext : CACHE.values())
+        {
+            configureSessions(iotHubSSLContext);
+        }
+    }
+
+    /**
+     * Remove all the cached contexts, so the next connections parse the certificates again. Connections that are
+     * already open are not affected.
+     */
+    public static void clear()
+    {
+        //Codes_SRS_IOTHUBSSLCONTEXTCACHE_21_008: [The clear shall remove all the cached IotHubSSLContexts.]
+        CACHE.clear();
+    }
+
+    private static IotHubSSLContext cache(String key, IotHubSSLContext iotHubSSLContext)
+    {
+        //Codes_SRS_IOTHUBSSLCONTEXTCACHE_21_002: [The getIotHubSSLContext shall set the TLS session cache size and timeout of the new SSLContext.]
+        configureSessions(iotHubSSLContext);
+
+        if (CACHE.size() >= MAX_CACHED_CONTEXTS)
+        {
+            //Codes_SRS_IOTHUBSSLCONTEXTCACHE_21_003: [If there are 1000 cached IotHubSSLContexts, the getIotHubSSLContext shall remove them before caching the new one.]
+            CACHE.clear();
+        }
+
+        // if another thread cached a context for the same key first, use that one so both share their TLS sessions
+        IotHubSSLContext cachedSSLContext = CACHE.putIfAbsent(key, iotHubSSLContext);
+        return (cachedSSLContext == null) ? iotHubSSLContext : cachedSSLContext;
+    }
+
+    private static void configureSessions(IotHubSSLContext iotHubSSLContext)
+    {
+        SSLContext sslContext = iotHubSSLContext.getSSLContext();
+        SSLSessionContext sessionContext = (sslContext == null) ? null : sslContext.getClientSessionContext();
+        if (sessionContext != null)
+        {
+            sessionContext.setSessionCacheSize(sessionCacheSize);
+            sessionContext.setSessionTimeout(sessionTimeoutInSeconds);
+        }
+    }
+
+    private static String createKey(String publicKeyCertificateString, String privateKeyString, String trustedCert, boolean isPath)
+            throws NoSuchAlgorithmException
+    {
+        StringBuilder key = new StringBuilder();
+        key.append(publicKeyCertificateString).append(KEY_SEPARATOR);
+        key.append(privateKeyString).append(KEY_SEPARATOR);
+        key.append(isPath).append(KEY_SEPARATOR);
+        key.append(trustedCert);
+        if (isPath && trustedCert != null)
+        {
+            // a new file in the same path shall create a new context
+            File trustedCertFile = new File(trustedCert);
+            key.append(KEY_SEPARATOR).append(trustedCertFile.lastModified()).append(KEY_SEPARATOR).append(trustedCertFile.length());
+        }
+
+        // the cache keeps a digest of the credentials, not the private key itself
+        byte[] digest = MessageDigest.getInstance(KEY_DIGEST_ALGORITHM).digest(key.toString().getBytes(StandardCharsets.UTF_8));
+        StringBuilder hexKey = new StringBuilder(digest.length * 2);
+        for (byte b : digest)
+        {
+            hexKey.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hexKey.toString();
+    }
+}
@@ -1,14 +1,18 @@
 package com.microsoft.azure.sdk.iot.deps.serializer;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonSyntaxException;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
 
+import java.io.Reader;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 
 public class ConfigurationParser
 {
@@ -74,7 +78,7 @@ public class ConfigurationParser
     @SerializedName(E_TAG_NAME)
     private String eTag;
 
-    private transient static Gson gson = new GsonBuilder().enableComplexMapKeySerialization().serializeNulls().create();
+    private transient static Gson gson = SerializerRegistry.getGsonComplexMapKeySerializeNulls();
 
     /**
      * Empty constructor: Used only to keep GSON happy.
@@ -110,17 +114,7 @@ public class ConfigurationParser
             throw new IllegalArgumentException("The provided json could not be parsed");
         }
 
-        //Codes_SRS_CONFIGURATION_PARSER_28_003: [If the provided json is missing the id field or its value is empty, an IllegalArgumentException shall be thrown.]
-        if (configurationParser.id == null || configurationParser.id.isEmpty())
-        {
-            throw new IllegalArgumentException("The provided json must contain the field for configurationId and its value may not be empty");
-        }
-
-        //Codes_SRS_CONFIGURATION_PARSER_28_004: [If the provided json is missing the schemaVersion field or its value is empty, an IllegalArgumentException shall be thrown.]
-        if (configurationParser.schemaVersion == null || configurationParser.schemaVersion.isEmpty())
-        {
-            throw new IllegalArgumentException("The provided json must contain the field for schemaVersion and its value may not be empty");
-        }
+        validateConfigurationParser(configurationParser);
 
         this.id = configurationParser.id;
         this.schemaVersion = configurationParser.schemaVersion;
@@ -132,18 +126,96 @@ public class ConfigurationParser
         this.systemMetrics = configurationParser.systemMetrics;
         this.metrics = configurationParser.metrics;
         this.eTag = configurationParser.eTag;
+        this.createdTimeUtcString = configurationParser.createdTimeUtcString;
+        this.lastUpdatedTimeUtcString = configurationParser.lastUpdatedTimeUtcString;
+
+        updateDatesFromStrings();
+    }
 
+    /**
+     * Create a lazy iterator that decodes a json array of configurations in a single pass.
+     *
+     * <p>Each call to next() decodes one item of the array directly from the provided reader into a
+     * ConfigurationParser, with the same validation as {@link #ConfigurationParser(String)}.
+     *
+     * @param reader the reader with the json array of configurations.
+     * @return the iterator over the ConfigurationParser in the json array.
+     * @throws IllegalArgumentException if the provided reader is null.
+     */
+    public static JsonArrayIterator<ConfigurationParser> createJsonArrayIterator(Reader reader) throws IllegalArgumentException
+    {
+        //Codes_SRS_CONFIGURATION_PARSER_21_001: [The createJsonArrayIterator shall return an iterator that decodes one ConfigurationParser per item in the json array.]
+        return new JsonArrayIterator<ConfigurationParser>(reader)
+        {
+            @Override
+            protected ConfigurationParser parseItem(JsonReader jsonReader) throws IllegalArgumentException
+            {
+                ConfigurationParser configurationParser;
+                try
+                {
+                    configurationParser = gson.fromJson(jsonReader, ConfigurationParser.class);
+                }
+                catch (JsonParseException e)
+                {
+                    //Codes_SRS_CONFIGURATION_PARSER_21_002: [If an item in the json array cannot be parsed into a ConfigurationParser object, an IllegalArgumentException shall be thrown.]
+                    throw new IllegalArgumentException("The provided json could not be parsed");
+                }
+
+                //Codes_SRS_CONFIGURATION_PARSER_21_003: [If an item in the json array is missing the id or the schemaVersion, an IllegalArgumentException shall be thrown.]
+                validateConfigurationParser(configurationParser);
+                configurationParser.updateDatesFromStrings();
+
+                return configurationParser;
+            }
+        };
+    }
+
+    /**
+     * Create a list of ConfigurationParser from a json array of configurations, decoded in a single pass.
+     *
+     * @param reader the reader with the json array of configurations.
+     * @return the list of ConfigurationParser in the json array.
+     * @throws IllegalArgumentException if the provided reader is null, or the json is not the expected format.
+     */
+    public static List<ConfigurationParser> createFromJsonArray(Reader reader) throws IllegalArgumentException
+    {
+        //Codes_SRS_CONFIGURATION_PARSER_21_004: [The createFromJsonArray shall return a list with one ConfigurationParser per item in the json array.]
+        List<ConfigurationParser> configurationParsers = new ArrayList<>();
+        JsonArrayIterator<ConfigurationParser> iterator = createJsonArrayIterator(reader);
+        while (iterator.hasNext())
+        {
+            configurationParsers.add(iterator.next());
+        }
+
+        return configurationParsers;
+    }
+
+    private static void validateConfigurationParser(ConfigurationParser configurationParser) throws IllegalArgumentException
+    {
+        //Codes_SRS_CONFIGURATION_PARSER_28_003: [If the provided json is missing the id field or its value is empty, an IllegalArgumentException shall be thrown.]
+        if (configurationParser == null || configurationParser.id == null || configurationParser.id.isEmpty())
+        {
+            throw new IllegalArgumentException("The provided json must contain the field for configurationId and its value may not be empty");
+        }
+
+        //Codes_SRS_CONFIGURATION_PARSER_28_004: [If the provided json is missing the schemaVersion field or its value is empty, an IllegalArgumentException shall be thrown.]
+        if (configurationParser.schemaVersion == null || configurationParser.schemaVersion.isEmpty())
+        {
+            throw new IllegalArgumentException("The provided json must contain the field for schemaVersion and its value may not be empty");
+        }
+    }
+
+    private void updateDatesFromStrings()
+    {
         //convert to date format
-        if (configurationParser.createdTimeUtcString != null)
+        if (this.createdTimeUtcString != null)
         {
-            this.createdTimeUtcString = configurationParser.createdTimeUtcString;
-            this.createdTimeUtc = ParserUtility.getDateTimeUtc(configurationParser.createdTimeUtcString);
+            this.createdTimeUtc = ParserUtility.getDateTimeUtc(this.createdTimeUtcString);
         }
 
-        if (configurationParser.lastUpdatedTimeUtcString != null)
+        if (this.lastUpdatedTimeUtcString != null)
         {
-            this.lastUpdatedTimeUtcString = configurationParser.lastUpdatedTimeUtcString;
-            this.lastUpdatedTimeUtc = ParserUtility.getDateTimeUtc(configurationParser.lastUpdatedTimeUtcString);
+            this.lastUpdatedTimeUtc = ParserUtility.getDateTimeUtc(this.lastUpdatedTimeUtcString);
         }
     }
 
@@ -165,7 +237,7 @@ public class ConfigurationParser
         }
 
         //Codes_SRS_CONFIGURATION_PARSER_28_006: [This method shall return a json representation of this.]
-        Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+        Gson gson = SerializerRegistry.getGsonExposeOnly();
         JsonObject jsonObject = gson.toJsonTree(this).getAsJsonObject();
 
         /* SRS_TWIN_STATE_21_009: [If the tags is null, the JSON shall not include the `tags`.] */
@@ -4,11 +4,16 @@
 package com.microsoft.azure.sdk.iot.deps.serializer;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonSyntaxException;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
 
+import java.io.Reader;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 public class DeviceParser
 {
@@ -85,7 +90,7 @@ public class DeviceParser
     @SerializedName(CAPABILITIES_NAME)
     private DeviceCapabilitiesParser capabilities;
 
-    private transient Gson gson = new Gson();
+    private transient static Gson gson = SerializerRegistry.getGson();
 
     /**
      * Converts this into json format and returns it
@@ -143,17 +148,7 @@ public class DeviceParser
             throw new IllegalArgumentException("The provided json could not be parsed");
         }
 
-        //Codes_SRS_DEVICE_PARSER_34_011: [If the provided json is missing the DeviceId field or its value is empty, an IllegalArgumentException shall be thrown.]
-        if (deviceParser.deviceId == null || deviceParser.deviceId.isEmpty())
-        {
-            throw new IllegalArgumentException("The provided json must contain the field for deviceId and its value may not be empty");
-        }
-
-        //Codes_SRS_DEVICE_PARSER_34_012: [If the provided json is missing the authentication field or its value is empty, an IllegalArgumentException shall be thrown.]
-        if (deviceParser.authenticationParser == null)
-        {
-            throw new IllegalArgumentException("The provided json must contain the field for authentication and its value may not be empty");
-        }
+        validateDeviceParser(deviceParser);
 
         //Codes_SRS_DEVICE_PARSER_34_002: [This constructor shall create a DeviceParser object based off of the provided json.]
         this.authenticationParser = deviceParser.authenticationParser;
@@ -162,30 +157,107 @@ public class DeviceParser
         this.moduleId = deviceParser.moduleId;
         this.statusReason = deviceParser.statusReason;
         this.cloudToDeviceMessageCount = deviceParser.cloudToDeviceMessageCount;
-        this.connectionState = deviceParser.connectionState;
         this.generationId = deviceParser.generationId;
         this.eTag = deviceParser.eTag;
         this.status = deviceParser.status;
         this.managedBy = deviceParser.managedBy;
         this.capabilities = deviceParser.capabilities;
+        this.lastActivityTimeString = deviceParser.lastActivityTimeString;
+        this.connectionStateUpdatedTimeString = deviceParser.connectionStateUpdatedTimeString;
+        this.statusUpdatedTimeString = deviceParser.statusUpdatedTimeString;
+
+        updateDatesFromStrings();
+    }
+
+    /**
+     * Create a lazy iterator that decodes a json array of devices or modules in a single pass.
+     *
+     * <p>Each call to next() decodes one item of the array directly from the provided reader into a
+     * DeviceParser, with the same validation as {@link #DeviceParser(String)}.
+     *
+     * @param reader the reader with the json array of devices or modules.
+     * @return the iterator over the DeviceParser in the json array.
+     * @throws IllegalArgumentException if the provided reader is null.
+     */
+    public static JsonArrayIterator<DeviceParser> createJsonArrayIterator(Reader reader) throws IllegalArgumentException
+    {
+        //Codes_SRS_DEVICE_PARSER_21_001: [The createJsonArrayIterator shall return an iterator that decodes one DeviceParser per item in the json array.]
+        return new JsonArrayIterator<DeviceParser>(reader)
+        {
+            @Override
+            protected DeviceParser parseItem(JsonReader jsonReader) throws IllegalArgumentException
+            {
+                DeviceParser deviceParser;
+                try
+                {
+                    deviceParser = gson.fromJson(jsonReader, DeviceParser.class);
+                }
+                catch (JsonParseException e)
+                {
+                    //Codes_SRS_DEVICE_PARSER_21_002: [If an item in the json array cannot be parsed into a DeviceParser object, an IllegalArgumentException shall be thrown.]
+                    throw new IllegalArgumentException("The provided json could not be parsed");
+                }
+
+                //Codes_SRS_DEVICE_PARSER_21_003: [If an item in the json array is missing the deviceId or the authentication, an IllegalArgumentException shall be thrown.]
+                validateDeviceParser(deviceParser);
+                deviceParser.updateDatesFromStrings();
+
+                return deviceParser;
+            }
+        };
+    }
+
+    /**
+     * Create a list of DeviceParser from a json array of devices or modules, decoded in a single pass.
+     *
+     * @param reader the reader with the json array of devices or modules.
+     * @return the list of DeviceParser in the json array.
+     * @throws IllegalArgumentException if the provided reader is null, or the json is not the expected format.
+     */
+    public static List<DeviceParser> createFromJsonArray(Reader reader) throws IllegalArgumentException
+    {
+        //Codes_SRS_DEVICE_PARSER_21_004: [The createFromJsonArray shall return a list with one DeviceParser per item in the json array.]
+        List<DeviceParser> deviceParsers = new ArrayList<>();
+        JsonArrayIterator<DeviceParser> iterator = createJsonArrayIterator(reader);
+        while (iterator.hasNext())
+        {
+            deviceParsers.add(iterator.next());
+        }
+
+        return deviceParsers;
+    }
+
+    private static void validateDeviceParser(DeviceParser deviceParser) throws IllegalArgumentException
+    {
+        //Codes_SRS_DEVICE_PARSER_34_011: [If the provided json is missing the DeviceId field or its value is empty, an IllegalArgumentException shall be thrown.]
+        if (deviceParser == null || deviceParser.deviceId == null || deviceParser.deviceId.isEmpty())
+        {
+            throw new IllegalArgumentException("The provided json must contain the field for deviceId and its value may not be empty");
+        }
 
+        //Codes_SRS_DEVICE_PARSER_34_012: [If the provided json is missing the authentication field or its value is empty, an IllegalArgumentException shall be thrown.]
+        if (deviceParser.authenticationParser == null)
+        {
+            throw new IllegalArgumentException("The provided json must contain the field for authentication and its value may not be empty");
+        }
+    }
+
+    private void updateDatesFromStrings()
+    {
         //convert to date format
-        if (deviceParser.lastActivityTimeString != null)
+        if (this.lastActivityTimeString != null)
         {
-            this.lastActivityTimeString = deviceParser.lastActivityTimeString;
-            this.lastActivityTime = ParserUtility.getDateTimeUtc(deviceParser.lastActivityTimeString);
+            this.lastActivityTime = ParserUtility.getDateTimeUtc(this.lastActivityTimeString);
         }
 
-        if (deviceParser.connectionStateUpdatedTimeString != null)
+        if (this.connectionStateUpdatedTimeString != null)
         {
-            this.connectionStateUpdatedTimeString = deviceParser.connectionStateUpdatedTimeString;
-            this.connectionStateUpdatedTime = ParserUtility.getDateTimeUtc(deviceParser.connectionStateUpdatedTimeString);
+            this.connectionStateUpdatedTime = ParserUtility.getDateTimeUtc(this.connectionStateUpdatedTimeString);
         }
 
-        if (deviceParser.statusUpdatedTimeString != null)
+        if (this.statusUpdatedTimeString != null)
         {
-            this.statusUpdatedTimeString = deviceParser.statusUpdatedTimeString;
-            this.statusUpdatedTime = ParserUtility.getDateTimeUtc(deviceParser.statusUpdatedTimeString);
+            this.statusUpdatedTime = ParserUtility.getDateTimeUtc(this.statusUpdatedTimeString);
         }
     }
 
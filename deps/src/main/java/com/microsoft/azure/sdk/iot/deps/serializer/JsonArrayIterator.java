@@ -0,0 +1,142 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.deps.serializer;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazy iterator over the items of a json array.
+ *
+ * <p>The json is decoded in a single pass directly from the provided {@link Reader}, one array item per
+ * call to {@link #next()}, so the full array never needs to be materialized as an intermediate json tree.
+ *
+ * @param <T> the type of the objects decoded from each item in the array.
+ */
+public abstract class JsonArrayIterator<T> implements Iterator<T>, Closeable
+{
+    private final JsonReader jsonReader;
+    private boolean arrayStarted;
+    private boolean arrayEnded;
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param reader the reader with the json array. It cannot be {@code null}.
+     * @throws IllegalArgumentException if the provided reader is {@code null}.
+     */
+    protected JsonArrayIterator(Reader reader) throws IllegalArgumentException
+    {
+        /* Codes_SRS_JSON_ARRAY_ITERATOR_21_001: [If the provided reader is null, the constructor shall throw IllegalArgumentException.] */
+        if (reader == null)
+        {
+            throw new IllegalArgumentException("The provided reader cannot be null");
+        }
+
+        this.jsonReader = new JsonReader(reader);
+    }
+
+    /**
+     * Decode one item of the array from the provided json reader.
+     *
+     * @param jsonReader the json reader positioned at the beginning of the next item.
+     * @return the decoded item.
+     * @throws IllegalArgumentException if the item is not in the expected format.
+     */
+    protected abstract T parseItem(JsonReader jsonReader) throws IllegalArgumentException;
+
+    /**
+     * Checks if there are more items in the json array.
+     *
+     * @return {@code true} if there is at least one more item in the array.
+     * @throws IllegalArgumentException if the json is not a valid array.
+     */
+    @Override
+    public boolean hasNext() throws IllegalArgumentException
+    {
+        try
+        {
+            if (!arrayStarted)
+            {
+                /* Codes_SRS_JSON_ARRAY_ITERATOR_21_002: [If the json is not an array, the hasNext shall throw IllegalArgumentException.] */
+                if (jsonReader.peek() != JsonToken.BEGIN_ARRAY)
+                {
+                    throw new IllegalArgumentException("The provided json is not an array");
+                }
+                jsonReader.beginArray();
+                arrayStarted = true;
+            }
+
+            if (arrayEnded)
+            {
+                return false;
+            }
+
+            /* Codes_SRS_JSON_ARRAY_ITERATOR_21_003: [The hasNext shall return true if there is at least one more item in the array.] */
+            if (jsonReader.hasNext())
+            {
+                return true;
+            }
+
+            jsonReader.endArray();
+            arrayEnded = true;
+            return false;
+        }
+        catch (IOException | IllegalStateException e)
+        {
+            /* Codes_SRS_JSON_ARRAY_ITERATOR_21_004: [If the json is malformed, the hasNext shall throw IllegalArgumentException.] */
+            throw new IllegalArgumentException("The provided json could not be parsed", e);
+        }
+    }
+
+    /**
+     * Decode the next item in the json array.
+     *
+     * @return the decoded item.
+     * @throws NoSuchElementException if there are no more items in the array.
+     * @throws IllegalArgumentException if the item is not in the expected format.
+     */
+    @Override
+    public T next() throws NoSuchElementException, IllegalArgumentException
+    {
+        /* Codes_SRS_JSON_ARRAY_ITERATOR_21_005: [If there are no more items in the array, the next shall throw NoSuchElementException.] */
+        if (!hasNext())
+        {
+            throw new NoSuchElementException("There are no more items in the json array");
+        }
+
+        /* Codes_SRS_JSON_ARRAY_ITERATOR_21_006: [The next shall decode and return the next item in the array.] */
+        return parseItem(jsonReader);
+    }
+
+    /**
+     * The items in the json array cannot be removed.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public void remove() throws UnsupportedOperationException
+    {
+        /* Codes_SRS_JSON_ARRAY_ITERATOR_21_007: [The remove shall throw UnsupportedOperationException.] */
+        throw new UnsupportedOperationException("The json array is read only");
+    }
+
+    /**
+     * Close the underlying reader.
+     *
+     * @throws IOException if the reader cannot be closed.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        /* Codes_SRS_JSON_ARRAY_ITERATOR_21_008: [The close shall close the underlying reader.] */
+        jsonReader.close();
+    }
+}
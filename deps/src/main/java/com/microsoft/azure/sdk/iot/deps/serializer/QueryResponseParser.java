@@ -6,7 +6,6 @@
 package com.microsoft.azure.sdk.iot.deps.serializer;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonSyntaxException;
 
@@ -28,7 +27,7 @@ public class QueryResponseParser
     public QueryResponseParser(String json) throws IllegalArgumentException
     {
         //Codes_SRS_QUERY_RESPONSE_PARSER_25_001: [The constructor shall create an instance of the QueryResponseParser.]
-        gson = new GsonBuilder().disableHtmlEscaping().create();
+        gson = SerializerRegistry.getGsonDisableHtmlEscaping();
 
         //Codes_SRS_QUERY_RESPONSE_PARSER_25_003: [If the provided json is null, empty, or not valid, the constructor shall throws IllegalArgumentException.]
         if((json == null) || json.isEmpty())
@@ -0,0 +1,132 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.deps.serializer;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Registry of the shared {@link Gson} configurations used by the SDK serializers.
+ *
+ * <p>Building a {@link Gson} instance is expensive, each new instance rebuilds its type adapter cache and
+ * the reflection metadata for every class that it touches. {@link Gson} is immutable and thread safe, so
+ * the serializers shall use one of the instances in this registry instead of creating a new one per call.
+ */
+public final class SerializerRegistry
+{
+    private static final Gson DEFAULT = new GsonBuilder().create();
+    private static final Gson DISABLE_HTML_ESCAPING = new GsonBuilder().disableHtmlEscaping().create();
+    private static final Gson SERIALIZE_NULLS = new GsonBuilder().serializeNulls().create();
+    private static final Gson DISABLE_HTML_ESCAPING_SERIALIZE_NULLS = new GsonBuilder().disableHtmlEscaping().serializeNulls().create();
+    private static final Gson COMPLEX_MAP_KEY_SERIALIZE_NULLS = new GsonBuilder().enableComplexMapKeySerialization().serializeNulls().create();
+    private static final Gson PRETTY_PRINTING = new GsonBuilder().disableHtmlEscaping().setPrettyPrinting().create();
+    private static final Gson EXPOSE_ONLY = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+    private static final Gson EXPOSE_ONLY_DISABLE_HTML_ESCAPING = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().disableHtmlEscaping().create();
+    private static final Gson EXPOSE_ONLY_PRETTY_PRINTING = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().disableHtmlEscaping().setPrettyPrinting().create();
+
+    private SerializerRegistry()
+    {
+    }
+
+    /**
+     * Getter for the Gson with the default configuration.
+     *
+     * @return the shared {@link Gson} created by {@code new GsonBuilder().create()}.
+     */
+    public static Gson getGson()
+    {
+        /* Codes_SRS_SERIALIZER_REGISTRY_21_001: [The getGson shall return a Gson with the default configuration.] */
+        return DEFAULT;
+    }
+
+    /**
+     * Getter for the Gson that do not escape HTML characters.
+     *
+     * @return the shared {@link Gson} created with {@code disableHtmlEscaping()}.
+     */
+    public static Gson getGsonDisableHtmlEscaping()
+    {
+        /* Codes_SRS_SERIALIZER_REGISTRY_21_002: [The getGsonDisableHtmlEscaping shall return a Gson that do not escape HTML characters.] */
+        return DISABLE_HTML_ESCAPING;
+    }
+
+    /**
+     * Getter for the Gson that serializes null values.
+     *
+     * @return the shared {@link Gson} created with {@code serializeNulls()}.
+     */
+    public static Gson getGsonSerializeNulls()
+    {
+        /* Codes_SRS_SERIALIZER_REGISTRY_21_003: [The getGsonSerializeNulls shall return a Gson that serializes null values.] */
+        return SERIALIZE_NULLS;
+    }
+
+    /**
+     * Getter for the Gson that serializes null values and do not escape HTML characters.
+     *
+     * @return the shared {@link Gson} created with {@code disableHtmlEscaping()} and {@code serializeNulls()}.
+     */
+    public static Gson getGsonDisableHtmlEscapingSerializeNulls()
+    {
+        /* Codes_SRS_SERIALIZER_REGISTRY_21_004: [The getGsonDisableHtmlEscapingSerializeNulls shall return a Gson that serializes null values and do not escape HTML characters.] */
+        return DISABLE_HTML_ESCAPING_SERIALIZE_NULLS;
+    }
+
+    /**
+     * Getter for the Gson that serializes complex map keys and null values.
+     *
+     * @return the shared {@link Gson} created with {@code enableComplexMapKeySerialization()} and {@code serializeNulls()}.
+     */
+    public static Gson getGsonComplexMapKeySerializeNulls()
+    {
+        /* Codes_SRS_SERIALIZER_REGISTRY_21_005: [The getGsonComplexMapKeySerializeNulls shall return a Gson that serializes complex map keys and null values.] */
+        return COMPLEX_MAP_KEY_SERIALIZE_NULLS;
+    }
+
+    /**
+     * Getter for the Gson that pretty prints the JSON without escaping HTML characters.
+     *
+     * @return the shared {@link Gson} created with {@code disableHtmlEscaping()} and {@code setPrettyPrinting()}.
+     */
+    public static Gson getGsonPrettyPrinting()
+    {
+        /* Codes_SRS_SERIALIZER_REGISTRY_21_006: [The getGsonPrettyPrinting shall return a Gson that pretty prints and do not escape HTML characters.] */
+        return PRETTY_PRINTING;
+    }
+
+    /**
+     * Getter for the Gson that only handles fields with the {@code @Expose} annotation.
+     *
+     * @return the shared {@link Gson} created with {@code excludeFieldsWithoutExposeAnnotation()}.
+     */
+    public static Gson getGsonExposeOnly()
+    {
+        /* Codes_SRS_SERIALIZER_REGISTRY_21_007: [The getGsonExposeOnly shall return a Gson that excludes fields without the Expose annotation.] */
+        return EXPOSE_ONLY;
+    }
+
+    /**
+     * Getter for the Gson that only handles fields with the {@code @Expose} annotation, and do not escape HTML characters.
+     *
+     * @return the shared {@link Gson} created with {@code excludeFieldsWithoutExposeAnnotation()} and {@code disableHtmlEscaping()}.
+     */
+    public static Gson getGsonExposeOnlyDisableHtmlEscaping()
+    {
+        /* Codes_SRS_SERIALIZER_REGISTRY_21_008: [The getGsonExposeOnlyDisableHtmlEscaping shall return a Gson that excludes fields without the Expose annotation and do not escape HTML characters.] */
+        return EXPOSE_ONLY_DISABLE_HTML_ESCAPING;
+    }
+
+    /**
+     * Getter for the Gson that only handles fields with the {@code @Expose} annotation, and pretty prints the
+     * JSON without escaping HTML characters.
+     *
+     * @return the shared {@link Gson} created with {@code excludeFieldsWithoutExposeAnnotation()},
+     *         {@code disableHtmlEscaping()} and {@code setPrettyPrinting()}.
+     */
+    public static Gson getGsonExposeOnlyPrettyPrinting()
+    {
+        /* Codes_SRS_SERIALIZER_REGISTRY_21_009: [The getGsonExposeOnlyPrettyPrinting shall return a Gson that excludes fields without the Expose annotation, pretty prints, and do not escape HTML characters.] */
+        return EXPOSE_ONLY_PRETTY_PRINTING;
+    }
+}
@@ -152,7 +152,7 @@ public class TwinParser
     public JsonElement toJsonElement()
     {
         /* Codes_SRS_TWINPARSER_21_017: [The toJsonElement shall return a JsonElement with information in the TwinParser using json format.] */
-        Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+        Gson gson = SerializerRegistry.getGsonDisableHtmlEscaping();
         JsonObject twinJson = gson.toJsonTree(manager).getAsJsonObject();
 
         /* Codes_SRS_TWINPARSER_21_018: [The toJsonElement shall not include null fields.] */
@@ -219,7 +219,7 @@ public class TwinParser
         validateMap(reportedPropertyMap);
         validateMap(tagsMap);
 
-        Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+        Gson gson = SerializerRegistry.getGsonDisableHtmlEscaping();
         jsonTwin = gson.toJsonTree(manager).getAsJsonObject();
 
         /* Codes_SRS_TWINPARSER_21_075: [If Tags is not enable and `tagsMap` is not null, the updateTwin shall throw IOException.] */
@@ -620,7 +620,7 @@ public class TwinParser
         /* Codes_SRS_TWINPARSER_21_071: [If the provided json is empty, the updateTwin shall not change the collection and not call the OnDesiredCallback or the OnReportedCallback.] */
         if(!json.isEmpty())
         {
-            Gson gson = new GsonBuilder().disableInnerClassSerialization().disableHtmlEscaping().create();
+            Gson gson = SerializerRegistry.getGsonDisableHtmlEscaping();
             Map<String, Object> jsonTree;
             try
             {
@@ -1007,7 +1007,7 @@ public class TwinParser
         Map<String, Object> map;
         try
         {
-            Gson gson = new GsonBuilder().disableInnerClassSerialization().disableHtmlEscaping().create();
+            Gson gson = SerializerRegistry.getGsonDisableHtmlEscaping();
             map = (Map<String, Object>) gson.fromJson(json, HashMap.class);
         }
         catch (Exception e)
@@ -65,6 +65,21 @@ public class AmqpMessage
         this.messageImpl.setApplicationProperties(applicationProperties);
     }
 
+    /**
+     * Returns the application properties of the message
+     * @return the application properties, or {@code null} if the message has none.
+     */
+    public Map<String, Object> getApplicationProperty()
+    {
+        ApplicationProperties applicationProperties = this.messageImpl.getApplicationProperties();
+        if (applicationProperties == null)
+        {
+            return null;
+        }
+
+        return applicationProperties.getValue();
+    }
+
     /**
      * Sets the data value
      * @param data the {@code byte[]} to be decoded
@@ -39,6 +39,7 @@ public class AmqpsConnection extends BaseHandler
     private long nextTag;
 
     private Boolean useWebSockets;
+    private int webSocketMaxFrameSize = WebSocketImpl.DEFAULT_MAX_FRAME_SIZE;
     private Boolean isOpen;
 
     private String hostName;
@@ -128,6 +129,18 @@ public class AmqpsConnection extends BaseHandler
         this.msgListener = listener;
     }
 
+    /**
+     * Sets the maximum size of the WebSocket frames of this connection, including their header. Only used if the
+     * connection uses WebSockets, and only by the connections opened after this call.
+     * @param maxFrameSize the maximum size of a WebSocket frame, by default {@link WebSocketImpl#DEFAULT_MAX_FRAME_SIZE}.
+     * @throws IllegalArgumentException if the maxFrameSize cannot fit a frame header and its payload.
+     */
+    public void setWebSocketMaxFrameSize(int maxFrameSize) throws IllegalArgumentException
+    {
+        WebSocketImpl.validateMaxFrameSize(maxFrameSize);
+        this.webSocketMaxFrameSize = maxFrameSize;
+    }
+
     /**
      * Returns the status of the connection
      * @return status of the connection
@@ -349,7 +362,7 @@ public class AmqpsConnection extends BaseHandler
 
             if (this.useWebSockets)
             {
-                WebSocketImpl webSocket = new WebSocketImpl();
+                WebSocketImpl webSocket = new WebSocketImpl(this.webSocketMaxFrameSize);
                 webSocket.configure(this.hostName, WEB_SOCKET_PATH, 0, WEB_SOCKET_SUB_PROTOCOL, null, null);
                 ((TransportInternal)transport).addTransportLayer(webSocket);
             }
@@ -7,6 +7,7 @@ package com.microsoft.azure.sdk.iot.deps.transport.http;
 
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.ProtocolException;
@@ -311,7 +312,25 @@ public class HttpConnection
             throw new IllegalArgumentException("SSL context cannot be null");
         }
         //Codes_SRS_HTTPSCONNECTION_25_024: [**The function shall set the the SSL context with the given value.**]**
-        this.connection.setSSLSocketFactory(sslContext.getSocketFactory());
+        this.setSSLSocketFactory(sslContext.getSocketFactory());
+    }
+
+    /**
+     * Sets the socket factory used to open the TLS socket. To reuse kept alive TLS connections, get it from a
+     * {@link SSLSocketFactoryCache}.
+     *
+     * @param sslSocketFactory the socket factory for this connection.
+     * @throws IllegalArgumentException if the provided socket factory is null.
+     */
+    void setSSLSocketFactory(SSLSocketFactory sslSocketFactory) throws IllegalArgumentException
+    {
+        if (sslSocketFactory == null)
+        {
+            //Codes_SRS_HTTPSCONNECTION_21_026: [The function shall throw IllegalArgumentException if the socket factory is null.]
+            throw new IllegalArgumentException("SSL socket factory cannot be null");
+        }
+        //Codes_SRS_HTTPSCONNECTION_21_027: [The function shall set the socket factory of the connection with the given value.]
+        this.connection.setSSLSocketFactory(sslSocketFactory);
     }
 
     protected HttpConnection()
@@ -6,6 +6,7 @@
 package com.microsoft.azure.sdk.iot.deps.transport.http;
 
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
 import java.io.IOException;
 import java.net.URL;
 import java.util.List;
@@ -129,6 +130,27 @@ public class HttpRequest
         return this;
     }
 
+    /**
+     * Sets the socket factory for the request. To reuse kept alive TLS connections, get it from a
+     * {@link SSLSocketFactoryCache}.
+     *
+     * @param sslSocketFactory the socket factory for the request. It cannot be {@code null}.
+     *
+     * @return The object itself, for fluent setting.
+     * @throws IllegalArgumentException if the provided socket factory is null.
+     */
+    public HttpRequest setSSLSocketFactory(SSLSocketFactory sslSocketFactory)
+    {
+        if (sslSocketFactory == null)
+        {
+            //Codes_SRS_HTTPSREQUEST_21_017: [The function shall throw IllegalArgumentException if parameter is null.]
+            throw new IllegalArgumentException("Socket factory cannot be null");
+        }
+        //Codes_SRS_HTTPSREQUEST_21_018: [The function shall set the socket factory for the connection.]
+        this.connection.setSSLSocketFactory(sslSocketFactory);
+        return this;
+    }
+
     protected HttpRequest()
     {
         this.connection = null;
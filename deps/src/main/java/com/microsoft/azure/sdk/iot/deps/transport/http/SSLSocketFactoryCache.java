@@ -0,0 +1,52 @@
+/*
+ *  Copyright (c) Microsoft. All rights reserved.
+ *  Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.sdk.iot.deps.transport.http;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Keeps the socket factory of an SSL context, so all HTTPS requests that use the same SSL context share the same
+ * socket factory instance.
+ *
+ * <p> The JDK keep-alive cache only reuses a TLS socket for a request with the same socket factory instance, and
+ *     {@link SSLContext#getSocketFactory()} returns a new instance per call. A client that gets the socket factory
+ *     of each request from this cache reuses its kept alive TLS connections. When the SSL context changes, for
+ *     example when the certificates are renewed, the cache creates a new socket factory for the new SSL context.
+ *
+ * <p> This class is thread safe.
+ */
+public final class SSLSocketFactoryCache
+{
+    private SSLContext sslContext;
+    private SSLSocketFactory sslSocketFactory;
+
+    /**
+     * Getter for the socket factory of the provided SSL context.
+     *
+     * @param sslContext the SSL context of the request. It cannot be {@code null}.
+     * @return The socket factory of the SSL context, which is the same instance while the SSL context does not change.
+     * @throws IllegalArgumentException if the provided SSL context is null.
+     */
+    public synchronized SSLSocketFactory getSocketFactory(SSLContext sslContext) throws IllegalArgumentException
+    {
+        if (sslContext == null)
+        {
+            //Codes_SRS_SSLSOCKETFACTORYCACHE_21_001: [The function shall throw IllegalArgumentException if the SSL context is null.]
+            throw new IllegalArgumentException("SSL context cannot be null");
+        }
+
+        if (this.sslSocketFactory == null || this.sslContext != sslContext)
+        {
+            //Codes_SRS_SSLSOCKETFACTORYCACHE_21_003: [If the SSL context is not the one of the cached socket factory, the function shall create a new socket factory from the SSL context and cache it.]
+            this.sslContext = sslContext;
+            this.sslSocketFactory = sslContext.getSocketFactory();
+        }
+
+        //Codes_SRS_SSLSOCKETFACTORYCACHE_21_002: [The function shall return the same socket factory while the SSL context does not change.]
+        return this.sslSocketFactory;
+    }
+}
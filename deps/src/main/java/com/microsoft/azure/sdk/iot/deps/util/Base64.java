@@ -3,178 +3,154 @@
 
 package com.microsoft.azure.sdk.iot.deps.util;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 public final class Base64
 {
-    private static final byte BYTE_START_UPPERCASE = 'A';
-    private static final byte BYTE_END_UPPERCASE = 'Z';
-    private static final byte BYTE_START_LOWERCASE = 'a';
-    private static final byte BYTE_END_LOWERCASE = 'z';
-    private static final byte BYTE_START_NUMBER = '0';
-    private static final byte BYTE_END_NUMBER = '9';
-    private static final byte BYTE_PLUS = '+';
-    private static final byte BYTE_SLASH = '/';
-
-    private static final int BASE64_END_UPPERCASE = 26;
-    private static final int BASE64_END_LOWERCASE = 52;
-    private static final int BASE64_END_NUMBER = 62;
-    private static final int BASE64_PLUS = 62;
-    private static final int BASE64_SLASH = 63;
     private static final byte BASE64_PAD = '=';
+    private static final byte INVALID_BASE64 = -1;
 
-    private static final int HALF_NIBBLE = 2;
-    private static final int ONE_NIBBLE = 4;
-    private static final int ONE_AND_HALF_NIBBLE = 6;
     private static final int ONE_BYTE = 8;
     private static final int TWO_BYTES = 16;
-    private static final int THREE_BYTES = 24;
-
+    private static final int BASE64_BITS = 6;
     private static final int ISOLATE_BYTE = 0xFF;
     private static final int ISOLATE_BASE64 = 0x3F;
-    private static final int ISOLATE_LSB_BASE64 = 0x0F;
-    private static final int ISOLATE_MSB_BASE64 = 0x03;
 
     private static final int BYTE_GROUP_SIZE = 3;
     private static final int BASE64_GROUP_SIZE = 4;
 
+    private static final byte[] ENCODE_TABLE =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes(StandardCharsets.US_ASCII);
 
-    private static final int[] BASE64D16_CONVERSION_TABLE =
-        {
-            ((int)'A' + ((int)'E'<<ONE_BYTE) + ((int)'I'<<TWO_BYTES) + ((int)'M'<<THREE_BYTES)),
-            ((int)'Q' + ((int)'U'<<ONE_BYTE) + ((int)'Y'<<TWO_BYTES) + ((int)'c'<<THREE_BYTES)),
-            ((int)'g' + ((int)'k'<<ONE_BYTE) + ((int)'o'<<TWO_BYTES) + ((int)'s'<<THREE_BYTES)),
-            ((int)'w' + ((int)'0'<<ONE_BYTE) + ((int)'4'<<TWO_BYTES) + ((int)'8'<<THREE_BYTES)),
-        };
-
-    private static final int BASE64D8_CONVERSION_TABLE = ((int)'A' + ((int)'Q'<<ONE_BYTE) + ((int)'g'<<TWO_BYTES) + ((int)'w'<<THREE_BYTES));
+    private static final byte[] DECODE_TABLE = new byte[ISOLATE_BYTE + 1];
 
-    private static byte extractBase64FromInteger(final int integerValue, final int bytePosition)
+    static
     {
-        return (byte)((integerValue >> (bytePosition << 3)) & ISOLATE_BYTE);
-    }
-
-    private static byte base64ToByte(final byte base64Value)
-    {
-        if(base64Value < BASE64_END_UPPERCASE)
-        {
-            return (byte)(BYTE_START_UPPERCASE + base64Value);
-        }
-
-        if(base64Value < BASE64_END_LOWERCASE)
-        {
-            return (byte)(BYTE_START_LOWERCASE + (base64Value - BASE64_END_UPPERCASE));
-        }
-
-        if(base64Value < BASE64_END_NUMBER)
+        for (int i = 0; i < DECODE_TABLE.length; i++)
         {
-            return (byte)(BYTE_START_NUMBER + (base64Value - BASE64_END_LOWERCASE));
+            DECODE_TABLE[i] = INVALID_BASE64;
         }
-
-        if(base64Value == BASE64_END_NUMBER)
+        for (int i = 0; i < ENCODE_TABLE.length; i++)
         {
-            return BYTE_PLUS;
+            DECODE_TABLE[ENCODE_TABLE[i]] = (byte)i;
         }
-
-        return BYTE_SLASH;
     }
 
-    private static byte base64d16ToByte(final byte base64d16Value)
-    {
-        return extractBase64FromInteger(BASE64D16_CONVERSION_TABLE[base64d16Value >> HALF_NIBBLE],
-            (base64d16Value & ISOLATE_MSB_BASE64));
-    }
-
-    private static byte base64d8ToByte(final byte base64d8Value)
-    {
-        return extractBase64FromInteger(BASE64D8_CONVERSION_TABLE, base64d8Value);
-    }
-
-    private static byte byteToBase64(final byte byteValue) throws IllegalArgumentException
+    /**
+     * Convert a array of base64 encoded byte in a array of bytes, returning the bytes
+     * original values.
+     * <a href="http://www.ietf.org/rfc/rfc2045.txt">RFC 2045</a>.
+     *
+     * Base64 only uses 6 bits, so fits each set of 4 base64 in 3 bytes
+     *     Base64  |     c1    |     c2    |     c3    |     c4    |
+     *             |7 6 5 4 3 2 1 0:7 6 5 4 3 2 1 0:7 6 5 4 3 2 1 0|
+     *     Byte    |       b1      |       b2      |       b3      |
+     *
+     * @param base64Values is an array of base64 encoded values
+     * @return an array of bytes with the original values
+     * @throws IllegalArgumentException if the provided base64 values are null, or do not fits the required length
+     */
+    public static byte[] decodeBase64Local(final byte[] base64Values) throws IllegalArgumentException
     {
-        if((byteValue >= BYTE_START_UPPERCASE) && (byteValue <= BYTE_END_UPPERCASE))
+        /* Codes_SRS_BASE64_21_002: [If the `base64Values` is null, the decodeBase64Local shall throw IllegalArgumentException.] */
+        if(base64Values == null)
         {
-            return (byte)(byteValue - BYTE_START_UPPERCASE);
+            throw new IllegalArgumentException("null or empty base64Values");
         }
 
-        if((byteValue >= BYTE_START_LOWERCASE) && (byteValue <= BYTE_END_LOWERCASE))
-        {
-            return (byte)((BYTE_END_UPPERCASE - BYTE_START_UPPERCASE) + 1 +
-                (byteValue - BYTE_START_LOWERCASE));
-        }
+        return decodeBase64Local(base64Values, 0, base64Values.length);
+    }
 
-        if((byteValue >= BYTE_START_NUMBER) && (byteValue <= BYTE_END_NUMBER))
+    /**
+     * Convert a range of an array of base64 encoded byte in a array of bytes, returning the bytes
+     * original values.
+     * <a href="http://www.ietf.org/rfc/rfc2045.txt">RFC 2045</a>.
+     *
+     * @param base64Values is an array that contains the base64 encoded values
+     * @param offset is the index of the first base64 encoded value in the array
+     * @param length is the number of base64 encoded values
+     * @return an array of bytes with the original values
+     * @throws IllegalArgumentException if the provided base64 values are null, the range is out of the array,
+     *                                  or the values do not fits the required length
+     */
+    public static byte[] decodeBase64Local(final byte[] base64Values, final int offset, final int length) throws IllegalArgumentException
+    {
+        /* Codes_SRS_BASE64_21_002: [If the `base64Values` is null, the decodeBase64Local shall throw IllegalArgumentException.] */
+        if(base64Values == null)
         {
-            return (byte)((BYTE_END_UPPERCASE - BYTE_START_UPPERCASE) + 1 +
-                (BYTE_END_LOWERCASE - BYTE_START_LOWERCASE) + 1 +
-                (byteValue - BYTE_START_NUMBER));
+            throw new IllegalArgumentException("null or empty base64Values");
         }
 
-        if(byteValue == BYTE_PLUS)
-        {
-            return BASE64_PLUS;
-        }
+        /* Codes_SRS_BASE64_21_011: [If the `offset` and `length` are not a range of the array, the function shall throw IllegalArgumentException.] */
+        validateRange(base64Values.length, offset, length);
 
-        if(byteValue == BYTE_SLASH)
+        /* Codes_SRS_BASE64_21_003: [If the `base64Values` is empty, the decodeBase64Local shall return a empty byte array.] */
+        if(length == 0)
         {
-            return BASE64_SLASH;
+            return new byte[0];
         }
 
-        throw new IllegalArgumentException("provided byte value out of base64 range");
-    }
-
-    private static int numberOfValidBase64BytesWithoutPad(final byte[] bytesToEncode) throws IllegalArgumentException
-    {
-        int validLength = bytesToEncode.length;
-
-        if(bytesToEncode[validLength-1] == BASE64_PAD)
+        /* Codes_SRS_BASE64_21_004: [If the `base64Values` length is not multiple of 4, the decodeBase64Local shall throw IllegalArgumentException.] */
+        if((length % BASE64_GROUP_SIZE) != 0)
         {
-            validLength--;
+            throw new IllegalArgumentException("invalid base64Values length");
         }
 
-        if(bytesToEncode[validLength-1] == BASE64_PAD)
+        /* Codes_SRS_BASE64_21_001: [The decodeBase64Local shall decode the provided `base64Values` in a byte array using the Base64 format define in the RFC2045.] */
+        int end = offset + length;
+        int pads = 0;
+        if(base64Values[end - 1] == BASE64_PAD)
         {
-            validLength--;
+            pads++;
+            if(base64Values[end - 2] == BASE64_PAD)
+            {
+                pads++;
+            }
         }
 
-        return validLength;
-    }
-
-    private static int base64EstimatedLength(final byte[] base64sToDecode)
-    {
-        int estimatedLength;
+        int fullGroupsEnd = (pads == 0) ? end : (end - BASE64_GROUP_SIZE);
+        byte[] decodedResult = new byte[(length / BASE64_GROUP_SIZE * BYTE_GROUP_SIZE) - pads];
+        int decodedIndex = 0;
+        int encodedIndex = offset;
 
-        if(base64sToDecode.length == 0)
+        while(encodedIndex < fullGroupsEnd)
         {
-            return 0;
+            int group = (decodeValue(base64Values[encodedIndex]) << (BASE64_BITS * 3)) |
+                    (decodeValue(base64Values[encodedIndex + 1]) << (BASE64_BITS * 2)) |
+                    (decodeValue(base64Values[encodedIndex + 2]) << BASE64_BITS) |
+                    decodeValue(base64Values[encodedIndex + 3]);
+            decodedResult[decodedIndex++] = (byte)(group >> TWO_BYTES);
+            decodedResult[decodedIndex++] = (byte)(group >> ONE_BYTE);
+            decodedResult[decodedIndex++] = (byte)group;
+            encodedIndex += BASE64_GROUP_SIZE;
         }
 
-        estimatedLength = base64sToDecode.length / BASE64_GROUP_SIZE * BYTE_GROUP_SIZE;
-        if(base64sToDecode[base64sToDecode.length - 1] == BASE64_PAD)
+        if(pads != 0)
         {
-            if(base64sToDecode[base64sToDecode.length - 2] == BASE64_PAD)
+            int group = (decodeValue(base64Values[encodedIndex]) << (BASE64_BITS * 3)) |
+                    (decodeValue(base64Values[encodedIndex + 1]) << (BASE64_BITS * 2));
+            if(pads == 1)
             {
-                estimatedLength --;
+                group |= (decodeValue(base64Values[encodedIndex + 2]) << BASE64_BITS);
+                decodedResult[decodedIndex + 1] = (byte)(group >> ONE_BYTE);
             }
-            estimatedLength --;
+            decodedResult[decodedIndex] = (byte)(group >> TWO_BYTES);
         }
 
-        return estimatedLength;
+        return decodedResult;
     }
 
     /**
-     * Convert a array of base64 encoded byte in a array of bytes, returning the bytes
-     * original values.
+     * Convert the remaining base64 encoded bytes of a buffer in a array of bytes, returning the bytes
+     * original values. The position of the buffer is moved to its limit.
      * <a href="http://www.ietf.org/rfc/rfc2045.txt">RFC 2045</a>.
      *
-     * Base64 only uses 6 bits, so fits each set of 4 base64 in 3 bytes
-     *     Base64  |     c1    |     c2    |     c3    |     c4    |
-     *             |7 6 5 4 3 2 1 0:7 6 5 4 3 2 1 0:7 6 5 4 3 2 1 0|
-     *     Byte    |       b1      |       b2      |       b3      |
-     *
-     * @param base64Values is an array of base64 encoded values
+     * @param base64Values is a buffer with the base64 encoded values
      * @return an array of bytes with the original values
-     * @throws IllegalArgumentException if the provided base64 values are null, or do not fits the required length
+     * @throws IllegalArgumentException if the provided buffer is null, or the values do not fits the required length
      */
-    public static byte[] decodeBase64Local(final byte[] base64Values) throws IllegalArgumentException
+    public static byte[] decodeBase64Local(final ByteBuffer base64Values) throws IllegalArgumentException
     {
         /* Codes_SRS_BASE64_21_002: [If the `base64Values` is null, the decodeBase64Local shall throw IllegalArgumentException.] */
         if(base64Values == null)
@@ -182,64 +158,114 @@ public final class Base64
             throw new IllegalArgumentException("null or empty base64Values");
         }
 
-        /* Codes_SRS_BASE64_21_003: [If the `base64Values` is empty, the decodeBase64Local shall return a empty byte array.] */
-        if(base64Values.length == 0)
+        /* Codes_SRS_BASE64_21_012: [The function shall use the remaining bytes of the buffer, without copying them if the buffer has an accessible array, and move its position to its limit.] */
+        byte[] decodedResult;
+        if(base64Values.hasArray())
         {
-            return new byte[0];
+            decodedResult = decodeBase64Local(base64Values.array(), base64Values.arrayOffset() + base64Values.position(), base64Values.remaining());
+            base64Values.position(base64Values.limit());
         }
-
-        /* Codes_SRS_BASE64_21_004: [If the `base64Values` length is not multiple of 4, the decodeBase64Local shall throw IllegalArgumentException.] */
-        if((base64Values.length % BASE64_GROUP_SIZE) != 0)
+        else
         {
-            throw new IllegalArgumentException("invalid base64Values length");
+            byte[] encoded = new byte[base64Values.remaining()];
+            base64Values.get(encoded);
+            decodedResult = decodeBase64Local(encoded);
         }
 
-        /* Codes_SRS_BASE64_21_001: [The decodeBase64Local shall decode the provided `base64Values` in a byte array using the Base64 format define in the RFC2045.] */
-        int numberOfEncodedBytes = numberOfValidBase64BytesWithoutPad(base64Values);
-        int indexOfFirstEncodedByte = 0;
-        int decodedIndex = 0;
-        byte[] decodedResult = new byte[base64EstimatedLength(base64Values)];
+        return decodedResult;
+    }
 
-        while(numberOfEncodedBytes >= BASE64_GROUP_SIZE)
+    /**
+     * Convert a array of bytes in a array of MIME   Base64 values.
+     * <a href="http://www.ietf.org/rfc/rfc2045.txt">RFC 2045</a>.
+     *
+     * @param dataValues is an array of bytes with the original values
+     * @return an array of base64 encoded values
+     * @throws IllegalArgumentException if the provided base64 values are null, or do not fits the required length
+     */
+    public static byte[] encodeBase64Local(byte[] dataValues) throws IllegalArgumentException
+    {
+        /* Codes_SRS_BASE64_21_006: [If the `dataValues` is null, the encodeBase64Local shall throw IllegalArgumentException.] */
+        if(dataValues == null)
         {
-            byte c1 = byteToBase64(base64Values[indexOfFirstEncodedByte++]);
-            byte c2 = byteToBase64(base64Values[indexOfFirstEncodedByte++]);
-            byte c3 = byteToBase64(base64Values[indexOfFirstEncodedByte++]);
-            byte c4 = byteToBase64(base64Values[indexOfFirstEncodedByte++]);
-            decodedResult[decodedIndex++] = (byte)((c1 << HALF_NIBBLE) | (c2 >> ONE_NIBBLE));
-            decodedResult[decodedIndex++] = (byte)((c2 << ONE_NIBBLE) | (c3 >> HALF_NIBBLE));
-            decodedResult[decodedIndex++] = (byte)((c3 << ONE_AND_HALF_NIBBLE) | c4);
-            numberOfEncodedBytes -= BASE64_GROUP_SIZE;
+            throw new IllegalArgumentException("null or empty dataValues");
         }
 
-        if(numberOfEncodedBytes == 3)
+        /* Codes_SRS_BASE64_21_007: [If the `dataValues` is empty, the encodeBase64Local shall return a empty byte array.] */
+        /* Codes_SRS_BASE64_21_005: [The encodeBase64Local shall encoded the provided `dataValues` in a byte array using the Base64 format define in the RFC2045.] */
+        return encodeBase64Local(dataValues, 0, dataValues.length);
+    }
+
+    /**
+     * Convert a range of an array of bytes in a array of MIME Base64 values.
+     * <a href="http://www.ietf.org/rfc/rfc2045.txt">RFC 2045</a>.
+     *
+     * @param dataValues is an array that contains the original values
+     * @param offset is the index of the first byte to encode
+     * @param length is the number of bytes to encode
+     * @return an array of base64 encoded values
+     * @throws IllegalArgumentException if the provided data values are null, or the range is out of the array
+     */
+    public static byte[] encodeBase64Local(byte[] dataValues, int offset, int length) throws IllegalArgumentException
+    {
+        /* Codes_SRS_BASE64_21_006: [If the `dataValues` is null, the encodeBase64Local shall throw IllegalArgumentException.] */
+        if(dataValues == null)
         {
-            byte c1 = byteToBase64(base64Values[indexOfFirstEncodedByte++]);
-            byte c2 = byteToBase64(base64Values[indexOfFirstEncodedByte++]);
-            byte c3 = byteToBase64(base64Values[indexOfFirstEncodedByte]);
-            decodedResult[decodedIndex++] = (byte)((c1 << HALF_NIBBLE) | (c2 >> ONE_NIBBLE));
-            decodedResult[decodedIndex] = (byte)((c2 << ONE_NIBBLE) | (c3 >> HALF_NIBBLE));
+            throw new IllegalArgumentException("null or empty dataValues");
         }
 
-        if(numberOfEncodedBytes == 2)
+        /* Codes_SRS_BASE64_21_011: [If the `offset` and `length` are not a range of the array, the function shall throw IllegalArgumentException.] */
+        validateRange(dataValues.length, offset, length);
+
+        /* Codes_SRS_BASE64_21_005: [The encodeBase64Local shall encoded the provided `dataValues` in a byte array using the Base64 format define in the RFC2045.] */
+        byte[] encodedResult = new byte[getEncodedLength(length)];
+        encodeInto(dataValues, offset, length, encodedResult, 0);
+        return encodedResult;
+    }
+
+    /**
+     * Convert a range of an array of bytes in MIME Base64 values, writing them in the provided array.
+     * <a href="http://www.ietf.org/rfc/rfc2045.txt">RFC 2045</a>.
+     *
+     * @param dataValues is an array that contains the original values
+     * @param offset is the index of the first byte to encode
+     * @param length is the number of bytes to encode
+     * @param destination is the array that receives the base64 encoded values
+     * @param destinationOffset is the index in the destination of the first base64 encoded value
+     * @return the number of base64 encoded values written in the destination, see {@link #getEncodedLength(int)}
+     * @throws IllegalArgumentException if the provided arrays are null, a range is out of its array, or the
+     *                                  destination does not have room for the encoded values
+     */
+    public static int encodeBase64Local(byte[] dataValues, int offset, int length, byte[] destination, int destinationOffset) throws IllegalArgumentException
+    {
+        /* Codes_SRS_BASE64_21_006: [If the `dataValues` is null, the encodeBase64Local shall throw IllegalArgumentException.] */
+        if((dataValues == null) || (destination == null))
         {
-            byte c1 = byteToBase64(base64Values[indexOfFirstEncodedByte++]);
-            byte c2 = byteToBase64(base64Values[indexOfFirstEncodedByte]);
-            decodedResult[decodedIndex] = (byte)((c1 << HALF_NIBBLE) | (c2 >> ONE_NIBBLE));
+            throw new IllegalArgumentException("null dataValues or destination");
         }
 
-        return decodedResult;
+        /* Codes_SRS_BASE64_21_011: [If the `offset` and `length` are not a range of the array, the function shall throw IllegalArgumentException.] */
+        validateRange(dataValues.length, offset, length);
+
+        /* Codes_SRS_BASE64_21_013: [If the `destination` does not have room for the encoded values after the `destinationOffset`, the encodeBase64Local shall throw IllegalArgumentException.] */
+        int encodedLength = getEncodedLength(length);
+        validateRange(destination.length, destinationOffset, encodedLength);
+
+        /* Codes_SRS_BASE64_21_014: [The encodeBase64Local shall write the encoded values in the `destination` starting at `destinationOffset`, and return the number of written values.] */
+        encodeInto(dataValues, offset, length, destination, destinationOffset);
+        return encodedLength;
     }
 
     /**
-     * Convert a array of bytes in a array of MIME   Base64 values.
+     * Convert the remaining bytes of a buffer in a array of MIME Base64 values. The position of the buffer is moved
+     * to its limit.
      * <a href="http://www.ietf.org/rfc/rfc2045.txt">RFC 2045</a>.
      *
-     * @param dataValues is an array of bytes with the original values
+     * @param dataValues is a buffer with the original values
      * @return an array of base64 encoded values
-     * @throws IllegalArgumentException if the provided base64 values are null, or do not fits the required length
+     * @throws IllegalArgumentException if the provided buffer is null
      */
-    public static byte[] encodeBase64Local(byte[] dataValues) throws IllegalArgumentException
+    public static byte[] encodeBase64Local(ByteBuffer dataValues) throws IllegalArgumentException
     {
         /* Codes_SRS_BASE64_21_006: [If the `dataValues` is null, the encodeBase64Local shall throw IllegalArgumentException.] */
         if(dataValues == null)
@@ -247,14 +273,21 @@ public final class Base64
             throw new IllegalArgumentException("null or empty dataValues");
         }
 
-        /* Codes_SRS_BASE64_21_007: [If the `dataValues` is empty, the encodeBase64Local shall return a empty byte array.] */
-        if(dataValues.length == 0)
+        /* Codes_SRS_BASE64_21_012: [The function shall use the remaining bytes of the buffer, without copying them if the buffer has an accessible array, and move its position to its limit.] */
+        byte[] encodedResult;
+        if(dataValues.hasArray())
         {
-            return new byte[0];
+            encodedResult = encodeBase64Local(dataValues.array(), dataValues.arrayOffset() + dataValues.position(), dataValues.remaining());
+            dataValues.position(dataValues.limit());
+        }
+        else
+        {
+            byte[] data = new byte[dataValues.remaining()];
+            dataValues.get(data);
+            encodedResult = encodeBase64Local(data);
         }
 
-        /* Codes_SRS_BASE64_21_005: [The encodeBase64Local shall encoded the provided `dataValues` in a byte array using the Base64 format define in the RFC2045.] */
-        return encodeBase64Internal(dataValues);
+        return encodedResult;
     }
 
     /**
@@ -274,51 +307,104 @@ public final class Base64
         }
 
         /* Codes_SRS_BASE64_21_010: [If the `dataValues` is empty, the encodeBase64StringLocal shall return a empty string.] */
-        if(dataValues.length == 0)
+        /* Codes_SRS_BASE64_21_008: [The encodeBase64StringLocal shall encoded the provided `dataValues` in a string using the Base64 format define in the RFC2045.] */
+        return encodeBase64StringLocal(dataValues, 0, dataValues.length);
+    }
+
+    /**
+     * Convert a range of an array of bytes in a string of MIME Base64 values.
+     * <a href="http://www.ietf.org/rfc/rfc2045.txt">RFC 2045</a>.
+     *
+     * @param dataValues is an array that contains the original values
+     * @param offset is the index of the first byte to encode
+     * @param length is the number of bytes to encode
+     * @return a string with the base64 encoded values
+     * @throws IllegalArgumentException if the provided data values are null, or the range is out of the array
+     */
+    public static String encodeBase64StringLocal(byte[] dataValues, int offset, int length) throws IllegalArgumentException
+    {
+        /* Codes_SRS_BASE64_21_009: [If the `dataValues` is null, the encodeBase64StringLocal shall throw IllegalArgumentException.] */
+        if(dataValues == null)
         {
-            return new String();
+            throw new IllegalArgumentException("null or empty dataValues");
         }
 
+        /* Codes_SRS_BASE64_21_011: [If the `offset` and `length` are not a range of the array, the function shall throw IllegalArgumentException.] */
+        validateRange(dataValues.length, offset, length);
+
         /* Codes_SRS_BASE64_21_008: [The encodeBase64StringLocal shall encoded the provided `dataValues` in a string using the Base64 format define in the RFC2045.] */
-        return new String(encodeBase64Internal(dataValues));
+        byte[] encodedResult = new byte[getEncodedLength(length)];
+        encodeInto(dataValues, offset, length, encodedResult, 0);
+        return new String(encodedResult, StandardCharsets.US_ASCII);
     }
 
-    private static byte[] encodeBase64Internal(byte[] dataValues) throws IllegalArgumentException
+    /**
+     * Getter for the number of base64 values that encode the provided number of bytes, including the pad.
+     *
+     * @param dataLength is the number of bytes to encode
+     * @return the number of base64 encoded values
+     * @throws IllegalArgumentException if the dataLength is negative
+     */
+    public static int getEncodedLength(int dataLength) throws IllegalArgumentException
     {
-        int encodedLength = (((dataValues.length - 1) / BYTE_GROUP_SIZE) + 1) * BASE64_GROUP_SIZE;
-        int destinationPosition = 0;
-        int currentPosition = 0;
+        /* Codes_SRS_BASE64_21_015: [If the `dataLength` is negative, the getEncodedLength shall throw IllegalArgumentException.] */
+        if(dataLength < 0)
+        {
+            throw new IllegalArgumentException("dataLength cannot be negative");
+        }
 
-        byte[] encodedResult = new byte[encodedLength];
+        /* Codes_SRS_BASE64_21_016: [The getEncodedLength shall return the number of base64 values, including the pad, that encode `dataLength` bytes.] */
+        return ((dataLength + BYTE_GROUP_SIZE - 1) / BYTE_GROUP_SIZE) * BASE64_GROUP_SIZE;
+    }
 
-        while((dataValues.length - currentPosition) >= BYTE_GROUP_SIZE)
+    private static void encodeInto(byte[] dataValues, int offset, int length, byte[] destination, int destinationOffset)
+    {
+        int destinationPosition = destinationOffset;
+        int currentPosition = offset;
+        int fullGroupsEnd = offset + (length - (length % BYTE_GROUP_SIZE));
+
+        while(currentPosition < fullGroupsEnd)
         {
-            encodedResult[destinationPosition++] = base64ToByte((byte)((dataValues[currentPosition] >> HALF_NIBBLE) & ISOLATE_BASE64));
-            encodedResult[destinationPosition++] = base64ToByte((byte)(((dataValues[currentPosition] << ONE_NIBBLE) & ISOLATE_BASE64) |
-                ((dataValues[currentPosition + 1] >> ONE_NIBBLE) & ISOLATE_LSB_BASE64)));
-            encodedResult[destinationPosition++] = base64ToByte((byte)(((dataValues[currentPosition + 1] << HALF_NIBBLE) & ISOLATE_BASE64) |
-                ((dataValues[currentPosition + 2] >> ONE_AND_HALF_NIBBLE) & ISOLATE_MSB_BASE64)));
-            encodedResult[destinationPosition++] = base64ToByte((byte)(dataValues[currentPosition + 2] & ISOLATE_BASE64));
+            int group = ((dataValues[currentPosition] & ISOLATE_BYTE) << TWO_BYTES) |
+                    ((dataValues[currentPosition + 1] & ISOLATE_BYTE) << ONE_BYTE) |
+                    (dataValues[currentPosition + 2] & ISOLATE_BYTE);
+            destination[destinationPosition++] = ENCODE_TABLE[(group >> (BASE64_BITS * 3)) & ISOLATE_BASE64];
+            destination[destinationPosition++] = ENCODE_TABLE[(group >> (BASE64_BITS * 2)) & ISOLATE_BASE64];
+            destination[destinationPosition++] = ENCODE_TABLE[(group >> BASE64_BITS) & ISOLATE_BASE64];
+            destination[destinationPosition++] = ENCODE_TABLE[group & ISOLATE_BASE64];
             currentPosition += BYTE_GROUP_SIZE;
         }
 
-        if((dataValues.length - currentPosition) == 2)
+        int remaining = offset + length - currentPosition;
+        if(remaining != 0)
         {
-            encodedResult[destinationPosition++] = base64ToByte((byte)((dataValues[currentPosition] >> HALF_NIBBLE) & ISOLATE_BASE64));
-            encodedResult[destinationPosition++] = base64ToByte((byte)(((dataValues[currentPosition] << ONE_NIBBLE) & ISOLATE_BASE64) |
-                ((dataValues[currentPosition + 1] >> ONE_NIBBLE) & ISOLATE_LSB_BASE64)));
-            encodedResult[destinationPosition++] = base64d16ToByte((byte)(dataValues[currentPosition + 1] & ISOLATE_LSB_BASE64));
-            encodedResult[destinationPosition] = BASE64_PAD;
+            int group = (dataValues[currentPosition] & ISOLATE_BYTE) << TWO_BYTES;
+            if(remaining == 2)
+            {
+                group |= (dataValues[currentPosition + 1] & ISOLATE_BYTE) << ONE_BYTE;
+            }
+            destination[destinationPosition++] = ENCODE_TABLE[(group >> (BASE64_BITS * 3)) & ISOLATE_BASE64];
+            destination[destinationPosition++] = ENCODE_TABLE[(group >> (BASE64_BITS * 2)) & ISOLATE_BASE64];
+            destination[destinationPosition++] = (remaining == 2) ? ENCODE_TABLE[(group >> BASE64_BITS) & ISOLATE_BASE64] : BASE64_PAD;
+            destination[destinationPosition] = BASE64_PAD;
         }
+    }
 
-        if((dataValues.length - currentPosition) == 1)
+    private static int decodeValue(byte base64Value) throws IllegalArgumentException
+    {
+        byte value = DECODE_TABLE[base64Value & ISOLATE_BYTE];
+        if(value == INVALID_BASE64)
         {
-            encodedResult[destinationPosition++] = base64ToByte((byte)((dataValues[currentPosition] >> HALF_NIBBLE) & ISOLATE_BASE64));
-            encodedResult[destinationPosition++] = base64d8ToByte((byte)(dataValues[currentPosition] & ISOLATE_MSB_BASE64));
-            encodedResult[destinationPosition++] = BASE64_PAD;
-            encodedResult[destinationPosition] = BASE64_PAD;
+            throw new IllegalArgumentException("provided byte value out of base64 range");
         }
+        return value;
+    }
 
-        return encodedResult;
+    private static void validateRange(int arrayLength, int offset, int length) throws IllegalArgumentException
+    {
+        if((offset < 0) || (length < 0) || (offset > arrayLength - length))
+        {
+            throw new IllegalArgumentException("offset and length are out of the array");
+        }
     }
 }
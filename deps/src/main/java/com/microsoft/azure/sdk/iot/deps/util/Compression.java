@@ -0,0 +1,258 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.deps.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses and decompresses message bodies with the {@code gzip} and {@code deflate} content encodings.
+ * <p>
+ * {@link Deflater} and {@link Inflater} hold native memory that is only released by {@code end()}, and creating
+ * them is expensive, so this class keeps a small pool of them for each format and reuses them between bodies.
+ * <p>
+ * A small compressed body can inflate to a very large one, so the decompression stops at a maximum size instead of
+ * growing its buffer without limit.
+ */
+public final class Compression
+{
+    /**
+     * The gzip content encoding.
+     */
+    public static final String GZIP = "gzip";
+
+    /**
+     * The zlib content encoding.
+     */
+    public static final String DEFLATE = "deflate";
+
+    /**
+     * The default maximum size of a decompressed body, the maximum size of a message on the IoT Hub.
+     */
+    public static final int DEFAULT_MAX_DECOMPRESSED_BYTES = 256 * 1024;
+
+    private static final int MAX_POOLED_CODECS = 4;
+    private static final int BUFFER_SIZE = 4096;
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int GZIP_HEADER_SIZE = 10;
+    private static final int GZIP_TRAILER_SIZE = 8;
+
+    // gzip wraps a raw deflate stream in its own header and trailer, deflate is the zlib format
+    private static final BlockingQueue<Deflater> rawDeflaters = new ArrayBlockingQueue<>(MAX_POOLED_CODECS);
+    private static final BlockingQueue<Deflater> zlibDeflaters = new ArrayBlockingQueue<>(MAX_POOLED_CODECS);
+    private static final BlockingQueue<Inflater> zlibInflaters = new ArrayBlockingQueue<>(MAX_POOLED_CODECS);
+
+    private Compression()
+    {
+    }
+
+    /**
+     * Finds the supported content encoding that matches the provided one.
+     *
+     * @param contentEncoding the content encoding of a message, case insensitive. Can be {@code null}.
+     * @return {@link #GZIP} or {@link #DEFLATE}, or {@code null} if the content encoding is not a supported compression.
+     */
+    public static String toSupportedContentEncoding(String contentEncoding)
+    {
+        if (contentEncoding != null)
+        {
+            String trimmed = contentEncoding.trim();
+            if (GZIP.equalsIgnoreCase(trimmed))
+            {
+                // Codes_SRS_COMPRESSION_21_001: [The function shall return the supported content encoding that matches the provided one, ignoring case and spaces.]
+                return GZIP;
+            }
+            else if (DEFLATE.equalsIgnoreCase(trimmed))
+            {
+                return DEFLATE;
+            }
+        }
+
+        // Codes_SRS_COMPRESSION_21_002: [The function shall return null if the content encoding is null or not supported.]
+        return null;
+    }
+
+    /**
+     * Compresses a body.
+     *
+     * @param body the body to compress.
+     * @param contentEncoding {@link #GZIP} or {@link #DEFLATE}.
+     * @return the compressed body.
+     * @throws IllegalArgumentException if the body is null, or the content encoding is not supported.
+     */
+    public static byte[] compress(byte[] body, String contentEncoding) throws IllegalArgumentException
+    {
+        // Codes_SRS_COMPRESSION_21_003: [The function shall throw IllegalArgumentException if the body is null or the content encoding is not supported.]
+        String supportedContentEncoding = toSupportedContentEncoding(contentEncoding);
+        if (body == null || supportedContentEncoding == null)
+        {
+            throw new IllegalArgumentException("body cannot be null, and contentEncoding shall be gzip or deflate");
+        }
+
+        // Codes_SRS_COMPRESSION_21_004: [The function shall return the body compressed in the format of the content encoding.]
+        ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(64, body.length / 2));
+        if (GZIP.equals(supportedContentEncoding))
+        {
+            // fixed header: magic, deflate method, no flags, no modification time, unknown OS
+            output.write(GZIP_MAGIC & 0xff);
+            output.write(GZIP_MAGIC >> 8);
+            output.write(Deflater.DEFLATED);
+            output.write(new byte[] {0, 0, 0, 0, 0, 0}, 0, 6);
+            output.write(0xff);
+
+            deflate(rawDeflaters, true, body, output);
+
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            writeIntLittleEndian(output, (int) crc.getValue());
+            writeIntLittleEndian(output, body.length);
+        }
+        else
+        {
+            deflate(zlibDeflaters, false, body, output);
+        }
+
+        return output.toByteArray();
+    }
+
+    /**
+     * Decompresses a body.
+     *
+     * @param body the body to decompress.
+     * @param contentEncoding {@link #GZIP} or {@link #DEFLATE}.
+     * @param maxDecompressedBytes the maximum size of the decompressed body.
+     * @return the decompressed body.
+     * @throws DecompressedSizeExceededException if the decompressed body is bigger than the maximum size.
+     * @throws IOException if the body is not valid for its content encoding.
+     * @throws IllegalArgumentException if the body is null, the content encoding is not supported, or the maximum
+     * size is not positive.
+     */
+    public static byte[] decompress(byte[] body, String contentEncoding, int maxDecompressedBytes) throws IOException, IllegalArgumentException
+    {
+        // Codes_SRS_COMPRESSION_21_005: [The function shall throw IllegalArgumentException if the body is null, the
+        // content encoding is not supported, or the maximum size is not positive.]
+        String supportedContentEncoding = toSupportedContentEncoding(contentEncoding);
+        if (body == null || supportedContentEncoding == null || maxDecompressedBytes <= 0)
+        {
+            throw new IllegalArgumentException("body cannot be null, contentEncoding shall be gzip or deflate, and maxDecompressedBytes shall be positive");
+        }
+
+        // Codes_SRS_COMPRESSION_21_006: [The function shall return the decompressed body.]
+        // Codes_SRS_COMPRESSION_21_007: [The function shall throw IOException if the body is not valid for its content encoding.]
+        // Codes_SRS_COMPRESSION_21_008: [The function shall throw DecompressedSizeExceededException as soon as the
+        // decompressed body is bigger than the maximum size.]
+        // the ratio is only a guess of the final size, so it never reserves more than the maximum size
+        ByteArrayOutputStream output = new ByteArrayOutputStream((int) Math.min(maxDecompressedBytes, Math.max(64L, body.length * 4L)));
+        byte[] buffer = new byte[BUFFER_SIZE];
+        if (GZIP.equals(supportedContentEncoding))
+        {
+            if (body.length < GZIP_HEADER_SIZE + GZIP_TRAILER_SIZE)
+            {
+                throw new IOException("The gzip body is truncated");
+            }
+
+            try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(body)))
+            {
+                int read;
+                while ((read = input.read(buffer)) > 0)
+                {
+                    writeDecompressed(output, buffer, read, maxDecompressedBytes);
+                }
+            }
+        }
+        else
+        {
+            Inflater inflater = zlibInflaters.poll();
+            if (inflater == null)
+            {
+                inflater = new Inflater();
+            }
+
+            try
+            {
+                inflater.setInput(body);
+                while (!inflater.finished())
+                {
+                    int inflated = inflater.inflate(buffer);
+                    if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    {
+                        throw new IOException("The deflate body is truncated");
+                    }
+
+                    writeDecompressed(output, buffer, inflated, maxDecompressedBytes);
+                }
+            }
+            catch (DataFormatException e)
+            {
+                throw new IOException("The deflate body is not valid", e);
+            }
+            finally
+            {
+                inflater.reset();
+                if (!zlibInflaters.offer(inflater))
+                {
+                    inflater.end();
+                }
+            }
+        }
+
+        return output.toByteArray();
+    }
+
+    private static void writeDecompressed(ByteArrayOutputStream output, byte[] buffer, int length, int maxDecompressedBytes) throws DecompressedSizeExceededException
+    {
+        if (output.size() + (long) length > maxDecompressedBytes)
+        {
+            throw new DecompressedSizeExceededException("The decompressed body is bigger than " + maxDecompressedBytes + " bytes");
+        }
+
+        output.write(buffer, 0, length);
+    }
+
+    private static void deflate(BlockingQueue<Deflater> pool, boolean nowrap, byte[] body, ByteArrayOutputStream output)
+    {
+        Deflater deflater = pool.poll();
+        if (deflater == null)
+        {
+            deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap);
+        }
+
+        try
+        {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            deflater.setInput(body);
+            deflater.finish();
+            while (!deflater.finished())
+            {
+                int deflated = deflater.deflate(buffer);
+                output.write(buffer, 0, deflated);
+            }
+        }
+        finally
+        {
+            deflater.reset();
+            if (!pool.offer(deflater))
+            {
+                deflater.end();
+            }
+        }
+    }
+
+    private static void writeIntLittleEndian(ByteArrayOutputStream output, int value)
+    {
+        output.write(value & 0xff);
+        output.write((value >> 8) & 0xff);
+        output.write((value >> 16) & 0xff);
+        output.write((value >> 24) & 0xff);
+    }
+}
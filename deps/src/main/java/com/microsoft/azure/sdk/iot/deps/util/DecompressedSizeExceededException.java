@@ -0,0 +1,17 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.deps.util;
+
+import java.io.IOException;
+
+/**
+ * Thrown by {@link Compression} when a body inflates to more than the maximum size.
+ */
+public class DecompressedSizeExceededException extends IOException
+{
+    public DecompressedSizeExceededException(String message)
+    {
+        super(message);
+    }
+}
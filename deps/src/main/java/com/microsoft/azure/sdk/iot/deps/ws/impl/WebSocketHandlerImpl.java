@@ -7,7 +7,6 @@ package com.microsoft.azure.sdk.iot.deps.ws.impl;
 import com.microsoft.azure.sdk.iot.deps.ws.WebSocketHandler;
 import com.microsoft.azure.sdk.iot.deps.ws.WebSocketHeader;
 
-import java.io.ByteArrayOutputStream;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.security.SecureRandom;
@@ -16,7 +15,10 @@ import java.util.Random;
 
 public class WebSocketHandlerImpl implements WebSocketHandler
 {
+    private static final Random _random = new SecureRandom();
+
     private WebSocketUpgrade _webSocketUpgrade = null;
+    private final byte[] _maskingKey = new byte[4];
 
     @Override
     public String createUpgradeRequest(String hostName, String webSocketPath, int webSocketPort, String webSocketProtocol, Map<String, String> additionalHeaders)
@@ -83,23 +85,27 @@ public class WebSocketHandlerImpl implements WebSocketHandler
             throw new IllegalArgumentException("input parameter is null");
         }
 
+        dstBuffer.clear();
+
         if (srcBuffer.remaining() > 0)
         {
-            // We always send masked data
-            // RFC: "client MUST mask all frames that it sends to the server"
-            final byte[] MASKING_KEY = createRandomMaskingKey();
-
             // Get data length
             final int DATA_LENGTH = srcBuffer.remaining();
 
-            // Auto growing buffer for the WS frame, initialized to minimum size
-            ByteArrayOutputStream webSocketFrame = new ByteArrayOutputStream(WebSocketHeader.MIN_HEADER_LENGTH_MASKED + DATA_LENGTH);
+            // The frame is written straight in the destination buffer, so check the room first
+            if (dstBuffer.capacity() < calculateHeaderSize(DATA_LENGTH) + DATA_LENGTH)
+            {
+                throw new OutOfMemoryError("insufficient output buffer size");
+            }
+
+            // We always send masked data
+            // RFC: "client MUST mask all frames that it sends to the server"
+            final byte[] MASKING_KEY = createRandomMaskingKey();
 
             // Create the first byte
             // We always send final WebSocket frame
             // We always send binary message (AMQP)
-            byte firstByte = (byte) (WebSocketHeader.FINBIT_MASK | WebSocketHeader.OPCODE_BINARY);
-            webSocketFrame.write(firstByte);
+            dstBuffer.put((byte) (WebSocketHeader.FINBIT_MASK | WebSocketHeader.OPCODE_BINARY));
 
             // Create the second byte
             // RFC: "client MUST mask all frames that it sends to the server"
@@ -108,66 +114,56 @@ public class WebSocketHandlerImpl implements WebSocketHandler
             // RFC: The length of the "Payload data", in bytes: if 0-125, that is the payload length.
             if (DATA_LENGTH <= WebSocketHeader.PAYLOAD_SHORT_MAX)
             {
-                secondByte = (byte) (secondByte | DATA_LENGTH);
-                webSocketFrame.write(secondByte);
+                dstBuffer.put((byte) (secondByte | DATA_LENGTH));
             }
             // RFC: If 126, the following 2 bytes interpreted as a 16-bit unsigned integer are the payload length
             else if (DATA_LENGTH <= WebSocketHeader.PAYLOAD_MEDIUM_MAX)
             {
-                // Create payload byte
-                secondByte = (byte) (secondByte | WebSocketHeader.PAYLOAD_EXTENDED_16);
-                webSocketFrame.write(secondByte);
-
-                // Create extended length bytes
-                webSocketFrame.write((byte) (DATA_LENGTH >>> 8));
-                webSocketFrame.write((byte) (DATA_LENGTH));
+                dstBuffer.put((byte) (secondByte | WebSocketHeader.PAYLOAD_EXTENDED_16));
+                dstBuffer.put((byte) (DATA_LENGTH >>> 8));
+                dstBuffer.put((byte) (DATA_LENGTH));
             }
             // RFC: If 127, the following 8 bytes interpreted as a 64-bit unsigned integer (the most significant bit MUST be 0) are the payload length.
-            // No need for "else if" because if it is longer than what 8 byte length can hold... all bets are off anyway
             else
             {
-                secondByte = (byte) (secondByte | WebSocketHeader.PAYLOAD_EXTENDED_64);
-                webSocketFrame.write(secondByte);
-
-                webSocketFrame.write((byte) (DATA_LENGTH >>> 56));
-                webSocketFrame.write((byte) (DATA_LENGTH >>> 48));
-                webSocketFrame.write((byte) (DATA_LENGTH >>> 40));
-                webSocketFrame.write((byte) (DATA_LENGTH >>> 32));
-                webSocketFrame.write((byte) (DATA_LENGTH >>> 24));
-                webSocketFrame.write((byte) (DATA_LENGTH >>> 16));
-                webSocketFrame.write((byte) (DATA_LENGTH >>> 8));
-                webSocketFrame.write((byte) (DATA_LENGTH));
+                dstBuffer.put((byte) (secondByte | WebSocketHeader.PAYLOAD_EXTENDED_64));
+                // DATA_LENGTH is an int, so the 4 most significant bytes are 0
+                dstBuffer.put((byte) 0);
+                dstBuffer.put((byte) 0);
+                dstBuffer.put((byte) 0);
+                dstBuffer.put((byte) 0);
+                dstBuffer.put((byte) (DATA_LENGTH >>> 24));
+                dstBuffer.put((byte) (DATA_LENGTH >>> 16));
+                dstBuffer.put((byte) (DATA_LENGTH >>> 8));
+                dstBuffer.put((byte) (DATA_LENGTH));
             }
 
             // Write mask
-            webSocketFrame.write(MASKING_KEY[0]);
-            webSocketFrame.write(MASKING_KEY[1]);
-            webSocketFrame.write(MASKING_KEY[2]);
-            webSocketFrame.write(MASKING_KEY[3]);
+            dstBuffer.put(MASKING_KEY, 0, MASKING_KEY.length);
 
             // Write masked data
-            for (int i = 0; i < DATA_LENGTH; i++)
-            {
-                byte nextByte = srcBuffer.get();
-                nextByte ^= MASKING_KEY[i % 4];
-                webSocketFrame.write(nextByte);
-            }
-
-            // Copy frame to destination buffer
-            dstBuffer.clear();
-            if (dstBuffer.capacity() >= webSocketFrame.size())
+            if (srcBuffer.hasArray() && dstBuffer.hasArray())
             {
-                dstBuffer.put(webSocketFrame.toByteArray());
+                // Mask straight from the source array to the destination array
+                byte[] src = srcBuffer.array();
+                int srcOffset = srcBuffer.arrayOffset() + srcBuffer.position();
+                byte[] dst = dstBuffer.array();
+                int dstOffset = dstBuffer.arrayOffset() + dstBuffer.position();
+                for (int i = 0; i < DATA_LENGTH; i++)
+                {
+                    dst[dstOffset + i] = (byte) (src[srcOffset + i] ^ MASKING_KEY[i & 3]);
+                }
+                srcBuffer.position(srcBuffer.position() + DATA_LENGTH);
+                dstBuffer.position(dstBuffer.position() + DATA_LENGTH);
             }
             else
             {
-                throw new OutOfMemoryError("insufficient output buffer size");
+                for (int i = 0; i < DATA_LENGTH; i++)
+                {
+                    dstBuffer.put((byte) (srcBuffer.get() ^ MASKING_KEY[i & 3]));
+                }
             }
         }
-        else
-        {
-            dstBuffer.clear();
-        }
     }
 
     @Override
@@ -265,11 +261,10 @@ public class WebSocketHandlerImpl implements WebSocketHandler
 
     protected byte[] createRandomMaskingKey()
     {
-        final byte[] maskingKey = new byte[4];
-        Random random = new SecureRandom();
-        random.nextBytes(maskingKey);
+        // A new key for each frame, in the same array, the frames of a connection are wrapped one at a time
+        _random.nextBytes(_maskingKey);
 
-        return maskingKey;
+        return _maskingKey;
     }
 
     public int calculateHeaderSize(int payloadSize)
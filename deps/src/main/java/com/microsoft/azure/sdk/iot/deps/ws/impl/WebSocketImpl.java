@@ -21,7 +21,12 @@ import static org.apache.qpid.proton.engine.impl.ByteBufferUtils.pourAll;
 
 public class WebSocketImpl implements WebSocket, TransportLayer
 {
-    private int _maxFrameSize = (4 * 1024) + (16 * WebSocketHeader.MED_HEADER_LENGTH_MASKED);
+    /**
+     * The default size of the WebSocket frames, that fits 4KB of payload.
+     */
+    public static final int DEFAULT_MAX_FRAME_SIZE = (4 * 1024) + (16 * WebSocketHeader.MED_HEADER_LENGTH_MASKED);
+
+    private final int _maxFrameSize;
     private boolean _tail_closed = false;
     private final ByteBuffer _inputBuffer;
     private boolean _head_closed = false;
@@ -52,6 +57,21 @@ public class WebSocketImpl implements WebSocket, TransportLayer
 
     public WebSocketImpl()
     {
+        this(DEFAULT_MAX_FRAME_SIZE);
+    }
+
+    /**
+     * Constructor for a WebSocket layer that exchanges frames up to the provided size. Bigger frames carry big
+     * AMQP frames in less WebSocket frames, at the cost of bigger buffers for each connection.
+     *
+     * @param maxFrameSize the size of the buffers, and the maximum size of a WebSocket frame, including its header.
+     * @throws IllegalArgumentException if the maxFrameSize cannot fit a frame header and its payload.
+     */
+    public WebSocketImpl(int maxFrameSize)
+    {
+        validateMaxFrameSize(maxFrameSize);
+
+        _maxFrameSize = maxFrameSize;
         _inputBuffer = newWriteableBuffer(_maxFrameSize);
         _outputBuffer = newWriteableBuffer(_maxFrameSize);
         _pingBuffer = newWriteableBuffer(_maxFrameSize);
@@ -62,6 +82,21 @@ public class WebSocketImpl implements WebSocket, TransportLayer
         _isWebSocketEnabled = false;
     }
 
+    /**
+     * Checks that a WebSocket layer can be created with the provided maximum frame size, so the clients can reject
+     * a bad size when it is configured instead of when they connect.
+     *
+     * @param maxFrameSize the maximum size of a WebSocket frame, including its header.
+     * @throws IllegalArgumentException if the maxFrameSize cannot fit a frame header and its payload.
+     */
+    public static void validateMaxFrameSize(int maxFrameSize)
+    {
+        if (maxFrameSize <= WebSocketHeader.MAX_HEADER_LENGTH_MASKED)
+        {
+            throw new IllegalArgumentException("maxFrameSize shall be bigger than " + WebSocketHeader.MAX_HEADER_LENGTH_MASKED);
+        }
+    }
+
     public TransportWrapper wrap(final TransportInput input, final TransportOutput output)
     {
         return new WebSocketSniffer(new WebSocketTransportWrapper(input, output), new PlainTransportWrapper(output, input))
@@ -355,22 +390,13 @@ public class WebSocketImpl implements WebSocket, TransportLayer
                                     readInputBuffer();
                                     _temp.flip();
 
-                                    final byte[] data;
-                                    if(_temp.remaining() >= _lastLength-_bytesRead)
-                                    {
-                                        data = new byte[(int)(_lastLength-_bytesRead)];
-                                        _temp.get(data, 0, (int)(_lastLength-_bytesRead));
-                                        _wsInputBuffer.put(data);
-                                        _bytesRead += _lastLength-_bytesRead;
-                                    }
-                                    //Otherwise the remaining bytes is < the rest that we need
-                                    else
-                                    {
-                                        data = new byte[_temp.remaining()];
-                                        _temp.get(data);
-                                        _wsInputBuffer.put(data);
-                                        _bytesRead += data.length;
-                                    }
+                                    //Move the rest of the frame, or all the remaining bytes if it is not complete, straight to the ws input buffer
+                                    final int payloadBytes = (int)Math.min(_temp.remaining(), _lastLength-_bytesRead);
+                                    final int tempLimit = _temp.limit();
+                                    _temp.limit(_temp.position() + payloadBytes);
+                                    _wsInputBuffer.put(_temp);
+                                    _temp.limit(tempLimit);
+                                    _bytesRead += payloadBytes;
 
                                     //Send whatever we have
                                     sendToUnderlyingInput();
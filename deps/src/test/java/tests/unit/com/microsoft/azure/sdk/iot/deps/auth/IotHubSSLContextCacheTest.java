@@ -0,0 +1,193 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package tests.unit.com.microsoft.azure.sdk.iot.deps.auth;
+
+import com.microsoft.azure.sdk.iot.deps.auth.IotHubSSLContext;
+import com.microsoft.azure.sdk.iot.deps.auth.IotHubSSLContextCache;
+import mockit.Deencapsulation;
+import mockit.Mocked;
+import mockit.NonStrictExpectations;
+import mockit.Verifications;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/*
+ * Unit tests for IotHubSSLContextCache
+ */
+public class IotHubSSLContextCacheTest
+{
+    private static final String PUBLIC_KEY_CERTIFICATE = "somePublicKeyCertificate";
+    private static final String PRIVATE_KEY = "somePrivateKey";
+    private static final String TRUSTED_CERT = "someTrustedCert";
+
+    @Mocked IotHubSSLContext mockedIotHubSSLContext;
+    @Mocked SSLContext mockedSSLContext;
+    @Mocked SSLSessionContext mockedSSLSessionContext;
+
+    @Before
+    public void setUp()
+    {
+        IotHubSSLContextCache.clear();
+    }
+
+    @After
+    public void tearDown()
+    {
+        IotHubSSLContextCache.clear();
+        IotHubSSLContextCache.setSessionCacheSize((int) Deencapsulation.getField(IotHubSSLContextCache.class, "DEFAULT_SESSION_CACHE_SIZE"));
+        IotHubSSLContextCache.setSessionTimeoutInSeconds((int) Deencapsulation.getField(IotHubSSLContextCache.class, "DEFAULT_SESSION_TIMEOUT_IN_SECONDS"));
+    }
+
+    //Tests_SRS_IOTHUBSSLCONTEXTCACHE_21_001: [The getIotHubSSLContext shall return the cached IotHubSSLContext for the same credentials and trusted certificate, creating it if it does not exist.]
+    @Test
+    public void getIotHubSSLContextReusesDefaultContext() throws Exception
+    {
+        //act
+        IotHubSSLContext first = IotHubSSLContextCache.getIotHubSSLContext();
+        IotHubSSLContext second = IotHubSSLContextCache.getIotHubSSLContext();
+
+        //assert
+        assertSame(first, second);
+        new Verifications()
+        {
+            {
+                new IotHubSSLContext();
+                times = 1;
+            }
+        };
+    }
+
+    //Tests_SRS_IOTHUBSSLCONTEXTCACHE_21_001: [The getIotHubSSLContext shall return the cached IotHubSSLContext for the same credentials and trusted certificate, creating it if it does not exist.]
+    @Test
+    public void getIotHubSSLContextKeysByTrustedCert() throws Exception
+    {
+        //act
+        IotHubSSLContext first = IotHubSSLContextCache.getIotHubSSLContext(TRUSTED_CERT, false);
+        IotHubSSLContext second = IotHubSSLContextCache.getIotHubSSLContext(TRUSTED_CERT, false);
+        IotHubSSLContext other = IotHubSSLContextCache.getIotHubSSLContext("otherTrustedCert", false);
+
+        //assert
+        assertSame(first, second);
+        assertNotSame(first, other);
+        assertNotSame(first, IotHubSSLContextCache.getIotHubSSLContext());
+    }
+
+    //Tests_SRS_IOTHUBSSLCONTEXTCACHE_21_001: [The getIotHubSSLContext shall return the cached IotHubSSLContext for the same credentials and trusted certificate, creating it if it does not exist.]
+    @Test
+    public void getIotHubSSLContextKeysByKeys() throws Exception
+    {
+        //act
+        IotHubSSLContext first = IotHubSSLContextCache.getIotHubSSLContext(PUBLIC_KEY_CERTIFICATE, PRIVATE_KEY);
+        IotHubSSLContext second = IotHubSSLContextCache.getIotHubSSLContext(PUBLIC_KEY_CERTIFICATE, PRIVATE_KEY);
+        IotHubSSLContext otherKey = IotHubSSLContextCache.getIotHubSSLContext(PUBLIC_KEY_CERTIFICATE, "otherPrivateKey");
+        IotHubSSLContext withTrustedCert = IotHubSSLContextCache.getIotHubSSLContext(PUBLIC_KEY_CERTIFICATE, PRIVATE_KEY, TRUSTED_CERT, false);
+
+        //assert
+        assertSame(first, second);
+        assertNotSame(first, otherKey);
+        assertNotSame(first, withTrustedCert);
+        assertSame(withTrustedCert, IotHubSSLContextCache.getIotHubSSLContext(PUBLIC_KEY_CERTIFICATE, PRIVATE_KEY, TRUSTED_CERT, false));
+        new Verifications()
+        {
+            {
+                new IotHubSSLContext(PUBLIC_KEY_CERTIFICATE, PRIVATE_KEY);
+                times = 1;
+                new IotHubSSLContext(PUBLIC_KEY_CERTIFICATE, PRIVATE_KEY, TRUSTED_CERT, false);
+                times = 1;
+            }
+        };
+    }
+
+    //Tests_SRS_IOTHUBSSLCONTEXTCACHE_21_002: [The getIotHubSSLContext shall set the TLS session cache size and timeout of the new SSLContext.]
+    @Test
+    public void getIotHubSSLContextConfiguresSessions() throws Exception
+    {
+        //arrange
+        new NonStrictExpectations()
+        {
+            {
+                mockedIotHubSSLContext.getSSLContext();
+                result = mockedSSLContext;
+                mockedSSLContext.getClientSessionContext();
+                result = mockedSSLSessionContext;
+            }
+        };
+
+        //act
+        IotHubSSLContextCache.getIotHubSSLContext();
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockedSSLSessionContext.setSessionCacheSize((int) Deencapsulation.getField(IotHubSSLContextCache.class, "DEFAULT_SESSION_CACHE_SIZE"));
+                times = 1;
+                mockedSSLSessionContext.setSessionTimeout((int) Deencapsulation.getField(IotHubSSLContextCache.class, "DEFAULT_SESSION_TIMEOUT_IN_SECONDS"));
+                times = 1;
+            }
+        };
+    }
+
+    //Tests_SRS_IOTHUBSSLCONTEXTCACHE_21_005: [The setSessionCacheSize shall set the TLS session cache size of the cached SSLContexts and of the ones created after it.]
+    //Tests_SRS_IOTHUBSSLCONTEXTCACHE_21_007: [The setSessionTimeoutInSeconds shall set the TLS session timeout of the cached SSLContexts and of the ones created after it.]
+    @Test
+    public void setSessionSettingsUpdateCachedContexts() throws Exception
+    {
+        //arrange
+        IotHubSSLContextCache.getIotHubSSLContext();
+
+        //act
+        IotHubSSLContextCache.setSessionCacheSize(10);
+        IotHubSSLContextCache.setSessionTimeoutInSeconds(600);
+        IotHubSSLContextCache.getIotHubSSLContext(TRUSTED_CERT, false);
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockedSSLSessionContext.setSessionCacheSize(10);
+                times = 3;
+                mockedSSLSessionContext.setSessionTimeout(600);
+                times = 2;
+            }
+        };
+    }
+
+    //Tests_SRS_IOTHUBSSLCONTEXTCACHE_21_004: [If the provided size is negative, the setSessionCacheSize shall throw IllegalArgumentException.]
+    @Test (expected = IllegalArgumentException.class)
+    public void setSessionCacheSizeThrowsOnNegative()
+    {
+        //act
+        IotHubSSLContextCache.setSessionCacheSize(-1);
+    }
+
+    //Tests_SRS_IOTHUBSSLCONTEXTCACHE_21_006: [If the provided timeout is negative, the setSessionTimeoutInSeconds shall throw IllegalArgumentException.]
+    @Test (expected = IllegalArgumentException.class)
+    public void setSessionTimeoutInSecondsThrowsOnNegative()
+    {
+        //act
+        IotHubSSLContextCache.setSessionTimeoutInSeconds(-1);
+    }
+
+    //Tests_SRS_IOTHUBSSLCONTEXTCACHE_21_008: [The clear shall remove all the cached IotHubSSLContexts.]
+    @Test
+    public void clearRemovesCachedContexts() throws Exception
+    {
+        //arrange
+        IotHubSSLContext first = IotHubSSLContextCache.getIotHubSSLContext();
+
+        //act
+        IotHubSSLContextCache.clear();
+
+        //assert
+        assertNotSame(first, IotHubSSLContextCache.getIotHubSSLContext());
+    }
+}
@@ -5,7 +5,9 @@ import mockit.integration.junit4.JMockit;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.StringReader;
 import java.util.HashMap;
+import java.util.List;
 
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertNotNull;
@@ -195,4 +197,40 @@ public class ConfigurationParserTest
         //act
         new ConfigurationParser().setSchemaVersion(null);
     }
+
+    //Tests_SRS_CONFIGURATION_PARSER_21_001: [The createJsonArrayIterator shall return an iterator that decodes one ConfigurationParser per item in the json array.]
+    //Tests_SRS_CONFIGURATION_PARSER_21_004: [The createFromJsonArray shall return a list with one ConfigurationParser per item in the json array.]
+    @Test
+    public void createFromJsonArrayDecodesAllItems()
+    {
+        //arrange
+        String json = "[{\"id\":\"config1\",\"schemaVersion\":\"1.0\",\"createdTimeUtc\":\"0001-01-01T00:00:00\"}," +
+                "{\"id\":\"config2\",\"schemaVersion\":\"1.0\",\"priority\":10}]";
+
+        //act
+        List<ConfigurationParser> parsers = ConfigurationParser.createFromJsonArray(new StringReader(json));
+
+        //assert
+        assertEquals(2, parsers.size());
+        assertEquals("config1", parsers.get(0).getId());
+        assertEquals(ParserUtility.getDateTimeUtc("0001-01-01T00:00:00"), parsers.get(0).getCreatedTimeUtc());
+        assertEquals("config2", parsers.get(1).getId());
+        assertEquals(10, (int)parsers.get(1).getPriority());
+    }
+
+    //Tests_SRS_CONFIGURATION_PARSER_21_002: [If an item in the json array cannot be parsed into a ConfigurationParser object, an IllegalArgumentException shall be thrown.]
+    @Test (expected = IllegalArgumentException.class)
+    public void createFromJsonArrayThrowsForInvalidItem()
+    {
+        //act
+        ConfigurationParser.createFromJsonArray(new StringReader("[{\"id\": {}}]"));
+    }
+
+    //Tests_SRS_CONFIGURATION_PARSER_21_003: [If an item in the json array is missing the id or the schemaVersion, an IllegalArgumentException shall be thrown.]
+    @Test (expected = IllegalArgumentException.class)
+    public void createFromJsonArrayThrowsForMissingSchemaVersion()
+    {
+        //act
+        ConfigurationParser.createFromJsonArray(new StringReader("[{\"id\":\"config1\"}]"));
+    }
 }
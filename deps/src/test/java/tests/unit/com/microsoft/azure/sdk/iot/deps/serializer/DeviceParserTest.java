@@ -12,12 +12,16 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.StringReader;
 import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
 
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -491,4 +495,55 @@ public class DeviceParserTest
         //act
         parser.setAuthenticationParser(null);
     }
+
+    //Tests_SRS_DEVICE_PARSER_21_001: [The createJsonArrayIterator shall return an iterator that decodes one DeviceParser per item in the json array.]
+    //Tests_SRS_DEVICE_PARSER_21_004: [The createFromJsonArray shall return a list with one DeviceParser per item in the json array.]
+    @Test
+    public void createFromJsonArrayDecodesAllItems()
+    {
+        //arrange
+        String json = "[" +
+                "{\"deviceId\": \"device1\", \"statusUpdatedTime\": \"" + validDateString + "\", \"authentication\": {\"type\": \"" + SAS_JSON_VALUE + "\"}}," +
+                "{\"deviceId\": \"device2\", \"moduleId\": \"module2\", \"authentication\": {\"type\": \"" + CERTIFICATE_AUTHORITY_JSON_VALUE + "\"}}" +
+                "]";
+
+        //act
+        List<DeviceParser> parsers = DeviceParser.createFromJsonArray(new StringReader(json));
+
+        //assert
+        assertEquals(2, parsers.size());
+        assertEquals("device1", parsers.get(0).getDeviceId());
+        assertEquals(validDateString, new SimpleDateFormat(SIMPLEDATEFORMAT).format(parsers.get(0).getStatusUpdatedTime()));
+        assertEquals(AuthenticationTypeParser.SAS, parsers.get(0).getAuthenticationParser().getType());
+        assertEquals("device2", parsers.get(1).getDeviceId());
+        assertEquals("module2", parsers.get(1).getModuleId());
+        assertEquals(AuthenticationTypeParser.CERTIFICATE_AUTHORITY, parsers.get(1).getAuthenticationParser().getType());
+    }
+
+    //Tests_SRS_DEVICE_PARSER_21_001: [The createJsonArrayIterator shall return an iterator that decodes one DeviceParser per item in the json array.]
+    @Test
+    public void createJsonArrayIteratorForEmptyArray()
+    {
+        //act
+        Iterator<DeviceParser> iterator = DeviceParser.createJsonArrayIterator(new StringReader("[]"));
+
+        //assert
+        assertFalse(iterator.hasNext());
+    }
+
+    //Tests_SRS_DEVICE_PARSER_21_002: [If an item in the json array cannot be parsed into a DeviceParser object, an IllegalArgumentException shall be thrown.]
+    @Test (expected = IllegalArgumentException.class)
+    public void createFromJsonArrayThrowsForInvalidItem()
+    {
+        //act
+        DeviceParser.createFromJsonArray(new StringReader("[{\"deviceId\": [1, 2]}]"));
+    }
+
+    //Tests_SRS_DEVICE_PARSER_21_003: [If an item in the json array is missing the deviceId or the authentication, an IllegalArgumentException shall be thrown.]
+    @Test (expected = IllegalArgumentException.class)
+    public void createFromJsonArrayThrowsForMissingAuthentication()
+    {
+        //act
+        DeviceParser.createFromJsonArray(new StringReader("[{\"deviceId\": \"device1\"}]"));
+    }
 }
@@ -0,0 +1,130 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package tests.unit.com.microsoft.azure.sdk.iot.deps.serializer;
+
+import com.google.gson.stream.JsonReader;
+import com.microsoft.azure.sdk.iot.deps.serializer.JsonArrayIterator;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the lazy json array iterator
+ * 100% methods, 100% lines covered
+ */
+public class JsonArrayIteratorTest
+{
+    private static class StringArrayIterator extends JsonArrayIterator<String>
+    {
+        StringArrayIterator(Reader reader)
+        {
+            super(reader);
+        }
+
+        @Override
+        protected String parseItem(JsonReader jsonReader)
+        {
+            try
+            {
+                return jsonReader.nextString();
+            }
+            catch (IOException e)
+            {
+                throw new IllegalArgumentException(e);
+            }
+        }
+    }
+
+    /* Tests_SRS_JSON_ARRAY_ITERATOR_21_001: [If the provided reader is null, the constructor shall throw IllegalArgumentException.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnNullReader()
+    {
+        // act
+        new StringArrayIterator(null);
+    }
+
+    /* Tests_SRS_JSON_ARRAY_ITERATOR_21_003: [The hasNext shall return true if there is at least one more item in the array.] */
+    /* Tests_SRS_JSON_ARRAY_ITERATOR_21_006: [The next shall decode and return the next item in the array.] */
+    @Test
+    public void iteratorDecodesItemsInOrder()
+    {
+        // arrange
+        StringArrayIterator iterator = new StringArrayIterator(new StringReader("[\"a\", \"b\"]"));
+
+        // act - assert
+        assertTrue(iterator.hasNext());
+        assertTrue(iterator.hasNext());
+        assertEquals("a", iterator.next());
+        assertEquals("b", iterator.next());
+        assertFalse(iterator.hasNext());
+        assertFalse(iterator.hasNext());
+    }
+
+    /* Tests_SRS_JSON_ARRAY_ITERATOR_21_002: [If the json is not an array, the hasNext shall throw IllegalArgumentException.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void hasNextThrowsOnJsonObject()
+    {
+        // arrange
+        StringArrayIterator iterator = new StringArrayIterator(new StringReader("{\"a\":\"b\"}"));
+
+        // act
+        iterator.hasNext();
+    }
+
+    /* Tests_SRS_JSON_ARRAY_ITERATOR_21_004: [If the json is malformed, the hasNext shall throw IllegalArgumentException.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void hasNextThrowsOnTruncatedJson()
+    {
+        // arrange
+        StringArrayIterator iterator = new StringArrayIterator(new StringReader("[\"a\", "));
+        iterator.next();
+
+        // act
+        iterator.hasNext();
+    }
+
+    /* Tests_SRS_JSON_ARRAY_ITERATOR_21_005: [If there are no more items in the array, the next shall throw NoSuchElementException.] */
+    @Test (expected = NoSuchElementException.class)
+    public void nextThrowsOnEndOfArray()
+    {
+        // arrange
+        StringArrayIterator iterator = new StringArrayIterator(new StringReader("[]"));
+
+        // act
+        iterator.next();
+    }
+
+    /* Tests_SRS_JSON_ARRAY_ITERATOR_21_007: [The remove shall throw UnsupportedOperationException.] */
+    @Test (expected = UnsupportedOperationException.class)
+    public void removeThrows()
+    {
+        // arrange
+        StringArrayIterator iterator = new StringArrayIterator(new StringReader("[\"a\"]"));
+        iterator.next();
+
+        // act
+        iterator.remove();
+    }
+
+    /* Tests_SRS_JSON_ARRAY_ITERATOR_21_008: [The close shall close the underlying reader.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void closeClosesTheReader() throws IOException
+    {
+        // arrange
+        StringArrayIterator iterator = new StringArrayIterator(new StringReader("[\"a\"]"));
+
+        // act
+        iterator.close();
+
+        // assert
+        iterator.hasNext();
+    }
+}
@@ -0,0 +1,138 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package tests.unit.com.microsoft.azure.sdk.iot.deps.serializer;
+
+import com.google.gson.Gson;
+import com.google.gson.annotations.Expose;
+import com.microsoft.azure.sdk.iot.deps.serializer.SerializerRegistry;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for the shared Gson registry
+ * 100% methods, 100% lines covered
+ */
+public class SerializerRegistryTest
+{
+    private static class TestEntity
+    {
+        @Expose
+        private String exposed = "<a>";
+
+        private String notExposed = "value";
+
+        @Expose
+        private String nullValue = null;
+    }
+
+    /* Tests_SRS_SERIALIZER_REGISTRY_21_001: [The getGson shall return a Gson with the default configuration.] */
+    @Test
+    public void getGsonReturnsSameInstanceWithDefaultConfiguration()
+    {
+        // act
+        Gson gson = SerializerRegistry.getGson();
+
+        // assert
+        assertSame(gson, SerializerRegistry.getGson());
+        assertEquals("{\"exposed\":\"\\u003ca\\u003e\",\"notExposed\":\"value\"}", gson.toJson(new TestEntity()));
+    }
+
+    /* Tests_SRS_SERIALIZER_REGISTRY_21_002: [The getGsonDisableHtmlEscaping shall return a Gson that do not escape HTML characters.] */
+    @Test
+    public void getGsonDisableHtmlEscapingDoNotEscapeHtml()
+    {
+        // act
+        Gson gson = SerializerRegistry.getGsonDisableHtmlEscaping();
+
+        // assert
+        assertSame(gson, SerializerRegistry.getGsonDisableHtmlEscaping());
+        assertEquals("{\"exposed\":\"<a>\",\"notExposed\":\"value\"}", gson.toJson(new TestEntity()));
+    }
+
+    /* Tests_SRS_SERIALIZER_REGISTRY_21_003: [The getGsonSerializeNulls shall return a Gson that serializes null values.] */
+    @Test
+    public void getGsonSerializeNullsIncludesNulls()
+    {
+        // act
+        Gson gson = SerializerRegistry.getGsonSerializeNulls();
+
+        // assert
+        assertEquals("{\"exposed\":\"\\u003ca\\u003e\",\"notExposed\":\"value\",\"nullValue\":null}", gson.toJson(new TestEntity()));
+    }
+
+    /* Tests_SRS_SERIALIZER_REGISTRY_21_004: [The getGsonDisableHtmlEscapingSerializeNulls shall return a Gson that serializes null values and do not escape HTML characters.] */
+    @Test
+    public void getGsonDisableHtmlEscapingSerializeNullsSucceed()
+    {
+        // act
+        Gson gson = SerializerRegistry.getGsonDisableHtmlEscapingSerializeNulls();
+
+        // assert
+        assertEquals("{\"exposed\":\"<a>\",\"notExposed\":\"value\",\"nullValue\":null}", gson.toJson(new TestEntity()));
+    }
+
+    /* Tests_SRS_SERIALIZER_REGISTRY_21_005: [The getGsonComplexMapKeySerializeNulls shall return a Gson that serializes complex map keys and null values.] */
+    @Test
+    public void getGsonComplexMapKeySerializeNullsSucceed()
+    {
+        // arrange
+        Map<String, Object> map = new HashMap<>();
+        map.put("key", null);
+
+        // act
+        Gson gson = SerializerRegistry.getGsonComplexMapKeySerializeNulls();
+
+        // assert
+        assertEquals("{\"key\":null}", gson.toJson(map));
+    }
+
+    /* Tests_SRS_SERIALIZER_REGISTRY_21_006: [The getGsonPrettyPrinting shall return a Gson that pretty prints and do not escape HTML characters.] */
+    @Test
+    public void getGsonPrettyPrintingSucceed()
+    {
+        // act
+        Gson gson = SerializerRegistry.getGsonPrettyPrinting();
+
+        // assert
+        assertEquals("{\n  \"exposed\": \"<a>\",\n  \"notExposed\": \"value\"\n}", gson.toJson(new TestEntity()));
+    }
+
+    /* Tests_SRS_SERIALIZER_REGISTRY_21_007: [The getGsonExposeOnly shall return a Gson that excludes fields without the Expose annotation.] */
+    @Test
+    public void getGsonExposeOnlySucceed()
+    {
+        // act
+        Gson gson = SerializerRegistry.getGsonExposeOnly();
+
+        // assert
+        assertEquals("{\"exposed\":\"\\u003ca\\u003e\"}", gson.toJson(new TestEntity()));
+    }
+
+    /* Tests_SRS_SERIALIZER_REGISTRY_21_008: [The getGsonExposeOnlyDisableHtmlEscaping shall return a Gson that excludes fields without the Expose annotation and do not escape HTML characters.] */
+    @Test
+    public void getGsonExposeOnlyDisableHtmlEscapingSucceed()
+    {
+        // act
+        Gson gson = SerializerRegistry.getGsonExposeOnlyDisableHtmlEscaping();
+
+        // assert
+        assertEquals("{\"exposed\":\"<a>\"}", gson.toJson(new TestEntity()));
+    }
+
+    /* Tests_SRS_SERIALIZER_REGISTRY_21_009: [The getGsonExposeOnlyPrettyPrinting shall return a Gson that excludes fields without the Expose annotation, pretty prints, and do not escape HTML characters.] */
+    @Test
+    public void getGsonExposeOnlyPrettyPrintingSucceed()
+    {
+        // act
+        Gson gson = SerializerRegistry.getGsonExposeOnlyPrettyPrinting();
+
+        // assert
+        assertEquals("{\n  \"exposed\": \"<a>\"\n}", gson.toJson(new TestEntity()));
+    }
+}
@@ -21,6 +21,9 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
 /** Unit tests for AmqpConnection.
  * Coverage : 100% method, 100% line */
 @RunWith(JMockit.class)
@@ -97,6 +100,42 @@ public class AmqpMessageTest
         amqpMessage.setApplicationProperty(userProperties);
     }
 
+    @Test
+    public void getApplicationPropertySucceeds(@Mocked final ApplicationProperties mockedApplicationProperties)
+    {
+        AmqpMessage amqpMessage = new AmqpMessage(mockedMessageImpl);
+        final Map<String, Object> userProperties = new HashMap<>();
+        userProperties.put("retry-after", "3");
+
+        new NonStrictExpectations()
+        {
+            {
+                mockedMessageImpl.getApplicationProperties();
+                result = mockedApplicationProperties;
+                mockedApplicationProperties.getValue();
+                result = userProperties;
+            }
+        };
+
+        assertEquals(userProperties, amqpMessage.getApplicationProperty());
+    }
+
+    @Test
+    public void getApplicationPropertyReturnsNullWithoutProperties()
+    {
+        AmqpMessage amqpMessage = new AmqpMessage(mockedMessageImpl);
+
+        new NonStrictExpectations()
+        {
+            {
+                mockedMessageImpl.getApplicationProperties();
+                result = null;
+            }
+        };
+
+        assertNull(amqpMessage.getApplicationProperty());
+    }
+
     @Test (expected = IllegalArgumentException.class)
     public void decodeThrowsOnDataNull()
     {
@@ -7,6 +7,7 @@ package tests.unit.com.microsoft.azure.sdk.iot.deps.transport.http;
 
 import com.microsoft.azure.sdk.iot.deps.transport.http.HttpConnection;
 import com.microsoft.azure.sdk.iot.deps.transport.http.HttpMethod;
+import mockit.Deencapsulation;
 import mockit.Mocked;
 import mockit.NonStrictExpectations;
 import mockit.Verifications;
@@ -15,6 +16,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocketFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
@@ -723,4 +725,50 @@ public class HttpConnectionTest
         // Act
         conn.getResponseHeaders();
     }
+
+    // Tests_SRS_HTTPSCONNECTION_21_026: [The function shall throw IllegalArgumentException if the socket factory is null.]
+    @Test (expected = IllegalArgumentException.class)
+    public void setSSLSocketFactoryThrowsOnNullFactory() throws IOException
+    {
+        // Arrange
+        new NonStrictExpectations()
+        {
+            {
+                mockUrl.getProtocol();
+                result = "https";
+                mockUrl.openConnection();
+                result = mockUrlConn;
+            }
+        };
+        HttpConnection conn = new HttpConnection(mockUrl, HttpMethod.GET);
+        // Act
+        Deencapsulation.invoke(conn, "setSSLSocketFactory", new Class[] {SSLSocketFactory.class}, (SSLSocketFactory)null);
+    }
+
+    // Tests_SRS_HTTPSCONNECTION_21_027: [The function shall set the socket factory of the connection with the given value.]
+    @Test
+    public void setSSLSocketFactorySetsFactory(@Mocked final SSLSocketFactory mockSocketFactory) throws IOException
+    {
+        // Arrange
+        new NonStrictExpectations()
+        {
+            {
+                mockUrl.getProtocol();
+                result = "https";
+                mockUrl.openConnection();
+                result = mockUrlConn;
+            }
+        };
+        HttpConnection conn = new HttpConnection(mockUrl, HttpMethod.GET);
+        // Act
+        Deencapsulation.invoke(conn, "setSSLSocketFactory", mockSocketFactory);
+        // Assert
+        new Verifications()
+        {
+            {
+                mockUrlConn.setSSLSocketFactory(mockSocketFactory);
+                times = 1;
+            }
+        };
+    }
 }
@@ -14,6 +14,8 @@ import mockit.integration.junit4.JMockit;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import javax.net.ssl.SSLSocketFactory;
+
 import java.io.IOException;
 import java.net.URL;
 import java.util.HashMap;
@@ -635,4 +637,33 @@ public class HttpsRequestTest
             }
         };
     }
+
+    // Tests_SRS_HTTPSREQUEST_21_017: [The function shall throw IllegalArgumentException if parameter is null.]
+    @Test (expected = IllegalArgumentException.class)
+    public void setSSLSocketFactoryThrowsOnNullFactory(@Mocked final HttpConnection mockConn) throws IOException
+    {
+        // Arrange
+        HttpRequest request = new HttpRequest(mockUrl, HttpMethod.GET, new byte[0]);
+        // Act
+        request.setSSLSocketFactory(null);
+    }
+
+    // Tests_SRS_HTTPSREQUEST_21_018: [The function shall set the socket factory for the connection.]
+    @Test
+    public void setSSLSocketFactorySetsFactoryOnConnection(@Mocked final HttpConnection mockConn,
+                                                           @Mocked final SSLSocketFactory mockSocketFactory) throws IOException
+    {
+        // Arrange
+        HttpRequest request = new HttpRequest(mockUrl, HttpMethod.GET, new byte[0]);
+        // Act
+        request.setSSLSocketFactory(mockSocketFactory);
+        // Assert
+        new Verifications()
+        {
+            {
+                Deencapsulation.invoke(mockConn, "setSSLSocketFactory", mockSocketFactory);
+                times = 1;
+            }
+        };
+    }
 }
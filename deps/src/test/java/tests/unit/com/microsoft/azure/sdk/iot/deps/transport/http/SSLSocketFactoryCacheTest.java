@@ -0,0 +1,94 @@
+/*
+ *  Copyright (c) Microsoft. All rights reserved.
+ *  Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package tests.unit.com.microsoft.azure.sdk.iot.deps.transport.http;
+
+import com.microsoft.azure.sdk.iot.deps.transport.http.SSLSocketFactoryCache;
+import mockit.Mocked;
+import mockit.NonStrictExpectations;
+import mockit.Verifications;
+import org.junit.Test;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/** Unit tests for SSLSocketFactoryCache. */
+public class SSLSocketFactoryCacheTest
+{
+    @Mocked SSLContext mockSslContext;
+    @Mocked SSLContext mockNewSslContext;
+    @Mocked SSLSocketFactory mockSocketFactory;
+    @Mocked SSLSocketFactory mockNewSocketFactory;
+
+    // Tests_SRS_SSLSOCKETFACTORYCACHE_21_001: [The function shall throw IllegalArgumentException if the SSL context is null.]
+    @Test (expected = IllegalArgumentException.class)
+    public void getSocketFactoryThrowsOnNullSslContext()
+    {
+        // Arrange
+        SSLSocketFactoryCache cache = new SSLSocketFactoryCache();
+
+        // Act
+        cache.getSocketFactory(null);
+    }
+
+    // Tests_SRS_SSLSOCKETFACTORYCACHE_21_002: [The function shall return the same socket factory while the SSL context does not change.]
+    @Test
+    public void getSocketFactoryReusesFactoryForSameSslContext()
+    {
+        // Arrange
+        SSLSocketFactoryCache cache = new SSLSocketFactoryCache();
+        new NonStrictExpectations()
+        {
+            {
+                mockSslContext.getSocketFactory();
+                result = mockSocketFactory;
+            }
+        };
+
+        // Act
+        SSLSocketFactory first = cache.getSocketFactory(mockSslContext);
+        SSLSocketFactory second = cache.getSocketFactory(mockSslContext);
+
+        // Assert
+        assertSame(mockSocketFactory, first);
+        assertSame(first, second);
+        new Verifications()
+        {
+            {
+                mockSslContext.getSocketFactory();
+                times = 1;
+            }
+        };
+    }
+
+    // Tests_SRS_SSLSOCKETFACTORYCACHE_21_003: [If the SSL context is not the one of the cached socket factory, the function shall create a new socket factory from the SSL context and cache it.]
+    @Test
+    public void getSocketFactoryCreatesNewFactoryWhenSslContextChanges()
+    {
+        // Arrange
+        SSLSocketFactoryCache cache = new SSLSocketFactoryCache();
+        new NonStrictExpectations()
+        {
+            {
+                mockSslContext.getSocketFactory();
+                result = mockSocketFactory;
+                mockNewSslContext.getSocketFactory();
+                result = mockNewSocketFactory;
+            }
+        };
+        SSLSocketFactory first = cache.getSocketFactory(mockSslContext);
+
+        // Act
+        SSLSocketFactory second = cache.getSocketFactory(mockNewSslContext);
+        SSLSocketFactory third = cache.getSocketFactory(mockNewSslContext);
+
+        // Assert
+        assertNotSame(first, second);
+        assertSame(second, third);
+    }
+}
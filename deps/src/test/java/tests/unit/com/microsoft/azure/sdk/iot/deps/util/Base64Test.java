@@ -7,8 +7,13 @@ import com.microsoft.azure.sdk.iot.deps.util.Base64;
 import org.junit.Test;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 /**
  * Unit tests for Base64
@@ -274,4 +279,209 @@ public class Base64Test
         // assert
         assertEquals(expectedBase64Result, result);
     }
+
+    /* Tests_SRS_BASE64_21_001: [The decodeBase64Local shall decode the provided `base64Values` in a byte array using the Base64 format define in the RFC2045.] */
+    /* Tests_SRS_BASE64_21_005: [The encodeBase64Local shall encoded the provided `dataValues` in a byte array using the Base64 format define in the RFC2045.] */
+    @Test
+    public void encodeAndDecodeTestVectors() throws UnsupportedEncodingException
+    {
+        // arrange
+        String[][] vectors =
+            {
+                {"", ""},
+                {"f", "Zg=="},
+                {"fo", "Zm8="},
+                {"foo", "Zm9v"},
+                {"foob", "Zm9vYg=="},
+                {"fooba", "Zm9vYmE="},
+                {"foobar", "Zm9vYmFy"},
+            };
+
+        for (String[] vector : vectors)
+        {
+            // act
+            String encoded = Base64.encodeBase64StringLocal(vector[0].getBytes("US-ASCII"));
+            byte[] decoded = Base64.decodeBase64Local(vector[1].getBytes("US-ASCII"));
+
+            // assert
+            assertEquals(vector[1], encoded);
+            assertEquals(vector[0], new String(decoded, "US-ASCII"));
+        }
+    }
+
+    /* Tests_SRS_BASE64_21_001: [The decodeBase64Local shall decode the provided `base64Values` in a byte array using the Base64 format define in the RFC2045.] */
+    /* Tests_SRS_BASE64_21_005: [The encodeBase64Local shall encoded the provided `dataValues` in a byte array using the Base64 format define in the RFC2045.] */
+    /* Tests_SRS_BASE64_21_008: [The encodeBase64StringLocal shall encoded the provided `dataValues` in a string using the Base64 format define in the RFC2045.] */
+    @Test
+    public void roundTripAllOneAndTwoByteValues() throws UnsupportedEncodingException
+    {
+        for (int value = 0; value < 0x10000; value++)
+        {
+            // arrange
+            byte[] oneByte = {(byte)value};
+            byte[] twoBytes = {(byte)(value >> 8), (byte)value};
+
+            // act
+            byte[] encodedOneByte = Base64.encodeBase64Local(oneByte);
+            byte[] encodedTwoBytes = Base64.encodeBase64Local(twoBytes);
+
+            // assert
+            if (value < 0x100)
+            {
+                assertEquals(new String(encodedOneByte, "US-ASCII"), Base64.encodeBase64StringLocal(oneByte));
+                assertArrayEquals(oneByte, Base64.decodeBase64Local(encodedOneByte));
+            }
+            assertEquals(new String(encodedTwoBytes, "US-ASCII"), Base64.encodeBase64StringLocal(twoBytes));
+            assertArrayEquals(twoBytes, Base64.decodeBase64Local(encodedTwoBytes));
+        }
+    }
+
+    /* Tests_SRS_BASE64_21_001: [The decodeBase64Local shall decode the provided `base64Values` in a byte array using the Base64 format define in the RFC2045.] */
+    /* Tests_SRS_BASE64_21_005: [The encodeBase64Local shall encoded the provided `dataValues` in a byte array using the Base64 format define in the RFC2045.] */
+    @Test
+    public void roundTripAllLengthsAndOffsets() throws UnsupportedEncodingException
+    {
+        // arrange
+        byte[] data = new byte[300];
+        new Random(300).nextBytes(data);
+
+        for (int length = 0; length <= 256; length++)
+        {
+            for (int offset = 0; offset < 4; offset++)
+            {
+                byte[] expected = Arrays.copyOfRange(data, offset, offset + length);
+
+                // act
+                byte[] encoded = Base64.encodeBase64Local(data, offset, length);
+                byte[] decoded = Base64.decodeBase64Local(encoded);
+
+                // assert
+                assertEquals(Base64.getEncodedLength(length), encoded.length);
+                assertArrayEquals(Base64.encodeBase64Local(expected), encoded);
+                assertEquals(new String(encoded, "US-ASCII"), Base64.encodeBase64StringLocal(data, offset, length));
+                assertArrayEquals(expected, decoded);
+            }
+        }
+    }
+
+    /* Tests_SRS_BASE64_21_001: [The decodeBase64Local shall decode the provided `base64Values` in a byte array using the Base64 format define in the RFC2045.] */
+    @Test
+    public void decodeBase64ThrowsOnEveryInvalidByte()
+    {
+        // arrange
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int value = 0; value < 0x100; value++)
+        {
+            if (alphabet.indexOf(value) >= 0)
+            {
+                continue;
+            }
+
+            for (int position = 0; position < 4; position++)
+            {
+                byte[] base64Values = "QUJD".getBytes();
+                base64Values[position] = (byte)value;
+                if ((value == '=') && (position >= 2))
+                {
+                    // a pad at the end is valid
+                    continue;
+                }
+
+                // act
+                try
+                {
+                    Base64.decodeBase64Local(base64Values);
+                    fail("decode shall reject the byte " + value + " in the position " + position);
+                }
+                catch (IllegalArgumentException e)
+                {
+                    // assert
+                }
+            }
+        }
+    }
+
+    /* Tests_SRS_BASE64_21_011: [If the `offset` and `length` are not a range of the array, the function shall throw IllegalArgumentException.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void encodeBase64ThrowsOnRangeOutOfArray()
+    {
+        // act
+        Base64.encodeBase64Local(new byte[10], 8, 3);
+    }
+
+    /* Tests_SRS_BASE64_21_011: [If the `offset` and `length` are not a range of the array, the function shall throw IllegalArgumentException.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void decodeBase64ThrowsOnNegativeOffset()
+    {
+        // act
+        Base64.decodeBase64Local("QUJD".getBytes(), -1, 4);
+    }
+
+    /* Tests_SRS_BASE64_21_014: [The encodeBase64Local shall write the encoded values in the `destination` starting at `destinationOffset`, and return the number of written values.] */
+    @Test
+    public void encodeBase64IntoDestinationSuccess() throws UnsupportedEncodingException
+    {
+        // arrange
+        byte[] destination = "[--------]".getBytes("US-ASCII");
+
+        // act
+        int written = Base64.encodeBase64Local("foobar".getBytes("US-ASCII"), 1, 4, destination, 1);
+
+        // assert
+        assertEquals(8, written);
+        assertEquals("[b29iYQ==]", new String(destination, "US-ASCII"));
+    }
+
+    /* Tests_SRS_BASE64_21_013: [If the `destination` does not have room for the encoded values after the `destinationOffset`, the encodeBase64Local shall throw IllegalArgumentException.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void encodeBase64IntoDestinationThrowsOnSmallDestination()
+    {
+        // act
+        Base64.encodeBase64Local(new byte[6], 0, 6, new byte[8], 1);
+    }
+
+    /* Tests_SRS_BASE64_21_012: [The function shall use the remaining bytes of the buffer, without copying them if the buffer has an accessible array, and move its position to its limit.] */
+    @Test
+    public void encodeAndDecodeByteBufferSuccess() throws UnsupportedEncodingException
+    {
+        // arrange
+        ByteBuffer heapData = ByteBuffer.wrap("[foobar]".getBytes("US-ASCII"), 1, 6);
+        ByteBuffer directData = ByteBuffer.allocateDirect(6);
+        directData.put("foobar".getBytes("US-ASCII"));
+        directData.flip();
+        ByteBuffer encodedData = ByteBuffer.wrap("--Zm9vYmFy".getBytes("US-ASCII"));
+        encodedData.position(2);
+
+        // act
+        byte[] heapEncoded = Base64.encodeBase64Local(heapData);
+        byte[] directEncoded = Base64.encodeBase64Local(directData);
+        byte[] decoded = Base64.decodeBase64Local(encodedData);
+
+        // assert
+        assertEquals("Zm9vYmFy", new String(heapEncoded, "US-ASCII"));
+        assertEquals("Zm9vYmFy", new String(directEncoded, "US-ASCII"));
+        assertEquals("foobar", new String(decoded, "US-ASCII"));
+        assertEquals(0, heapData.remaining());
+        assertEquals(0, directData.remaining());
+        assertEquals(0, encodedData.remaining());
+    }
+
+    /* Tests_SRS_BASE64_21_015: [If the `dataLength` is negative, the getEncodedLength shall throw IllegalArgumentException.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void getEncodedLengthThrowsOnNegativeLength()
+    {
+        // act
+        Base64.getEncodedLength(-1);
+    }
+
+    /* Tests_SRS_BASE64_21_016: [The getEncodedLength shall return the number of base64 values, including the pad, that encode `dataLength` bytes.] */
+    @Test
+    public void getEncodedLengthSuccess()
+    {
+        // act - assert
+        assertEquals(0, Base64.getEncodedLength(0));
+        assertEquals(4, Base64.getEncodedLength(1));
+        assertEquals(4, Base64.getEncodedLength(3));
+        assertEquals(8, Base64.getEncodedLength(4));
+    }
 }
@@ -0,0 +1,152 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package tests.unit.com.microsoft.azure.sdk.iot.deps.util;
+
+import com.microsoft.azure.sdk.iot.deps.util.Compression;
+import com.microsoft.azure.sdk.iot.deps.util.DecompressedSizeExceededException;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for Compression
+ */
+public class CompressionTest
+{
+    private static final byte[] LARGE_BODY = buildBody(2000);
+
+    private static byte[] buildBody(int repetitions)
+    {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < repetitions; i++)
+        {
+            builder.append("{\"temperature\":").append(i % 10).append("}");
+        }
+
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /* Tests_SRS_COMPRESSION_21_001: [The function shall return the supported content encoding that matches the provided one, ignoring case and spaces.] */
+    /* Tests_SRS_COMPRESSION_21_002: [The function shall return null if the content encoding is null or not supported.] */
+    @Test
+    public void toSupportedContentEncodingMatchesGzipAndDeflate()
+    {
+        // arrange
+        // act
+        // assert
+        assertEquals(Compression.GZIP, Compression.toSupportedContentEncoding(" GZip "));
+        assertEquals(Compression.DEFLATE, Compression.toSupportedContentEncoding("DEFLATE"));
+        assertNull(Compression.toSupportedContentEncoding("br"));
+        assertNull(Compression.toSupportedContentEncoding(null));
+    }
+
+    /* Tests_SRS_COMPRESSION_21_003: [The function shall throw IllegalArgumentException if the body is null or the content encoding is not supported.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void compressThrowsOnUnsupportedContentEncoding()
+    {
+        // arrange
+        // act
+        Compression.compress(LARGE_BODY, "br");
+
+        // assert
+    }
+
+    /* Tests_SRS_COMPRESSION_21_004: [The function shall return the body compressed in the format of the content encoding.] */
+    /* Tests_SRS_COMPRESSION_21_006: [The function shall return the decompressed body.] */
+    @Test
+    public void roundTripReusesPooledCodecs() throws IOException
+    {
+        for (String contentEncoding : Arrays.asList(Compression.GZIP, Compression.DEFLATE))
+        {
+            for (int i = 0; i < 10; i++)
+            {
+                // arrange
+                byte[] compressed = Compression.compress(LARGE_BODY, contentEncoding);
+
+                // act
+                byte[] decompressed = Compression.decompress(compressed, contentEncoding, LARGE_BODY.length);
+
+                // assert
+                assertTrue(compressed.length < LARGE_BODY.length);
+                assertArrayEquals(LARGE_BODY, decompressed);
+            }
+        }
+    }
+
+    /* Tests_SRS_COMPRESSION_21_004: [The function shall return the body compressed in the format of the content encoding.] */
+    @Test
+    public void gzipBodyIsReadableByGZIPInputStream() throws IOException
+    {
+        // arrange
+        byte[] compressed = Compression.compress(LARGE_BODY, Compression.GZIP);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // act
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed)))
+        {
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = input.read(buffer)) > 0)
+            {
+                output.write(buffer, 0, read);
+            }
+        }
+
+        // assert
+        assertArrayEquals(LARGE_BODY, output.toByteArray());
+    }
+
+    /* Tests_SRS_COMPRESSION_21_005: [The function shall throw IllegalArgumentException if the body is null, the content encoding is not supported, or the maximum size is not positive.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void decompressThrowsOnInvalidMaxSize() throws IOException
+    {
+        // arrange
+        byte[] compressed = Compression.compress(LARGE_BODY, Compression.GZIP);
+
+        // act
+        Compression.decompress(compressed, Compression.GZIP, 0);
+
+        // assert
+    }
+
+    /* Tests_SRS_COMPRESSION_21_007: [The function shall throw IOException if the body is not valid for its content encoding.] */
+    @Test (expected = IOException.class)
+    public void decompressThrowsOnInvalidDeflateBody() throws IOException
+    {
+        // arrange
+        // act
+        Compression.decompress("not deflate".getBytes(StandardCharsets.UTF_8), Compression.DEFLATE, 1024);
+
+        // assert
+    }
+
+    /* Tests_SRS_COMPRESSION_21_008: [The function shall throw DecompressedSizeExceededException as soon as the decompressed body is bigger than the maximum size.] */
+    @Test
+    public void decompressThrowsOnBodyBiggerThanMaxSize() throws IOException
+    {
+        for (String contentEncoding : Arrays.asList(Compression.GZIP, Compression.DEFLATE))
+        {
+            // arrange
+            byte[] compressed = Compression.compress(LARGE_BODY, contentEncoding);
+
+            // act
+            try
+            {
+                Compression.decompress(compressed, contentEncoding, LARGE_BODY.length - 1);
+                fail("decompress shall throw DecompressedSizeExceededException");
+            }
+            catch (DecompressedSizeExceededException e)
+            {
+                // assert
+            }
+        }
+    }
+}
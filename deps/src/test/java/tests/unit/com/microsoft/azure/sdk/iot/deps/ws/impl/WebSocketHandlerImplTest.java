@@ -702,10 +702,10 @@ public class WebSocketHandlerImplTest
         expected[0] = (byte) (WebSocketHeader.FINBIT_MASK | WebSocketHeader.OPCODE_BINARY);
         expected[1] = (byte) (WebSocketHeader.MASKBIT_MASK | WebSocketHeader.PAYLOAD_EXTENDED_64);
 
-        expected[2] = (byte) (payloadLength >>> 56);
-        expected[3] = (byte) (payloadLength >>> 48);
-        expected[4] = (byte) (payloadLength >>> 40);
-        expected[5] = (byte) (payloadLength >>> 32);
+        expected[2] = (byte) ((long) payloadLength >>> 56);
+        expected[3] = (byte) ((long) payloadLength >>> 48);
+        expected[4] = (byte) ((long) payloadLength >>> 40);
+        expected[5] = (byte) ((long) payloadLength >>> 32);
         expected[6] = (byte) (payloadLength >>> 24);
         expected[7] = (byte) (payloadLength >>> 16);
         expected[8] = (byte) (payloadLength >>> 8);
@@ -778,10 +778,10 @@ public class WebSocketHandlerImplTest
         expected[0] = (byte) (WebSocketHeader.FINBIT_MASK | WebSocketHeader.OPCODE_BINARY);
         expected[1] = (byte) (WebSocketHeader.MASKBIT_MASK | WebSocketHeader.PAYLOAD_EXTENDED_64);
 
-        expected[2] = (byte) (payloadLength >>> 56);
-        expected[3] = (byte) (payloadLength >>> 48);
-        expected[4] = (byte) (payloadLength >>> 40);
-        expected[5] = (byte) (payloadLength >>> 32);
+        expected[2] = (byte) ((long) payloadLength >>> 56);
+        expected[3] = (byte) ((long) payloadLength >>> 48);
+        expected[4] = (byte) ((long) payloadLength >>> 40);
+        expected[5] = (byte) ((long) payloadLength >>> 32);
         expected[6] = (byte) (payloadLength >>> 24);
         expected[7] = (byte) (payloadLength >>> 16);
         expected[8] = (byte) (payloadLength >>> 8);
@@ -931,6 +931,39 @@ public class WebSocketHandlerImplTest
         spyWebSocketHandler.wrapBuffer(srcBuffer, dstBuffer);
     }
 
+    @Test
+    public void testWrapBuffer_direct_buffers()
+    {
+        WebSocketHandlerImpl webSocketHandler = new WebSocketHandlerImpl();
+        WebSocketHandlerImpl spyWebSocketHandler = spy(webSocketHandler);
+
+        int payloadLength = WebSocketHeader.PAYLOAD_MEDIUM_MAX + 100;
+        int messageLength = payloadLength + WebSocketHeader.MAX_HEADER_LENGTH_MASKED;
+        byte[] maskingKey = new byte[]{0x01, 0x02, 0x03, 0x04};
+
+        byte[] data = new byte[payloadLength];
+        new Random(payloadLength).nextBytes(data);
+        ByteBuffer srcBuffer = ByteBuffer.allocateDirect(payloadLength);
+        srcBuffer.put(data);
+        srcBuffer.flip();
+        ByteBuffer dstBuffer = ByteBuffer.allocateDirect(messageLength);
+
+        doReturn(maskingKey).when(spyWebSocketHandler).createRandomMaskingKey();
+
+        spyWebSocketHandler.wrapBuffer(srcBuffer, dstBuffer);
+        dstBuffer.flip();
+
+        assertEquals(0, srcBuffer.remaining());
+        assertEquals(messageLength, dstBuffer.limit());
+        assertEquals((byte) (WebSocketHeader.FINBIT_MASK | WebSocketHeader.OPCODE_BINARY), dstBuffer.get(0));
+        assertEquals((byte) (WebSocketHeader.MASKBIT_MASK | WebSocketHeader.PAYLOAD_EXTENDED_64), dstBuffer.get(1));
+        assertEquals((long) payloadLength, dstBuffer.getLong(2));
+        for (int i = 0; i < payloadLength; i++)
+        {
+            assertEquals((byte) (data[i] ^ maskingKey[i % 4]), dstBuffer.get(WebSocketHeader.MAX_HEADER_LENGTH_MASKED + i));
+        }
+    }
+
     @Test(expected = OutOfMemoryError.class)
     public void testWrapBuffer_dst_buffer_small()
     {
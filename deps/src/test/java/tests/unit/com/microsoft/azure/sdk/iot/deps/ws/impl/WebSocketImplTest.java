@@ -86,6 +86,39 @@ public class WebSocketImplTest
         assertFalse(webSocketImpl.getEnabled());
     }
 
+    @Test
+    public void testConstructor_max_frame_size()
+    {
+        init();
+
+        int maxFrameSize = 64 * 1024;
+        WebSocketImpl webSocketImpl = new WebSocketImpl(maxFrameSize);
+
+        assertEquals(maxFrameSize, webSocketImpl.getInputBuffer().capacity());
+        assertEquals(maxFrameSize, webSocketImpl.getOutputBuffer().capacity());
+        assertEquals(maxFrameSize, webSocketImpl.getPingBuffer().capacity());
+        assertEquals(maxFrameSize, webSocketImpl.getWsInputBuffer().capacity());
+        assertEquals(_allocatedWebSocketBufferSize, WebSocketImpl.DEFAULT_MAX_FRAME_SIZE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_max_frame_size_too_small()
+    {
+        new WebSocketImpl(WebSocketHeader.MAX_HEADER_LENGTH_MASKED);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testValidateMaxFrameSize_too_small()
+    {
+        WebSocketImpl.validateMaxFrameSize(WebSocketHeader.MAX_HEADER_LENGTH_MASKED);
+    }
+
+    @Test
+    public void testValidateMaxFrameSize_accepts_frame_with_payload()
+    {
+        WebSocketImpl.validateMaxFrameSize(WebSocketHeader.MAX_HEADER_LENGTH_MASKED + 1);
+    }
+
     @Test
     public void testConfigure_handler_null()
     {
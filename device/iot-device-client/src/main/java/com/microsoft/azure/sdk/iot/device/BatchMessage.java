@@ -0,0 +1,90 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A group of telemetry messages sent to the IoT Hub with a single completion. Over HTTPS the transport sends the
+ * batch in one request, over the other protocols it pipelines the messages of the batch.
+ */
+public final class BatchMessage extends Message
+{
+    private final List<Message> nestedMessages;
+
+    /**
+     * Constructor.
+     *
+     * @param messages the messages of the batch.
+     * @throws IllegalArgumentException if the collection is null or empty, or if it contains a null or batch message.
+     */
+    public BatchMessage(Collection<Message> messages) throws IllegalArgumentException
+    {
+        super(new byte[0]);
+
+        // Codes_SRS_BATCHMESSAGE_21_001: [The constructor shall throw IllegalArgumentException if the collection is null or empty, or if it contains a null or batch message.]
+        if (messages == null || messages.isEmpty())
+        {
+            throw new IllegalArgumentException("The batch shall contain at least one message");
+        }
+
+        for (Message message : messages)
+        {
+            if (message == null || message instanceof BatchMessage)
+            {
+                throw new IllegalArgumentException("The batch cannot contain null or batch messages");
+            }
+        }
+
+        // Codes_SRS_BATCHMESSAGE_21_002: [The constructor shall save a copy of the collection of messages, in its iteration order.]
+        this.nestedMessages = Collections.unmodifiableList(new ArrayList<>(messages));
+        this.setMessageType(MessageType.DEVICE_TELEMETRY);
+    }
+
+    /**
+     * Getter for the messages of the batch.
+     *
+     * @return the unmodifiable list of messages of the batch.
+     */
+    public List<Message> getNestedMessages()
+    {
+        // Codes_SRS_BATCHMESSAGE_21_003: [The function shall return the messages of the batch.]
+        return this.nestedMessages;
+    }
+
+    /**
+     * Sets the connection device id of the batch and of all its messages.
+     *
+     * @param connectionDeviceId the device id.
+     */
+    @Override
+    public void setConnectionDeviceId(String connectionDeviceId)
+    {
+        // Codes_SRS_BATCHMESSAGE_21_004: [The function shall set the connection device id of the batch and of all its messages.]
+        super.setConnectionDeviceId(connectionDeviceId);
+        for (Message message : this.nestedMessages)
+        {
+            message.setConnectionDeviceId(connectionDeviceId);
+        }
+    }
+
+    /**
+     * Sets the connection module id of the batch and of all its messages.
+     *
+     * @param connectionModuleId the module id.
+     */
+    @Override
+    public void setConnectionModuleId(String connectionModuleId)
+    {
+        // Codes_SRS_BATCHMESSAGE_21_005: [The function shall set the connection module id of the batch and of all its messages.]
+        super.setConnectionModuleId(connectionModuleId);
+        for (Message message : this.nestedMessages)
+        {
+            message.setConnectionModuleId(connectionModuleId);
+        }
+    }
+}
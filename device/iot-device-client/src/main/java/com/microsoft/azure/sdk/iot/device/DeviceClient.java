@@ -390,6 +390,36 @@ public final class DeviceClient extends InternalClient implements Closeable
         logger.LogInfo("Connection closed with success, method name is %s ", logger.getMethodName());
     }
 
+    /**
+     * Sets how {@link #uploadToBlobAsync(String, InputStream, long, IotHubEventCallback, Object)} uploads the streams
+     * that are bigger than a block. These streams are uploaded in blocks and committed at the end, each block is
+     * retried on its own, and an upload of the same blob that was interrupted resumes from the blocks that were
+     * already uploaded. A {@link java.io.FileInputStream} is read from its file channel, so the blocks can be read
+     * in parallel.
+     *
+     * @param blockSizeInBytes the size of each block, up to 4MB, or 0 to use the default size of 4MB.
+     * @param parallelism the number of blocks of a file to upload at the same time, or 0 to upload one at a time.
+     * @throws IllegalArgumentException if the block size is negative or bigger than 4MB, or if the parallelism is negative.
+     */
+    public void setFileUploadOptions(int blockSizeInBytes, int parallelism) throws IllegalArgumentException
+    {
+        //Codes_SRS_DEVICECLIENT_21_042: [The function shall set the device config's file upload block size and parallelism.]
+        this.config.setFileUploadOptions(blockSizeInBytes, parallelism);
+    }
+
+    /**
+     * Caps the bandwidth of the file uploads of this client. The cap is shared by all the uploads of the client that
+     * run at the same time, and it applies to the uploads that start after this call.
+     *
+     * @param maxBytesPerSecond the number of bytes per second that the file uploads can send, or 0 for no cap.
+     * @throws IllegalArgumentException if the cap is negative.
+     */
+    public void setFileUploadBandwidthCap(long maxBytesPerSecond) throws IllegalArgumentException
+    {
+        //Codes_SRS_DEVICECLIENT_21_043: [The function shall set the device config's file upload bandwidth cap.]
+        this.config.setFileUploadMaxBytesPerSecond(maxBytesPerSecond);
+    }
+
     /**
      * Asynchronously upload a stream to the IoT Hub.
      *
@@ -3,10 +3,13 @@
 
 package com.microsoft.azure.sdk.iot.device;
 
+import com.microsoft.azure.sdk.iot.deps.ws.impl.WebSocketImpl;
 import com.microsoft.azure.sdk.iot.device.DeviceTwin.Pair;
 import com.microsoft.azure.sdk.iot.device.auth.*;
 import com.microsoft.azure.sdk.iot.device.transport.ExponentialBackoffWithJitter;
+import com.microsoft.azure.sdk.iot.device.transport.OutboundQueueOverflowPolicy;
 import com.microsoft.azure.sdk.iot.device.transport.RetryPolicy;
+import com.microsoft.azure.sdk.iot.device.transport.TransportMetrics;
 import com.microsoft.azure.sdk.iot.provisioning.security.SecurityProvider;
 import com.microsoft.azure.sdk.iot.provisioning.security.SecurityProviderTpm;
 import com.microsoft.azure.sdk.iot.provisioning.security.SecurityProviderX509;
@@ -66,6 +69,30 @@ public final class DeviceClientConfig
     }
 
     private long operationTimeout = DEFAULT_OPERATION_TIMEOUT;
+
+    // Zero means that the outbound queue has no limit.
+    private int maxOutboundQueueMessages = 0;
+    private long maxOutboundQueueBytes = 0;
+    private OutboundQueueOverflowPolicy outboundQueueOverflowPolicy = OutboundQueueOverflowPolicy.FAIL;
+    private long outboundQueueBlockTimeoutMillis = 0;
+
+    // Null means that the outbound messages are not persisted.
+    private String outboundMessageStorePath = null;
+
+    // Null means that the transport metrics are not collected.
+    private TransportMetrics transportMetrics = null;
+
+    // Null means that the message bodies are sent and received as they are.
+    private MessageCompression messageCompression = null;
+    private int messageCompressionThresholdBytes = 0;
+    private int maxDecompressedMessageBytes = MessageCompressor.DEFAULT_MAX_DECOMPRESSED_BYTES;
+
+    private static final int MAX_FILE_UPLOAD_BLOCK_SIZE_IN_BYTES = 4 * 1024 * 1024;
+    private int fileUploadBlockSizeInBytes = 0;
+    private int fileUploadParallelism = 0;
+    private long fileUploadMaxBytesPerSecond = 0;
+
+    private int webSocketMaxFrameSize = WebSocketImpl.DEFAULT_MAX_FRAME_SIZE;
     private IotHubClientProtocol protocol;
 
     // Codes_SRS_DEVICECLIENTCONFIG_28_001: [The class shall have ExponentialBackOff as the default retryPolicy.]
@@ -584,6 +611,304 @@ public final class DeviceClientConfig
         return this.operationTimeout;
     }
 
+    /**
+     * Setter for the capacity of the outbound queue. The capacity limits the messages that were accepted by the
+     * client and are not completed yet.
+     *
+     * @param maxMessages the maximum number of messages in the queue, or 0 for no limit.
+     * @param maxBytes the maximum number of body bytes in the queue, or 0 for no limit.
+     * @throws IllegalArgumentException if any of the limits is negative.
+     */
+    void setOutboundQueueCapacity(int maxMessages, long maxBytes) throws IllegalArgumentException
+    {
+        //Codes_SRS_DEVICECLIENTCONFIG_21_050: [If any of the provided limits is negative, this function shall throw an IllegalArgumentException.]
+        if (maxMessages < 0 || maxBytes < 0)
+        {
+            throw new IllegalArgumentException("Outbound queue capacity cannot be negative");
+        }
+
+        //Codes_SRS_DEVICECLIENTCONFIG_21_051: [This function shall save the provided limits.]
+        this.maxOutboundQueueMessages = maxMessages;
+        this.maxOutboundQueueBytes = maxBytes;
+    }
+
+    /**
+     * Setter for the policy applied to new messages when the outbound queue is full.
+     *
+     * @param policy the overflow policy.
+     * @param blockTimeoutMillis the maximum time to block the caller when the policy is
+     *                           {@link OutboundQueueOverflowPolicy#BLOCK}.
+     * @throws IllegalArgumentException if the policy is null or the timeout is negative.
+     */
+    void setOutboundQueueOverflowPolicy(OutboundQueueOverflowPolicy policy, long blockTimeoutMillis) throws IllegalArgumentException
+    {
+        //Codes_SRS_DEVICECLIENTCONFIG_21_052: [If the provided policy is null or the provided timeout is negative, this function shall throw an IllegalArgumentException.]
+        if (policy == null)
+        {
+            throw new IllegalArgumentException("Outbound queue overflow policy cannot be null");
+        }
+
+        if (blockTimeoutMillis < 0)
+        {
+            throw new IllegalArgumentException("Outbound queue block timeout cannot be negative");
+        }
+
+        //Codes_SRS_DEVICECLIENTCONFIG_21_053: [This function shall save the provided policy and timeout.]
+        this.outboundQueueOverflowPolicy = policy;
+        this.outboundQueueBlockTimeoutMillis = blockTimeoutMillis;
+    }
+
+    /**
+     * Getter for the maximum number of messages in the outbound queue.
+     * @return the maximum number of messages, or 0 if there is no limit.
+     */
+    public int getMaxOutboundQueueMessages()
+    {
+        //Codes_SRS_DEVICECLIENTCONFIG_21_054: [This function shall return the saved maximum number of messages.]
+        return this.maxOutboundQueueMessages;
+    }
+
+    /**
+     * Getter for the maximum number of body bytes in the outbound queue.
+     * @return the maximum number of bytes, or 0 if there is no limit.
+     */
+    public long getMaxOutboundQueueBytes()
+    {
+        //Codes_SRS_DEVICECLIENTCONFIG_21_055: [This function shall return the saved maximum number of bytes.]
+        return this.maxOutboundQueueBytes;
+    }
+
+    /**
+     * Getter for the outbound queue overflow policy.
+     * @return the policy applied to new messages when the outbound queue is full.
+     */
+    public OutboundQueueOverflowPolicy getOutboundQueueOverflowPolicy()
+    {
+        //Codes_SRS_DEVICECLIENTCONFIG_21_056: [This function shall return the saved overflow policy.]
+        return this.outboundQueueOverflowPolicy;
+    }
+
+    /**
+     * Getter for the time to block the caller when the outbound queue is full and the policy is
+     * {@link OutboundQueueOverflowPolicy#BLOCK}.
+     * @return the block timeout in milliseconds.
+     */
+    public long getOutboundQueueBlockTimeoutMillis()
+    {
+        //Codes_SRS_DEVICECLIENTCONFIG_21_057: [This function shall return the saved block timeout.]
+        return this.outboundQueueBlockTimeoutMillis;
+    }
+
+    /**
+     * Setter for the directory of the persistent outbound message store.
+     *
+     * @param directoryPath the directory of the message journal, or null to keep the outbound messages only in memory.
+     */
+    void setOutboundMessageStorePath(String directoryPath)
+    {
+        //Codes_SRS_DEVICECLIENTCONFIG_21_058: [This function shall save the provided directory path.]
+        this.outboundMessageStorePath = directoryPath;
+    }
+
+    /**
+     * Getter for the directory of the persistent outbound message store.
+     * @return the directory of the message journal, or null if the outbound messages are only kept in memory.
+     */
+    public String getOutboundMessageStorePath()
+    {
+        //Codes_SRS_DEVICECLIENTCONFIG_21_059: [This function shall return the saved directory path.]
+        return this.outboundMessageStorePath;
+    }
+
+    /**
+     * Setter for the metrics of the transport.
+     *
+     * @param transportMetrics the metrics that the transport shall update, or null to not collect metrics.
+     */
+    void setTransportMetrics(TransportMetrics transportMetrics)
+    {
+        //Codes_SRS_DEVICECLIENTCONFIG_21_060: [This function shall save the provided transport metrics.]
+        this.transportMetrics = transportMetrics;
+    }
+
+    /**
+     * Getter for the metrics of the transport.
+     * @return the metrics that the transport shall update, or null if the metrics are not collected.
+     */
+    public TransportMetrics getTransportMetrics()
+    {
+        //Codes_SRS_DEVICECLIENTCONFIG_21_061: [This function shall return the saved transport metrics.]
+        return this.transportMetrics;
+    }
+
+    /**
+     * Setter for the compression of the message bodies.
+     *
+     * @param compression the compression of the outbound message bodies, or null to not compress them.
+     * @param thresholdBytes the minimum size of the body to compress.
+     * @throws IllegalArgumentException if the threshold is negative.
+     */
+    void setMessageCompression(MessageCompression compression, int thresholdBytes) throws IllegalArgumentException
+    {
+        //Codes_SRS_DEVICECLIENTCONFIG_21_062: [If the threshold is negative, the function shall throw an IllegalArgumentException.]
+        if (thresholdBytes < 0)
+        {
+            throw new IllegalArgumentException("The compression threshold cannot be negative");
+        }
+
+        //Codes_SRS_DEVICECLIENTCONFIG_21_063: [This function shall save the provided compression and threshold.]
+        this.messageCompression = compression;
+        this.messageCompressionThresholdBytes = thresholdBytes;
+    }
+
+    /**
+     * Getter for the compression of the message bodies.
+     * @return the compression of the outbound message bodies, or null if the message bodies are not compressed.
+     */
+    public MessageCompression getMessageCompression()
+    {
+        //Codes_SRS_DEVICECLIENTCONFIG_21_064: [This function shall return the saved compression.]
+        return this.messageCompression;
+    }
+
+    /**
+     * Getter for the minimum size of the message bodies to compress.
+     * @return the compression threshold in bytes.
+     */
+    public int getMessageCompressionThresholdBytes()
+    {
+        //Codes_SRS_DEVICECLIENTCONFIG_21_065: [This function shall return the saved compression threshold.]
+        return this.messageCompressionThresholdBytes;
+    }
+
+    /**
+     * Setter for the maximum size of the body of a received message once it is decompressed.
+     *
+     * @param maxDecompressedMessageBytes the maximum size in bytes.
+     * @throws IllegalArgumentException if the maximum size is not positive.
+     */
+    void setMaxDecompressedMessageBytes(int maxDecompressedMessageBytes) throws IllegalArgumentException
+    {
+        //Codes_SRS_DEVICECLIENTCONFIG_21_073: [If the maximum size is not positive, the function shall throw an IllegalArgumentException.]
+        if (maxDecompressedMessageBytes <= 0)
+        {
+            throw new IllegalArgumentException("The maximum decompressed message size shall be positive");
+        }
+
+        //Codes_SRS_DEVICECLIENTCONFIG_21_074: [This function shall save the provided maximum size.]
+        this.maxDecompressedMessageBytes = maxDecompressedMessageBytes;
+    }
+
+    /**
+     * Getter for the maximum size of the body of a received message once it is decompressed.
+     * @return the maximum size in bytes, by default the maximum size of a message on the IoT Hub.
+     */
+    public int getMaxDecompressedMessageBytes()
+    {
+        //Codes_SRS_DEVICECLIENTCONFIG_21_075: [This function shall return the saved maximum size.]
+        return this.maxDecompressedMessageBytes;
+    }
+
+    /**
+     * Setter for the block size and parallelism of the file uploads.
+     *
+     * @param blockSizeInBytes the size of each uploaded block, up to 4MB, or 0 to use the default size.
+     * @param parallelism the number of blocks of a file to upload at the same time, or 0 to upload one at a time.
+     * @throws IllegalArgumentException if the block size is negative or bigger than 4MB, or if the parallelism is negative.
+     */
+    void setFileUploadOptions(int blockSizeInBytes, int parallelism) throws IllegalArgumentException
+    {
+        //Codes_SRS_DEVICECLIENTCONFIG_21_066: [If the block size is negative or bigger than 4MB, or the parallelism is negative, the function shall throw an IllegalArgumentException.]
+        if (blockSizeInBytes < 0 || blockSizeInBytes > MAX_FILE_UPLOAD_BLOCK_SIZE_IN_BYTES)
+        {
+            throw new IllegalArgumentException("The file upload block size shall be between 0 and " + MAX_FILE_UPLOAD_BLOCK_SIZE_IN_BYTES);
+        }
+
+        if (parallelism < 0)
+        {
+            throw new IllegalArgumentException("The file upload parallelism cannot be negative");
+        }
+
+        //Codes_SRS_DEVICECLIENTCONFIG_21_067: [This function shall save the provided block size and parallelism.]
+        this.fileUploadBlockSizeInBytes = blockSizeInBytes;
+        this.fileUploadParallelism = parallelism;
+    }
+
+    /**
+     * Getter for the block size of the file uploads.
+     * @return the size of each uploaded block in bytes, or 0 for the default size.
+     */
+    public int getFileUploadBlockSizeInBytes()
+    {
+        //Codes_SRS_DEVICECLIENTCONFIG_21_068: [This function shall return the saved file upload block size.]
+        return this.fileUploadBlockSizeInBytes;
+    }
+
+    /**
+     * Getter for the parallelism of the file uploads.
+     * @return the number of blocks of a file to upload at the same time, or 0 for the default.
+     */
+    public int getFileUploadParallelism()
+    {
+        //Codes_SRS_DEVICECLIENTCONFIG_21_069: [This function shall return the saved file upload parallelism.]
+        return this.fileUploadParallelism;
+    }
+
+    /**
+     * Setter for the cap of the bandwidth of the file uploads.
+     *
+     * @param maxBytesPerSecond the number of bytes per second that all the file uploads of the client can send, or 0 for no cap.
+     * @throws IllegalArgumentException if the cap is negative.
+     */
+    void setFileUploadMaxBytesPerSecond(long maxBytesPerSecond) throws IllegalArgumentException
+    {
+        //Codes_SRS_DEVICECLIENTCONFIG_21_070: [If the cap is negative, the function shall throw an IllegalArgumentException.]
+        if (maxBytesPerSecond < 0)
+        {
+            throw new IllegalArgumentException("The file upload bandwidth cap cannot be negative");
+        }
+
+        //Codes_SRS_DEVICECLIENTCONFIG_21_071: [This function shall save the provided cap.]
+        this.fileUploadMaxBytesPerSecond = maxBytesPerSecond;
+    }
+
+    /**
+     * Getter for the cap of the bandwidth of the file uploads.
+     * @return the number of bytes per second that all the file uploads of the client can send, or 0 for no cap.
+     */
+    public long getFileUploadMaxBytesPerSecond()
+    {
+        //Codes_SRS_DEVICECLIENTCONFIG_21_072: [This function shall return the saved file upload bandwidth cap.]
+        return this.fileUploadMaxBytesPerSecond;
+    }
+
+    /**
+     * Setter for the maximum size of the WebSocket frames of the AMQP connections over WebSockets.
+     *
+     * @param maxFrameSize the maximum size of a WebSocket frame, including its header.
+     * @throws IllegalArgumentException if the size cannot fit a frame header and its payload.
+     */
+    void setWebSocketMaxFrameSize(int maxFrameSize) throws IllegalArgumentException
+    {
+        //Codes_SRS_DEVICECLIENTCONFIG_21_076: [If the size cannot fit a frame header and its payload, the function
+        // shall throw an IllegalArgumentException.]
+        WebSocketImpl.validateMaxFrameSize(maxFrameSize);
+
+        //Codes_SRS_DEVICECLIENTCONFIG_21_077: [This function shall save the provided size.]
+        this.webSocketMaxFrameSize = maxFrameSize;
+    }
+
+    /**
+     * Getter for the maximum size of the WebSocket frames of the AMQP connections over WebSockets.
+     * @return the maximum size of a WebSocket frame, including its header.
+     */
+    public int getWebSocketMaxFrameSize()
+    {
+        //Codes_SRS_DEVICECLIENTCONFIG_21_078: [This function shall return the saved size, by default
+        // WebSocketImpl.DEFAULT_MAX_FRAME_SIZE.]
+        return this.webSocketMaxFrameSize;
+    }
+
     public ProductInfo getProductInfo()
     {
         //Codes_SRS_DEVICECLIENTCONFIG_34_040: [This function shall return the saved product info.]
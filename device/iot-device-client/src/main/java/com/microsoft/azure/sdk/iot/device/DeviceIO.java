@@ -4,6 +4,7 @@
 package com.microsoft.azure.sdk.iot.device;
 
 import com.microsoft.azure.sdk.iot.device.exceptions.DeviceClientException;
+import com.microsoft.azure.sdk.iot.device.transport.IotHubCallbackTask;
 import com.microsoft.azure.sdk.iot.device.transport.IotHubReceiveTask;
 import com.microsoft.azure.sdk.iot.device.transport.IotHubSendTask;
 import com.microsoft.azure.sdk.iot.device.transport.IotHubTransport;
@@ -74,6 +75,24 @@ public final class DeviceIO
         OPEN, CLOSED
     }
 
+    /**
+     * Over HTTPS the receive task only checks if a poll is due, the transport decides when to poll the IoT Hub
+     * and uses the receive period as the maximum interval between polls.
+     */
+    private static final long HTTPS_RECEIVE_TASK_PERIOD_MILLIS = 10;
+
+    /**
+     * The user callbacks run on their own single thread, so a slow callback does not delay the send and receive
+     * tasks, and the callbacks of this client are invoked in the order that the requests were completed.
+     */
+    private static final long CALLBACK_TASK_PERIOD_MILLIS = 10;
+
+    /**
+     * The close waits for the callbacks in progress before it closes the transport, which invokes the callbacks of
+     * the requests that did not complete. A callback that blocks for longer than this is interrupted.
+     */
+    private static final long CALLBACK_TASK_TERMINATION_TIMEOUT_MILLIS = 10000;
+
     private long sendPeriodInMilliseconds;
     private long receivePeriodInMilliseconds;
 
@@ -82,9 +101,11 @@ public final class DeviceIO
     private DeviceClientConfig config;
     private IotHubSendTask sendTask = null;
     private IotHubReceiveTask receiveTask = null;
+    private IotHubCallbackTask callbackTask = null;
     private IotHubClientProtocol protocol = null;
 
     private ScheduledExecutorService taskScheduler;
+    private ScheduledExecutorService callbackScheduler;
     private IotHubClientState state;
 
     private List<DeviceClientConfig> deviceClientConfigs = new LinkedList<>();
@@ -127,6 +148,12 @@ public final class DeviceIO
 
         this.transport = new IotHubTransport(config);
 
+        if (protocol == IotHubClientProtocol.HTTPS)
+        {
+            /* Codes_SRS_DEVICE_IO_21_040: [If the protocol is HTTPS, the constructor shall set the `receivePeriodInMilliseconds` as the maximum interval between polls in the transport.] */
+            this.transport.setMaxHttpsReceivePeriodInMilliseconds(receivePeriodInMilliseconds);
+        }
+
         /* Codes_SRS_DEVICE_IO_21_037: [The constructor shall initialize the `sendPeriodInMilliseconds` with default value of 10 milliseconds.] */
         this.sendPeriodInMilliseconds = sendPeriodInMilliseconds;
         /* Codes_SRS_DEVICE_IO_21_038: [The constructor shall initialize the `receivePeriodInMilliseconds` with default value of each protocol.] */
@@ -191,6 +218,7 @@ public final class DeviceIO
     {
         this.sendTask = new IotHubSendTask(this.transport);
         this.receiveTask = new IotHubReceiveTask(this.transport);
+        this.callbackTask = new IotHubCallbackTask(this.transport);
 
         this.taskScheduler = Executors.newScheduledThreadPool(2);
         // the scheduler waits until each execution is finished before
@@ -201,7 +229,12 @@ public final class DeviceIO
                 sendPeriodInMilliseconds, TimeUnit.MILLISECONDS);
         /* Codes_SRS_DEVICE_IO_21_014: [The open shall schedule receive tasks to run every receivePeriodInMilliseconds milliseconds.] */
         this.taskScheduler.scheduleAtFixedRate(this.receiveTask, 0,
-                receivePeriodInMilliseconds, TimeUnit.MILLISECONDS);
+                getReceiveTaskPeriodInMilliseconds(), TimeUnit.MILLISECONDS);
+
+        /* Codes_SRS_DEVICE_IO_21_043: [The open shall schedule the callback task to run every CALLBACK_TASK_PERIOD_MILLIS milliseconds in a dedicated single thread scheduler.] */
+        this.callbackScheduler = Executors.newSingleThreadScheduledExecutor();
+        this.callbackScheduler.scheduleAtFixedRate(this.callbackTask, 0,
+                CALLBACK_TASK_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
 
         /* Codes_SRS_DEVICE_IO_21_016: [The open shall set the `state` as `CONNECTED`.] */
         this.state = IotHubClientState.OPEN;
@@ -224,6 +257,13 @@ public final class DeviceIO
             this.taskScheduler.shutdown();
         }
 
+        /* Codes_SRS_DEVICE_IO_21_044: [The close shall cancel the recurring callback task.] */
+        if (callbackScheduler != null)
+        {
+            this.callbackScheduler.shutdown();
+            this.awaitCallbackTaskTermination();
+        }
+
         /* Codes_SRS_DEVICE_IO_21_019: [The close shall close the transport.] */
         try
         {
@@ -239,6 +279,31 @@ public final class DeviceIO
         this.state = IotHubClientState.CLOSED;
     }
 
+    private void awaitCallbackTaskTermination()
+    {
+        // a callback that closes the client runs on the callback thread, and cannot wait for itself
+        if (this.callbackTask != null && this.callbackTask.isRunningOnCurrentThread())
+        {
+            return;
+        }
+
+        /* Codes_SRS_DEVICE_IO_21_048: [The close shall wait for the callback task to terminate before closing the transport, so the callbacks invoked by the transport close do not run concurrently with the callback task. If the callback task does not terminate in CALLBACK_TASK_TERMINATION_TIMEOUT_MILLIS milliseconds, the close shall interrupt it.] */
+        try
+        {
+            if (!this.callbackScheduler.awaitTermination(CALLBACK_TASK_TERMINATION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS))
+            {
+                logger.LogError("The callback task did not terminate in %d milliseconds, method name is %s ",
+                        CALLBACK_TASK_TERMINATION_TIMEOUT_MILLIS, logger.getMethodName());
+                this.callbackScheduler.shutdownNow();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            this.callbackScheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
     /**
      * Completes all current outstanding requests and closes the IoT Hub client.
      * Must be called to terminate the background thread that is sending data to
@@ -325,6 +390,13 @@ public final class DeviceIO
         /* Codes_SRS_DEVICE_IO_21_027: [The setReceivePeriodInMilliseconds shall store the new receive period in milliseconds.] */
         this.receivePeriodInMilliseconds = newIntervalInMilliseconds;
 
+        if (this.protocol == IotHubClientProtocol.HTTPS)
+        {
+            /* Codes_SRS_DEVICE_IO_21_041: [If the protocol is HTTPS, the setReceivePeriodInMilliseconds shall set the new receive period as the maximum interval between polls in the transport, and keep the receive task schedule.] */
+            this.transport.setMaxHttpsReceivePeriodInMilliseconds(newIntervalInMilliseconds);
+            return;
+        }
+
         /* Codes_SRS_DEVICE_IO_21_028: [If the task scheduler already exists, the setReceivePeriodInMilliseconds shall change the `scheduleAtFixedRate` for the receiveTask to the new value.] */
         if(this.taskScheduler != null)
         {
@@ -339,6 +411,17 @@ public final class DeviceIO
         }
     }
 
+    private long getReceiveTaskPeriodInMilliseconds()
+    {
+        /* Codes_SRS_DEVICE_IO_21_042: [If the protocol is HTTPS, the open shall schedule receive tasks to run every HTTPS_RECEIVE_TASK_PERIOD_MILLIS milliseconds, or receivePeriodInMilliseconds if smaller.] */
+        if (this.protocol == IotHubClientProtocol.HTTPS)
+        {
+            return Math.min(HTTPS_RECEIVE_TASK_PERIOD_MILLIS, this.receivePeriodInMilliseconds);
+        }
+
+        return this.receivePeriodInMilliseconds;
+    }
+
     /**
      * Getter for the send period in milliseconds.
      *
@@ -414,6 +497,56 @@ public final class DeviceIO
         return this.transport.isEmpty();
     }
 
+    /**
+     * Getter for the number of messages in the transport outbound queue.
+     * @return the number of messages accepted by the transport that did not complete yet.
+     */
+    public int getOutboundQueueMessageCount()
+    {
+        /* Codes_SRS_DEVICE_IO_21_045: [The getOutboundQueueMessageCount shall return the number of messages in the transport outbound queue.] */
+        return this.transport.getOutboundQueueMessageCount();
+    }
+
+    /**
+     * Getter for the number of body bytes in the transport outbound queue.
+     * @return the number of body bytes of the messages accepted by the transport that did not complete yet.
+     */
+    public long getOutboundQueueBytes()
+    {
+        /* Codes_SRS_DEVICE_IO_21_046: [The getOutboundQueueBytes shall return the number of body bytes in the transport outbound queue.] */
+        return this.transport.getOutboundQueueBytes();
+    }
+
+    /**
+     * Getter for the number of messages sent by the transport that were not acknowledged yet.
+     * @return the number of messages in flight.
+     */
+    public int getInFlightMessageCount()
+    {
+        /* Codes_SRS_DEVICE_IO_21_047: [The getInFlightMessageCount shall return the number of messages in flight in the transport.] */
+        return this.transport.getInFlightMessageCount();
+    }
+
+    /**
+     * Getter for the number of completed requests that are waiting for their callbacks to be invoked.
+     * @return the number of callbacks waiting to be invoked.
+     */
+    public int getPendingCallbackCount()
+    {
+        /* Codes_SRS_DEVICE_IO_21_049: [The getPendingCallbackCount shall return the number of callbacks waiting in the transport.] */
+        return this.transport.getPendingCallbackCount();
+    }
+
+    /**
+     * Getter for the number of received messages that are waiting for the message callback.
+     * @return the number of received messages waiting to be handled.
+     */
+    public int getPendingReceivedMessageCount()
+    {
+        /* Codes_SRS_DEVICE_IO_21_050: [The getPendingReceivedMessageCount shall return the number of received messages waiting in the transport.] */
+        return this.transport.getPendingReceivedMessageCount();
+    }
+
     /**
      * Registers a callback with the configured transport to be executed whenever the connection to the device is lost or established.
      *
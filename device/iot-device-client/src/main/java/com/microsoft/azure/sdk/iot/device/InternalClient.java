@@ -8,12 +8,15 @@ package com.microsoft.azure.sdk.iot.device;
 import com.microsoft.azure.sdk.iot.device.DeviceTwin.*;
 import com.microsoft.azure.sdk.iot.device.auth.IotHubAuthenticationProvider;
 import com.microsoft.azure.sdk.iot.device.exceptions.TransportException;
+import com.microsoft.azure.sdk.iot.device.transport.OutboundQueueOverflowPolicy;
 import com.microsoft.azure.sdk.iot.device.transport.RetryPolicy;
+import com.microsoft.azure.sdk.iot.device.transport.TransportMetrics;
 import com.microsoft.azure.sdk.iot.provisioning.security.SecurityProvider;
 
 import java.io.IOError;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
@@ -169,6 +172,38 @@ public class InternalClient
         deviceIO.sendEventAsync(message, callback, callbackContext, this.config.getDeviceId());
     }
 
+    /**
+     * Asynchronously sends a batch of event messages to the IoT Hub, with a single callback for the whole batch.
+     * Over HTTPS the batch is sent in one request, limited to 256 kb. MQTT has no batch, so over MQTT and AMQPS
+     * the messages of the batch are sent as separate messages, back to back without waiting for each
+     * acknowledgement. The IoT Hub acknowledges each of them on its own, so it can accept some messages of the batch
+     * and reject others.
+     * <p>
+     * The outbound queue of the client takes the batch as a whole: if there is no room for all its messages, none
+     * of them is sent and the callback receives {@code MESSAGE_CANCELLED_QUEUE_FULL}, and the overflow policies that
+     * drop waiting messages drop all the waiting messages of the batch together.
+     *
+     * @param messages the messages to be sent.
+     * @param callback the callback to be invoked when all messages of the batch completed. It receives
+     * {@code OK_EMPTY} if all messages were accepted, or the status of the first message that failed. Can be
+     * {@code null}.
+     * @param callbackContext a context to be passed to the callback. Can be
+     * {@code null} if no callback is provided.
+     *
+     * @throws IllegalArgumentException if the collection is {@code null} or empty, or contains a {@code null}
+     * message.
+     * @throws IllegalStateException if the client has not been opened yet or is
+     * already closed.
+     */
+    public void sendEventBatchAsync(Collection<Message> messages, IotHubEventCallback callback, Object callbackContext)
+    {
+        //Codes_SRS_INTERNALCLIENT_21_058: [If the collection is null or empty, or contains a null message, this
+        // function shall throw an IllegalArgumentException.]
+        //Codes_SRS_INTERNALCLIENT_21_059: [The function shall send the messages as a single batch message with the
+        // provided callback and context.]
+        this.sendEventAsync(new BatchMessage(messages), callback, callbackContext);
+    }
+
     /**
      * Subscribes to desired properties
      *
@@ -321,6 +356,166 @@ public class InternalClient
         this.config.setOperationTimeout(timeout);
     }
 
+    /**
+     * Sets the capacity of the outbound queue, that holds the messages accepted by the client that did not complete
+     * yet. When the queue is full, new messages are handled according to the outbound queue overflow policy.
+     * By default the outbound queue has no limit.
+     * @param maxMessages the maximum number of messages in the queue, or 0 for no limit
+     * @param maxBytes the maximum number of message body bytes in the queue, or 0 for no limit
+     * @throws IllegalArgumentException if any of the limits is negative
+     */
+    public void setOutboundQueueCapacity(int maxMessages, long maxBytes) throws IllegalArgumentException
+    {
+        // Codes_SRS_INTERNALCLIENT_21_050: [The function shall set the device config's outbound queue capacity.]
+        this.config.setOutboundQueueCapacity(maxMessages, maxBytes);
+    }
+
+    /**
+     * Sets how new messages are handled when the outbound queue is full. The default policy is
+     * {@link OutboundQueueOverflowPolicy#FAIL}.
+     * @param policy the overflow policy
+     * @param blockTimeoutMillis the maximum time, in milliseconds, that sending a message blocks when the policy is
+     *                           {@link OutboundQueueOverflowPolicy#BLOCK}. Ignored by the other policies.
+     * @throws IllegalArgumentException if the policy is null or the timeout is negative
+     */
+    public void setOutboundQueueOverflowPolicy(OutboundQueueOverflowPolicy policy, long blockTimeoutMillis) throws IllegalArgumentException
+    {
+        // Codes_SRS_INTERNALCLIENT_21_051: [The function shall set the device config's outbound queue overflow policy.]
+        this.config.setOutboundQueueOverflowPolicy(policy, blockTimeoutMillis);
+    }
+
+    /**
+     * Persists the telemetry messages that are waiting to be sent in a journal in the provided directory. The
+     * messages that are pending when the client is closed, or when the process stops, are sent again the next time
+     * a client with the same directory is opened. The sent again messages keep their message id, so duplicates can
+     * be detected, but their callbacks are not invoked again. The callbacks of the messages pending on close report
+     * MESSAGE_CANCELLED_ONCLOSE, and the journaled messages do not expire by the operation timeout, so an outage
+     * longer than the reconnection timeout does not lose them. Only the journaled messages that are about to be sent
+     * are kept in memory. The directory must not be shared with other clients.
+     * @param directoryPath the directory of the journal, or null to keep the outbound messages only in memory
+     * @throws IllegalStateException if the client is open
+     */
+    public void setOutboundMessageStore(String directoryPath) throws IllegalStateException
+    {
+        // Codes_SRS_INTERNALCLIENT_21_054: [If the client is open, the function shall throw an IllegalStateException.]
+        if (this.deviceIO != null && this.deviceIO.isOpen())
+        {
+            throw new IllegalStateException("The outbound message store can only be set when the client is closed");
+        }
+
+        // Codes_SRS_INTERNALCLIENT_21_055: [The function shall set the device config's outbound message store path.]
+        this.config.setOutboundMessageStorePath(directoryPath);
+    }
+
+    /**
+     * Getter for the number of messages in the outbound queue.
+     * @return the number of messages accepted by the client that did not complete yet
+     */
+    public int getOutboundQueueMessageCount()
+    {
+        // Codes_SRS_INTERNALCLIENT_21_052: [The function shall return the number of messages in the outbound queue of the deviceIO.]
+        return this.deviceIO.getOutboundQueueMessageCount();
+    }
+
+    /**
+     * Getter for the number of message body bytes in the outbound queue.
+     * @return the number of body bytes of the messages accepted by the client that did not complete yet
+     */
+    public long getOutboundQueueBytes()
+    {
+        // Codes_SRS_INTERNALCLIENT_21_053: [The function shall return the number of body bytes in the outbound queue of the deviceIO.]
+        return this.deviceIO.getOutboundQueueBytes();
+    }
+
+    /**
+     * Getter for the number of messages sent to the IoT Hub that were not acknowledged yet.
+     * @return the number of messages in flight
+     */
+    public int getInFlightMessageCount()
+    {
+        // Codes_SRS_INTERNALCLIENT_21_056: [The function shall return the number of messages in flight of the deviceIO.]
+        return this.deviceIO.getInFlightMessageCount();
+    }
+
+    /**
+     * Getter for the number of completed requests whose callbacks were not invoked yet. A number that keeps growing
+     * means that the callbacks are slower than the rate of completed requests.
+     * @return the number of callbacks waiting to be invoked
+     */
+    public int getPendingCallbackCount()
+    {
+        // Codes_SRS_INTERNALCLIENT_21_062: [The function shall return the number of callbacks waiting in the deviceIO.]
+        return this.deviceIO.getPendingCallbackCount();
+    }
+
+    /**
+     * Getter for the number of received messages that did not reach the message callback yet. A number that keeps
+     * growing means that the message callback is slower than the rate of received messages.
+     * @return the number of received messages waiting to be handled
+     */
+    public int getPendingReceivedMessageCount()
+    {
+        // Codes_SRS_INTERNALCLIENT_21_063: [The function shall return the number of received messages waiting in the deviceIO.]
+        return this.deviceIO.getPendingReceivedMessageCount();
+    }
+
+    /**
+     * Sets the metrics that the transport updates with its queue, send, acknowledgement, retry, reconnection and
+     * byte counts. Use an {@link com.microsoft.azure.sdk.iot.device.transport.InMemoryTransportMetrics} to read them
+     * from the application, or a custom implementation to forward them to a monitoring system.
+     *
+     * @param transportMetrics the metrics to update, or null to stop collecting metrics.
+     */
+    public void setTransportMetrics(TransportMetrics transportMetrics)
+    {
+        // Codes_SRS_INTERNALCLIENT_21_057: [The function shall set the device config's transport metrics.]
+        this.config.setTransportMetrics(transportMetrics);
+    }
+
+    /**
+     * Compresses the body of the outbound messages that are at least as big as the threshold, and sets their
+     * content encoding. Messages that already have a content encoding are sent as they are. The inbound messages
+     * are decompressed whether or not this compression is set, see {@link #setMaxDecompressedMessageSize(int)}.
+     *
+     * @param compression the compression of the outbound message bodies, or null to stop compressing them.
+     * @param thresholdBytes the minimum size, in bytes, of the body to compress.
+     * @throws IllegalArgumentException if the threshold is negative.
+     */
+    public void setMessageCompression(MessageCompression compression, int thresholdBytes) throws IllegalArgumentException
+    {
+        // Codes_SRS_INTERNALCLIENT_21_060: [The function shall set the device config's message compression.]
+        this.config.setMessageCompression(compression, thresholdBytes);
+    }
+
+    /**
+     * Sets the maximum size of the body of a received message once it is decompressed. The inbound messages with a
+     * gzip or deflate content encoding are decompressed before they reach the message callback. A message that
+     * decompresses to more than this size is rejected without reaching the message callback. By default, the maximum
+     * size is the maximum size of a message on the IoT Hub.
+     *
+     * @param maxBytes the maximum size, in bytes, of the decompressed body.
+     * @throws IllegalArgumentException if the maximum size is not positive.
+     */
+    public void setMaxDecompressedMessageSize(int maxBytes) throws IllegalArgumentException
+    {
+        // Codes_SRS_INTERNALCLIENT_21_061: [The function shall set the device config's maximum decompressed message size.]
+        this.config.setMaxDecompressedMessageBytes(maxBytes);
+    }
+
+    /**
+     * Sets the maximum size of the WebSocket frames when the client uses AMQPS_WS. Bigger frames send big messages in
+     * less frames, at the cost of bigger buffers for each connection. It applies to the connections opened after this
+     * call.
+     *
+     * @param maxFrameSize the maximum size, in bytes, of a WebSocket frame, including its header.
+     * @throws IllegalArgumentException if the size cannot fit a frame header and its payload.
+     */
+    public void setWebSocketMaxFrameSize(int maxFrameSize) throws IllegalArgumentException
+    {
+        // Codes_SRS_INTERNALCLIENT_21_064: [The function shall set the device config's WebSocket maximum frame size.]
+        this.config.setWebSocketMaxFrameSize(maxFrameSize);
+    }
+
     public ProductInfo getProductInfo()
     {
         // Codes_SRS_INTERNALCLIENT_34_071: [This function shall return the product info saved in config.]
@@ -23,7 +23,8 @@ public enum IotHubStatusCode
     SERVER_BUSY,
     ERROR,
     MESSAGE_EXPIRED,
-    MESSAGE_CANCELLED_ONCLOSE;
+    MESSAGE_CANCELLED_ONCLOSE,
+    MESSAGE_CANCELLED_QUEUE_FULL;
 
     public static IotHubServiceException getConnectionStatusException(IotHubStatusCode statusCode, String statusDescription)
     {
@@ -12,7 +12,7 @@ import java.util.Arrays;
 import java.util.Date;
 import java.util.UUID;
 
-public class Message
+public class Message implements Cloneable
 {
     // ----- Constants -----
 
@@ -110,6 +110,11 @@ public class Message
      */
     private MessageType messageType;
 
+    /**
+     * [Optional] Used to specify the priority of the message in the outbound queue
+     */
+    private MessagePriority priority;
+
     /**
      * [Optional] Used to specify the sender device client for multiplexing scenarios
      */
@@ -320,6 +325,39 @@ public class Message
         this.logger = new CustomLogger(this.getClass());
     }
 
+    /**
+     * Replaces the message body. Used by the {@link MessageCompressor} to encode and decode the body.
+     * @param body the new body.
+     */
+    void setBody(byte[] body)
+    {
+        this.body = body;
+    }
+
+    /**
+     * Creates a copy of this message with a different body. The copy has its own list of properties, so setting a
+     * property on one of them does not change the other one.
+     * @param body the body of the copy.
+     * @return the copy of this message.
+     */
+    Message copyWithBody(byte[] body)
+    {
+        Message copy;
+        try
+        {
+            copy = (Message) super.clone();
+        }
+        catch (CloneNotSupportedException e)
+        {
+            // Message implements Cloneable, so this cannot happen.
+            throw new IllegalStateException(e);
+        }
+
+        copy.properties = new ArrayList<>(this.properties);
+        copy.body = body;
+        return copy;
+    }
+
     /**
      * Verifies whether the message is expired or not
      * @return true if the message is expired, false otherwise
@@ -591,4 +629,36 @@ public class Message
         // Codes_SRS_MESSAGE_34_062: [The function shall save the provided content encoding.]
         this.contentEncoding = contentEncoding;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the priority of this message in the outbound queue. If no priority was set, twin and method messages
+     * have {@link MessagePriority#HIGH} priority and any other message has {@link MessagePriority#NORMAL} priority.
+     * @return the message's priority.
+     */
+    public MessagePriority getPriority()
+    {
+        // Codes_SRS_MESSAGE_21_063: [If the priority was set, the function shall return it.]
+        if (this.priority != null)
+        {
+            return this.priority;
+        }
+
+        // Codes_SRS_MESSAGE_21_064: [If the priority was not set, the function shall return HIGH for twin and method messages, and NORMAL otherwise.]
+        if (this.messageType == MessageType.DEVICE_TWIN || this.messageType == MessageType.DEVICE_METHODS)
+        {
+            return MessagePriority.HIGH;
+        }
+
+        return MessagePriority.NORMAL;
+    }
+
+    /**
+     * Set the priority of this message in the outbound queue.
+     * @param priority the priority of the message. May be null to use the default priority of the message type.
+     */
+    public void setPriority(MessagePriority priority)
+    {
+        // Codes_SRS_MESSAGE_21_065: [The function shall save the provided priority.]
+        this.priority = priority;
+    }
+}
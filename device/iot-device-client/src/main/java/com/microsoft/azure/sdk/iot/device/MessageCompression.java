@@ -0,0 +1,57 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device;
+
+import com.microsoft.azure.sdk.iot.deps.util.Compression;
+
+/**
+ * The encodings that the client can use to compress the body of the outbound messages.
+ */
+public enum MessageCompression
+{
+    /** The gzip format, content encoding {@code gzip}. */
+    GZIP(Compression.GZIP),
+
+    /** The zlib format, content encoding {@code deflate}. */
+    DEFLATE(Compression.DEFLATE);
+
+    private final String contentEncoding;
+
+    MessageCompression(String contentEncoding)
+    {
+        this.contentEncoding = contentEncoding;
+    }
+
+    /**
+     * Getter for the content encoding of the compressed messages.
+     *
+     * @return the value of the message content encoding.
+     */
+    public String getContentEncoding()
+    {
+        return this.contentEncoding;
+    }
+
+    /**
+     * Finds the compression of a content encoding.
+     *
+     * @param contentEncoding the content encoding of a message, case insensitive. Can be {@code null}.
+     * @return the compression, or {@code null} if the content encoding is not a supported compression.
+     */
+    public static MessageCompression fromContentEncoding(String contentEncoding)
+    {
+        if (contentEncoding != null)
+        {
+            for (MessageCompression compression : values())
+            {
+                if (compression.contentEncoding.equalsIgnoreCase(contentEncoding.trim()))
+                {
+                    return compression;
+                }
+            }
+        }
+
+        return null;
+    }
+}
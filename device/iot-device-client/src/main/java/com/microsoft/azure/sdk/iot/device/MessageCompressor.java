@@ -0,0 +1,204 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device;
+
+import com.microsoft.azure.sdk.iot.deps.util.Compression;
+import com.microsoft.azure.sdk.iot.deps.util.DecompressedSizeExceededException;
+import com.microsoft.azure.sdk.iot.device.exceptions.IotHubSizeExceededException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compresses the body of the outbound messages and decompresses the body of the inbound ones, with the pooled
+ * codecs of {@link Compression}.
+ * <p>
+ * A small compressed body can inflate to a very large one, so the decompression stops at a maximum size instead of
+ * growing its buffer without limit.
+ */
+public final class MessageCompressor
+{
+    /**
+     * The default maximum size of a decompressed body, the maximum size of a message on the IoT Hub.
+     */
+    public static final int DEFAULT_MAX_DECOMPRESSED_BYTES = Compression.DEFAULT_MAX_DECOMPRESSED_BYTES;
+
+    private MessageCompressor()
+    {
+    }
+
+    /**
+     * Compresses the body of the message if it is at least as big as the threshold, and sets the message content
+     * encoding. The message is not changed if it already has a content encoding, or if the compression does not
+     * make the body smaller. For a {@link BatchMessage}, each message of the batch is compressed on its own.
+     *
+     * @param message the message to compress.
+     * @param compression the compression format.
+     * @param thresholdBytes the minimum size of the body to compress.
+     * @return {@code true} if the message, or any message of the batch, was compressed.
+     * @throws IllegalArgumentException if the message or the compression is null.
+     */
+    public static boolean compress(Message message, MessageCompression compression, int thresholdBytes) throws IllegalArgumentException
+    {
+        // Codes_SRS_MESSAGECOMPRESSOR_21_001: [The function shall throw IllegalArgumentException if the message or the compression is null.]
+        if (message == null || compression == null)
+        {
+            throw new IllegalArgumentException("message and compression cannot be null");
+        }
+
+        // Codes_SRS_MESSAGECOMPRESSOR_21_008: [If the message is a batch, the function shall compress each message of the batch.]
+        if (message instanceof BatchMessage)
+        {
+            boolean compressed = false;
+            for (Message nestedMessage : ((BatchMessage) message).getNestedMessages())
+            {
+                compressed |= compress(nestedMessage, compression, thresholdBytes);
+            }
+
+            return compressed;
+        }
+
+        byte[] compressedBody = compressBody(message, compression, thresholdBytes);
+        if (compressedBody == null)
+        {
+            return false;
+        }
+
+        // Codes_SRS_MESSAGECOMPRESSOR_21_004: [The function shall replace the body with the compressed one and set the content encoding of the compression.]
+        message.setBody(compressedBody);
+        message.setContentEncoding(compression.getContentEncoding());
+        return true;
+    }
+
+    /**
+     * Same as {@link #compress(Message, MessageCompression, int)}, but leaves the provided message unchanged, and
+     * returns a copy of it with the compressed body instead. For a {@link BatchMessage}, it returns a new batch with
+     * the compressed copies of its messages.
+     *
+     * @param message the message to compress.
+     * @param compression the compression format.
+     * @param thresholdBytes the minimum size of the body to compress.
+     * @return the compressed copy, or the provided message if nothing was compressed.
+     * @throws IllegalArgumentException if the message or the compression is null.
+     */
+    public static Message compressedCopy(Message message, MessageCompression compression, int thresholdBytes) throws IllegalArgumentException
+    {
+        // Codes_SRS_MESSAGECOMPRESSOR_21_001: [The function shall throw IllegalArgumentException if the message or the compression is null.]
+        if (message == null || compression == null)
+        {
+            throw new IllegalArgumentException("message and compression cannot be null");
+        }
+
+        // Codes_SRS_MESSAGECOMPRESSOR_21_008: [If the message is a batch, the function shall compress each message of the batch.]
+        if (message instanceof BatchMessage)
+        {
+            boolean compressed = false;
+            List<Message> nestedCopies = new ArrayList<>();
+            for (Message nestedMessage : ((BatchMessage) message).getNestedMessages())
+            {
+                Message nestedCopy = compressedCopy(nestedMessage, compression, thresholdBytes);
+                compressed |= (nestedCopy != nestedMessage);
+                nestedCopies.add(nestedCopy);
+            }
+
+            return compressed ? new BatchMessage(nestedCopies) : message;
+        }
+
+        byte[] compressedBody = compressBody(message, compression, thresholdBytes);
+        if (compressedBody == null)
+        {
+            return message;
+        }
+
+        // Codes_SRS_MESSAGECOMPRESSOR_21_011: [The function shall return a copy of the message with the compressed
+        // body and the content encoding of the compression, and shall not change the provided message.]
+        Message copy = message.copyWithBody(compressedBody);
+        copy.setContentEncoding(compression.getContentEncoding());
+        return copy;
+    }
+
+    /**
+     * Decompresses the body of the message if its content encoding is a supported compression, and clears the
+     * content encoding. The decompressed body cannot be bigger than {@link #DEFAULT_MAX_DECOMPRESSED_BYTES}.
+     *
+     * @param message the message to decompress.
+     * @return {@code true} if the message was decompressed.
+     * @throws IOException if the body is not valid for its content encoding.
+     * @throws IotHubSizeExceededException if the decompressed body is bigger than the default maximum size.
+     * @throws IllegalArgumentException if the message is null.
+     */
+    public static boolean decompress(Message message) throws IOException, IotHubSizeExceededException, IllegalArgumentException
+    {
+        return decompress(message, DEFAULT_MAX_DECOMPRESSED_BYTES);
+    }
+
+    /**
+     * Decompresses the body of the message if its content encoding is a supported compression, and clears the
+     * content encoding. The message is not changed if the decompression fails.
+     *
+     * @param message the message to decompress.
+     * @param maxDecompressedBytes the maximum size of the decompressed body.
+     * @return {@code true} if the message was decompressed.
+     * @throws IOException if the body is not valid for its content encoding.
+     * @throws IotHubSizeExceededException if the decompressed body is bigger than the maximum size.
+     * @throws IllegalArgumentException if the message is null, or the maximum size is not positive.
+     */
+    public static boolean decompress(Message message, int maxDecompressedBytes) throws IOException, IotHubSizeExceededException, IllegalArgumentException
+    {
+        // Codes_SRS_MESSAGECOMPRESSOR_21_001: [The function shall throw IllegalArgumentException if the message or the compression is null.]
+        if (message == null)
+        {
+            throw new IllegalArgumentException("message cannot be null");
+        }
+
+        // Codes_SRS_MESSAGECOMPRESSOR_21_005: [The function shall not change the message if its content encoding is not a supported compression.]
+        MessageCompression compression = MessageCompression.fromContentEncoding(message.getContentEncoding());
+        byte[] body = message.getBytes();
+        if (compression == null || body == null)
+        {
+            return false;
+        }
+
+        // Codes_SRS_MESSAGECOMPRESSOR_21_009: [The function shall throw IllegalArgumentException if the maximum decompressed size is not positive.]
+        if (maxDecompressedBytes <= 0)
+        {
+            throw new IllegalArgumentException("The maximum decompressed size shall be positive");
+        }
+
+        // Codes_SRS_MESSAGECOMPRESSOR_21_006: [The function shall replace the body with the decompressed one and clear the content encoding.]
+        // Codes_SRS_MESSAGECOMPRESSOR_21_007: [The function shall throw IOException if the body is not valid for its content encoding.]
+        // Codes_SRS_MESSAGECOMPRESSOR_21_010: [The function shall throw IotHubSizeExceededException as soon as the decompressed body is bigger than the maximum size.]
+        try
+        {
+            message.setBody(Compression.decompress(body, contentEncodingOf(compression), maxDecompressedBytes));
+        }
+        catch (DecompressedSizeExceededException e)
+        {
+            throw new IotHubSizeExceededException(e.getMessage());
+        }
+
+        message.setContentEncoding(null);
+        return true;
+    }
+
+    private static byte[] compressBody(Message message, MessageCompression compression, int thresholdBytes)
+    {
+        // Codes_SRS_MESSAGECOMPRESSOR_21_002: [The function shall not change the message if it has a content encoding, or its body is smaller than the threshold.]
+        byte[] body = message.getBytes();
+        if (message.getContentEncoding() != null || body == null || body.length < thresholdBytes)
+        {
+            return null;
+        }
+
+        // Codes_SRS_MESSAGECOMPRESSOR_21_003: [The function shall not change the message if the compressed body is not smaller than the original one.]
+        byte[] compressedBody = Compression.compress(body, contentEncodingOf(compression));
+        return (compressedBody.length < body.length) ? compressedBody : null;
+    }
+
+    private static String contentEncodingOf(MessageCompression compression)
+    {
+        return (compression == MessageCompression.GZIP) ? Compression.GZIP : Compression.DEFLATE;
+    }
+}
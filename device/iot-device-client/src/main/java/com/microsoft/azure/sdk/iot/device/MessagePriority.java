@@ -0,0 +1,15 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device;
+
+/**
+ * The priority of an outbound message. The transport sends the messages with higher priority first, without
+ * starving the lower ones.
+ */
+public enum MessagePriority
+{
+    LOW,
+    NORMAL,
+    HIGH
+}
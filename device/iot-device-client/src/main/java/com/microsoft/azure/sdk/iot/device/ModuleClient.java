@@ -12,8 +12,10 @@ import com.microsoft.azure.sdk.iot.device.DeviceTwin.TwinPropertyCallBack;
 import com.microsoft.azure.sdk.iot.device.auth.IotHubAuthenticationProvider;
 import com.microsoft.azure.sdk.iot.device.auth.SignatureProvider;
 import com.microsoft.azure.sdk.iot.device.edge.HttpsHsmTrustBundleProvider;
+import com.microsoft.azure.sdk.iot.device.edge.MethodInvoker;
 import com.microsoft.azure.sdk.iot.device.edge.MethodRequest;
 import com.microsoft.azure.sdk.iot.device.edge.MethodResult;
+import com.microsoft.azure.sdk.iot.device.edge.MethodResultCallback;
 import com.microsoft.azure.sdk.iot.device.edge.TrustBundleProvider;
 import com.microsoft.azure.sdk.iot.device.exceptions.ModuleClientException;
 import com.microsoft.azure.sdk.iot.device.exceptions.TransportException;
@@ -26,6 +28,7 @@ import java.io.IOException;
 import java.net.URISyntaxException;
 import java.security.NoSuchAlgorithmException;
 import java.util.Map;
+import java.util.concurrent.Future;
 
 /**
  * Public API for communicating from Edge Modules. A ModuleClient can be used to send messages from an Edge module to an EdgeHub or an IotHub.
@@ -56,6 +59,14 @@ public class ModuleClient extends InternalClient
     private static final String IothubConnectionstringVariableName = "IotHubConnectionString";
     private static final String EdgeCaCertificateFileVariableName = "EdgeModuleCACertificateFile";
 
+    private static final int DEFAULT_MAX_CONCURRENT_METHOD_INVOCATIONS = 16;
+
+    private final Object methodInvocationLock = new Object();
+    private HttpsTransportManager methodTransportManager;
+    private MethodInvoker methodInvoker;
+    private int maxConcurrentMethodInvocations = DEFAULT_MAX_CONCURRENT_METHOD_INVOCATIONS;
+    private long methodInvocationTimeoutMillis = 0;
+
     /**
      * Constructor for a ModuleClient instance.
      * @param connectionString The connection string for the edge module to connect to. Must be in format
@@ -313,9 +324,7 @@ public class ModuleClient extends InternalClient
         try
         {
             //Codes_SRS_MODULECLIENT_34_033: [This function shall create an HttpsTransportManager and use it to invoke the method on the device.]
-            HttpsTransportManager httpsTransportManager = new HttpsTransportManager(this.config);
-            httpsTransportManager.open();
-            return httpsTransportManager.invokeMethod(methodRequest, deviceId, "");
+            return this.getMethodTransportManager().invokeMethod(methodRequest, deviceId, "");
         }
         catch (URISyntaxException | IOException | TransportException e)
         {
@@ -350,9 +359,7 @@ public class ModuleClient extends InternalClient
         try
         {
             //Codes_SRS_MODULECLIENT_34_035: [This function shall create an HttpsTransportManager and use it to invoke the method on the module.]
-            HttpsTransportManager httpsTransportManager = new HttpsTransportManager(this.config);
-            httpsTransportManager.open();
-            return httpsTransportManager.invokeMethod(methodRequest, deviceId, moduleId);
+            return this.getMethodTransportManager().invokeMethod(methodRequest, deviceId, moduleId);
         }
         catch (URISyntaxException | IOException | TransportException e)
         {
@@ -361,6 +368,104 @@ public class ModuleClient extends InternalClient
         }
     }
 
+    /**
+     * Invoke a method on a device without blocking. The invocations share a keep-alive HTTPS connection, and run in
+     * parallel up to the limit set by {@link #setMethodInvocationOptions(int, long)}.
+     * @param deviceId the device to invoke a method on
+     * @param methodRequest the request containing the method to invoke on the device
+     * @param callback the callback to execute when the invocation completes, may be null
+     * @param callbackContext the context to provide to the callback, may be null
+     * @return the future result of the method call. If the invocation fails, {@link Future#get()} throws an
+     * {@link java.util.concurrent.ExecutionException} with the cause of the failure.
+     * @throws IllegalArgumentException if deviceId is null or empty, or methodRequest is null
+     */
+    public Future<MethodResult> invokeMethodAsync(String deviceId, MethodRequest methodRequest, MethodResultCallback callback, Object callbackContext) throws IllegalArgumentException
+    {
+        //Codes_SRS_MODULECLIENT_21_001: [This function shall queue the method invocation on the device in the method invoker, and return its future result.]
+        return this.getMethodInvoker().invokeAsync(deviceId, "", methodRequest, callback, callbackContext);
+    }
+
+    /**
+     * Invoke a method on a module without blocking. The invocations share a keep-alive HTTPS connection, and run in
+     * parallel up to the limit set by {@link #setMethodInvocationOptions(int, long)}.
+     * @param deviceId the device the module belongs to
+     * @param moduleId the module to invoke the method on
+     * @param methodRequest the request containing the method to invoke on the module
+     * @param callback the callback to execute when the invocation completes, may be null
+     * @param callbackContext the context to provide to the callback, may be null
+     * @return the future result of the method call. If the invocation fails, {@link Future#get()} throws an
+     * {@link java.util.concurrent.ExecutionException} with the cause of the failure.
+     * @throws IllegalArgumentException if deviceId or moduleId is null or empty, or methodRequest is null
+     */
+    public Future<MethodResult> invokeMethodAsync(String deviceId, String moduleId, MethodRequest methodRequest, MethodResultCallback callback, Object callbackContext) throws IllegalArgumentException
+    {
+        if (moduleId == null || moduleId.isEmpty())
+        {
+            //Codes_SRS_MODULECLIENT_21_002: [If the provided moduleId is null or empty, this function shall throw an IllegalArgumentException.]
+            throw new IllegalArgumentException("ModuleId cannot be null or empty");
+        }
+
+        //Codes_SRS_MODULECLIENT_21_003: [This function shall queue the method invocation on the module in the method invoker, and return its future result.]
+        return this.getMethodInvoker().invokeAsync(deviceId, moduleId, methodRequest, callback, callbackContext);
+    }
+
+    /**
+     * Sets the limits of the asynchronous method invocations. The invocations that were already queued keep the
+     * previous limits.
+     * @param maxConcurrentInvocations the maximum number of invocations in progress at the same time. The default is 16.
+     * @param timeoutMillis the maximum time for each invocation to complete, or 0 to only use the read timeout of the
+     *                      HTTPS connection. The default is 0.
+     * @throws IllegalArgumentException if maxConcurrentInvocations is not positive, or timeoutMillis is negative
+     */
+    public void setMethodInvocationOptions(int maxConcurrentInvocations, long timeoutMillis) throws IllegalArgumentException
+    {
+        if (maxConcurrentInvocations <= 0 || timeoutMillis < 0)
+        {
+            //Codes_SRS_MODULECLIENT_21_004: [If maxConcurrentInvocations is not positive, or timeoutMillis is negative, this function shall throw an IllegalArgumentException.]
+            throw new IllegalArgumentException("maxConcurrentInvocations shall be positive and timeoutMillis cannot be negative");
+        }
+
+        //Codes_SRS_MODULECLIENT_21_005: [This function shall save the limits, and close the current method invoker so the next invocation creates one with the new limits.]
+        synchronized (this.methodInvocationLock)
+        {
+            this.maxConcurrentMethodInvocations = maxConcurrentInvocations;
+            this.methodInvocationTimeoutMillis = timeoutMillis;
+            if (this.methodInvoker != null)
+            {
+                this.methodInvoker.close();
+                this.methodInvoker = null;
+            }
+        }
+    }
+
+    /**
+     * Closes the IoT Hub client, cancels the pending asynchronous method invocations, and closes their transport.
+     *
+     * @throws IOException if the connection to an IoT Hub cannot be closed.
+     */
+    @Override
+    public void closeNow() throws IOException
+    {
+        //Codes_SRS_MODULECLIENT_21_006: [This function shall cancel the pending method invocations, close the method
+        // invoker and its transport manager, and invoke super.closeNow().]
+        this.closeMethodInvoker();
+        super.closeNow();
+    }
+
+    /**
+     * Closes the IoT Hub client, cancels the pending asynchronous method invocations, and closes their transport.
+     *
+     * @throws IOException if the connection to an IoT Hub cannot be closed.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        //Codes_SRS_MODULECLIENT_21_007: [This function shall cancel the pending method invocations, close the method
+        // invoker and its transport manager, and invoke super.close().]
+        this.closeMethodInvoker();
+        super.close();
+    }
+
     /**
      * Retrieves the twin's latest desired properties
      * @throws IOException if the iothub cannot be reached
@@ -475,6 +580,53 @@ public class ModuleClient extends InternalClient
         return this;
     }
 
+    private HttpsTransportManager getMethodTransportManager()
+    {
+        synchronized (this.methodInvocationLock)
+        {
+            //Codes_SRS_MODULECLIENT_21_008: [All method invocations of this client shall share one open HttpsTransportManager, so its TLS connections are kept alive between them.]
+            if (this.methodTransportManager == null)
+            {
+                HttpsTransportManager httpsTransportManager = new HttpsTransportManager(this.config);
+                httpsTransportManager.open();
+                this.methodTransportManager = httpsTransportManager;
+            }
+
+            return this.methodTransportManager;
+        }
+    }
+
+    private MethodInvoker getMethodInvoker()
+    {
+        synchronized (this.methodInvocationLock)
+        {
+            if (this.methodInvoker == null)
+            {
+                this.methodInvoker = new MethodInvoker(this.getMethodTransportManager(), this.maxConcurrentMethodInvocations, this.methodInvocationTimeoutMillis);
+            }
+
+            return this.methodInvoker;
+        }
+    }
+
+    private void closeMethodInvoker()
+    {
+        synchronized (this.methodInvocationLock)
+        {
+            if (this.methodInvoker != null)
+            {
+                this.methodInvoker.closeNow();
+                this.methodInvoker = null;
+            }
+
+            if (this.methodTransportManager != null)
+            {
+                this.methodTransportManager.close();
+                this.methodTransportManager = null;
+            }
+        }
+    }
+
     private static long getReceivePeriod(IotHubClientProtocol protocol)
     {
         switch (protocol)
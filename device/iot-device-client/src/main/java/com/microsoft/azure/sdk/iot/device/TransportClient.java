@@ -1,6 +1,7 @@
 package com.microsoft.azure.sdk.iot.device;
 
 import com.microsoft.azure.sdk.iot.device.transport.RetryPolicy;
+import com.microsoft.azure.sdk.iot.device.transport.TransportMetrics;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -193,6 +194,28 @@ public class TransportClient
         logger.LogInfo("Retry policy updated successfully in the transport client, method name is %s ", logger.getMethodName());
     }
 
+    /**
+     * Sets the metrics that the underlying transport updates. The transport shared by the registered device clients
+     * reports the metrics of all of them.
+     *
+     * @param transportMetrics the metrics to update, or null to stop collecting metrics.
+     * @throws UnsupportedOperationException if no device client has been registered yet.
+     */
+    public void setTransportMetrics(TransportMetrics transportMetrics)
+    {
+        if (deviceClientList.size() == 0)
+        {
+            // Codes_SRS_TRANSPORTCLIENT_21_001: [The function shall throw UnsupportedOperationException if there is no registered device client]
+            throw new UnsupportedOperationException("TransportClient.setTransportMetrics only works when there is at least one registered device client.");
+        }
+
+        for (int i = 0; i < this.deviceClientList.size(); i++)
+        {
+            // Codes_SRS_TRANSPORTCLIENT_21_002: [The function shall set the transport metrics to all registered device clients.]
+            deviceClientList.get(i).getConfig().setTransportMetrics(transportMetrics);
+        }
+    }
+
     /**
      * Registers the given device into the transport client.
      *
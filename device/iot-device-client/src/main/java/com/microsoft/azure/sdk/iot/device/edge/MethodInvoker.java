@@ -0,0 +1,276 @@
+/*
+ *  Copyright (c) Microsoft. All rights reserved.
+ *  Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.sdk.iot.device.edge;
+
+import com.microsoft.azure.sdk.iot.device.CustomLogger;
+import com.microsoft.azure.sdk.iot.device.transport.https.HttpsTransportManager;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Invokes direct methods asynchronously over a shared {@link HttpsTransportManager}. The HTTPS connection of the
+ * transport manager keeps its TLS connections alive between requests, so the invocations do not pay for a new
+ * handshake each time.
+ * <p>
+ * Up to {@code maxConcurrentInvocations} invocations run in parallel, the other ones wait in order. Each invocation
+ * that does not complete in {@code timeoutMillis} completes with a {@link TimeoutException}, and releases its thread
+ * for the next one: the read timeout of the transport manager is set to {@code timeoutMillis}, since a blocked
+ * HTTPS read does not stop on interrupt.
+ */
+public class MethodInvoker implements Closeable
+{
+    private static final long IDLE_THREAD_KEEP_ALIVE_SECONDS = 60;
+    private static final AtomicInteger invokerCount = new AtomicInteger();
+
+    private final HttpsTransportManager transportManager;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor invocationExecutor;
+    private final ScheduledExecutorService timeoutScheduler;
+    private final Set<InvocationTask> pendingInvocations = Collections.newSetFromMap(new ConcurrentHashMap<InvocationTask, Boolean>());
+    private final CustomLogger logger = new CustomLogger(this.getClass());
+
+    /**
+     * Constructor
+     * @param transportManager the open transport manager to send the invocations
+     * @param maxConcurrentInvocations the maximum number of invocations in progress at the same time
+     * @param timeoutMillis the maximum time for each invocation to complete, or 0 to only use the read timeout of the
+     *                      transport
+     * @throws IllegalArgumentException if the transport manager is null, the concurrency is not positive, or the timeout
+     * is negative
+     */
+    public MethodInvoker(HttpsTransportManager transportManager, int maxConcurrentInvocations, long timeoutMillis) throws IllegalArgumentException
+    {
+        if (transportManager == null)
+        {
+            // Codes_SRS_METHODINVOKER_21_001: [If the transport manager is null, the constructor shall throw an IllegalArgumentException.]
+            throw new IllegalArgumentException("transportManager cannot be null");
+        }
+
+        if (maxConcurrentInvocations <= 0 || timeoutMillis < 0)
+        {
+            // Codes_SRS_METHODINVOKER_21_002: [If the maximum concurrency is not positive or the timeout is negative, the constructor shall throw an IllegalArgumentException.]
+            throw new IllegalArgumentException("maxConcurrentInvocations shall be positive and timeoutMillis cannot be negative");
+        }
+
+        this.transportManager = transportManager;
+        this.timeoutMillis = timeoutMillis;
+
+        // Codes_SRS_METHODINVOKER_21_010: [The constructor shall set the read timeout of the transport manager to
+        // timeoutMillis, or reset it to the configuration one if timeoutMillis is 0.]
+        this.transportManager.setReadTimeoutMillis((int) Math.min(timeoutMillis, Integer.MAX_VALUE));
+
+        // Codes_SRS_METHODINVOKER_21_003: [The constructor shall create an executor with up to maxConcurrentInvocations daemon threads, that stop when idle.]
+        final String threadNamePrefix = "azure-iot-sdk-MethodInvoker-" + invokerCount.incrementAndGet() + "-";
+        ThreadFactory threadFactory = new ThreadFactory()
+        {
+            private final AtomicInteger threadCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, threadNamePrefix + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+
+        this.invocationExecutor = new ThreadPoolExecutor(maxConcurrentInvocations, maxConcurrentInvocations,
+                IDLE_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory);
+        this.invocationExecutor.allowCoreThreadTimeOut(true);
+        this.timeoutScheduler = timeoutMillis > 0 ? Executors.newSingleThreadScheduledExecutor(threadFactory) : null;
+    }
+
+    /**
+     * Invoke a method on a device or a module without blocking
+     * @param deviceId the device to invoke the method on, or that the module belongs to
+     * @param moduleId the module to invoke the method on, or null to invoke the method on the device
+     * @param methodRequest the request containing the method to invoke
+     * @param callback the callback to execute when the invocation completes, may be null
+     * @param callbackContext the context to provide to the callback, may be null
+     * @return the future result of the method
+     * @throws IllegalArgumentException if the device id is null or empty, or the method request is null
+     * @throws IllegalStateException if the invoker is closed
+     */
+    public Future<MethodResult> invokeAsync(final String deviceId, final String moduleId, final MethodRequest methodRequest,
+                                            MethodResultCallback callback, Object callbackContext) throws IllegalArgumentException, IllegalStateException
+    {
+        if (deviceId == null || deviceId.isEmpty() || methodRequest == null)
+        {
+            // Codes_SRS_METHODINVOKER_21_004: [If the device id is null or empty, or the method request is null, this function shall throw an IllegalArgumentException.]
+            throw new IllegalArgumentException("deviceId cannot be null or empty, and methodRequest cannot be null");
+        }
+
+        // Codes_SRS_METHODINVOKER_21_005: [This function shall queue the invocation of the method through the transport manager and return its future result.]
+        final InvocationTask invocationTask = new InvocationTask(new Callable<MethodResult>()
+        {
+            @Override
+            public MethodResult call() throws Exception
+            {
+                return transportManager.invokeMethod(methodRequest, deviceId, moduleId);
+            }
+        }, callback, callbackContext);
+
+        this.pendingInvocations.add(invocationTask);
+        try
+        {
+            this.invocationExecutor.execute(invocationTask);
+        }
+        catch (RejectedExecutionException e)
+        {
+            this.pendingInvocations.remove(invocationTask);
+            // Codes_SRS_METHODINVOKER_21_006: [If the invoker is closed, this function shall throw an IllegalStateException.]
+            throw new IllegalStateException("The method invoker is closed", e);
+        }
+
+        if (this.timeoutScheduler != null)
+        {
+            // Codes_SRS_METHODINVOKER_21_007: [If the invocation does not complete in timeoutMillis, this function shall
+            // complete it with a TimeoutException, and interrupt the thread running it.]
+            invocationTask.timeoutFuture = this.timeoutScheduler.schedule(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    invocationTask.timeOut();
+                }
+            }, this.timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+
+        return invocationTask;
+    }
+
+    /**
+     * Stop accepting invocations. The queued invocations still run.
+     */
+    @Override
+    public void close()
+    {
+        // Codes_SRS_METHODINVOKER_21_009: [This function shall stop accepting invocations, and let the queued ones complete.]
+        this.invocationExecutor.shutdown();
+        if (this.timeoutScheduler != null)
+        {
+            this.timeoutScheduler.shutdown();
+        }
+    }
+
+    /**
+     * Stop accepting invocations, and cancel the queued and the running ones.
+     */
+    public void closeNow()
+    {
+        // Codes_SRS_METHODINVOKER_21_011: [This function shall stop accepting invocations, and cancel the queued and
+        // the running ones, interrupting the threads running them.]
+        this.invocationExecutor.shutdown();
+        for (InvocationTask invocationTask : this.pendingInvocations)
+        {
+            invocationTask.cancel(true);
+        }
+        this.invocationExecutor.shutdownNow();
+
+        if (this.timeoutScheduler != null)
+        {
+            this.timeoutScheduler.shutdownNow();
+        }
+    }
+
+    private final class InvocationTask extends FutureTask<MethodResult>
+    {
+        private final MethodResultCallback callback;
+        private final Object callbackContext;
+        private volatile Future<?> timeoutFuture;
+        private Thread runner;
+
+        InvocationTask(Callable<MethodResult> invocation, MethodResultCallback callback, Object callbackContext)
+        {
+            super(invocation);
+            this.callback = callback;
+            this.callbackContext = callbackContext;
+        }
+
+        @Override
+        public void run()
+        {
+            synchronized (this)
+            {
+                this.runner = Thread.currentThread();
+            }
+
+            try
+            {
+                super.run();
+            }
+            finally
+            {
+                synchronized (this)
+                {
+                    // The interrupt of a late timeOut is cleared by the executor before it runs the next task.
+                    this.runner = null;
+                }
+            }
+        }
+
+        void timeOut()
+        {
+            boolean wasDone = this.isDone();
+            this.setException(new TimeoutException("The method invocation did not complete in " + timeoutMillis + " milliseconds"));
+            synchronized (this)
+            {
+                if (!wasDone && this.runner != null)
+                {
+                    this.runner.interrupt();
+                }
+            }
+        }
+
+        @Override
+        protected void done()
+        {
+            pendingInvocations.remove(this);
+
+            Future<?> pendingTimeout = this.timeoutFuture;
+            if (pendingTimeout != null)
+            {
+                pendingTimeout.cancel(false);
+            }
+
+            if (this.callback == null)
+            {
+                return;
+            }
+
+            // Codes_SRS_METHODINVOKER_21_008: [When the invocation completes, this function shall execute the callback
+            // with the method result, or with the exception that failed the invocation.]
+            MethodResult methodResult = null;
+            Throwable exception = null;
+            try
+            {
+                methodResult = this.get();
+            }
+            catch (ExecutionException e)
+            {
+                exception = e.getCause();
+            }
+            catch (CancellationException | InterruptedException e)
+            {
+                exception = e;
+            }
+
+            try
+            {
+                this.callback.onMethodResult(methodResult, exception, this.callbackContext);
+            }
+            catch (RuntimeException e)
+            {
+                logger.LogError("The method result callback threw an exception, method name is %s ", logger.getMethodName());
+                logger.LogError(e);
+            }
+        }
+    }
+}
@@ -5,9 +5,9 @@
 
 package com.microsoft.azure.sdk.iot.device.edge;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
+import com.microsoft.azure.sdk.iot.deps.serializer.SerializerRegistry;
 
 public class MethodResult
 {
@@ -30,7 +30,7 @@ public class MethodResult
     public MethodResult(String json)
     {
         // Codes_SRS_DIRECTMETHODRESULT_34_003: [This constructor shall retrieve the payload and status from the provided json.]
-        MethodResult result = new GsonBuilder().create().fromJson(json, MethodResult.class);
+        MethodResult result = SerializerRegistry.getGson().fromJson(json, MethodResult.class);
 
         this.payload = result.payload != null ? result.payload : null;
         this.status = result.status;
@@ -0,0 +1,21 @@
+/*
+ *  Copyright (c) Microsoft. All rights reserved.
+ *  Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.sdk.iot.device.edge;
+
+/**
+ * Callback for the completion of an asynchronous method invocation.
+ */
+public interface MethodResultCallback
+{
+    /**
+     * Executes when the method invocation completes.
+     * @param methodResult the result of the method, or null if the invocation failed
+     * @param exception the reason of the failure, or null if the invocation succeeded. A
+     * {@link java.util.concurrent.TimeoutException} means that the invocation did not complete in time.
+     * @param context the context provided with the invocation
+     */
+    void onMethodResult(MethodResult methodResult, Throwable exception, Object context);
+}
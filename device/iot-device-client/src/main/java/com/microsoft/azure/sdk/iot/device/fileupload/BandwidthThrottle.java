@@ -0,0 +1,81 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.fileupload;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the number of bytes per second that the file uploads of a client send. Each upload asks for its bytes before
+ * sending them, and waits until the bytes that were granted before it would be sent at the capped rate.
+ */
+public final class BandwidthThrottle
+{
+    private static final long NANOSECONDS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final long maxBytesPerSecond;
+    private long nextFreeNanoTime;
+
+    /**
+     * Constructor
+     *
+     * @param maxBytesPerSecond is the cap of the throughput. Shall be positive.
+     * @throws IllegalArgumentException if maxBytesPerSecond is not positive.
+     */
+    BandwidthThrottle(long maxBytesPerSecond) throws IllegalArgumentException
+    {
+        /* Codes_SRS_BANDWIDTHTHROTTLE_21_001: [If the `maxBytesPerSecond` is not positive, the constructor shall throw IllegalArgumentException.] */
+        if (maxBytesPerSecond <= 0)
+        {
+            throw new IllegalArgumentException("maxBytesPerSecond shall be positive");
+        }
+
+        this.maxBytesPerSecond = maxBytesPerSecond;
+        this.nextFreeNanoTime = System.nanoTime();
+    }
+
+    /**
+     * Getter for the cap.
+     *
+     * @return the cap of the throughput in bytes per second.
+     */
+    long getMaxBytesPerSecond()
+    {
+        return this.maxBytesPerSecond;
+    }
+
+    /**
+     * Wait until the provided number of bytes can be sent without exceeding the cap.
+     *
+     * @param bytes is the number of bytes to send.
+     * @throws InterruptedIOException if the thread is interrupted while it waits.
+     */
+    void acquire(long bytes) throws InterruptedIOException
+    {
+        long waitNanos;
+        synchronized (this)
+        {
+            /* Codes_SRS_BANDWIDTHTHROTTLE_21_002: [The acquire shall reserve the time to send the `bytes` at the cap, after the time reserved by the previous calls.] */
+            long now = System.nanoTime();
+            long start = Math.max(now, this.nextFreeNanoTime);
+            this.nextFreeNanoTime = start + (bytes * NANOSECONDS_PER_SECOND) / this.maxBytesPerSecond;
+            waitNanos = start - now;
+        }
+
+        if (waitNanos > 0)
+        {
+            /* Codes_SRS_BANDWIDTHTHROTTLE_21_003: [The acquire shall wait until the start of the reserved time.] */
+            try
+            {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+            catch (InterruptedException e)
+            {
+                /* Codes_SRS_BANDWIDTHTHROTTLE_21_004: [If the wait is interrupted, the acquire shall throw InterruptedIOException.] */
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for upload bandwidth");
+            }
+        }
+    }
+}
@@ -0,0 +1,463 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.fileupload;
+
+import com.microsoft.azure.sdk.iot.deps.util.Base64;
+import com.microsoft.azure.sdk.iot.device.transport.ExponentialBackoffWithJitter;
+import com.microsoft.azure.sdk.iot.device.transport.RetryPolicy;
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.blob.BlockEntry;
+import com.microsoft.azure.storage.blob.BlockListingFilter;
+import com.microsoft.azure.storage.blob.CloudBlockBlob;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Uploads a stream to a block blob in blocks of a fixed size.
+ *
+ * <p>
+ *     The id of each block is made of its index and the MD5 of its content. Before uploading, the uploader lists
+ *     the blocks that are already staged in the blob and not committed yet, and skips the ones with the same id and
+ *     size, so an upload that was interrupted resumes from the blocks that reached the storage. Each block is retried
+ *     on its own with an exponential backoff, and the blocks can be uploaded in parallel. When all the blocks are
+ *     staged, the uploader commits them in order.
+ * </p>
+ * <p>
+ *     A {@link FileInputStream} is read from its {@link FileChannel} at the offset of each block, so the workers do not
+ *     wait for each other to read. Any other stream is read in sequence. Streams that fit in a single block are
+ *     uploaded with a single request.
+ * </p>
+ */
+public final class BlockBlobUploader
+{
+    static final int DEFAULT_BLOCK_SIZE_IN_BYTES = 4 * 1024 * 1024;
+    static final int MAX_BLOCK_SIZE_IN_BYTES = 4 * 1024 * 1024;
+    static final int DEFAULT_PARALLELISM = 1;
+    static final int MAX_BLOCKS = 50000;
+    private static final int MAX_ATTEMPTS_PER_BLOCK = 3;
+    private static final long MIN_BLOCK_RETRY_BACKOFF_MILLIS = 100;
+    private static final long MAX_BLOCK_RETRY_BACKOFF_MILLIS = 10 * 1000;
+    private static final long DELTA_BLOCK_RETRY_BACKOFF_MILLIS = 100;
+    private static final String THREAD_NAME = "azure-iot-sdk-BlockBlobUploader";
+
+    private static final ThreadFactory HELPER_THREAD_FACTORY = new ThreadFactory()
+    {
+        @Override
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        }
+    };
+
+    private final int blockSizeInBytes;
+    private final int parallelism;
+    private final BandwidthThrottle bandwidthThrottle;
+
+    /**
+     * Constructor
+     *
+     * @param blockSizeInBytes is the size of each block, or 0 to use the default size. Cannot be bigger than 4MB.
+     * @param parallelism is the number of blocks to upload at the same time, or 0 to upload one block at a time.
+     * @throws IllegalArgumentException if one of the parameters is not valid.
+     */
+    BlockBlobUploader(int blockSizeInBytes, int parallelism) throws IllegalArgumentException
+    {
+        this(blockSizeInBytes, parallelism, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param blockSizeInBytes is the size of each block, or 0 to use the default size. Cannot be bigger than 4MB.
+     * @param parallelism is the number of blocks to upload at the same time, or 0 to upload one block at a time.
+     * @param bandwidthThrottle is the cap of the throughput shared by the uploads of the client, or {@code null} for no cap.
+     * @throws IllegalArgumentException if one of the parameters is not valid.
+     */
+    BlockBlobUploader(int blockSizeInBytes, int parallelism, BandwidthThrottle bandwidthThrottle) throws IllegalArgumentException
+    {
+        /* Codes_SRS_BLOCKBLOBUPLOADER_21_001: [If the `blockSizeInBytes` is negative or bigger than 4MB, or the `parallelism` is negative, the constructor shall throw IllegalArgumentException.] */
+        if (blockSizeInBytes < 0 || blockSizeInBytes > MAX_BLOCK_SIZE_IN_BYTES)
+        {
+            throw new IllegalArgumentException("blockSizeInBytes shall be between 1 and " + MAX_BLOCK_SIZE_IN_BYTES);
+        }
+
+        if (parallelism < 0)
+        {
+            throw new IllegalArgumentException("parallelism cannot be negative");
+        }
+
+        /* Codes_SRS_BLOCKBLOBUPLOADER_21_002: [If the `blockSizeInBytes` or the `parallelism` is 0, the constructor shall use the default value.] */
+        this.blockSizeInBytes = (blockSizeInBytes == 0) ? DEFAULT_BLOCK_SIZE_IN_BYTES : blockSizeInBytes;
+        this.parallelism = (parallelism == 0) ? DEFAULT_PARALLELISM : parallelism;
+        this.bandwidthThrottle = bandwidthThrottle;
+    }
+
+    /**
+     * Upload the stream to the blob, and commit it.
+     *
+     * @param blob is the destination blob.
+     * @param inputStream is the stream to upload.
+     * @param streamLength is the number of bytes to upload.
+     * @throws StorageException if the storage rejects a request.
+     * @throws IOException if the stream cannot be read, or the upload is interrupted.
+     */
+    void upload(CloudBlockBlob blob, InputStream inputStream, long streamLength) throws StorageException, IOException
+    {
+        /* Codes_SRS_BLOCKBLOBUPLOADER_21_003: [If the stream fits in a single block, the upload shall upload it with a single request.] */
+        if (streamLength <= this.blockSizeInBytes)
+        {
+            acquireBandwidth(streamLength);
+            blob.upload(inputStream, streamLength);
+            return;
+        }
+
+        long blockCount = (streamLength + this.blockSizeInBytes - 1) / this.blockSizeInBytes;
+        if (blockCount > MAX_BLOCKS)
+        {
+            /* Codes_SRS_BLOCKBLOBUPLOADER_21_004: [If the stream needs more than 50000 blocks, the upload shall throw IllegalArgumentException.] */
+            throw new IllegalArgumentException("The stream needs more than " + MAX_BLOCKS + " blocks, increase the block size");
+        }
+
+        /* Codes_SRS_BLOCKBLOBUPLOADER_21_005: [The upload shall list the uncommitted blocks of the blob, and skip the blocks that are already staged with the same id and size.] */
+        Map<String, Long> stagedBlocks = getStagedBlocks(blob);
+        BlockSource source = (inputStream instanceof FileInputStream)
+                ? new ChannelBlockSource(((FileInputStream) inputStream).getChannel(), streamLength, (int) blockCount)
+                : new StreamBlockSource(inputStream, streamLength, (int) blockCount);
+        String[] blockIds = new String[(int) blockCount];
+
+        /* Codes_SRS_BLOCKBLOBUPLOADER_21_006: [The upload shall stage the blocks using up to `parallelism` threads, including the caller thread.] */
+        int helpers = (int) Math.min(this.parallelism - 1, blockCount - 1);
+        ExecutorService executor = (helpers > 0) ? Executors.newFixedThreadPool(helpers, HELPER_THREAD_FACTORY) : null;
+        List<Future<Void>> futures = new ArrayList<>();
+        try
+        {
+            for (int i = 0; i < helpers; i++)
+            {
+                futures.add(executor.submit(new BlockWorker(blob, source, stagedBlocks, blockIds)));
+            }
+
+            new BlockWorker(blob, source, stagedBlocks, blockIds).call();
+
+            for (Future<Void> future : futures)
+            {
+                waitFor(future, source);
+            }
+        }
+        finally
+        {
+            if (executor != null)
+            {
+                executor.shutdownNow();
+            }
+        }
+
+        /* Codes_SRS_BLOCKBLOBUPLOADER_21_007: [When all the blocks are staged, the upload shall commit the blocks in order.] */
+        List<BlockEntry> blockList = new ArrayList<>(blockIds.length);
+        for (String blockId : blockIds)
+        {
+            blockList.add(new BlockEntry(blockId));
+        }
+        blob.commitBlockList(blockList);
+    }
+
+    private void acquireBandwidth(long bytes) throws InterruptedIOException
+    {
+        /* Codes_SRS_BLOCKBLOBUPLOADER_21_010: [If there is a `bandwidthThrottle`, the upload shall acquire the bytes of each request from it before sending the request.] */
+        if (this.bandwidthThrottle != null)
+        {
+            this.bandwidthThrottle.acquire(bytes);
+        }
+    }
+
+    private static Map<String, Long> getStagedBlocks(CloudBlockBlob blob) throws StorageException
+    {
+        Map<String, Long> stagedBlocks = new HashMap<>();
+        try
+        {
+            for (BlockEntry blockEntry : blob.downloadBlockList(BlockListingFilter.UNCOMMITTED, null, null, null))
+            {
+                stagedBlocks.put(blockEntry.getId(), blockEntry.getSize());
+            }
+        }
+        catch (StorageException e)
+        {
+            /* Codes_SRS_BLOCKBLOBUPLOADER_21_011: [If the blob does not exist, the upload shall stage all the blocks, otherwise, if the uncommitted blocks cannot be listed, the upload shall throw the StorageException.] */
+            if (e.getHttpStatusCode() != HttpURLConnection.HTTP_NOT_FOUND)
+            {
+                throw e;
+            }
+        }
+
+        return stagedBlocks;
+    }
+
+    private static void waitFor(Future<Void> future, BlockSource source) throws StorageException, IOException
+    {
+        try
+        {
+            future.get();
+        }
+        catch (InterruptedException e)
+        {
+            source.abort();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("The block upload was interrupted");
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof StorageException)
+            {
+                throw (StorageException) cause;
+            }
+            if (cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            throw new IOException("The block upload failed", cause);
+        }
+    }
+
+    static String getBlockId(int index, byte[] buffer, int length)
+    {
+        /* Codes_SRS_BLOCKBLOBUPLOADER_21_008: [The id of each block shall be the Base64 of its index and the MD5 of its content, with the same length for all the blocks.] */
+        MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance("MD5");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            // every Java platform implements MD5
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+
+        digest.update(buffer, 0, length);
+        StringBuilder rawId = new StringBuilder(String.format("%08d-", index));
+        for (byte hashByte : digest.digest())
+        {
+            rawId.append(String.format("%02x", hashByte));
+        }
+
+        return Base64.encodeBase64StringLocal(rawId.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private final class BlockWorker implements Callable<Void>
+    {
+        private final CloudBlockBlob blob;
+        private final BlockSource source;
+        private final Map<String, Long> stagedBlocks;
+        private final String[] blockIds;
+
+        private BlockWorker(CloudBlockBlob blob, BlockSource source, Map<String, Long> stagedBlocks, String[] blockIds)
+        {
+            this.blob = blob;
+            this.source = source;
+            this.stagedBlocks = stagedBlocks;
+            this.blockIds = blockIds;
+        }
+
+        @Override
+        public Void call() throws StorageException, IOException
+        {
+            byte[] buffer = new byte[blockSizeInBytes];
+            try
+            {
+                int index;
+                while ((index = this.source.readNext(buffer)) >= 0)
+                {
+                    int length = this.source.getLength(index);
+                    String blockId = getBlockId(index, buffer, length);
+                    this.blockIds[index] = blockId;
+
+                    Long stagedSize = this.stagedBlocks.get(blockId);
+                    if (stagedSize == null || stagedSize != length)
+                    {
+                        uploadBlock(blockId, buffer, length);
+                    }
+                }
+            }
+            catch (StorageException | IOException | RuntimeException e)
+            {
+                // stop the other workers, the upload cannot be committed anymore
+                this.source.abort();
+                throw e;
+            }
+
+            return null;
+        }
+
+        private void uploadBlock(String blockId, byte[] buffer, int length) throws StorageException, IOException
+        {
+            /* Codes_SRS_BLOCKBLOBUPLOADER_21_009: [If a block fails to upload, the upload shall retry it up to 3 times before failing.] */
+            /* Codes_SRS_BLOCKBLOBUPLOADER_21_012: [The upload shall wait before each retry of a block, with an exponential backoff with jitter.] */
+            RetryPolicy retryPolicy = new ExponentialBackoffWithJitter(MAX_ATTEMPTS_PER_BLOCK - 1,
+                    MIN_BLOCK_RETRY_BACKOFF_MILLIS, MAX_BLOCK_RETRY_BACKOFF_MILLIS, DELTA_BLOCK_RETRY_BACKOFF_MILLIS, false);
+            for (int attempt = 1; ; attempt++)
+            {
+                try
+                {
+                    acquireBandwidth(length);
+                    this.blob.uploadBlock(blockId, new ByteArrayInputStream(buffer, 0, length), length);
+                    return;
+                }
+                catch (StorageException | IOException e)
+                {
+                    if (attempt >= MAX_ATTEMPTS_PER_BLOCK || this.source.isAborted() || e instanceof InterruptedIOException)
+                    {
+                        throw e;
+                    }
+                }
+
+                waitBeforeRetry(retryPolicy.getRetryDecision(attempt - 1, null).getDuration());
+            }
+        }
+
+        private void waitBeforeRetry(long delayMillis) throws InterruptedIOException
+        {
+            try
+            {
+                Thread.sleep(delayMillis);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("The block upload was interrupted");
+            }
+        }
+    }
+
+    private abstract class BlockSource
+    {
+        final long streamLength;
+        final int blockCount;
+        private volatile boolean aborted;
+
+        BlockSource(long streamLength, int blockCount)
+        {
+            this.streamLength = streamLength;
+            this.blockCount = blockCount;
+        }
+
+        /**
+         * Read the next block that no worker took yet.
+         * @return the index of the block in the buffer, or -1 if there is no block left.
+         */
+        abstract int readNext(byte[] buffer) throws IOException;
+
+        int getLength(int index)
+        {
+            return (int) Math.min(blockSizeInBytes, this.streamLength - (long) index * blockSizeInBytes);
+        }
+
+        void abort()
+        {
+            this.aborted = true;
+        }
+
+        boolean isAborted()
+        {
+            return this.aborted;
+        }
+    }
+
+    private final class StreamBlockSource extends BlockSource
+    {
+        private final InputStream inputStream;
+        private int nextBlock;
+
+        private StreamBlockSource(InputStream inputStream, long streamLength, int blockCount)
+        {
+            super(streamLength, blockCount);
+            this.inputStream = inputStream;
+        }
+
+        @Override
+        synchronized int readNext(byte[] buffer) throws IOException
+        {
+            if (this.isAborted() || this.nextBlock >= this.blockCount)
+            {
+                return -1;
+            }
+
+            int index = this.nextBlock;
+            int length = this.getLength(index);
+            int offset = 0;
+            while (offset < length)
+            {
+                int read = this.inputStream.read(buffer, offset, length - offset);
+                if (read < 0)
+                {
+                    throw new EOFException("The stream ended before streamLength bytes");
+                }
+                offset += read;
+            }
+
+            this.nextBlock++;
+            return index;
+        }
+    }
+
+    private final class ChannelBlockSource extends BlockSource
+    {
+        private final FileChannel channel;
+        private final long basePosition;
+        private final AtomicInteger nextBlock = new AtomicInteger();
+
+        private ChannelBlockSource(FileChannel channel, long streamLength, int blockCount) throws IOException
+        {
+            super(streamLength, blockCount);
+            this.channel = channel;
+            this.basePosition = channel.position();
+        }
+
+        @Override
+        int readNext(byte[] buffer) throws IOException
+        {
+            int index = this.nextBlock.getAndIncrement();
+            if (this.isAborted() || index >= this.blockCount)
+            {
+                return -1;
+            }
+
+            ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, this.getLength(index));
+            long position = this.basePosition + (long) index * blockSizeInBytes;
+            while (byteBuffer.hasRemaining())
+            {
+                int read = this.channel.read(byteBuffer, position);
+                if (read < 0)
+                {
+                    throw new EOFException("The file ended before streamLength bytes");
+                }
+                position += read;
+            }
+
+            return index;
+        }
+    }
+}
@@ -12,22 +12,26 @@ import com.microsoft.azure.sdk.iot.device.transport.https.HttpsTransportManager;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Queue;
-import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingDeque;
-import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * Provide means to upload file in the Azure Storage using the IoTHub.
+ *
+ * <p>
+ *     The uploads of all the clients run on the threads of the {@link FileUploadScheduler} shared by the JVM, that
+ *     takes the uploads of each client in turns. The uploads in progress, and the cap of the bandwidth, belong to
+ *     each client.
+ * </p>
  */
 public final class FileUpload
 {
-    private static final int MAX_UPLOAD_PARALLEL = 10;
-
     private HttpsTransportManager httpsTransportManager;
-    private static CustomLogger logger;
-    private ScheduledExecutorService taskScheduler;
+    private DeviceClientConfig config;
+    private CustomLogger logger;
+    private FileUploadScheduler.ClientQueue uploadQueue;
     private FileUploadStatusCallBack fileUploadStatusCallBack;
-    private static Queue<FileUploadInProgress> fileUploadInProgressesSet;
+    private Queue<FileUploadInProgress> fileUploadInProgressesSet;
+    private BandwidthThrottle bandwidthThrottle;
 
     /**
      * CONSTRUCTOR
@@ -50,17 +54,10 @@ public final class FileUpload
         /* Codes_SRS_FILEUPLOAD_21_002: [The constructor shall create a new instance of `HttpsTransportManager` with the provided `config`.] */
         /* Codes_SRS_FILEUPLOAD_21_003: [If the constructor fail to create the new instance of the `HttpsTransportManager`, it shall throw IllegalArgumentException, threw by the HttpsTransportManager constructor.] */
         this.httpsTransportManager = new HttpsTransportManager(config);
+        this.config = config;
 
-        try
-        {
-            /* Codes_SRS_FILEUPLOAD_21_012: [The constructor shall create an pool of 10 threads to execute the uploads in parallel.] */
-            taskScheduler = Executors.newScheduledThreadPool(MAX_UPLOAD_PARALLEL);
-        }
-        catch (IllegalArgumentException | NullPointerException e)
-        {
-            /* Codes_SRS_FILEUPLOAD_21_015: [If create the executor failed, the constructor shall throws IOException.] */
-            throw new IOException("Cannot create a pool of threads to manager uploads: " + e);
-        }
+        /* Codes_SRS_FILEUPLOAD_21_012: [The constructor shall create a queue for the uploads of this client in the scheduler shared by the JVM.] */
+        this.uploadQueue = FileUploadScheduler.getInstance().createQueue();
         /* Codes_SRS_FILEUPLOAD_21_013: [The constructor shall create a list `fileUploadInProgressesSet` to control the pending uploads.] */
         fileUploadInProgressesSet = new LinkedBlockingDeque<FileUploadInProgress>();
         /* Codes_SRS_FILEUPLOAD_21_014: [The constructor shall create an Event callback `fileUploadStatusCallBack` to receive the upload status.] */
@@ -89,7 +86,7 @@ public final class FileUpload
      *              statusCallback is {@code null}
      * @throws IOException if an I/O error occurs in the inputStream.
      */
-    public synchronized void uploadToBlobAsync(
+    public void uploadToBlobAsync(
             String blobName, InputStream inputStream, long streamLength,
             IotHubEventCallback statusCallback, Object statusCallbackContext)
             throws IllegalArgumentException, IOException
@@ -125,10 +122,28 @@ public final class FileUpload
 
         /* Codes_SRS_FILEUPLOAD_21_004: [The uploadToBlobAsync shall asynchronously upload the InputStream `inputStream` to the blob in `blobName`.] */
         /* Codes_SRS_FILEUPLOAD_21_009: [The uploadToBlobAsync shall create a `FileUploadTask` to control this file upload.] */
-        FileUploadTask fileUploadTask = new FileUploadTask(blobName, inputStream, streamLength, httpsTransportManager, fileUploadStatusCallBack, newUpload);
+        /* Codes_SRS_FILEUPLOAD_21_024: [The uploadToBlobAsync shall upload the stream in blocks with the block size and parallelism in the `config`.] */
+        BlockBlobUploader blockBlobUploader = new BlockBlobUploader(config.getFileUploadBlockSizeInBytes(), config.getFileUploadParallelism(),
+                getBandwidthThrottle(config.getFileUploadMaxBytesPerSecond()));
+        FileUploadTask fileUploadTask = new FileUploadTask(blobName, inputStream, streamLength, httpsTransportManager, fileUploadStatusCallBack, newUpload, blockBlobUploader);
 
         /* Codes_SRS_FILEUPLOAD_21_010: [The uploadToBlobAsync shall schedule the task `FileUploadTask` to immediately start.] */
-        newUpload.setTask(taskScheduler.submit(fileUploadTask));
+        newUpload.setTask(uploadQueue.submit(fileUploadTask));
+    }
+
+    private synchronized BandwidthThrottle getBandwidthThrottle(long maxBytesPerSecond)
+    {
+        /* Codes_SRS_FILEUPLOAD_21_025: [The uploadToBlobAsync shall share a single bandwidth cap with the `maxBytesPerSecond` in the `config` between all the uploads of this client, or no cap if it is 0.] */
+        if (maxBytesPerSecond <= 0)
+        {
+            this.bandwidthThrottle = null;
+        }
+        else if (this.bandwidthThrottle == null || this.bandwidthThrottle.getMaxBytesPerSecond() != maxBytesPerSecond)
+        {
+            this.bandwidthThrottle = new BandwidthThrottle(maxBytesPerSecond);
+        }
+
+        return this.bandwidthThrottle;
     }
 
     private final class FileUploadStatusCallBack implements IotHubEventCallback
@@ -162,14 +177,15 @@ public final class FileUpload
     }
 
     /**
-     * Close the file upload cancelling all existing uploads and shutting down the thread pool.
+     * Close the file upload cancelling all existing uploads of this client. The threads of the shared scheduler
+     * keep running the uploads of the other clients.
      *
      * @throws IOException if an I/O error occurs in the inputStream.
      */
     public void closeNow() throws IOException
     {
-        /* Codes_SRS_FILEUPLOAD_21_017: [The closeNow shall shutdown the thread pool by calling `shutdownNow`.] */
-        taskScheduler.shutdownNow();
+        /* Codes_SRS_FILEUPLOAD_21_017: [The closeNow shall close the queue of this client, cancelling all its uploads.] */
+        uploadQueue.close();
 
         /* Codes_SRS_FILEUPLOAD_21_018: [If there is pending file uploads, the closeNow shall cancel the upload, and call the `statusCallback` reporting ERROR.] */
         for (FileUploadInProgress uploadInProgress : fileUploadInProgressesSet)
@@ -0,0 +1,201 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.fileupload;
+
+import java.util.Collections;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the file uploads of all the clients in the JVM on a bounded number of threads.
+ *
+ * <p>
+ *     Each client has its own {@link ClientQueue}. The threads take the uploads from the queues in turns, one upload
+ *     from each queue that has pending uploads, so a client with many pending uploads does not delay the uploads of
+ *     the other clients.
+ * </p>
+ */
+public final class FileUploadScheduler
+{
+    static final int MAX_UPLOAD_THREADS = 10;
+    private static final String THREAD_NAME = "azure-iot-sdk-FileUploadScheduler";
+
+    private final Queue<ClientQueue> readyQueues = new ConcurrentLinkedQueue<>();
+    private final Semaphore pendingUploads = new Semaphore(0);
+
+    private static final class InstanceHolder
+    {
+        private static final FileUploadScheduler INSTANCE = new FileUploadScheduler(MAX_UPLOAD_THREADS);
+    }
+
+    /**
+     * Getter for the scheduler shared by all the clients in the JVM. The threads of the scheduler are daemon threads,
+     * created when the first client uploads a file.
+     *
+     * @return the shared scheduler.
+     */
+    static FileUploadScheduler getInstance()
+    {
+        /* Codes_SRS_FILEUPLOADSCHEDULER_21_001: [The getInstance shall return the same scheduler for all the clients, with 10 threads.] */
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Constructor
+     *
+     * @param maxThreads is the number of threads that run the uploads.
+     * @throws IllegalArgumentException if maxThreads is not positive.
+     */
+    FileUploadScheduler(int maxThreads) throws IllegalArgumentException
+    {
+        /* Codes_SRS_FILEUPLOADSCHEDULER_21_002: [If the `maxThreads` is not positive, the constructor shall throw IllegalArgumentException.] */
+        if (maxThreads <= 0)
+        {
+            throw new IllegalArgumentException("maxThreads shall be positive");
+        }
+
+        /* Codes_SRS_FILEUPLOADSCHEDULER_21_003: [The constructor shall start `maxThreads` daemon threads to run the uploads.] */
+        for (int i = 0; i < maxThreads; i++)
+        {
+            Thread thread = new Thread(new Worker(), THREAD_NAME);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Create a queue for the uploads of a client.
+     *
+     * @return the new queue.
+     */
+    ClientQueue createQueue()
+    {
+        return new ClientQueue(this);
+    }
+
+    private void schedule(ClientQueue queue)
+    {
+        this.readyQueues.add(queue);
+    }
+
+    /**
+     * The uploads of a single client.
+     */
+    public static final class ClientQueue
+    {
+        private final FileUploadScheduler scheduler;
+        private final Queue<FutureTask<?>> uploads = new ConcurrentLinkedQueue<>();
+        private final Set<Future<?>> unfinishedUploads = Collections.newSetFromMap(new ConcurrentHashMap<Future<?>, Boolean>());
+        private final AtomicBoolean isReady = new AtomicBoolean(false);
+        private volatile boolean isClosed = false;
+
+        private ClientQueue(FileUploadScheduler scheduler)
+        {
+            this.scheduler = scheduler;
+        }
+
+        /**
+         * Queue an upload to run on the scheduler.
+         *
+         * @param upload is the upload to run.
+         * @return the future of the upload, that can cancel it.
+         * @throws RejectedExecutionException if the queue is closed.
+         */
+        Future<?> submit(Runnable upload) throws RejectedExecutionException
+        {
+            /* Codes_SRS_FILEUPLOADSCHEDULER_21_004: [If the queue is closed, the submit shall throw RejectedExecutionException.] */
+            if (this.isClosed)
+            {
+                throw new RejectedExecutionException("The file upload queue is closed");
+            }
+
+            FutureTask<?> task = new FutureTask<Void>(upload, null)
+            {
+                @Override
+                protected void done()
+                {
+                    unfinishedUploads.remove(this);
+                }
+            };
+            this.unfinishedUploads.add(task);
+
+            /* Codes_SRS_FILEUPLOADSCHEDULER_21_005: [The submit shall queue the upload, and put the queue in the turn of the scheduler threads if it is not there.] */
+            this.uploads.add(task);
+            if (this.isReady.compareAndSet(false, true))
+            {
+                this.scheduler.schedule(this);
+            }
+            this.scheduler.pendingUploads.release();
+
+            return task;
+        }
+
+        /**
+         * Cancel all the uploads of this queue that did not finish, interrupting the running ones, and reject new uploads.
+         */
+        void close()
+        {
+            /* Codes_SRS_FILEUPLOADSCHEDULER_21_006: [The close shall cancel all the unfinished uploads of the queue, and reject new uploads.] */
+            this.isClosed = true;
+            for (Future<?> upload : this.unfinishedUploads)
+            {
+                upload.cancel(true);
+            }
+        }
+
+        private FutureTask<?> next()
+        {
+            FutureTask<?> upload = this.uploads.poll();
+
+            // back to the end of the turn if there are more uploads, so each client runs one upload at a time in turns
+            this.isReady.set(false);
+            if (!this.uploads.isEmpty() && this.isReady.compareAndSet(false, true))
+            {
+                this.scheduler.schedule(this);
+            }
+
+            return upload;
+        }
+    }
+
+    private final class Worker implements Runnable
+    {
+        @Override
+        public void run()
+        {
+            while (true)
+            {
+                pendingUploads.acquireUninterruptibly();
+
+                // there is one permit for each queued upload, so the upload is in one of the ready queues, or about
+                // to be added back by the thread that took the previous upload from the same queue
+                FutureTask<?> upload = null;
+                while (upload == null)
+                {
+                    ClientQueue queue = readyQueues.poll();
+                    if (queue == null)
+                    {
+                        Thread.yield();
+                    }
+                    else
+                    {
+                        upload = queue.next();
+                    }
+                }
+
+                upload.run();
+
+                // a cancelled upload may leave the thread interrupted
+                Thread.interrupted();
+            }
+        }
+    }
+}
@@ -55,10 +55,11 @@ public final class FileUploadTask implements Runnable
     private static final String UTF_8_STRING = "UTF-8";
 
     private HttpsTransportManager httpsTransportManager;
-    private static CustomLogger logger;
+    private CustomLogger logger;
 
     private String blobName;
     private InputStream inputStream;
+    private BlockBlobUploader blockBlobUploader;
     private long streamLength;
     private IotHubEventCallback userCallback;
     private Object userCallbackContext;
@@ -66,8 +67,6 @@ public final class FileUploadTask implements Runnable
     private String correlationId;
     private URI blobURI;
 
-    private static final ObjectLock FILE_UPLOAD_LOCK = new ObjectLock();
-
     private static final String THREAD_NAME = "azure-iot-sdk-FileUploadTask";
 
     /**
@@ -83,6 +82,25 @@ public final class FileUploadTask implements Runnable
      */
     FileUploadTask(String blobName, InputStream inputStream, long streamLength, HttpsTransportManager httpsTransportManager,
                     IotHubEventCallback userCallback, Object userCallbackContext) throws IllegalArgumentException
+    {
+        this(blobName, inputStream, streamLength, httpsTransportManager, userCallback, userCallbackContext,
+                new BlockBlobUploader(0, 0));
+    }
+
+    /**
+     * Constructor
+     *
+     * @param blobName is the destination blob name in the storage. Cannot be {@code null}, or empty.
+     * @param inputStream is the byte stream with the information to store in the blob. Cannot be {@code null}.
+     * @param streamLength is the number of bytes to upload. Cannot be negative.
+     * @param httpsTransportManager is the https transport to connect to the IoT Hub. Cannot be {@code null}.
+     * @param userCallback is the callback to call when the upload is completed. Cannot be {@code null}.
+     * @param userCallbackContext is the context for the callback. Can be any value.
+     * @param blockBlobUploader is the uploader that splits the stream in blocks. Cannot be {@code null}.
+     * @throws IllegalArgumentException if one of the parameters is not valid.
+     */
+    FileUploadTask(String blobName, InputStream inputStream, long streamLength, HttpsTransportManager httpsTransportManager,
+                    IotHubEventCallback userCallback, Object userCallbackContext, BlockBlobUploader blockBlobUploader) throws IllegalArgumentException
     {
         /* Codes_SRS_FILEUPLOADTASK_21_001: [If the `blobName` is null or empty, the constructor shall throw IllegalArgumentException.] */
         if((blobName == null) || blobName.isEmpty())
@@ -114,6 +132,12 @@ public final class FileUploadTask implements Runnable
             throw new IllegalArgumentException("statusCallback is null");
         }
 
+        /* Codes_SRS_FILEUPLOADTASK_21_034: [If the `blockBlobUploader` is null, the constructor shall throw IllegalArgumentException.] */
+        if(blockBlobUploader == null)
+        {
+            throw new IllegalArgumentException("blockBlobUploader is null");
+        }
+
         /* Codes_SRS_FILEUPLOADTASK_21_006: [The constructor shall store all the provided parameters.] */
         this.blobName = blobName;
         this.inputStream = inputStream;
@@ -121,6 +145,7 @@ public final class FileUploadTask implements Runnable
         this.userCallback = userCallback;
         this.userCallbackContext = userCallbackContext;
         this.httpsTransportManager = httpsTransportManager;
+        this.blockBlobUploader = blockBlobUploader;
 
         logger = new CustomLogger(this.getClass());
         logger.LogInfo("HttpsFileUpload object is created successfully, method name is %s ", logger.getMethodName());
@@ -155,7 +180,8 @@ public final class FileUploadTask implements Runnable
             /* Codes_SRS_FILEUPLOADTASK_21_019: [The run shall create a `CloudBlockBlob` using the `blobUri`.] */
                 CloudBlockBlob blob = new CloudBlockBlob(blobURI);
             /* Codes_SRS_FILEUPLOADTASK_21_020: [The run shall upload the `inputStream` with the `streamLength` to the created `CloudBlockBlob`.] */
-                blob.upload(inputStream, streamLength);
+            /* Codes_SRS_FILEUPLOADTASK_21_035: [The run shall upload the `inputStream` in blocks, using the `blockBlobUploader`.] */
+                blockBlobUploader.upload(blob, inputStream, streamLength);
             /* Codes_SRS_FILEUPLOADTASK_21_021: [If the upload to blob succeed, the run shall create a notification the IoT Hub with `isSuccess` equals true, `statusCode` equals 0.] */
                 fileUploadStatusParser = new FileUploadStatusParser(correlationId, true, 0, "Succeed to upload to storage.");
                 resultStatus = IotHubStatusCode.OK;
@@ -216,7 +242,8 @@ public final class FileUploadTask implements Runnable
         message.setIotHubMethod(IotHubMethod.POST);
 
         ResponseMessage responseMessage;
-        synchronized (FILE_UPLOAD_LOCK)
+        // the uploads of the same client share its transport, the uploads of the other clients do not wait for it
+        synchronized (httpsTransportManager)
         {
             /* Codes_SRS_FILEUPLOADTASK_21_010: [The run shall open the connection with the iothub, using the httpsTransportManager.] */
             httpsTransportManager.open();
@@ -253,7 +280,7 @@ public final class FileUploadTask implements Runnable
             message.setIotHubMethod(IotHubMethod.POST);
 
             ResponseMessage responseMessage;
-            synchronized (FILE_UPLOAD_LOCK)
+            synchronized (httpsTransportManager)
             {
             /* Codes_SRS_FILEUPLOADTASK_21_026: [The run shall open the connection with the iothub, using the httpsTransportManager.] */
                 httpsTransportManager.open();
@@ -16,9 +16,15 @@ import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URLEncoder;
 import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 /**
- * Provides a means to sign data for authentication purposes
+ * Provides a means to sign data for authentication purposes. Concurrent requests to sign the same data share a
+ * single request to the HSM, and recent signatures are cached.
  */
 public class HttpHsmSignatureProvider implements SignatureProvider
 {
@@ -27,9 +33,22 @@ public class HttpHsmSignatureProvider implements SignatureProvider
     private static final String DEFAULT_KEY_ID = "primary";
     private Mac defaultSignRequestAlgo = Mac.getInstance(MAC);
 
+    private static final int MAX_CACHED_SIGNATURES = 32;
+
     private String apiVersion;
     private HttpsHsmClient httpClient;
 
+    // The signed data holds the token expiry, so the cached signatures are only reused by the tokens that expire at
+    // the same time, and the oldest ones are evicted when the cache is full.
+    private final Map<String, FutureTask<String>> signatureCache = new LinkedHashMap<String, FutureTask<String>>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FutureTask<String>> eldest)
+        {
+            return this.size() > MAX_CACHED_SIGNATURES;
+        }
+    };
+
     /**
      * Constructor for an HttpHsmSignatureProvider but using the non-default api version
      * @param providerUri the uri for the signing provider
@@ -68,7 +87,7 @@ public class HttpHsmSignatureProvider implements SignatureProvider
      * @throws TransportException If the http client cannot reach the signing party
      * @throws URISyntaxException If the url for the signing party cannot be parsed
      */
-    public String sign(String keyName, String data, String generationId) throws IOException, TransportException, URISyntaxException, HsmException
+    public String sign(final String keyName, final String data, final String generationId) throws IOException, TransportException, URISyntaxException, HsmException
     {
         if (data == null || data.isEmpty())
         {
@@ -76,6 +95,84 @@ public class HttpHsmSignatureProvider implements SignatureProvider
             throw new IllegalArgumentException("Data cannot be null or empty");
         }
 
+        // Codes_SRS_HTTPHSMSIGNATUREPROVIDER_21_008: [If the same key, generation id and data were signed before, or
+        // are being signed by another thread, this function shall return that signature instead of sending a new sign
+        // request.]
+        String cacheKey = keyName + "\n" + generationId + "\n" + data;
+        FutureTask<String> signTask;
+        boolean isOwner = false;
+        synchronized (this.signatureCache)
+        {
+            signTask = this.signatureCache.get(cacheKey);
+            if (signTask == null)
+            {
+                signTask = new FutureTask<>(new Callable<String>()
+                {
+                    @Override
+                    public String call() throws Exception
+                    {
+                        return requestSignature(keyName, data, generationId);
+                    }
+                });
+                this.signatureCache.put(cacheKey, signTask);
+                isOwner = true;
+            }
+        }
+
+        if (isOwner)
+        {
+            signTask.run();
+        }
+
+        try
+        {
+            return signTask.get();
+        }
+        catch (ExecutionException e)
+        {
+            // Codes_SRS_HTTPHSMSIGNATUREPROVIDER_21_009: [If the sign request fails, this function shall not cache the
+            // failure, and shall throw the exception of the sign request.]
+            synchronized (this.signatureCache)
+            {
+                if (this.signatureCache.get(cacheKey) == signTask)
+                {
+                    this.signatureCache.remove(cacheKey);
+                }
+            }
+
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            else if (cause instanceof TransportException)
+            {
+                throw (TransportException) cause;
+            }
+            else if (cause instanceof URISyntaxException)
+            {
+                throw (URISyntaxException) cause;
+            }
+            else if (cause instanceof HsmException)
+            {
+                throw (HsmException) cause;
+            }
+            else if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+
+            throw new IOException(cause);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the signature", e);
+        }
+    }
+
+    private String requestSignature(String keyName, String data, String generationId) throws IOException, TransportException, URISyntaxException, HsmException
+    {
         // Codes_SRS_HTTPHSMSIGNATUREPROVIDER_34_006: [This function shall create a signRequest for the hsm http client to sign, and shall return the utf-8 encoded result of that signing.]
         SignRequest signRequest = new SignRequest();
         signRequest.setAlgo(defaultSignRequestAlgo);
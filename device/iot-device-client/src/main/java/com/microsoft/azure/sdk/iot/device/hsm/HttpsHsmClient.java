@@ -13,20 +13,16 @@ import com.microsoft.azure.sdk.iot.device.hsm.parser.TrustBundleResponse;
 import com.microsoft.azure.sdk.iot.device.transport.https.HttpsMethod;
 import com.microsoft.azure.sdk.iot.device.transport.https.HttpsRequest;
 import com.microsoft.azure.sdk.iot.device.transport.https.HttpsResponse;
-import jnr.unixsocket.UnixSocketAddress;
-import jnr.unixsocket.UnixSocketChannel;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.StringReader;
 import java.net.*;
-import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 public class HttpsHsmClient
 {
     private String baseUrl;
     private String scheme;
+    private UnixSocketHttpConnection unixSocketConnection;
 
     private static final String HTTPS_SCHEME = "https";
     private static final String HTTP_SCHEME = "http";
@@ -111,7 +107,7 @@ public class HttpsHsmClient
         HttpsResponse response = sendRequestBasedOnScheme(HttpsMethod.POST, body, uri,pathBuilder.toString(), API_VERSION_QUERY_STRING_PREFIX + apiVersion);
 
         int responseCode = response.getStatus();
-        String responseBody = new String(response.getBody());
+        String responseBody = new String(response.getBody(), StandardCharsets.UTF_8);
         if (responseCode >= 200 && responseCode < 300)
         {
             // Codes_SRS_HSMHTTPCLIENT_34_004: [If the response from the http call is 200, this function shall return the SignResponse built from the response body json.]
@@ -157,7 +153,7 @@ public class HttpsHsmClient
         HttpsResponse response = sendRequestBasedOnScheme(HttpsMethod.GET, new byte[0], uri, pathBuilder.toString(), API_VERSION_QUERY_STRING_PREFIX + apiVersion);
 
         int statusCode = response.getStatus();
-        String body = response.getBody() != null ? new String(response.getBody()) : "";
+        String body = response.getBody() != null ? new String(response.getBody(), StandardCharsets.UTF_8) : "";
         if (statusCode >= 200 && statusCode < 300)
         {
             // Codes_SRS_HSMHTTPCLIENT_34_010: [If the response from the http request is 200, this function shall return the trust bundle response.]
@@ -233,72 +229,28 @@ public class HttpsHsmClient
     }
 
     /**
-     * Send an HTTP request over a unix domain socket
+     * Send an HTTP request over a unix domain socket. The connection to the socket is kept open between requests.
      * @param httpsRequest the request to send
      * @return the response from the HSM unit
      * @throws IOException If the unix socket cannot be reached
      */
     private HttpsResponse sendHttpRequestUsingUnixSocket(HttpsRequest httpsRequest, String httpRequestPath, String httpRequestQueryString, String unixSocketAddress) throws IOException
     {
-        UnixSocketChannel channel = null;
-        HttpsResponse response = null;
-        try
-        {
-            //write to socket
-            byte[] requestBytes = HttpsRequestResponseSerializer.serializeRequest(httpsRequest, httpRequestPath, httpRequestQueryString, unixSocketAddress);
-            UnixSocketAddress address = new UnixSocketAddress(unixSocketAddress);
-            channel = UnixSocketChannel.open(address);
-
-            channel.write(ByteBuffer.wrap(requestBytes));
-
-            if (httpsRequest.getBody() != null)
-            {
-                channel.write(ByteBuffer.wrap(httpsRequest.getBody()));
-            }
+        byte[] requestBytes = HttpsRequestResponseSerializer.serializeRequest(httpsRequest, httpRequestPath, httpRequestQueryString, unixSocketAddress, true);
 
-            //read response
-            String responseString = readResponseFromChannel(channel);
-            response = HttpsRequestResponseSerializer.deserializeResponse(new BufferedReader(new StringReader(responseString)));
-        }
-        finally
+        UnixSocketHttpConnection connection;
+        synchronized (this)
         {
-            if (channel != null)
+            // Codes_SRS_HSMHTTPCLIENT_21_013: [If the scheme of the provided url is Unix, this function shall reuse the
+            // same unix socket connection for all requests.]
+            if (this.unixSocketConnection == null)
             {
-                channel.close();
+                this.unixSocketConnection = new UnixSocketHttpConnection(unixSocketAddress);
             }
-        }
-
-        return response;
-    }
-
-    private String readResponseFromChannel(UnixSocketChannel channel) throws IOException
-    {
-        ByteBuffer buf = ByteBuffer.allocateDirect(10);
-        String response = "";
-        int numRead = 0;
-        while (numRead >= 0)
-        {
-            // read() places read bytes at the buffer's position so the
-            // position should always be properly set before calling read()
-            // This method sets the position to 0
-            buf.rewind();
-
-            // Read bytes from the channel
-            numRead = channel.read(buf);
 
-            // The read() method also moves the position so in order to
-            // read the new bytes, the buffer's position must be
-            // set back to 0
-            buf.rewind();
-
-            // Read bytes from ByteBuffer; see also
-            // e159 Getting Bytes from a ByteBuffer
-            for (int i=0; i<numRead; i++)
-            {
-                response = response + new String(new byte[] {buf.get()}, StandardCharsets.US_ASCII);
-            }
+            connection = this.unixSocketConnection;
         }
 
-        return response;
+        return connection.send(requestBytes, httpsRequest.getBody());
     }
 }
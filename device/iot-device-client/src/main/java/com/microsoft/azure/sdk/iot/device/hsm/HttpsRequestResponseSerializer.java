@@ -9,7 +9,9 @@ import com.microsoft.azure.sdk.iot.device.transport.https.HttpsRequest;
 import com.microsoft.azure.sdk.iot.device.transport.https.HttpsResponse;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
@@ -23,6 +25,10 @@ public class HttpsRequestResponseSerializer
     private static final String Protocol = "HTTP";
     private static final String HeaderSeparator = ":";
     private static final String VERSION = "1.1";
+    private static final String CONTENT_LENGTH_HEADER = "Content-Length";
+    private static final String TRANSFER_ENCODING_HEADER = "Transfer-Encoding";
+    private static final String CHUNKED_TRANSFER_ENCODING = "chunked";
+    private static final int READ_BUFFER_SIZE = 1024;
 
     /**
      * Serialize the provided request
@@ -35,6 +41,22 @@ public class HttpsRequestResponseSerializer
      * @throws IllegalArgumentException if the provided httpsRequest is null or has a null request url
      */
     public static byte[] serializeRequest(HttpsRequest httpsRequest, String path, String queryString, String host) throws IllegalArgumentException
+    {
+        return serializeRequest(httpsRequest, path, queryString, host, false);
+    }
+
+    /**
+     * Serialize the provided request
+     *
+     * @param httpsRequest the request to be serialized
+     * @param path the path for the request to invoke on (e.g. /trust-bundle)
+     * @param queryString the full querystring associated with the http request. Should not include the '?' character at the beginning
+     * @param host the host that the request is being made to
+     * @param keepAlive if true, the request asks the server to keep the connection open after the response
+     * @return the serialized request
+     * @throws IllegalArgumentException if the provided httpsRequest is null or has a null request url
+     */
+    public static byte[] serializeRequest(HttpsRequest httpsRequest, String path, String queryString, String host, boolean keepAlive) throws IllegalArgumentException
     {
         if (httpsRequest == null)
         {
@@ -66,7 +88,8 @@ public class HttpsRequestResponseSerializer
         // <header>: <value1>; <value2>
         // .]
 
-        httpsRequest.setHeaderField("Connection", "close");
+        // Codes_SRS_HTTPREQUESTRESPONSESERIALIZER_21_009: [If keepAlive is true, this function shall set the Connection header to keep-alive instead of close.]
+        httpsRequest.setHeaderField("Connection", keepAlive ? "keep-alive" : "close");
 
         String updatedPath = preProcessRequestPath(path);
 
@@ -172,6 +195,210 @@ public class HttpsRequestResponseSerializer
         return new HttpsResponse(statusCode, body, headerFields, errorReason);
     }
 
+    /**
+     * Deserialize the next response from a stream of bytes from an HSM party into an HttpsResponse. The status line
+     * and the headers are read up to the empty line that ends them, and the body is read as bytes, using the
+     * Content-Length or the chunked transfer encoding of the response, or up to the end of the stream if it has
+     * neither. The stream is left open and positioned after the response, so it can carry the next one.
+     * @param inputStream the stream to read from
+     * @return the deserialized response
+     * @throws IOException if the stream cannot be read from, or ends before the response is complete
+     */
+    public static HttpsResponse deserializeResponseFromStream(InputStream inputStream) throws IOException
+    {
+        if (inputStream == null)
+        {
+            // Codes_SRS_HTTPREQUESTRESPONSESERIALIZER_21_010: [If the provided input stream is null, this function shall throw an IllegalArgumentException.]
+            throw new IllegalArgumentException("input stream cannot be null");
+        }
+
+        // Codes_SRS_HTTPREQUESTRESPONSESERIALIZER_21_011: [This function shall parse the status line and headers with the
+        // same rules as the buffered reader deserializer.]
+        String statusLine = readAsciiLine(inputStream);
+        if (statusLine == null || statusLine.isEmpty())
+        {
+            throw new IOException("Response is empty.");
+        }
+
+        String[] statusLineParts = statusLine.split(SP, 3);
+        if (statusLineParts.length != 3)
+        {
+            throw new IOException("Status line is not valid.");
+        }
+
+        if (statusLineParts[0].split(ProtocolVersionSeparator).length != 2)
+        {
+            throw new IOException("Version is not valid " + statusLineParts[0] + ".");
+        }
+
+        int statusCode;
+        try
+        {
+            statusCode = Integer.valueOf(statusLineParts[1]);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IOException("StatusCode is not valid " + statusLineParts[1] + ".");
+        }
+
+        Map<String, List<String>> headerFields = new HashMap<>();
+        String contentLength = null;
+        String transferEncoding = null;
+        String header = readAsciiLine(inputStream);
+        while (header != null && !header.isEmpty())
+        {
+            int headerSeparatorPosition = header.indexOf(HeaderSeparator);
+            if (headerSeparatorPosition <= 0)
+            {
+                throw new IOException("Header is invalid " + header + ".");
+            }
+
+            String headerName = header.substring(0, headerSeparatorPosition).trim();
+            String headerValue = header.substring(headerSeparatorPosition + 1).trim();
+            if (headerName.equalsIgnoreCase(CONTENT_LENGTH_HEADER))
+            {
+                contentLength = headerValue;
+            }
+            else if (headerName.equalsIgnoreCase(TRANSFER_ENCODING_HEADER))
+            {
+                transferEncoding = headerValue;
+            }
+
+            List<String> headerValues = headerFields.get(headerName);
+            if (headerValues == null)
+            {
+                headerValues = new ArrayList<>();
+                headerFields.put(headerName, headerValues);
+            }
+
+            headerValues.add(headerValue);
+            header = readAsciiLine(inputStream);
+        }
+
+        if (header == null)
+        {
+            throw new IOException("Response ended before the end of the headers.");
+        }
+
+        // Codes_SRS_HTTPREQUESTRESPONSESERIALIZER_21_012: [This function shall read the body as bytes, using the chunked
+        // transfer encoding, the Content-Length, or the end of the stream, in this order.]
+        byte[] body;
+        if (transferEncoding != null && transferEncoding.toLowerCase().contains(CHUNKED_TRANSFER_ENCODING))
+        {
+            body = readChunkedBody(inputStream);
+        }
+        else if (contentLength != null)
+        {
+            try
+            {
+                body = readFully(inputStream, Integer.parseInt(contentLength));
+            }
+            catch (NumberFormatException e)
+            {
+                throw new IOException("Content-Length is not valid " + contentLength + ".");
+            }
+        }
+        else
+        {
+            body = readToEnd(inputStream);
+        }
+
+        return new HttpsResponse(statusCode, body, headerFields, statusLineParts[2].getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String readAsciiLine(InputStream inputStream) throws IOException
+    {
+        StringBuilder line = new StringBuilder();
+        int next = inputStream.read();
+        if (next < 0)
+        {
+            return null;
+        }
+
+        while (next >= 0 && next != '\n')
+        {
+            if (next != '\r')
+            {
+                line.append((char) next);
+            }
+
+            next = inputStream.read();
+        }
+
+        return line.toString();
+    }
+
+    private static byte[] readChunkedBody(InputStream inputStream) throws IOException
+    {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        while (true)
+        {
+            String chunkSizeLine = readAsciiLine(inputStream);
+            if (chunkSizeLine == null)
+            {
+                throw new IOException("Response ended before the end of the chunked body.");
+            }
+
+            int extensionPosition = chunkSizeLine.indexOf(';');
+            String chunkSizeString = (extensionPosition >= 0 ? chunkSizeLine.substring(0, extensionPosition) : chunkSizeLine).trim();
+            int chunkSize;
+            try
+            {
+                chunkSize = Integer.parseInt(chunkSizeString, 16);
+            }
+            catch (NumberFormatException e)
+            {
+                throw new IOException("Chunk size is not valid " + chunkSizeString + ".");
+            }
+
+            if (chunkSize == 0)
+            {
+                // skip the trailers up to the empty line that ends the body
+                String trailer = readAsciiLine(inputStream);
+                while (trailer != null && !trailer.isEmpty())
+                {
+                    trailer = readAsciiLine(inputStream);
+                }
+
+                return body.toByteArray();
+            }
+
+            body.write(readFully(inputStream, chunkSize));
+            readAsciiLine(inputStream);
+        }
+    }
+
+    private static byte[] readFully(InputStream inputStream, int length) throws IOException
+    {
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        while (offset < length)
+        {
+            int read = inputStream.read(bytes, offset, length - offset);
+            if (read < 0)
+            {
+                throw new IOException("Response ended before the end of the body.");
+            }
+
+            offset += read;
+        }
+
+        return bytes;
+    }
+
+    private static byte[] readToEnd(InputStream inputStream) throws IOException
+    {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        int read;
+        while ((read = inputStream.read(buffer)) >= 0)
+        {
+            body.write(buffer, 0, read);
+        }
+
+        return body.toByteArray();
+    }
+
     private static String preProcessRequestPath(String path)
     {
         String dnsSafePath = path.replace("[", "").replace("]", "");
@@ -19,6 +19,8 @@ import java.net.URISyntaxException;
  */
 public class IotHubSasTokenHsmAuthenticationProvider extends IotHubSasTokenWithRefreshAuthenticationProvider
 {
+    private static final long EXPIRY_BUCKETS_PER_TIME_TO_LIVE = 60;
+
     SignatureProvider signatureProvider;
     String generationId;
 
@@ -75,7 +77,11 @@ public class IotHubSasTokenHsmAuthenticationProvider extends IotHubSasTokenWithR
         {
             String audience = buildAudience(hostname, deviceId, moduleId);
 
+            // Codes_SRS_MODULEAUTHENTICATIONWITHHSM_21_007: [This function shall round the expiry up to a multiple of
+            // 1/60 of the time to live, so the tokens created close together sign the same data.]
+            long expiryBucketSeconds = Math.max(1, suggestedTimeToLive / EXPIRY_BUCKETS_PER_TIME_TO_LIVE);
             long expiresOn = (System.currentTimeMillis() / 1000) + suggestedTimeToLive;
+            expiresOn = ((expiresOn + expiryBucketSeconds - 1) / expiryBucketSeconds) * expiryBucketSeconds;
             String data = audience + "\n" + expiresOn;
             String signature = signatureProvider.sign(moduleId, data, generationId);
 
@@ -0,0 +1,135 @@
+/*
+ *  Copyright (c) Microsoft. All rights reserved.
+ *  Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.sdk.iot.device.hsm;
+
+import com.microsoft.azure.sdk.iot.device.transport.https.HttpsResponse;
+import jnr.unixsocket.UnixSocketAddress;
+import jnr.unixsocket.UnixSocketChannel;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+
+/**
+ * Keep alive HTTP/1.1 connection to a unix domain socket. The channel is opened on the first request and reused by
+ * the next ones, so each request costs a write and a read instead of a socket connection. The requests are sent one
+ * at a time, each one waits for the response of the previous one.
+ */
+public class UnixSocketHttpConnection implements Closeable
+{
+    private static final String CONNECTION_HEADER = "connection";
+    private static final String CLOSE_CONNECTION = "close";
+    private static final int READ_BUFFER_SIZE = 4096;
+
+    private final String unixSocketAddress;
+    private UnixSocketChannel channel;
+    private InputStream inputStream;
+
+    /**
+     * Constructor
+     * @param unixSocketAddress the path of the unix domain socket
+     */
+    public UnixSocketHttpConnection(String unixSocketAddress)
+    {
+        if (unixSocketAddress == null || unixSocketAddress.isEmpty())
+        {
+            // Codes_SRS_UNIXSOCKETHTTPCONNECTION_21_001: [If the provided address is null or empty, this constructor shall throw an IllegalArgumentException.]
+            throw new IllegalArgumentException("unix socket address cannot be null or empty");
+        }
+
+        this.unixSocketAddress = unixSocketAddress;
+    }
+
+    /**
+     * Send a serialized request and read its response
+     * @param requestBytes the serialized request line and headers
+     * @param body the body of the request, may be null
+     * @return the response to the request
+     * @throws IOException if the unix socket cannot be reached, or the response cannot be read
+     */
+    public synchronized HttpsResponse send(byte[] requestBytes, byte[] body) throws IOException
+    {
+        // Codes_SRS_UNIXSOCKETHTTPCONNECTION_21_002: [If the channel is not open, this function shall open it.]
+        boolean reusedChannel = this.channel != null;
+        try
+        {
+            return this.sendOnChannel(requestBytes, body);
+        }
+        catch (IOException e)
+        {
+            this.close();
+            if (!reusedChannel)
+            {
+                throw e;
+            }
+
+            // Codes_SRS_UNIXSOCKETHTTPCONNECTION_21_003: [If the request fails on a reused channel, this function shall
+            // close it and send the request once more on a new channel, as the server may have closed the idle one.]
+            return this.sendOnChannel(requestBytes, body);
+        }
+    }
+
+    /**
+     * Close the channel, if it is open. The next request opens a new one.
+     */
+    @Override
+    public synchronized void close()
+    {
+        // Codes_SRS_UNIXSOCKETHTTPCONNECTION_21_005: [This function shall close the channel and ignore any failure to close it.]
+        if (this.channel != null)
+        {
+            try
+            {
+                this.channel.close();
+            }
+            catch (IOException e)
+            {
+                // the channel is discarded anyway
+            }
+
+            this.channel = null;
+            this.inputStream = null;
+        }
+    }
+
+    private HttpsResponse sendOnChannel(byte[] requestBytes, byte[] body) throws IOException
+    {
+        if (this.channel == null)
+        {
+            this.channel = UnixSocketChannel.open(new UnixSocketAddress(this.unixSocketAddress));
+            this.inputStream = new BufferedInputStream(Channels.newInputStream(this.channel), READ_BUFFER_SIZE);
+        }
+
+        writeFully(this.channel, requestBytes);
+        if (body != null && body.length > 0)
+        {
+            writeFully(this.channel, body);
+        }
+
+        HttpsResponse response = HttpsRequestResponseSerializer.deserializeResponseFromStream(this.inputStream);
+
+        // Codes_SRS_UNIXSOCKETHTTPCONNECTION_21_004: [If the response asks to close the connection, this function shall
+        // close the channel after reading the response.]
+        if (CLOSE_CONNECTION.equalsIgnoreCase(response.getHeaderFields().get(CONNECTION_HEADER)))
+        {
+            this.close();
+        }
+
+        return response;
+    }
+
+    private static void writeFully(UnixSocketChannel channel, byte[] bytes) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+    }
+}
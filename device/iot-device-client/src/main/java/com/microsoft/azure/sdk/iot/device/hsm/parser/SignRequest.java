@@ -5,9 +5,9 @@
 
 package com.microsoft.azure.sdk.iot.device.hsm.parser;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
+import com.microsoft.azure.sdk.iot.deps.serializer.SerializerRegistry;
 import com.microsoft.azure.sdk.iot.deps.util.Base64;
 
 import javax.crypto.Mac;
@@ -59,7 +59,7 @@ public class SignRequest
 
     public String toJson()
     {
-        return new GsonBuilder().create().toJson(this);
+        return SerializerRegistry.getGson().toJson(this);
     }
 
     //empty constructor for Gson to use
@@ -5,9 +5,9 @@
 
 package com.microsoft.azure.sdk.iot.device.hsm.parser;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
+import com.microsoft.azure.sdk.iot.deps.serializer.SerializerRegistry;
 
 /**
  * The json parser for the response from an HSM that contains the certificates to be trusted
@@ -27,7 +27,7 @@ public class TrustBundleResponse
     public static TrustBundleResponse fromJson(String json)
     {
         //Codes_SRS_TRUSTBUNDLERESPONSE_34_003: [This constructor shall create a new TrustBundleResponse from json.]
-        TrustBundleResponse response = new GsonBuilder().create().fromJson(json, TrustBundleResponse.class);
+        TrustBundleResponse response = SerializerRegistry.getGson().fromJson(json, TrustBundleResponse.class);
 
         if (response == null || response.certificates == null || response.certificates.isEmpty())
         {
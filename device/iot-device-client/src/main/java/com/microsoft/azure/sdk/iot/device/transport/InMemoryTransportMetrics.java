@@ -0,0 +1,67 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.transport;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps the transport metrics in memory, so the application can read them at any time. The counters are atomic
+ * and the latencies are recorded in {@link LatencyHistogram}s, so updating the metrics never takes a lock.
+ */
+public final class InMemoryTransportMetrics implements TransportMetrics
+{
+    private final AtomicLongArray counters = new AtomicLongArray(TransportCounter.values().length);
+    private final Map<TransportLatency, LatencyHistogram> latencies = new EnumMap<>(TransportLatency.class);
+
+    /**
+     * Constructor.
+     */
+    public InMemoryTransportMetrics()
+    {
+        for (TransportLatency latency : TransportLatency.values())
+        {
+            this.latencies.put(latency, new LatencyHistogram());
+        }
+    }
+
+    @Override
+    public void increment(TransportCounter counter, long delta)
+    {
+        // Codes_SRS_INMEMORYTRANSPORTMETRICS_21_001: [The function shall add the delta to the counter.]
+        this.counters.addAndGet(counter.ordinal(), delta);
+    }
+
+    @Override
+    public void recordLatency(TransportLatency latency, long latencyMillis)
+    {
+        // Codes_SRS_INMEMORYTRANSPORTMETRICS_21_002: [The function shall record the latency in the histogram of its type.]
+        this.latencies.get(latency).record(latencyMillis);
+    }
+
+    /**
+     * Getter for the current value of a counter.
+     *
+     * @param counter the counter to read.
+     * @return the sum of all increments of the counter.
+     */
+    public long getCounter(TransportCounter counter)
+    {
+        // Codes_SRS_INMEMORYTRANSPORTMETRICS_21_003: [The function shall return the current value of the counter.]
+        return this.counters.get(counter.ordinal());
+    }
+
+    /**
+     * Getter for the histogram of a latency.
+     *
+     * @param latency the latency to read.
+     * @return the histogram with all recorded values of the latency, in milliseconds.
+     */
+    public LatencyHistogram getLatency(TransportLatency latency)
+    {
+        // Codes_SRS_INMEMORYTRANSPORTMETRICS_21_004: [The function shall return the histogram of the latency.]
+        return this.latencies.get(latency);
+    }
+}
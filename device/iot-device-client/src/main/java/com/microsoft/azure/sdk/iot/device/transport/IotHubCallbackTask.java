@@ -0,0 +1,72 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.transport;
+
+import com.microsoft.azure.sdk.iot.device.CustomLogger;
+
+/**
+ * Invokes the user callbacks on completed requests. Meant to be used with an
+ * executor that continuously calls run(), separated from the executor that sends
+ * the messages, so a slow callback does not delay the send pipeline.
+ */
+public final class IotHubCallbackTask implements Runnable
+{
+    private static final String THREAD_NAME = "azure-iot-sdk-IotHubCallbackTask";
+    private final IotHubTransport transport;
+    private volatile Thread runningThread = null;
+
+    /**
+     * Private logger for class
+     */
+    private final CustomLogger logger = new CustomLogger(this.getClass());
+
+    public IotHubCallbackTask(IotHubTransport transport)
+    {
+        if (transport == null)
+        {
+            // Codes_SRS_IOTHUBCALLBACKTASK_21_001: [The constructor shall throw IllegalArgumentException if the provided transport is null.]
+            logger.LogError("IotHubCallbackTask constructor called with null value for parameter transport");
+            throw new IllegalArgumentException("Parameter 'transport' must not be null");
+        }
+
+        // Codes_SRS_IOTHUBCALLBACKTASK_21_002: [The constructor shall save the transport.]
+        this.transport = transport;
+    }
+
+    /**
+     * Tells if the caller is running inside a callback invoked by this task, for example a callback that closes
+     * the client. Such a caller cannot wait for this task to finish.
+     *
+     * @return {@code true} if this task is running on the current thread.
+     */
+    public boolean isRunningOnCurrentThread()
+    {
+        // Codes_SRS_IOTHUBCALLBACKTASK_21_005: [The function shall return true only if the task is running on the current thread.]
+        return this.runningThread == Thread.currentThread();
+    }
+
+    public void run()
+    {
+        Thread.currentThread().setName(THREAD_NAME);
+        this.runningThread = Thread.currentThread();
+
+        logger.LogTrace("Now invoking all queued callbacks");
+
+        try
+        {
+            // Codes_SRS_IOTHUBCALLBACKTASK_21_003: [The function shall invoke all callbacks on the transport's callback queue.]
+            this.transport.invokeCallbacks();
+        }
+        // Codes_SRS_IOTHUBCALLBACKTASK_21_004: [The function shall not crash because of any error or exception thrown by the transport or by the callbacks.]
+        catch (Throwable e)
+        {
+            logger.LogError(e.toString() + ": " + e.getMessage());
+            logger.LogDebug("Exception on invoking queued callbacks", e);
+        }
+        finally
+        {
+            this.runningThread = null;
+        }
+    }
+}
@@ -6,8 +6,9 @@ package com.microsoft.azure.sdk.iot.device.transport;
 import com.microsoft.azure.sdk.iot.device.CustomLogger;
 
 /**
- * Sends batched messages and invokes callbacks on completed requests. Meant to
- * be used with an executor that continuously calls run().
+ * Sends batched messages. Meant to be used with an executor that continuously
+ * calls run(). The callbacks on completed requests are invoked by the
+ * {@link IotHubCallbackTask}.
  */
 public final class IotHubSendTask implements Runnable
 {
@@ -43,10 +44,6 @@ public final class IotHubSendTask implements Runnable
             // Codes_SRS_IOTHUBSENDTASK_11_002: [The function shall send all messages on the transport queue.]
             this.transport.sendMessages();
 
-            logger.LogTrace("Now invoking all queued callbacks");
-            // Codes_SRS_IOTHUBSENDTASK_11_003: [The function shall invoke all callbacks on the transport's callback queue.]
-            this.transport.invokeCallbacks();
-
             logger.LogTrace("Successfully send all queued messages to IoT Hub");
         }
         // Codes_SRS_IOTHUBSENDTASK_11_005: [The function shall not crash because of an IOException thrown by the transport.]
@@ -13,14 +13,26 @@ import com.microsoft.azure.sdk.iot.device.transport.amqps.AmqpsIotHubConnection;
 import com.microsoft.azure.sdk.iot.device.transport.amqps.exceptions.AmqpConnectionThrottledException;
 import com.microsoft.azure.sdk.iot.device.transport.amqps.exceptions.AmqpUnauthorizedAccessException;
 import com.microsoft.azure.sdk.iot.device.transport.https.HttpsIotHubConnection;
+import com.microsoft.azure.sdk.iot.device.transport.https.HttpsReceiveScheduler;
 import com.microsoft.azure.sdk.iot.device.transport.mqtt.MqttIotHubConnection;
 import com.microsoft.azure.sdk.iot.device.transport.mqtt.exceptions.MqttUnauthorizedException;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
@@ -31,11 +43,26 @@ import static java.util.concurrent.TimeUnit.NANOSECONDS;
 public class IotHubTransport implements IotHubListener
 {
     private static final int MAX_MESSAGES_TO_SEND_PER_THREAD = 10;
+    private static final int MAX_MESSAGES_TO_HANDLE_PER_THREAD = 100;
+    private static final long MAX_MESSAGES_TO_HANDLE_TIME_SLICE_MILLIS = 100;
+    private static final long DEFAULT_MAX_HTTPS_RECEIVE_PERIOD_MILLIS = 25 * 60 * 1000; /*25 minutes*/
+    private static final int MAX_JOURNALED_PACKETS_IN_MEMORY = 100;
     private IotHubConnectionStatus connectionStatus;
     private IotHubTransportConnection iotHubTransportConnection;
 
-    /* Messages waiting to be sent to the IoT Hub. */
-    private final Queue<IotHubTransportPacket> waitingPacketsQueue = new ConcurrentLinkedQueue<>();
+    /* Messages waiting to be sent to the IoT Hub, in one lane for each message priority. */
+    private final Queue<IotHubTransportPacket> waitingPacketsQueue = new PrioritizedPacketQueue();
+
+    /* Telemetry messages accepted by addMessage that did not complete yet, limited by the outbound queue capacity. */
+    private final Map<IotHubTransportPacket, OutboundReservation> outboundPackets = new IdentityHashMap<>();
+    private long outboundBytes = 0;
+
+    /* Persists the outbound telemetry when the config has an outbound message store. */
+    private volatile MessageJournal messageJournal;
+
+    /* Journaled telemetry left on the disk until there is room in memory for it, by journal sequence number. */
+    private final SortedMap<Long, JournalBacklogEntry> journalBacklog = new TreeMap<>();
+    private int journaledPacketsInMemory = 0;
 
     /* Messages which are sent to the IoT Hub but did not receive ack yet. */
     private final Map<String, IotHubTransportPacket> inProgressPackets = new ConcurrentHashMap<>();
@@ -46,6 +73,9 @@ public class IotHubTransport implements IotHubListener
     /* Messages whose callbacks that are waiting to be invoked. */
     private final Queue<IotHubTransportPacket> callbackPacketsQueue = new ConcurrentLinkedQueue<>();
 
+    // Schedules the polls for cloud to device messages over HTTPS
+    private final HttpsReceiveScheduler httpsReceiveScheduler = new HttpsReceiveScheduler(DEFAULT_MAX_HTTPS_RECEIVE_PERIOD_MILLIS);
+
     /*Connection Status callback information (deprecated)*/
     private IotHubConnectionStateCallback stateCallback;
     private Object stateCallbackContext;
@@ -57,6 +87,9 @@ public class IotHubTransport implements IotHubListener
     //Lock on reading and writing on the inProgressPackets map
     final private Object inProgressMessagesLock = new Object();
 
+    //Lock on the outbound queue accounting, also used to wake up the callers blocked by a full outbound queue
+    final private Object outboundQueueLock = new Object();
+
     private DeviceClientConfig defaultConfig;
     private Queue<DeviceClientConfig> deviceClientConfigs;
 
@@ -118,6 +151,10 @@ public class IotHubTransport implements IotHubListener
                 //Codes_SRS_IOTHUBTRANSPORT_34_005: [If there was a packet in the inProgressPackets queue tied to the
                 // provided message, and the provided throwable is null, this function shall set the status of that
                 // packet to OK_EMPTY and add it to the callbacks queue.]
+                //Codes_SRS_IOTHUBTRANSPORT_21_026: [If the message was acknowledged, this function shall count it in the
+                // transport metrics and record the time since it was queued as the acknowledge latency.]
+                this.incrementMetric(TransportCounter.MESSAGES_ACKNOWLEDGED, 1);
+                this.recordLatencyMetric(TransportLatency.ACKNOWLEDGE, packet.getStartTimeMillis());
                 packet.setStatus(IotHubStatusCode.OK_EMPTY);
                 this.addToCallbackQueue(packet);
             }
@@ -165,6 +202,7 @@ public class IotHubTransport implements IotHubListener
             // exception, this function shall add that message to the receivedMessagesQueue.]
             logger.LogInfo("Message with hashcode %s is received from IotHub on %s, method name is onMessageReceived",
                     message.hashCode(), new Date());
+            this.countReceivedMessage(message);
             this.receivedMessagesQueue.add(message);
         }
         else if (e != null)
@@ -273,6 +311,10 @@ public class IotHubTransport implements IotHubListener
         this.defaultConfig = this.deviceClientConfigs.peek();
         this.taskScheduler = Executors.newScheduledThreadPool(1);
 
+        //Codes_SRS_IOTHUBTRANSPORT_21_017: [If the config has an outbound message store, this function shall open the
+        // message journal and add the sequence numbers of the messages recovered from it to the journal backlog.]
+        this.openMessageJournal();
+
         //Codes_SRS_IOTHUBTRANSPORT_34_019: [This function shall open the invoke the method openConnection.]
         openConnection();
     }
@@ -301,6 +343,10 @@ public class IotHubTransport implements IotHubListener
         //Codes_SRS_IOTHUBTRANSPORT_34_023: [This function shall invoke all callbacks.]
         this.invokeCallbacks();
 
+        //Codes_SRS_IOTHUBTRANSPORT_21_018: [This function shall close the message journal. The cancelled messages are
+        // not acknowledged in it, so they are sent again the next time the transport is opened.]
+        this.closeMessageJournal();
+
         if (this.taskScheduler != null)
         {
             this.taskScheduler.shutdown();
@@ -335,10 +381,174 @@ public class IotHubTransport implements IotHubListener
             throw new IllegalStateException("Cannot add a message when the transport is closed.");
         }
 
+        if (message instanceof BatchMessage && this.defaultConfig.getProtocol() != IotHubClientProtocol.HTTPS)
+        {
+            //Codes_SRS_IOTHUBTRANSPORT_21_030: [If the message is a batch and the protocol is not HTTPS, this function
+            // shall add each message of the batch to the waiting queue with a callback that invokes the provided
+            // callback once, when all of them completed.]
+            this.addBatchMessage((BatchMessage) message, callback, callbackContext);
+            return;
+        }
+
+        message = this.compressIfConfigured(message);
+
         //Codes_SRS_IOTHUBTRANSPORT_34_042: [This function shall build a transport packet from the provided message,
         // callback, and context and then add that packet to the waiting queue.]
         IotHubTransportPacket packet = new IotHubTransportPacket(message, callback, callbackContext, null, System.currentTimeMillis());
-        this.waitingPacketsQueue.add(packet);
+
+        List<IotHubTransportPacket> droppedPackets = new LinkedList<>();
+        if (this.reserveOutboundCapacity(packet, message, droppedPackets))
+        {
+            this.queueAcceptedPacket(packet, message);
+
+            //Codes_SRS_IOTHUBTRANSPORT_21_024: [This function shall count the messages accepted in the outbound queue
+            // in the transport metrics.]
+            this.incrementMetric(TransportCounter.MESSAGES_QUEUED, 1);
+        }
+        else
+        {
+            //Codes_SRS_IOTHUBTRANSPORT_21_009: [If the outbound queue is full and the overflow policy cannot make room
+            // for the message, this function shall add the packet to the callback queue with status
+            // MESSAGE_CANCELLED_QUEUE_FULL instead of the waiting queue.]
+            logger.LogError("The outbound queue is full, the message is rejected, method name is %s ", logger.getMethodName());
+            packet.setStatus(IotHubStatusCode.MESSAGE_CANCELLED_QUEUE_FULL);
+            this.addToCallbackQueue(packet);
+        }
+
+        this.cancelDroppedPackets(droppedPackets);
+    }
+
+    /**
+     * Adds the messages of a batch to the transport queue as separate packets. MQTT has no batch and the AMQP
+     * connection sends one message per transfer, so the IoT Hub receives the messages of the batch one by one,
+     * pipelined without waiting for each acknowledgement. The batch is atomic in the outbound queue: the room for all
+     * its messages is reserved at once, or the whole batch is rejected, and the overflow policy drops it as a unit.
+     *
+     * @param batchMessage the batch to be sent.
+     * @param callback the callback to be invoked once, when all messages of the batch completed.
+     * @param callbackContext the context to be passed in when the callback is invoked.
+     */
+    private void addBatchMessage(BatchMessage batchMessage, IotHubEventCallback callback, Object callbackContext)
+    {
+        List<Message> nestedMessages = batchMessage.getNestedMessages();
+        BatchCompletion batchCompletion = new BatchCompletion(nestedMessages.size(), callback, callbackContext);
+        long startTimeMillis = System.currentTimeMillis();
+
+        List<Message> messages = new ArrayList<>(nestedMessages.size());
+        List<IotHubTransportPacket> packets = new ArrayList<>(nestedMessages.size());
+        for (Message nestedMessage : nestedMessages)
+        {
+            Message message = this.compressIfConfigured(nestedMessage);
+            messages.add(message);
+            packets.add(new IotHubTransportPacket(message, batchCompletion, null, null, startTimeMillis));
+        }
+
+        List<IotHubTransportPacket> droppedPackets = new LinkedList<>();
+        if (this.reserveOutboundCapacity(packets, messages, batchCompletion, droppedPackets))
+        {
+            for (int i = 0; i < packets.size(); i++)
+            {
+                this.queueAcceptedPacket(packets.get(i), messages.get(i));
+            }
+
+            this.incrementMetric(TransportCounter.MESSAGES_QUEUED, packets.size());
+        }
+        else
+        {
+            //Codes_SRS_IOTHUBTRANSPORT_21_041: [If the outbound queue cannot make room for all messages of the batch,
+            // this function shall add none of them to the waiting queue, and shall add a single packet with the batch
+            // to the callback queue with status MESSAGE_CANCELLED_QUEUE_FULL.]
+            logger.LogError("The outbound queue is full, the batch of %d messages is rejected, method name is %s ", packets.size(), logger.getMethodName());
+            IotHubTransportPacket batchPacket = new IotHubTransportPacket(batchMessage, callback, callbackContext, null, startTimeMillis);
+            batchPacket.setStatus(IotHubStatusCode.MESSAGE_CANCELLED_QUEUE_FULL);
+            this.addToCallbackQueue(batchPacket);
+        }
+
+        this.cancelDroppedPackets(droppedPackets);
+    }
+
+    private Message compressIfConfigured(Message message)
+    {
+        MessageCompression compression = this.defaultConfig.getMessageCompression();
+        if (compression == null || message instanceof IotHubTransportMessage)
+        {
+            return message;
+        }
+
+        //Codes_SRS_IOTHUBTRANSPORT_21_032: [If the config has a message compression, this function shall queue a
+        // copy of the telemetry messages with the compressed body, before they are reserved in the outbound queue
+        // and journaled, and shall not change the provided message.]
+        return MessageCompressor.compressedCopy(message, compression, this.defaultConfig.getMessageCompressionThresholdBytes());
+    }
+
+    /**
+     * Journals the packet that holds room in the outbound queue, and adds it to the waiting queue or leaves it on
+     * the disk.
+     * @param packet the accepted packet
+     * @param message the message in the packet
+     */
+    private void queueAcceptedPacket(IotHubTransportPacket packet, Message message)
+    {
+        //Codes_SRS_IOTHUBTRANSPORT_21_019: [If the message journal is open, this function shall append the
+        // telemetry messages to it before adding them to the waiting queue.]
+        this.appendToMessageJournal(packet, message);
+        if (!this.moveToJournalBacklog(packet))
+        {
+            this.waitingPacketsQueue.add(packet);
+        }
+    }
+
+    private void cancelDroppedPackets(List<IotHubTransportPacket> droppedPackets)
+    {
+        //Codes_SRS_IOTHUBTRANSPORT_21_010: [This function shall add the packets dropped by the overflow policy to the
+        // callback queue with status MESSAGE_CANCELLED_QUEUE_FULL.]
+        for (IotHubTransportPacket droppedPacket : droppedPackets)
+        {
+            logger.LogError("The outbound queue is full, a waiting message is dropped, method name is %s ", logger.getMethodName());
+            droppedPacket.setStatus(IotHubStatusCode.MESSAGE_CANCELLED_QUEUE_FULL);
+            this.addToCallbackQueue(droppedPacket);
+        }
+    }
+
+    /**
+     * Getter for the number of messages sent to the IoT Hub that were not acknowledged yet.
+     *
+     * @return the number of messages in flight.
+     */
+    public int getInFlightMessageCount()
+    {
+        //Codes_SRS_IOTHUBTRANSPORT_21_023: [This function shall return the number of messages sent that are waiting
+        // for the acknowledgement of the IoT Hub.]
+        return this.inProgressPackets.size();
+    }
+
+    /**
+     * Getter for the number of telemetry messages accepted by this transport that did not complete yet. It includes
+     * the messages waiting to be sent, in progress, and waiting for a retry. Twin and method messages are not counted.
+     *
+     * @return the number of messages in the outbound queue.
+     */
+    public int getOutboundQueueMessageCount()
+    {
+        synchronized (this.outboundQueueLock)
+        {
+            //Codes_SRS_IOTHUBTRANSPORT_21_011: [This function shall return the number of messages in the outbound queue.]
+            return this.outboundPackets.size() + this.journalBacklog.size();
+        }
+    }
+
+    /**
+     * Getter for the number of body bytes of the telemetry messages accepted by this transport that did not complete yet.
+     *
+     * @return the number of body bytes in the outbound queue.
+     */
+    public long getOutboundQueueBytes()
+    {
+        synchronized (this.outboundQueueLock)
+        {
+            //Codes_SRS_IOTHUBTRANSPORT_21_012: [This function shall return the number of body bytes in the outbound queue.]
+            return this.outboundBytes;
+        }
     }
 
     /**
@@ -355,10 +565,20 @@ public class IotHubTransport implements IotHubListener
             return;
         }
 
+        //Codes_SRS_IOTHUBTRANSPORT_21_020: [This function shall force the records written in the message journal
+        // since the last send to the disk.]
+        this.syncMessageJournal();
+
+        //Codes_SRS_IOTHUBTRANSPORT_21_037: [This function shall read the journaled messages left on the disk into the
+        // waiting queue, in pages, while there are less than 100 journaled messages in memory.]
+        this.readJournalBacklog();
+
         int timeSlice = MAX_MESSAGES_TO_SEND_PER_THREAD;
 
         while (this.connectionStatus == IotHubConnectionStatus.CONNECTED && timeSlice-- > 0)
         {
+            //Codes_SRS_IOTHUBTRANSPORT_21_022: [This function shall dequeue the waiting packets by weighted priority,
+            // so a backlog of low priority messages does not delay the higher priority ones.]
             IotHubTransportPacket packet = waitingPacketsQueue.poll();
             if (packet != null)
             {
@@ -399,12 +619,40 @@ public class IotHubTransport implements IotHubListener
         }
     }
 
+    /**
+     * Getter for the number of completed requests that are waiting for their callbacks to be invoked. A number
+     * that keeps growing means that the user callbacks are slower than the rate of completed requests.
+     *
+     * @return the number of callbacks waiting to be invoked.
+     */
+    public int getPendingCallbackCount()
+    {
+        //Codes_SRS_IOTHUBTRANSPORT_21_006: [This function shall return the number of packets in the callback queue.]
+        return this.callbackPacketsQueue.size();
+    }
+
+    /**
+     * Getter for the number of received messages that are waiting for the message callback. A number
+     * that keeps growing means that the message callback is slower than the rate of received messages.
+     *
+     * @return the number of received messages waiting to be handled.
+     */
+    public int getPendingReceivedMessageCount()
+    {
+        //Codes_SRS_IOTHUBTRANSPORT_21_007: [This function shall return the number of messages in the received messages queue.]
+        return this.receivedMessagesQueue.size();
+    }
+
     /**
      * <p>
-     * Invokes the message callback if a message is found and
-     * responds to the IoT Hub on how the processed message should be
+     * Invokes the message callback for the received messages and
+     * responds to the IoT Hub on how each processed message should be
      * handled by the IoT Hub.
      * </p>
+     * <p>
+     * The received messages are drained in bursts, bounded by a maximum number of messages
+     * and a maximum time per call, so the receive rate is not limited by the receive period.
+     * </p>
      * If no message callback is set, the function will do nothing.
      *
      * @throws DeviceClientException if the server could not be reached.
@@ -418,12 +666,30 @@ public class IotHubTransport implements IotHubListener
             {
                 //Codes_SRS_IOTHUBTRANSPORT_34_047: [If this object's connection status is CONNECTED and is using HTTPS,
                 // this function shall invoke addReceivedMessagesOverHttpToReceivedQueue.]
-                addReceivedMessagesOverHttpToReceivedQueue();
+                //Codes_SRS_IOTHUBTRANSPORT_21_001: [If this object is using HTTPS, this function shall only poll the
+                // IoT Hub for messages when the https receive scheduler says that the next poll is due.]
+                if (this.httpsReceiveScheduler.isPollDue())
+                {
+                    addReceivedMessagesOverHttpToReceivedQueue();
+                }
             }
 
-            IotHubTransportMessage receivedMessage = this.receivedMessagesQueue.poll();
-            if (receivedMessage != null)
+            int timeSlice = MAX_MESSAGES_TO_HANDLE_PER_THREAD;
+            long timeSliceEndMillis = System.currentTimeMillis() + MAX_MESSAGES_TO_HANDLE_TIME_SLICE_MILLIS;
+
+            //Codes_SRS_IOTHUBTRANSPORT_21_005: [This function shall continue to dequeue and acknowledge received
+            // messages until the queue is empty, the connection status isn't CONNECTED, 100 messages have been
+            // handled, or the time slice of 100 milliseconds expired.]
+            while (this.connectionStatus == IotHubConnectionStatus.CONNECTED
+                    && timeSlice-- > 0
+                    && System.currentTimeMillis() < timeSliceEndMillis)
             {
+                IotHubTransportMessage receivedMessage = this.receivedMessagesQueue.poll();
+                if (receivedMessage == null)
+                {
+                    break;
+                }
+
                 //Codes_SRS_IOTHUBTRANSPORT_34_048: [If this object's connection status is CONNECTED and there is a
                 // received message in the queue, this function shall acknowledge the received message
                 this.acknowledgeReceivedMessage(receivedMessage);
@@ -431,6 +697,19 @@ public class IotHubTransport implements IotHubListener
         }
     }
 
+    /**
+     * Sets the maximum interval between polls for cloud to device messages when the transport uses HTTPS and
+     * there are no messages to receive.
+     *
+     * @param maxReceivePeriodInMilliseconds the maximum interval in milliseconds.
+     * @throws IllegalArgumentException if the provided interval is zero or negative.
+     */
+    public void setMaxHttpsReceivePeriodInMilliseconds(long maxReceivePeriodInMilliseconds) throws IllegalArgumentException
+    {
+        //Codes_SRS_IOTHUBTRANSPORT_21_004: [This function shall set the maximum period of the https receive scheduler.]
+        this.httpsReceiveScheduler.setMaxPeriodMillis(maxReceivePeriodInMilliseconds);
+    }
+
     /**
      * Returns {@code true} if the transport has no more messages to handle,
      * and {@code false} otherwise.
@@ -488,7 +767,8 @@ public class IotHubTransport implements IotHubListener
     }
 
     /**
-     * Moves all packets from waiting queue and in progress map into callbacks queue with status MESSAGE_CANCELLED_ONCLOSE
+     * Moves all packets from waiting queue and in progress map into callbacks queue with status MESSAGE_CANCELLED_ONCLOSE.
+     * The cancelled packets are not acknowledged in the message journal.
      */
     private void cancelPendingPackets()
     {
@@ -498,7 +778,7 @@ public class IotHubTransport implements IotHubListener
         while (packet != null)
         {
             packet.setStatus(IotHubStatusCode.MESSAGE_CANCELLED_ONCLOSE);
-            this.addToCallbackQueue(packet);
+            this.addToCallbackQueue(packet, false);
 
             packet = this.waitingPacketsQueue.poll();
         }
@@ -511,11 +791,47 @@ public class IotHubTransport implements IotHubListener
             {
                 IotHubTransportPacket inProgressPacket = packetEntry.getValue();
                 inProgressPacket.setStatus(IotHubStatusCode.MESSAGE_CANCELLED_ONCLOSE);
-                this.addToCallbackQueue(inProgressPacket);
+                this.addToCallbackQueue(inProgressPacket, false);
             }
 
             inProgressPackets.clear();
         }
+
+        //Codes_SRS_IOTHUBTRANSPORT_21_035: [This function shall move the packets waiting for a retry to the callback
+        // queue with status MESSAGE_CANCELLED_ONCLOSE, releasing the room they held in the outbound queue.]
+        List<IotHubTransportPacket> retryingPackets;
+        List<JournalBacklogEntry> backlogEntries;
+        synchronized (this.outboundQueueLock)
+        {
+            retryingPackets = new ArrayList<>(this.outboundPackets.keySet());
+            backlogEntries = new ArrayList<>(this.journalBacklog.values());
+            for (JournalBacklogEntry backlogEntry : backlogEntries)
+            {
+                this.outboundBytes -= backlogEntry.bytes;
+            }
+
+            this.journalBacklog.clear();
+            this.outboundQueueLock.notifyAll();
+        }
+
+        for (IotHubTransportPacket retryingPacket : retryingPackets)
+        {
+            retryingPacket.setStatus(IotHubStatusCode.MESSAGE_CANCELLED_ONCLOSE);
+            this.addToCallbackQueue(retryingPacket, false);
+        }
+
+        //Codes_SRS_IOTHUBTRANSPORT_21_038: [This function shall invoke the callbacks of the journaled messages left on
+        // the disk with status MESSAGE_CANCELLED_ONCLOSE, keeping them in the message journal.]
+        for (JournalBacklogEntry backlogEntry : backlogEntries)
+        {
+            if (backlogEntry.callback != null)
+            {
+                // the message stays on the disk, the callback only needs the status and the context
+                IotHubTransportPacket backlogPacket = new IotHubTransportPacket(new Message(), backlogEntry.callback,
+                        backlogEntry.callbackContext, IotHubStatusCode.MESSAGE_CANCELLED_ONCLOSE, backlogEntry.startTimeMillis);
+                this.callbackPacketsQueue.add(backlogPacket);
+            }
+        }
     }
 
     /**
@@ -531,9 +847,20 @@ public class IotHubTransport implements IotHubListener
 
         if (messageCallback != null)
         {
-            //Codes_SRS_IOTHUBTRANSPORT_34_053: [This function shall execute the callback associate with the provided
-            // transport message with the provided message and its saved callback context.]
-            IotHubMessageResult result = messageCallback.execute(receivedMessage, messageCallbackContext);
+            IotHubMessageResult result;
+            if (this.decompressReceivedMessage(receivedMessage))
+            {
+                //Codes_SRS_IOTHUBTRANSPORT_34_053: [This function shall execute the callback associate with the provided
+                // transport message with the provided message and its saved callback context.]
+                result = messageCallback.execute(receivedMessage, messageCallbackContext);
+            }
+            else
+            {
+                //Codes_SRS_IOTHUBTRANSPORT_21_036: [If the body of the received message decompresses to more than the
+                // maximum decompressed size of the config, this function shall reject the message without executing
+                // the callback.]
+                result = IotHubMessageResult.REJECT;
+            }
 
             try
             {
@@ -558,13 +885,30 @@ public class IotHubTransport implements IotHubListener
     private void addReceivedMessagesOverHttpToReceivedQueue() throws TransportException
     {
         //since Http behaves synchronously, we need to check synchronously for any messages it may have received
-        IotHubTransportMessage transportMessage = ((HttpsIotHubConnection)this.iotHubTransportConnection).receiveMessage();
+        HttpsIotHubConnection httpsIotHubConnection = (HttpsIotHubConnection)this.iotHubTransportConnection;
+        IotHubTransportMessage transportMessage;
+        try
+        {
+            transportMessage = httpsIotHubConnection.receiveMessage();
+        }
+        catch (TransportException e)
+        {
+            //Codes_SRS_IOTHUBTRANSPORT_21_002: [If the http transport connection fails to receive, this function shall
+            // back off the next poll as if no message was received.]
+            this.httpsReceiveScheduler.onPollCompleted(false, 0);
+            throw e;
+        }
+
+        //Codes_SRS_IOTHUBTRANSPORT_21_003: [This function shall schedule the next poll with the receive result and the
+        // wait time requested by the IoT Hub.]
+        this.httpsReceiveScheduler.onPollCompleted(transportMessage != null, httpsIotHubConnection.getReceiveRetryAfterMillis());
 
         if (transportMessage != null)
         {
             //Codes_SRS_IOTHUBTRANSPORT_34_056: [If the saved http transport connection can receive a message, add it to receivedMessagesQueue.]
             logger.LogInfo("Message with hashcode %s is received from IotHub on %s, method name is addReceivedMessagesOverHttpToReceivedQueue",
                     transportMessage.hashCode(), new Date());
+            this.countReceivedMessage(transportMessage);
             this.receivedMessagesQueue.add(transportMessage);
         }
     }
@@ -785,7 +1129,11 @@ public class IotHubTransport implements IotHubListener
         @Override
         public void run()
         {
-            this.waitingPacketsQueue.add(this.transportPacket);
+            // the packet was already completed if the transport closed while it was waiting for the retry
+            if (this.transportPacket.getStatus() != IotHubStatusCode.MESSAGE_CANCELLED_ONCLOSE)
+            {
+                this.waitingPacketsQueue.add(this.transportPacket);
+            }
         }
     }
 
@@ -798,7 +1146,11 @@ public class IotHubTransport implements IotHubListener
     private void handleMessageException(IotHubTransportPacket packet, TransportException transportException)
     {
         packet.incrementRetryAttempt();
-        if (!this.hasOperationTimedOut(packet.getStartTimeMillis()) && transportException.isRetryable())
+
+        //Codes_SRS_IOTHUBTRANSPORT_21_039: [The journaled packets shall not time out, and if they fail with a retryable
+        // exception they shall be kept in the message journal, to be sent again the next time the transport is opened.]
+        boolean isJournaled = this.isJournaled(packet);
+        if ((isJournaled || !this.hasOperationTimedOut(packet.getStartTimeMillis())) && transportException.isRetryable())
         {
             RetryDecision retryDecision = this.defaultConfig.getRetryPolicy().getRetryDecision(packet.getCurrentRetryAttempt(), transportException);
             if (retryDecision.shouldRetry())
@@ -807,6 +1159,10 @@ public class IotHubTransport implements IotHubListener
                 // timed out, and the retry policy allows, this function shall schedule a task to add the provided
                 // packet to the waiting list after the amount of time determined by the retry policy.]
                 this.taskScheduler.schedule(new MessageRetryRunnable(this.waitingPacketsQueue, packet), (long) retryDecision.getDuration(), MILLISECONDS);
+
+                //Codes_SRS_IOTHUBTRANSPORT_21_027: [This function shall count the retries and the failed messages in the
+                // transport metrics.]
+                this.incrementMetric(TransportCounter.MESSAGE_RETRIES, 1);
                 return;
             }
         }
@@ -823,8 +1179,9 @@ public class IotHubTransport implements IotHubListener
             errorCode = IotHubStatusCode.THROTTLED;
         }
 
+        this.incrementMetric(TransportCounter.MESSAGES_FAILED, 1);
         packet.setStatus(errorCode);
-        this.addToCallbackQueue(packet);
+        this.addToCallbackQueue(packet, !(isJournaled && transportException.isRetryable()));
     }
 
     /**
@@ -853,6 +1210,12 @@ public class IotHubTransport implements IotHubListener
             // and save the response code.]
             IotHubStatusCode statusCode = this.iotHubTransportConnection.sendMessage(message);
 
+            //Codes_SRS_IOTHUBTRANSPORT_21_025: [This function shall count the sent messages and their body bytes in the
+            // transport metrics, and record the time since the message was queued as the send latency.]
+            this.incrementMetric(TransportCounter.MESSAGES_SENT, 1);
+            this.incrementMetric(TransportCounter.BYTES_SENT, getBodyLength(message));
+            this.recordLatencyMetric(TransportLatency.SEND, packet.getStartTimeMillis());
+
             if (statusCode != IotHubStatusCode.OK_EMPTY && statusCode != IotHubStatusCode.OK)
             {
                 //Codes_SRS_IOTHUBTRANSPORT_34_074: [If the response from sending is not OK or OK_EMPTY, this function
@@ -949,6 +1312,14 @@ public class IotHubTransport implements IotHubListener
 
             if (newConnectionStatus == IotHubConnectionStatus.CONNECTED)
             {
+                if (this.reconnectionAttemptStartTimeMillis != 0)
+                {
+                    //Codes_SRS_IOTHUBTRANSPORT_21_029: [If the connection status changed to CONNECTED at the end of a
+                    // reconnection, this function shall count it in the transport metrics and record its duration.]
+                    this.incrementMetric(TransportCounter.RECONNECTIONS, 1);
+                    this.recordLatencyMetric(TransportLatency.RECONNECT, this.reconnectionAttemptStartTimeMillis);
+                }
+
                 //Codes_SRS_IOTHUBTRANSPORT_28_007: [This function shall reset currentReconnectionAttempt and reconnectionAttemptStartTimeMillis if connection status is changed to CONNECTED.]
                 this.currentReconnectionAttempt = 0;
                 this.reconnectionAttemptStartTimeMillis = 0;
@@ -1028,6 +1399,20 @@ public class IotHubTransport implements IotHubListener
      */
     private void addToCallbackQueue(IotHubTransportPacket packet)
     {
+        this.addToCallbackQueue(packet, true);
+    }
+
+    /**
+     * Adds the packet to the callback queue if the provided packet has a callback. The packet is ignored otherwise.
+     * @param packet the packet to add
+     * @param acknowledgeInJournal false to keep the packet in the message journal, so it is sent again the next time
+     *                             the transport is opened
+     */
+    private void addToCallbackQueue(IotHubTransportPacket packet, boolean acknowledgeInJournal)
+    {
+        //Codes_SRS_IOTHUBTRANSPORT_21_013: [This function shall release the room that the packet held in the outbound queue.]
+        this.releaseOutboundCapacity(packet, acknowledgeInJournal);
+
         //Codes_SRS_IOTHUBTRANSPORT_28_002: [This function shall add the packet to the callback queue if it has a callback.]
         if (packet.getCallback() != null)
         {
@@ -1035,6 +1420,640 @@ public class IotHubTransport implements IotHubListener
         }
     }
 
+    /**
+     * Reserves room in the outbound queue for the provided packet, applying the overflow policy of the config
+     * if the queue is full. Twin and method messages do not hold room in the outbound queue.
+     * @param packet the packet to reserve room for
+     * @param message the message in the packet
+     * @param droppedPackets the list that receives the waiting packets dropped to make room
+     * @return true if the packet can be added to the waiting queue, false if it shall be rejected
+     */
+    private boolean reserveOutboundCapacity(IotHubTransportPacket packet, Message message, List<IotHubTransportPacket> droppedPackets)
+    {
+        if (message instanceof IotHubTransportMessage)
+        {
+            //Codes_SRS_IOTHUBTRANSPORT_21_034: [Twin and method messages shall be added to the waiting queue without
+            // being limited by, blocked by, or dropped by the outbound queue capacity.]
+            return true;
+        }
+
+        return this.reserveOutboundCapacity(Collections.singletonList(packet), Collections.singletonList(message), null, droppedPackets);
+    }
+
+    /**
+     * Reserves room in the outbound queue for all the provided packets at once, applying the overflow policy of the
+     * config if the queue is full. Either all packets hold room when this function returns, or none of them.
+     * @param packets the packets to reserve room for
+     * @param messages the messages in the packets, in the same order
+     * @param batch the batch that the packets belong to, which the overflow policy drops as a unit, or null
+     * @param droppedPackets the list that receives the waiting packets dropped to make room
+     * @return true if the packets can be added to the waiting queue, false if they shall be rejected
+     */
+    private boolean reserveOutboundCapacity(List<IotHubTransportPacket> packets, List<Message> messages, Object batch,
+                                            List<IotHubTransportPacket> droppedPackets)
+    {
+        List<OutboundReservation> reservations = new ArrayList<>(messages.size());
+        long bytes = 0;
+        int priority = 0;
+        for (Message message : messages)
+        {
+            OutboundReservation reservation = new OutboundReservation(getBodyLength(message), getOutboundPriority(message), batch);
+            reservations.add(reservation);
+            bytes += reservation.bytes;
+            priority = Math.max(priority, reservation.priority);
+        }
+
+        int maxMessages = this.defaultConfig.getMaxOutboundQueueMessages();
+        long maxBytes = this.defaultConfig.getMaxOutboundQueueBytes();
+        OutboundQueueOverflowPolicy policy = this.defaultConfig.getOutboundQueueOverflowPolicy();
+
+        synchronized (this.outboundQueueLock)
+        {
+            if ((maxBytes > 0 && bytes > maxBytes) || (maxMessages > 0 && reservations.size() > maxMessages))
+            {
+                // the messages would never fit in the queue
+                return false;
+            }
+
+            if (policy == OutboundQueueOverflowPolicy.BLOCK)
+            {
+                //Codes_SRS_IOTHUBTRANSPORT_21_014: [If the outbound queue is full and the policy is BLOCK, this
+                // function shall wait for room in the queue up to the block timeout of the config.]
+                long deadlineMillis = System.currentTimeMillis() + this.defaultConfig.getOutboundQueueBlockTimeoutMillis();
+                long remainingMillis = deadlineMillis - System.currentTimeMillis();
+                while (!this.hasOutboundCapacity(reservations.size(), bytes, maxMessages, maxBytes) && remainingMillis > 0)
+                {
+                    try
+                    {
+                        this.outboundQueueLock.wait(remainingMillis);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+
+                    remainingMillis = deadlineMillis - System.currentTimeMillis();
+                }
+            }
+            else if (policy == OutboundQueueOverflowPolicy.DROP_OLDEST || policy == OutboundQueueOverflowPolicy.DROP_LOWEST_PRIORITY)
+            {
+                //Codes_SRS_IOTHUBTRANSPORT_21_015: [If the outbound queue is full and the policy is DROP_OLDEST, this
+                // function shall drop the oldest waiting packets until there is room for the message.]
+                //Codes_SRS_IOTHUBTRANSPORT_21_016: [If the outbound queue is full and the policy is DROP_LOWEST_PRIORITY,
+                // this function shall drop the oldest waiting packets with the lowest priority, not higher than the
+                // priority of the message, until there is room for the message.]
+                while (!this.hasOutboundCapacity(reservations.size(), bytes, maxMessages, maxBytes))
+                {
+                    IotHubTransportPacket droppedPacket = this.removeDropCandidate(policy, priority);
+                    if (droppedPacket == null)
+                    {
+                        break;
+                    }
+
+                    this.dropWaitingPacket(droppedPacket, droppedPackets);
+                }
+            }
+
+            if (!this.hasOutboundCapacity(reservations.size(), bytes, maxMessages, maxBytes))
+            {
+                return false;
+            }
+
+            for (int i = 0; i < packets.size(); i++)
+            {
+                this.outboundPackets.put(packets.get(i), reservations.get(i));
+            }
+
+            this.outboundBytes += bytes;
+            return true;
+        }
+    }
+
+    /**
+     * Releases the room held by the packet removed from the waiting queue by the overflow policy, and drops with it
+     * the other waiting packets of the same batch. Must be called holding the outbound queue lock.
+     * @param droppedPacket the packet removed from the waiting queue
+     * @param droppedPackets the list that receives the dropped packets
+     */
+    private void dropWaitingPacket(IotHubTransportPacket droppedPacket, List<IotHubTransportPacket> droppedPackets)
+    {
+        OutboundReservation droppedReservation = this.removeOutboundReservation(droppedPacket);
+        this.acknowledgeInMessageJournal(droppedReservation);
+        droppedPackets.add(droppedPacket);
+
+        if (droppedReservation.batch == null)
+        {
+            return;
+        }
+
+        //Codes_SRS_IOTHUBTRANSPORT_21_042: [If the overflow policy drops a message of a batch, this function shall
+        // also drop the other messages of the batch that are still in the waiting queue.]
+        List<IotHubTransportPacket> batchPackets = new ArrayList<>();
+        for (IotHubTransportPacket waitingPacket : this.waitingPacketsQueue)
+        {
+            OutboundReservation reservation = this.outboundPackets.get(waitingPacket);
+            if (reservation != null && reservation.batch == droppedReservation.batch)
+            {
+                batchPackets.add(waitingPacket);
+            }
+        }
+
+        for (IotHubTransportPacket batchPacket : batchPackets)
+        {
+            // the send task may have taken the packet in the meantime, in which case it is sent
+            if (this.waitingPacketsQueue.remove(batchPacket))
+            {
+                this.acknowledgeInMessageJournal(this.removeOutboundReservation(batchPacket));
+                droppedPackets.add(batchPacket);
+            }
+        }
+    }
+
+    /**
+     * Releases the room held by the provided packet in the outbound queue, wakes up the blocked callers, and
+     * acknowledges the packet in the message journal if requested.
+     * Packets that do not hold room are ignored.
+     * @param packet the completed packet
+     * @param acknowledgeInJournal false to keep the packet in the message journal
+     */
+    private void releaseOutboundCapacity(IotHubTransportPacket packet, boolean acknowledgeInJournal)
+    {
+        OutboundReservation reservation;
+        synchronized (this.outboundQueueLock)
+        {
+            reservation = this.removeOutboundReservation(packet);
+            if (reservation != null)
+            {
+                this.outboundQueueLock.notifyAll();
+            }
+        }
+
+        //Codes_SRS_IOTHUBTRANSPORT_21_021: [This function shall acknowledge the completed packet in the message journal,
+        // except the packets cancelled by closing the transport and the journaled packets that failed with a retryable
+        // exception, which are sent again the next time the transport is opened.]
+        if (reservation != null && acknowledgeInJournal)
+        {
+            this.acknowledgeInMessageJournal(reservation);
+        }
+    }
+
+    /**
+     * Removes the reservation of the provided packet from the outbound queue. Must be called holding the outbound
+     * queue lock.
+     * @param packet the packet to remove
+     * @return the removed reservation, or null if the packet does not hold room in the outbound queue
+     */
+    private OutboundReservation removeOutboundReservation(IotHubTransportPacket packet)
+    {
+        OutboundReservation reservation = this.outboundPackets.remove(packet);
+        if (reservation != null)
+        {
+            this.outboundBytes -= reservation.bytes;
+            if (reservation.journalSequence >= 0)
+            {
+                this.journaledPacketsInMemory--;
+            }
+        }
+
+        return reservation;
+    }
+
+    private boolean isJournaled(IotHubTransportPacket packet)
+    {
+        synchronized (this.outboundQueueLock)
+        {
+            OutboundReservation reservation = this.outboundPackets.get(packet);
+            return reservation != null && reservation.journalSequence >= 0;
+        }
+    }
+
+    /**
+     * Opens the message journal if the config has an outbound message store and it is not open yet, and adds the
+     * messages recovered from it to the journal backlog, ahead of any new message. The recovered messages stay on
+     * the disk until the send task reads them.
+     * @throws TransportException if the message journal cannot be opened
+     */
+    private void openMessageJournal() throws TransportException
+    {
+        String storePath = this.defaultConfig.getOutboundMessageStorePath();
+        if (storePath == null || this.messageJournal != null)
+        {
+            return;
+        }
+
+        SortedMap<Long, Long> recoveredBodyLengths;
+        try
+        {
+            this.messageJournal = new MessageJournal(new File(storePath));
+            recoveredBodyLengths = this.messageJournal.getPendingBodyLengths();
+        }
+        catch (IOException e)
+        {
+            throw new TransportException("Cannot open the outbound message store", e);
+        }
+
+        logger.LogInfo("Recovered %s messages from the outbound message store, method name is %s ", recoveredBodyLengths.size(), logger.getMethodName());
+        long startTimeMillis = System.currentTimeMillis();
+        synchronized (this.outboundQueueLock)
+        {
+            for (Map.Entry<Long, Long> recoveredBodyLength : recoveredBodyLengths.entrySet())
+            {
+                // the recovered messages were accepted before, so they are not subject to the capacity
+                this.journalBacklog.put(recoveredBodyLength.getKey(),
+                        new JournalBacklogEntry(null, null, recoveredBodyLength.getValue(), startTimeMillis));
+                this.outboundBytes += recoveredBodyLength.getValue();
+            }
+        }
+    }
+
+    /**
+     * Moves the provided journaled packet to the journal backlog, releasing its message, if there are already
+     * enough journaled packets in memory. The packets in the backlog keep their room in the outbound queue.
+     * @param packet the packet accepted in the outbound queue
+     * @return true if the packet was moved to the backlog, false if it shall be added to the waiting queue
+     */
+    private boolean moveToJournalBacklog(IotHubTransportPacket packet)
+    {
+        synchronized (this.outboundQueueLock)
+        {
+            OutboundReservation reservation = this.outboundPackets.get(packet);
+            if (reservation == null || reservation.journalSequence < 0)
+            {
+                return false;
+            }
+
+            //Codes_SRS_IOTHUBTRANSPORT_21_040: [If there are 100 journaled messages in memory or older ones on the disk,
+            // this function shall leave the journaled message on the disk instead of adding it to the waiting queue.]
+            if (this.journalBacklog.isEmpty() && this.journaledPacketsInMemory < MAX_JOURNALED_PACKETS_IN_MEMORY)
+            {
+                return false;
+            }
+
+            this.outboundPackets.remove(packet);
+            this.journaledPacketsInMemory--;
+            this.journalBacklog.put(reservation.journalSequence, new JournalBacklogEntry(packet.getCallback(),
+                    packet.getContext(), reservation.bytes, packet.getStartTimeMillis()));
+            return true;
+        }
+    }
+
+    /**
+     * Reads the oldest messages of the journal backlog from the disk and adds them to the waiting queue, while there
+     * is room for them in memory.
+     */
+    private void readJournalBacklog()
+    {
+        MessageJournal journal = this.messageJournal;
+        if (journal == null)
+        {
+            return;
+        }
+
+        synchronized (this.outboundQueueLock)
+        {
+            int room = MAX_JOURNALED_PACKETS_IN_MEMORY - this.journaledPacketsInMemory;
+            if (room <= 0 || this.journalBacklog.isEmpty())
+            {
+                return;
+            }
+
+            List<Long> sequences = new ArrayList<>(room);
+            for (Long sequence : this.journalBacklog.keySet())
+            {
+                if (sequences.size() == room)
+                {
+                    break;
+                }
+
+                sequences.add(sequence);
+            }
+
+            SortedMap<Long, Message> messages;
+            try
+            {
+                messages = journal.readMessages(sequences);
+            }
+            catch (IOException e)
+            {
+                logger.LogError("Failed to read messages from the outbound message store: %s", e.getMessage());
+                return;
+            }
+
+            for (Long sequence : sequences)
+            {
+                JournalBacklogEntry backlogEntry = this.journalBacklog.remove(sequence);
+                Message message = messages.get(sequence);
+                if (message == null)
+                {
+                    // the message is no longer in the journal
+                    this.outboundBytes -= backlogEntry.bytes;
+                    this.outboundQueueLock.notifyAll();
+                    continue;
+                }
+
+                IotHubTransportPacket packet = new IotHubTransportPacket(message, backlogEntry.callback,
+                        backlogEntry.callbackContext, null, backlogEntry.startTimeMillis);
+                OutboundReservation reservation = new OutboundReservation(backlogEntry.bytes, getOutboundPriority(message), null);
+                reservation.journalSequence = sequence;
+                this.outboundPackets.put(packet, reservation);
+                this.journaledPacketsInMemory++;
+                this.waitingPacketsQueue.add(packet);
+            }
+        }
+    }
+
+    private void closeMessageJournal()
+    {
+        if (this.messageJournal != null)
+        {
+            try
+            {
+                this.messageJournal.close();
+            }
+            catch (IOException e)
+            {
+                logger.LogError("Failed to close the outbound message store: %s", e.getMessage());
+            }
+
+            this.messageJournal = null;
+        }
+    }
+
+    private void appendToMessageJournal(IotHubTransportPacket packet, Message message)
+    {
+        // twin and method messages are only meaningful while the device is connected, and the journal records
+        // a single message per packet, so the batches sent over HTTPS are not persisted
+        MessageJournal journal = this.messageJournal;
+        if (journal == null || message instanceof IotHubTransportMessage || message instanceof BatchMessage)
+        {
+            return;
+        }
+
+        try
+        {
+            long journalSequence = journal.append(message);
+            synchronized (this.outboundQueueLock)
+            {
+                OutboundReservation reservation = this.outboundPackets.get(packet);
+                if (reservation != null)
+                {
+                    reservation.journalSequence = journalSequence;
+                    this.journaledPacketsInMemory++;
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            // the message is still sent, it just does not survive a restart
+            logger.LogError("Failed to persist the message with id %s in the outbound message store: %s", message.getMessageId(), e.getMessage());
+        }
+    }
+
+    private void acknowledgeInMessageJournal(OutboundReservation reservation)
+    {
+        MessageJournal journal = this.messageJournal;
+        if (journal != null && reservation.journalSequence >= 0)
+        {
+            try
+            {
+                journal.acknowledge(reservation.journalSequence);
+            }
+            catch (IOException e)
+            {
+                logger.LogError("Failed to acknowledge a message in the outbound message store: %s", e.getMessage());
+            }
+        }
+    }
+
+    private void syncMessageJournal()
+    {
+        MessageJournal journal = this.messageJournal;
+        if (journal != null)
+        {
+            try
+            {
+                journal.sync();
+            }
+            catch (IOException e)
+            {
+                logger.LogError("Failed to sync the outbound message store: %s", e.getMessage());
+            }
+        }
+    }
+
+    private boolean hasOutboundCapacity(int messageCount, long bytes, int maxMessages, long maxBytes)
+    {
+        return (maxMessages <= 0 || this.outboundPackets.size() + this.journalBacklog.size() + messageCount <= maxMessages)
+                && (maxBytes <= 0 || this.outboundBytes + bytes <= maxBytes);
+    }
+
+    /**
+     * Removes from the waiting queue the packet that the overflow policy shall drop. Must be called holding the
+     * outbound queue lock.
+     * @param policy the overflow policy, DROP_OLDEST or DROP_LOWEST_PRIORITY
+     * @param maxPriority the highest priority that can be dropped
+     * @return the removed packet, or null if there is no packet to drop
+     */
+    private IotHubTransportPacket removeDropCandidate(OutboundQueueOverflowPolicy policy, int maxPriority)
+    {
+        while (true)
+        {
+            IotHubTransportPacket candidate = null;
+            int candidatePriority = Integer.MAX_VALUE;
+            long candidateStartTime = Long.MAX_VALUE;
+            for (IotHubTransportPacket waitingPacket : this.waitingPacketsQueue)
+            {
+                OutboundReservation reservation = this.outboundPackets.get(waitingPacket);
+                if (reservation == null)
+                {
+                    continue;
+                }
+
+                if (policy == OutboundQueueOverflowPolicy.DROP_OLDEST)
+                {
+                    // the lanes are FIFO but the oldest packet can be in any lane
+                    long startTime = waitingPacket.getStartTimeMillis();
+                    if (startTime < candidateStartTime
+                            || (startTime == candidateStartTime && reservation.priority < candidatePriority))
+                    {
+                        candidate = waitingPacket;
+                        candidatePriority = reservation.priority;
+                        candidateStartTime = startTime;
+                    }
+                }
+                else if (reservation.priority <= maxPriority && reservation.priority < candidatePriority)
+                {
+                    candidate = waitingPacket;
+                    candidatePriority = reservation.priority;
+                }
+            }
+
+            if (candidate == null)
+            {
+                return null;
+            }
+
+            // the send task may have taken the candidate in the meantime, in which case look for another one
+            if (this.waitingPacketsQueue.remove(candidate))
+            {
+                return candidate;
+            }
+        }
+    }
+
+    private static long getBodyLength(Message message)
+    {
+        if (message instanceof BatchMessage)
+        {
+            long length = 0;
+            for (Message nestedMessage : ((BatchMessage) message).getNestedMessages())
+            {
+                length += getBodyLength(nestedMessage);
+            }
+
+            return length;
+        }
+
+        byte[] body = message.getBytes();
+        return body == null ? 0 : body.length;
+    }
+
+    private static int getOutboundPriority(Message message)
+    {
+        MessagePriority priority = message.getPriority();
+        return (priority == null ? MessagePriority.NORMAL : priority).ordinal();
+    }
+
+    private void countReceivedMessage(Message message)
+    {
+        //Codes_SRS_IOTHUBTRANSPORT_21_028: [This function shall count the received messages and their body bytes in
+        // the transport metrics.]
+        this.incrementMetric(TransportCounter.MESSAGES_RECEIVED, 1);
+        this.incrementMetric(TransportCounter.BYTES_RECEIVED, getBodyLength(message));
+    }
+
+    private boolean decompressReceivedMessage(Message message)
+    {
+        //Codes_SRS_IOTHUBTRANSPORT_21_033: [This function shall decompress the received messages with a gzip or
+        // deflate content encoding, whether or not the config has a message compression. If the body is not valid
+        // for its content encoding, the message shall be delivered as it was received.]
+        try
+        {
+            MessageCompressor.decompress(message, this.defaultConfig.getMaxDecompressedMessageBytes());
+        }
+        catch (IOException e)
+        {
+            logger.LogError("The received message with content encoding %s cannot be decompressed, method name is %s ",
+                    message.getContentEncoding(), logger.getMethodName());
+        }
+        catch (IotHubSizeExceededException e)
+        {
+            logger.LogError("The received message with content encoding %s is bigger than %d bytes once decompressed, method name is %s ",
+                    message.getContentEncoding(), this.defaultConfig.getMaxDecompressedMessageBytes(), logger.getMethodName());
+            return false;
+        }
+
+        return true;
+    }
+
+    private void incrementMetric(TransportCounter counter, long delta)
+    {
+        TransportMetrics transportMetrics = this.defaultConfig.getTransportMetrics();
+        if (transportMetrics != null)
+        {
+            transportMetrics.increment(counter, delta);
+        }
+    }
+
+    /**
+     * Records in the transport metrics the time since the provided start time.
+     * @param latency the latency to record
+     * @param startTimeMillis the start of the measured operation, in milliseconds since epoch
+     */
+    private void recordLatencyMetric(TransportLatency latency, long startTimeMillis)
+    {
+        TransportMetrics transportMetrics = this.defaultConfig.getTransportMetrics();
+        if (transportMetrics != null)
+        {
+            transportMetrics.recordLatency(latency, System.currentTimeMillis() - startTimeMillis);
+        }
+    }
+
+    /**
+     * Completes a batch sent as separate messages. It invokes the callback of the batch once, when the last
+     * message of the batch completes, with OK_EMPTY or the status of the first message that failed. It is also the
+     * key that groups the packets of the batch in the outbound queue.
+     */
+    private static final class BatchCompletion implements IotHubEventCallback
+    {
+        private final AtomicInteger pendingMessages;
+        private final AtomicReference<IotHubStatusCode> failureStatus = new AtomicReference<>();
+        private final IotHubEventCallback callback;
+        private final Object callbackContext;
+
+        private BatchCompletion(int messageCount, IotHubEventCallback callback, Object callbackContext)
+        {
+            this.pendingMessages = new AtomicInteger(messageCount);
+            this.callback = callback;
+            this.callbackContext = callbackContext;
+        }
+
+        @Override
+        public void execute(IotHubStatusCode responseStatus, Object context)
+        {
+            if (responseStatus != IotHubStatusCode.OK && responseStatus != IotHubStatusCode.OK_EMPTY)
+            {
+                this.failureStatus.compareAndSet(null, responseStatus);
+            }
+
+            if (this.pendingMessages.decrementAndGet() == 0 && this.callback != null)
+            {
+                //Codes_SRS_IOTHUBTRANSPORT_21_031: [When all messages of the batch completed, the batch callback shall
+                // be invoked with OK_EMPTY, or with the status of the first message that failed.]
+                IotHubStatusCode failure = this.failureStatus.get();
+                this.callback.execute(failure == null ? IotHubStatusCode.OK_EMPTY : failure, this.callbackContext);
+            }
+        }
+    }
+
+    /**
+     * The room held by a packet in the outbound queue.
+     */
+    private static final class OutboundReservation
+    {
+        private final long bytes;
+        private final int priority;
+        private final Object batch;
+        private long journalSequence = -1;
+
+        private OutboundReservation(long bytes, int priority, Object batch)
+        {
+            this.bytes = bytes;
+            this.priority = priority;
+            this.batch = batch;
+        }
+    }
+
+    /**
+     * A journaled message left on the disk, with the callback to invoke when it completes.
+     */
+    private static final class JournalBacklogEntry
+    {
+        private final IotHubEventCallback callback;
+        private final Object callbackContext;
+        private final long bytes;
+        private final long startTimeMillis;
+
+        private JournalBacklogEntry(IotHubEventCallback callback, Object callbackContext, long bytes, long startTimeMillis)
+        {
+            this.callback = callback;
+            this.callbackContext = callbackContext;
+            this.bytes = bytes;
+            this.startTimeMillis = startTimeMillis;
+        }
+    }
+
     /**
      * Sleep for a length of time without interruption
      * @param sleepFor length of time to sleep for
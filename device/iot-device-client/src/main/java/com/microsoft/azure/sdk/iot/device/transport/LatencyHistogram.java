@@ -0,0 +1,146 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.transport;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free histogram of non negative values with bounded relative error, in the style of an HDR histogram.
+ * <p>
+ * The values from 0 to 7 have their own bucket. Above that, each power of two range is split in 8 buckets of the
+ * same width, so a value read from the histogram is never more than 12.5% above the recorded one. Recording a value
+ * is a few bit operations and an atomic increment, and it does not allocate.
+ */
+public final class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (Long.SIZE - 1 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value. Negative values are recorded as zero.
+     *
+     * @param value the value to record.
+     */
+    public void record(long value)
+    {
+        // Codes_SRS_LATENCYHISTOGRAM_21_001: [The function shall record negative values as zero.]
+        if (value < 0)
+        {
+            value = 0;
+        }
+
+        // Codes_SRS_LATENCYHISTOGRAM_21_002: [The function shall increment the bucket of the value, the count and the sum, and update the maximum without locks.]
+        this.buckets.incrementAndGet(bucketIndex(value));
+        this.count.incrementAndGet();
+        this.sum.addAndGet(value);
+
+        long currentMax = this.max.get();
+        while (value > currentMax && !this.max.compareAndSet(currentMax, value))
+        {
+            currentMax = this.max.get();
+        }
+    }
+
+    /**
+     * Getter for the number of recorded values.
+     *
+     * @return the number of recorded values.
+     */
+    public long getCount()
+    {
+        return this.count.get();
+    }
+
+    /**
+     * Getter for the largest recorded value.
+     *
+     * @return the largest recorded value, or zero if there is none.
+     */
+    public long getMax()
+    {
+        return this.max.get();
+    }
+
+    /**
+     * Getter for the mean of the recorded values.
+     *
+     * @return the mean of the recorded values, or zero if there is none.
+     */
+    public double getMean()
+    {
+        // Codes_SRS_LATENCYHISTOGRAM_21_003: [The function shall return the mean of the recorded values, or zero if there is none.]
+        long currentCount = this.count.get();
+        return currentCount == 0 ? 0 : (double) this.sum.get() / currentCount;
+    }
+
+    /**
+     * Returns the value at the provided percentile, as the upper bound of the bucket that holds it.
+     *
+     * @param percentile the percentile, from 0 to 100.
+     * @return the value at the percentile, or zero if there is no recorded value.
+     * @throws IllegalArgumentException if the percentile is not between 0 and 100.
+     */
+    public long getValueAtPercentile(double percentile) throws IllegalArgumentException
+    {
+        // Codes_SRS_LATENCYHISTOGRAM_21_004: [The function shall throw IllegalArgumentException if the percentile is not between 0 and 100.]
+        if (percentile < 0 || percentile > 100)
+        {
+            throw new IllegalArgumentException("percentile shall be between 0 and 100");
+        }
+
+        // Codes_SRS_LATENCYHISTOGRAM_21_005: [The function shall return the upper bound of the bucket that holds the value at the percentile, not above the maximum, or zero if there is no recorded value.]
+        long currentCount = this.count.get();
+        if (currentCount == 0)
+        {
+            return 0;
+        }
+
+        long currentMax = this.max.get();
+        long targetCount = Math.max(1, (long) Math.ceil(percentile / 100 * currentCount));
+        long cumulativeCount = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            cumulativeCount += this.buckets.get(i);
+            if (cumulativeCount >= targetCount)
+            {
+                return Math.min(bucketUpperBound(i), currentMax);
+            }
+        }
+
+        // values recorded while reading
+        return currentMax;
+    }
+
+    private static int bucketIndex(long value)
+    {
+        if (value < SUB_BUCKET_COUNT)
+        {
+            return (int) value;
+        }
+
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return SUB_BUCKET_COUNT + (exponent - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    private static long bucketUpperBound(int index)
+    {
+        if (index < SUB_BUCKET_COUNT)
+        {
+            return index;
+        }
+
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        long lowerBound = (SUB_BUCKET_COUNT + subBucket) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
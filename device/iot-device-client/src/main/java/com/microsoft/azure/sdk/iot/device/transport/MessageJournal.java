@@ -0,0 +1,730 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.transport;
+
+import com.microsoft.azure.sdk.iot.device.CustomLogger;
+import com.microsoft.azure.sdk.iot.device.Message;
+import com.microsoft.azure.sdk.iot.device.MessageProperty;
+import com.microsoft.azure.sdk.iot.device.MessagePriority;
+import com.microsoft.azure.sdk.iot.device.MessageType;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Append only journal on local disk for the outbound messages, so they survive a process restart.
+ * <p>
+ * The journal is a sequence of segment files. Each appended message gets a sequence number, and completing it
+ * appends an acknowledgement with the same number. Opening a journal reads all segments and finds the messages
+ * that were not acknowledged, in the order they were appended. Only the location of the pending messages is kept
+ * in memory, the messages themselves are read back from the disk in pages by {@link #readMessages(Collection)}.
+ * Writes are forced to the disk in batches, after a number of records or a period of time, whichever comes first.
+ * <p>
+ * Opening a journal keeps appending to its last segment while it is not full. When the active segment reaches its
+ * maximum size a new segment is started. Segments are deleted from the
+ * oldest, once all their messages are acknowledged. A segment that is mostly acknowledged is compacted by copying
+ * its pending messages to the active segment. The message id, correlation id, properties and body are kept; the
+ * expiry time is not.
+ */
+public final class MessageJournal implements Closeable
+{
+    private static final long DEFAULT_MAX_SEGMENT_BYTES = 16 * 1024 * 1024;
+    private static final int DEFAULT_SYNC_BATCH_SIZE = 100;
+    private static final long DEFAULT_SYNC_INTERVAL_MILLIS = 1000;
+
+    private static final String SEGMENT_FILE_PREFIX = "segment-";
+    private static final String SEGMENT_FILE_SUFFIX = ".log";
+    private static final byte RECORD_TYPE_MESSAGE = 1;
+    private static final byte RECORD_TYPE_ACK = 2;
+    // record type and sequence number
+    private static final int RECORD_HEADER_BYTES = 1 + 8;
+    // record length before the content and CRC after it
+    private static final int RECORD_FRAME_BYTES = 4 + 4;
+
+    private final File directory;
+    private final long maxSegmentBytes;
+    private final int syncBatchSize;
+    private final long syncIntervalMillis;
+
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final TreeMap<Long, RecordLocation> pendingRecords = new TreeMap<>();
+    private Segment activeSegment;
+    private FileChannel activeChannel;
+    private long nextSequence = 0;
+    private int unsyncedRecords = 0;
+    private long lastSyncMillis;
+    private boolean isClosed = false;
+
+    private final CustomLogger logger = new CustomLogger(this.getClass());
+
+    private static final class Segment
+    {
+        private final long id;
+        private final File file;
+        private long size;
+        private int pendingCount;
+        private long pendingBytes;
+
+        private Segment(long id, File file)
+        {
+            this.id = id;
+            this.file = file;
+        }
+    }
+
+    private static final class RecordLocation
+    {
+        private final Segment segment;
+        private final long offset;
+        private final int length;
+        private final long bodyLength;
+
+        private RecordLocation(Segment segment, long offset, int length, long bodyLength)
+        {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.bodyLength = bodyLength;
+        }
+    }
+
+    /**
+     * Opens the journal in the provided directory with the default segment size and sync policy.
+     *
+     * @param directory the directory of the segment files. It is created if it does not exist.
+     * @throws IllegalArgumentException if the directory is null.
+     * @throws IOException if the directory or the segments cannot be read or written.
+     */
+    public MessageJournal(File directory) throws IllegalArgumentException, IOException
+    {
+        this(directory, DEFAULT_MAX_SEGMENT_BYTES, DEFAULT_SYNC_BATCH_SIZE, DEFAULT_SYNC_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Opens the journal in the provided directory.
+     *
+     * @param directory the directory of the segment files. It is created if it does not exist.
+     * @param maxSegmentBytes the size after which a new segment is started.
+     * @param syncBatchSize the number of records written before they are forced to the disk.
+     * @param syncIntervalMillis the time after which the written records are forced to the disk.
+     * @throws IllegalArgumentException if the directory is null, or any of the limits is zero or negative.
+     * @throws IOException if the directory or the segments cannot be read or written.
+     */
+    public MessageJournal(File directory, long maxSegmentBytes, int syncBatchSize, long syncIntervalMillis) throws IllegalArgumentException, IOException
+    {
+        // Codes_SRS_MESSAGEJOURNAL_21_001: [The constructor shall throw IllegalArgumentException if the directory is null, or any of the limits is zero or negative.]
+        if (directory == null)
+        {
+            throw new IllegalArgumentException("directory cannot be null");
+        }
+
+        if (maxSegmentBytes <= 0 || syncBatchSize <= 0 || syncIntervalMillis <= 0)
+        {
+            throw new IllegalArgumentException("journal limits cannot be zero or negative");
+        }
+
+        // Codes_SRS_MESSAGEJOURNAL_21_002: [The constructor shall create the directory if it does not exist, and throw IOException if it cannot.]
+        if (!directory.isDirectory() && !directory.mkdirs())
+        {
+            throw new IOException("Cannot create the message journal directory " + directory.getPath());
+        }
+
+        this.directory = directory;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.syncBatchSize = syncBatchSize;
+        this.syncIntervalMillis = syncIntervalMillis;
+
+        // Codes_SRS_MESSAGEJOURNAL_21_003: [The constructor shall read the existing segments and recover the messages that were not acknowledged.]
+        recover();
+
+        // Codes_SRS_MESSAGEJOURNAL_21_004: [The constructor shall append the new records to the last segment, or to a new segment if there is no segment or the last one is full.]
+        if (this.segments.isEmpty() || this.segments.lastEntry().getValue().size >= this.maxSegmentBytes)
+        {
+            startSegment();
+        }
+        else
+        {
+            openSegment(this.segments.lastEntry().getValue());
+        }
+        this.lastSyncMillis = System.currentTimeMillis();
+        deleteCompletedSegments();
+    }
+
+    /**
+     * Getter for the messages in the journal that were not acknowledged. Only their sequence numbers and body
+     * lengths are returned, the messages stay on the disk.
+     *
+     * @return the body length of the pending messages by sequence number, in the order they were appended.
+     */
+    public synchronized SortedMap<Long, Long> getPendingBodyLengths()
+    {
+        // Codes_SRS_MESSAGEJOURNAL_21_005: [The function shall return the body length of the pending messages sorted by sequence number.]
+        SortedMap<Long, Long> bodyLengths = new TreeMap<>();
+        for (Map.Entry<Long, RecordLocation> entry : this.pendingRecords.entrySet())
+        {
+            bodyLengths.put(entry.getKey(), entry.getValue().bodyLength);
+        }
+
+        return bodyLengths;
+    }
+
+    /**
+     * Reads the pending messages with the provided sequence numbers from the disk.
+     *
+     * @param sequences the sequence numbers of the messages to read.
+     * @return the messages by sequence number. The sequence numbers that are not pending are not included.
+     * @throws IllegalArgumentException if the sequence numbers are null.
+     * @throws IOException if a record cannot be read, or the journal is closed.
+     */
+    public synchronized SortedMap<Long, Message> readMessages(Collection<Long> sequences) throws IllegalArgumentException, IOException
+    {
+        if (sequences == null)
+        {
+            throw new IllegalArgumentException("sequences cannot be null");
+        }
+
+        checkOpen();
+
+        // Codes_SRS_MESSAGEJOURNAL_21_019: [The function shall read the pending messages with the provided sequence
+        // numbers from their segments, and skip the sequence numbers that are not pending.]
+        SortedMap<Long, Message> messages = new TreeMap<>();
+        Segment openSegment = null;
+        FileChannel channel = null;
+        try
+        {
+            for (Long sequence : new TreeSet<>(sequences))
+            {
+                RecordLocation location = this.pendingRecords.get(sequence);
+                if (location == null)
+                {
+                    continue;
+                }
+
+                if (location.segment != openSegment)
+                {
+                    if (channel != null)
+                    {
+                        channel.close();
+                    }
+
+                    channel = FileChannel.open(location.segment.file.toPath(), StandardOpenOption.READ);
+                    openSegment = location.segment;
+                }
+
+                messages.put(sequence, decodeMessage(readPayload(channel, location)));
+            }
+        }
+        finally
+        {
+            if (channel != null)
+            {
+                channel.close();
+            }
+        }
+
+        return messages;
+    }
+
+    /**
+     * Appends the provided message to the journal.
+     *
+     * @param message the message to append.
+     * @return the sequence number of the message in the journal.
+     * @throws IllegalArgumentException if the message is null.
+     * @throws IOException if the record cannot be written, or the journal is closed.
+     */
+    public synchronized long append(Message message) throws IllegalArgumentException, IOException
+    {
+        // Codes_SRS_MESSAGEJOURNAL_21_006: [The function shall throw IllegalArgumentException if the message is null.]
+        if (message == null)
+        {
+            throw new IllegalArgumentException("message cannot be null");
+        }
+
+        checkOpen();
+
+        // Codes_SRS_MESSAGEJOURNAL_21_007: [The function shall append the message with the next sequence number and return that number.]
+        long sequence = this.nextSequence++;
+        byte[] body = message.getBytes();
+        RecordLocation location = writeRecord(RECORD_TYPE_MESSAGE, sequence, encodeMessage(message), body == null ? 0 : body.length);
+        addPendingRecord(sequence, location);
+        afterWrite();
+
+        return sequence;
+    }
+
+    /**
+     * Marks the message with the provided sequence number as completed, so it will not be recovered again.
+     *
+     * @param sequence the sequence number returned by {@link #append(Message)}.
+     * @throws IOException if the record cannot be written, or the journal is closed.
+     */
+    public synchronized void acknowledge(long sequence) throws IOException
+    {
+        checkOpen();
+
+        // Codes_SRS_MESSAGEJOURNAL_21_008: [The function shall do nothing if the sequence number is not pending.]
+        RecordLocation location = this.pendingRecords.remove(sequence);
+        if (location == null)
+        {
+            return;
+        }
+
+        // Codes_SRS_MESSAGEJOURNAL_21_009: [The function shall append an acknowledgement for the sequence number and release the record in its segment.]
+        location.segment.pendingCount--;
+        location.segment.pendingBytes -= location.length;
+        writeRecord(RECORD_TYPE_ACK, sequence, new byte[0], 0);
+        afterWrite();
+
+        deleteCompletedSegments();
+    }
+
+    /**
+     * Getter for the number of messages in the journal that were not acknowledged.
+     *
+     * @return the number of pending messages.
+     */
+    public synchronized int getPendingCount()
+    {
+        // Codes_SRS_MESSAGEJOURNAL_21_010: [The function shall return the number of messages not acknowledged.]
+        return this.pendingRecords.size();
+    }
+
+    /**
+     * Forces the records written since the last sync to the disk.
+     *
+     * @throws IOException if the records cannot be forced to the disk.
+     */
+    public synchronized void sync() throws IOException
+    {
+        // Codes_SRS_MESSAGEJOURNAL_21_011: [The function shall force the written records to the disk, if there is any record not forced yet.]
+        if (!this.isClosed && this.unsyncedRecords > 0)
+        {
+            this.activeChannel.force(false);
+            this.unsyncedRecords = 0;
+        }
+
+        this.lastSyncMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Forces the written records to the disk and closes the journal. The pending messages are recovered the next
+     * time a journal is opened in the same directory.
+     *
+     * @throws IOException if the records cannot be forced to the disk.
+     */
+    @Override
+    public synchronized void close() throws IOException
+    {
+        // Codes_SRS_MESSAGEJOURNAL_21_012: [The close shall force the written records to the disk and close the active segment.]
+        if (!this.isClosed)
+        {
+            try
+            {
+                sync();
+            }
+            finally
+            {
+                this.isClosed = true;
+                this.activeChannel.close();
+            }
+        }
+    }
+
+    private void checkOpen() throws IOException
+    {
+        // Codes_SRS_MESSAGEJOURNAL_21_013: [The functions shall throw IOException if the journal is closed.]
+        if (this.isClosed)
+        {
+            throw new IOException("The message journal is closed");
+        }
+    }
+
+    private void afterWrite() throws IOException
+    {
+        // Codes_SRS_MESSAGEJOURNAL_21_014: [The journal shall force the written records to the disk after syncBatchSize records or syncIntervalMillis milliseconds.]
+        this.unsyncedRecords++;
+        if (this.unsyncedRecords >= this.syncBatchSize
+                || System.currentTimeMillis() - this.lastSyncMillis >= this.syncIntervalMillis)
+        {
+            sync();
+        }
+
+        // Codes_SRS_MESSAGEJOURNAL_21_015: [The journal shall start a new segment when the active segment reaches maxSegmentBytes, and compact the old segments.]
+        if (this.activeSegment.size >= this.maxSegmentBytes)
+        {
+            sync();
+            this.activeChannel.close();
+            startSegment();
+            compactSegments();
+        }
+    }
+
+    private void addPendingRecord(long sequence, RecordLocation location)
+    {
+        RecordLocation previousLocation = this.pendingRecords.put(sequence, location);
+        if (previousLocation != null)
+        {
+            previousLocation.segment.pendingCount--;
+            previousLocation.segment.pendingBytes -= previousLocation.length;
+        }
+
+        location.segment.pendingCount++;
+        location.segment.pendingBytes += location.length;
+    }
+
+    private void startSegment() throws IOException
+    {
+        long id = this.segments.isEmpty() ? 0 : this.segments.lastKey() + 1;
+        Segment segment = new Segment(id, new File(this.directory, String.format("%s%020d%s", SEGMENT_FILE_PREFIX, id, SEGMENT_FILE_SUFFIX)));
+        this.segments.put(id, segment);
+        openSegment(segment);
+    }
+
+    private void openSegment(Segment segment) throws IOException
+    {
+        this.activeChannel = FileChannel.open(segment.file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segment.size = this.activeChannel.size();
+        this.activeSegment = segment;
+    }
+
+    private RecordLocation writeRecord(byte type, long sequence, byte[] payload, long bodyLength) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_FRAME_BYTES + RECORD_HEADER_BYTES + payload.length);
+        buffer.putInt(RECORD_HEADER_BYTES + payload.length);
+        buffer.put(type);
+        buffer.putLong(sequence);
+        buffer.put(payload);
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 4, RECORD_HEADER_BYTES + payload.length);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+
+        long offset = this.activeSegment.size;
+        while (buffer.hasRemaining())
+        {
+            this.activeChannel.write(buffer);
+        }
+
+        this.activeSegment.size += buffer.limit();
+        return new RecordLocation(this.activeSegment, offset, buffer.limit(), bodyLength);
+    }
+
+    /**
+     * Deletes the oldest segments while all their messages are acknowledged. Segments are only deleted from the
+     * oldest, because the acknowledgements in a segment may refer to the messages in the older ones.
+     */
+    private void deleteCompletedSegments()
+    {
+        while (this.segments.size() > 1)
+        {
+            Segment oldestSegment = this.segments.firstEntry().getValue();
+            if (oldestSegment == this.activeSegment || oldestSegment.pendingCount > 0)
+            {
+                return;
+            }
+
+            // Codes_SRS_MESSAGEJOURNAL_21_016: [The journal shall delete the oldest segments that have no pending messages.]
+            this.segments.remove(oldestSegment.id);
+            if (!oldestSegment.file.delete())
+            {
+                logger.LogError("Cannot delete the message journal segment %s", oldestSegment.file.getPath());
+            }
+        }
+    }
+
+    /**
+     * Copies the pending messages of the oldest segments to the active segment while they are less than half
+     * of the segment, so a few messages that never complete do not keep the old segments alive.
+     */
+    private void compactSegments() throws IOException
+    {
+        deleteCompletedSegments();
+
+        while (this.segments.size() > 1)
+        {
+            Segment oldestSegment = this.segments.firstEntry().getValue();
+            if (oldestSegment.pendingBytes * 2 > oldestSegment.size)
+            {
+                return;
+            }
+
+            // Codes_SRS_MESSAGEJOURNAL_21_017: [The journal shall copy the pending messages of a mostly acknowledged oldest segment to the active segment and delete it.]
+            List<Long> sequences = new ArrayList<>();
+            for (Map.Entry<Long, RecordLocation> entry : this.pendingRecords.entrySet())
+            {
+                if (entry.getValue().segment == oldestSegment)
+                {
+                    sequences.add(entry.getKey());
+                }
+            }
+
+            Collections.sort(sequences);
+            try (FileChannel channel = FileChannel.open(oldestSegment.file.toPath(), StandardOpenOption.READ))
+            {
+                for (Long sequence : sequences)
+                {
+                    RecordLocation location = this.pendingRecords.get(sequence);
+                    addPendingRecord(sequence, writeRecord(RECORD_TYPE_MESSAGE, sequence, readPayload(channel, location), location.bodyLength));
+                }
+            }
+
+            sync();
+            deleteCompletedSegments();
+        }
+    }
+
+    private void recover() throws IOException
+    {
+        File[] files = this.directory.listFiles();
+        if (files != null)
+        {
+            for (File file : files)
+            {
+                String name = file.getName();
+                if (name.startsWith(SEGMENT_FILE_PREFIX) && name.endsWith(SEGMENT_FILE_SUFFIX))
+                {
+                    try
+                    {
+                        long id = Long.parseLong(name.substring(SEGMENT_FILE_PREFIX.length(), name.length() - SEGMENT_FILE_SUFFIX.length()));
+                        this.segments.put(id, new Segment(id, file));
+                    }
+                    catch (NumberFormatException e)
+                    {
+                        logger.LogError("Ignoring the unexpected file %s in the message journal", name);
+                    }
+                }
+            }
+        }
+
+        for (Segment segment : this.segments.values())
+        {
+            readSegment(segment);
+        }
+    }
+
+    private void readSegment(Segment segment) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(segment.file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            // the records are read through the same channel that truncates the segment, so the file is opened once
+            DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            long offset = 0;
+            long fileSize = channel.size();
+            while (offset + RECORD_FRAME_BYTES + RECORD_HEADER_BYTES <= fileSize)
+            {
+                int contentLength = input.readInt();
+                if (contentLength < RECORD_HEADER_BYTES || offset + RECORD_FRAME_BYTES + contentLength > fileSize)
+                {
+                    break;
+                }
+
+                byte[] content = new byte[contentLength];
+                input.readFully(content);
+                int expectedCrc = input.readInt();
+                CRC32 crc = new CRC32();
+                crc.update(content);
+                if ((int) crc.getValue() != expectedCrc)
+                {
+                    break;
+                }
+
+                ByteBuffer header = ByteBuffer.wrap(content, 0, RECORD_HEADER_BYTES);
+                byte type = header.get();
+                long sequence = header.getLong();
+                int recordLength = RECORD_FRAME_BYTES + contentLength;
+                if (type == RECORD_TYPE_MESSAGE)
+                {
+                    addPendingRecord(sequence, new RecordLocation(segment, offset, recordLength, decodeBodyLength(content)));
+                }
+                else if (type == RECORD_TYPE_ACK)
+                {
+                    RecordLocation location = this.pendingRecords.remove(sequence);
+                    if (location != null)
+                    {
+                        location.segment.pendingCount--;
+                        location.segment.pendingBytes -= location.length;
+                    }
+                }
+
+                this.nextSequence = Math.max(this.nextSequence, sequence + 1);
+                offset += recordLength;
+            }
+
+            // Codes_SRS_MESSAGEJOURNAL_21_018: [The journal shall ignore and truncate a partially written record at the end of a segment.]
+            if (offset < fileSize)
+            {
+                logger.LogError("Truncating the incomplete record at the end of the message journal segment %s", segment.file.getPath());
+                channel.truncate(offset);
+            }
+
+            segment.size = offset;
+        }
+    }
+
+    /**
+     * Reads the payload of the record at the provided location, checking its CRC.
+     */
+    private static byte[] readPayload(FileChannel channel, RecordLocation location) throws IOException
+    {
+        ByteBuffer record = ByteBuffer.allocate(location.length);
+        while (record.hasRemaining())
+        {
+            if (channel.read(record, location.offset + record.position()) < 0)
+            {
+                throw new EOFException("The message journal record is truncated");
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 4, location.length - RECORD_FRAME_BYTES);
+        if ((int) crc.getValue() != record.getInt(location.length - 4))
+        {
+            throw new IOException("The message journal record is corrupted");
+        }
+
+        return Arrays.copyOfRange(record.array(), 4 + RECORD_HEADER_BYTES, location.length - 4);
+    }
+
+    private static byte[] encodeMessage(Message message) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+
+        writeString(output, message.getMessageId());
+        writeString(output, message.getCorrelationId());
+        writeString(output, message.getUserId());
+        writeString(output, message.getContentType());
+        writeString(output, message.getContentEncoding());
+        writeString(output, message.getOutputName());
+        writeString(output, message.getConnectionDeviceId());
+        writeString(output, message.getConnectionModuleId());
+        writeString(output, message.getMessageType() == null ? null : message.getMessageType().name());
+        writeString(output, message.getPriority().name());
+
+        MessageProperty[] properties = message.getProperties();
+        output.writeInt(properties.length);
+        for (MessageProperty property : properties)
+        {
+            output.writeUTF(property.getName());
+            output.writeUTF(property.getValue());
+        }
+
+        byte[] body = message.getBytes();
+        output.writeInt(body == null ? -1 : body.length);
+        if (body != null)
+        {
+            output.write(body);
+        }
+
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    private static Message decodeMessage(byte[] payload) throws IOException
+    {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload));
+
+        String messageId = readString(input);
+        String correlationId = readString(input);
+        String userId = readString(input);
+        String contentType = readString(input);
+        String contentEncoding = readString(input);
+        String outputName = readString(input);
+        String connectionDeviceId = readString(input);
+        String connectionModuleId = readString(input);
+        String messageType = readString(input);
+        String priority = readString(input);
+
+        Map<String, String> properties = new LinkedHashMap<>();
+        int propertyCount = input.readInt();
+        for (int i = 0; i < propertyCount; i++)
+        {
+            properties.put(input.readUTF(), input.readUTF());
+        }
+
+        int bodyLength = input.readInt();
+        Message message;
+        if (bodyLength < 0)
+        {
+            message = new Message();
+        }
+        else
+        {
+            byte[] body = new byte[bodyLength];
+            input.readFully(body);
+            message = new Message(body);
+        }
+
+        message.setMessageId(messageId);
+        message.setCorrelationId(correlationId);
+        message.setUserId(userId);
+        message.setContentType(contentType);
+        message.setContentEncoding(contentEncoding);
+        message.setOutputName(outputName);
+        message.setConnectionDeviceId(connectionDeviceId);
+        message.setConnectionModuleId(connectionModuleId);
+        if (messageType != null)
+        {
+            message.setMessageType(MessageType.valueOf(messageType));
+        }
+
+        if (priority != null)
+        {
+            message.setPriority(MessagePriority.valueOf(priority));
+        }
+
+        for (Map.Entry<String, String> property : properties.entrySet())
+        {
+            message.setProperty(property.getKey(), property.getValue());
+        }
+
+        return message;
+    }
+
+    /**
+     * Finds the body length of the encoded message in the provided record content without copying the body.
+     */
+    private static long decodeBodyLength(byte[] content) throws IOException
+    {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(content, RECORD_HEADER_BYTES, content.length - RECORD_HEADER_BYTES));
+
+        // message id, correlation id, user id, content type, content encoding, output name, connection device id,
+        // connection module id, message type and priority
+        for (int i = 0; i < 10; i++)
+        {
+            readString(input);
+        }
+
+        int propertyCount = input.readInt();
+        for (int i = 0; i < propertyCount; i++)
+        {
+            input.readUTF();
+            input.readUTF();
+        }
+
+        return Math.max(input.readInt(), 0);
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException
+    {
+        output.writeBoolean(value != null);
+        if (value != null)
+        {
+            output.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream input) throws IOException
+    {
+        return input.readBoolean() ? input.readUTF() : null;
+    }
+}
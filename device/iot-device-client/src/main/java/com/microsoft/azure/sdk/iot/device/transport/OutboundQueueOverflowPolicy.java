@@ -0,0 +1,34 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.transport;
+
+/**
+ * What the transport shall do with a new outbound message when the outbound queue reached its capacity.
+ */
+public enum OutboundQueueOverflowPolicy
+{
+    /**
+     * Block the caller until there is room in the queue or the block timeout expires. If the timeout expires,
+     * the message is rejected like in {@link #FAIL}.
+     */
+    BLOCK,
+
+    /**
+     * Reject the new message. Its callback is invoked with {@code MESSAGE_CANCELLED_QUEUE_FULL}.
+     */
+    FAIL,
+
+    /**
+     * Drop the oldest messages waiting to be sent, whatever their priority, to make room for the new one. The
+     * callbacks of the dropped messages are invoked with {@code MESSAGE_CANCELLED_QUEUE_FULL}.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Drop the oldest messages with the lowest priority, as long as it is not higher than the priority of the new
+     * message, see {@link com.microsoft.azure.sdk.iot.device.Message#getPriority()}. If there is no such message waiting
+     * to be sent, the new message is rejected like in {@link #FAIL}.
+     */
+    DROP_LOWEST_PRIORITY
+}
@@ -0,0 +1,248 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.transport;
+
+import com.microsoft.azure.sdk.iot.device.Message;
+import com.microsoft.azure.sdk.iot.device.MessagePriority;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Queue of packets waiting to be sent to the IoT Hub, with one FIFO lane for each {@link MessagePriority}.
+ * <p>
+ * Adding a packet is lock free. The poll drains the lanes in weighted round robin: in each round, every lane
+ * can give up to its weight in packets, starting from the highest priority. A lane that is empty does not use its
+ * share of the round, so a backlog in one lane never delays the packets of another lane, and the lower priority
+ * lanes still make progress while the higher ones are busy.
+ * <p>
+ * The iterator goes through the lanes from the highest to the lowest priority, and it is weakly consistent.
+ */
+public final class PrioritizedPacketQueue extends AbstractQueue<IotHubTransportPacket>
+{
+    private static final int DEFAULT_LOW_PRIORITY_WEIGHT = 1;
+    private static final int DEFAULT_NORMAL_PRIORITY_WEIGHT = 3;
+    private static final int DEFAULT_HIGH_PRIORITY_WEIGHT = 6;
+
+    private static final MessagePriority[] PRIORITIES = MessagePriority.values();
+
+    private final List<Queue<IotHubTransportPacket>> lanes = new ArrayList<>(PRIORITIES.length);
+    private final int[] weights = new int[PRIORITIES.length];
+    private final int[] credits = new int[PRIORITIES.length];
+
+    /**
+     * Constructor with the default weights, 6 high priority packets for each 3 normal and 1 low priority packets.
+     */
+    public PrioritizedPacketQueue()
+    {
+        this(DEFAULT_LOW_PRIORITY_WEIGHT, DEFAULT_NORMAL_PRIORITY_WEIGHT, DEFAULT_HIGH_PRIORITY_WEIGHT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param lowPriorityWeight the number of low priority packets in each round.
+     * @param normalPriorityWeight the number of normal priority packets in each round.
+     * @param highPriorityWeight the number of high priority packets in each round.
+     * @throws IllegalArgumentException if any of the weights is zero or negative.
+     */
+    public PrioritizedPacketQueue(int lowPriorityWeight, int normalPriorityWeight, int highPriorityWeight) throws IllegalArgumentException
+    {
+        // Codes_SRS_PRIORITIZEDPACKETQUEUE_21_001: [The constructor shall throw IllegalArgumentException if any of the weights is zero or negative.]
+        if (lowPriorityWeight <= 0 || normalPriorityWeight <= 0 || highPriorityWeight <= 0)
+        {
+            throw new IllegalArgumentException("The weights of the priority lanes shall be positive");
+        }
+
+        this.weights[MessagePriority.LOW.ordinal()] = lowPriorityWeight;
+        this.weights[MessagePriority.NORMAL.ordinal()] = normalPriorityWeight;
+        this.weights[MessagePriority.HIGH.ordinal()] = highPriorityWeight;
+        for (int i = 0; i < PRIORITIES.length; i++)
+        {
+            this.lanes.add(new ConcurrentLinkedQueue<IotHubTransportPacket>());
+        }
+    }
+
+    /**
+     * Returns the priority of the lane that holds the provided packet.
+     *
+     * @param packet the packet to classify.
+     * @return the priority of the packet message, or {@link MessagePriority#NORMAL} if it has none.
+     */
+    public static MessagePriority getPriority(IotHubTransportPacket packet)
+    {
+        // Codes_SRS_PRIORITIZEDPACKETQUEUE_21_002: [The function shall return the priority of the packet message, or NORMAL if the packet has no message or the message has no priority.]
+        Message message = packet.getMessage();
+        MessagePriority priority = message == null ? null : message.getPriority();
+        return priority == null ? MessagePriority.NORMAL : priority;
+    }
+
+    @Override
+    public boolean offer(IotHubTransportPacket packet)
+    {
+        // Codes_SRS_PRIORITIZEDPACKETQUEUE_21_003: [The function shall throw NullPointerException if the packet is null.]
+        if (packet == null)
+        {
+            throw new NullPointerException("packet cannot be null");
+        }
+
+        // Codes_SRS_PRIORITIZEDPACKETQUEUE_21_004: [The function shall add the packet to the tail of the lane of its priority.]
+        return this.lanes.get(getPriority(packet).ordinal()).offer(packet);
+    }
+
+    @Override
+    public IotHubTransportPacket poll()
+    {
+        synchronized (this.credits)
+        {
+            // Codes_SRS_PRIORITIZEDPACKETQUEUE_21_005: [The function shall return the head of the highest priority lane that did not use its weight in the current round.]
+            IotHubTransportPacket packet = this.pollLaneWithCredit();
+            if (packet == null && !this.isEmpty())
+            {
+                // Codes_SRS_PRIORITIZEDPACKETQUEUE_21_006: [If none of the lanes with packets has weight left in the current round, the function shall start a new round.]
+                System.arraycopy(this.weights, 0, this.credits, 0, this.weights.length);
+                packet = this.pollLaneWithCredit();
+            }
+
+            // Codes_SRS_PRIORITIZEDPACKETQUEUE_21_007: [The function shall return null if all lanes are empty.]
+            return packet;
+        }
+    }
+
+    @Override
+    public IotHubTransportPacket peek()
+    {
+        // Codes_SRS_PRIORITIZEDPACKETQUEUE_21_008: [The function shall return the head of the highest priority lane that is not empty, or null if all lanes are empty.]
+        for (int i = PRIORITIES.length - 1; i >= 0; i--)
+        {
+            IotHubTransportPacket packet = this.lanes.get(i).peek();
+            if (packet != null)
+            {
+                return packet;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public boolean remove(Object packet)
+    {
+        // Codes_SRS_PRIORITIZEDPACKETQUEUE_21_009: [The function shall remove the packet from its lane, and return true if it was in the queue.]
+        for (Queue<IotHubTransportPacket> lane : this.lanes)
+        {
+            if (lane.remove(packet))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        for (Queue<IotHubTransportPacket> lane : this.lanes)
+        {
+            if (!lane.isEmpty())
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int size()
+    {
+        // Codes_SRS_PRIORITIZEDPACKETQUEUE_21_010: [The function shall return the number of packets in all lanes.]
+        int size = 0;
+        for (Queue<IotHubTransportPacket> lane : this.lanes)
+        {
+            size += lane.size();
+        }
+
+        return size;
+    }
+
+    /**
+     * Returns the number of packets waiting in the lane of the provided priority.
+     *
+     * @param priority the priority of the lane.
+     * @return the number of packets in the lane.
+     */
+    public int size(MessagePriority priority)
+    {
+        // Codes_SRS_PRIORITIZEDPACKETQUEUE_21_011: [The function shall return the number of packets in the lane of the provided priority.]
+        return this.lanes.get(priority.ordinal()).size();
+    }
+
+    @Override
+    public Iterator<IotHubTransportPacket> iterator()
+    {
+        // Codes_SRS_PRIORITIZEDPACKETQUEUE_21_012: [The iterator shall go through the lanes from the highest to the lowest priority, in FIFO order in each lane.]
+        return new Iterator<IotHubTransportPacket>()
+        {
+            private int laneIndex = PRIORITIES.length - 1;
+            private Iterator<IotHubTransportPacket> laneIterator = lanes.get(laneIndex).iterator();
+            private Iterator<IotHubTransportPacket> lastIterator = null;
+
+            @Override
+            public boolean hasNext()
+            {
+                while (!this.laneIterator.hasNext() && this.laneIndex > 0)
+                {
+                    this.laneIndex--;
+                    this.laneIterator = lanes.get(this.laneIndex).iterator();
+                }
+
+                return this.laneIterator.hasNext();
+            }
+
+            @Override
+            public IotHubTransportPacket next()
+            {
+                if (!this.hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+
+                this.lastIterator = this.laneIterator;
+                return this.laneIterator.next();
+            }
+
+            @Override
+            public void remove()
+            {
+                if (this.lastIterator == null)
+                {
+                    throw new IllegalStateException();
+                }
+
+                this.lastIterator.remove();
+                this.lastIterator = null;
+            }
+        };
+    }
+
+    private IotHubTransportPacket pollLaneWithCredit()
+    {
+        for (int i = PRIORITIES.length - 1; i >= 0; i--)
+        {
+            if (this.credits[i] > 0)
+            {
+                IotHubTransportPacket packet = this.lanes.get(i).poll();
+                if (packet != null)
+                {
+                    this.credits[i]--;
+                    return packet;
+                }
+            }
+        }
+
+        return null;
+    }
+}
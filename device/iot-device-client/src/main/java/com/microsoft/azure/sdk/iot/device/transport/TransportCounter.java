@@ -0,0 +1,37 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.transport;
+
+/**
+ * The events counted by the transport and reported to its {@link TransportMetrics}.
+ */
+public enum TransportCounter
+{
+    /** Messages accepted in the outbound queue. */
+    MESSAGES_QUEUED,
+
+    /** Messages handed to the protocol connection, including the retries. */
+    MESSAGES_SENT,
+
+    /** Messages acknowledged by the IoT Hub. */
+    MESSAGES_ACKNOWLEDGED,
+
+    /** Messages that completed with an error after the retries, if any. */
+    MESSAGES_FAILED,
+
+    /** Retries scheduled for messages that failed to be sent. */
+    MESSAGE_RETRIES,
+
+    /** Messages received from the IoT Hub. */
+    MESSAGES_RECEIVED,
+
+    /** Message body bytes handed to the protocol connection. */
+    BYTES_SENT,
+
+    /** Message body bytes received from the IoT Hub. */
+    BYTES_RECEIVED,
+
+    /** Successful reconnections after a connection loss. */
+    RECONNECTIONS
+}
@@ -0,0 +1,19 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.transport;
+
+/**
+ * The latencies measured by the transport and reported to its {@link TransportMetrics}, in milliseconds.
+ */
+public enum TransportLatency
+{
+    /** From the message being accepted in the outbound queue until it is handed to the protocol connection. */
+    SEND,
+
+    /** From the message being accepted in the outbound queue until the IoT Hub acknowledges it. */
+    ACKNOWLEDGE,
+
+    /** From the start of a reconnection until the connection is established again. */
+    RECONNECT
+}
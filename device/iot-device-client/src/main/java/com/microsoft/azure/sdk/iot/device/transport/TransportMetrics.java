@@ -0,0 +1,30 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.transport;
+
+/**
+ * Receives the metrics of the transport. The transport calls it from its send, receive and reconnection threads,
+ * so the implementations shall be thread safe and shall not block.
+ * <p>
+ * {@link InMemoryTransportMetrics} is the default implementation, which keeps the metrics in memory to be read
+ * by the application.
+ */
+public interface TransportMetrics
+{
+    /**
+     * Adds the provided value to a counter.
+     *
+     * @param counter the counter to increment.
+     * @param delta the value to add, zero or positive.
+     */
+    void increment(TransportCounter counter, long delta);
+
+    /**
+     * Records a latency.
+     *
+     * @param latency the measured latency.
+     * @param latencyMillis the latency in milliseconds.
+     */
+    void recordLatency(TransportLatency latency, long latencyMillis);
+}
@@ -510,7 +510,8 @@ public final class AmqpsIotHubConnection extends BaseHandler implements IotHubTr
             if (this.useWebSockets)
             {
                 // Codes_SRS_AMQPSIOTHUBCONNECTION_25_049: [If websocket enabled the event handler shall configure the transport layer for websocket.]
-                WebSocketImpl webSocket = new WebSocketImpl();
+                // Codes_SRS_AMQPSIOTHUBCONNECTION_21_052: [The WebSocket layer shall use the maximum frame size of the config.]
+                WebSocketImpl webSocket = new WebSocketImpl(this.deviceClientConfig.getWebSocketMaxFrameSize());
                 webSocket.configure(this.hostName, WEB_SOCKET_PATH, 0, WEB_SOCKET_SUB_PROTOCOL, null, null);
                 ((TransportInternal)transport).addTransportLayer(webSocket);
             }
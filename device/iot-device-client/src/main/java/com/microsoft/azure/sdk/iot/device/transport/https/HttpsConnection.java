@@ -10,6 +10,7 @@ import com.microsoft.azure.sdk.iot.device.exceptions.TransportException;
 
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
@@ -349,10 +350,29 @@ public class HttpsConnection
             //Codes_SRS_HTTPSCONNECTION_25_025: [The function shall throw IllegalArgumentException if the context is null value.]
             throw new IllegalArgumentException("SSL context cannot be null");
         }
+
+        //Codes_SRS_HTTPSCONNECTION_25_024: [The function shall set the the SSL context with the given value.]
+        this.setSSLSocketFactory(sslContext.getSocketFactory());
+    }
+
+    /**
+     * Sets the socket factory used to open the TLS socket. To reuse kept alive TLS connections, get it from a
+     * {@link com.microsoft.azure.sdk.iot.deps.transport.http.SSLSocketFactoryCache}.
+     *
+     * @param sslSocketFactory the socket factory for this connection.
+     * @throws IllegalArgumentException if the provided socket factory is null.
+     */
+    void setSSLSocketFactory(SSLSocketFactory sslSocketFactory) throws IllegalArgumentException
+    {
+        if (sslSocketFactory == null)
+        {
+            //Codes_SRS_HTTPSCONNECTION_21_032: [The function shall throw IllegalArgumentException if the socket factory is null.]
+            throw new IllegalArgumentException("SSL socket factory cannot be null");
+        }
         if (this.connection instanceof HttpsURLConnection)
         {
-            //Codes_SRS_HTTPSCONNECTION_25_024: [The function shall set the the SSL context with the given value.]
-            ((HttpsURLConnection)this.connection).setSSLSocketFactory(sslContext.getSocketFactory());
+            //Codes_SRS_HTTPSCONNECTION_21_033: [The function shall set the socket factory of the connection with the given value.]
+            ((HttpsURLConnection)this.connection).setSSLSocketFactory(sslSocketFactory);
         }
         else
         {
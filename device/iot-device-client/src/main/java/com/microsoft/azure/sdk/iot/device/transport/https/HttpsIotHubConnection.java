@@ -3,8 +3,10 @@
 
 package com.microsoft.azure.sdk.iot.device.transport.https;
 
+import com.microsoft.azure.sdk.iot.deps.transport.http.SSLSocketFactoryCache;
 import com.microsoft.azure.sdk.iot.device.*;
 import com.microsoft.azure.sdk.iot.device.exceptions.IotHubServiceException;
+import com.microsoft.azure.sdk.iot.device.exceptions.IotHubSizeExceededException;
 import com.microsoft.azure.sdk.iot.device.exceptions.TransportException;
 import com.microsoft.azure.sdk.iot.device.net.*;
 import com.microsoft.azure.sdk.iot.device.transport.IotHubListener;
@@ -12,6 +14,7 @@ import com.microsoft.azure.sdk.iot.device.transport.IotHubTransportConnection;
 import com.microsoft.azure.sdk.iot.device.transport.IotHubTransportMessage;
 
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -32,6 +35,8 @@ public class HttpsIotHubConnection implements IotHubTransportConnection
     private static final String HTTPS_PROPERTY_IOTHUB_MESSAGELOCKTIMEOUT_TAG = "iothub-messagelocktimeout";
     private static final String HTTPS_PROPERTY_IF_MATCH_TAG = "if-match";
     private static final String HTTPS_PROPERTY_ETAG_TAG = "etag";
+    private static final String HTTPS_PROPERTY_RETRY_AFTER_TAG = "retry-after";
+    private static final long MILLISECONDS_PER_SECOND = 1000;
 
     private IotHubListener listener;
 
@@ -48,6 +53,15 @@ public class HttpsIotHubConnection implements IotHubTransportConnection
      */
     private Map<Message, String> messageToETagMap = new HashMap<>();
 
+    /** The socket factory shared by all requests of this connection, so they can reuse the TLS connections. */
+    private final SSLSocketFactoryCache sslSocketFactoryCache = new SSLSocketFactoryCache();
+
+    /** The time, in milliseconds, that the IoT Hub asked the device to wait before the next receive. */
+    private long receiveRetryAfterMillis;
+
+    /** The read timeout, in milliseconds, that replaces the one of the configuration, or 0 to use the configuration. */
+    private volatile int readTimeoutMillis;
+
     /**
      * Constructs an instance from the given {@link DeviceClientConfig}
      * object.
@@ -63,6 +77,24 @@ public class HttpsIotHubConnection implements IotHubTransportConnection
         }
     }
 
+    /**
+     * Replaces the read timeout of the configuration for the requests of this connection.
+     *
+     * @param readTimeoutMillis the read timeout in milliseconds, or 0 to use the read timeout of the configuration.
+     * @throws IllegalArgumentException if the read timeout is negative.
+     */
+    public void setReadTimeoutMillis(int readTimeoutMillis) throws IllegalArgumentException
+    {
+        if (readTimeoutMillis < 0)
+        {
+            // Codes_SRS_HTTPSIOTHUBCONNECTION_21_081: [If the read timeout is negative, the function shall throw an IllegalArgumentException.]
+            throw new IllegalArgumentException("readTimeoutMillis cannot be negative");
+        }
+
+        // Codes_SRS_HTTPSIOTHUBCONNECTION_21_082: [The function shall save the read timeout to use in the next requests instead of the configuration parameter readTimeoutMillis, if it is not 0.]
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
     /**
      * Sends an event message.
      *
@@ -76,7 +108,16 @@ public class HttpsIotHubConnection implements IotHubTransportConnection
     {
         synchronized (HTTPS_CONNECTION_LOCK)
         {
-            HttpsMessage httpsMessage = HttpsSingleMessage.parseHttpsMessage(message);
+            HttpsMessage httpsMessage;
+            if (message instanceof BatchMessage)
+            {
+                // Codes_SRS_HTTPSIOTHUBCONNECTION_21_078: [If the message is a batch, the function shall send all its messages in a single request with the batch body and content type.]
+                httpsMessage = buildBatchMessage((BatchMessage) message);
+            }
+            else
+            {
+                httpsMessage = HttpsSingleMessage.parseHttpsMessage(message);
+            }
 
             String iotHubHostname = getHostName();
             String deviceId = this.config.getDeviceId();
@@ -121,7 +162,7 @@ public class HttpsIotHubConnection implements IotHubTransportConnection
                     // Codes_SRS_HTTPSIOTHUBCONNECTION_11_009: [The function shall set the header field 'content-type' to be the message content type.]
                     .setHeaderField(HTTPS_PROPERTY_CONTENT_TYPE_TAG, httpsMessage.getContentType());
 
-            // Codes_SRS_HTTPSIOTHUBCONNECTION_25_040: [The function shall set the IotHub SSL context by calling setSSLContext on the request.]
+            // Codes_SRS_HTTPSIOTHUBCONNECTION_25_040: [The function shall set the IotHub SSL context on the request through its socket factory.]
             // Codes_SRS_HTTPSIOTHUBCONNECTION_11_007: [The function shall set the header field 'authorization' to be a valid SAS token generated from the configuration parameters.]
             // Codes_SRS_HTTPSIOTHUBCONNECTION_34_059: [If this config is using x509 authentication, this function shall retrieve its sslcontext from its x509 Authentication object.]
             // Codes_SRS_HTTPSIOTHUBCONNECTION_11_006: [The function shall set the request read timeout to be the configuration parameter readTimeoutMillis.]
@@ -145,6 +186,25 @@ public class HttpsIotHubConnection implements IotHubTransportConnection
         }
     }
 
+    private static HttpsBatchMessage buildBatchMessage(BatchMessage batchMessage) throws TransportException
+    {
+        HttpsBatchMessage httpsBatchMessage = new HttpsBatchMessage();
+        for (Message message : batchMessage.getNestedMessages())
+        {
+            try
+            {
+                httpsBatchMessage.addMessage(HttpsSingleMessage.parseHttpsMessage(message));
+            }
+            catch (IotHubSizeExceededException e)
+            {
+                // Codes_SRS_HTTPSIOTHUBCONNECTION_21_079: [If the batch exceeds the maximum size of a request, the function shall throw the IotHubServiceException for REQUEST_ENTITY_TOO_LARGE.]
+                throw IotHubStatusCode.getConnectionStatusException(IotHubStatusCode.REQUEST_ENTITY_TOO_LARGE, e.getMessage());
+            }
+        }
+
+        return httpsBatchMessage;
+    }
+
     /**
      * Sends an generic https message.
      *
@@ -158,48 +218,47 @@ public class HttpsIotHubConnection implements IotHubTransportConnection
      */
     public ResponseMessage sendHttpsMessage(HttpsMessage httpsMessage, HttpsMethod httpsMethod, String httpsPath, Map<String, String> additionalHeaders) throws TransportException
     {
-        synchronized (HTTPS_CONNECTION_LOCK)
-        {
-            String iotHubHostname = getHostName();
+        // Codes_SRS_HTTPSIOTHUBCONNECTION_21_080: [The function shall not hold the connection lock while sending, so
+        // concurrent requests, like parallel method invocations, do not wait for each other.]
+        String iotHubHostname = getHostName();
 
-            // Codes_SRS_HTTPSIOTHUBCONNECTION_21_041: [The function shall send a request to the URL https://[iotHubHostname]/[httpsPath]?api-version=2016-02-03.]
-            URL messageUrl = this.buildUrlFromString(HTTPS_HEAD_TAG + iotHubHostname + httpsPath + "?" + IotHubUri.API_VERSION);
+        // Codes_SRS_HTTPSIOTHUBCONNECTION_21_041: [The function shall send a request to the URL https://[iotHubHostname]/[httpsPath]?api-version=2016-02-03.]
+        URL messageUrl = this.buildUrlFromString(HTTPS_HEAD_TAG + iotHubHostname + httpsPath + "?" + IotHubUri.API_VERSION);
 
-            // Codes_SRS_HTTPSIOTHUBCONNECTION_21_042: [The function shall send a `httpsMethod` request.]
-            // Codes_SRS_HTTPSIOTHUBCONNECTION_21_043: [The function shall set the request body to the message body.]
-            HttpsRequest request = new HttpsRequest(messageUrl, httpsMethod, httpsMessage.getBody(), this.config.getProductInfo().getUserAgentString());
+        // Codes_SRS_HTTPSIOTHUBCONNECTION_21_042: [The function shall send a `httpsMethod` request.]
+        // Codes_SRS_HTTPSIOTHUBCONNECTION_21_043: [The function shall set the request body to the message body.]
+        HttpsRequest request = new HttpsRequest(messageUrl, httpsMethod, httpsMessage.getBody(), this.config.getProductInfo().getUserAgentString());
 
-            // Codes_SRS_HTTPSIOTHUBCONNECTION_21_044: [The function shall write each message property as a request header.]
-            for (MessageProperty property : httpsMessage.getProperties())
-            {
-                request.setHeaderField(property.getName(), property.getValue());
-            }
+        // Codes_SRS_HTTPSIOTHUBCONNECTION_21_044: [The function shall write each message property as a request header.]
+        for (MessageProperty property : httpsMessage.getProperties())
+        {
+            request.setHeaderField(property.getName(), property.getValue());
+        }
 
-            // Codes_SRS_HTTPSIOTHUBCONNECTION_21_048: [The function shall set the header field 'iothub-to' to be '[https path]'.]
-            request.setHeaderField(HTTPS_PROPERTY_IOTHUB_TO_TAG, httpsPath)
-                    // Codes_SRS_HTTPSIOTHUBCONNECTION_21_049: [The function shall set the header field 'content-type' to be the message content type.]
-                    .setHeaderField(HTTPS_PROPERTY_CONTENT_TYPE_TAG, httpsMessage.getContentType());
+        // Codes_SRS_HTTPSIOTHUBCONNECTION_21_048: [The function shall set the header field 'iothub-to' to be '[https path]'.]
+        request.setHeaderField(HTTPS_PROPERTY_IOTHUB_TO_TAG, httpsPath)
+                // Codes_SRS_HTTPSIOTHUBCONNECTION_21_049: [The function shall set the header field 'content-type' to be the message content type.]
+                .setHeaderField(HTTPS_PROPERTY_CONTENT_TYPE_TAG, httpsMessage.getContentType());
 
-            // Codes_SRS_HTTPSIOTHUBCONNECTION_34_072: [The function shall set the additional header fields provided.]
-            for (String additionalHeaderKey : additionalHeaders.keySet())
-            {
-                request.setHeaderField(additionalHeaderKey, additionalHeaders.get(additionalHeaderKey));
-            }
+        // Codes_SRS_HTTPSIOTHUBCONNECTION_34_072: [The function shall set the additional header fields provided.]
+        for (String additionalHeaderKey : additionalHeaders.keySet())
+        {
+            request.setHeaderField(additionalHeaderKey, additionalHeaders.get(additionalHeaderKey));
+        }
 
-            // Codes_SRS_HTTPSIOTHUBCONNECTION_34_056: [This function shall retrieve a sas token from its config to use in the https request header.]
-            // Codes_SRS_HTTPSIOTHUBCONNECTION_21_047: [The function shall set the header field 'authorization' to be a valid SAS token generated from the configuration parameters.]
-            // Codes_SRS_HTTPSIOTHUBCONNECTION_34_060: [If this config is using x509 authentication, this function shall retrieve its sslcontext from its x509 Authentication object.]
-            // Codes_SRS_HTTPSIOTHUBCONNECTION_21_046: [The function shall set the IotHub SSL context by calling setSSLContext on the request.]
-            // Codes_SRS_HTTPSIOTHUBCONNECTION_21_045: [The function shall set the request read timeout to be the configuration parameter readTimeoutMillis.]
-            // Codes_SRS_HTTPSIOTHUBCONNECTION_21_051: [If the IoT Hub could not be reached, the function shall throw a ProtocolException.]
-            HttpsResponse response = this.sendRequest(request);
+        // Codes_SRS_HTTPSIOTHUBCONNECTION_34_056: [This function shall retrieve a sas token from its config to use in the https request header.]
+        // Codes_SRS_HTTPSIOTHUBCONNECTION_21_047: [The function shall set the header field 'authorization' to be a valid SAS token generated from the configuration parameters.]
+        // Codes_SRS_HTTPSIOTHUBCONNECTION_34_060: [If this config is using x509 authentication, this function shall retrieve its sslcontext from its x509 Authentication object.]
+        // Codes_SRS_HTTPSIOTHUBCONNECTION_21_046: [The function shall set the IotHub SSL context on the request through its socket factory.]
+        // Codes_SRS_HTTPSIOTHUBCONNECTION_21_045: [The function shall set the request read timeout to be the configuration parameter readTimeoutMillis.]
+        // Codes_SRS_HTTPSIOTHUBCONNECTION_21_051: [If the IoT Hub could not be reached, the function shall throw a ProtocolException.]
+        HttpsResponse response = this.sendRequest(request);
 
-            // Codes_SRS_HTTPSIOTHUBCONNECTION_21_050: [The function shall return a ResponseMessage with the status and payload.]
-            IotHubStatusCode status = IotHubStatusCode.getIotHubStatusCode(response.getStatus());
-            byte[] body = response.getBody();
+        // Codes_SRS_HTTPSIOTHUBCONNECTION_21_050: [The function shall return a ResponseMessage with the status and payload.]
+        IotHubStatusCode status = IotHubStatusCode.getIotHubStatusCode(response.getStatus());
+        byte[] body = response.getBody();
 
-            return new ResponseMessage(body, status);
-        }
+        return new ResponseMessage(body, status);
     }
 
     /**
@@ -230,11 +289,14 @@ public class HttpsIotHubConnection implements IotHubTransportConnection
             // Codes_SRS_HTTPSIOTHUBCONNECTION_34_057: [This function shall retrieve a sas token from its config to use in the https request header.]
             // Codes_SRS_HTTPSIOTHUBCONNECTION_11_016: [The function shall set the header field 'authorization' to be a valid SAS token generated from the configuration parameters.]
             // Codes_SRS_HTTPSIOTHUBCONNECTION_34_061: [If this config is using x509 authentication, this function shall retrieve its sslcontext from its x509 Authentication object.]
-            // Codes_SRS_HTTPSIOTHUBCONNECTION_25_041: [The function shall set the IotHub SSL context by calling setSSLContext on the request.]
+            // Codes_SRS_HTTPSIOTHUBCONNECTION_25_041: [The function shall set the IotHub SSL context on the request through its socket factory.]
             // Codes_SRS_HTTPSIOTHUBCONNECTION_11_015: [The function shall set the request read timeout to be the configuration parameter readTimeoutMillis.]
             // Codes_SRS_HTTPSIOTHUBCONNECTION_11_023: [If the IoT Hub could not be reached, the function shall throw a TransportException.]
             HttpsResponse response = this.sendRequest(request);
 
+            // Codes_SRS_HTTPSIOTHUBCONNECTION_21_076: [The function shall save the wait time requested by the IoT Hub in the 'retry-after' response header, or zero if there is no valid header.]
+            this.receiveRetryAfterMillis = parseRetryAfterMillis(response);
+
             // Codes_SRS_HTTPSIOTHUBCONNECTION_11_021: [If a response with IoT Hub status code OK is not received, the function shall return null.]
             IotHubTransportMessage transportMessage = null;
             // Codes_SRS_HTTPSIOTHUBCONNECTION_11_019: [If a response with IoT Hub status code OK is received, the function shall return the IoT Hub message included in the response.]
@@ -260,6 +322,47 @@ public class HttpsIotHubConnection implements IotHubTransportConnection
         }
     }
 
+    /**
+     * Getter for the time that the IoT Hub asked the device to wait before the next receive.
+     *
+     * @return the wait time in milliseconds of the last receive, or zero if the IoT Hub did not ask to wait.
+     */
+    public long getReceiveRetryAfterMillis()
+    {
+        synchronized (HTTPS_CONNECTION_LOCK)
+        {
+            // Codes_SRS_HTTPSIOTHUBCONNECTION_21_077: [The function shall return the wait time saved by the last receive.]
+            return this.receiveRetryAfterMillis;
+        }
+    }
+
+    /**
+     * Parses the 'retry-after' header, in seconds, of the provided response.
+     *
+     * @param response the response with the header.
+     *
+     * @return the wait time in milliseconds, or zero if the header is not present or not valid.
+     */
+    private static long parseRetryAfterMillis(HttpsResponse response)
+    {
+        Map<String, String> headerFields = response.getHeaderFields();
+        String retryAfter = (headerFields == null) ? null : headerFields.get(HTTPS_PROPERTY_RETRY_AFTER_TAG);
+        if (retryAfter == null)
+        {
+            return 0;
+        }
+
+        try
+        {
+            return Math.max(0, Long.parseLong(retryAfter.trim()) * MILLISECONDS_PER_SECOND);
+        }
+        catch (NumberFormatException e)
+        {
+            // The header may also be an HTTP date, which is not used by the IoT Hub.
+            return 0;
+        }
+    }
+
     /**
      * Removes double quotes from the e-tag property.
      *
@@ -381,7 +484,7 @@ public class HttpsIotHubConnection implements IotHubTransportConnection
                             setHeaderField(HTTPS_PROPERTY_IF_MATCH_TAG, messageEtag);
 
             //Codes_SRS_HTTPSIOTHUBCONNECTION_34_062: [If this config is using x509 authentication, this function shall retrieve its sslcontext from its x509 Authentication object.]
-            //Codes_SRS_HTTPSIOTHUBCONNECTION_25_042: [The function shall set the IotHub SSL context by calling setSSLContext on the request.]
+            //Codes_SRS_HTTPSIOTHUBCONNECTION_25_042: [The function shall set the IotHub SSL context on the request through its socket factory.]
             // Codes_SRS_HTTPSIOTHUBCONNECTION_11_034: [The function shall set the header field 'authorization' to be a valid SAS token generated from the configuration parameters.]
             // Codes_SRS_HTTPSIOTHUBCONNECTION_11_033: [The function shall set the request read timeout to be the configuration parameter readTimeoutMillis.]
             // Codes_SRS_HTTPSIOTHUBCONNECTION_11_037: [If the IoT Hub could not be reached, the function shall throw a ProtocolException.]
@@ -416,14 +519,15 @@ public class HttpsIotHubConnection implements IotHubTransportConnection
 
     private HttpsResponse sendRequest(HttpsRequest request) throws TransportException
     {
-        request.setReadTimeoutMillis(this.config.getReadTimeoutMillis());
+        int readTimeoutMillis = this.readTimeoutMillis;
+        request.setReadTimeoutMillis(readTimeoutMillis > 0 ? readTimeoutMillis : this.config.getReadTimeoutMillis());
 
         if (this.config.getAuthenticationType() == DeviceClientConfig.AuthType.SAS_TOKEN)
         {
             request.setHeaderField(HTTPS_PROPERTY_AUTHORIZATION_TAG, this.getSasToken());
         }
 
-        request.setSSLContext(this.getSSLContext());
+        request.setSSLSocketFactory(this.getSSLSocketFactory());
 
         HttpsResponse response = request.send();
         return response;
@@ -465,6 +569,12 @@ public class HttpsIotHubConnection implements IotHubTransportConnection
         }
     }
 
+    private SSLSocketFactory getSSLSocketFactory() throws TransportException
+    {
+        // Codes_SRS_HTTPSIOTHUBCONNECTION_21_075: [The function shall reuse the same socket factory for all requests while the SSL context does not change, so the TLS connections can be kept alive.]
+        return this.sslSocketFactoryCache.getSocketFactory(this.getSSLContext());
+    }
+
     private String getHostName()
     {
         String hostname = this.config.getGatewayHostname();
@@ -0,0 +1,106 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.transport.https;
+
+/**
+ * Decides when the HTTPS transport shall poll the IoT Hub for cloud to device messages.
+ * <p>
+ * While messages keep arriving the polls run back to back. When a poll returns no message, the interval
+ * between polls grows exponentially from {@code MIN_IDLE_PERIOD_MILLIS} up to the maximum receive period.
+ * If the service asks the device to wait, the next poll does not happen before the requested time.
+ */
+public final class HttpsReceiveScheduler
+{
+    private static final long MIN_IDLE_PERIOD_MILLIS = 1000;
+    private static final int IDLE_PERIOD_MULTIPLIER = 2;
+
+    private long maxPeriodMillis;
+    private long idlePeriodMillis;
+    private long nextPollTimeMillis;
+
+    /**
+     * Constructor.
+     *
+     * @param maxPeriodMillis the maximum interval between polls when there are no messages to receive.
+     * @throws IllegalArgumentException if the provided maximum period is zero or negative.
+     */
+    public HttpsReceiveScheduler(long maxPeriodMillis) throws IllegalArgumentException
+    {
+        // Codes_SRS_HTTPSRECEIVESCHEDULER_21_001: [The constructor shall throw IllegalArgumentException if the provided maxPeriodMillis is zero or negative.]
+        // Codes_SRS_HTTPSRECEIVESCHEDULER_21_002: [The constructor shall schedule the first poll to run immediately.]
+        setMaxPeriodMillis(maxPeriodMillis);
+        this.nextPollTimeMillis = 0;
+    }
+
+    /**
+     * Setter for the maximum interval between polls when there are no messages to receive.
+     *
+     * @param maxPeriodMillis the maximum interval in milliseconds.
+     * @throws IllegalArgumentException if the provided maximum period is zero or negative.
+     */
+    public synchronized void setMaxPeriodMillis(long maxPeriodMillis) throws IllegalArgumentException
+    {
+        // Codes_SRS_HTTPSRECEIVESCHEDULER_21_001: [The constructor shall throw IllegalArgumentException if the provided maxPeriodMillis is zero or negative.]
+        if (maxPeriodMillis <= 0)
+        {
+            throw new IllegalArgumentException("maxPeriodMillis cannot be zero or negative");
+        }
+
+        // Codes_SRS_HTTPSRECEIVESCHEDULER_21_003: [The setMaxPeriodMillis shall store the new maximum period and restart the idle backoff.]
+        this.maxPeriodMillis = maxPeriodMillis;
+        this.idlePeriodMillis = Math.min(MIN_IDLE_PERIOD_MILLIS, maxPeriodMillis);
+        this.nextPollTimeMillis = Math.min(this.nextPollTimeMillis, System.currentTimeMillis() + maxPeriodMillis);
+    }
+
+    /**
+     * Checks if it is time to poll the IoT Hub.
+     *
+     * @return {@code true} if the next poll is due.
+     */
+    public synchronized boolean isPollDue()
+    {
+        // Codes_SRS_HTTPSRECEIVESCHEDULER_21_004: [The isPollDue shall return true if the current time reached the scheduled time of the next poll.]
+        return System.currentTimeMillis() >= this.nextPollTimeMillis;
+    }
+
+    /**
+     * Schedules the next poll based on the result of the last one.
+     *
+     * @param messageReceived {@code true} if the last poll returned a message.
+     * @param serverWaitHintMillis the time that the service asked the device to wait before the next poll, or
+     *                             zero if there is no hint.
+     */
+    public synchronized void onPollCompleted(boolean messageReceived, long serverWaitHintMillis)
+    {
+        long delayMillis;
+        if (messageReceived)
+        {
+            // Codes_SRS_HTTPSRECEIVESCHEDULER_21_005: [If the last poll returned a message, the onPollCompleted shall schedule the next poll to run immediately and restart the idle backoff.]
+            delayMillis = 0;
+            this.idlePeriodMillis = Math.min(MIN_IDLE_PERIOD_MILLIS, this.maxPeriodMillis);
+        }
+        else
+        {
+            // Codes_SRS_HTTPSRECEIVESCHEDULER_21_006: [If the last poll did not return a message, the onPollCompleted shall schedule the next poll after the idle period, and multiply the idle period up to the maximum period.]
+            delayMillis = this.idlePeriodMillis;
+            this.idlePeriodMillis = Math.min(this.idlePeriodMillis * IDLE_PERIOD_MULTIPLIER, this.maxPeriodMillis);
+        }
+
+        // Codes_SRS_HTTPSRECEIVESCHEDULER_21_007: [If the service provided a wait hint, the onPollCompleted shall not schedule the next poll before it.]
+        delayMillis = Math.max(delayMillis, serverWaitHintMillis);
+
+        this.nextPollTimeMillis = System.currentTimeMillis() + delayMillis;
+    }
+
+    /**
+     * Getter for the time to wait until the next poll.
+     *
+     * @return the number of milliseconds until the next poll, or zero if it is due.
+     */
+    public synchronized long getDelayToNextPollMillis()
+    {
+        // Codes_SRS_HTTPSRECEIVESCHEDULER_21_008: [The getDelayToNextPollMillis shall return the number of milliseconds until the next poll, or zero if it is due.]
+        return Math.max(0, this.nextPollTimeMillis - System.currentTimeMillis());
+    }
+}
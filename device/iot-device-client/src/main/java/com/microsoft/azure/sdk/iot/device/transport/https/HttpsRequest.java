@@ -6,6 +6,7 @@ package com.microsoft.azure.sdk.iot.device.transport.https;
 import com.microsoft.azure.sdk.iot.device.exceptions.TransportException;
 
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -23,6 +24,7 @@ public class HttpsRequest
     private Map<String, List<String>> headers;
     private int connectionTimeout;
     private SSLContext sslContext;
+    private SSLSocketFactory sslSocketFactory;
 
     /**
      * Constructor. Takes a URL as an argument and returns an HTTPS request that
@@ -86,7 +88,12 @@ public class HttpsRequest
 
         connection.writeOutput(this.body);
 
-        if (this.sslContext != null)
+        if (this.sslSocketFactory != null)
+        {
+            // Codes_SRS_HTTPSREQUEST_21_022: [If a socket factory was provided, the function shall use it in the connection instead of the SSL context.]
+            connection.setSSLSocketFactory(this.sslSocketFactory);
+        }
+        else if (this.sslContext != null)
         {
             connection.setSSLContext(this.sslContext);
         }
@@ -112,6 +119,20 @@ public class HttpsRequest
         {
             responseBody = connection.readInput();
         }
+        else
+        {
+            // Codes_SRS_HTTPSREQUEST_21_023: [If the response status is not 200, the function shall read the error stream, so the connection can be kept alive and reused.]
+            try
+            {
+                errorReason = connection.readError();
+            }
+            catch (TransportException e)
+            {
+                // The response status is already known, failing to read the error reason only means that the
+                // underlying connection will not be reused.
+                errorReason = new byte[0];
+            }
+        }
 
         // Codes_SRS_HTTPSREQUEST_11_009: [The function shall return the HTTPS response received, including the status code, body (if 200 status code), header fields, and error reason (if any).]
         return new HttpsResponse(responseStatus, responseBody, headerFields, errorReason);
@@ -177,6 +198,27 @@ public class HttpsRequest
         return this;
     }
 
+    /**
+     * Sets the socket factory used to open the TLS socket. If set, it takes precedence over the SSL context.
+     * To reuse kept alive TLS connections, get it from a
+     * {@link com.microsoft.azure.sdk.iot.deps.transport.http.SSLSocketFactoryCache}.
+     * @param sslSocketFactory the socket factory to use in this request
+     * @return itself, for fluent setting.
+     * @throws IllegalArgumentException if sslSocketFactory is null
+     */
+    public HttpsRequest setSSLSocketFactory(SSLSocketFactory sslSocketFactory) throws IllegalArgumentException
+    {
+        if (sslSocketFactory == null)
+        {
+            //Codes_SRS_HTTPSREQUEST_21_021: [The function shall throw IllegalArgumentException if argument is null.]
+            throw new IllegalArgumentException("Socket factory cannot be null");
+        }
+
+        this.sslSocketFactory = sslSocketFactory;
+
+        return this;
+    }
+
     public byte[] getBody()
     {
         // Codes_SRS_HTTPSREQUEST_34_017: [The function shall return the body saved in this object's connection instance.]
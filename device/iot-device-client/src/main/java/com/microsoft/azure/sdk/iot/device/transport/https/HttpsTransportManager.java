@@ -27,6 +27,7 @@ public class HttpsTransportManager implements IotHubTransportManager
 {
     DeviceClientConfig config;
     HttpsIotHubConnection httpsIotHubConnection;
+    private volatile int readTimeoutMillis;
 
     private static final String MODULE_ID = "x-ms-edge-moduleId";
     private final static String ModuleMethodUriFormat = "/twins/%s/modules/%s/methods";
@@ -59,7 +60,7 @@ public class HttpsTransportManager implements IotHubTransportManager
     public void open()
     {
         //Codes_SRS_HTTPSTRANSPORTMANAGER_21_003: [The open shall create and store a new transport connection `HttpsIotHubConnection`.]
-        this.httpsIotHubConnection = new HttpsIotHubConnection(config);
+        this.httpsIotHubConnection = createConnection();
     }
 
     /**
@@ -72,7 +73,7 @@ public class HttpsTransportManager implements IotHubTransportManager
     {
         //Codes_SRS_HTTPSTRANSPORTMANAGER_21_004: [The open shall create and store a new transport connection `HttpsIotHubConnection`.]
         //Codes_SRS_HTTPSTRANSPORTMANAGER_21_005: [The open shall ignore the parameter `topics`.]
-        this.httpsIotHubConnection = new HttpsIotHubConnection(config);
+        this.httpsIotHubConnection = createConnection();
     }
 
     /**
@@ -84,6 +85,30 @@ public class HttpsTransportManager implements IotHubTransportManager
         this.httpsIotHubConnection = null;
     }
 
+    /**
+     * Replaces the read timeout of the configuration for the requests of this transport manager, so a blocking
+     * request, like a method invocation, does not wait for the response longer than its caller does.
+     *
+     * @param readTimeoutMillis the read timeout in milliseconds, or 0 to use the read timeout of the configuration.
+     * @throws IllegalArgumentException if the read timeout is negative.
+     */
+    public void setReadTimeoutMillis(int readTimeoutMillis) throws IllegalArgumentException
+    {
+        if (readTimeoutMillis < 0)
+        {
+            //Codes_SRS_HTTPSTRANSPORTMANAGER_21_030: [If the read timeout is negative, the setReadTimeoutMillis shall throw IllegalArgumentException.]
+            throw new IllegalArgumentException("readTimeoutMillis cannot be negative");
+        }
+
+        //Codes_SRS_HTTPSTRANSPORTMANAGER_21_031: [The setReadTimeoutMillis shall store the read timeout, and set it in the open transport connection and in the ones created by the next open.]
+        this.readTimeoutMillis = readTimeoutMillis;
+        HttpsIotHubConnection connection = this.httpsIotHubConnection;
+        if (connection != null)
+        {
+            connection.setReadTimeoutMillis(readTimeoutMillis);
+        }
+    }
+
     public ResponseMessage sendFileUploadMessage(IotHubTransportMessage message) throws IOException
     {
         //Codes_SRS_HTTPSTRANSPORTMANAGER_34_028 [This function shall set the uri path of the provided message to the
@@ -254,6 +279,17 @@ public class HttpsTransportManager implements IotHubTransportManager
         return new MethodResult(resultJson);
     }
 
+    private HttpsIotHubConnection createConnection()
+    {
+        HttpsIotHubConnection connection = new HttpsIotHubConnection(config);
+        if (this.readTimeoutMillis > 0)
+        {
+            connection.setReadTimeoutMillis(this.readTimeoutMillis);
+        }
+
+        return connection;
+    }
+
     private static URI getDeviceMethodUri(String deviceId) throws UnsupportedEncodingException, URISyntaxException
     {
         deviceId = URLEncoder.encode(deviceId, "UTF-8");
@@ -0,0 +1,88 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package tests.unit.com.microsoft.azure.sdk.iot.device;
+
+import com.microsoft.azure.sdk.iot.device.BatchMessage;
+import com.microsoft.azure.sdk.iot.device.Message;
+import com.microsoft.azure.sdk.iot.device.MessageType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/** Unit tests for BatchMessage. */
+public class BatchMessageTest
+{
+    // Tests_SRS_BATCHMESSAGE_21_001: [The constructor shall throw IllegalArgumentException if the collection is null or empty, or if it contains a null or batch message.]
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnEmptyCollection()
+    {
+        // act
+        new BatchMessage(new ArrayList<Message>());
+    }
+
+    // Tests_SRS_BATCHMESSAGE_21_001: [The constructor shall throw IllegalArgumentException if the collection is null or empty, or if it contains a null or batch message.]
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnNullMessage()
+    {
+        // act
+        new BatchMessage(Arrays.asList(new Message("a"), null));
+    }
+
+    // Tests_SRS_BATCHMESSAGE_21_001: [The constructor shall throw IllegalArgumentException if the collection is null or empty, or if it contains a null or batch message.]
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnNestedBatch()
+    {
+        // arrange
+        BatchMessage batchMessage = new BatchMessage(Arrays.asList(new Message("a")));
+
+        // act
+        new BatchMessage(Arrays.<Message>asList(batchMessage));
+    }
+
+    // Tests_SRS_BATCHMESSAGE_21_002: [The constructor shall save a copy of the collection of messages, in its iteration order.]
+    // Tests_SRS_BATCHMESSAGE_21_003: [The function shall return the messages of the batch.]
+    @Test
+    public void constructorCopiesMessages()
+    {
+        // arrange
+        Message first = new Message("a");
+        Message second = new Message("b");
+        List<Message> messages = new ArrayList<>(Arrays.asList(first, second));
+
+        // act
+        BatchMessage batchMessage = new BatchMessage(messages);
+        messages.clear();
+
+        // assert
+        assertEquals(Arrays.asList(first, second), batchMessage.getNestedMessages());
+        assertEquals(MessageType.DEVICE_TELEMETRY, batchMessage.getMessageType());
+        assertNotNull(batchMessage.getMessageId());
+    }
+
+    // Tests_SRS_BATCHMESSAGE_21_004: [The function shall set the connection device id of the batch and of all its messages.]
+    // Tests_SRS_BATCHMESSAGE_21_005: [The function shall set the connection module id of the batch and of all its messages.]
+    @Test
+    public void setConnectionIdsSetsAllMessages()
+    {
+        // arrange
+        Message first = new Message("a");
+        Message second = new Message("b");
+        BatchMessage batchMessage = new BatchMessage(Arrays.asList(first, second));
+
+        // act
+        batchMessage.setConnectionDeviceId("device");
+        batchMessage.setConnectionModuleId("module");
+
+        // assert
+        assertEquals("device", batchMessage.getConnectionDeviceId());
+        assertEquals("device", first.getConnectionDeviceId());
+        assertEquals("device", second.getConnectionDeviceId());
+        assertEquals("module", first.getConnectionModuleId());
+        assertEquals("module", second.getConnectionModuleId());
+    }
+}
@@ -3,10 +3,13 @@
 
 package tests.unit.com.microsoft.azure.sdk.iot.device;
 
+import com.microsoft.azure.sdk.iot.deps.ws.impl.WebSocketImpl;
 import com.microsoft.azure.sdk.iot.device.*;
 import com.microsoft.azure.sdk.iot.device.DeviceTwin.Pair;
 import com.microsoft.azure.sdk.iot.device.auth.*;
 import com.microsoft.azure.sdk.iot.device.transport.ExponentialBackoffWithJitter;
+import com.microsoft.azure.sdk.iot.device.transport.InMemoryTransportMetrics;
+import com.microsoft.azure.sdk.iot.device.transport.OutboundQueueOverflowPolicy;
 import com.microsoft.azure.sdk.iot.device.transport.RetryPolicy;
 import com.microsoft.azure.sdk.iot.provisioning.security.SecurityProvider;
 import com.microsoft.azure.sdk.iot.provisioning.security.SecurityProviderTpm;
@@ -910,6 +913,249 @@ public class DeviceClientConfigTest
         assertEquals(expectedOperationTimeout, actual);
     }
 
+    //Tests_SRS_DEVICECLIENTCONFIG_21_050: [If any of the provided limits is negative, this function shall throw an IllegalArgumentException.]
+    @Test (expected = IllegalArgumentException.class)
+    public void setOutboundQueueCapacityThrowsForNegativeLimit()
+    {
+        //arrange
+        DeviceClientConfig config = Deencapsulation.newInstance(DeviceClientConfig.class, mockIotHubConnectionString);
+
+        //act
+        Deencapsulation.invoke(config, "setOutboundQueueCapacity", new Class[] {int.class, long.class}, 10, -1L);
+    }
+
+    //Tests_SRS_DEVICECLIENTCONFIG_21_051: [This function shall save the provided limits.]
+    //Tests_SRS_DEVICECLIENTCONFIG_21_054: [This function shall return the saved maximum number of messages.]
+    //Tests_SRS_DEVICECLIENTCONFIG_21_055: [This function shall return the saved maximum number of bytes.]
+    @Test
+    public void setOutboundQueueCapacitySavesLimits()
+    {
+        //arrange
+        DeviceClientConfig config = Deencapsulation.newInstance(DeviceClientConfig.class, mockIotHubConnectionString);
+        assertEquals(0, config.getMaxOutboundQueueMessages());
+        assertEquals(0, config.getMaxOutboundQueueBytes());
+
+        //act
+        Deencapsulation.invoke(config, "setOutboundQueueCapacity", new Class[] {int.class, long.class}, 10, 1024L);
+
+        //assert
+        assertEquals(10, config.getMaxOutboundQueueMessages());
+        assertEquals(1024, config.getMaxOutboundQueueBytes());
+    }
+
+    //Tests_SRS_DEVICECLIENTCONFIG_21_052: [If the provided policy is null or the provided timeout is negative, this function shall throw an IllegalArgumentException.]
+    @Test (expected = IllegalArgumentException.class)
+    public void setOutboundQueueOverflowPolicyThrowsForNullPolicy()
+    {
+        //arrange
+        DeviceClientConfig config = Deencapsulation.newInstance(DeviceClientConfig.class, mockIotHubConnectionString);
+
+        //act
+        Deencapsulation.invoke(config, "setOutboundQueueOverflowPolicy", new Class[] {OutboundQueueOverflowPolicy.class, long.class}, null, 0L);
+    }
+
+    //Tests_SRS_DEVICECLIENTCONFIG_21_053: [This function shall save the provided policy and timeout.]
+    //Tests_SRS_DEVICECLIENTCONFIG_21_056: [This function shall return the saved overflow policy.]
+    //Tests_SRS_DEVICECLIENTCONFIG_21_057: [This function shall return the saved block timeout.]
+    @Test
+    public void setOutboundQueueOverflowPolicySavesPolicy()
+    {
+        //arrange
+        DeviceClientConfig config = Deencapsulation.newInstance(DeviceClientConfig.class, mockIotHubConnectionString);
+        assertEquals(OutboundQueueOverflowPolicy.FAIL, config.getOutboundQueueOverflowPolicy());
+
+        //act
+        Deencapsulation.invoke(config, "setOutboundQueueOverflowPolicy", new Class[] {OutboundQueueOverflowPolicy.class, long.class}, OutboundQueueOverflowPolicy.BLOCK, 500L);
+
+        //assert
+        assertEquals(OutboundQueueOverflowPolicy.BLOCK, config.getOutboundQueueOverflowPolicy());
+        assertEquals(500, config.getOutboundQueueBlockTimeoutMillis());
+    }
+
+    //Tests_SRS_DEVICECLIENTCONFIG_21_058: [This function shall save the provided directory path.]
+    //Tests_SRS_DEVICECLIENTCONFIG_21_059: [This function shall return the saved directory path.]
+    @Test
+    public void setOutboundMessageStorePathSavesPath()
+    {
+        //arrange
+        DeviceClientConfig config = Deencapsulation.newInstance(DeviceClientConfig.class, mockIotHubConnectionString);
+        assertNull(config.getOutboundMessageStorePath());
+
+        //act
+        Deencapsulation.invoke(config, "setOutboundMessageStorePath", "journal");
+
+        //assert
+        assertEquals("journal", config.getOutboundMessageStorePath());
+    }
+
+    //Tests_SRS_DEVICECLIENTCONFIG_21_060: [This function shall save the provided transport metrics.]
+    //Tests_SRS_DEVICECLIENTCONFIG_21_061: [This function shall return the saved transport metrics.]
+    @Test
+    public void setTransportMetricsSavesMetrics()
+    {
+        //arrange
+        DeviceClientConfig config = Deencapsulation.newInstance(DeviceClientConfig.class, mockIotHubConnectionString);
+        InMemoryTransportMetrics metrics = new InMemoryTransportMetrics();
+        assertNull(config.getTransportMetrics());
+
+        //act
+        Deencapsulation.invoke(config, "setTransportMetrics", metrics);
+
+        //assert
+        assertEquals(metrics, config.getTransportMetrics());
+    }
+
+    //Tests_SRS_DEVICECLIENTCONFIG_21_063: [This function shall save the provided compression and threshold.]
+    //Tests_SRS_DEVICECLIENTCONFIG_21_064: [This function shall return the saved compression.]
+    //Tests_SRS_DEVICECLIENTCONFIG_21_065: [This function shall return the saved compression threshold.]
+    @Test
+    public void setMessageCompressionSavesCompression()
+    {
+        //arrange
+        DeviceClientConfig config = Deencapsulation.newInstance(DeviceClientConfig.class, mockIotHubConnectionString);
+        assertNull(config.getMessageCompression());
+
+        //act
+        Deencapsulation.invoke(config, "setMessageCompression", MessageCompression.GZIP, 1024);
+
+        //assert
+        assertEquals(MessageCompression.GZIP, config.getMessageCompression());
+        assertEquals(1024, config.getMessageCompressionThresholdBytes());
+    }
+
+    //Tests_SRS_DEVICECLIENTCONFIG_21_062: [If the threshold is negative, the function shall throw an IllegalArgumentException.]
+    @Test (expected = IllegalArgumentException.class)
+    public void setMessageCompressionThrowsOnNegativeThreshold()
+    {
+        //arrange
+        DeviceClientConfig config = Deencapsulation.newInstance(DeviceClientConfig.class, mockIotHubConnectionString);
+
+        //act
+        Deencapsulation.invoke(config, "setMessageCompression", MessageCompression.DEFLATE, -1);
+    }
+
+    //Tests_SRS_DEVICECLIENTCONFIG_21_074: [This function shall save the provided maximum size.]
+    //Tests_SRS_DEVICECLIENTCONFIG_21_075: [This function shall return the saved maximum size.]
+    @Test
+    public void setMaxDecompressedMessageBytesSavesMaxSize()
+    {
+        //arrange
+        DeviceClientConfig config = Deencapsulation.newInstance(DeviceClientConfig.class, mockIotHubConnectionString);
+        assertEquals(MessageCompressor.DEFAULT_MAX_DECOMPRESSED_BYTES, config.getMaxDecompressedMessageBytes());
+
+        //act
+        Deencapsulation.invoke(config, "setMaxDecompressedMessageBytes", 4096);
+
+        //assert
+        assertEquals(4096, config.getMaxDecompressedMessageBytes());
+    }
+
+    //Tests_SRS_DEVICECLIENTCONFIG_21_073: [If the maximum size is not positive, the function shall throw an IllegalArgumentException.]
+    @Test (expected = IllegalArgumentException.class)
+    public void setMaxDecompressedMessageBytesThrowsOnZero()
+    {
+        //arrange
+        DeviceClientConfig config = Deencapsulation.newInstance(DeviceClientConfig.class, mockIotHubConnectionString);
+
+        //act
+        Deencapsulation.invoke(config, "setMaxDecompressedMessageBytes", 0);
+    }
+
+    //Tests_SRS_DEVICECLIENTCONFIG_21_077: [This function shall save the provided size.]
+    //Tests_SRS_DEVICECLIENTCONFIG_21_078: [This function shall return the saved size, by default WebSocketImpl.DEFAULT_MAX_FRAME_SIZE.]
+    @Test
+    public void setWebSocketMaxFrameSizeSavesSize()
+    {
+        //arrange
+        DeviceClientConfig config = Deencapsulation.newInstance(DeviceClientConfig.class, mockIotHubConnectionString);
+        assertEquals(WebSocketImpl.DEFAULT_MAX_FRAME_SIZE, config.getWebSocketMaxFrameSize());
+
+        //act
+        Deencapsulation.invoke(config, "setWebSocketMaxFrameSize", 64 * 1024);
+
+        //assert
+        assertEquals(64 * 1024, config.getWebSocketMaxFrameSize());
+    }
+
+    //Tests_SRS_DEVICECLIENTCONFIG_21_076: [If the size cannot fit a frame header and its payload, the function shall throw an IllegalArgumentException.]
+    @Test (expected = IllegalArgumentException.class)
+    public void setWebSocketMaxFrameSizeThrowsOnSizeWithoutRoomForPayload()
+    {
+        //arrange
+        DeviceClientConfig config = Deencapsulation.newInstance(DeviceClientConfig.class, mockIotHubConnectionString);
+
+        //act
+        Deencapsulation.invoke(config, "setWebSocketMaxFrameSize", 14);
+    }
+
+    //Tests_SRS_DEVICECLIENTCONFIG_21_067: [This function shall save the provided block size and parallelism.]
+    //Tests_SRS_DEVICECLIENTCONFIG_21_068: [This function shall return the saved file upload block size.]
+    //Tests_SRS_DEVICECLIENTCONFIG_21_069: [This function shall return the saved file upload parallelism.]
+    @Test
+    public void setFileUploadOptionsSavesOptions()
+    {
+        //arrange
+        DeviceClientConfig config = Deencapsulation.newInstance(DeviceClientConfig.class, mockIotHubConnectionString);
+        assertEquals(0, config.getFileUploadBlockSizeInBytes());
+        assertEquals(0, config.getFileUploadParallelism());
+
+        //act
+        Deencapsulation.invoke(config, "setFileUploadOptions", 1024 * 1024, 4);
+
+        //assert
+        assertEquals(1024 * 1024, config.getFileUploadBlockSizeInBytes());
+        assertEquals(4, config.getFileUploadParallelism());
+    }
+
+    //Tests_SRS_DEVICECLIENTCONFIG_21_066: [If the block size is negative or bigger than 4MB, or the parallelism is negative, the function shall throw an IllegalArgumentException.]
+    @Test (expected = IllegalArgumentException.class)
+    public void setFileUploadOptionsThrowsOnBlockBiggerThan4MB()
+    {
+        //arrange
+        DeviceClientConfig config = Deencapsulation.newInstance(DeviceClientConfig.class, mockIotHubConnectionString);
+
+        //act
+        Deencapsulation.invoke(config, "setFileUploadOptions", 4 * 1024 * 1024 + 1, 1);
+    }
+
+    //Tests_SRS_DEVICECLIENTCONFIG_21_066: [If the block size is negative or bigger than 4MB, or the parallelism is negative, the function shall throw an IllegalArgumentException.]
+    @Test (expected = IllegalArgumentException.class)
+    public void setFileUploadOptionsThrowsOnNegativeParallelism()
+    {
+        //arrange
+        DeviceClientConfig config = Deencapsulation.newInstance(DeviceClientConfig.class, mockIotHubConnectionString);
+
+        //act
+        Deencapsulation.invoke(config, "setFileUploadOptions", 1024, -1);
+    }
+
+    //Tests_SRS_DEVICECLIENTCONFIG_21_071: [This function shall save the provided cap.]
+    //Tests_SRS_DEVICECLIENTCONFIG_21_072: [This function shall return the saved file upload bandwidth cap.]
+    @Test
+    public void setFileUploadMaxBytesPerSecondSavesCap()
+    {
+        //arrange
+        DeviceClientConfig config = Deencapsulation.newInstance(DeviceClientConfig.class, mockIotHubConnectionString);
+        assertEquals(0, config.getFileUploadMaxBytesPerSecond());
+
+        //act
+        Deencapsulation.invoke(config, "setFileUploadMaxBytesPerSecond", 1000000L);
+
+        //assert
+        assertEquals(1000000L, config.getFileUploadMaxBytesPerSecond());
+    }
+
+    //Tests_SRS_DEVICECLIENTCONFIG_21_070: [If the cap is negative, the function shall throw an IllegalArgumentException.]
+    @Test (expected = IllegalArgumentException.class)
+    public void setFileUploadMaxBytesPerSecondThrowsOnNegativeCap()
+    {
+        //arrange
+        DeviceClientConfig config = Deencapsulation.newInstance(DeviceClientConfig.class, mockIotHubConnectionString);
+
+        //act
+        Deencapsulation.invoke(config, "setFileUploadMaxBytesPerSecond", -1L);
+    }
+
     //Tests_SRS_DEVICECLIENTCONFIG_34_040: [This function shall return the saved product info.]
     @Test
     public void getProductInfoReturnsSavedProductInfo()
@@ -1572,6 +1572,48 @@ public class DeviceClientTest
         new DeviceClient(connString, mockTransportClient);
     }
 
+    //Tests_SRS_DEVICECLIENT_21_042: [The function shall set the device config's file upload block size and parallelism.]
+    @Test
+    public void setFileUploadOptionsSetsConfig() throws URISyntaxException
+    {
+        //arrange
+        DeviceClient client = Deencapsulation.newInstance(DeviceClient.class, new Class[] {String.class, IotHubClientProtocol.class}, "some conn string", IotHubClientProtocol.AMQPS);
+        Deencapsulation.setField(client, "config", mockConfig);
+
+        //act
+        client.setFileUploadOptions(1024 * 1024, 4);
+
+        //assert
+        new Verifications()
+        {
+            {
+                Deencapsulation.invoke(mockConfig, "setFileUploadOptions", 1024 * 1024, 4);
+                times = 1;
+            }
+        };
+    }
+
+    //Tests_SRS_DEVICECLIENT_21_043: [The function shall set the device config's file upload bandwidth cap.]
+    @Test
+    public void setFileUploadBandwidthCapSetsConfig() throws URISyntaxException
+    {
+        //arrange
+        DeviceClient client = Deencapsulation.newInstance(DeviceClient.class, new Class[] {String.class, IotHubClientProtocol.class}, "some conn string", IotHubClientProtocol.AMQPS);
+        Deencapsulation.setField(client, "config", mockConfig);
+
+        //act
+        client.setFileUploadBandwidthCap(1000000L);
+
+        //assert
+        new Verifications()
+        {
+            {
+                Deencapsulation.invoke(mockConfig, "setFileUploadMaxBytesPerSecond", 1000000L);
+                times = 1;
+            }
+        };
+    }
+
     /* Tests_SRS_INTERNALCLIENT_21_048: [If there is no instance of the FileUpload, the uploadToBlobAsync shall create a new instance of the FileUpload.] */
     @Test
     public void startFileUploadOneFileUploadInstanceSucceeds(@Mocked final FileUpload mockedFileUpload,
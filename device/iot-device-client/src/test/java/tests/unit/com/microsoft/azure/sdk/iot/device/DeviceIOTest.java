@@ -6,6 +6,7 @@ package tests.unit.com.microsoft.azure.sdk.iot.device;
 import com.microsoft.azure.sdk.iot.device.*;
 import com.microsoft.azure.sdk.iot.device.exceptions.DeviceClientException;
 import com.microsoft.azure.sdk.iot.device.exceptions.TransportException;
+import com.microsoft.azure.sdk.iot.device.transport.IotHubCallbackTask;
 import com.microsoft.azure.sdk.iot.device.transport.IotHubReceiveTask;
 import com.microsoft.azure.sdk.iot.device.transport.IotHubSendTask;
 import com.microsoft.azure.sdk.iot.device.transport.IotHubTransport;
@@ -309,8 +310,9 @@ public class DeviceIOTest
     /* Tests_SRS_DEVICE_IO_21_013: [The open shall schedule send tasks to run every SEND_PERIOD_MILLIS milliseconds.] */
     /* Tests_SRS_DEVICE_IO_21_014: [The open shall schedule receive tasks to run every RECEIVE_PERIOD_MILLIS milliseconds.] */
     /* Tests_SRS_DEVICE_IO_21_016: [The open shall set the `state` as `CONNECTED`.] */
+    /* Tests_SRS_DEVICE_IO_21_043: [The open shall schedule the callback task to run every CALLBACK_TASK_PERIOD_MILLIS milliseconds in a dedicated single thread scheduler.] */
     @Test
-    public void openSuccess() throws DeviceClientException, IOException
+    public void openSuccess(@Mocked final IotHubCallbackTask mockIotHubCallbackTask) throws DeviceClientException, IOException
     {
         // arrange
         final Object deviceIO = newDeviceIO();
@@ -324,8 +326,12 @@ public class DeviceIOTest
                 result = mockIotHubSendTask;
                 new IotHubReceiveTask(mockedTransport);
                 result = mockIotHubReceiveTask;
+                new IotHubCallbackTask(mockedTransport);
+                result = mockIotHubCallbackTask;
                 mockExecutors.newScheduledThreadPool(2);
                 result = mockScheduler;
+                mockExecutors.newSingleThreadScheduledExecutor();
+                result = mockScheduler;
             }
         };
 
@@ -337,6 +343,10 @@ public class DeviceIOTest
         {
             {
                 mockedTransport.open(configs);
+                mockScheduler.scheduleAtFixedRate(mockIotHubCallbackTask,
+                        0, 10L,
+                        TimeUnit.MILLISECONDS);
+                times = 1;
                 mockScheduler.scheduleAtFixedRate(mockIotHubSendTask,
                         0, SEND_PERIOD_MILLIS,
                         TimeUnit.MILLISECONDS);
@@ -375,6 +385,7 @@ public class DeviceIOTest
 
     /* Tests_SRS_DEVICE_IO_21_017: [The closeNow shall finish all ongoing tasks.] */
     /* Tests_SRS_DEVICE_IO_21_018: [The closeNow shall cancel all recurring tasks.] */
+    /* Tests_SRS_DEVICE_IO_21_044: [The close shall cancel the recurring callback task.] */
     @Test
     public void closeWaitsForTaskShutdownToFinishSuccess()
             throws URISyntaxException, IOException
@@ -390,10 +401,103 @@ public class DeviceIOTest
         new Verifications()
         {
             {
+                // the send and receive scheduler, and the callback scheduler.
                 mockScheduler.shutdown();
+                times = 2;
+            }
+        };
+    }
+
+    /* Tests_SRS_DEVICE_IO_21_048: [The close shall wait for the callback task to terminate before closing the transport, so the callbacks invoked by the transport close do not run concurrently with the callback task. If the callback task does not terminate in CALLBACK_TASK_TERMINATION_TIMEOUT_MILLIS milliseconds, the close shall interrupt it.] */
+    @Test
+    public void closeWaitsForCallbackTaskBeforeClosingTransport() throws IOException, DeviceClientException, InterruptedException
+    {
+        // arrange
+        final Object deviceIO = newDeviceIO();
+        openDeviceIO(deviceIO, mockedTransport, mockExecutors, mockScheduler);
+        new NonStrictExpectations()
+        {
+            {
+                mockScheduler.awaitTermination(anyLong, TimeUnit.MILLISECONDS);
+                result = true;
+            }
+        };
+
+        // act
+        Deencapsulation.invoke(deviceIO, "close");
+
+        // assert
+        new VerificationsInOrder()
+        {
+            {
+                mockScheduler.awaitTermination(anyLong, TimeUnit.MILLISECONDS);
+                times = 1;
+                mockedTransport.close(IotHubConnectionStatusChangeReason.CLIENT_CLOSE, null);
                 times = 1;
             }
         };
+        new Verifications()
+        {
+            {
+                mockScheduler.shutdownNow();
+                times = 0;
+            }
+        };
+    }
+
+    /* Tests_SRS_DEVICE_IO_21_048: [The close shall wait for the callback task to terminate before closing the transport, so the callbacks invoked by the transport close do not run concurrently with the callback task. If the callback task does not terminate in CALLBACK_TASK_TERMINATION_TIMEOUT_MILLIS milliseconds, the close shall interrupt it.] */
+    @Test
+    public void closeInterruptsCallbackTaskThatDoesNotTerminate() throws IOException, InterruptedException
+    {
+        // arrange
+        final Object deviceIO = newDeviceIO();
+        openDeviceIO(deviceIO, mockedTransport, mockExecutors, mockScheduler);
+        new NonStrictExpectations()
+        {
+            {
+                mockScheduler.awaitTermination(anyLong, TimeUnit.MILLISECONDS);
+                result = false;
+            }
+        };
+
+        // act
+        Deencapsulation.invoke(deviceIO, "close");
+
+        // assert
+        new Verifications()
+        {
+            {
+                mockScheduler.shutdownNow();
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void closeFromCallbackDoesNotWaitForCallbackTask(@Mocked final IotHubCallbackTask mockIotHubCallbackTask) throws IOException, InterruptedException
+    {
+        // arrange
+        final Object deviceIO = newDeviceIO();
+        openDeviceIO(deviceIO, mockedTransport, mockExecutors, mockScheduler);
+        new NonStrictExpectations()
+        {
+            {
+                mockIotHubCallbackTask.isRunningOnCurrentThread();
+                result = true;
+            }
+        };
+
+        // act
+        Deencapsulation.invoke(deviceIO, "close");
+
+        // assert
+        new Verifications()
+        {
+            {
+                mockScheduler.awaitTermination(anyLong, (TimeUnit) any);
+                times = 0;
+            }
+        };
     }
 
     /* Tests_SRS_DEVICE_IO_21_019: [The close shall close the transport.] */
@@ -653,6 +757,92 @@ public class DeviceIOTest
         assertEquals(20L, Deencapsulation.getField(deviceIO, "receivePeriodInMilliseconds"));
     }
 
+    /* Tests_SRS_DEVICE_IO_21_040: [If the protocol is HTTPS, the constructor shall set the `receivePeriodInMilliseconds` as the maximum interval between polls in the transport.] */
+    /* Tests_SRS_DEVICE_IO_21_042: [If the protocol is HTTPS, the open shall schedule receive tasks to run every HTTPS_RECEIVE_TASK_PERIOD_MILLIS milliseconds, or receivePeriodInMilliseconds if smaller.] */
+    @Test
+    public void openHttpsSchedulesShortReceiveTaskPeriod() throws DeviceClientException, IOException
+    {
+        // arrange
+        new NonStrictExpectations()
+        {
+            {
+                mockConfig.getProtocol();
+                result = IotHubClientProtocol.HTTPS;
+                new IotHubTransport(mockConfig);
+                result = mockedTransport;
+                new IotHubSendTask(mockedTransport);
+                result = mockIotHubSendTask;
+                new IotHubReceiveTask(mockedTransport);
+                result = mockIotHubReceiveTask;
+                mockExecutors.newScheduledThreadPool(2);
+                result = mockScheduler;
+            }
+        };
+        final Object deviceIO = Deencapsulation.newInstance("com.microsoft.azure.sdk.iot.device.DeviceIO",
+                new Class[] {DeviceClientConfig.class, long.class, long.class},
+                mockConfig, SEND_PERIOD_MILLIS, RECEIVE_PERIOD_MILLIS_HTTPS);
+
+        // act
+        Deencapsulation.invoke(deviceIO, "open");
+
+        // assert
+        new Verifications()
+        {
+            {
+                mockedTransport.setMaxHttpsReceivePeriodInMilliseconds(RECEIVE_PERIOD_MILLIS_HTTPS);
+                times = 1;
+                mockScheduler.scheduleAtFixedRate(mockIotHubReceiveTask,
+                        0, 10L,
+                        TimeUnit.MILLISECONDS);
+                times = 1;
+            }
+        };
+    }
+
+    /* Tests_SRS_DEVICE_IO_21_041: [If the protocol is HTTPS, the setReceivePeriodInMilliseconds shall set the new receive period as the maximum interval between polls in the transport, and keep the receive task schedule.] */
+    @Test
+    public void setReceivePeriodInMillisecondsHttpsSetsTransportMaxPeriod() throws DeviceClientException, IOException
+    {
+        // arrange
+        final long interval = 1234L;
+        new NonStrictExpectations()
+        {
+            {
+                mockConfig.getProtocol();
+                result = IotHubClientProtocol.HTTPS;
+                new IotHubTransport(mockConfig);
+                result = mockedTransport;
+                new IotHubSendTask(mockedTransport);
+                result = mockIotHubSendTask;
+                new IotHubReceiveTask(mockedTransport);
+                result = mockIotHubReceiveTask;
+                mockExecutors.newScheduledThreadPool(2);
+                result = mockScheduler;
+            }
+        };
+        final Object deviceIO = Deencapsulation.newInstance("com.microsoft.azure.sdk.iot.device.DeviceIO",
+                new Class[] {DeviceClientConfig.class, long.class, long.class},
+                mockConfig, SEND_PERIOD_MILLIS, RECEIVE_PERIOD_MILLIS_HTTPS);
+        Deencapsulation.invoke(deviceIO, "open");
+
+        // act
+        Deencapsulation.invoke(deviceIO, "setReceivePeriodInMilliseconds", interval);
+
+        // assert
+        new Verifications()
+        {
+            {
+                mockedTransport.setMaxHttpsReceivePeriodInMilliseconds(interval);
+                times = 1;
+                mockScheduler.scheduleAtFixedRate(mockIotHubReceiveTask,
+                        0, anyLong,
+                        TimeUnit.MILLISECONDS);
+                times = 1;
+            }
+        };
+        assertEquals(interval, Deencapsulation.getField(deviceIO, "receivePeriodInMilliseconds"));
+    }
+
      /* Tests_SRS_DEVICE_IO_21_028: [If the task scheduler already exists, the setReceivePeriodInMilliseconds shall change the `scheduleAtFixedRate` for the receiveTask to the new value.] */
     @Test
     public void setReceivePeriodInMillisecondsTransportOpenedSuccess()
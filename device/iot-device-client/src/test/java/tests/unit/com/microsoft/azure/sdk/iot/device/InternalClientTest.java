@@ -11,6 +11,8 @@ import com.microsoft.azure.sdk.iot.device.auth.IotHubAuthenticationProvider;
 import com.microsoft.azure.sdk.iot.device.auth.IotHubSasTokenAuthenticationProvider;
 import com.microsoft.azure.sdk.iot.device.fileupload.FileUpload;
 import com.microsoft.azure.sdk.iot.device.transport.ExponentialBackoffWithJitter;
+import com.microsoft.azure.sdk.iot.device.transport.InMemoryTransportMetrics;
+import com.microsoft.azure.sdk.iot.device.transport.OutboundQueueOverflowPolicy;
 import com.microsoft.azure.sdk.iot.device.transport.RetryPolicy;
 import com.microsoft.azure.sdk.iot.provisioning.security.SecurityProvider;
 import com.microsoft.azure.sdk.iot.provisioning.security.exceptions.SecurityProviderException;
@@ -20,6 +22,8 @@ import org.junit.Test;
 import java.io.IOError;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -464,6 +468,47 @@ public class InternalClientTest
         };
     }
 
+    //Tests_SRS_INTERNALCLIENT_21_059: [The function shall send the messages as a single batch message with the provided callback and context.]
+    @Test
+    public void sendEventBatchAsyncSendsBatchMessage(
+            @Mocked final Message mockMessage,
+            @Mocked final IotHubEventCallback mockCallback)
+            throws URISyntaxException
+    {
+        //arrange
+        final IotHubClientProtocol protocol = IotHubClientProtocol.AMQPS;
+        final Map<String, Object> context = new HashMap<>();
+        InternalClient client = Deencapsulation.newInstance(InternalClient.class, new Class[] {IotHubConnectionString.class, IotHubClientProtocol.class, long.class, long.class}, mockIotHubConnectionString, protocol, SEND_PERIOD, RECEIVE_PERIOD);
+        Deencapsulation.setField(client, "config", mockConfig);
+        Deencapsulation.invoke(client, "open");
+
+        // act
+        client.sendEventBatchAsync(Arrays.asList(mockMessage, mockMessage), mockCallback, context);
+
+        // assert
+        new Verifications()
+        {
+            {
+                BatchMessage batchMessage;
+                mockDeviceIO.sendEventAsync(batchMessage = withCapture(), mockCallback, context, anyString);
+                times = 1;
+                assertEquals(2, batchMessage.getNestedMessages().size());
+            }
+        };
+    }
+
+    //Tests_SRS_INTERNALCLIENT_21_058: [If the collection is null or empty, or contains a null message, this function shall throw an IllegalArgumentException.]
+    @Test (expected = IllegalArgumentException.class)
+    public void sendEventBatchAsyncThrowsOnEmptyCollection() throws URISyntaxException
+    {
+        //arrange
+        final IotHubClientProtocol protocol = IotHubClientProtocol.AMQPS;
+        InternalClient client = Deencapsulation.newInstance(InternalClient.class, new Class[] {IotHubConnectionString.class, IotHubClientProtocol.class, long.class, long.class}, mockIotHubConnectionString, protocol, SEND_PERIOD, RECEIVE_PERIOD);
+
+        // act
+        client.sendEventBatchAsync(new ArrayList<Message>(), null, null);
+    }
+
     //Tests_SRS_INTERNALCLIENT_34_045: [This function shall set the provided message's connection device id to the config's saved device id.]
     @Test
     public void sendEventAsyncSetsConnectionDeviceId(
@@ -1507,6 +1552,234 @@ public class InternalClientTest
         };
     }
 
+    // Tests_SRS_INTERNALCLIENT_21_050: [The function shall set the device config's outbound queue capacity.]
+    // Tests_SRS_INTERNALCLIENT_21_051: [The function shall set the device config's outbound queue overflow policy.]
+    @Test
+    public void setOutboundQueueOptionsSetsConfig() throws URISyntaxException
+    {
+        //arrange
+        final IotHubClientProtocol protocol = IotHubClientProtocol.AMQPS;
+        InternalClient client = Deencapsulation.newInstance(InternalClient.class, new Class[] {IotHubConnectionString.class, IotHubClientProtocol.class, long.class, long.class}, mockIotHubConnectionString, protocol, SEND_PERIOD, RECEIVE_PERIOD);
+        Deencapsulation.setField(client, "config", mockConfig);
+
+        //act
+        client.setOutboundQueueCapacity(100, 1024L);
+        client.setOutboundQueueOverflowPolicy(OutboundQueueOverflowPolicy.DROP_OLDEST, 0L);
+
+        //assert
+        new Verifications()
+        {
+            {
+                Deencapsulation.invoke(mockConfig, "setOutboundQueueCapacity", 100, 1024L);
+                times = 1;
+                Deencapsulation.invoke(mockConfig, "setOutboundQueueOverflowPolicy", OutboundQueueOverflowPolicy.DROP_OLDEST, 0L);
+                times = 1;
+            }
+        };
+    }
+
+    // Tests_SRS_INTERNALCLIENT_21_054: [If the client is open, the function shall throw an IllegalStateException.]
+    @Test (expected = IllegalStateException.class)
+    public void setOutboundMessageStoreThrowsIfOpen() throws URISyntaxException
+    {
+        //arrange
+        final IotHubClientProtocol protocol = IotHubClientProtocol.AMQPS;
+        InternalClient client = Deencapsulation.newInstance(InternalClient.class, new Class[] {IotHubConnectionString.class, IotHubClientProtocol.class, long.class, long.class}, mockIotHubConnectionString, protocol, SEND_PERIOD, RECEIVE_PERIOD);
+        new NonStrictExpectations()
+        {
+            {
+                mockDeviceIO.isOpen();
+                result = true;
+            }
+        };
+
+        //act
+        client.setOutboundMessageStore("journal");
+    }
+
+    // Tests_SRS_INTERNALCLIENT_21_055: [The function shall set the device config's outbound message store path.]
+    @Test
+    public void setOutboundMessageStoreSetsConfig() throws URISyntaxException
+    {
+        //arrange
+        final IotHubClientProtocol protocol = IotHubClientProtocol.AMQPS;
+        InternalClient client = Deencapsulation.newInstance(InternalClient.class, new Class[] {IotHubConnectionString.class, IotHubClientProtocol.class, long.class, long.class}, mockIotHubConnectionString, protocol, SEND_PERIOD, RECEIVE_PERIOD);
+        Deencapsulation.setField(client, "config", mockConfig);
+        new NonStrictExpectations()
+        {
+            {
+                mockDeviceIO.isOpen();
+                result = false;
+            }
+        };
+
+        //act
+        client.setOutboundMessageStore("journal");
+
+        //assert
+        new Verifications()
+        {
+            {
+                Deencapsulation.invoke(mockConfig, "setOutboundMessageStorePath", "journal");
+                times = 1;
+            }
+        };
+    }
+
+    // Tests_SRS_INTERNALCLIENT_21_052: [The function shall return the number of messages in the outbound queue of the deviceIO.]
+    // Tests_SRS_INTERNALCLIENT_21_053: [The function shall return the number of body bytes in the outbound queue of the deviceIO.]
+    @Test
+    public void getOutboundQueueDepthFetchesFromDeviceIO() throws URISyntaxException
+    {
+        //arrange
+        final IotHubClientProtocol protocol = IotHubClientProtocol.AMQPS;
+        InternalClient client = Deencapsulation.newInstance(InternalClient.class, new Class[] {IotHubConnectionString.class, IotHubClientProtocol.class, long.class, long.class}, mockIotHubConnectionString, protocol, SEND_PERIOD, RECEIVE_PERIOD);
+        new NonStrictExpectations()
+        {
+            {
+                mockDeviceIO.getOutboundQueueMessageCount();
+                result = 3;
+                mockDeviceIO.getOutboundQueueBytes();
+                result = 300L;
+            }
+        };
+
+        //act - assert
+        assertEquals(3, client.getOutboundQueueMessageCount());
+        assertEquals(300L, client.getOutboundQueueBytes());
+    }
+
+    // Tests_SRS_INTERNALCLIENT_21_056: [The function shall return the number of messages in flight of the deviceIO.]
+    @Test
+    public void getInFlightMessageCountFetchesFromDeviceIO() throws URISyntaxException
+    {
+        //arrange
+        final IotHubClientProtocol protocol = IotHubClientProtocol.AMQPS;
+        InternalClient client = Deencapsulation.newInstance(InternalClient.class, new Class[] {IotHubConnectionString.class, IotHubClientProtocol.class, long.class, long.class}, mockIotHubConnectionString, protocol, SEND_PERIOD, RECEIVE_PERIOD);
+        new NonStrictExpectations()
+        {
+            {
+                mockDeviceIO.getInFlightMessageCount();
+                result = 4;
+            }
+        };
+
+        //act - assert
+        assertEquals(4, client.getInFlightMessageCount());
+    }
+
+    // Tests_SRS_INTERNALCLIENT_21_062: [The function shall return the number of callbacks waiting in the deviceIO.]
+    // Tests_SRS_INTERNALCLIENT_21_063: [The function shall return the number of received messages waiting in the deviceIO.]
+    @Test
+    public void getPendingCountsFetchFromDeviceIO() throws URISyntaxException
+    {
+        //arrange
+        final IotHubClientProtocol protocol = IotHubClientProtocol.AMQPS;
+        InternalClient client = Deencapsulation.newInstance(InternalClient.class, new Class[] {IotHubConnectionString.class, IotHubClientProtocol.class, long.class, long.class}, mockIotHubConnectionString, protocol, SEND_PERIOD, RECEIVE_PERIOD);
+        new NonStrictExpectations()
+        {
+            {
+                mockDeviceIO.getPendingCallbackCount();
+                result = 7;
+                mockDeviceIO.getPendingReceivedMessageCount();
+                result = 3;
+            }
+        };
+
+        //act - assert
+        assertEquals(7, client.getPendingCallbackCount());
+        assertEquals(3, client.getPendingReceivedMessageCount());
+    }
+
+    // Tests_SRS_INTERNALCLIENT_21_057: [The function shall set the device config's transport metrics.]
+    @Test
+    public void setTransportMetricsSetsConfig() throws URISyntaxException
+    {
+        //arrange
+        final IotHubClientProtocol protocol = IotHubClientProtocol.AMQPS;
+        final InMemoryTransportMetrics metrics = new InMemoryTransportMetrics();
+        InternalClient client = Deencapsulation.newInstance(InternalClient.class, new Class[] {IotHubConnectionString.class, IotHubClientProtocol.class, long.class, long.class}, mockIotHubConnectionString, protocol, SEND_PERIOD, RECEIVE_PERIOD);
+        Deencapsulation.setField(client, "config", mockConfig);
+
+        //act
+        client.setTransportMetrics(metrics);
+
+        //assert
+        new Verifications()
+        {
+            {
+                Deencapsulation.invoke(mockConfig, "setTransportMetrics", metrics);
+                times = 1;
+            }
+        };
+    }
+
+    // Tests_SRS_INTERNALCLIENT_21_060: [The function shall set the device config's message compression.]
+    @Test
+    public void setMessageCompressionSetsConfig() throws URISyntaxException
+    {
+        //arrange
+        final IotHubClientProtocol protocol = IotHubClientProtocol.MQTT;
+        InternalClient client = Deencapsulation.newInstance(InternalClient.class, new Class[] {IotHubConnectionString.class, IotHubClientProtocol.class, long.class, long.class}, mockIotHubConnectionString, protocol, SEND_PERIOD, RECEIVE_PERIOD);
+        Deencapsulation.setField(client, "config", mockConfig);
+
+        //act
+        client.setMessageCompression(MessageCompression.GZIP, 512);
+
+        //assert
+        new Verifications()
+        {
+            {
+                Deencapsulation.invoke(mockConfig, "setMessageCompression", MessageCompression.GZIP, 512);
+                times = 1;
+            }
+        };
+    }
+
+    // Tests_SRS_INTERNALCLIENT_21_061: [The function shall set the device config's maximum decompressed message size.]
+    @Test
+    public void setMaxDecompressedMessageSizeSetsConfig() throws URISyntaxException
+    {
+        //arrange
+        final IotHubClientProtocol protocol = IotHubClientProtocol.MQTT;
+        InternalClient client = Deencapsulation.newInstance(InternalClient.class, new Class[] {IotHubConnectionString.class, IotHubClientProtocol.class, long.class, long.class}, mockIotHubConnectionString, protocol, SEND_PERIOD, RECEIVE_PERIOD);
+        Deencapsulation.setField(client, "config", mockConfig);
+
+        //act
+        client.setMaxDecompressedMessageSize(4096);
+
+        //assert
+        new Verifications()
+        {
+            {
+                Deencapsulation.invoke(mockConfig, "setMaxDecompressedMessageBytes", 4096);
+                times = 1;
+            }
+        };
+    }
+
+    // Tests_SRS_INTERNALCLIENT_21_064: [The function shall set the device config's WebSocket maximum frame size.]
+    @Test
+    public void setWebSocketMaxFrameSizeSetsConfig() throws URISyntaxException
+    {
+        //arrange
+        final IotHubClientProtocol protocol = IotHubClientProtocol.AMQPS_WS;
+        InternalClient client = Deencapsulation.newInstance(InternalClient.class, new Class[] {IotHubConnectionString.class, IotHubClientProtocol.class, long.class, long.class}, mockIotHubConnectionString, protocol, SEND_PERIOD, RECEIVE_PERIOD);
+        Deencapsulation.setField(client, "config", mockConfig);
+
+        //act
+        client.setWebSocketMaxFrameSize(64 * 1024);
+
+        //assert
+        new Verifications()
+        {
+            {
+                Deencapsulation.invoke(mockConfig, "setWebSocketMaxFrameSize", 64 * 1024);
+                times = 1;
+            }
+        };
+    }
+
     // Tests_SRS_INTERNALCLIENT_34_071: [This function shall return the product info saved in config.]
     @Test
     public void getProductInfoFetchesFromConfig() throws URISyntaxException
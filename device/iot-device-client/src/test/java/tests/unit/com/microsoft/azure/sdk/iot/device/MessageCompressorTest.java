@@ -0,0 +1,351 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package tests.unit.com.microsoft.azure.sdk.iot.device;
+
+import com.microsoft.azure.sdk.iot.device.BatchMessage;
+import com.microsoft.azure.sdk.iot.device.Message;
+import com.microsoft.azure.sdk.iot.device.MessageCompression;
+import com.microsoft.azure.sdk.iot.device.MessageCompressor;
+import com.microsoft.azure.sdk.iot.device.exceptions.IotHubSizeExceededException;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+/** Unit tests for MessageCompressor. */
+public class MessageCompressorTest
+{
+    private static final byte[] LARGE_BODY = buildBody(2000);
+
+    private static byte[] buildBody(int repetitions)
+    {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < repetitions; i++)
+        {
+            builder.append("{\"temperature\":").append(i % 10).append("}");
+        }
+
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Tests_SRS_MESSAGECOMPRESSOR_21_001: [The function shall throw IllegalArgumentException if the message or the compression is null.]
+    @Test (expected = IllegalArgumentException.class)
+    public void compressThrowsOnNullCompression()
+    {
+        // act
+        MessageCompressor.compress(new Message(LARGE_BODY), null, 0);
+    }
+
+    // Tests_SRS_MESSAGECOMPRESSOR_21_001: [The function shall throw IllegalArgumentException if the message or the compression is null.]
+    @Test (expected = IllegalArgumentException.class)
+    public void decompressThrowsOnNullMessage() throws IOException, IotHubSizeExceededException
+    {
+        // act
+        MessageCompressor.decompress(null);
+    }
+
+    // Tests_SRS_MESSAGECOMPRESSOR_21_004: [The function shall replace the body with the compressed one and set the content encoding of the compression.]
+    // Tests_SRS_MESSAGECOMPRESSOR_21_006: [The function shall replace the body with the decompressed one and clear the content encoding.]
+    @Test
+    public void gzipRoundTrip() throws IOException, IotHubSizeExceededException
+    {
+        // arrange
+        Message message = new Message(LARGE_BODY);
+
+        // act
+        boolean compressed = MessageCompressor.compress(message, MessageCompression.GZIP, 1024);
+
+        // assert
+        assertTrue(compressed);
+        assertEquals("gzip", message.getContentEncoding());
+        assertTrue(message.getBytes().length < LARGE_BODY.length);
+
+        // act
+        boolean decompressed = MessageCompressor.decompress(message);
+
+        // assert
+        assertTrue(decompressed);
+        assertNull(message.getContentEncoding());
+        assertArrayEquals(LARGE_BODY, message.getBytes());
+    }
+
+    // Tests_SRS_MESSAGECOMPRESSOR_21_004: [The function shall replace the body with the compressed one and set the content encoding of the compression.]
+    @Test
+    public void gzipBodyIsReadableByGZIPInputStream() throws IOException
+    {
+        // arrange
+        Message message = new Message(LARGE_BODY);
+
+        // act
+        MessageCompressor.compress(message, MessageCompression.GZIP, 0);
+
+        // assert
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(message.getBytes())))
+        {
+            byte[] buffer = new byte[512];
+            int read;
+            while ((read = input.read(buffer)) > 0)
+            {
+                output.write(buffer, 0, read);
+            }
+        }
+
+        assertArrayEquals(LARGE_BODY, output.toByteArray());
+    }
+
+    // Tests_SRS_MESSAGECOMPRESSOR_21_004: [The function shall replace the body with the compressed one and set the content encoding of the compression.]
+    // Tests_SRS_MESSAGECOMPRESSOR_21_006: [The function shall replace the body with the decompressed one and clear the content encoding.]
+    @Test
+    public void deflateRoundTripReusesPooledCodecs() throws IOException, IotHubSizeExceededException
+    {
+        for (int i = 0; i < 10; i++)
+        {
+            // arrange
+            byte[] body = buildBody(500 + i);
+            Message message = new Message(body);
+
+            // act
+            MessageCompressor.compress(message, MessageCompression.DEFLATE, 0);
+            assertEquals("deflate", message.getContentEncoding());
+            MessageCompressor.decompress(message);
+
+            // assert
+            assertArrayEquals(body, message.getBytes());
+        }
+    }
+
+    // Tests_SRS_MESSAGECOMPRESSOR_21_002: [The function shall not change the message if it has a content encoding, or its body is smaller than the threshold.]
+    @Test
+    public void compressSkipsBodyBelowThreshold()
+    {
+        // arrange
+        Message message = new Message(LARGE_BODY);
+
+        // act
+        boolean compressed = MessageCompressor.compress(message, MessageCompression.GZIP, LARGE_BODY.length + 1);
+
+        // assert
+        assertFalse(compressed);
+        assertNull(message.getContentEncoding());
+        assertArrayEquals(LARGE_BODY, message.getBytes());
+    }
+
+    // Tests_SRS_MESSAGECOMPRESSOR_21_002: [The function shall not change the message if it has a content encoding, or its body is smaller than the threshold.]
+    @Test
+    public void compressSkipsEncodedMessage()
+    {
+        // arrange
+        Message message = new Message(LARGE_BODY);
+        message.setContentEncoding("utf-8");
+
+        // act
+        boolean compressed = MessageCompressor.compress(message, MessageCompression.GZIP, 0);
+
+        // assert
+        assertFalse(compressed);
+        assertEquals("utf-8", message.getContentEncoding());
+        assertArrayEquals(LARGE_BODY, message.getBytes());
+    }
+
+    // Tests_SRS_MESSAGECOMPRESSOR_21_003: [The function shall not change the message if the compressed body is not smaller than the original one.]
+    @Test
+    public void compressSkipsWhenCompressedBodyIsNotSmaller()
+    {
+        // arrange
+        byte[] body = new byte[] {1, 2, 3};
+        Message message = new Message(body);
+
+        // act
+        boolean compressed = MessageCompressor.compress(message, MessageCompression.GZIP, 0);
+
+        // assert
+        assertFalse(compressed);
+        assertNull(message.getContentEncoding());
+        assertArrayEquals(body, message.getBytes());
+    }
+
+    // Tests_SRS_MESSAGECOMPRESSOR_21_008: [If the message is a batch, the function shall compress each message of the batch.]
+    @Test
+    public void compressBatchCompressesEachMessage() throws IOException
+    {
+        // arrange
+        Message largeMessage = new Message(LARGE_BODY);
+        Message smallMessage = new Message("small");
+        BatchMessage batchMessage = new BatchMessage(Arrays.asList(largeMessage, smallMessage));
+
+        // act
+        boolean compressed = MessageCompressor.compress(batchMessage, MessageCompression.DEFLATE, 100);
+
+        // assert
+        assertTrue(compressed);
+        assertEquals("deflate", largeMessage.getContentEncoding());
+        assertNull(smallMessage.getContentEncoding());
+        assertNull(batchMessage.getContentEncoding());
+    }
+
+    // Tests_SRS_MESSAGECOMPRESSOR_21_005: [The function shall not change the message if its content encoding is not a supported compression.]
+    @Test
+    public void decompressSkipsUnknownEncoding() throws IOException, IotHubSizeExceededException
+    {
+        // arrange
+        Message message = new Message(LARGE_BODY);
+        message.setContentEncoding("br");
+
+        // act
+        boolean decompressed = MessageCompressor.decompress(message);
+
+        // assert
+        assertFalse(decompressed);
+        assertEquals("br", message.getContentEncoding());
+        assertArrayEquals(LARGE_BODY, message.getBytes());
+    }
+
+    // Tests_SRS_MESSAGECOMPRESSOR_21_007: [The function shall throw IOException if the body is not valid for its content encoding.]
+    @Test (expected = IOException.class)
+    public void decompressThrowsOnInvalidDeflateBody() throws IOException, IotHubSizeExceededException
+    {
+        // arrange
+        Message message = new Message(LARGE_BODY);
+        message.setContentEncoding("DEFLATE");
+
+        // act
+        MessageCompressor.decompress(message);
+    }
+
+    // Tests_SRS_MESSAGECOMPRESSOR_21_007: [The function shall throw IOException if the body is not valid for its content encoding.]
+    @Test (expected = IOException.class)
+    public void decompressThrowsOnTruncatedGzipBody() throws IOException, IotHubSizeExceededException
+    {
+        // arrange
+        Message message = new Message(LARGE_BODY);
+        MessageCompressor.compress(message, MessageCompression.GZIP, 0);
+        byte[] body = message.getBytes();
+        Message truncatedMessage = new Message(Arrays.copyOf(body, body.length / 2));
+        truncatedMessage.setContentEncoding("gzip");
+
+        // act
+        MessageCompressor.decompress(truncatedMessage);
+    }
+
+    // Tests_SRS_MESSAGECOMPRESSOR_21_009: [The function shall throw IllegalArgumentException if the maximum decompressed size is not positive.]
+    @Test (expected = IllegalArgumentException.class)
+    public void decompressThrowsOnInvalidMaxSize() throws IOException, IotHubSizeExceededException
+    {
+        // arrange
+        Message message = new Message(LARGE_BODY);
+        MessageCompressor.compress(message, MessageCompression.GZIP, 0);
+
+        // act
+        MessageCompressor.decompress(message, 0);
+    }
+
+    // Tests_SRS_MESSAGECOMPRESSOR_21_010: [The function shall throw IotHubSizeExceededException as soon as the decompressed body is bigger than the maximum size.]
+    @Test
+    public void decompressThrowsOnBodyBiggerThanMaxSize() throws IOException
+    {
+        for (MessageCompression compression : MessageCompression.values())
+        {
+            // arrange
+            Message message = new Message(LARGE_BODY);
+            MessageCompressor.compress(message, compression, 0);
+            byte[] compressedBody = message.getBytes();
+
+            // act
+            try
+            {
+                MessageCompressor.decompress(message, LARGE_BODY.length - 1);
+                fail("decompress shall throw IotHubSizeExceededException");
+            }
+            catch (IotHubSizeExceededException expected)
+            {
+                // expected
+            }
+
+            // assert
+            assertEquals(compression.getContentEncoding(), message.getContentEncoding());
+            assertArrayEquals(compressedBody, message.getBytes());
+        }
+    }
+
+    // Tests_SRS_MESSAGECOMPRESSOR_21_010: [The function shall throw IotHubSizeExceededException as soon as the decompressed body is bigger than the maximum size.]
+    @Test
+    public void decompressAcceptsBodyOfMaxSize() throws IOException, IotHubSizeExceededException
+    {
+        // arrange
+        Message message = new Message(LARGE_BODY);
+        MessageCompressor.compress(message, MessageCompression.GZIP, 0);
+
+        // act
+        boolean decompressed = MessageCompressor.decompress(message, LARGE_BODY.length);
+
+        // assert
+        assertTrue(decompressed);
+        assertArrayEquals(LARGE_BODY, message.getBytes());
+    }
+
+    // Tests_SRS_MESSAGECOMPRESSOR_21_011: [The function shall return a copy of the message with the compressed body and the content encoding of the compression, and shall not change the provided message.]
+    @Test
+    public void compressedCopyLeavesMessageUnchanged() throws IOException, IotHubSizeExceededException
+    {
+        // arrange
+        Message message = new Message(LARGE_BODY);
+        message.setProperty("key", "value");
+        message.setMessageId("messageId");
+
+        // act
+        Message copy = MessageCompressor.compressedCopy(message, MessageCompression.GZIP, 1024);
+
+        // assert
+        assertNotSame(message, copy);
+        assertArrayEquals(LARGE_BODY, message.getBytes());
+        assertNull(message.getContentEncoding());
+        assertEquals("gzip", copy.getContentEncoding());
+        assertEquals("messageId", copy.getMessageId());
+        assertEquals("value", copy.getProperty("key"));
+        copy.setProperty("other", "value");
+        assertNull(message.getProperty("other"));
+        assertTrue(MessageCompressor.decompress(copy));
+        assertArrayEquals(LARGE_BODY, copy.getBytes());
+    }
+
+    // Tests_SRS_MESSAGECOMPRESSOR_21_002: [The function shall not change the message if it has a content encoding, or its body is smaller than the threshold.]
+    @Test
+    public void compressedCopyReturnsSameMessageBelowThreshold()
+    {
+        // arrange
+        Message message = new Message(LARGE_BODY);
+
+        // act
+        Message copy = MessageCompressor.compressedCopy(message, MessageCompression.GZIP, LARGE_BODY.length + 1);
+
+        // assert
+        assertSame(message, copy);
+    }
+
+    // Tests_SRS_MESSAGECOMPRESSOR_21_008: [If the message is a batch, the function shall compress each message of the batch.]
+    @Test
+    public void compressedCopyOfBatchLeavesNestedMessagesUnchanged()
+    {
+        // arrange
+        Message largeMessage = new Message(LARGE_BODY);
+        Message smallMessage = new Message("small");
+        BatchMessage batchMessage = new BatchMessage(Arrays.asList(largeMessage, smallMessage));
+
+        // act
+        Message copy = MessageCompressor.compressedCopy(batchMessage, MessageCompression.DEFLATE, 100);
+
+        // assert
+        assertTrue(copy instanceof BatchMessage);
+        assertNull(largeMessage.getContentEncoding());
+        assertEquals("deflate", ((BatchMessage) copy).getNestedMessages().get(0).getContentEncoding());
+        assertSame(smallMessage, ((BatchMessage) copy).getNestedMessages().get(1));
+    }
+}
@@ -5,6 +5,7 @@ package tests.unit.com.microsoft.azure.sdk.iot.device;
 
 import com.microsoft.azure.sdk.iot.device.IotHubConnectionString;
 import com.microsoft.azure.sdk.iot.device.Message;
+import com.microsoft.azure.sdk.iot.device.MessagePriority;
 import com.microsoft.azure.sdk.iot.device.MessageProperty;
 import com.microsoft.azure.sdk.iot.device.MessageType;
 import mockit.Deencapsulation;
@@ -370,4 +371,37 @@ public class MessageTest
         assertNull(msg.getTo());
         assertNull(msg.getDeliveryAcknowledgement());
     }
-}
\ No newline at end of file
+
+    // Tests_SRS_MESSAGE_21_064: [If the priority was not set, the function shall return HIGH for twin and method messages, and NORMAL otherwise.]
+    @Test
+    public void getPriorityDefaultsByMessageType()
+    {
+        //arrange
+        Message msg = new Message();
+
+        //act - assert
+        assertEquals(MessagePriority.NORMAL, msg.getPriority());
+        msg.setMessageType(MessageType.DEVICE_TWIN);
+        assertEquals(MessagePriority.HIGH, msg.getPriority());
+        msg.setMessageType(MessageType.DEVICE_METHODS);
+        assertEquals(MessagePriority.HIGH, msg.getPriority());
+        msg.setMessageType(MessageType.DEVICE_TELEMETRY);
+        assertEquals(MessagePriority.NORMAL, msg.getPriority());
+    }
+
+    // Tests_SRS_MESSAGE_21_063: [If the priority was set, the function shall return it.]
+    // Tests_SRS_MESSAGE_21_065: [The function shall save the provided priority.]
+    @Test
+    public void setPriorityOverridesMessageTypePriority()
+    {
+        //arrange
+        Message msg = new Message();
+        msg.setMessageType(MessageType.DEVICE_TWIN);
+
+        //act
+        msg.setPriority(MessagePriority.LOW);
+
+        //assert
+        assertEquals(MessagePriority.LOW, msg.getPriority());
+    }
+}
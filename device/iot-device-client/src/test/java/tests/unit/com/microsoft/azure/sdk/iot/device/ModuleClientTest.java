@@ -9,6 +9,7 @@ import com.microsoft.azure.sdk.iot.device.*;
 import com.microsoft.azure.sdk.iot.device.auth.IotHubAuthenticationProvider;
 import com.microsoft.azure.sdk.iot.device.auth.SignatureProvider;
 import com.microsoft.azure.sdk.iot.device.edge.HttpsHsmTrustBundleProvider;
+import com.microsoft.azure.sdk.iot.device.edge.MethodInvoker;
 import com.microsoft.azure.sdk.iot.device.edge.MethodRequest;
 import com.microsoft.azure.sdk.iot.device.edge.MethodResult;
 import com.microsoft.azure.sdk.iot.device.exceptions.ModuleClientException;
@@ -26,6 +27,7 @@ import java.net.URL;
 import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Future;
 
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertNotNull;
@@ -977,4 +979,158 @@ public class ModuleClientTest
         //act
         client.invokeMethod("someValidDevice", "", mockedMethodRequest);
     }
+
+    //Tests_SRS_MODULECLIENT_21_001: [This function shall queue the method invocation on the device in the method invoker, and return its future result.]
+    //Tests_SRS_MODULECLIENT_21_008: [All method invocations of this client shall share one open HttpsTransportManager, so its TLS connections are kept alive between them.]
+    @Test
+    public void invokeMethodAsyncOnDeviceUsesSharedInvoker(@Mocked final MethodInvoker mockedMethodInvoker, @Mocked final Future<MethodResult> mockedFuture) throws URISyntaxException, ModuleClientException
+    {
+        //arrange
+        baseExpectations();
+        ModuleClient client = new ModuleClient("connection string", IotHubClientProtocol.AMQPS);
+        final String expectedDeviceId = "someDevice";
+        new NonStrictExpectations()
+        {
+            {
+                mockedMethodInvoker.invokeAsync(expectedDeviceId, "", mockedMethodRequest, null, null);
+                result = mockedFuture;
+            }
+        };
+
+        //act
+        Future<MethodResult> actualFuture = client.invokeMethodAsync(expectedDeviceId, mockedMethodRequest, null, null);
+        client.invokeMethodAsync(expectedDeviceId, mockedMethodRequest, null, null);
+
+        //assert
+        assertEquals(mockedFuture, actualFuture);
+        new Verifications()
+        {
+            {
+                new HttpsTransportManager((DeviceClientConfig) any);
+                times = 1;
+
+                new MethodInvoker((HttpsTransportManager) any, 16, 0);
+                times = 1;
+
+                mockedMethodInvoker.invokeAsync(expectedDeviceId, "", mockedMethodRequest, null, null);
+                times = 2;
+            }
+        };
+    }
+
+    //Tests_SRS_MODULECLIENT_21_002: [If the provided moduleId is null or empty, this function shall throw an IllegalArgumentException.]
+    @Test (expected = IllegalArgumentException.class)
+    public void invokeMethodAsyncOnModuleThrowsForEmptyModuleId() throws URISyntaxException, ModuleClientException
+    {
+        //arrange
+        baseExpectations();
+        ModuleClient client = new ModuleClient("connection string", IotHubClientProtocol.AMQPS);
+
+        //act
+        client.invokeMethodAsync("someDevice", "", mockedMethodRequest, null, null);
+    }
+
+    //Tests_SRS_MODULECLIENT_21_003: [This function shall queue the method invocation on the module in the method invoker, and return its future result.]
+    //Tests_SRS_MODULECLIENT_21_005: [This function shall save the limits, and close the current method invoker so the next invocation creates one with the new limits.]
+    @Test
+    public void invokeMethodAsyncOnModuleUsesInvocationOptions(@Mocked final MethodInvoker mockedMethodInvoker) throws URISyntaxException, ModuleClientException
+    {
+        //arrange
+        baseExpectations();
+        ModuleClient client = new ModuleClient("connection string", IotHubClientProtocol.AMQPS);
+        client.invokeMethodAsync("someDevice", "someModule", mockedMethodRequest, null, null);
+
+        //act
+        client.setMethodInvocationOptions(200, 5000);
+        client.invokeMethodAsync("someDevice", "someModule", mockedMethodRequest, null, null);
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockedMethodInvoker.close();
+                times = 1;
+
+                new MethodInvoker((HttpsTransportManager) any, 200, 5000);
+                times = 1;
+
+                mockedMethodInvoker.invokeAsync("someDevice", "someModule", mockedMethodRequest, null, null);
+                times = 2;
+            }
+        };
+    }
+
+    //Tests_SRS_MODULECLIENT_21_004: [If maxConcurrentInvocations is not positive, or timeoutMillis is negative, this function shall throw an IllegalArgumentException.]
+    @Test (expected = IllegalArgumentException.class)
+    public void setMethodInvocationOptionsThrowsForNegativeTimeout() throws URISyntaxException, ModuleClientException
+    {
+        //arrange
+        baseExpectations();
+        ModuleClient client = new ModuleClient("connection string", IotHubClientProtocol.AMQPS);
+
+        //act
+        client.setMethodInvocationOptions(1, -1);
+    }
+
+    //Tests_SRS_MODULECLIENT_21_006: [This function shall cancel the pending method invocations, close the method
+    // invoker and its transport manager, and invoke super.closeNow().]
+    @Test
+    public void closeNowClosesMethodInvoker(@Mocked final MethodInvoker mockedMethodInvoker) throws URISyntaxException, ModuleClientException, IOException
+    {
+        //arrange
+        baseExpectations();
+        ModuleClient client = new ModuleClient("connection string", IotHubClientProtocol.AMQPS);
+        client.invokeMethodAsync("someDevice", mockedMethodRequest, null, null);
+
+        //act
+        client.closeNow();
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockedMethodInvoker.closeNow();
+                times = 1;
+
+                mockedHttpsTransportManager.close();
+                times = 1;
+
+                mockedDeviceIO.close();
+                times = 1;
+            }
+        };
+    }
+
+    //Tests_SRS_MODULECLIENT_21_007: [This function shall cancel the pending method invocations, close the method
+    // invoker and its transport manager, and invoke super.close().]
+    @Test
+    public void closeClosesMethodInvokerAndTransportManager(@Mocked final MethodInvoker mockedMethodInvoker) throws URISyntaxException, ModuleClientException, IOException
+    {
+        //arrange
+        baseExpectations();
+        ModuleClient client = new ModuleClient("connection string", IotHubClientProtocol.AMQPS);
+        client.invokeMethodAsync("someDevice", mockedMethodRequest, null, null);
+        new NonStrictExpectations()
+        {
+            {
+                mockedDeviceIO.isEmpty();
+                result = true;
+            }
+        };
+
+        //act
+        client.close();
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockedMethodInvoker.closeNow();
+                times = 1;
+
+                mockedHttpsTransportManager.close();
+                times = 1;
+            }
+        };
+    }
 }
@@ -3,8 +3,10 @@ package tests.unit.com.microsoft.azure.sdk.iot.device;
 import com.microsoft.azure.sdk.iot.device.*;
 import com.microsoft.azure.sdk.iot.device.auth.IotHubSasTokenAuthenticationProvider;
 import com.microsoft.azure.sdk.iot.device.exceptions.TransportException;
+import com.microsoft.azure.sdk.iot.device.transport.InMemoryTransportMetrics;
 import com.microsoft.azure.sdk.iot.device.transport.NoRetry;
 import com.microsoft.azure.sdk.iot.device.transport.RetryPolicy;
+import com.microsoft.azure.sdk.iot.device.transport.TransportMetrics;
 import mockit.Deencapsulation;
 import mockit.Mocked;
 import mockit.NonStrictExpectations;
@@ -422,4 +424,47 @@ public class TransportClientTest
             }
         };
     }
+
+    // Tests_SRS_TRANSPORTCLIENT_21_001: [The function shall throw UnsupportedOperationException if there is no registered device client]
+    @Test (expected = UnsupportedOperationException.class)
+    public void setTransportMetricsThrowsIfNoRegisteredDeviceClient()
+    {
+        // arrange
+        TransportClient transportClient = new TransportClient(IotHubClientProtocol.AMQPS);
+        Deencapsulation.setField(transportClient, "deviceClientList", new ArrayList<DeviceClient>());
+
+        // act
+        transportClient.setTransportMetrics(new InMemoryTransportMetrics());
+    }
+
+    // Tests_SRS_TRANSPORTCLIENT_21_002: [The function shall set the transport metrics to all registered device clients.]
+    @Test
+    public void setTransportMetricsSetsAllRegisteredDeviceClients()
+    {
+        // arrange
+        TransportClient transportClient = new TransportClient(IotHubClientProtocol.AMQPS);
+        ArrayList<DeviceClient> deviceClientList = new ArrayList<>();
+        deviceClientList.add(mockDeviceClient);
+        deviceClientList.add(mockDeviceClient);
+        Deencapsulation.setField(transportClient, "deviceClientList", deviceClientList);
+        new NonStrictExpectations()
+        {
+            {
+                mockDeviceClient.getConfig();
+                result = mockDeviceClientConfig;
+            }
+        };
+
+        // act
+        transportClient.setTransportMetrics(new InMemoryTransportMetrics());
+
+        // assert
+        new Verifications()
+        {
+            {
+                Deencapsulation.invoke(mockDeviceClientConfig, "setTransportMetrics", new Class[] {TransportMetrics.class}, (TransportMetrics) any);
+                times = 2;
+            }
+        };
+    }
 }
@@ -6,6 +6,7 @@
 package tests.unit.com.microsoft.azure.sdk.iot.device.auth;
 
 import com.microsoft.azure.sdk.iot.deps.auth.IotHubSSLContext;
+import com.microsoft.azure.sdk.iot.deps.auth.IotHubSSLContextCache;
 import com.microsoft.azure.sdk.iot.device.auth.IotHubAuthenticationProvider;
 import com.microsoft.azure.sdk.iot.device.exceptions.TransportException;
 import mockit.Deencapsulation;
@@ -23,6 +24,9 @@ import static junit.framework.TestCase.assertTrue;
 
 public class IotHubAuthenticationProviderTest
 {
+    @Mocked
+    IotHubSSLContextCache mockedIotHubSSLContextCache;
+
     @Mocked
     IotHubSSLContext mockedIotHubSSLContext;
 
@@ -116,7 +120,7 @@ public class IotHubAuthenticationProviderTest
         new NonStrictExpectations()
         {
             {
-                Deencapsulation.newInstance(IotHubSSLContext.class);
+                Deencapsulation.invoke(IotHubSSLContextCache.class, "getIotHubSSLContext");
                 result = new CertificateException();
             }
         };
@@ -135,7 +139,7 @@ public class IotHubAuthenticationProviderTest
         new NonStrictExpectations()
         {
             {
-                Deencapsulation.newInstance(IotHubSSLContext.class);
+                Deencapsulation.invoke(IotHubSSLContextCache.class, "getIotHubSSLContext");
                 result = mockedIotHubSSLContext;
 
                 Deencapsulation.invoke(mockedIotHubSSLContext, "getSSLContext");
@@ -188,7 +192,7 @@ public class IotHubAuthenticationProviderTest
         assertTrue(sslContextNeedsRenewal);
     }
 
-    // Tests_SRS_AUTHENTICATIONPROVIDER_34_019: [If this has a saved iotHubTrustedCert, this function shall generate a new IotHubSSLContext object with that saved cert as the trusted cert.]
+    // Tests_SRS_AUTHENTICATIONPROVIDER_34_019: [If this has a saved iotHubTrustedCert, this function shall get the shared IotHubSSLContext object with that saved cert as the trusted cert from the IotHubSSLContextCache.]
     @Test
     public void generateSSLContextUsesSavedTrustedCert()
     {
@@ -204,13 +208,13 @@ public class IotHubAuthenticationProviderTest
         new Verifications()
         {
             {
-                Deencapsulation.newInstance(IotHubSSLContext.class, new Class[] {String.class, boolean.class}, expectedCert, false);
+                Deencapsulation.invoke(IotHubSSLContextCache.class, "getIotHubSSLContext", new Class[] {String.class, boolean.class}, expectedCert, false);
                 times = 1;
             }
         };
     }
 
-    // Tests_SRS_AUTHENTICATIONPROVIDER_34_020: [If this has a saved path to a iotHubTrustedCert, this function shall generate a new IotHubSSLContext object with that saved cert path as the trusted cert.]
+    // Tests_SRS_AUTHENTICATIONPROVIDER_34_020: [If this has a saved path to a iotHubTrustedCert, this function shall get the shared IotHubSSLContext object with that saved cert path as the trusted cert from the IotHubSSLContextCache.]
     @Test
     public void generateSSLContextUsesSavedTrustedCertPath()
     {
@@ -226,13 +230,13 @@ public class IotHubAuthenticationProviderTest
         new Verifications()
         {
             {
-                Deencapsulation.newInstance(IotHubSSLContext.class, new Class[] {String.class, boolean.class}, expectedCertPath, true);
+                Deencapsulation.invoke(IotHubSSLContextCache.class, "getIotHubSSLContext", new Class[] {String.class, boolean.class}, expectedCertPath, true);
                 times = 1;
             }
         };
     }
     
-    // Tests_SRS_AUTHENTICATIONPROVIDER_34_021: [If this has no saved iotHubTrustedCert or path, This function shall create and save a new default IotHubSSLContext object.]
+    // Tests_SRS_AUTHENTICATIONPROVIDER_34_021: [If this has no saved iotHubTrustedCert or path, This function shall get the shared default IotHubSSLContext object from the IotHubSSLContextCache.]
     @Test
     public void generateSSLContextGeneratesDefaultIotHubSSLContext()
     {
@@ -246,7 +250,7 @@ public class IotHubAuthenticationProviderTest
         new Verifications()
         {
             {
-                Deencapsulation.newInstance(IotHubSSLContext.class);
+                Deencapsulation.invoke(IotHubSSLContextCache.class, "getIotHubSSLContext");
                 times = 1;
             }
         };
@@ -0,0 +1,383 @@
+/*
+ *  Copyright (c) Microsoft. All rights reserved.
+ *  Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package tests.unit.com.microsoft.azure.sdk.iot.device.edge;
+
+import com.microsoft.azure.sdk.iot.device.edge.MethodInvoker;
+import com.microsoft.azure.sdk.iot.device.edge.MethodRequest;
+import com.microsoft.azure.sdk.iot.device.edge.MethodResult;
+import com.microsoft.azure.sdk.iot.device.edge.MethodResultCallback;
+import com.microsoft.azure.sdk.iot.device.transport.https.HttpsTransportManager;
+import mockit.Delegate;
+import mockit.Mocked;
+import mockit.NonStrictExpectations;
+import mockit.Verifications;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static junit.framework.TestCase.*;
+
+public class MethodInvokerTest
+{
+    @Mocked
+    HttpsTransportManager mockedHttpsTransportManager;
+
+    @Mocked
+    MethodRequest mockedMethodRequest;
+
+    @Mocked
+    MethodResult mockedMethodResult;
+
+    private static final String expectedDeviceId = "someDevice";
+    private static final String expectedModuleId = "someModule";
+    private static final long TEST_WAIT_SECONDS = 10;
+
+    // Tests_SRS_METHODINVOKER_21_001: [If the transport manager is null, the constructor shall throw an IllegalArgumentException.]
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsForNullTransportManager()
+    {
+        //act
+        new MethodInvoker(null, 1, 0);
+    }
+
+    // Tests_SRS_METHODINVOKER_21_002: [If the maximum concurrency is not positive or the timeout is negative, the constructor shall throw an IllegalArgumentException.]
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsForZeroConcurrency()
+    {
+        //act
+        new MethodInvoker(mockedHttpsTransportManager, 0, 0);
+    }
+
+    // Tests_SRS_METHODINVOKER_21_002: [If the maximum concurrency is not positive or the timeout is negative, the constructor shall throw an IllegalArgumentException.]
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsForNegativeTimeout()
+    {
+        //act
+        new MethodInvoker(mockedHttpsTransportManager, 1, -1);
+    }
+
+    // Tests_SRS_METHODINVOKER_21_004: [If the device id is null or empty, or the method request is null, this function shall throw an IllegalArgumentException.]
+    @Test (expected = IllegalArgumentException.class)
+    public void invokeAsyncThrowsForEmptyDeviceId()
+    {
+        //arrange
+        MethodInvoker methodInvoker = new MethodInvoker(mockedHttpsTransportManager, 1, 0);
+
+        //act
+        methodInvoker.invokeAsync("", expectedModuleId, mockedMethodRequest, null, null);
+    }
+
+    // Tests_SRS_METHODINVOKER_21_005: [This function shall queue the invocation of the method through the transport manager and return its future result.]
+    // Tests_SRS_METHODINVOKER_21_008: [When the invocation completes, this function shall execute the callback with the method result, or with the exception that failed the invocation.]
+    @Test
+    public void invokeAsyncCompletesWithResult() throws Exception
+    {
+        //arrange
+        new NonStrictExpectations()
+        {
+            {
+                mockedHttpsTransportManager.invokeMethod(mockedMethodRequest, expectedDeviceId, expectedModuleId);
+                result = mockedMethodResult;
+            }
+        };
+        final Object expectedContext = new Object();
+        final CountDownLatch callbackLatch = new CountDownLatch(1);
+        final AtomicReference<MethodResult> callbackResult = new AtomicReference<>();
+        final AtomicReference<Object> callbackContext = new AtomicReference<>();
+        MethodInvoker methodInvoker = new MethodInvoker(mockedHttpsTransportManager, 4, 0);
+
+        //act
+        Future<MethodResult> future = methodInvoker.invokeAsync(expectedDeviceId, expectedModuleId, mockedMethodRequest, new MethodResultCallback()
+        {
+            @Override
+            public void onMethodResult(MethodResult methodResult, Throwable exception, Object context)
+            {
+                callbackResult.set(methodResult);
+                callbackContext.set(context);
+                callbackLatch.countDown();
+            }
+        }, expectedContext);
+
+        //assert
+        assertEquals(mockedMethodResult, future.get(TEST_WAIT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(callbackLatch.await(TEST_WAIT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(mockedMethodResult, callbackResult.get());
+        assertEquals(expectedContext, callbackContext.get());
+        methodInvoker.close();
+    }
+
+    // Tests_SRS_METHODINVOKER_21_008: [When the invocation completes, this function shall execute the callback with the method result, or with the exception that failed the invocation.]
+    @Test
+    public void invokeAsyncCompletesWithFailure() throws Exception
+    {
+        //arrange
+        final IOException expectedException = new IOException("edgeHub unreachable");
+        new NonStrictExpectations()
+        {
+            {
+                mockedHttpsTransportManager.invokeMethod(mockedMethodRequest, expectedDeviceId, expectedModuleId);
+                result = expectedException;
+            }
+        };
+        final CountDownLatch callbackLatch = new CountDownLatch(1);
+        final AtomicReference<Throwable> callbackException = new AtomicReference<>();
+        MethodInvoker methodInvoker = new MethodInvoker(mockedHttpsTransportManager, 4, 0);
+
+        //act
+        Future<MethodResult> future = methodInvoker.invokeAsync(expectedDeviceId, expectedModuleId, mockedMethodRequest, new MethodResultCallback()
+        {
+            @Override
+            public void onMethodResult(MethodResult methodResult, Throwable exception, Object context)
+            {
+                callbackException.set(exception);
+                callbackLatch.countDown();
+            }
+        }, null);
+
+        //assert
+        try
+        {
+            future.get(TEST_WAIT_SECONDS, TimeUnit.SECONDS);
+            fail("The invocation should fail");
+        }
+        catch (ExecutionException e)
+        {
+            assertEquals(expectedException, e.getCause());
+        }
+
+        assertTrue(callbackLatch.await(TEST_WAIT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(expectedException, callbackException.get());
+        methodInvoker.close();
+    }
+
+    // Tests_SRS_METHODINVOKER_21_007: [If the invocation does not complete in timeoutMillis, this function shall complete it with a TimeoutException.]
+    @Test
+    public void invokeAsyncTimesOut() throws Exception
+    {
+        //arrange
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        new NonStrictExpectations()
+        {
+            {
+                mockedHttpsTransportManager.invokeMethod(mockedMethodRequest, expectedDeviceId, expectedModuleId);
+                result = new Delegate()
+                {
+                    MethodResult invokeMethod(MethodRequest methodRequest, String deviceId, String moduleId) throws InterruptedException
+                    {
+                        releaseLatch.await(TEST_WAIT_SECONDS, TimeUnit.SECONDS);
+                        return mockedMethodResult;
+                    }
+                };
+            }
+        };
+        MethodInvoker methodInvoker = new MethodInvoker(mockedHttpsTransportManager, 1, 50);
+
+        //act
+        Future<MethodResult> future = methodInvoker.invokeAsync(expectedDeviceId, expectedModuleId, mockedMethodRequest, null, null);
+
+        //assert
+        try
+        {
+            future.get(TEST_WAIT_SECONDS, TimeUnit.SECONDS);
+            fail("The invocation should time out");
+        }
+        catch (ExecutionException e)
+        {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        finally
+        {
+            releaseLatch.countDown();
+            methodInvoker.close();
+        }
+    }
+
+    // Tests_SRS_METHODINVOKER_21_003: [The constructor shall create an executor with up to maxConcurrentInvocations daemon threads, that stop when idle.]
+    @Test
+    public void invokeAsyncLimitsConcurrency() throws Exception
+    {
+        //arrange
+        final int maxConcurrentInvocations = 3;
+        final AtomicInteger runningInvocations = new AtomicInteger();
+        final AtomicInteger maxRunningInvocations = new AtomicInteger();
+        new NonStrictExpectations()
+        {
+            {
+                mockedHttpsTransportManager.invokeMethod(mockedMethodRequest, expectedDeviceId, expectedModuleId);
+                result = new Delegate()
+                {
+                    MethodResult invokeMethod(MethodRequest methodRequest, String deviceId, String moduleId) throws InterruptedException
+                    {
+                        int running = runningInvocations.incrementAndGet();
+                        int max = maxRunningInvocations.get();
+                        while (running > max && !maxRunningInvocations.compareAndSet(max, running))
+                        {
+                            max = maxRunningInvocations.get();
+                        }
+
+                        Thread.sleep(10);
+                        runningInvocations.decrementAndGet();
+                        return mockedMethodResult;
+                    }
+                };
+            }
+        };
+        MethodInvoker methodInvoker = new MethodInvoker(mockedHttpsTransportManager, maxConcurrentInvocations, 0);
+
+        //act
+        Future<?>[] futures = new Future<?>[20];
+        for (int i = 0; i < futures.length; i++)
+        {
+            futures[i] = methodInvoker.invokeAsync(expectedDeviceId, expectedModuleId, mockedMethodRequest, null, null);
+        }
+
+        for (Future<?> future : futures)
+        {
+            future.get(TEST_WAIT_SECONDS, TimeUnit.SECONDS);
+        }
+
+        //assert
+        assertTrue(maxRunningInvocations.get() <= maxConcurrentInvocations);
+        assertTrue(maxRunningInvocations.get() > 1);
+        methodInvoker.close();
+    }
+
+    // Tests_SRS_METHODINVOKER_21_006: [If the invoker is closed, this function shall throw an IllegalStateException.]
+    // Tests_SRS_METHODINVOKER_21_009: [This function shall stop accepting invocations, and let the queued ones complete.]
+    @Test (expected = IllegalStateException.class)
+    public void invokeAsyncThrowsIfClosed()
+    {
+        //arrange
+        MethodInvoker methodInvoker = new MethodInvoker(mockedHttpsTransportManager, 1, 100);
+        methodInvoker.close();
+
+        //act
+        methodInvoker.invokeAsync(expectedDeviceId, expectedModuleId, mockedMethodRequest, null, null);
+    }
+
+    // Tests_SRS_METHODINVOKER_21_010: [The constructor shall set the read timeout of the transport manager to
+    // timeoutMillis, or reset it to the configuration one if timeoutMillis is 0.]
+    @Test
+    public void constructorSetsReadTimeoutOfTransportManager()
+    {
+        //act
+        MethodInvoker methodInvoker = new MethodInvoker(mockedHttpsTransportManager, 1, 5000);
+        MethodInvoker methodInvokerWithoutTimeout = new MethodInvoker(mockedHttpsTransportManager, 1, 0);
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockedHttpsTransportManager.setReadTimeoutMillis(5000);
+                times = 1;
+                mockedHttpsTransportManager.setReadTimeoutMillis(0);
+                times = 1;
+            }
+        };
+        methodInvoker.close();
+        methodInvokerWithoutTimeout.close();
+    }
+
+    // Tests_SRS_METHODINVOKER_21_007: [If the invocation does not complete in timeoutMillis, this function shall
+    // complete it with a TimeoutException, and interrupt the thread running it.]
+    @Test
+    public void invokeAsyncTimeOutReleasesThreadForNextInvocation() throws Exception
+    {
+        //arrange
+        final CountDownLatch interruptedLatch = new CountDownLatch(1);
+        final AtomicInteger invocationCount = new AtomicInteger();
+        new NonStrictExpectations()
+        {
+            {
+                mockedHttpsTransportManager.invokeMethod(mockedMethodRequest, expectedDeviceId, expectedModuleId);
+                result = new Delegate()
+                {
+                    MethodResult invokeMethod(MethodRequest methodRequest, String deviceId, String moduleId) throws InterruptedException
+                    {
+                        if (invocationCount.incrementAndGet() == 1)
+                        {
+                            try
+                            {
+                                Thread.sleep(TimeUnit.SECONDS.toMillis(TEST_WAIT_SECONDS));
+                            }
+                            catch (InterruptedException e)
+                            {
+                                interruptedLatch.countDown();
+                                throw e;
+                            }
+                        }
+                        return mockedMethodResult;
+                    }
+                };
+            }
+        };
+        MethodInvoker methodInvoker = new MethodInvoker(mockedHttpsTransportManager, 1, 200);
+
+        //act
+        Future<MethodResult> blockedFuture = methodInvoker.invokeAsync(expectedDeviceId, expectedModuleId, mockedMethodRequest, null, null);
+
+        //assert
+        try
+        {
+            assertTrue(interruptedLatch.await(TEST_WAIT_SECONDS, TimeUnit.SECONDS));
+            assertTrue(blockedFuture.isDone());
+            Future<MethodResult> nextFuture = methodInvoker.invokeAsync(expectedDeviceId, expectedModuleId, mockedMethodRequest, null, null);
+            assertEquals(mockedMethodResult, nextFuture.get(TEST_WAIT_SECONDS, TimeUnit.SECONDS));
+        }
+        finally
+        {
+            methodInvoker.close();
+        }
+    }
+
+    // Tests_SRS_METHODINVOKER_21_011: [This function shall stop accepting invocations, and cancel the queued and
+    // the running ones, interrupting the threads running them.]
+    @Test
+    public void closeNowCancelsPendingInvocations() throws Exception
+    {
+        //arrange
+        final CountDownLatch startedLatch = new CountDownLatch(1);
+        final CountDownLatch interruptedLatch = new CountDownLatch(1);
+        new NonStrictExpectations()
+        {
+            {
+                mockedHttpsTransportManager.invokeMethod(mockedMethodRequest, expectedDeviceId, expectedModuleId);
+                result = new Delegate()
+                {
+                    MethodResult invokeMethod(MethodRequest methodRequest, String deviceId, String moduleId) throws InterruptedException
+                    {
+                        startedLatch.countDown();
+                        try
+                        {
+                            Thread.sleep(TimeUnit.SECONDS.toMillis(TEST_WAIT_SECONDS));
+                        }
+                        catch (InterruptedException e)
+                        {
+                            interruptedLatch.countDown();
+                            throw e;
+                        }
+                        return mockedMethodResult;
+                    }
+                };
+            }
+        };
+        MethodInvoker methodInvoker = new MethodInvoker(mockedHttpsTransportManager, 1, 0);
+        Future<MethodResult> runningFuture = methodInvoker.invokeAsync(expectedDeviceId, expectedModuleId, mockedMethodRequest, null, null);
+        Future<MethodResult> queuedFuture = methodInvoker.invokeAsync(expectedDeviceId, expectedModuleId, mockedMethodRequest, null, null);
+        assertTrue(startedLatch.await(TEST_WAIT_SECONDS, TimeUnit.SECONDS));
+
+        //act
+        methodInvoker.closeNow();
+
+        //assert
+        assertTrue(runningFuture.isCancelled());
+        assertTrue(queuedFuture.isCancelled());
+        assertTrue(interruptedLatch.await(TEST_WAIT_SECONDS, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,79 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package tests.unit.com.microsoft.azure.sdk.iot.device.fileupload;
+
+import com.microsoft.azure.sdk.iot.device.fileupload.BandwidthThrottle;
+import mockit.Deencapsulation;
+import org.junit.Test;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the bandwidth throttle of the file uploads.
+ */
+public class BandwidthThrottleTest
+{
+    private static BandwidthThrottle createThrottle(long maxBytesPerSecond)
+    {
+        return Deencapsulation.newInstance(BandwidthThrottle.class, new Class[] {long.class}, maxBytesPerSecond);
+    }
+
+    /* Tests_SRS_BANDWIDTHTHROTTLE_21_001: [If the `maxBytesPerSecond` is not positive, the constructor shall throw IllegalArgumentException.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnZeroCap()
+    {
+        // act
+        createThrottle(0);
+    }
+
+    /* Tests_SRS_BANDWIDTHTHROTTLE_21_002: [The acquire shall reserve the time to send the `bytes` at the cap, after the time reserved by the previous calls.] */
+    /* Tests_SRS_BANDWIDTHTHROTTLE_21_003: [The acquire shall wait until the start of the reserved time.] */
+    @Test
+    public void acquireWaitsForTheBytesGrantedBefore()
+    {
+        // arrange
+        BandwidthThrottle throttle = createThrottle(10000);
+        long start = System.nanoTime();
+
+        // act
+        Deencapsulation.invoke(throttle, "acquire", 1000L);
+        long afterFirst = System.nanoTime();
+        Deencapsulation.invoke(throttle, "acquire", 1000L);
+        Deencapsulation.invoke(throttle, "acquire", 1000L);
+        long afterThird = System.nanoTime();
+
+        // assert
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(afterFirst - start) < 100);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(afterThird - start) >= 190);
+    }
+
+    /* Tests_SRS_BANDWIDTHTHROTTLE_21_004: [If the wait is interrupted, the acquire shall throw InterruptedIOException.] */
+    @Test
+    public void acquireThrowsIfInterrupted()
+    {
+        // arrange
+        BandwidthThrottle throttle = createThrottle(1);
+        Deencapsulation.invoke(throttle, "acquire", 1000L);
+        Thread.currentThread().interrupt();
+
+        // act
+        try
+        {
+            Deencapsulation.invoke(throttle, "acquire", 1L);
+            assertTrue("acquire shall throw", false);
+        }
+        catch (Exception e)
+        {
+            // assert
+            assertTrue(e instanceof InterruptedIOException);
+        }
+        finally
+        {
+            assertTrue(Thread.interrupted());
+        }
+    }
+}
@@ -0,0 +1,420 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package tests.unit.com.microsoft.azure.sdk.iot.device.fileupload;
+
+import com.microsoft.azure.sdk.iot.device.fileupload.BandwidthThrottle;
+import com.microsoft.azure.sdk.iot.device.fileupload.BlockBlobUploader;
+import com.microsoft.azure.storage.AccessCondition;
+import com.microsoft.azure.storage.OperationContext;
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.blob.BlobRequestOptions;
+import com.microsoft.azure.storage.blob.BlockEntry;
+import com.microsoft.azure.storage.blob.BlockListingFilter;
+import com.microsoft.azure.storage.blob.CloudBlockBlob;
+import mockit.Deencapsulation;
+import mockit.Mock;
+import mockit.MockUp;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the block blob uploader, against an in memory stand-in of the blob storage.
+ */
+public class BlockBlobUploaderTest
+{
+    private static final int BLOCK_SIZE = 1024;
+
+    /**
+     * In memory stand-in of the block blob storage. The staged blocks survive between uploads, as they do in the
+     * storage until they are committed.
+     */
+    private static final class LocalBlockBlobStorage extends MockUp<CloudBlockBlob>
+    {
+        final Map<String, byte[]> stagedBlocks = Collections.synchronizedMap(new HashMap<String, byte[]>());
+        final AtomicInteger uploadBlockCalls = new AtomicInteger();
+        final AtomicInteger singleUploadCalls = new AtomicInteger();
+        final Set<Integer> failingBlocks = Collections.synchronizedSet(new HashSet<Integer>());
+        volatile int failuresPerBlock;
+        volatile StorageException listFailure;
+        volatile byte[] content;
+
+        @Mock
+        void $init(URI blobUri)
+        {
+        }
+
+        @Mock
+        void upload(InputStream inputStream, long length) throws IOException
+        {
+            singleUploadCalls.incrementAndGet();
+            content = readAll(inputStream, length);
+        }
+
+        @Mock
+        synchronized void uploadBlock(String blockId, InputStream inputStream, long length) throws StorageException, IOException
+        {
+            int call = uploadBlockCalls.incrementAndGet();
+            int index = Integer.parseInt(new String(com.microsoft.azure.sdk.iot.deps.util.Base64.decodeBase64Local(blockId.getBytes())).substring(0, 8));
+            if (failingBlocks.contains(index) && failuresPerBlock > 0)
+            {
+                failuresPerBlock--;
+                throw new StorageException("ServerBusy", "failed block " + index + " on call " + call, 503, null, null);
+            }
+
+            stagedBlocks.put(blockId, readAll(inputStream, length));
+        }
+
+        @Mock
+        ArrayList<BlockEntry> downloadBlockList(BlockListingFilter filter, AccessCondition accessCondition, BlobRequestOptions options, OperationContext context) throws StorageException
+        {
+            if (listFailure != null)
+            {
+                throw listFailure;
+            }
+
+            ArrayList<BlockEntry> blockList = new ArrayList<>();
+            synchronized (stagedBlocks)
+            {
+                for (Map.Entry<String, byte[]> block : stagedBlocks.entrySet())
+                {
+                    BlockEntry blockEntry = new BlockEntry(block.getKey());
+                    blockEntry.setSize(block.getValue().length);
+                    blockList.add(blockEntry);
+                }
+            }
+            return blockList;
+        }
+
+        @Mock
+        void commitBlockList(Iterable<BlockEntry> blockList) throws StorageException
+        {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            for (BlockEntry blockEntry : blockList)
+            {
+                byte[] block = stagedBlocks.get(blockEntry.getId());
+                if (block == null)
+                {
+                    throw new StorageException("InvalidBlockList", "unknown block", 400, null, null);
+                }
+                output.write(block, 0, block.length);
+            }
+            stagedBlocks.clear();
+            content = output.toByteArray();
+        }
+
+        private static byte[] readAll(InputStream inputStream, long length) throws IOException
+        {
+            byte[] bytes = new byte[(int) length];
+            int offset = 0;
+            while (offset < length)
+            {
+                int read = inputStream.read(bytes, offset, (int) length - offset);
+                if (read < 0)
+                {
+                    throw new IOException("stream ended early");
+                }
+                offset += read;
+            }
+            return bytes;
+        }
+    }
+
+    private static byte[] createContent(int length)
+    {
+        byte[] content = new byte[length];
+        new Random(length).nextBytes(content);
+        return content;
+    }
+
+    private static BlockBlobUploader createUploader(int blockSize, int parallelism)
+    {
+        return Deencapsulation.newInstance(BlockBlobUploader.class, new Class[] {int.class, int.class}, blockSize, parallelism);
+    }
+
+    private static void upload(BlockBlobUploader uploader, CloudBlockBlob blob, InputStream inputStream, long length)
+    {
+        Deencapsulation.invoke(uploader, "upload", new Class[] {CloudBlockBlob.class, InputStream.class, long.class}, blob, inputStream, length);
+    }
+
+    /* Tests_SRS_BLOCKBLOBUPLOADER_21_001: [If the `blockSizeInBytes` is negative or bigger than 4MB, or the `parallelism` is negative, the constructor shall throw IllegalArgumentException.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnBlockBiggerThan4MB()
+    {
+        // act
+        createUploader(4 * 1024 * 1024 + 1, 1);
+    }
+
+    /* Tests_SRS_BLOCKBLOBUPLOADER_21_001: [If the `blockSizeInBytes` is negative or bigger than 4MB, or the `parallelism` is negative, the constructor shall throw IllegalArgumentException.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnNegativeParallelism()
+    {
+        // act
+        createUploader(BLOCK_SIZE, -1);
+    }
+
+    /* Tests_SRS_BLOCKBLOBUPLOADER_21_002: [If the `blockSizeInBytes` or the `parallelism` is 0, the constructor shall use the default value.] */
+    @Test
+    public void constructorUsesDefaults()
+    {
+        // act
+        BlockBlobUploader uploader = createUploader(0, 0);
+
+        // assert
+        assertEquals(4 * 1024 * 1024, (int) Deencapsulation.getField(uploader, "blockSizeInBytes"));
+        assertEquals(1, (int) Deencapsulation.getField(uploader, "parallelism"));
+    }
+
+    /* Tests_SRS_BLOCKBLOBUPLOADER_21_003: [If the stream fits in a single block, the upload shall upload it with a single request.] */
+    @Test
+    public void uploadSmallStreamWithSingleRequest() throws Exception
+    {
+        // arrange
+        LocalBlockBlobStorage storage = new LocalBlockBlobStorage();
+        CloudBlockBlob blob = new CloudBlockBlob(new URI("https://test.blob.core.windows.net/container/blob"));
+        byte[] content = createContent(BLOCK_SIZE);
+
+        // act
+        upload(createUploader(BLOCK_SIZE, 4), blob, new ByteArrayInputStream(content), content.length);
+
+        // assert
+        assertEquals(1, storage.singleUploadCalls.get());
+        assertEquals(0, storage.uploadBlockCalls.get());
+        assertArrayEquals(content, storage.content);
+    }
+
+    /* Tests_SRS_BLOCKBLOBUPLOADER_21_006: [The upload shall stage the blocks using up to `parallelism` threads, including the caller thread.] */
+    /* Tests_SRS_BLOCKBLOBUPLOADER_21_007: [When all the blocks are staged, the upload shall commit the blocks in order.] */
+    @Test
+    public void uploadStreamInParallelBlocks() throws Exception
+    {
+        // arrange
+        LocalBlockBlobStorage storage = new LocalBlockBlobStorage();
+        CloudBlockBlob blob = new CloudBlockBlob(new URI("https://test.blob.core.windows.net/container/blob"));
+        byte[] content = createContent(10 * BLOCK_SIZE + 17);
+
+        // act
+        upload(createUploader(BLOCK_SIZE, 3), blob, new ByteArrayInputStream(content), content.length);
+
+        // assert
+        assertEquals(0, storage.singleUploadCalls.get());
+        assertEquals(11, storage.uploadBlockCalls.get());
+        assertArrayEquals(content, storage.content);
+    }
+
+    /* Tests_SRS_BLOCKBLOBUPLOADER_21_010: [If there is a `bandwidthThrottle`, the upload shall acquire the bytes of each request from it before sending the request.] */
+    @Test
+    public void uploadAcquiresBandwidthForEachBlock() throws Exception
+    {
+        // arrange
+        LocalBlockBlobStorage storage = new LocalBlockBlobStorage();
+        CloudBlockBlob blob = new CloudBlockBlob(new URI("https://test.blob.core.windows.net/container/blob"));
+        byte[] content = createContent(3 * BLOCK_SIZE);
+        BandwidthThrottle throttle = Deencapsulation.newInstance(BandwidthThrottle.class, new Class[] {long.class}, 1000000000L);
+        BlockBlobUploader uploader = Deencapsulation.newInstance(BlockBlobUploader.class,
+                new Class[] {int.class, int.class, BandwidthThrottle.class}, BLOCK_SIZE, 2, throttle);
+        long nextFreeNanoTime = Deencapsulation.getField(throttle, "nextFreeNanoTime");
+
+        // act
+        upload(uploader, blob, new ByteArrayInputStream(content), content.length);
+
+        // assert
+        assertArrayEquals(content, storage.content);
+        long reservedNanoTime = (long) Deencapsulation.getField(throttle, "nextFreeNanoTime") - nextFreeNanoTime;
+        assertTrue(reservedNanoTime >= content.length);
+    }
+
+    /* Tests_SRS_BLOCKBLOBUPLOADER_21_006: [The upload shall stage the blocks using up to `parallelism` threads, including the caller thread.] */
+    @Test
+    public void uploadFileInParallelBlocksFromChannel() throws Exception
+    {
+        // arrange
+        LocalBlockBlobStorage storage = new LocalBlockBlobStorage();
+        CloudBlockBlob blob = new CloudBlockBlob(new URI("https://test.blob.core.windows.net/container/blob"));
+        byte[] content = createContent(7 * BLOCK_SIZE + 3);
+        File file = File.createTempFile("blockBlobUploader", ".bin");
+        file.deleteOnExit();
+        try (FileOutputStream output = new FileOutputStream(file))
+        {
+            output.write(new byte[5]);
+            output.write(content);
+        }
+
+        // act
+        try (FileInputStream input = new FileInputStream(file))
+        {
+            assertEquals(5, input.skip(5));
+            upload(createUploader(BLOCK_SIZE, 4), blob, input, content.length);
+        }
+
+        // assert
+        assertEquals(8, storage.uploadBlockCalls.get());
+        assertArrayEquals(content, storage.content);
+        assertTrue(file.delete());
+    }
+
+    /* Tests_SRS_BLOCKBLOBUPLOADER_21_009: [If a block fails to upload, the upload shall retry it up to 3 times before failing.] */
+    /* Tests_SRS_BLOCKBLOBUPLOADER_21_012: [The upload shall wait before each retry of a block, with an exponential backoff with jitter.] */
+    @Test
+    public void uploadRetriesFailedBlock() throws Exception
+    {
+        // arrange
+        LocalBlockBlobStorage storage = new LocalBlockBlobStorage();
+        storage.failingBlocks.add(2);
+        storage.failuresPerBlock = 2;
+        CloudBlockBlob blob = new CloudBlockBlob(new URI("https://test.blob.core.windows.net/container/blob"));
+        byte[] content = createContent(4 * BLOCK_SIZE);
+        long startMillis = System.currentTimeMillis();
+
+        // act
+        upload(createUploader(BLOCK_SIZE, 1), blob, new ByteArrayInputStream(content), content.length);
+
+        // assert
+        assertTrue(System.currentTimeMillis() - startMillis >= 250);
+        assertEquals(6, storage.uploadBlockCalls.get());
+        assertArrayEquals(content, storage.content);
+    }
+
+    /* Tests_SRS_BLOCKBLOBUPLOADER_21_011: [If the blob does not exist, the upload shall stage all the blocks, otherwise, if the uncommitted blocks cannot be listed, the upload shall throw the StorageException.] */
+    @Test
+    public void uploadStagesAllBlocksIfBlobDoesNotExist() throws Exception
+    {
+        // arrange
+        LocalBlockBlobStorage storage = new LocalBlockBlobStorage();
+        storage.listFailure = new StorageException("BlobNotFound", "the blob does not exist", 404, null, null);
+        CloudBlockBlob blob = new CloudBlockBlob(new URI("https://test.blob.core.windows.net/container/blob"));
+        byte[] content = createContent(3 * BLOCK_SIZE);
+
+        // act
+        upload(createUploader(BLOCK_SIZE, 1), blob, new ByteArrayInputStream(content), content.length);
+
+        // assert
+        assertEquals(3, storage.uploadBlockCalls.get());
+        assertArrayEquals(content, storage.content);
+    }
+
+    /* Tests_SRS_BLOCKBLOBUPLOADER_21_011: [If the blob does not exist, the upload shall stage all the blocks, otherwise, if the uncommitted blocks cannot be listed, the upload shall throw the StorageException.] */
+    @Test
+    public void uploadThrowsIfStagedBlocksCannotBeListed() throws Exception
+    {
+        // arrange
+        LocalBlockBlobStorage storage = new LocalBlockBlobStorage();
+        storage.listFailure = new StorageException("AuthenticationFailed", "the SAS token expired", 403, null, null);
+        CloudBlockBlob blob = new CloudBlockBlob(new URI("https://test.blob.core.windows.net/container/blob"));
+        byte[] content = createContent(3 * BLOCK_SIZE);
+
+        // act
+        try
+        {
+            upload(createUploader(BLOCK_SIZE, 1), blob, new ByteArrayInputStream(content), content.length);
+            fail("the upload shall fail if the staged blocks cannot be listed");
+        }
+        catch (Exception e)
+        {
+            // assert
+            assertTrue(e instanceof StorageException);
+        }
+        assertEquals(0, storage.uploadBlockCalls.get());
+        assertNull(storage.content);
+    }
+
+    /* Tests_SRS_BLOCKBLOBUPLOADER_21_005: [The upload shall list the uncommitted blocks of the blob, and skip the blocks that are already staged with the same id and size.] */
+    @Test
+    public void uploadResumesFromStagedBlocks() throws Exception
+    {
+        // arrange
+        LocalBlockBlobStorage storage = new LocalBlockBlobStorage();
+        storage.failingBlocks.add(3);
+        storage.failuresPerBlock = 3;
+        CloudBlockBlob blob = new CloudBlockBlob(new URI("https://test.blob.core.windows.net/container/blob"));
+        byte[] content = createContent(6 * BLOCK_SIZE);
+        BlockBlobUploader uploader = createUploader(BLOCK_SIZE, 1);
+        try
+        {
+            upload(uploader, blob, new ByteArrayInputStream(content), content.length);
+            fail("the first upload shall fail on the block 3");
+        }
+        catch (Exception e)
+        {
+            assertTrue(e instanceof StorageException);
+        }
+        assertNull(storage.content);
+        assertEquals(3, storage.stagedBlocks.size());
+        storage.uploadBlockCalls.set(0);
+
+        // act
+        upload(uploader, blob, new ByteArrayInputStream(content), content.length);
+
+        // assert
+        assertEquals(3, storage.uploadBlockCalls.get());
+        assertArrayEquals(content, storage.content);
+    }
+
+    /* Tests_SRS_BLOCKBLOBUPLOADER_21_005: [The upload shall list the uncommitted blocks of the blob, and skip the blocks that are already staged with the same id and size.] */
+    @Test
+    public void uploadDoesNotReuseStagedBlocksWithOtherContent() throws Exception
+    {
+        // arrange
+        LocalBlockBlobStorage storage = new LocalBlockBlobStorage();
+        storage.failingBlocks.add(1);
+        storage.failuresPerBlock = 3;
+        CloudBlockBlob blob = new CloudBlockBlob(new URI("https://test.blob.core.windows.net/container/blob"));
+        BlockBlobUploader uploader = createUploader(BLOCK_SIZE, 1);
+        byte[] oldContent = createContent(3 * BLOCK_SIZE);
+        try
+        {
+            upload(uploader, blob, new ByteArrayInputStream(oldContent), oldContent.length);
+        }
+        catch (Exception e)
+        {
+            // the block 0 of the old content stays staged
+        }
+        byte[] newContent = createContent(3 * BLOCK_SIZE + 1);
+        storage.uploadBlockCalls.set(0);
+
+        // act
+        upload(uploader, blob, new ByteArrayInputStream(newContent), newContent.length);
+
+        // assert
+        assertEquals(4, storage.uploadBlockCalls.get());
+        assertArrayEquals(newContent, storage.content);
+    }
+
+    /* Tests_SRS_BLOCKBLOBUPLOADER_21_008: [The id of each block shall be the Base64 of its index and the MD5 of its content, with the same length for all the blocks.] */
+    @Test
+    public void getBlockIdHasFixedLength()
+    {
+        // arrange
+        byte[] content = createContent(BLOCK_SIZE);
+
+        // act
+        String firstId = Deencapsulation.invoke(BlockBlobUploader.class, "getBlockId", 0, content, 10);
+        String otherId = Deencapsulation.invoke(BlockBlobUploader.class, "getBlockId", 49999, content, BLOCK_SIZE);
+        String sameIndexOtherContent = Deencapsulation.invoke(BlockBlobUploader.class, "getBlockId", 0, content, 11);
+
+        // assert
+        assertEquals(firstId.length(), otherId.length());
+        assertNotEquals(firstId, sameIndexOtherContent);
+        assertEquals("00000000-", new String(com.microsoft.azure.sdk.iot.deps.util.Base64.decodeBase64Local(firstId.getBytes())).substring(0, 9));
+        assertEquals(9 + 32, com.microsoft.azure.sdk.iot.deps.util.Base64.decodeBase64Local(firstId.getBytes()).length);
+    }
+}
@@ -0,0 +1,167 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package tests.unit.com.microsoft.azure.sdk.iot.device.fileupload;
+
+import com.microsoft.azure.sdk.iot.device.fileupload.FileUploadScheduler;
+import mockit.Deencapsulation;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the file upload scheduler shared by the clients.
+ */
+public class FileUploadSchedulerTest
+{
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private static Object createQueue(FileUploadScheduler scheduler)
+    {
+        return Deencapsulation.invoke(scheduler, "createQueue");
+    }
+
+    private static Future<?> submit(Object queue, Runnable upload)
+    {
+        return Deencapsulation.invoke(queue, "submit", new Class[] {Runnable.class}, upload);
+    }
+
+    private static Runnable recordUpload(final List<String> order, final String name, final CountDownLatch done)
+    {
+        return new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                order.add(name);
+                done.countDown();
+            }
+        };
+    }
+
+    /* Tests_SRS_FILEUPLOADSCHEDULER_21_001: [The getInstance shall return the same scheduler for all the clients, with 10 threads.] */
+    @Test
+    public void getInstanceReturnsSharedScheduler()
+    {
+        // act
+        FileUploadScheduler scheduler1 = Deencapsulation.invoke(FileUploadScheduler.class, "getInstance");
+        FileUploadScheduler scheduler2 = Deencapsulation.invoke(FileUploadScheduler.class, "getInstance");
+
+        // assert
+        assertSame(scheduler1, scheduler2);
+    }
+
+    /* Tests_SRS_FILEUPLOADSCHEDULER_21_002: [If the `maxThreads` is not positive, the constructor shall throw IllegalArgumentException.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnZeroThreads()
+    {
+        // act
+        Deencapsulation.newInstance(FileUploadScheduler.class, new Class[] {int.class}, 0);
+    }
+
+    /* Tests_SRS_FILEUPLOADSCHEDULER_21_003: [The constructor shall start `maxThreads` daemon threads to run the uploads.] */
+    /* Tests_SRS_FILEUPLOADSCHEDULER_21_005: [The submit shall queue the upload, and put the queue in the turn of the scheduler threads if it is not there.] */
+    @Test
+    public void submitRunsClientsInTurns() throws InterruptedException
+    {
+        // arrange
+        FileUploadScheduler scheduler = Deencapsulation.newInstance(FileUploadScheduler.class, new Class[] {int.class}, 1);
+        Object clientA = createQueue(scheduler);
+        Object clientB = createQueue(scheduler);
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(4);
+        submit(clientA, new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                order.add("A1");
+                started.countDown();
+                try
+                {
+                    release.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        // act
+        submit(clientA, recordUpload(order, "A2", done));
+        submit(clientA, recordUpload(order, "A3", done));
+        submit(clientA, recordUpload(order, "A4", done));
+        submit(clientB, recordUpload(order, "B1", done));
+        release.countDown();
+
+        // assert
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals("A1", order.get(0));
+        assertEquals("A2", order.get(1));
+        assertEquals("B1", order.get(2));
+        assertEquals("A3", order.get(3));
+        assertEquals("A4", order.get(4));
+    }
+
+    /* Tests_SRS_FILEUPLOADSCHEDULER_21_006: [The close shall cancel all the unfinished uploads of the queue, and reject new uploads.] */
+    @Test
+    public void closeCancelsOnlyTheUploadsOfTheClient() throws Exception
+    {
+        // arrange
+        FileUploadScheduler scheduler = Deencapsulation.newInstance(FileUploadScheduler.class, new Class[] {int.class}, 1);
+        Object clientA = createQueue(scheduler);
+        Object clientB = createQueue(scheduler);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        Future<?> runningUpload = submit(clientA, new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                started.countDown();
+                try
+                {
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted.countDown();
+                }
+            }
+        });
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        Future<?> pendingUpload = submit(clientA, recordUpload(new ArrayList<String>(), "A2", new CountDownLatch(1)));
+        CountDownLatch otherClientDone = new CountDownLatch(1);
+        submit(clientB, recordUpload(Collections.synchronizedList(new ArrayList<String>()), "B1", otherClientDone));
+
+        // act
+        Deencapsulation.invoke(clientA, "close");
+
+        // assert
+        assertTrue(interrupted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(runningUpload.isCancelled());
+        assertTrue(pendingUpload.isCancelled());
+        assertTrue(otherClientDone.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        try
+        {
+            submit(clientA, recordUpload(new ArrayList<String>(), "A3", new CountDownLatch(1)));
+            fail("a closed queue shall reject new uploads");
+        }
+        catch (RejectedExecutionException e)
+        {
+            // expected
+        }
+    }
+}
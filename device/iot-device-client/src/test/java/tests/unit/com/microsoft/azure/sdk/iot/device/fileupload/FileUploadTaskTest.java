@@ -13,7 +13,9 @@ import com.microsoft.azure.sdk.iot.device.transport.https.HttpsTransportManager;
 import com.microsoft.azure.storage.StorageException;
 import com.microsoft.azure.storage.StorageExtendedErrorInformation;
 import com.microsoft.azure.storage.blob.CloudBlockBlob;
+import com.microsoft.azure.sdk.iot.device.fileupload.BlockBlobUploader;
 import mockit.Deencapsulation;
+import mockit.Injectable;
 import mockit.Mocked;
 import mockit.NonStrictExpectations;
 import mockit.Verifications;
@@ -34,7 +36,7 @@ import static org.junit.Assert.assertEquals;
  */
 public class FileUploadTaskTest
 {
-    @Mocked
+    @Injectable
     private InputStream mockInputStream;
 
     @Mocked
@@ -214,6 +216,16 @@ public class FileUploadTaskTest
                 blobName, mockInputStream, VALID_STREAM_LENGTH, mockHttpsTransportManager, mockIotHubEventCallback, VALID_CALLBACK_CONTEXT);
     }
 
+    /* Tests_SRS_FILEUPLOADTASK_21_034: [If the `blockBlobUploader` is null, the constructor shall throw IllegalArgumentException.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorNullBlockBlobUploaderThrows()
+    {
+        // act
+        Deencapsulation.newInstance(FileUploadTask.class,
+                new Class[] {String.class, InputStream.class, long.class, HttpsTransportManager.class, IotHubEventCallback.class, Object.class, BlockBlobUploader.class},
+                VALID_BLOB_NAME, mockInputStream, VALID_STREAM_LENGTH, mockHttpsTransportManager, mockIotHubEventCallback, VALID_CALLBACK_CONTEXT, null);
+    }
+
     /* Tests_SRS_FILEUPLOADTASK_21_001: [If the `blobName` is null or empty, the constructor shall throw IllegalArgumentException.] */
     @Test (expected = IllegalArgumentException.class)
     public void constructorEmptyBlobNameThrows()
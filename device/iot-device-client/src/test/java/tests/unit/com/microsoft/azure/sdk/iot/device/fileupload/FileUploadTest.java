@@ -10,6 +10,9 @@ import com.microsoft.azure.sdk.iot.device.IotHubStatusCode;
 import com.microsoft.azure.sdk.iot.device.fileupload.FileUpload;
 import com.microsoft.azure.sdk.iot.device.fileupload.FileUploadInProgress;
 import com.microsoft.azure.sdk.iot.device.fileupload.FileUploadTask;
+import com.microsoft.azure.sdk.iot.device.fileupload.BandwidthThrottle;
+import com.microsoft.azure.sdk.iot.device.fileupload.BlockBlobUploader;
+import com.microsoft.azure.sdk.iot.device.fileupload.FileUploadScheduler;
 import com.microsoft.azure.sdk.iot.device.transport.https.HttpsTransportManager;
 import mockit.Deencapsulation;
 import mockit.Mocked;
@@ -22,12 +25,11 @@ import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Queue;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingDeque;
-import java.util.concurrent.ScheduledExecutorService;
 
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 
 /**
  * Unit tests for file upload class.
@@ -51,10 +53,10 @@ public class FileUploadTest
     private FileUploadTask mockFileUploadTask;
 
     @Mocked
-    private Executors mockExecutors;
+    private FileUploadScheduler mockFileUploadScheduler;
 
     @Mocked
-    private ScheduledExecutorService mockScheduler;
+    private FileUploadScheduler.ClientQueue mockUploadQueue;
 
     @Mocked
     private FileUploadInProgress mockFileUploadInProgress;
@@ -66,8 +68,6 @@ public class FileUploadTest
             {
                 new HttpsTransportManager(mockConfig);
                 result = mockHttpsTransportManager;
-                Executors.newScheduledThreadPool(10);
-                result = mockScheduler;
             }
         };
     }
@@ -81,7 +81,7 @@ public class FileUploadTest
     }
 
     /* Tests_SRS_FILEUPLOAD_21_002: [The constructor shall create a new instance of `HttpsTransportManager` with the provided `config`.] */
-    /* Tests_SRS_FILEUPLOAD_21_012: [The constructor shall create an pool of 10 threads to execute the uploads in parallel.] */
+    /* Tests_SRS_FILEUPLOAD_21_012: [The constructor shall create a queue for the uploads of this client in the scheduler shared by the JVM.] */
     /* Tests_SRS_FILEUPLOAD_21_013: [The constructor shall create a list `fileUploadInProgressesSet` to control the pending uploads.] */
     @Test
     public void constructorSuccess(@Mocked final LinkedBlockingDeque<?> mockFileUploadInProgressQueue) throws IOException
@@ -92,8 +92,6 @@ public class FileUploadTest
             {
                 new HttpsTransportManager(mockConfig);
                 result = mockHttpsTransportManager;
-                Executors.newScheduledThreadPool(10);
-                result = mockScheduler;
             }
         };
 
@@ -106,7 +104,9 @@ public class FileUploadTest
             {
                 new HttpsTransportManager(mockConfig);
                 times = 1;
-                Executors.newScheduledThreadPool(10);
+                Deencapsulation.invoke(FileUploadScheduler.class, "getInstance");
+                times = 1;
+                Deencapsulation.invoke(mockFileUploadScheduler, "createQueue");
                 times = 1;
                 new LinkedBlockingDeque<>();
                 times = 1;
@@ -133,26 +133,6 @@ public class FileUploadTest
         FileUpload fileUpload = new FileUpload(mockConfig);
     }
 
-    /* Tests_SRS_FILEUPLOAD_21_015: [If create the executor failed, the constructor shall throws IOException.] */
-    @Test (expected = IOException.class)
-    public void constructorExecutorThrows() throws IOException
-    {
-        // arrange
-        new NonStrictExpectations()
-        {
-            {
-                new HttpsTransportManager(mockConfig);
-                result = mockHttpsTransportManager;
-                Executors.newScheduledThreadPool(10);
-                result = new IllegalArgumentException();
-                times = 1;
-            }
-        };
-
-        // act
-        FileUpload fileUpload = new FileUpload(mockConfig);
-    }
-
     /* Tests_SRS_FILEUPLOAD_21_004: [The uploadToBlobAsync shall asynchronously upload the InputStream `inputStream` to the blob in `blobName`.] */
     /* Tests_SRS_FILEUPLOAD_21_009: [The uploadToBlobAsync shall create a `FileUploadTask` to control this file upload.] */
     /* Tests_SRS_FILEUPLOAD_21_010: [The uploadToBlobAsync shall schedule the task `FileUploadTask` to immediately start.] */
@@ -180,11 +160,11 @@ public class FileUploadTest
                 result = mockFileUploadInProgress;
                 times = 1;
                 Deencapsulation.newInstance(FileUploadTask.class,
-                        new Class[] { String.class, InputStream.class, long.class, HttpsTransportManager.class, IotHubEventCallback.class, Object.class},
-                        blobName, mockInputStream, streamLength, mockHttpsTransportManager, (IotHubEventCallback)any, mockFileUploadInProgress);
+                        new Class[] { String.class, InputStream.class, long.class, HttpsTransportManager.class, IotHubEventCallback.class, Object.class, BlockBlobUploader.class},
+                        blobName, mockInputStream, streamLength, mockHttpsTransportManager, (IotHubEventCallback)any, mockFileUploadInProgress, (BlockBlobUploader)any);
                 result = mockFileUploadTask;
                 times = 1;
-                mockScheduler.submit(mockFileUploadTask);
+                Deencapsulation.invoke(mockUploadQueue, "submit", mockFileUploadTask);
                 times = 1;
             }
         };
@@ -193,6 +173,84 @@ public class FileUploadTest
         fileUpload.uploadToBlobAsync(blobName, mockInputStream, streamLength, mockIotHubEventCallback, context);
     }
 
+    /* Tests_SRS_FILEUPLOAD_21_024: [The uploadToBlobAsync shall upload the stream in blocks with the block size and parallelism in the `config`.] */
+    @Test
+    public void uploadToBlobAsyncUsesFileUploadOptions(@Mocked final BlockBlobUploader mockBlockBlobUploader) throws IOException
+    {
+        // arrange
+        final Map<String, Object> context = new HashMap<>();
+        constructorExpectations();
+        new NonStrictExpectations()
+        {
+            {
+                mockConfig.getFileUploadBlockSizeInBytes();
+                result = 1024;
+                mockConfig.getFileUploadParallelism();
+                result = 3;
+            }
+        };
+        FileUpload fileUpload = new FileUpload(mockConfig);
+
+        // act
+        fileUpload.uploadToBlobAsync("validBlobName", mockInputStream, 100, mockIotHubEventCallback, context);
+
+        // assert
+        new Verifications()
+        {
+            {
+                Deencapsulation.newInstance(BlockBlobUploader.class, new Class[] {int.class, int.class, BandwidthThrottle.class}, 1024, 3, (BandwidthThrottle) any);
+                times = 1;
+            }
+        };
+    }
+
+    /* Tests_SRS_FILEUPLOAD_21_025: [The uploadToBlobAsync shall share a single bandwidth cap with the `maxBytesPerSecond` in the `config` between all the uploads of this client, or no cap if it is 0.] */
+    @Test
+    public void uploadToBlobAsyncSharesBandwidthThrottle(@Mocked final BandwidthThrottle mockBandwidthThrottle) throws IOException
+    {
+        // arrange
+        final Map<String, Object> context = new HashMap<>();
+        constructorExpectations();
+        new NonStrictExpectations()
+        {
+            {
+                mockConfig.getFileUploadMaxBytesPerSecond();
+                result = 1000L;
+                Deencapsulation.invoke(mockBandwidthThrottle, "getMaxBytesPerSecond");
+                result = 1000L;
+            }
+        };
+        FileUpload fileUpload = new FileUpload(mockConfig);
+
+        // act
+        fileUpload.uploadToBlobAsync("validBlobName1", mockInputStream, 100, mockIotHubEventCallback, context);
+        fileUpload.uploadToBlobAsync("validBlobName2", mockInputStream, 100, mockIotHubEventCallback, context);
+
+        // assert
+        new Verifications()
+        {
+            {
+                Deencapsulation.newInstance(BandwidthThrottle.class, new Class[] {long.class}, 1000L);
+                times = 1;
+            }
+        };
+    }
+
+    /* Tests_SRS_FILEUPLOAD_21_013: [The constructor shall create a list `fileUploadInProgressesSet` to control the pending uploads.] */
+    @Test
+    public void constructorKeepsUploadsInProgressPerClient() throws IOException
+    {
+        // arrange
+        constructorExpectations();
+
+        // act
+        FileUpload fileUpload1 = new FileUpload(mockConfig);
+        FileUpload fileUpload2 = new FileUpload(mockConfig);
+
+        // assert
+        assertNotSame(Deencapsulation.getField(fileUpload1, "fileUploadInProgressesSet"), Deencapsulation.getField(fileUpload2, "fileUploadInProgressesSet"));
+    }
+
     /* Tests_SRS_FILEUPLOAD_21_005: [If the `blobName` is null or empty, the uploadToBlobAsync shall throw IllegalArgumentException.] */
     @Test (expected = IllegalArgumentException.class)
     public void uploadToBlobAsyncNullBlobNameThrows() throws IOException
@@ -294,7 +352,7 @@ public class FileUploadTest
         fileUpload.uploadToBlobAsync(blobName, mockInputStream, streamLength, null, context);
     }
 
-    /* Tests_SRS_FILEUPLOAD_21_017: [The closeNow shall shutdown the thread pool by calling `shutdownNow`.] */
+    /* Tests_SRS_FILEUPLOAD_21_017: [The closeNow shall close the queue of this client, cancelling all its uploads.] */
     @Test
     public void closeNowSuccess() throws IOException
     {
@@ -309,7 +367,7 @@ public class FileUploadTest
         new Verifications()
         {
             {
-                mockScheduler.shutdownNow();
+                Deencapsulation.invoke(mockUploadQueue, "close");
                 times = 1;
             }
         };
@@ -334,8 +392,6 @@ public class FileUploadTest
             {
                 new HttpsTransportManager(mockConfig);
                 result = mockHttpsTransportManager;
-                Executors.newScheduledThreadPool(10);
-                result = mockScheduler;
                 Deencapsulation.invoke(mockFileUploadInProgress, "isCancelled");
                 result = true;
             }
@@ -393,8 +449,6 @@ public class FileUploadTest
                 new HttpsTransportManager(mockConfig);
                 result = mockHttpsTransportManager;
 
-                Executors.newScheduledThreadPool(10);
-                result = mockScheduler;
 
                 new LinkedBlockingDeque<>();
                 result = mockFileUploadInProgressQueue;
@@ -26,6 +26,7 @@ import java.net.URLEncoder;
 import java.security.NoSuchAlgorithmException;
 
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.fail;
 
 public class HttpHsmSignatureProviderTest
 {
@@ -163,4 +164,81 @@ public class HttpHsmSignatureProviderTest
         signatureProvider.sign(keyName, null, expectedGenId);
     }
 
+    // Tests_SRS_HTTPHSMSIGNATUREPROVIDER_21_008: [If the same key, generation id and data were signed before, or are being signed by another thread, this function shall return that signature instead of sending a new sign request.]
+    @Test
+    public void signReusesSignatureOfSameData(@Mocked URLEncoder mockedURLEncoder) throws NoSuchAlgorithmException, TransportException, IOException, URISyntaxException, HsmException
+    {
+        //arrange
+        final String keyName = "keyName";
+        new NonStrictExpectations()
+        {
+            {
+                mockedHttpsHsmClient.sign(expectedApiVersion, keyName, (SignRequest) any, expectedGenId);
+                result = mockedSignResponse;
+
+                URLEncoder.encode(anyString, "UTF-8");
+                result = "some encoded digest";
+            }
+        };
+
+        final HttpHsmSignatureProvider signatureProvider = new HttpHsmSignatureProvider(expectedProviderUri, expectedApiVersion);
+
+        //act
+        String firstDigest = signatureProvider.sign(keyName, "some data", expectedGenId);
+        String secondDigest = signatureProvider.sign(keyName, "some data", expectedGenId);
+        signatureProvider.sign(keyName, "other data", expectedGenId);
+
+        //assert
+        assertEquals(firstDigest, secondDigest);
+        new Verifications()
+        {
+            {
+                mockedHttpsHsmClient.sign(expectedApiVersion, keyName, (SignRequest) any, expectedGenId);
+                times = 2;
+            }
+        };
+    }
+
+    // Tests_SRS_HTTPHSMSIGNATUREPROVIDER_21_009: [If the sign request fails, this function shall not cache the failure, and shall throw the exception of the sign request.]
+    @Test
+    public void signDoesNotCacheFailure(@Mocked URLEncoder mockedURLEncoder) throws NoSuchAlgorithmException, TransportException, IOException, URISyntaxException, HsmException
+    {
+        //arrange
+        final String keyName = "keyName";
+        new NonStrictExpectations()
+        {
+            {
+                mockedHttpsHsmClient.sign(expectedApiVersion, keyName, (SignRequest) any, expectedGenId);
+                result = new HsmException("daemon unavailable");
+                result = mockedSignResponse;
+
+                URLEncoder.encode(anyString, "UTF-8");
+                result = "some encoded digest";
+            }
+        };
+
+        final HttpHsmSignatureProvider signatureProvider = new HttpHsmSignatureProvider(expectedProviderUri, expectedApiVersion);
+        try
+        {
+            signatureProvider.sign(keyName, "some data", expectedGenId);
+            fail("The failure of the sign request should be thrown");
+        }
+        catch (HsmException e)
+        {
+            // expected
+        }
+
+        //act
+        String digest = signatureProvider.sign(keyName, "some data", expectedGenId);
+
+        //assert
+        assertEquals("some encoded digest", digest);
+        new Verifications()
+        {
+            {
+                mockedHttpsHsmClient.sign(expectedApiVersion, keyName, (SignRequest) any, expectedGenId);
+                times = 2;
+            }
+        };
+    }
 }
@@ -199,7 +199,7 @@ public class HttpsHsmClientTest
 
     // Tests_SRS_HSMHTTPCLIENT_34_006: [If the scheme of the provided url is Unix, this function shall send the http request using unix domain sockets.]
     @Test
-    public void signSuccessWithUnix(@Mocked final URI mockedURI) throws IOException, TransportException, URISyntaxException, HsmException
+    public void signSuccessWithUnix(@Mocked final URI mockedURI, @Mocked final UnixSocketHttpConnection mockedUnixSocketHttpConnection) throws IOException, TransportException, URISyntaxException, HsmException
     {
         //arrange
         final String expectedJson = "some json";
@@ -220,25 +220,13 @@ public class HttpsHsmClientTest
                 new HttpsRequest((URL) any, HttpsMethod.POST, expectedJson.getBytes(), anyString);
                 result = mockedHttpsRequest;
 
-                HttpsRequestResponseSerializer.serializeRequest(mockedHttpsRequest, anyString, anyString, anyString);
+                HttpsRequestResponseSerializer.serializeRequest(mockedHttpsRequest, anyString, anyString, anyString, true);
                 result = expectedMetaData;
 
                 mockedHttpsRequest.getBody();
                 result = expectedBody;
 
-                new UnixSocketAddress(anyString);
-                result = mockedUnixSocketAddress;
-
-                UnixSocketChannel.open(mockedUnixSocketAddress);
-                result = mockedUnixSocketChannel;
-
-                mockedUnixSocketChannel.read((ByteBuffer) any);
-                result = -1;
-
-                Channels.newOutputStream(mockedUnixSocketChannel);
-                result = mockedOutputStream;
-
-                HttpsRequestResponseSerializer.deserializeResponse((BufferedReader) any);
+                mockedUnixSocketHttpConnection.send(expectedMetaData, expectedBody);
                 result = mockedHttpsResponse;
 
                 mockedHttpsResponse.getStatus();
@@ -256,10 +244,10 @@ public class HttpsHsmClientTest
         new Verifications()
         {
             {
-                HttpsRequestResponseSerializer.serializeRequest(mockedHttpsRequest, anyString, anyString, anyString);
+                HttpsRequestResponseSerializer.serializeRequest(mockedHttpsRequest, anyString, anyString, anyString, true);
                 times = 1;
 
-                HttpsRequestResponseSerializer.deserializeResponse((BufferedReader) any);
+                mockedUnixSocketHttpConnection.send(expectedMetaData, expectedBody);
                 times = 1;
 
                 mockedHttpsRequest.send();
@@ -268,6 +256,51 @@ public class HttpsHsmClientTest
         };
     }
 
+    // Tests_SRS_HSMHTTPCLIENT_21_013: [If the scheme of the provided url is Unix, this function shall reuse the same unix socket connection for all requests.]
+    @Test
+    public void signWithUnixReusesConnection(@Mocked final URI mockedURI, @Mocked final UnixSocketHttpConnection mockedUnixSocketHttpConnection) throws IOException, TransportException, URISyntaxException, HsmException
+    {
+        //arrange
+        new NonStrictExpectations()
+        {
+            {
+                new URI(expectedBaseUrl);
+                result = mockedURI;
+
+                mockedURI.getScheme();
+                result = expectedSchemeUnix;
+
+                mockedSignRequest.toJson();
+                result = "some json";
+
+                mockedUnixSocketHttpConnection.send((byte[]) any, (byte[]) any);
+                result = mockedHttpsResponse;
+
+                mockedHttpsResponse.getStatus();
+                result = 200;
+            }
+        };
+
+        HttpsHsmClient client = new HttpsHsmClient(expectedBaseUrl);
+        Deencapsulation.setField(client, "scheme", expectedSchemeUnix);
+
+        //act
+        client.sign(expectedApiVersion, expectedName, mockedSignRequest, expectedGenId);
+        client.sign(expectedApiVersion, expectedName, mockedSignRequest, expectedGenId);
+
+        //assert
+        new Verifications()
+        {
+            {
+                new UnixSocketHttpConnection(anyString);
+                times = 1;
+
+                mockedUnixSocketHttpConnection.send((byte[]) any, (byte[]) any);
+                times = 2;
+            }
+        };
+    }
+
     // Tests_SRS_HSMHTTPCLIENT_34_005: [If the response from the http call is not 200, this function shall throw an HsmException.]
     @Test
     public void signThrowsIfResponseIsNot200(@Mocked final URI mockedURI) throws UnsupportedEncodingException, MalformedURLException, TransportException, URISyntaxException
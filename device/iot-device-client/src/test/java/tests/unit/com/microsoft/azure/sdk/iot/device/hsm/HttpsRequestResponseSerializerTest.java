@@ -17,19 +17,25 @@ import mockit.Verifications;
 import org.junit.Test;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
 
 public class HttpsRequestResponseSerializerTest
 {
@@ -327,4 +333,120 @@ public class HttpsRequestResponseSerializerTest
         //act
         HttpsRequestResponseSerializer.deserializeResponse(new BufferedReader(new StringReader(stringToDeserialize)));
     }
-}
\ No newline at end of file
+
+    // Tests_SRS_HTTPREQUESTRESPONSESERIALIZER_21_009: [If keepAlive is true, this function shall set the Connection header to keep-alive instead of close.]
+    @Test
+    public void serializeWithKeepAliveSetsConnectionHeader() throws MalformedURLException
+    {
+        //arrange
+        new NonStrictExpectations()
+        {
+            {
+                mockedHttpsRequest.getRequestUrl();
+                result = mockedURL;
+            }
+        };
+        uriExpectations();
+        final HttpsRequest request = new HttpsRequest(new URL("https://localhost:8081/modules/testModule/sign"), HttpsMethod.POST, new byte[0], null);
+
+        //act
+        HttpsRequestResponseSerializer.serializeRequest(request, "/modules/testModule/sign", null, "localhost:8081", true);
+
+        //assert
+        new Verifications()
+        {
+            {
+                request.setHeaderField("Connection", "keep-alive");
+                times = 1;
+                request.setHeaderField("Connection", "close");
+                times = 0;
+            }
+        };
+    }
+
+    // Tests_SRS_HTTPREQUESTRESPONSESERIALIZER_21_010: [If the provided input stream is null, this function shall throw an IllegalArgumentException.]
+    @Test (expected = IllegalArgumentException.class)
+    public void deserializeFromStreamThrowsForNullStream() throws IOException
+    {
+        //act
+        HttpsRequestResponseSerializer.deserializeResponseFromStream(null);
+    }
+
+    // Tests_SRS_HTTPREQUESTRESPONSESERIALIZER_21_011: [This function shall parse the status line and headers with the same rules as the buffered reader deserializer.]
+    // Tests_SRS_HTTPREQUESTRESPONSESERIALIZER_21_012: [This function shall read the body as bytes, using the chunked transfer encoding, the Content-Length, or the end of the stream, in this order.]
+    @Test
+    public void deserializeFromStreamReadsBinaryBodyWithContentLength() throws IOException
+    {
+        //arrange
+        final byte[] expectedBody = new byte[] {'{', '\n', (byte) 0xC3, (byte) 0xA9, '\r', '\n', '}'};
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: 7\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+        stream.write(expectedBody);
+        stream.write("HTTP/1.1 204 No Content\r\n".getBytes(StandardCharsets.US_ASCII));
+        InputStream inputStream = new ByteArrayInputStream(stream.toByteArray());
+
+        //act
+        HttpsRequestResponseSerializer.deserializeResponseFromStream(inputStream);
+
+        //assert
+        final List<byte[]> bodies = new ArrayList<>();
+        final List<Map<String, List<String>>> headers = new ArrayList<>();
+        new Verifications()
+        {
+            {
+                new HttpsResponse(200, withCapture(bodies), withCapture(headers), "OK".getBytes());
+                times = 1;
+            }
+        };
+        assertTrue(Arrays.equals(expectedBody, bodies.get(0)));
+        assertEquals("application/json", headers.get(0).get("Content-Type").get(0));
+        assertEquals('H', inputStream.read());
+    }
+
+    // Tests_SRS_HTTPREQUESTRESPONSESERIALIZER_21_012: [This function shall read the body as bytes, using the chunked transfer encoding, the Content-Length, or the end of the stream, in this order.]
+    @Test
+    public void deserializeFromStreamReadsChunkedBody() throws IOException
+    {
+        //arrange
+        String response = "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n" +
+                "4\r\nsome\r\n" +
+                "7;name=value\r\n digest\r\n" +
+                "0\r\n\r\n";
+
+        //act
+        HttpsRequestResponseSerializer.deserializeResponseFromStream(new ByteArrayInputStream(response.getBytes(StandardCharsets.US_ASCII)));
+
+        //assert
+        final List<byte[]> bodies = new ArrayList<>();
+        new Verifications()
+        {
+            {
+                new HttpsResponse(200, withCapture(bodies), (Map<String, List<String>>) any, (byte[]) any);
+                times = 1;
+            }
+        };
+        assertEquals("some digest", new String(bodies.get(0), StandardCharsets.US_ASCII));
+    }
+
+    // Tests_SRS_HTTPREQUESTRESPONSESERIALIZER_21_012: [This function shall read the body as bytes, using the chunked transfer encoding, the Content-Length, or the end of the stream, in this order.]
+    @Test (expected = IOException.class)
+    public void deserializeFromStreamThrowsForTruncatedBody() throws IOException
+    {
+        //arrange
+        String response = "HTTP/1.1 200 OK\r\nContent-Length: 10\r\n\r\nshort";
+
+        //act
+        HttpsRequestResponseSerializer.deserializeResponseFromStream(new ByteArrayInputStream(response.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    // Tests_SRS_HTTPREQUESTRESPONSESERIALIZER_21_011: [This function shall parse the status line and headers with the same rules as the buffered reader deserializer.]
+    @Test (expected = IOException.class)
+    public void deserializeFromStreamThrowsForInvalidStatusCode() throws IOException
+    {
+        //arrange
+        String response = "HTTP/1.1 2x0 OK\r\n\r\n";
+
+        //act
+        HttpsRequestResponseSerializer.deserializeResponseFromStream(new ByteArrayInputStream(response.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
@@ -213,4 +213,33 @@ public class IotHubSasTokenHsmAuthenticationProviderTest
         //act
         IotHubSasTokenHsmAuthenticationProvider.create(null, expectedDeviceId, expectedModuleId, expectedHostname, expectedGatewayHostname, "gen1", expectedTimeToLive, expectedBufferPercent);
     }
+
+    // Tests_SRS_MODULEAUTHENTICATIONWITHHSM_21_007: [This function shall round the expiry up to a multiple of 1/60 of the time to live, so the tokens created close together sign the same data.]
+    @Test
+    public void createRoundsExpiryUpToBucket(@Mocked final System mockedSystem) throws IOException, TransportException, URISyntaxException, HsmException
+    {
+        //arrange
+        new NonStrictExpectations()
+        {
+            {
+                mockedSignatureProvider.sign("module", anyString, anyString);
+                result = expectedSignature;
+
+                System.currentTimeMillis();
+                result = 1001000;
+            }
+        };
+
+        //act
+        IotHubSasTokenHsmAuthenticationProvider.create(mockedSignatureProvider, expectedDeviceId, expectedModuleId, expectedHostname, expectedGatewayHostname, "gen1", 3600, expectedBufferPercent);
+
+        //assert
+        new Verifications()
+        {
+            {
+                IotHubSasToken.buildSharedAccessToken(anyString, expectedSignature, 4620);
+                times = 1;
+            }
+        };
+    }
 }
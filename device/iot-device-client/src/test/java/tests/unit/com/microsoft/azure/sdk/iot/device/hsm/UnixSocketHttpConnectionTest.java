@@ -0,0 +1,210 @@
+/*
+ *  Copyright (c) Microsoft. All rights reserved.
+ *  Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package tests.unit.com.microsoft.azure.sdk.iot.device.hsm;
+
+import com.microsoft.azure.sdk.iot.device.hsm.HttpsRequestResponseSerializer;
+import com.microsoft.azure.sdk.iot.device.hsm.UnixSocketHttpConnection;
+import com.microsoft.azure.sdk.iot.device.transport.https.HttpsResponse;
+import jnr.unixsocket.UnixSocketAddress;
+import jnr.unixsocket.UnixSocketChannel;
+import mockit.*;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.HashMap;
+import java.util.Map;
+
+import static junit.framework.TestCase.assertEquals;
+
+public class UnixSocketHttpConnectionTest
+{
+    @Mocked
+    UnixSocketAddress mockedUnixSocketAddress;
+
+    @Mocked
+    UnixSocketChannel mockedUnixSocketChannel;
+
+    @Mocked
+    Channels mockedChannels;
+
+    @Mocked
+    HttpsRequestResponseSerializer mockedHttpsRequestResponseSerializer;
+
+    @Mocked
+    HttpsResponse mockedHttpsResponse;
+
+    private static final String expectedAddress = "/var/run/iotedge/workload.sock";
+    private static final byte[] expectedRequest = "POST /sign HTTP/1.1\r\n\r\n".getBytes();
+    private static final byte[] expectedBody = "{}".getBytes();
+
+    private void channelExpectations() throws IOException
+    {
+        new NonStrictExpectations()
+        {
+            {
+                UnixSocketChannel.open((UnixSocketAddress) any);
+                result = mockedUnixSocketChannel;
+
+                mockedUnixSocketChannel.write((ByteBuffer) any);
+                result = new Delegate()
+                {
+                    int write(ByteBuffer buffer)
+                    {
+                        int written = buffer.remaining();
+                        buffer.position(buffer.limit());
+                        return written;
+                    }
+                };
+
+                mockedHttpsResponse.getHeaderFields();
+                result = new HashMap<String, String>();
+            }
+        };
+    }
+
+    // Tests_SRS_UNIXSOCKETHTTPCONNECTION_21_001: [If the provided address is null or empty, this constructor shall throw an IllegalArgumentException.]
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsForEmptyAddress()
+    {
+        //act
+        new UnixSocketHttpConnection("");
+    }
+
+    // Tests_SRS_UNIXSOCKETHTTPCONNECTION_21_002: [If the channel is not open, this function shall open it.]
+    @Test
+    public void sendReusesOpenChannel() throws IOException
+    {
+        //arrange
+        channelExpectations();
+        new NonStrictExpectations()
+        {
+            {
+                HttpsRequestResponseSerializer.deserializeResponseFromStream((InputStream) any);
+                result = mockedHttpsResponse;
+            }
+        };
+        UnixSocketHttpConnection connection = new UnixSocketHttpConnection(expectedAddress);
+
+        //act
+        HttpsResponse firstResponse = connection.send(expectedRequest, expectedBody);
+        HttpsResponse secondResponse = connection.send(expectedRequest, null);
+
+        //assert
+        assertEquals(mockedHttpsResponse, firstResponse);
+        assertEquals(mockedHttpsResponse, secondResponse);
+        new Verifications()
+        {
+            {
+                UnixSocketChannel.open((UnixSocketAddress) any);
+                times = 1;
+
+                mockedUnixSocketChannel.write((ByteBuffer) any);
+                times = 3;
+
+                mockedUnixSocketChannel.close();
+                times = 0;
+            }
+        };
+    }
+
+    // Tests_SRS_UNIXSOCKETHTTPCONNECTION_21_003: [If the request fails on a reused channel, this function shall close it and send the request once more on a new channel, as the server may have closed the idle one.]
+    @Test
+    public void sendRetriesOnNewChannelIfReusedChannelFails() throws IOException
+    {
+        //arrange
+        channelExpectations();
+        new NonStrictExpectations()
+        {
+            {
+                HttpsRequestResponseSerializer.deserializeResponseFromStream((InputStream) any);
+                result = mockedHttpsResponse;
+                result = new IOException("Response is empty.");
+                result = mockedHttpsResponse;
+            }
+        };
+        UnixSocketHttpConnection connection = new UnixSocketHttpConnection(expectedAddress);
+        connection.send(expectedRequest, expectedBody);
+
+        //act
+        HttpsResponse response = connection.send(expectedRequest, expectedBody);
+
+        //assert
+        assertEquals(mockedHttpsResponse, response);
+        new Verifications()
+        {
+            {
+                UnixSocketChannel.open((UnixSocketAddress) any);
+                times = 2;
+
+                mockedUnixSocketChannel.close();
+                times = 1;
+            }
+        };
+    }
+
+    // Tests_SRS_UNIXSOCKETHTTPCONNECTION_21_003: [If the request fails on a reused channel, this function shall close it and send the request once more on a new channel, as the server may have closed the idle one.]
+    @Test (expected = IOException.class)
+    public void sendThrowsIfNewChannelFails() throws IOException
+    {
+        //arrange
+        channelExpectations();
+        new NonStrictExpectations()
+        {
+            {
+                HttpsRequestResponseSerializer.deserializeResponseFromStream((InputStream) any);
+                result = new IOException("Response is empty.");
+            }
+        };
+        UnixSocketHttpConnection connection = new UnixSocketHttpConnection(expectedAddress);
+
+        //act
+        connection.send(expectedRequest, expectedBody);
+    }
+
+    // Tests_SRS_UNIXSOCKETHTTPCONNECTION_21_004: [If the response asks to close the connection, this function shall close the channel after reading the response.]
+    // Tests_SRS_UNIXSOCKETHTTPCONNECTION_21_005: [This function shall close the channel and ignore any failure to close it.]
+    @Test
+    public void sendClosesChannelIfResponseAsksToClose() throws IOException
+    {
+        //arrange
+        channelExpectations();
+        final Map<String, String> headers = new HashMap<>();
+        headers.put("connection", "close");
+        new NonStrictExpectations()
+        {
+            {
+                HttpsRequestResponseSerializer.deserializeResponseFromStream((InputStream) any);
+                result = mockedHttpsResponse;
+
+                mockedHttpsResponse.getHeaderFields();
+                result = headers;
+
+                mockedUnixSocketChannel.close();
+                result = new IOException();
+            }
+        };
+        UnixSocketHttpConnection connection = new UnixSocketHttpConnection(expectedAddress);
+
+        //act
+        connection.send(expectedRequest, expectedBody);
+        connection.send(expectedRequest, expectedBody);
+
+        //assert
+        new Verifications()
+        {
+            {
+                UnixSocketChannel.open((UnixSocketAddress) any);
+                times = 2;
+
+                mockedUnixSocketChannel.close();
+                times = 2;
+            }
+        };
+    }
+}
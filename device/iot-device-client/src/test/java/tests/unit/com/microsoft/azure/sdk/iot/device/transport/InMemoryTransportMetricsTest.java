@@ -0,0 +1,76 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package tests.unit.com.microsoft.azure.sdk.iot.device.transport;
+
+import com.microsoft.azure.sdk.iot.device.transport.InMemoryTransportMetrics;
+import com.microsoft.azure.sdk.iot.device.transport.TransportCounter;
+import com.microsoft.azure.sdk.iot.device.transport.TransportLatency;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/** Unit tests for InMemoryTransportMetrics. */
+public class InMemoryTransportMetricsTest
+{
+    // Tests_SRS_INMEMORYTRANSPORTMETRICS_21_001: [The function shall add the delta to the counter.]
+    // Tests_SRS_INMEMORYTRANSPORTMETRICS_21_003: [The function shall return the current value of the counter.]
+    @Test
+    public void incrementIsThreadSafe() throws InterruptedException
+    {
+        // arrange
+        final InMemoryTransportMetrics metrics = new InMemoryTransportMetrics();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++)
+        {
+            threads.add(new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    for (int j = 0; j < 10000; j++)
+                    {
+                        metrics.increment(TransportCounter.BYTES_SENT, 2);
+                        metrics.recordLatency(TransportLatency.SEND, j);
+                    }
+                }
+            }));
+        }
+
+        // act
+        for (Thread thread : threads)
+        {
+            thread.start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        // assert
+        assertEquals(80000, metrics.getCounter(TransportCounter.BYTES_SENT));
+        assertEquals(0, metrics.getCounter(TransportCounter.MESSAGES_SENT));
+        assertEquals(40000, metrics.getLatency(TransportLatency.SEND).getCount());
+        assertEquals(9999, metrics.getLatency(TransportLatency.SEND).getMax());
+    }
+
+    // Tests_SRS_INMEMORYTRANSPORTMETRICS_21_002: [The function shall record the latency in the histogram of its type.]
+    // Tests_SRS_INMEMORYTRANSPORTMETRICS_21_004: [The function shall return the histogram of the latency.]
+    @Test
+    public void recordLatencyUsesHistogramOfItsType()
+    {
+        // arrange
+        InMemoryTransportMetrics metrics = new InMemoryTransportMetrics();
+
+        // act
+        metrics.recordLatency(TransportLatency.RECONNECT, 1500);
+
+        // assert
+        assertEquals(1, metrics.getLatency(TransportLatency.RECONNECT).getCount());
+        assertEquals(1500, metrics.getLatency(TransportLatency.RECONNECT).getMax());
+        assertEquals(0, metrics.getLatency(TransportLatency.ACKNOWLEDGE).getCount());
+    }
+}
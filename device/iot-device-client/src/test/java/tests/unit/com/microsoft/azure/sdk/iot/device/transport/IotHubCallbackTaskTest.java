@@ -0,0 +1,103 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package tests.unit.com.microsoft.azure.sdk.iot.device.transport;
+
+import com.microsoft.azure.sdk.iot.device.transport.IotHubCallbackTask;
+import com.microsoft.azure.sdk.iot.device.transport.IotHubTransport;
+import mockit.Deencapsulation;
+import mockit.Delegate;
+import mockit.Mocked;
+import mockit.NonStrictExpectations;
+import mockit.Verifications;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Unit tests for IotHubCallbackTask. */
+public class IotHubCallbackTaskTest
+{
+    @Mocked
+    IotHubTransport mockTransport;
+
+    // Tests_SRS_IOTHUBCALLBACKTASK_21_001: [The constructor shall throw IllegalArgumentException if the provided transport is null.]
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnNullTransport()
+    {
+        new IotHubCallbackTask(null);
+    }
+
+    // Tests_SRS_IOTHUBCALLBACKTASK_21_002: [The constructor shall save the transport.]
+    @Test
+    public void constructorSavesTransport()
+    {
+        IotHubCallbackTask callbackTask = new IotHubCallbackTask(mockTransport);
+
+        assertEquals(mockTransport, Deencapsulation.getField(callbackTask, "transport"));
+    }
+
+    // Tests_SRS_IOTHUBCALLBACKTASK_21_003: [The function shall invoke all callbacks on the transport's callback queue.]
+    @Test
+    public void runInvokesAllCallbacks()
+    {
+        IotHubCallbackTask callbackTask = new IotHubCallbackTask(mockTransport);
+        callbackTask.run();
+
+        new Verifications()
+        {
+            {
+                mockTransport.invokeCallbacks();
+                times = 1;
+                mockTransport.sendMessages();
+                times = 0;
+            }
+        };
+    }
+
+    // Tests_SRS_IOTHUBCALLBACKTASK_21_004: [The function shall not crash because of any error or exception thrown by the transport or by the callbacks.]
+    @Test
+    public void runDoesNotCrashFromThrowable()
+    {
+        new NonStrictExpectations()
+        {
+            {
+                mockTransport.invokeCallbacks();
+                result = new Throwable("Test that the callback task does not crash.");
+            }
+        };
+
+        IotHubCallbackTask callbackTask = new IotHubCallbackTask(mockTransport);
+        callbackTask.run();
+    }
+
+    // Tests_SRS_IOTHUBCALLBACKTASK_21_005: [The function shall return true only if the task is running on the current thread.]
+    @Test
+    public void isRunningOnCurrentThreadOnlyInsideRun()
+    {
+        // arrange
+        final IotHubCallbackTask callbackTask = new IotHubCallbackTask(mockTransport);
+        final boolean[] insideRun = new boolean[1];
+        new NonStrictExpectations()
+        {
+            {
+                mockTransport.invokeCallbacks();
+                result = new Delegate()
+                {
+                    void invokeCallbacks()
+                    {
+                        insideRun[0] = callbackTask.isRunningOnCurrentThread();
+                    }
+                };
+            }
+        };
+
+        // act
+        callbackTask.run();
+
+        // assert
+        assertTrue(insideRun[0]);
+        assertFalse(callbackTask.isRunningOnCurrentThread());
+    }
+}
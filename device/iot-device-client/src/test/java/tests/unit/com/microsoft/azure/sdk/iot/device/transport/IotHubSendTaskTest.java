@@ -35,9 +35,9 @@ public class IotHubSendTaskTest
         };
     }
 
-    // Tests_SRS_IOTHUBSENDTASK_11_003: [The function shall invoke all callbacks on the transport's callback queue.]
+    // The callbacks are invoked by the IotHubCallbackTask, so a slow callback does not delay the send task.
     @Test
-    public void runInvokesAllCallbacks()
+    public void runDoesNotInvokeCallbacks()
     {
         IotHubSendTask sendTask = new IotHubSendTask(mockTransport);
         sendTask.run();
@@ -46,6 +46,7 @@ public class IotHubSendTaskTest
         {
             {
                 mockTransport.invokeCallbacks();
+                times = 0;
             }
         };
     }
@@ -6,6 +6,7 @@ package tests.unit.com.microsoft.azure.sdk.iot.device.transport;
 import com.microsoft.azure.sdk.iot.device.*;
 import com.microsoft.azure.sdk.iot.device.exceptions.DeviceClientException;
 import com.microsoft.azure.sdk.iot.device.exceptions.IotHubServiceException;
+import com.microsoft.azure.sdk.iot.device.exceptions.IotHubSizeExceededException;
 import com.microsoft.azure.sdk.iot.device.exceptions.TransportException;
 import com.microsoft.azure.sdk.iot.device.exceptions.UnauthorizedException;
 import com.microsoft.azure.sdk.iot.device.transport.*;
@@ -13,6 +14,7 @@ import com.microsoft.azure.sdk.iot.device.transport.amqps.AmqpsIotHubConnection;
 import com.microsoft.azure.sdk.iot.device.transport.amqps.exceptions.AmqpConnectionThrottledException;
 import com.microsoft.azure.sdk.iot.device.transport.amqps.exceptions.AmqpUnauthorizedAccessException;
 import com.microsoft.azure.sdk.iot.device.transport.https.HttpsIotHubConnection;
+import com.microsoft.azure.sdk.iot.device.transport.https.HttpsReceiveScheduler;
 import com.microsoft.azure.sdk.iot.device.transport.mqtt.MqttIotHubConnection;
 import com.microsoft.azure.sdk.iot.device.transport.mqtt.exceptions.MqttUnauthorizedException;
 import mockit.*;
@@ -1015,6 +1017,43 @@ public class IotHubTransportTest
         assertFalse(isEmpty);
     }
 
+    //Tests_SRS_IOTHUBTRANSPORT_21_006: [This function shall return the number of packets in the callback queue.]
+    @Test
+    public void getPendingCallbackCountReturnsCallbackQueueSize()
+    {
+        //arrange
+        final Queue<IotHubTransportPacket> callbackPacketsQueue = new ConcurrentLinkedQueue<>();
+        callbackPacketsQueue.add(mockedPacket);
+        callbackPacketsQueue.add(mockedPacket);
+
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "callbackPacketsQueue", callbackPacketsQueue);
+
+        //act
+        int pendingCallbacks = transport.getPendingCallbackCount();
+
+        //assert
+        assertEquals(2, pendingCallbacks);
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_21_007: [This function shall return the number of messages in the received messages queue.]
+    @Test
+    public void getPendingReceivedMessageCountReturnsReceivedQueueSize()
+    {
+        //arrange
+        final Queue<IotHubTransportMessage> receivedMessagesQueue = new ConcurrentLinkedQueue<>();
+        receivedMessagesQueue.add(mockedTransportMessage);
+
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "receivedMessagesQueue", receivedMessagesQueue);
+
+        //act
+        int pendingMessages = transport.getPendingReceivedMessageCount();
+
+        //assert
+        assertEquals(1, pendingMessages);
+    }
+
     //Tests_SRS_IOTHUBTRANSPORT_34_044: [This function shall return if the provided start time was long enough ago that it has passed the device operation timeout threshold.]
     @Test
     public void hasOperationTimedOutTrue()
@@ -1115,1661 +1154,2876 @@ public class IotHubTransportTest
         assertEquals(1, waitingPacketsQueue.size());
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_34_043: [If the connection status of this object is not CONNECTED, this function shall do nothing]
+    //Tests_SRS_IOTHUBTRANSPORT_21_009: [If the outbound queue is full and the overflow policy cannot make room for the message, this function shall add the packet to the callback queue with status MESSAGE_CANCELLED_QUEUE_FULL instead of the waiting queue.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_011: [This function shall return the number of messages in the outbound queue.]
     @Test
-    public void sendMessagesDoesNothingIfNotConnected()
+    public void addMessageRejectsMessageIfOutboundQueueFull()
     {
         //arrange
         IotHubTransport transport = new IotHubTransport(mockedConfig);
-        Deencapsulation.setField(transport, "connectionStatus", DISCONNECTED);
-        Queue<IotHubTransportPacket> waitingPacketsQueue = new ConcurrentLinkedQueue<>();
-        waitingPacketsQueue.add(mockedPacket);
-        Deencapsulation.setField(transport, "waitingPacketsQueue", waitingPacketsQueue);
+        Deencapsulation.setField(transport, "connectionStatus", CONNECTED);
+        Queue<IotHubTransportPacket> waitingPacketsQueue = Deencapsulation.getField(transport, "waitingPacketsQueue");
+        Queue<IotHubTransportPacket> callbackPacketsQueue = Deencapsulation.getField(transport, "callbackPacketsQueue");
+        new NonStrictExpectations()
+        {
+            {
+                mockedConfig.getMaxOutboundQueueMessages();
+                result = 1;
+                mockedConfig.getOutboundQueueOverflowPolicy();
+                result = OutboundQueueOverflowPolicy.FAIL;
+            }
+        };
+        transport.addMessage(mockedMessage, mockedEventCallback, new Object());
 
         //act
-        transport.sendMessages();
+        transport.addMessage(mockedMessage, mockedEventCallback, new Object());
 
         //assert
-        assertFalse(waitingPacketsQueue.isEmpty());
+        assertEquals(1, waitingPacketsQueue.size());
+        assertEquals(1, callbackPacketsQueue.size());
+        assertEquals(1, transport.getOutboundQueueMessageCount());
+        new Verifications()
+        {
+            {
+                mockedPacket.setStatus(IotHubStatusCode.MESSAGE_CANCELLED_QUEUE_FULL);
+                times = 1;
+            }
+        };
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_34_044: [This function continue to dequeue packets saved in the waiting
-    // queue and send them until connection status isn't CONNECTED or until 10 messages have been sent]
+    //Tests_SRS_IOTHUBTRANSPORT_21_009: [If the outbound queue is full and the overflow policy cannot make room for the message, this function shall add the packet to the callback queue with status MESSAGE_CANCELLED_QUEUE_FULL instead of the waiting queue.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_012: [This function shall return the number of body bytes in the outbound queue.]
     @Test
-    public void sendMessagesSendsMessages()
+    public void addMessageRejectsMessageIfOutboundQueueBytesExceeded()
     {
         //arrange
-        final IotHubTransport transport = new IotHubTransport(mockedConfig);
-        final int MAX_MESSAGES_TO_SEND_PER_THREAD = Deencapsulation.getField(transport, "MAX_MESSAGES_TO_SEND_PER_THREAD");
+        IotHubTransport transport = new IotHubTransport(mockedConfig);
         Deencapsulation.setField(transport, "connectionStatus", CONNECTED);
-        Queue<IotHubTransportPacket> waitingPacketsQueue = new ConcurrentLinkedQueue<>();
-        for (int i = 0; i < MAX_MESSAGES_TO_SEND_PER_THREAD + 1; i++)
-        {
-            waitingPacketsQueue.add(mockedPacket);
-        }
-
-        Deencapsulation.setField(transport, "waitingPacketsQueue", waitingPacketsQueue);
-
-        new Expectations(IotHubTransport.class)
+        Queue<IotHubTransportPacket> waitingPacketsQueue = Deencapsulation.getField(transport, "waitingPacketsQueue");
+        new NonStrictExpectations()
         {
             {
-                Deencapsulation.invoke(transport, "sendPacket", new Class[] {IotHubTransportPacket.class}, mockedPacket);
+                mockedMessage.getBytes();
+                result = new byte[10];
+                mockedConfig.getMaxOutboundQueueBytes();
+                result = 15L;
+                mockedConfig.getOutboundQueueOverflowPolicy();
+                result = OutboundQueueOverflowPolicy.FAIL;
             }
         };
+        transport.addMessage(mockedMessage, mockedEventCallback, new Object());
 
         //act
-        transport.sendMessages();
+        transport.addMessage(mockedMessage, mockedEventCallback, new Object());
 
         //assert
-        new Verifications()
-        {
-            {
-                Deencapsulation.invoke(transport, "sendPacket", new Class[] {IotHubTransportPacket.class}, mockedPacket);
-                times = MAX_MESSAGES_TO_SEND_PER_THREAD;
-            }
-        };
         assertEquals(1, waitingPacketsQueue.size());
+        assertEquals(10L, transport.getOutboundQueueBytes());
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_34_045: [This function shall dequeue each packet in the callback queue and execute
-    // their saved callback with their saved status and context]
+    //Tests_SRS_IOTHUBTRANSPORT_21_010: [This function shall add the packets dropped by the overflow policy to the callback queue with status MESSAGE_CANCELLED_QUEUE_FULL.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_015: [If the outbound queue is full and the policy is DROP_OLDEST, this function shall drop the oldest waiting packets until there is room for the message.]
     @Test
-    public void invokeCallbacksInvokesAllCallbacks(final @Mocked IotHubStatusCode mockedStatus)
+    public void addMessageDropsOldestIfPolicyIsDropOldest()
     {
         //arrange
-        final IotHubTransport transport = new IotHubTransport(mockedConfig);
-        Queue<IotHubTransportPacket> callbackPacketsQueue = new ConcurrentLinkedQueue<>();
-        callbackPacketsQueue.add(mockedPacket);
-        callbackPacketsQueue.add(mockedPacket);
-        callbackPacketsQueue.add(mockedPacket);
-        Deencapsulation.setField(transport, "callbackPacketsQueue", callbackPacketsQueue);
-        final Object context = new Object();
+        IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "connectionStatus", CONNECTED);
+        Queue<IotHubTransportPacket> waitingPacketsQueue = Deencapsulation.getField(transport, "waitingPacketsQueue");
+        Queue<IotHubTransportPacket> callbackPacketsQueue = Deencapsulation.getField(transport, "callbackPacketsQueue");
         new NonStrictExpectations()
         {
             {
-                mockedPacket.getCallback();
-                result = mockedEventCallback;
-
-                mockedPacket.getContext();
-                result = context;
-
-                mockedPacket.getStatus();
-                result = mockedStatus;
+                mockedConfig.getMaxOutboundQueueMessages();
+                result = 2;
+                mockedConfig.getOutboundQueueOverflowPolicy();
+                result = OutboundQueueOverflowPolicy.DROP_OLDEST;
             }
         };
+        transport.addMessage(mockedMessage, mockedEventCallback, new Object());
+        final IotHubTransportPacket oldestPacket = waitingPacketsQueue.peek();
+        transport.addMessage(mockedMessage, mockedEventCallback, new Object());
 
         //act
-        transport.invokeCallbacks();
+        transport.addMessage(mockedMessage, mockedEventCallback, new Object());
 
         //assert
-        assertTrue(callbackPacketsQueue.isEmpty());
-        new Verifications()
-        {
-            {
-                mockedEventCallback.execute(mockedStatus, context);
-                times = 3;
-            }
-        };
+        assertEquals(2, waitingPacketsQueue.size());
+        assertFalse(waitingPacketsQueue.contains(oldestPacket));
+        assertTrue(callbackPacketsQueue.contains(oldestPacket));
+        assertEquals(2, transport.getOutboundQueueMessageCount());
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_34_046: [If this object's connection status is not CONNEECTED, this function shall do nothing.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_016: [If the outbound queue is full and the policy is DROP_LOWEST_PRIORITY, this function shall drop the oldest waiting packets with the lowest priority, not higher than the priority of the message, until there is room for the message.]
     @Test
-    public void handleMessageDoesNothingIfNotConnected() throws DeviceClientException
+    public void addMessageDropsLowerPriorityIfPolicyIsDropLowestPriority()
     {
         //arrange
-        final IotHubTransport transport = new IotHubTransport(mockedConfig);
-        Deencapsulation.setField(transport, "connectionStatus", DISCONNECTED);
-        Queue<IotHubTransportMessage> receivedMessagesQueue = new ConcurrentLinkedQueue<>();
-        receivedMessagesQueue.add(mockedTransportMessage);
-        receivedMessagesQueue.add(mockedTransportMessage);
-        Deencapsulation.setField(transport, "receivedMessagesQueue", receivedMessagesQueue);
-
-        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedHttpsIotHubConnection);
-
-        new Expectations(transport)
+        IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "connectionStatus", CONNECTED);
+        Queue<IotHubTransportPacket> waitingPacketsQueue = Deencapsulation.getField(transport, "waitingPacketsQueue");
+        Queue<IotHubTransportPacket> callbackPacketsQueue = Deencapsulation.getField(transport, "callbackPacketsQueue");
+        new NonStrictExpectations()
         {
             {
-                Deencapsulation.invoke(transport, "addReceivedMessagesOverHttpToReceivedQueue");
-                times = 0;
+                mockedPacket.getMessage();
+                result = null;
+                mockedMessage.getPriority();
+                returns(MessagePriority.NORMAL, MessagePriority.HIGH, MessagePriority.NORMAL);
+                mockedConfig.getMaxOutboundQueueMessages();
+                result = 1;
+                mockedConfig.getOutboundQueueOverflowPolicy();
+                result = OutboundQueueOverflowPolicy.DROP_LOWEST_PRIORITY;
             }
         };
+        transport.addMessage(mockedMessage, mockedEventCallback, new Object());
+        final IotHubTransportPacket telemetryPacket = waitingPacketsQueue.peek();
 
         //act
-        transport.handleMessage();
+        transport.addMessage(mockedMessage, mockedEventCallback, new Object());
+        final IotHubTransportPacket twinPacket = waitingPacketsQueue.peek();
+        transport.addMessage(mockedMessage, mockedEventCallback, new Object());
 
         //assert
-        assertEquals(2, receivedMessagesQueue.size());
-        new Verifications()
-        {
-            {
-                Deencapsulation.invoke(transport, "addReceivedMessagesOverHttpToReceivedQueue");
-                times = 0;
-            }
-        };
+        assertEquals(1, waitingPacketsQueue.size());
+        assertNotSame(telemetryPacket, twinPacket);
+        assertEquals(twinPacket, waitingPacketsQueue.peek());
+        assertEquals(2, callbackPacketsQueue.size());
+        assertTrue(callbackPacketsQueue.contains(telemetryPacket));
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_34_047: [If this object's connection status is CONNECTED and is using HTTPS,
-    // this function shall invoke addReceivedMessagesOverHttpToReceivedQueue.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_014: [If the outbound queue is full and the policy is BLOCK, this function shall wait for room in the queue up to the block timeout of the config.]
     @Test
-    public void handleMessageChecksForHttpMessages() throws DeviceClientException
+    public void addMessageBlocksUpToTimeoutIfPolicyIsBlock()
     {
         //arrange
-        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        final long blockTimeoutMillis = 100;
+        IotHubTransport transport = new IotHubTransport(mockedConfig);
         Deencapsulation.setField(transport, "connectionStatus", CONNECTED);
-        Queue<IotHubTransportMessage> receivedMessagesQueue = new ConcurrentLinkedQueue<>();
-        receivedMessagesQueue.add(mockedTransportMessage);
-        receivedMessagesQueue.add(mockedTransportMessage);
-        Deencapsulation.setField(transport, "receivedMessagesQueue", receivedMessagesQueue);
-
-        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedHttpsIotHubConnection);
-
-        new Expectations(IotHubTransport.class)
+        Queue<IotHubTransportPacket> waitingPacketsQueue = Deencapsulation.getField(transport, "waitingPacketsQueue");
+        new NonStrictExpectations()
         {
             {
-                Deencapsulation.invoke(transport, "acknowledgeReceivedMessage", mockedTransportMessage);
-
-                Deencapsulation.invoke(transport, "addReceivedMessagesOverHttpToReceivedQueue");
+                mockedConfig.getMaxOutboundQueueMessages();
+                result = 1;
+                mockedConfig.getOutboundQueueOverflowPolicy();
+                result = OutboundQueueOverflowPolicy.BLOCK;
+                mockedConfig.getOutboundQueueBlockTimeoutMillis();
+                result = blockTimeoutMillis;
             }
         };
+        transport.addMessage(mockedMessage, mockedEventCallback, new Object());
+        long startTimeMillis = System.currentTimeMillis();
 
         //act
-        transport.handleMessage();
+        transport.addMessage(mockedMessage, mockedEventCallback, new Object());
 
         //assert
-        assertEquals(1, receivedMessagesQueue.size());
-        new Verifications()
+        assertTrue(System.currentTimeMillis() - startTimeMillis >= blockTimeoutMillis);
+        assertEquals(1, waitingPacketsQueue.size());
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_21_034: [Twin and method messages shall be added to the waiting queue without being limited by, blocked by, or dropped by the outbound queue capacity.]
+    @Test
+    public void addMessageDoesNotLimitTwinAndMethodMessages()
+    {
+        //arrange
+        IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "connectionStatus", CONNECTED);
+        Queue<IotHubTransportPacket> waitingPacketsQueue = Deencapsulation.getField(transport, "waitingPacketsQueue");
+        Queue<IotHubTransportPacket> callbackPacketsQueue = Deencapsulation.getField(transport, "callbackPacketsQueue");
+        new NonStrictExpectations()
         {
             {
-                Deencapsulation.invoke(transport, "addReceivedMessagesOverHttpToReceivedQueue");
-                times = 1;
+                mockedConfig.getMaxOutboundQueueMessages();
+                result = 1;
+                mockedConfig.getOutboundQueueOverflowPolicy();
+                result = OutboundQueueOverflowPolicy.DROP_OLDEST;
             }
         };
+        transport.addMessage(mockedMessage, mockedEventCallback, new Object());
+        final IotHubTransportPacket telemetryPacket = waitingPacketsQueue.peek();
+
+        //act
+        transport.addMessage(mockedTransportMessage, mockedEventCallback, new Object());
+        transport.addMessage(mockedTransportMessage, mockedEventCallback, new Object());
+
+        //assert
+        assertEquals(3, waitingPacketsQueue.size());
+        assertTrue(waitingPacketsQueue.contains(telemetryPacket));
+        assertEquals(0, callbackPacketsQueue.size());
+        assertEquals(1, transport.getOutboundQueueMessageCount());
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_34_048: [If this object's connection status is CONNECTED and there is a
-    // received message in the queue, this function shall acknowledge the received message
+    //Tests_SRS_IOTHUBTRANSPORT_21_035: [This function shall move the packets waiting for a retry to the callback queue with status MESSAGE_CANCELLED_ONCLOSE, releasing the room they held in the outbound queue.]
     @Test
-    public void handleMessageAcknowledgesAReceivedMessages() throws DeviceClientException
+    public void cancelPendingPacketsReleasesRetryingPackets()
     {
         //arrange
-        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        IotHubTransport transport = new IotHubTransport(mockedConfig);
         Deencapsulation.setField(transport, "connectionStatus", CONNECTED);
-        Queue<IotHubTransportMessage> receivedMessagesQueue = new ConcurrentLinkedQueue<>();
-        receivedMessagesQueue.add(mockedTransportMessage);
-        receivedMessagesQueue.add(mockedTransportMessage);
-        Deencapsulation.setField(transport, "receivedMessagesQueue", receivedMessagesQueue);
-
-        new Expectations(IotHubTransport.class)
+        Queue<IotHubTransportPacket> waitingPacketsQueue = Deencapsulation.getField(transport, "waitingPacketsQueue");
+        Queue<IotHubTransportPacket> callbackPacketsQueue = Deencapsulation.getField(transport, "callbackPacketsQueue");
+        new NonStrictExpectations()
         {
             {
-                Deencapsulation.invoke(transport, "acknowledgeReceivedMessage", mockedTransportMessage);
+                mockedMessage.getBytes();
+                result = new byte[10];
             }
         };
+        transport.addMessage(mockedMessage, mockedEventCallback, new Object());
+        // the packet left the waiting queue and waits for a retry
+        final IotHubTransportPacket retryingPacket = waitingPacketsQueue.poll();
 
         //act
-        transport.handleMessage();
+        Deencapsulation.invoke(transport, "cancelPendingPackets");
 
         //assert
-        assertEquals(1, receivedMessagesQueue.size());
+        assertEquals(0, transport.getOutboundQueueMessageCount());
+        assertEquals(0L, transport.getOutboundQueueBytes());
+        assertTrue(callbackPacketsQueue.contains(retryingPacket));
         new Verifications()
         {
             {
-                Deencapsulation.invoke(transport, "acknowledgeReceivedMessage", mockedTransportMessage);
+                retryingPacket.setStatus(IotHubStatusCode.MESSAGE_CANCELLED_ONCLOSE);
                 times = 1;
             }
         };
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_34_049: [If the provided callback is null, this function shall throw an IllegalArgumentException.]
-    @Test (expected = IllegalArgumentException.class)
-    public void registerConnectionStateCallbackThrowsForNullCallback()
+    //Tests_SRS_IOTHUBTRANSPORT_21_013: [This function shall release the room that the packet held in the outbound queue.]
+    @Test
+    public void addToCallbackQueueReleasesOutboundQueueRoom()
     {
         //arrange
         IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "connectionStatus", CONNECTED);
+        Queue<IotHubTransportPacket> waitingPacketsQueue = Deencapsulation.getField(transport, "waitingPacketsQueue");
+        new NonStrictExpectations()
+        {
+            {
+                mockedMessage.getBytes();
+                result = new byte[10];
+            }
+        };
+        transport.addMessage(mockedMessage, mockedEventCallback, new Object());
+        IotHubTransportPacket packet = waitingPacketsQueue.poll();
 
         //act
-        transport.registerConnectionStateCallback(null, new Object());
+        Deencapsulation.invoke(transport, "addToCallbackQueue", packet);
+
+        //assert
+        assertEquals(0, transport.getOutboundQueueMessageCount());
+        assertEquals(0L, transport.getOutboundQueueBytes());
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_34_050: [This function shall save the provided callback and context.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_017: [If the config has an outbound message store, this function shall open the message journal and add the sequence numbers of the messages recovered from it to the journal backlog.]
     @Test
-    public void registerConnectionStateCallbackSavesProvidedCallbackAndContext()
+    public void openMessageJournalAddsRecoveredMessagesToJournalBacklog(@Mocked final MessageJournal mockedJournal) throws IOException
     {
         //arrange
+        final SortedMap<Long, Long> recoveredBodyLengths = new TreeMap<>();
+        recoveredBodyLengths.put(7L, 10L);
         IotHubTransport transport = new IotHubTransport(mockedConfig);
-        final Object context = new Object();
+        Queue<IotHubTransportPacket> waitingPacketsQueue = Deencapsulation.getField(transport, "waitingPacketsQueue");
+        new NonStrictExpectations()
+        {
+            {
+                mockedConfig.getOutboundMessageStorePath();
+                result = "journal";
+                new MessageJournal((java.io.File) any);
+                result = mockedJournal;
+                mockedJournal.getPendingBodyLengths();
+                result = recoveredBodyLengths;
+            }
+        };
 
         //act
-        transport.registerConnectionStateCallback(mockedIotHubConnectionStateCallback, context);
+        Deencapsulation.invoke(transport, "openMessageJournal");
 
         //assert
-        assertEquals(mockedIotHubConnectionStateCallback, Deencapsulation.getField(transport, "stateCallback"));
-        assertEquals(context, Deencapsulation.getField(transport, "stateCallbackContext"));
+        assertEquals(0, waitingPacketsQueue.size());
+        assertEquals(1, transport.getOutboundQueueMessageCount());
+        assertEquals(10L, transport.getOutboundQueueBytes());
+        assertNotNull(Deencapsulation.getField(transport, "messageJournal"));
+        new Verifications()
+        {
+            {
+                mockedJournal.readMessages((Collection<Long>) any);
+                times = 0;
+            }
+        };
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_34_051: [If the provided callback is null but the context is not, this function shall throw an IllegalArgumentException.]
-    @Test(expected = IllegalArgumentException.class)
-    public void registerConnectionStatusChangeCallbackThrowsForNullCallback()
+    //Tests_SRS_IOTHUBTRANSPORT_21_037: [This function shall read the journaled messages left on the disk into the waiting queue, in pages, while there are less than 100 journaled messages in memory.]
+    @Test
+    public void sendMessagesReadsJournalBacklogInPages(@Mocked final MessageJournal mockedJournal) throws IOException
     {
         //arrange
-        IotHubTransport transport = new IotHubTransport(mockedConfig);
+        final SortedMap<Long, Long> recoveredBodyLengths = new TreeMap<>();
+        for (long sequence = 0; sequence < 150; sequence++)
+        {
+            recoveredBodyLengths.put(sequence, 1L);
+        }
+
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Queue<IotHubTransportPacket> waitingPacketsQueue = Deencapsulation.getField(transport, "waitingPacketsQueue");
+        final List<Collection<Long>> readPages = new ArrayList<>();
+        new NonStrictExpectations()
+        {
+            {
+                mockedConfig.getOutboundMessageStorePath();
+                result = "journal";
+                new MessageJournal((java.io.File) any);
+                result = mockedJournal;
+                mockedJournal.getPendingBodyLengths();
+                result = recoveredBodyLengths;
+                mockedJournal.readMessages((Collection<Long>) any);
+                result = new Delegate()
+                {
+                    @SuppressWarnings("unused")
+                    SortedMap<Long, Message> readMessages(Collection<Long> sequences)
+                    {
+                        readPages.add(new ArrayList<>(sequences));
+                        SortedMap<Long, Message> messages = new TreeMap<>();
+                        for (Long sequence : sequences)
+                        {
+                            messages.put(sequence, mockedMessage);
+                        }
+
+                        return messages;
+                    }
+                };
+            }
+        };
+        Deencapsulation.invoke(transport, "openMessageJournal");
+        Deencapsulation.setField(transport, "connectionStatus", DISCONNECTED_RETRYING);
 
         //act
-        transport.registerConnectionStatusChangeCallback(null, new Object());
+        Deencapsulation.invoke(transport, "readJournalBacklog");
+        Deencapsulation.invoke(transport, "readJournalBacklog");
+
+        //assert
+        assertEquals(1, readPages.size());
+        assertEquals(100, readPages.get(0).size());
+        assertEquals(0L, (long) readPages.get(0).iterator().next());
+        assertEquals(100, waitingPacketsQueue.size());
+        assertEquals(150, transport.getOutboundQueueMessageCount());
+        assertEquals(150L, transport.getOutboundQueueBytes());
+        Map<Long, ?> journalBacklog = Deencapsulation.getField(transport, "journalBacklog");
+        assertEquals(50, journalBacklog.size());
+
+        //act
+        Deencapsulation.invoke(transport, "addToCallbackQueue", waitingPacketsQueue.poll());
+        Deencapsulation.invoke(transport, "readJournalBacklog");
+
+        //assert
+        assertEquals(2, readPages.size());
+        assertEquals(Collections.singletonList(100L), readPages.get(1));
+        assertEquals(100, waitingPacketsQueue.size());
+        assertEquals(49, journalBacklog.size());
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_34_051: [If the provided callback is null but the context is not, this function shall throw an IllegalArgumentException.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_040: [If there are 100 journaled messages in memory or older ones on the disk, this function shall leave the journaled message on the disk instead of adding it to the waiting queue.]
     @Test
-    public void registerConnectionStatusChangeCallbackDoesNotThrowForNullCallbackIfContextIsAlsoNull()
+    public void addMessageLeavesJournaledMessageOnDiskIfEnoughInMemory(@Mocked final MessageJournal mockedJournal) throws IOException
     {
         //arrange
         IotHubTransport transport = new IotHubTransport(mockedConfig);
-        transport.registerConnectionStatusChangeCallback(mockedIotHubConnectionStatusChangeCallback, new Object());
-        assertNotNull(Deencapsulation.getField(transport, "connectionStatusChangeCallback"));
-        assertNotNull(Deencapsulation.getField(transport, "connectionStatusChangeCallbackContext"));
+        Deencapsulation.setField(transport, "connectionStatus", CONNECTED);
+        Deencapsulation.setField(transport, "messageJournal", mockedJournal);
+        Deencapsulation.setField(transport, "journaledPacketsInMemory", 100);
+        Queue<IotHubTransportPacket> waitingPacketsQueue = Deencapsulation.getField(transport, "waitingPacketsQueue");
+        new NonStrictExpectations()
+        {
+            {
+                mockedJournal.append(mockedMessage);
+                result = 5L;
+                mockedMessage.getBytes();
+                result = new byte[3];
+            }
+        };
 
         //act
-        transport.registerConnectionStatusChangeCallback(null, null);
+        transport.addMessage(mockedMessage, mockedEventCallback, new Object());
 
         //assert
-        assertNull(Deencapsulation.getField(transport, "connectionStatusChangeCallback"));
-        assertNull(Deencapsulation.getField(transport, "connectionStatusChangeCallbackContext"));
-
+        assertEquals(0, waitingPacketsQueue.size());
+        Map<Long, ?> journalBacklog = Deencapsulation.getField(transport, "journalBacklog");
+        assertTrue(journalBacklog.containsKey(5L));
+        assertEquals(1, transport.getOutboundQueueMessageCount());
+        assertEquals(3L, transport.getOutboundQueueBytes());
+        assertEquals(100, (int) Deencapsulation.getField(transport, "journaledPacketsInMemory"));
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_34_052: [This function shall save the provided callback and context.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_019: [If the message journal is open, this function shall append the telemetry messages to it before adding them to the waiting queue.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_021: [This function shall acknowledge the completed packet in the message journal, except the packets cancelled by closing the transport and the journaled packets that failed with a retryable exception, which are sent again the next time the transport is opened.]
     @Test
-    public void registerConnectionStatusChangeCallbackSavesProvidedCallbackAndContext()
+    public void addMessageAppendsToMessageJournalAndCompletionAcknowledges(@Mocked final MessageJournal mockedJournal) throws IOException
     {
         //arrange
         IotHubTransport transport = new IotHubTransport(mockedConfig);
-        final Object context = new Object();
+        Deencapsulation.setField(transport, "connectionStatus", CONNECTED);
+        Deencapsulation.setField(transport, "messageJournal", mockedJournal);
+        Queue<IotHubTransportPacket> waitingPacketsQueue = Deencapsulation.getField(transport, "waitingPacketsQueue");
+        new NonStrictExpectations()
+        {
+            {
+                mockedJournal.append(mockedMessage);
+                result = 5L;
+                mockedPacket.getStatus();
+                result = IotHubStatusCode.OK_EMPTY;
+            }
+        };
 
         //act
-        transport.registerConnectionStatusChangeCallback(mockedIotHubConnectionStatusChangeCallback, context);
+        transport.addMessage(mockedMessage, mockedEventCallback, new Object());
+        Deencapsulation.invoke(transport, "addToCallbackQueue", waitingPacketsQueue.poll());
 
         //assert
-        assertEquals(mockedIotHubConnectionStatusChangeCallback, Deencapsulation.getField(transport, "connectionStatusChangeCallback"));
-        assertEquals(context, Deencapsulation.getField(transport, "connectionStatusChangeCallbackContext"));
+        new Verifications()
+        {
+            {
+                mockedJournal.append(mockedMessage);
+                times = 1;
+                mockedJournal.acknowledge(5L);
+                times = 1;
+            }
+        };
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_34_053: [This function shall execute the callback associate with the provided
-    // transport message with the provided message and its saved callback context.]
-    //Tests_SRS_IOTHUBTRANSPORT_34_054: [This function shall send the message callback result along the
-    // connection as the ack to the service.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_018: [This function shall close the message journal. The cancelled messages are not acknowledged in it, so they are sent again the next time the transport is opened.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_021: [This function shall acknowledge the completed packet in the message journal, except the packets cancelled by closing the transport and the journaled packets that failed with a retryable exception, which are sent again the next time the transport is opened.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_038: [This function shall invoke the callbacks of the journaled messages left on the disk with status MESSAGE_CANCELLED_ONCLOSE, keeping them in the message journal.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_039: [The journaled packets shall not time out, and if they fail with a retryable exception they shall be kept in the message journal, to be sent again the next time the transport is opened.]
     @Test
-    public void acknowledgeReceivedMessageSendsAck() throws TransportException
+    public void closeAfterRetryExpiredKeepsMessagesInMessageJournal(@Mocked final MessageJournal mockedJournal) throws DeviceClientException, IOException
     {
         //arrange
-        IotHubTransport transport = new IotHubTransport(mockedConfig);
-        final Object context = new Object();
-        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedIotHubTransportConnection);
-        new Expectations()
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "connectionStatus", CONNECTED);
+        Deencapsulation.setField(transport, "messageJournal", mockedJournal);
+        Deencapsulation.setField(transport, "taskScheduler", mockedTaskScheduler);
+        Queue<IotHubTransportPacket> waitingPacketsQueue = Deencapsulation.getField(transport, "waitingPacketsQueue");
+        new NonStrictExpectations(IotHubTransport.class)
         {
             {
-                mockedTransportMessage.getMessageCallback();
-                result = mockedMessageCallback;
-
-                mockedTransportMessage.getMessageCallbackContext();
-                result = context;
-
-                mockedMessageCallback.execute(mockedTransportMessage, context);
-                result = IotHubMessageResult.COMPLETE;
+                mockedJournal.append(mockedMessage);
+                returns(5L, 6L, 7L);
+                Deencapsulation.invoke(transport, "hasOperationTimedOut", anyLong);
+                result = true;
+                mockedTransportException.isRetryable();
+                result = true;
+                mockedConfig.getRetryPolicy();
+                result = mockedRetryPolicy;
+                mockedRetryPolicy.getRetryDecision(anyInt, mockedTransportException);
+                result = mockedRetryDecision;
+                mockedRetryDecision.shouldRetry();
+                result = false;
+                mockedPacket.getCallback();
+                result = mockedEventCallback;
+                mockedPacket.getStatus();
+                result = IotHubStatusCode.MESSAGE_CANCELLED_ONCLOSE;
             }
         };
+        transport.addMessage(mockedMessage, mockedEventCallback, new Object());
+        transport.addMessage(mockedMessage, mockedEventCallback, new Object());
+        Deencapsulation.setField(transport, "journaledPacketsInMemory", 100);
+        transport.addMessage(mockedMessage, mockedEventCallback, new Object());
+        IotHubTransportPacket failedPacket = waitingPacketsQueue.poll();
 
         //act
-        Deencapsulation.invoke(transport, "acknowledgeReceivedMessage", mockedTransportMessage);
+        Deencapsulation.invoke(transport, "handleMessageException", failedPacket, mockedTransportException);
+        transport.close(RETRY_EXPIRED, mockedTransportException);
 
         //assert
+        assertEquals(0, transport.getOutboundQueueMessageCount());
         new Verifications()
         {
             {
-                mockedMessageCallback.execute(mockedTransportMessage, context);
-                times = 1;
-
-                mockedIotHubTransportConnection.sendMessageResult(mockedTransportMessage, IotHubMessageResult.COMPLETE);
+                mockedJournal.acknowledge(anyLong);
+                times = 0;
+                mockedJournal.close();
                 times = 1;
+                // the failed packet, the waiting packet and the packet left on the disk
+                mockedEventCallback.execute(IotHubStatusCode.MESSAGE_CANCELLED_ONCLOSE, any);
+                times = 3;
             }
         };
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_34_055: [If an exception is thrown while acknowledging the received message,
-    // this function shall add the received message back into the receivedMessagesQueue and then rethrow the exception.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_039: [The journaled packets shall not time out, and if they fail with a retryable exception they shall be kept in the message journal, to be sent again the next time the transport is opened.]
     @Test
-    public void acknowledgeReceivedMessageReQueuesFailedMessages() throws TransportException
+    public void handleMessageExceptionRetriesJournaledPacketAfterOperationTimeout(@Mocked final MessageJournal mockedJournal) throws IOException
     {
         //arrange
-        IotHubTransport transport = new IotHubTransport(mockedConfig);
-        final Object context = new Object();
-        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedIotHubTransportConnection);
-        new Expectations()
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "connectionStatus", CONNECTED);
+        Deencapsulation.setField(transport, "messageJournal", mockedJournal);
+        Deencapsulation.setField(transport, "taskScheduler", mockedTaskScheduler);
+        Queue<IotHubTransportPacket> waitingPacketsQueue = Deencapsulation.getField(transport, "waitingPacketsQueue");
+        new NonStrictExpectations(IotHubTransport.class)
         {
             {
-                mockedTransportMessage.getMessageCallback();
-                result = mockedMessageCallback;
-
-                mockedTransportMessage.getMessageCallbackContext();
-                result = context;
-
-                mockedMessageCallback.execute(mockedTransportMessage, context);
-                result = IotHubMessageResult.COMPLETE;
-
-                mockedIotHubTransportConnection.sendMessageResult(mockedTransportMessage, IotHubMessageResult.COMPLETE);
-                result = mockedTransportException;
+                mockedJournal.append(mockedMessage);
+                result = 5L;
+                Deencapsulation.invoke(transport, "hasOperationTimedOut", anyLong);
+                result = true;
+                mockedTransportException.isRetryable();
+                result = true;
+                mockedConfig.getRetryPolicy();
+                result = mockedRetryPolicy;
+                mockedRetryPolicy.getRetryDecision(anyInt, mockedTransportException);
+                result = mockedRetryDecision;
+                mockedRetryDecision.shouldRetry();
+                result = true;
             }
         };
-
-        boolean exceptionRethrown = false;
+        transport.addMessage(mockedMessage, mockedEventCallback, new Object());
 
         //act
-        try
-        {
-            Deencapsulation.invoke(transport, "acknowledgeReceivedMessage", mockedTransportMessage);
-        }
-        catch (Exception e)
-        {
-            exceptionRethrown = true;
-        }
+        Deencapsulation.invoke(transport, "handleMessageException", waitingPacketsQueue.poll(), mockedTransportException);
 
         //assert
-        assertTrue(exceptionRethrown);
-        Queue<IotHubTransportMessage> receivedMessagesQueue = Deencapsulation.getField(transport, "receivedMessagesQueue");
-        assertEquals(1, receivedMessagesQueue.size());
+        assertEquals(1, transport.getOutboundQueueMessageCount());
+        new Verifications()
+        {
+            {
+                mockedTaskScheduler.schedule((IotHubTransport.MessageRetryRunnable) any, anyLong, TimeUnit.MILLISECONDS);
+                times = 1;
+                mockedJournal.acknowledge(anyLong);
+                times = 0;
+            }
+        };
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_34_056: [If the saved http transport connection can receive a message, add it to receivedMessagesQueue.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_018: [This function shall close the message journal. The cancelled messages are not acknowledged in it, so they are sent again the next time the transport is opened.]
     @Test
-    public void addReceivedMessagesOverHttpToReceivedQueueChecksForHttpMessages() throws TransportException
+    public void closeClosesMessageJournal(@Mocked final MessageJournal mockedJournal) throws DeviceClientException, IOException
     {
         //arrange
         IotHubTransport transport = new IotHubTransport(mockedConfig);
-        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedHttpsIotHubConnection);
+        Deencapsulation.setField(transport, "messageJournal", mockedJournal);
 
         //act
-        Deencapsulation.invoke(transport, "addReceivedMessagesOverHttpToReceivedQueue");
+        transport.close(IotHubConnectionStatusChangeReason.CLIENT_CLOSE, null);
 
         //assert
-        Queue<IotHubTransportMessage> receivedMessagesQueue = Deencapsulation.getField(transport, "receivedMessagesQueue");
-        assertEquals(1, receivedMessagesQueue.size());
+        assertNull(Deencapsulation.getField(transport, "messageJournal"));
         new Verifications()
         {
             {
-                mockedHttpsIotHubConnection.receiveMessage();
+                mockedJournal.close();
                 times = 1;
             }
         };
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_34_057: [This function shall move all packets from inProgressQueue to waiting queue.]
-    //Tests_SRS_IOTHUBTRANSPORT_34_058: [This function shall invoke updateStatus with DISCONNECTED_RETRYING, and the provided transportException.]
-    //Tests_SRS_IOTHUBTRANSPORT_34_059: [This function shall invoke checkForUnauthorizedException with the provided exception.]
-    //Tests_SRS_IOTHUBTRANSPORT_34_060: [This function shall invoke reconnect with the provided exception.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_020: [This function shall force the records written in the message journal since the last send to the disk.]
     @Test
-    public void handleDisconnectionClearsInProgressAndReconnects()
+    public void sendMessagesSyncsMessageJournal(@Mocked final MessageJournal mockedJournal) throws IOException
     {
         //arrange
-        final IotHubTransport transport = new IotHubTransport(mockedConfig);
-
-        new Expectations(IotHubTransport.class)
-        {
-            {
-                Deencapsulation.invoke(transport, "exceptionToStatusChangeReason", mockedTransportException);
-                result = mockedIotHubConnectionStatusChangeReason;
-
-                Deencapsulation.invoke(transport, "updateStatus",
-                        new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
-                        DISCONNECTED_RETRYING, mockedIotHubConnectionStatusChangeReason, mockedTransportException);
-
-                Deencapsulation.invoke(transport, "checkForUnauthorizedException", mockedTransportException);
-
-                Deencapsulation.invoke(transport, "reconnect", mockedTransportException);
-            }
-        };
+        IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "connectionStatus", CONNECTED);
+        Deencapsulation.setField(transport, "messageJournal", mockedJournal);
 
         //act
-        Deencapsulation.invoke(transport, "handleDisconnection", mockedTransportException);
+        transport.sendMessages();
 
         //assert
         new Verifications()
         {
             {
-                Deencapsulation.invoke(transport, "exceptionToStatusChangeReason", mockedTransportException);
-                times = 1;
-
-                Deencapsulation.invoke(transport, "updateStatus",
-                        new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
-                        DISCONNECTED_RETRYING, mockedIotHubConnectionStatusChangeReason, mockedTransportException);
-                times = 1;
-
-                Deencapsulation.invoke(transport, "checkForUnauthorizedException", mockedTransportException);
-                times = 1;
-
-                Deencapsulation.invoke(transport, "reconnect", mockedTransportException);
+                mockedJournal.sync();
                 times = 1;
             }
         };
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_34_061: [This function shall close the saved connection, and then invoke openConnection and return null.]
+    //Tests_SRS_IOTHUBTRANSPORT_34_043: [If the connection status of this object is not CONNECTED, this function shall do nothing]
     @Test
-    public void singleReconnectAttemptSuccess() throws TransportException
+    public void sendMessagesDoesNothingIfNotConnected()
     {
         //arrange
-        final IotHubTransport transport = new IotHubTransport(mockedConfig);
-        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedIotHubTransportConnection);
-
-        new Expectations(IotHubTransport.class)
-        {
-            {
-                //open and close happen with no exception
-                mockedIotHubTransportConnection.close(true);
-                Deencapsulation.invoke(transport, "openConnection");
-            }
-        };
+        IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "connectionStatus", DISCONNECTED);
+        Queue<IotHubTransportPacket> waitingPacketsQueue = new ConcurrentLinkedQueue<>();
+        waitingPacketsQueue.add(mockedPacket);
+        Deencapsulation.setField(transport, "waitingPacketsQueue", waitingPacketsQueue);
 
         //act
-        Exception result = Deencapsulation.invoke(transport, "singleReconnectAttempt");
+        transport.sendMessages();
 
         //assert
-        assertNull(result);
+        assertFalse(waitingPacketsQueue.isEmpty());
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_34_062: [If an exception is encountered while closing or opening the connection,
-    // this function shall invoke checkForUnauthorizedException on that exception and then return it.]
+    //Tests_SRS_IOTHUBTRANSPORT_34_044: [This function continue to dequeue packets saved in the waiting
+    // queue and send them until connection status isn't CONNECTED or until 10 messages have been sent]
     @Test
-    public void singleReconnectAttemptReturnsEncounteredException() throws TransportException
+    public void sendMessagesSendsMessages()
     {
         //arrange
         final IotHubTransport transport = new IotHubTransport(mockedConfig);
-        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedIotHubTransportConnection);
+        final int MAX_MESSAGES_TO_SEND_PER_THREAD = Deencapsulation.getField(transport, "MAX_MESSAGES_TO_SEND_PER_THREAD");
+        Deencapsulation.setField(transport, "connectionStatus", CONNECTED);
+        Queue<IotHubTransportPacket> waitingPacketsQueue = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < MAX_MESSAGES_TO_SEND_PER_THREAD + 1; i++)
+        {
+            waitingPacketsQueue.add(mockedPacket);
+        }
+
+        Deencapsulation.setField(transport, "waitingPacketsQueue", waitingPacketsQueue);
 
         new Expectations(IotHubTransport.class)
         {
             {
-                //open and close happen with no exception
-                mockedIotHubTransportConnection.close(true);
-                result = mockedTransportException;
-
-                Deencapsulation.invoke(transport, "checkForUnauthorizedException", mockedTransportException);
+                Deencapsulation.invoke(transport, "sendPacket", new Class[] {IotHubTransportPacket.class}, mockedPacket);
             }
         };
 
         //act
-        Exception result = Deencapsulation.invoke(transport, "singleReconnectAttempt");
+        transport.sendMessages();
 
         //assert
-        assertEquals(mockedTransportException, result);
         new Verifications()
         {
             {
-                Deencapsulation.invoke(transport, "checkForUnauthorizedException", mockedTransportException);
-                times = 1;
+                Deencapsulation.invoke(transport, "sendPacket", new Class[] {IotHubTransportPacket.class}, mockedPacket);
+                times = MAX_MESSAGES_TO_SEND_PER_THREAD;
             }
         };
+        assertEquals(1, waitingPacketsQueue.size());
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_34_063: [If the provided transportException is retryable, the packet has not
-    // timed out, and the retry policy allows, this function shall schedule a task to add the provided
-    // packet to the waiting list after the amount of time determined by the retry policy.]
+    //Tests_SRS_IOTHUBTRANSPORT_34_045: [This function shall dequeue each packet in the callback queue and execute
+    // their saved callback with their saved status and context]
     @Test
-    public void handleMessageExceptionSchedulesRetryIfRetryable()
+    public void invokeCallbacksInvokesAllCallbacks(final @Mocked IotHubStatusCode mockedStatus)
     {
         //arrange
         final IotHubTransport transport = new IotHubTransport(mockedConfig);
-        final long expectedDelay = 0;
-        final long duration = 0;
-        Deencapsulation.setField(transport, "taskScheduler", mockedTaskScheduler);
-        new Expectations(IotHubTransport.class)
+        Queue<IotHubTransportPacket> callbackPacketsQueue = new ConcurrentLinkedQueue<>();
+        callbackPacketsQueue.add(mockedPacket);
+        callbackPacketsQueue.add(mockedPacket);
+        callbackPacketsQueue.add(mockedPacket);
+        Deencapsulation.setField(transport, "callbackPacketsQueue", callbackPacketsQueue);
+        final Object context = new Object();
+        new NonStrictExpectations()
         {
             {
-                Deencapsulation.invoke(transport, "hasOperationTimedOut", anyLong);
-                result = false;
+                mockedPacket.getCallback();
+                result = mockedEventCallback;
 
-                mockedTransportException.isRetryable();
+                mockedPacket.getContext();
+                result = context;
+
+                mockedPacket.getStatus();
+                result = mockedStatus;
+            }
+        };
+
+        //act
+        transport.invokeCallbacks();
+
+        //assert
+        assertTrue(callbackPacketsQueue.isEmpty());
+        new Verifications()
+        {
+            {
+                mockedEventCallback.execute(mockedStatus, context);
+                times = 3;
+            }
+        };
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_34_046: [If this object's connection status is not CONNEECTED, this function shall do nothing.]
+    @Test
+    public void handleMessageDoesNothingIfNotConnected() throws DeviceClientException
+    {
+        //arrange
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "connectionStatus", DISCONNECTED);
+        Queue<IotHubTransportMessage> receivedMessagesQueue = new ConcurrentLinkedQueue<>();
+        receivedMessagesQueue.add(mockedTransportMessage);
+        receivedMessagesQueue.add(mockedTransportMessage);
+        Deencapsulation.setField(transport, "receivedMessagesQueue", receivedMessagesQueue);
+
+        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedHttpsIotHubConnection);
+
+        new Expectations(transport)
+        {
+            {
+                Deencapsulation.invoke(transport, "addReceivedMessagesOverHttpToReceivedQueue");
+                times = 0;
+            }
+        };
+
+        //act
+        transport.handleMessage();
+
+        //assert
+        assertEquals(2, receivedMessagesQueue.size());
+        new Verifications()
+        {
+            {
+                Deencapsulation.invoke(transport, "addReceivedMessagesOverHttpToReceivedQueue");
+                times = 0;
+            }
+        };
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_34_047: [If this object's connection status is CONNECTED and is using HTTPS,
+    // this function shall invoke addReceivedMessagesOverHttpToReceivedQueue.]
+    @Test
+    public void handleMessageChecksForHttpMessages() throws DeviceClientException
+    {
+        //arrange
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "connectionStatus", CONNECTED);
+        Queue<IotHubTransportMessage> receivedMessagesQueue = new ConcurrentLinkedQueue<>();
+        receivedMessagesQueue.add(mockedTransportMessage);
+        receivedMessagesQueue.add(mockedTransportMessage);
+        Deencapsulation.setField(transport, "receivedMessagesQueue", receivedMessagesQueue);
+
+        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedHttpsIotHubConnection);
+
+        new Expectations(IotHubTransport.class)
+        {
+            {
+                Deencapsulation.invoke(transport, "acknowledgeReceivedMessage", mockedTransportMessage);
+
+                Deencapsulation.invoke(transport, "addReceivedMessagesOverHttpToReceivedQueue");
+            }
+        };
+
+        //act
+        transport.handleMessage();
+
+        //assert
+        assertEquals(0, receivedMessagesQueue.size());
+        new Verifications()
+        {
+            {
+                Deencapsulation.invoke(transport, "addReceivedMessagesOverHttpToReceivedQueue");
+                times = 1;
+            }
+        };
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_34_048: [If this object's connection status is CONNECTED and there is a
+    // received message in the queue, this function shall acknowledge the received message
+    @Test
+    public void handleMessageAcknowledgesAllReceivedMessages() throws DeviceClientException
+    {
+        //arrange
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "connectionStatus", CONNECTED);
+        Queue<IotHubTransportMessage> receivedMessagesQueue = new ConcurrentLinkedQueue<>();
+        receivedMessagesQueue.add(mockedTransportMessage);
+        receivedMessagesQueue.add(mockedTransportMessage);
+        Deencapsulation.setField(transport, "receivedMessagesQueue", receivedMessagesQueue);
+
+        new Expectations(IotHubTransport.class)
+        {
+            {
+                Deencapsulation.invoke(transport, "acknowledgeReceivedMessage", mockedTransportMessage);
+            }
+        };
+
+        //act
+        transport.handleMessage();
+
+        //assert
+        assertEquals(0, receivedMessagesQueue.size());
+        new Verifications()
+        {
+            {
+                Deencapsulation.invoke(transport, "acknowledgeReceivedMessage", mockedTransportMessage);
+                times = 2;
+            }
+        };
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_21_005: [This function shall continue to dequeue and acknowledge received
+    // messages until the queue is empty, the connection status isn't CONNECTED, 100 messages have been
+    // handled, or the time slice of 100 milliseconds expired.]
+    @Test
+    public void handleMessageAcknowledgesAtMost100MessagesPerCall() throws DeviceClientException
+    {
+        //arrange
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "connectionStatus", CONNECTED);
+        Queue<IotHubTransportMessage> receivedMessagesQueue = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < 150; i++)
+        {
+            receivedMessagesQueue.add(mockedTransportMessage);
+        }
+        Deencapsulation.setField(transport, "receivedMessagesQueue", receivedMessagesQueue);
+
+        new Expectations(IotHubTransport.class)
+        {
+            {
+                Deencapsulation.invoke(transport, "acknowledgeReceivedMessage", mockedTransportMessage);
+            }
+        };
+
+        //act
+        transport.handleMessage();
+
+        //assert
+        assertEquals(50, receivedMessagesQueue.size());
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_34_049: [If the provided callback is null, this function shall throw an IllegalArgumentException.]
+    @Test (expected = IllegalArgumentException.class)
+    public void registerConnectionStateCallbackThrowsForNullCallback()
+    {
+        //arrange
+        IotHubTransport transport = new IotHubTransport(mockedConfig);
+
+        //act
+        transport.registerConnectionStateCallback(null, new Object());
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_34_050: [This function shall save the provided callback and context.]
+    @Test
+    public void registerConnectionStateCallbackSavesProvidedCallbackAndContext()
+    {
+        //arrange
+        IotHubTransport transport = new IotHubTransport(mockedConfig);
+        final Object context = new Object();
+
+        //act
+        transport.registerConnectionStateCallback(mockedIotHubConnectionStateCallback, context);
+
+        //assert
+        assertEquals(mockedIotHubConnectionStateCallback, Deencapsulation.getField(transport, "stateCallback"));
+        assertEquals(context, Deencapsulation.getField(transport, "stateCallbackContext"));
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_34_051: [If the provided callback is null but the context is not, this function shall throw an IllegalArgumentException.]
+    @Test(expected = IllegalArgumentException.class)
+    public void registerConnectionStatusChangeCallbackThrowsForNullCallback()
+    {
+        //arrange
+        IotHubTransport transport = new IotHubTransport(mockedConfig);
+
+        //act
+        transport.registerConnectionStatusChangeCallback(null, new Object());
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_34_051: [If the provided callback is null but the context is not, this function shall throw an IllegalArgumentException.]
+    @Test
+    public void registerConnectionStatusChangeCallbackDoesNotThrowForNullCallbackIfContextIsAlsoNull()
+    {
+        //arrange
+        IotHubTransport transport = new IotHubTransport(mockedConfig);
+        transport.registerConnectionStatusChangeCallback(mockedIotHubConnectionStatusChangeCallback, new Object());
+        assertNotNull(Deencapsulation.getField(transport, "connectionStatusChangeCallback"));
+        assertNotNull(Deencapsulation.getField(transport, "connectionStatusChangeCallbackContext"));
+
+        //act
+        transport.registerConnectionStatusChangeCallback(null, null);
+
+        //assert
+        assertNull(Deencapsulation.getField(transport, "connectionStatusChangeCallback"));
+        assertNull(Deencapsulation.getField(transport, "connectionStatusChangeCallbackContext"));
+
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_34_052: [This function shall save the provided callback and context.]
+    @Test
+    public void registerConnectionStatusChangeCallbackSavesProvidedCallbackAndContext()
+    {
+        //arrange
+        IotHubTransport transport = new IotHubTransport(mockedConfig);
+        final Object context = new Object();
+
+        //act
+        transport.registerConnectionStatusChangeCallback(mockedIotHubConnectionStatusChangeCallback, context);
+
+        //assert
+        assertEquals(mockedIotHubConnectionStatusChangeCallback, Deencapsulation.getField(transport, "connectionStatusChangeCallback"));
+        assertEquals(context, Deencapsulation.getField(transport, "connectionStatusChangeCallbackContext"));
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_34_053: [This function shall execute the callback associate with the provided
+    // transport message with the provided message and its saved callback context.]
+    //Tests_SRS_IOTHUBTRANSPORT_34_054: [This function shall send the message callback result along the
+    // connection as the ack to the service.]
+    @Test
+    public void acknowledgeReceivedMessageSendsAck() throws TransportException
+    {
+        //arrange
+        IotHubTransport transport = new IotHubTransport(mockedConfig);
+        final Object context = new Object();
+        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedIotHubTransportConnection);
+        new Expectations()
+        {
+            {
+                mockedTransportMessage.getMessageCallback();
+                result = mockedMessageCallback;
+
+                mockedTransportMessage.getMessageCallbackContext();
+                result = context;
+
+                mockedMessageCallback.execute(mockedTransportMessage, context);
+                result = IotHubMessageResult.COMPLETE;
+            }
+        };
+
+        //act
+        Deencapsulation.invoke(transport, "acknowledgeReceivedMessage", mockedTransportMessage);
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockedMessageCallback.execute(mockedTransportMessage, context);
+                times = 1;
+
+                mockedIotHubTransportConnection.sendMessageResult(mockedTransportMessage, IotHubMessageResult.COMPLETE);
+                times = 1;
+            }
+        };
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_34_055: [If an exception is thrown while acknowledging the received message,
+    // this function shall add the received message back into the receivedMessagesQueue and then rethrow the exception.]
+    @Test
+    public void acknowledgeReceivedMessageReQueuesFailedMessages() throws TransportException
+    {
+        //arrange
+        IotHubTransport transport = new IotHubTransport(mockedConfig);
+        final Object context = new Object();
+        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedIotHubTransportConnection);
+        new Expectations()
+        {
+            {
+                mockedTransportMessage.getMessageCallback();
+                result = mockedMessageCallback;
+
+                mockedTransportMessage.getMessageCallbackContext();
+                result = context;
+
+                mockedMessageCallback.execute(mockedTransportMessage, context);
+                result = IotHubMessageResult.COMPLETE;
+
+                mockedIotHubTransportConnection.sendMessageResult(mockedTransportMessage, IotHubMessageResult.COMPLETE);
+                result = mockedTransportException;
+            }
+        };
+
+        boolean exceptionRethrown = false;
+
+        //act
+        try
+        {
+            Deencapsulation.invoke(transport, "acknowledgeReceivedMessage", mockedTransportMessage);
+        }
+        catch (Exception e)
+        {
+            exceptionRethrown = true;
+        }
+
+        //assert
+        assertTrue(exceptionRethrown);
+        Queue<IotHubTransportMessage> receivedMessagesQueue = Deencapsulation.getField(transport, "receivedMessagesQueue");
+        assertEquals(1, receivedMessagesQueue.size());
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_34_056: [If the saved http transport connection can receive a message, add it to receivedMessagesQueue.]
+    @Test
+    public void addReceivedMessagesOverHttpToReceivedQueueChecksForHttpMessages() throws TransportException
+    {
+        //arrange
+        IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedHttpsIotHubConnection);
+
+        //act
+        Deencapsulation.invoke(transport, "addReceivedMessagesOverHttpToReceivedQueue");
+
+        //assert
+        Queue<IotHubTransportMessage> receivedMessagesQueue = Deencapsulation.getField(transport, "receivedMessagesQueue");
+        assertEquals(1, receivedMessagesQueue.size());
+        new Verifications()
+        {
+            {
+                mockedHttpsIotHubConnection.receiveMessage();
+                times = 1;
+            }
+        };
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_21_001: [If this object is using HTTPS, this function shall only poll the
+    // IoT Hub for messages when the https receive scheduler says that the next poll is due.]
+    @Test
+    public void handleMessageDoesNotPollHttpBeforeScheduledTime() throws DeviceClientException
+    {
+        //arrange
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "connectionStatus", CONNECTED);
+        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedHttpsIotHubConnection);
+        HttpsReceiveScheduler httpsReceiveScheduler = Deencapsulation.getField(transport, "httpsReceiveScheduler");
+        httpsReceiveScheduler.onPollCompleted(false, 60000);
+
+        //act
+        transport.handleMessage();
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockedHttpsIotHubConnection.receiveMessage();
+                times = 0;
+            }
+        };
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_21_003: [This function shall schedule the next poll with the receive result and the
+    // wait time requested by the IoT Hub.]
+    @Test
+    public void addReceivedMessagesOverHttpToReceivedQueueSchedulesNextPoll() throws TransportException
+    {
+        //arrange
+        IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedHttpsIotHubConnection);
+        new NonStrictExpectations()
+        {
+            {
+                mockedHttpsIotHubConnection.receiveMessage();
+                result = mockedTransportMessage;
+                mockedHttpsIotHubConnection.getReceiveRetryAfterMillis();
+                result = 60000L;
+            }
+        };
+
+        //act
+        Deencapsulation.invoke(transport, "addReceivedMessagesOverHttpToReceivedQueue");
+
+        //assert
+        HttpsReceiveScheduler httpsReceiveScheduler = Deencapsulation.getField(transport, "httpsReceiveScheduler");
+        assertFalse(httpsReceiveScheduler.isPollDue());
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_21_002: [If the http transport connection fails to receive, this function shall
+    // back off the next poll as if no message was received.]
+    @Test
+    public void addReceivedMessagesOverHttpToReceivedQueueBacksOffOnFailure() throws TransportException
+    {
+        //arrange
+        IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedHttpsIotHubConnection);
+        new NonStrictExpectations()
+        {
+            {
+                mockedHttpsIotHubConnection.receiveMessage();
+                result = mockedTransportException;
+            }
+        };
+
+        //act
+        try
+        {
+            Deencapsulation.invoke(transport, "addReceivedMessagesOverHttpToReceivedQueue");
+            fail("The receive exception shall be rethrown");
+        }
+        catch (Exception expected)
+        {
+            assertTrue(expected instanceof TransportException);
+        }
+
+        //assert
+        HttpsReceiveScheduler httpsReceiveScheduler = Deencapsulation.getField(transport, "httpsReceiveScheduler");
+        assertFalse(httpsReceiveScheduler.isPollDue());
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_21_004: [This function shall set the maximum period of the https receive scheduler.]
+    @Test
+    public void setMaxHttpsReceivePeriodInMillisecondsSetsSchedulerMaxPeriod()
+    {
+        //arrange
+        IotHubTransport transport = new IotHubTransport(mockedConfig);
+
+        //act
+        transport.setMaxHttpsReceivePeriodInMilliseconds(1234L);
+
+        //assert
+        HttpsReceiveScheduler httpsReceiveScheduler = Deencapsulation.getField(transport, "httpsReceiveScheduler");
+        assertEquals(1234L, (long) Deencapsulation.getField(httpsReceiveScheduler, "maxPeriodMillis"));
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_34_057: [This function shall move all packets from inProgressQueue to waiting queue.]
+    //Tests_SRS_IOTHUBTRANSPORT_34_058: [This function shall invoke updateStatus with DISCONNECTED_RETRYING, and the provided transportException.]
+    //Tests_SRS_IOTHUBTRANSPORT_34_059: [This function shall invoke checkForUnauthorizedException with the provided exception.]
+    //Tests_SRS_IOTHUBTRANSPORT_34_060: [This function shall invoke reconnect with the provided exception.]
+    @Test
+    public void handleDisconnectionClearsInProgressAndReconnects()
+    {
+        //arrange
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+
+        new Expectations(IotHubTransport.class)
+        {
+            {
+                Deencapsulation.invoke(transport, "exceptionToStatusChangeReason", mockedTransportException);
+                result = mockedIotHubConnectionStatusChangeReason;
+
+                Deencapsulation.invoke(transport, "updateStatus",
+                        new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
+                        DISCONNECTED_RETRYING, mockedIotHubConnectionStatusChangeReason, mockedTransportException);
+
+                Deencapsulation.invoke(transport, "checkForUnauthorizedException", mockedTransportException);
+
+                Deencapsulation.invoke(transport, "reconnect", mockedTransportException);
+            }
+        };
+
+        //act
+        Deencapsulation.invoke(transport, "handleDisconnection", mockedTransportException);
+
+        //assert
+        new Verifications()
+        {
+            {
+                Deencapsulation.invoke(transport, "exceptionToStatusChangeReason", mockedTransportException);
+                times = 1;
+
+                Deencapsulation.invoke(transport, "updateStatus",
+                        new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
+                        DISCONNECTED_RETRYING, mockedIotHubConnectionStatusChangeReason, mockedTransportException);
+                times = 1;
+
+                Deencapsulation.invoke(transport, "checkForUnauthorizedException", mockedTransportException);
+                times = 1;
+
+                Deencapsulation.invoke(transport, "reconnect", mockedTransportException);
+                times = 1;
+            }
+        };
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_34_061: [This function shall close the saved connection, and then invoke openConnection and return null.]
+    @Test
+    public void singleReconnectAttemptSuccess() throws TransportException
+    {
+        //arrange
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedIotHubTransportConnection);
+
+        new Expectations(IotHubTransport.class)
+        {
+            {
+                //open and close happen with no exception
+                mockedIotHubTransportConnection.close(true);
+                Deencapsulation.invoke(transport, "openConnection");
+            }
+        };
+
+        //act
+        Exception result = Deencapsulation.invoke(transport, "singleReconnectAttempt");
+
+        //assert
+        assertNull(result);
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_34_062: [If an exception is encountered while closing or opening the connection,
+    // this function shall invoke checkForUnauthorizedException on that exception and then return it.]
+    @Test
+    public void singleReconnectAttemptReturnsEncounteredException() throws TransportException
+    {
+        //arrange
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedIotHubTransportConnection);
+
+        new Expectations(IotHubTransport.class)
+        {
+            {
+                //open and close happen with no exception
+                mockedIotHubTransportConnection.close(true);
+                result = mockedTransportException;
+
+                Deencapsulation.invoke(transport, "checkForUnauthorizedException", mockedTransportException);
+            }
+        };
+
+        //act
+        Exception result = Deencapsulation.invoke(transport, "singleReconnectAttempt");
+
+        //assert
+        assertEquals(mockedTransportException, result);
+        new Verifications()
+        {
+            {
+                Deencapsulation.invoke(transport, "checkForUnauthorizedException", mockedTransportException);
+                times = 1;
+            }
+        };
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_34_063: [If the provided transportException is retryable, the packet has not
+    // timed out, and the retry policy allows, this function shall schedule a task to add the provided
+    // packet to the waiting list after the amount of time determined by the retry policy.]
+    @Test
+    public void handleMessageExceptionSchedulesRetryIfRetryable()
+    {
+        //arrange
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        final long expectedDelay = 0;
+        final long duration = 0;
+        Deencapsulation.setField(transport, "taskScheduler", mockedTaskScheduler);
+        new Expectations(IotHubTransport.class)
+        {
+            {
+                Deencapsulation.invoke(transport, "hasOperationTimedOut", anyLong);
+                result = false;
+
+                mockedTransportException.isRetryable();
+                result = true;
+
+                mockedConfig.getRetryPolicy();
+                result = mockedRetryPolicy;
+
+                mockedRetryPolicy.getRetryDecision(anyInt, mockedTransportException);
+                result = mockedRetryDecision;
+
+                mockedRetryDecision.shouldRetry();
+                result = true;
+
+                mockedRetryDecision.getDuration();
+                result = duration;
+            }
+        };
+
+        //act
+        Deencapsulation.invoke(transport, "handleMessageException", mockedPacket, mockedTransportException);
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockedPacket.incrementRetryAttempt();
+                times = 1;
+
+                mockedTaskScheduler.schedule((IotHubTransport.MessageRetryRunnable) any, expectedDelay, TimeUnit.MILLISECONDS);
+                times = 1;
+            }
+        };
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_34_064: [If the provided transportException is not retryable, the packet has expired,
+    // or if the retry policy says to not retry, this function shall add the provided packet to the callback queue.]
+    @Test
+    public void handleMessageExceptionDoesNotRetryIfDeviceOperationTimedOut(final @Mocked IotHubStatusCode mockedStatus)
+    {
+        //arrange
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        final long expectedDelay = 0;
+        Deencapsulation.setField(transport, "taskScheduler", mockedTaskScheduler);
+        new NonStrictExpectations(IotHubTransport.class)
+        {
+            {
+                Deencapsulation.invoke(transport, "hasOperationTimedOut", anyLong);
+                result = true;
+
+                mockedIothubServiceException.isRetryable();
+                result = true;
+
+                mockedConfig.getRetryPolicy();
+                result = mockedRetryPolicy;
+
+                mockedRetryPolicy.getRetryDecision(anyInt, mockedTransportException);
+                result = mockedRetryDecision;
+
+                mockedRetryDecision.shouldRetry();
+                result = true;
+
+                mockedIothubServiceException.getStatusCode();
+                result = mockedStatus;
+            }
+        };
+
+        //act
+        Deencapsulation.invoke(transport, "handleMessageException", mockedPacket, mockedIothubServiceException);
+
+        //assert
+        Queue<IotHubTransportPacket> callbackQueue = Deencapsulation.getField(transport, "callbackPacketsQueue");
+        assertEquals(1, callbackQueue.size());
+        assertEquals(mockedPacket, callbackQueue.poll());
+        new Verifications()
+        {
+            {
+                mockedPacket.setStatus(mockedStatus);
+                times = 1;
+
+                mockedTaskScheduler.schedule((IotHubTransport.MessageRetryRunnable) any, expectedDelay, TimeUnit.MILLISECONDS);
+                times = 0;
+            }
+        };
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_34_064: [If the provided transportException is not retryable, the packet has expired,
+    // or if the retry policy says to not retry, this function shall add the provided packet to the callback queue.]
+    @Test
+    public void handleMessageExceptionDoesNotRetryIfExceptionIsNotRetryable(final @Mocked IotHubStatusCode mockedStatus)
+    {
+        //arrange
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        final long expectedDelay = 0;
+        Deencapsulation.setField(transport, "taskScheduler", mockedTaskScheduler);
+        new NonStrictExpectations(IotHubTransport.class)
+        {
+            {
+                Deencapsulation.invoke(transport, "hasOperationTimedOut", anyLong);
+                result = false;
+
+                mockedTransportException.isRetryable();
+                result = false;
+
+                mockedConfig.getRetryPolicy();
+                result = mockedRetryPolicy;
+
+                mockedRetryPolicy.getRetryDecision(anyInt, mockedTransportException);
+                result = mockedRetryDecision;
+
+                mockedRetryDecision.shouldRetry();
+                result = true;
+
+                mockedIothubServiceException.getStatusCode();
+                result = mockedStatus;
+            }
+        };
+
+        //act
+        Deencapsulation.invoke(transport, "handleMessageException", mockedPacket, mockedIothubServiceException);
+
+        //assert
+        Queue<IotHubTransportPacket> callbackQueue = Deencapsulation.getField(transport, "callbackPacketsQueue");
+        assertEquals(1, callbackQueue.size());
+        assertEquals(mockedPacket, callbackQueue.poll());
+        new Verifications()
+        {
+            {
+                mockedPacket.setStatus(mockedStatus);
+                times = 1;
+
+                mockedTaskScheduler.schedule((IotHubTransport.MessageRetryRunnable) any, expectedDelay, TimeUnit.MILLISECONDS);
+                times = 0;
+            }
+        };
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_34_064: [If the provided transportException is not retryable, the packet has expired,
+    // or if the retry policy says to not retry, this function shall add the provided packet to the callback queue.]
+    @Test
+    public void handleMessageExceptionDoesNotRetryIfRetryPolicySaysToNotRetry(final @Mocked IotHubStatusCode mockedStatus)
+    {
+        //arrange
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        final long expectedDelay = 0;
+        Deencapsulation.setField(transport, "taskScheduler", mockedTaskScheduler);
+        new NonStrictExpectations(IotHubTransport.class)
+        {
+            {
+                Deencapsulation.invoke(transport, "hasOperationTimedOut", anyLong);
+                result = false;
+
+                mockedTransportException.isRetryable();
+                result = true;
+
+                mockedConfig.getRetryPolicy();
+                result = mockedRetryPolicy;
+
+                mockedRetryPolicy.getRetryDecision(anyInt, mockedTransportException);
+                result = mockedRetryDecision;
+
+                mockedRetryDecision.shouldRetry();
+                result = false;
+
+                mockedIothubServiceException.getStatusCode();
+                result = mockedStatus;
+            }
+        };
+
+        //act
+        Deencapsulation.invoke(transport, "handleMessageException", mockedPacket, mockedIothubServiceException);
+
+        //assert
+        Queue<IotHubTransportPacket> callbackQueue = Deencapsulation.getField(transport, "callbackPacketsQueue");
+        assertEquals(1, callbackQueue.size());
+        assertEquals(mockedPacket, callbackQueue.poll());
+        new Verifications()
+        {
+            {
+                mockedPacket.setStatus(mockedStatus);
+                times = 1;
+
+                mockedTaskScheduler.schedule((IotHubTransport.MessageRetryRunnable) any, expectedDelay, TimeUnit.MILLISECONDS);
+                times = 0;
+            }
+        };
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_34_068: [If the reconnection effort ends because the retry policy said to
+    // stop, this function shall invoke close with RETRY_EXPIRED and the last transportException.]
+    //Tests_SRS_IOTHUBTRANSPORT_34_065: [If the saved reconnection attempt start time is 0, this function shall 
+    // save the current time as the time that reconnection started.]
+    //Tests_SRS_IOTHUBTRANSPORT_34_066: [This function shall attempt to reconnect while this object's state is
+    // DISCONNECTED_RETRYING, the operation hasn't timed out, and the last transport exception is retryable.]
+    @Test
+    public void reconnectAttemptsToReconnectUntilRetryPolicyEnds()
+    {
+        //arrange
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "connectionStatus", DISCONNECTED_RETRYING);
+        new NonStrictExpectations(IotHubTransport.class)
+        {
+            {
+                Deencapsulation.invoke(transport, "hasOperationTimedOut", anyLong);
+                result = false;
+
+                mockedTransportException.isRetryable();
+                result = true;
+
+                mockedConfig.getRetryPolicy();
+                result = mockedRetryPolicy;
+
+                mockedRetryPolicy.getRetryDecision(anyInt, (TransportException) any);
+                result = mockedRetryDecision;
+
+                mockedRetryDecision.shouldRetry();
+                result = false;
+
+                Deencapsulation.invoke(transport, "close", new Class[] {IotHubConnectionStatusChangeReason.class, Throwable.class}, RETRY_EXPIRED, any);
+            }
+        };
+
+        //act
+        Deencapsulation.invoke(transport, "reconnect", mockedTransportException);
+
+        //assert
+        long reconnectionAttemptStartTimeMillis = Deencapsulation.getField(transport, "reconnectionAttemptStartTimeMillis");
+        assertTrue(reconnectionAttemptStartTimeMillis > 0);
+        new Verifications()
+        {
+            {
+                Deencapsulation.invoke(transport, "close", new Class[] {IotHubConnectionStatusChangeReason.class, Throwable.class}, RETRY_EXPIRED, any);
+                times = 1;
+            }
+        };
+    }
+
+
+    //Tests_SRS_IOTHUBTRANSPORT_34_069: [If the reconnection effort ends because the reconnection timed out,
+    // this function shall invoke close with RETRY_EXPIRED and a DeviceOperationTimeoutException.]
+    @Test
+    public void reconnectAttemptsToReconnectUntilOperationTimesOut()
+    {
+        //arrange
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "connectionStatus", DISCONNECTED_RETRYING);
+        new NonStrictExpectations(IotHubTransport.class)
+        {
+            {
+                Deencapsulation.invoke(transport, "hasOperationTimedOut", anyLong);
+                result = true;
+
+                mockedTransportException.isRetryable();
                 result = true;
 
                 mockedConfig.getRetryPolicy();
                 result = mockedRetryPolicy;
 
-                mockedRetryPolicy.getRetryDecision(anyInt, mockedTransportException);
+                mockedRetryPolicy.getRetryDecision(anyInt, (TransportException) any);
+                result = mockedRetryDecision;
+
+                mockedRetryDecision.shouldRetry();
+                result = false;
+
+                Deencapsulation.invoke(transport, "close", new Class[] {IotHubConnectionStatusChangeReason.class, Throwable.class}, RETRY_EXPIRED, any);
+            }
+        };
+
+        //act
+        Deencapsulation.invoke(transport, "reconnect", mockedTransportException);
+
+        //assert
+        long reconnectionAttemptStartTimeMillis = Deencapsulation.getField(transport, "reconnectionAttemptStartTimeMillis");
+        assertTrue(reconnectionAttemptStartTimeMillis > 0);
+        new Verifications()
+        {
+            {
+                Deencapsulation.invoke(transport, "close", new Class[] {IotHubConnectionStatusChangeReason.class, Throwable.class}, RETRY_EXPIRED, any);
+                times = 1;
+            }
+        };
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_34_070: [If the reconnection effort ends because a terminal exception is
+    // encountered, this function shall invoke close with that terminal exception.]
+    @Test
+    public void reconnectAttemptsToReconnectUntilExceptionNotRetryable()
+    {
+        //arrange
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "connectionStatus", DISCONNECTED_RETRYING);
+        new NonStrictExpectations(IotHubTransport.class)
+        {
+            {
+                Deencapsulation.invoke(transport, "hasOperationTimedOut", anyLong);
+                result = false;
+
+                mockedTransportException.isRetryable();
+                result = false;
+
+                mockedConfig.getRetryPolicy();
+                result = mockedRetryPolicy;
+
+                mockedRetryPolicy.getRetryDecision(anyInt, (TransportException) any);
+                result = mockedRetryDecision;
+
+                mockedRetryDecision.shouldRetry();
+                result = false;
+
+                Deencapsulation.invoke(transport, "close", new Class[] {IotHubConnectionStatusChangeReason.class, Throwable.class}, any, any);
+
+                Deencapsulation.invoke(transport, "exceptionToStatusChangeReason", mockedTransportException);
+
+            }
+        };
+
+        //act
+        Deencapsulation.invoke(transport, "reconnect", mockedTransportException);
+
+        //assert
+        long reconnectionAttemptStartTimeMillis = Deencapsulation.getField(transport, "reconnectionAttemptStartTimeMillis");
+        assertTrue(reconnectionAttemptStartTimeMillis > 0);
+        new Verifications()
+        {
+            {
+                Deencapsulation.invoke(transport, "close", new Class[] {IotHubConnectionStatusChangeReason.class, Throwable.class}, any, mockedTransportException);
+                times = 1;
+
+                Deencapsulation.invoke(transport, "exceptionToStatusChangeReason", mockedTransportException);
+                times = 1;
+            }
+        };
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_34_071: [If an exception is encountered while closing, this function shall invoke
+    // updateStatus with DISCONNECTED, COMMUNICATION_ERROR, and the last transport exception.]
+    @Test
+    public void reconnectUpdatesStatusIfClosingFailed()
+    {
+        //arrange
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "connectionStatus", DISCONNECTED_RETRYING);
+        new NonStrictExpectations(IotHubTransport.class)
+        {
+            {
+                Deencapsulation.invoke(transport, "hasOperationTimedOut", anyLong);
+                result = true;
+
+                mockedTransportException.isRetryable();
+                result = true;
+
+                mockedConfig.getRetryPolicy();
+                result = mockedRetryPolicy;
+
+                mockedRetryPolicy.getRetryDecision(anyInt, (TransportException) any);
                 result = mockedRetryDecision;
 
                 mockedRetryDecision.shouldRetry();
                 result = true;
 
-                mockedRetryDecision.getDuration();
-                result = duration;
+                Deencapsulation.invoke(transport, "close", new Class[] {IotHubConnectionStatusChangeReason.class, Throwable.class}, RETRY_EXPIRED, any);
+                result = mockedTransportException;
+            }
+        };
+
+        //act
+        Deencapsulation.invoke(transport, "reconnect", mockedTransportException);
+
+        //assert
+        long reconnectionAttemptStartTimeMillis = Deencapsulation.getField(transport, "reconnectionAttemptStartTimeMillis");
+        assertTrue(reconnectionAttemptStartTimeMillis > 0);
+        new Verifications()
+        {
+            {
+                Deencapsulation.invoke(transport, "updateStatus", IotHubConnectionStatus.DISCONNECTED, IotHubConnectionStatusChangeReason.COMMUNICATION_ERROR, mockedTransportException);
+                times = 1;
+            }
+        };
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_28_008:[This function shall set the packet status to MESSAGE_EXPIRED if packet has expired.]
+    //Tests_SRS_IOTHUBTRANSPORT_28_009:[This function shall add the expired packet to the Callback Queue.]
+    @Test
+    public void isMessageValidWithMessageExpired()
+    {
+        //arrange
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        new NonStrictExpectations(IotHubTransport.class)
+        {
+            {
+                mockedPacket.getMessage();
+                result = mockedMessage;
+                mockedMessage.isExpired();
+                result = true;
+                Deencapsulation.invoke(transport, "addToCallbackQueue", new Class[] {IotHubTransportPacket.class}, mockedPacket);
+                Deencapsulation.invoke(transport, "isSasTokenExpired");
+                result = false;
+            }
+        };
+
+        //act
+        boolean ret = Deencapsulation.invoke(transport, "isMessageValid", new Class[] {IotHubTransportPacket.class}, mockedPacket);
+
+        //assert
+        assertFalse(ret);
+        new Verifications()
+        {
+            {
+                mockedPacket.setStatus(IotHubStatusCode.MESSAGE_EXPIRED);
+                times = 1;
+                Deencapsulation.invoke(transport, "addToCallbackQueue", new Class[] {IotHubTransportPacket.class}, mockedPacket);
+                times = 1;
+            }
+        };
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_28_008:[This function shall set the packet status to MESSAGE_EXPIRED if packet has expired.]
+    //Tests_SRS_IOTHUBTRANSPORT_28_009:[This function shall add the expired packet to the Callback Queue.]
+    //Tests_SRS_IOTHUBTRANSPORT_28_010:[This function shall set the packet status to UNAUTHORIZED if sas token has expired.]
+    //Tests_SRS_IOTHUBTRANSPORT_28_011:[This function shall add the packet which sas token has expired to the Callback Queue.]
+    @Test
+    public void isMessageValidWithMessageNotExpiredAndValidSasToken()
+    {
+        //arrange
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        new NonStrictExpectations(IotHubTransport.class)
+        {
+            {
+                mockedPacket.getMessage();
+                result = mockedMessage;
+                mockedMessage.isExpired();
+                result = false;
+                Deencapsulation.invoke(transport, "addToCallbackQueue", new Class[] {IotHubTransportPacket.class}, mockedPacket);
+                Deencapsulation.invoke(transport, "isSasTokenExpired");
+                result = false;
+            }
+        };
+
+        //act
+        boolean ret = Deencapsulation.invoke(transport, "isMessageValid", new Class[] {IotHubTransportPacket.class}, mockedPacket);
+
+        //assert
+        assertTrue(ret);
+        new Verifications()
+        {
+            {
+                mockedPacket.setStatus(IotHubStatusCode.MESSAGE_EXPIRED);
+                times = 0;
+                Deencapsulation.invoke(transport, "addToCallbackQueue", new Class[] {IotHubTransportPacket.class}, mockedPacket);
+                times = 0;
+            }
+        };
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_28_010:[This function shall set the packet status to UNAUTHORIZED if sas token has expired.]
+    //Tests_SRS_IOTHUBTRANSPORT_28_011:[This function shall add the packet which sas token has expired to the Callback Queue.]
+    @Test
+    public void isMessageValidWithMessageNotExpiredSasTokenExpired()
+    {
+        //arrange
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        new NonStrictExpectations(IotHubTransport.class)
+        {
+            {
+                mockedPacket.getMessage();
+                result = mockedMessage;
+                mockedMessage.isExpired();
+                result = false;
+                Deencapsulation.invoke(transport, "addToCallbackQueue", new Class[] {IotHubTransportPacket.class}, mockedPacket);
+                Deencapsulation.invoke(transport, "isSasTokenExpired");
+                result = true;
+                Deencapsulation.invoke(transport, "updateStatus",
+                        new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
+                        IotHubConnectionStatus.DISCONNECTED, IotHubConnectionStatusChangeReason.EXPIRED_SAS_TOKEN, any);
+            }
+        };
+
+        //act
+        boolean ret = Deencapsulation.invoke(transport, "isMessageValid", new Class[] {IotHubTransportPacket.class}, mockedPacket);
+
+        //assert
+        assertFalse(ret);
+        new Verifications()
+        {
+            {
+                mockedPacket.setStatus(IotHubStatusCode.UNAUTHORIZED);
+                times = 1;
+                Deencapsulation.invoke(transport, "addToCallbackQueue", new Class[] {IotHubTransportPacket.class}, mockedPacket);
+                times = 1;
+                Deencapsulation.invoke(transport, "updateStatus",
+                        new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
+                        IotHubConnectionStatus.DISCONNECTED, IotHubConnectionStatusChangeReason.EXPIRED_SAS_TOKEN, any);
+                times = 1;
+            }
+        };
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_28_005:[This function shall updated the saved connection status if the connection status has changed.]
+    //Tests_SRS_IOTHUBTRANSPORT_28_006:[This function shall invoke all callbacks listening for the state change if the connection status has changed.]
+    //Tests_SRS_IOTHUBTRANSPORT_28_007: [This function shall reset currentReconnectionAttempt and reconnectionAttemptStartTimeMillis if connection status is changed to CONNECTED.]
+    @Test
+    public void updateStatusConnectionStatusChangedToConnected()
+    {
+        //arrange
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "connectionStatus", IotHubConnectionStatus.DISCONNECTED_RETRYING);
+        Deencapsulation.setField(transport, "currentReconnectionAttempt", 5);
+        Deencapsulation.setField(transport, "reconnectionAttemptStartTimeMillis", 5);
+        new Expectations(IotHubTransport.class)
+        {
+            {
+                Deencapsulation.invoke(transport, "invokeConnectionStatusChangeCallback",
+                        new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
+                        IotHubConnectionStatus.CONNECTED, IotHubConnectionStatusChangeReason.NO_NETWORK, null);
             }
         };
 
         //act
-        Deencapsulation.invoke(transport, "handleMessageException", mockedPacket, mockedTransportException);
+        Deencapsulation.invoke(transport, "updateStatus",
+                new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
+                IotHubConnectionStatus.CONNECTED, IotHubConnectionStatusChangeReason.NO_NETWORK, null);
 
         //assert
+        assertEquals(IotHubConnectionStatus.CONNECTED, Deencapsulation.getField(transport, "connectionStatus"));
+        assertEquals(0, Deencapsulation.getField(transport, "currentReconnectionAttempt"));
+        assertEquals(0L, Deencapsulation.getField(transport, "reconnectionAttemptStartTimeMillis"));
         new Verifications()
         {
             {
-                mockedPacket.incrementRetryAttempt();
-                times = 1;
-
-                mockedTaskScheduler.schedule((IotHubTransport.MessageRetryRunnable) any, expectedDelay, TimeUnit.MILLISECONDS);
-                times = 1;
+                Deencapsulation.invoke(transport, "invokeConnectionStatusChangeCallback",
+                        new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
+                        IotHubConnectionStatus.CONNECTED, IotHubConnectionStatusChangeReason.NO_NETWORK, null);
+                times =1;
             }
         };
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_34_064: [If the provided transportException is not retryable, the packet has expired,
-    // or if the retry policy says to not retry, this function shall add the provided packet to the callback queue.]
+    //Tests_SRS_IOTHUBTRANSPORT_28_005:[This function shall updated the saved connection status if the connection status has changed.]
+    //Tests_SRS_IOTHUBTRANSPORT_28_006:[This function shall invoke all callbacks listening for the state change if the connection status has changed.]
+    //Tests_SRS_IOTHUBTRANSPORT_28_007: [This function shall reset currentReconnectionAttempt and reconnectionAttemptStartTimeMillis if connection status is changed to CONNECTED.]
     @Test
-    public void handleMessageExceptionDoesNotRetryIfDeviceOperationTimedOut(final @Mocked IotHubStatusCode mockedStatus)
+    public void updateStatusConnectionStatusNotChanged()
     {
         //arrange
         final IotHubTransport transport = new IotHubTransport(mockedConfig);
-        final long expectedDelay = 0;
-        Deencapsulation.setField(transport, "taskScheduler", mockedTaskScheduler);
+        Deencapsulation.setField(transport, "connectionStatus", IotHubConnectionStatus.CONNECTED);
+        Deencapsulation.setField(transport, "currentReconnectionAttempt", 5);
         new NonStrictExpectations(IotHubTransport.class)
         {
             {
-                Deencapsulation.invoke(transport, "hasOperationTimedOut", anyLong);
-                result = true;
+                Deencapsulation.invoke(transport, "invokeConnectionStatusChangeCallback",
+                        new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
+                        IotHubConnectionStatus.CONNECTED, null, null);
+            }
+        };
 
-                mockedIothubServiceException.isRetryable();
-                result = true;
+        //act
+        Deencapsulation.invoke(transport, "updateStatus",
+                new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
+                IotHubConnectionStatus.CONNECTED, null, null);
 
-                mockedConfig.getRetryPolicy();
-                result = mockedRetryPolicy;
+        //assert
+        assertEquals(IotHubConnectionStatus.CONNECTED, Deencapsulation.getField(transport, "connectionStatus"));
+        assertEquals(5, Deencapsulation.getField(transport, "currentReconnectionAttempt"));
+        new Verifications()
+        {
+            {
+                Deencapsulation.invoke(transport, "invokeConnectionStatusChangeCallback",
+                        new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
+                        IotHubConnectionStatus.CONNECTED, null, null);
+                times = 0;
+            }
+        };
+    }
 
-                mockedRetryPolicy.getRetryDecision(anyInt, mockedTransportException);
-                result = mockedRetryDecision;
+    //Tests_SRS_IOTHUBTRANSPORT_28_005:[This function shall updated the saved connection status if the connection status has changed.]
+    //Tests_SRS_IOTHUBTRANSPORT_28_006:[This function shall invoke all callbacks listening for the state change if the connection status has changed.]
+    //Tests_SRS_IOTHUBTRANSPORT_28_007: [This function shall reset currentReconnectionAttempt and reconnectionAttemptStartTimeMillis if connection status is changed to CONNECTED.]
+    @Test
+    public void updateStatusConnectionStatusChangedToDisconnected()
+    {
+        //arrange
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "connectionStatus", IotHubConnectionStatus.DISCONNECTED_RETRYING);
+        Deencapsulation.setField(transport, "currentReconnectionAttempt", 5);
+        new Expectations(IotHubTransport.class)
+        {
+            {
+                Deencapsulation.invoke(transport, "invokeConnectionStatusChangeCallback",
+                        new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
+                        IotHubConnectionStatus.DISCONNECTED, IotHubConnectionStatusChangeReason.NO_NETWORK, null);
+            }
+        };
 
-                mockedRetryDecision.shouldRetry();
-                result = true;
+        //act
+        Deencapsulation.invoke(transport, "updateStatus",
+                new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
+                IotHubConnectionStatus.DISCONNECTED, IotHubConnectionStatusChangeReason.NO_NETWORK, null);
 
-                mockedIothubServiceException.getStatusCode();
-                result = mockedStatus;
+        //assert
+        assertEquals(IotHubConnectionStatus.DISCONNECTED, Deencapsulation.getField(transport, "connectionStatus"));
+        assertEquals(5, Deencapsulation.getField(transport, "currentReconnectionAttempt"));
+        new Verifications()
+        {
+            {
+                Deencapsulation.invoke(transport, "invokeConnectionStatusChangeCallback",
+                        new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
+                        IotHubConnectionStatus.DISCONNECTED, IotHubConnectionStatusChangeReason.NO_NETWORK, null);
+                times =1;
             }
         };
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_28_004:[This function shall notify the connection status change callback if the callback is not null]
+    @Test
+    public void invokeConnectionStatusChangeCallbackWithCallback()
+    {
+        //arrange
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "connectionStatusChangeCallback", mockedIotHubConnectionStatusChangeCallback);
 
         //act
-        Deencapsulation.invoke(transport, "handleMessageException", mockedPacket, mockedIothubServiceException);
+        Deencapsulation.invoke(transport, "invokeConnectionStatusChangeCallback",
+                new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
+                IotHubConnectionStatus.CONNECTED, IotHubConnectionStatusChangeReason.CONNECTION_OK, new IOException());
 
         //assert
-        Queue<IotHubTransportPacket> callbackQueue = Deencapsulation.getField(transport, "callbackPacketsQueue");
-        assertEquals(1, callbackQueue.size());
-        assertEquals(mockedPacket, callbackQueue.poll());
         new Verifications()
         {
             {
-                mockedPacket.setStatus(mockedStatus);
+                mockedIotHubConnectionStatusChangeCallback.execute(
+                        (IotHubConnectionStatus)any,
+                        (IotHubConnectionStatusChangeReason)any,
+                        (Throwable)any,
+                        any);
                 times = 1;
+            }
+        };
+    }
 
-                mockedTaskScheduler.schedule((IotHubTransport.MessageRetryRunnable) any, expectedDelay, TimeUnit.MILLISECONDS);
+    //Tests_SRS_IOTHUBTRANSPORT_28_004:[This function shall notify the connection status change callback if the callback is not null]
+    @Test
+    public void invokeConnectionStatusChangeCallbackWithNullCallback()
+    {
+        //arrange
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "connectionStatusChangeCallback", null);
+
+        //act
+        Deencapsulation.invoke(transport, "invokeConnectionStatusChangeCallback",
+                new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
+                IotHubConnectionStatus.CONNECTED, IotHubConnectionStatusChangeReason.CONNECTION_OK, new IOException());
+
+        //assert
+
+        new Verifications()
+        {
+            {
+                mockedIotHubConnectionStatusChangeCallback.execute(
+                        (IotHubConnectionStatus)any,
+                        (IotHubConnectionStatusChangeReason)any,
+                        (Throwable)any,
+                        any);
                 times = 0;
             }
         };
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_34_064: [If the provided transportException is not retryable, the packet has expired,
-    // or if the retry policy says to not retry, this function shall add the provided packet to the callback queue.]
+    //Tests_SRS_IOTHUBTRANSPORT_28_003: [This function shall indicate if the device's sas token is expired.]
     @Test
-    public void handleMessageExceptionDoesNotRetryIfExceptionIsNotRetryable(final @Mocked IotHubStatusCode mockedStatus)
+    public void isSasTokenExpiredAuthenticationTypeIsSasTokenAndExpired()
     {
         //arrange
         final IotHubTransport transport = new IotHubTransport(mockedConfig);
-        final long expectedDelay = 0;
-        Deencapsulation.setField(transport, "taskScheduler", mockedTaskScheduler);
-        new NonStrictExpectations(IotHubTransport.class)
+        new NonStrictExpectations()
         {
             {
-                Deencapsulation.invoke(transport, "hasOperationTimedOut", anyLong);
-                result = false;
+                mockedConfig.getAuthenticationType();
+                result = DeviceClientConfig.AuthType.SAS_TOKEN;
+                mockedConfig.getSasTokenAuthentication().isRenewalNecessary();
+                result = true;
+            }
+        };
 
-                mockedTransportException.isRetryable();
+        //act
+        boolean ret = Deencapsulation.invoke(transport, "isSasTokenExpired");
+
+        //assert
+        assertTrue(ret);
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_28_003: [This function shall indicate if the device's sas token is expired.]
+    @Test
+    public void isSasTokenExpiredAuthenticationTypeIsSasTokenAndNotExpired()
+    {
+        //arrange
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        new NonStrictExpectations()
+        {
+            {
+                mockedConfig.getAuthenticationType();
+                result = DeviceClientConfig.AuthType.SAS_TOKEN;
+                mockedConfig.getSasTokenAuthentication().isRenewalNecessary();
                 result = false;
+            }
+        };
 
-                mockedConfig.getRetryPolicy();
-                result = mockedRetryPolicy;
+        //act
+        boolean ret = Deencapsulation.invoke(transport, "isSasTokenExpired");
 
-                mockedRetryPolicy.getRetryDecision(anyInt, mockedTransportException);
-                result = mockedRetryDecision;
+        //assert
+        assertFalse(ret);
+    }
 
-                mockedRetryDecision.shouldRetry();
+    //Tests_SRS_IOTHUBTRANSPORT_28_003: [This function shall indicate if the device's sas token is expired.]
+    @Test
+    public void isSasTokenExpiredAuthenticationTypeNotSasToken()
+    {
+        //arrange
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        new NonStrictExpectations()
+        {
+            {
+                mockedConfig.getAuthenticationType();
+                result = DeviceClientConfig.AuthType.X509_CERTIFICATE;
+                mockedConfig.getSasTokenAuthentication().isRenewalNecessary();
                 result = true;
-
-                mockedIothubServiceException.getStatusCode();
-                result = mockedStatus;
             }
         };
 
         //act
-        Deencapsulation.invoke(transport, "handleMessageException", mockedPacket, mockedIothubServiceException);
+        boolean ret = Deencapsulation.invoke(transport, "isSasTokenExpired");
 
         //assert
-        Queue<IotHubTransportPacket> callbackQueue = Deencapsulation.getField(transport, "callbackPacketsQueue");
-        assertEquals(1, callbackQueue.size());
-        assertEquals(mockedPacket, callbackQueue.poll());
-        new Verifications()
+        assertFalse(ret);
+    }
+
+    //Tests_SRS_IOTHUBTRANSPORT_28_002: [This function shall add the packet to the callback queue if it has a callback.]
+    @Test
+    public void addToCallbackQueuePacketHasCallback(@Mocked final IotHubEventCallback mockCallback)
+    {
+        //arrange
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        new NonStrictExpectations()
         {
             {
-                mockedPacket.setStatus(mockedStatus);
-                times = 1;
-
-                mockedTaskScheduler.schedule((IotHubTransport.MessageRetryRunnable) any, expectedDelay, TimeUnit.MILLISECONDS);
-                times = 0;
+                mockedPacket.getCallback();
+                result = mockCallback;
             }
         };
+
+        //act
+        Deencapsulation.invoke(transport, "addToCallbackQueue", mockedPacket);
+
+        //assert
+        Queue<IotHubTransportPacket> callbackPacketsQueue = Deencapsulation.getField(transport, "callbackPacketsQueue");
+        assertEquals(1, callbackPacketsQueue.size());
+        assertTrue(callbackPacketsQueue.contains(mockedPacket));
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_34_064: [If the provided transportException is not retryable, the packet has expired,
-    // or if the retry policy says to not retry, this function shall add the provided packet to the callback queue.]
+    //Tests_SRS_IOTHUBTRANSPORT_28_002: [This function shall add the packet to the callback queue if it has a callback.]
     @Test
-    public void handleMessageExceptionDoesNotRetryIfRetryPolicySaysToNotRetry(final @Mocked IotHubStatusCode mockedStatus)
+    public void addToCallbackQueuePacketNoCallback(@Mocked final IotHubEventCallback mockCallback)
     {
         //arrange
         final IotHubTransport transport = new IotHubTransport(mockedConfig);
-        final long expectedDelay = 0;
-        Deencapsulation.setField(transport, "taskScheduler", mockedTaskScheduler);
-        new NonStrictExpectations(IotHubTransport.class)
+        new NonStrictExpectations()
         {
             {
-                Deencapsulation.invoke(transport, "hasOperationTimedOut", anyLong);
-                result = false;
-
-                mockedTransportException.isRetryable();
-                result = true;
-
-                mockedConfig.getRetryPolicy();
-                result = mockedRetryPolicy;
-
-                mockedRetryPolicy.getRetryDecision(anyInt, mockedTransportException);
-                result = mockedRetryDecision;
-
-                mockedRetryDecision.shouldRetry();
-                result = false;
-
-                mockedIothubServiceException.getStatusCode();
-                result = mockedStatus;
+                mockedPacket.getCallback();
+                result = null;
             }
         };
 
         //act
-        Deencapsulation.invoke(transport, "handleMessageException", mockedPacket, mockedIothubServiceException);
+        Deencapsulation.invoke(transport, "addToCallbackQueue", mockedPacket);
 
         //assert
-        Queue<IotHubTransportPacket> callbackQueue = Deencapsulation.getField(transport, "callbackPacketsQueue");
-        assertEquals(1, callbackQueue.size());
-        assertEquals(mockedPacket, callbackQueue.poll());
-        new Verifications()
-        {
-            {
-                mockedPacket.setStatus(mockedStatus);
-                times = 1;
-
-                mockedTaskScheduler.schedule((IotHubTransport.MessageRetryRunnable) any, expectedDelay, TimeUnit.MILLISECONDS);
-                times = 0;
-            }
-        };
+        Queue<IotHubTransportPacket> callbackPacketsQueue = Deencapsulation.getField(transport, "callbackPacketsQueue");
+        assertEquals(0, callbackPacketsQueue.size());
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_34_068: [If the reconnection effort ends because the retry policy said to
-    // stop, this function shall invoke close with RETRY_EXPIRED and the last transportException.]
-    //Tests_SRS_IOTHUBTRANSPORT_34_065: [If the saved reconnection attempt start time is 0, this function shall 
-    // save the current time as the time that reconnection started.]
-    //Tests_SRS_IOTHUBTRANSPORT_34_066: [This function shall attempt to reconnect while this object's state is
-    // DISCONNECTED_RETRYING, the operation hasn't timed out, and the last transport exception is retryable.]
+    //Tests_SRS_IOTHUBTRANSPORT_28_001: [This function shall set the MqttUnauthorizedException as retryable if the sas token has not expired.]
     @Test
-    public void reconnectAttemptsToReconnectUntilRetryPolicyEnds()
+    public void checkForUnauthorizedExceptionInMqttUnauthroizedException()
     {
         //arrange
+        final MqttUnauthorizedException testException = new MqttUnauthorizedException();
         final IotHubTransport transport = new IotHubTransport(mockedConfig);
-        Deencapsulation.setField(transport, "connectionStatus", DISCONNECTED_RETRYING);
         new NonStrictExpectations(IotHubTransport.class)
         {
             {
-                Deencapsulation.invoke(transport, "hasOperationTimedOut", anyLong);
-                result = false;
-
-                mockedTransportException.isRetryable();
-                result = true;
-
-                mockedConfig.getRetryPolicy();
-                result = mockedRetryPolicy;
-
-                mockedRetryPolicy.getRetryDecision(anyInt, (TransportException) any);
-                result = mockedRetryDecision;
-
-                mockedRetryDecision.shouldRetry();
+                Deencapsulation.invoke(transport, "isSasTokenExpired");
                 result = false;
-
-                Deencapsulation.invoke(transport, "close", new Class[] {IotHubConnectionStatusChangeReason.class, Throwable.class}, RETRY_EXPIRED, any);
             }
         };
 
         //act
-        Deencapsulation.invoke(transport, "reconnect", mockedTransportException);
+        Deencapsulation.invoke(transport, "checkForUnauthorizedException", testException);
 
         //assert
-        long reconnectionAttemptStartTimeMillis = Deencapsulation.getField(transport, "reconnectionAttemptStartTimeMillis");
-        assertTrue(reconnectionAttemptStartTimeMillis > 0);
         new Verifications()
         {
             {
-                Deencapsulation.invoke(transport, "close", new Class[] {IotHubConnectionStatusChangeReason.class, Throwable.class}, RETRY_EXPIRED, any);
+                testException.setRetryable(true);
                 times = 1;
             }
         };
     }
 
-
-    //Tests_SRS_IOTHUBTRANSPORT_34_069: [If the reconnection effort ends because the reconnection timed out,
-    // this function shall invoke close with RETRY_EXPIRED and a DeviceOperationTimeoutException.]
+    //Tests_SRS_IOTHUBTRANSPORT_28_001: [This function shall set the MqttUnauthorizedException, UnauthorizedException or
+    //AmqpUnauthorizedAccessException as retryable if the sas token has not expired.]
     @Test
-    public void reconnectAttemptsToReconnectUntilOperationTimesOut()
+    public void checkForUnauthorizedExceptionInUnauthorizedException()
     {
         //arrange
+        final UnauthorizedException testException = new UnauthorizedException();
         final IotHubTransport transport = new IotHubTransport(mockedConfig);
-        Deencapsulation.setField(transport, "connectionStatus", DISCONNECTED_RETRYING);
         new NonStrictExpectations(IotHubTransport.class)
         {
             {
-                Deencapsulation.invoke(transport, "hasOperationTimedOut", anyLong);
-                result = true;
-
-                mockedTransportException.isRetryable();
-                result = true;
-
-                mockedConfig.getRetryPolicy();
-                result = mockedRetryPolicy;
-
-                mockedRetryPolicy.getRetryDecision(anyInt, (TransportException) any);
-                result = mockedRetryDecision;
-
-                mockedRetryDecision.shouldRetry();
+                Deencapsulation.invoke(transport, "isSasTokenExpired");
                 result = false;
-
-                Deencapsulation.invoke(transport, "close", new Class[] {IotHubConnectionStatusChangeReason.class, Throwable.class}, RETRY_EXPIRED, any);
             }
         };
 
         //act
-        Deencapsulation.invoke(transport, "reconnect", mockedTransportException);
+        Deencapsulation.invoke(transport, "checkForUnauthorizedException", testException);
 
         //assert
-        long reconnectionAttemptStartTimeMillis = Deencapsulation.getField(transport, "reconnectionAttemptStartTimeMillis");
-        assertTrue(reconnectionAttemptStartTimeMillis > 0);
         new Verifications()
         {
             {
-                Deencapsulation.invoke(transport, "close", new Class[] {IotHubConnectionStatusChangeReason.class, Throwable.class}, RETRY_EXPIRED, any);
+                testException.setRetryable(true);
                 times = 1;
             }
         };
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_34_070: [If the reconnection effort ends because a terminal exception is
-    // encountered, this function shall invoke close with that terminal exception.]
+    //Tests_SRS_IOTHUBTRANSPORT_28_001: [This function shall set the MqttUnauthorizedException, UnauthorizedException or
+    //AmqpUnauthorizedAccessException as retryable if the sas token has not expired.]
     @Test
-    public void reconnectAttemptsToReconnectUntilExceptionNotRetryable()
+    public void checkForUnauthorizedExceptionInAmqpUnauthorizedAccessException()
     {
         //arrange
+        final AmqpUnauthorizedAccessException testException = new AmqpUnauthorizedAccessException();
         final IotHubTransport transport = new IotHubTransport(mockedConfig);
-        Deencapsulation.setField(transport, "connectionStatus", DISCONNECTED_RETRYING);
         new NonStrictExpectations(IotHubTransport.class)
         {
             {
-                Deencapsulation.invoke(transport, "hasOperationTimedOut", anyLong);
-                result = false;
-
-                mockedTransportException.isRetryable();
-                result = false;
-
-                mockedConfig.getRetryPolicy();
-                result = mockedRetryPolicy;
-
-                mockedRetryPolicy.getRetryDecision(anyInt, (TransportException) any);
-                result = mockedRetryDecision;
-
-                mockedRetryDecision.shouldRetry();
+                Deencapsulation.invoke(transport, "isSasTokenExpired");
                 result = false;
-
-                Deencapsulation.invoke(transport, "close", new Class[] {IotHubConnectionStatusChangeReason.class, Throwable.class}, any, any);
-
-                Deencapsulation.invoke(transport, "exceptionToStatusChangeReason", mockedTransportException);
-
             }
         };
 
         //act
-        Deencapsulation.invoke(transport, "reconnect", mockedTransportException);
+        Deencapsulation.invoke(transport, "checkForUnauthorizedException", testException);
 
         //assert
-        long reconnectionAttemptStartTimeMillis = Deencapsulation.getField(transport, "reconnectionAttemptStartTimeMillis");
-        assertTrue(reconnectionAttemptStartTimeMillis > 0);
         new Verifications()
         {
             {
-                Deencapsulation.invoke(transport, "close", new Class[] {IotHubConnectionStatusChangeReason.class, Throwable.class}, any, mockedTransportException);
-                times = 1;
-
-                Deencapsulation.invoke(transport, "exceptionToStatusChangeReason", mockedTransportException);
+                testException.setRetryable(true);
                 times = 1;
             }
         };
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_34_071: [If an exception is encountered while closing, this function shall invoke
-    // updateStatus with DISCONNECTED, COMMUNICATION_ERROR, and the last transport exception.]
+    //Tests_SRS_IOTHUBTRANSPORT_28_001: [This function shall set the MqttUnauthorizedException, UnauthorizedException or
+    //AmqpUnauthorizedAccessException as retryable if the sas token has not expired.]
     @Test
-    public void reconnectUpdatesStatusIfClosingFailed()
+    public void checkForUnauthorizedExceptionWithExpiredSASToken()
     {
         //arrange
+        final UnauthorizedException testException = new UnauthorizedException();
         final IotHubTransport transport = new IotHubTransport(mockedConfig);
-        Deencapsulation.setField(transport, "connectionStatus", DISCONNECTED_RETRYING);
         new NonStrictExpectations(IotHubTransport.class)
         {
             {
-                Deencapsulation.invoke(transport, "hasOperationTimedOut", anyLong);
-                result = true;
-
-                mockedTransportException.isRetryable();
-                result = true;
-
-                mockedConfig.getRetryPolicy();
-                result = mockedRetryPolicy;
-
-                mockedRetryPolicy.getRetryDecision(anyInt, (TransportException) any);
-                result = mockedRetryDecision;
-
-                mockedRetryDecision.shouldRetry();
+                Deencapsulation.invoke(transport, "isSasTokenExpired");
                 result = true;
-
-                Deencapsulation.invoke(transport, "close", new Class[] {IotHubConnectionStatusChangeReason.class, Throwable.class}, RETRY_EXPIRED, any);
-                result = mockedTransportException;
             }
         };
 
         //act
-        Deencapsulation.invoke(transport, "reconnect", mockedTransportException);
+        Deencapsulation.invoke(transport, "checkForUnauthorizedException", testException);
 
         //assert
-        long reconnectionAttemptStartTimeMillis = Deencapsulation.getField(transport, "reconnectionAttemptStartTimeMillis");
-        assertTrue(reconnectionAttemptStartTimeMillis > 0);
         new Verifications()
         {
             {
-                Deencapsulation.invoke(transport, "updateStatus", IotHubConnectionStatus.DISCONNECTED, IotHubConnectionStatusChangeReason.COMMUNICATION_ERROR, mockedTransportException);
-                times = 1;
+                testException.setRetryable(true);
+                times = 0;
             }
         };
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_28_008:[This function shall set the packet status to MESSAGE_EXPIRED if packet has expired.]
-    //Tests_SRS_IOTHUBTRANSPORT_28_009:[This function shall add the expired packet to the Callback Queue.]
+    //Tests_SRS_IOTHUBTRANSPORT_28_001: [This function shall set the MqttUnauthorizedException, UnauthorizedException or
+    //AmqpUnauthorizedAccessException as retryable if the sas token has not expired.]
     @Test
-    public void isMessageValidWithMessageExpired()
+    public void checkForUnauthorizedExceptionWithOtherTransportException()
     {
         //arrange
+        final TransportException testException = new TransportException();
         final IotHubTransport transport = new IotHubTransport(mockedConfig);
         new NonStrictExpectations(IotHubTransport.class)
         {
             {
-                mockedPacket.getMessage();
-                result = mockedMessage;
-                mockedMessage.isExpired();
-                result = true;
-                Deencapsulation.invoke(transport, "addToCallbackQueue", new Class[] {IotHubTransportPacket.class}, mockedPacket);
                 Deencapsulation.invoke(transport, "isSasTokenExpired");
-                result = false;
+                result = true;
             }
         };
 
         //act
-        boolean ret = Deencapsulation.invoke(transport, "isMessageValid", new Class[] {IotHubTransportPacket.class}, mockedPacket);
+        Deencapsulation.invoke(transport, "checkForUnauthorizedException", testException);
 
         //assert
-        assertFalse(ret);
         new Verifications()
         {
             {
-                mockedPacket.setStatus(IotHubStatusCode.MESSAGE_EXPIRED);
-                times = 1;
-                Deencapsulation.invoke(transport, "addToCallbackQueue", new Class[] {IotHubTransportPacket.class}, mockedPacket);
-                times = 1;
+                testException.setRetryable(true);
+                times = 0;
             }
         };
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_28_008:[This function shall set the packet status to MESSAGE_EXPIRED if packet has expired.]
-    //Tests_SRS_IOTHUBTRANSPORT_28_009:[This function shall add the expired packet to the Callback Queue.]
-    //Tests_SRS_IOTHUBTRANSPORT_28_010:[This function shall set the packet status to UNAUTHORIZED if sas token has expired.]
-    //Tests_SRS_IOTHUBTRANSPORT_28_011:[This function shall add the packet which sas token has expired to the Callback Queue.]
+    //Tests_SRS_IOTHUBTRANSPORT_34_072: [This function shall check if the provided message should expect an ACK or not.]
+    //Tests_SRS_IOTHUBTRANSPORT_34_073: [This function shall send the provided message over the saved connection
+    // and save the response code.]
     @Test
-    public void isMessageValidWithMessageNotExpiredAndValidSasToken()
+    public void sendPacketHappyPathWithAck() throws TransportException
     {
         //arrange
-        final IotHubTransport transport = new IotHubTransport(mockedConfig);
-        new NonStrictExpectations(IotHubTransport.class)
+        IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Map<String, IotHubTransportPacket> inProgressMessages = new HashMap<>();
+        Deencapsulation.setField(transport, "inProgressPackets", inProgressMessages);
+        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedHttpsIotHubConnection);
+        new NonStrictExpectations()
         {
             {
                 mockedPacket.getMessage();
-                result = mockedMessage;
-                mockedMessage.isExpired();
-                result = false;
-                Deencapsulation.invoke(transport, "addToCallbackQueue", new Class[] {IotHubTransportPacket.class}, mockedPacket);
-                Deencapsulation.invoke(transport, "isSasTokenExpired");
-                result = false;
+                result = mockedTransportMessage;
+
+                mockedTransportMessage.isMessageAckNeeded((IotHubClientProtocol) any);
+                result = true;
+
+                mockedHttpsIotHubConnection.sendMessage((Message) any);
+                result = IotHubStatusCode.OK_EMPTY;
             }
         };
 
         //act
-        boolean ret = Deencapsulation.invoke(transport, "isMessageValid", new Class[] {IotHubTransportPacket.class}, mockedPacket);
+        Deencapsulation.invoke(transport, "sendPacket", mockedPacket);
 
         //assert
-        assertTrue(ret);
-        new Verifications()
-        {
-            {
-                mockedPacket.setStatus(IotHubStatusCode.MESSAGE_EXPIRED);
-                times = 0;
-                Deencapsulation.invoke(transport, "addToCallbackQueue", new Class[] {IotHubTransportPacket.class}, mockedPacket);
-                times = 0;
-            }
-        };
+        assertEquals(1, inProgressMessages.size());
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_28_010:[This function shall set the packet status to UNAUTHORIZED if sas token has expired.]
-    //Tests_SRS_IOTHUBTRANSPORT_28_011:[This function shall add the packet which sas token has expired to the Callback Queue.]
+
+    //Tests_SRS_IOTHUBTRANSPORT_34_074: [If the response from sending is not OK or OK_EMPTY, this function
+    // shall invoke handleMessageException with that message.]
     @Test
-    public void isMessageValidWithMessageNotExpiredSasTokenExpired()
+    public void sendPacketReceivesStatusThatIsNotOkOrOkEmpty() throws TransportException
     {
         //arrange
         final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Map<String, IotHubTransportPacket> inProgressMessages = new HashMap<>();
+        Deencapsulation.setField(transport, "inProgressPackets", inProgressMessages);
+        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedHttpsIotHubConnection);
         new NonStrictExpectations(IotHubTransport.class)
         {
             {
                 mockedPacket.getMessage();
-                result = mockedMessage;
-                mockedMessage.isExpired();
-                result = false;
-                Deencapsulation.invoke(transport, "addToCallbackQueue", new Class[] {IotHubTransportPacket.class}, mockedPacket);
-                Deencapsulation.invoke(transport, "isSasTokenExpired");
+                result = mockedTransportMessage;
+
+                mockedTransportMessage.isMessageAckNeeded((IotHubClientProtocol) any);
                 result = true;
-                Deencapsulation.invoke(transport, "updateStatus",
-                        new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
-                        IotHubConnectionStatus.DISCONNECTED, IotHubConnectionStatusChangeReason.EXPIRED_SAS_TOKEN, any);
+
+                mockedHttpsIotHubConnection.sendMessage((Message) any);
+                result = IotHubStatusCode.HUB_OR_DEVICE_ID_NOT_FOUND;
+
+                Deencapsulation.invoke(transport, "handleMessageException", new Class[] {IotHubTransportPacket.class, TransportException.class}, mockedPacket, any);
             }
         };
 
         //act
-        boolean ret = Deencapsulation.invoke(transport, "isMessageValid", new Class[] {IotHubTransportPacket.class}, mockedPacket);
+        Deencapsulation.invoke(transport, "sendPacket", mockedPacket);
 
         //assert
-        assertFalse(ret);
+        assertEquals(0, inProgressMessages.size());
         new Verifications()
         {
             {
-                mockedPacket.setStatus(IotHubStatusCode.UNAUTHORIZED);
-                times = 1;
-                Deencapsulation.invoke(transport, "addToCallbackQueue", new Class[] {IotHubTransportPacket.class}, mockedPacket);
-                times = 1;
-                Deencapsulation.invoke(transport, "updateStatus",
-                        new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
-                        IotHubConnectionStatus.DISCONNECTED, IotHubConnectionStatusChangeReason.EXPIRED_SAS_TOKEN, any);
+                Deencapsulation.invoke(transport, "handleMessageException", new Class[] {IotHubTransportPacket.class, TransportException.class}, mockedPacket, any);
                 times = 1;
             }
         };
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_28_005:[This function shall updated the saved connection status if the connection status has changed.]
-    //Tests_SRS_IOTHUBTRANSPORT_28_006:[This function shall invoke all callbacks listening for the state change if the connection status has changed.]
-    //Tests_SRS_IOTHUBTRANSPORT_28_007: [This function shall reset currentReconnectionAttempt and reconnectionAttemptStartTimeMillis if connection status is changed to CONNECTED.]
+    //Tests_SRS_IOTHUBTRANSPORT_34_075: [If the response from sending is OK or OK_EMPTY and no ack is expected,
+    // this function shall put that set that status in the sent packet and add that packet to the callbacks queue.]
     @Test
-    public void updateStatusConnectionStatusChangedToConnected()
+    public void sendPacketHappyPathWithoutAck() throws TransportException
     {
         //arrange
-        final IotHubTransport transport = new IotHubTransport(mockedConfig);
-        Deencapsulation.setField(transport, "connectionStatus", IotHubConnectionStatus.DISCONNECTED_RETRYING);
-        Deencapsulation.setField(transport, "currentReconnectionAttempt", 5);
-        Deencapsulation.setField(transport, "reconnectionAttemptStartTimeMillis", 5);
-        new Expectations(IotHubTransport.class)
+        IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Map<String, IotHubTransportPacket> inProgressMessages = new HashMap<>();
+        Queue<IotHubTransportPacket> callbackPacketsQueue = new ConcurrentLinkedQueue<>();
+        Deencapsulation.setField(transport, "callbackPacketsQueue", callbackPacketsQueue);
+        Deencapsulation.setField(transport, "inProgressPackets", inProgressMessages);
+        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedHttpsIotHubConnection);
+        new NonStrictExpectations()
         {
             {
-                Deencapsulation.invoke(transport, "invokeConnectionStatusChangeCallback",
-                        new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
-                        IotHubConnectionStatus.CONNECTED, IotHubConnectionStatusChangeReason.NO_NETWORK, null);
+                mockedPacket.getMessage();
+                result = mockedTransportMessage;
+
+                mockedTransportMessage.isMessageAckNeeded((IotHubClientProtocol) any);
+                result = false;
+
+                mockedHttpsIotHubConnection.sendMessage((Message) any);
+                result = IotHubStatusCode.OK_EMPTY;
             }
         };
 
         //act
-        Deencapsulation.invoke(transport, "updateStatus",
-                new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
-                IotHubConnectionStatus.CONNECTED, IotHubConnectionStatusChangeReason.NO_NETWORK, null);
+        Deencapsulation.invoke(transport, "sendPacket", mockedPacket);
 
         //assert
-        assertEquals(IotHubConnectionStatus.CONNECTED, Deencapsulation.getField(transport, "connectionStatus"));
-        assertEquals(0, Deencapsulation.getField(transport, "currentReconnectionAttempt"));
-        assertEquals(0L, Deencapsulation.getField(transport, "reconnectionAttemptStartTimeMillis"));
+        assertEquals(0, inProgressMessages.size());
+        assertEquals(1, callbackPacketsQueue.size());
         new Verifications()
         {
             {
-                Deencapsulation.invoke(transport, "invokeConnectionStatusChangeCallback",
-                        new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
-                        IotHubConnectionStatus.CONNECTED, IotHubConnectionStatusChangeReason.NO_NETWORK, null);
-                times =1;
+                mockedPacket.setStatus(IotHubStatusCode.OK_EMPTY);
+                times = 1;
             }
         };
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_28_005:[This function shall updated the saved connection status if the connection status has changed.]
-    //Tests_SRS_IOTHUBTRANSPORT_28_006:[This function shall invoke all callbacks listening for the state change if the connection status has changed.]
-    //Tests_SRS_IOTHUBTRANSPORT_28_007: [This function shall reset currentReconnectionAttempt and reconnectionAttemptStartTimeMillis if connection status is changed to CONNECTED.]
+
+    //Tests_SRS_IOTHUBTRANSPORT_34_076: [If an exception is encountered while sending the message, this function
+    // shall invoke handleMessageException with that packet.]
     @Test
-    public void updateStatusConnectionStatusNotChanged()
+    public void sendPacketFailsToSend() throws TransportException
     {
         //arrange
         final IotHubTransport transport = new IotHubTransport(mockedConfig);
-        Deencapsulation.setField(transport, "connectionStatus", IotHubConnectionStatus.CONNECTED);
-        Deencapsulation.setField(transport, "currentReconnectionAttempt", 5);
+        Map<String, IotHubTransportPacket> inProgressMessages = new HashMap<>();
+        Queue<IotHubTransportPacket> callbackPacketsQueue = new ConcurrentLinkedQueue<>();
+        Deencapsulation.setField(transport, "callbackPacketsQueue", callbackPacketsQueue);
+        Deencapsulation.setField(transport, "inProgressPackets", inProgressMessages);
+        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedHttpsIotHubConnection);
         new NonStrictExpectations(IotHubTransport.class)
         {
             {
-                Deencapsulation.invoke(transport, "invokeConnectionStatusChangeCallback",
-                        new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
-                        IotHubConnectionStatus.CONNECTED, null, null);
+                mockedPacket.getMessage();
+                result = mockedTransportMessage;
+
+                mockedTransportMessage.isMessageAckNeeded((IotHubClientProtocol) any);
+                result = false;
+
+                mockedHttpsIotHubConnection.sendMessage((Message) any);
+                result = mockedTransportException;
+
+                Deencapsulation.invoke(transport, "handleMessageException", new Class[] {IotHubTransportPacket.class, TransportException.class}, mockedPacket, mockedTransportException);
             }
         };
 
         //act
-        Deencapsulation.invoke(transport, "updateStatus",
-                new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
-                IotHubConnectionStatus.CONNECTED, null, null);
+        Deencapsulation.invoke(transport, "sendPacket", mockedPacket);
 
         //assert
-        assertEquals(IotHubConnectionStatus.CONNECTED, Deencapsulation.getField(transport, "connectionStatus"));
-        assertEquals(5, Deencapsulation.getField(transport, "currentReconnectionAttempt"));
+        assertEquals(0, inProgressMessages.size());
+        assertEquals(0, callbackPacketsQueue.size());
         new Verifications()
         {
             {
-                Deencapsulation.invoke(transport, "invokeConnectionStatusChangeCallback",
-                        new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
-                        IotHubConnectionStatus.CONNECTED, null, null);
-                times = 0;
+                Deencapsulation.invoke(transport, "handleMessageException", new Class[] {IotHubTransportPacket.class, TransportException.class}, mockedPacket, mockedTransportException);
+                times = 1;
             }
         };
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_28_005:[This function shall updated the saved connection status if the connection status has changed.]
-    //Tests_SRS_IOTHUBTRANSPORT_28_006:[This function shall invoke all callbacks listening for the state change if the connection status has changed.]
-    //Tests_SRS_IOTHUBTRANSPORT_28_007: [This function shall reset currentReconnectionAttempt and reconnectionAttemptStartTimeMillis if connection status is changed to CONNECTED.]
+    //Tests_SRS_IOTHUBTRANSPORT_34_076: [If an exception is encountered while sending the message, this function
+    // shall invoke handleMessageException with that packet.]
     @Test
-    public void updateStatusConnectionStatusChangedToDisconnected()
+    public void sendPacketFailsToSendAndExpectsAck() throws TransportException
     {
         //arrange
         final IotHubTransport transport = new IotHubTransport(mockedConfig);
-        Deencapsulation.setField(transport, "connectionStatus", IotHubConnectionStatus.DISCONNECTED_RETRYING);
-        Deencapsulation.setField(transport, "currentReconnectionAttempt", 5);
-        new Expectations(IotHubTransport.class)
+        Map<String, IotHubTransportPacket> inProgressMessages = new HashMap<>();
+        Queue<IotHubTransportPacket> callbackPacketsQueue = new ConcurrentLinkedQueue<>();
+        Deencapsulation.setField(transport, "callbackPacketsQueue", callbackPacketsQueue);
+        Deencapsulation.setField(transport, "inProgressPackets", inProgressMessages);
+        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedHttpsIotHubConnection);
+        new NonStrictExpectations(IotHubTransport.class)
         {
             {
-                Deencapsulation.invoke(transport, "invokeConnectionStatusChangeCallback",
-                        new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
-                        IotHubConnectionStatus.DISCONNECTED, IotHubConnectionStatusChangeReason.NO_NETWORK, null);
-            }
-        };
+                mockedPacket.getMessage();
+                result = mockedTransportMessage;
 
-        //act
-        Deencapsulation.invoke(transport, "updateStatus",
-                new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
-                IotHubConnectionStatus.DISCONNECTED, IotHubConnectionStatusChangeReason.NO_NETWORK, null);
+                mockedTransportMessage.isMessageAckNeeded((IotHubClientProtocol) any);
+                result = true;
 
-        //assert
-        assertEquals(IotHubConnectionStatus.DISCONNECTED, Deencapsulation.getField(transport, "connectionStatus"));
-        assertEquals(5, Deencapsulation.getField(transport, "currentReconnectionAttempt"));
-        new Verifications()
-        {
-            {
-                Deencapsulation.invoke(transport, "invokeConnectionStatusChangeCallback",
-                        new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
-                        IotHubConnectionStatus.DISCONNECTED, IotHubConnectionStatusChangeReason.NO_NETWORK, null);
-                times =1;
+                mockedHttpsIotHubConnection.sendMessage((Message) any);
+                result = mockedTransportException;
+
+                Deencapsulation.invoke(transport, "handleMessageException", new Class[] {IotHubTransportPacket.class, TransportException.class}, mockedPacket, mockedTransportException);
             }
         };
-    }
-
-    //Tests_SRS_IOTHUBTRANSPORT_28_004:[This function shall notify the connection status change callback if the callback is not null]
-    @Test
-    public void invokeConnectionStatusChangeCallbackWithCallback()
-    {
-        //arrange
-        final IotHubTransport transport = new IotHubTransport(mockedConfig);
-        Deencapsulation.setField(transport, "connectionStatusChangeCallback", mockedIotHubConnectionStatusChangeCallback);
 
         //act
-        Deencapsulation.invoke(transport, "invokeConnectionStatusChangeCallback",
-                new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
-                IotHubConnectionStatus.CONNECTED, IotHubConnectionStatusChangeReason.CONNECTION_OK, new IOException());
+        Deencapsulation.invoke(transport, "sendPacket", mockedPacket);
 
         //assert
+        assertEquals(0, inProgressMessages.size());
+        assertEquals(0, callbackPacketsQueue.size());
         new Verifications()
         {
             {
-                mockedIotHubConnectionStatusChangeCallback.execute(
-                        (IotHubConnectionStatus)any,
-                        (IotHubConnectionStatusChangeReason)any,
-                        (Throwable)any,
-                        any);
+                Deencapsulation.invoke(transport, "handleMessageException", new Class[] {IotHubTransportPacket.class, TransportException.class}, mockedPacket, mockedTransportException);
                 times = 1;
             }
         };
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_28_004:[This function shall notify the connection status change callback if the callback is not null]
+    //Tests_SRS_IOTHUBTRANSPORT_34_079: [If the provided transportException is an AmqpConnectionThrottledException,
+    // this function shall set the status of the callback packet to the error code for THROTTLED.]
     @Test
-    public void invokeConnectionStatusChangeCallbackWithNullCallback()
+    public void handleMessageExceptionChecksForAmqpThrottling()
     {
         //arrange
         final IotHubTransport transport = new IotHubTransport(mockedConfig);
-        Deencapsulation.setField(transport, "connectionStatusChangeCallback", null);
 
         //act
-        Deencapsulation.invoke(transport, "invokeConnectionStatusChangeCallback",
-                new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
-                IotHubConnectionStatus.CONNECTED, IotHubConnectionStatusChangeReason.CONNECTION_OK, new IOException());
+        Deencapsulation.invoke(transport, "handleMessageException", new Class[] {IotHubTransportPacket.class, TransportException.class}, mockedPacket, new AmqpConnectionThrottledException());
 
         //assert
-
         new Verifications()
         {
             {
-                mockedIotHubConnectionStatusChangeCallback.execute(
-                        (IotHubConnectionStatus)any,
-                        (IotHubConnectionStatusChangeReason)any,
-                        (Throwable)any,
-                        any);
-                times = 0;
+                mockedPacket.setStatus(IotHubStatusCode.THROTTLED);
+                times = 1;
             }
         };
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_28_003: [This function shall indicate if the device's sas token is expired.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_023: [This function shall return the number of messages sent that are waiting for the acknowledgement of the IoT Hub.]
     @Test
-    public void isSasTokenExpiredAuthenticationTypeIsSasTokenAndExpired()
+    public void getInFlightMessageCountReturnsInProgressPackets()
     {
         //arrange
-        final IotHubTransport transport = new IotHubTransport(mockedConfig);
-        new NonStrictExpectations()
-        {
-            {
-                mockedConfig.getAuthenticationType();
-                result = DeviceClientConfig.AuthType.SAS_TOKEN;
-                mockedConfig.getSasTokenAuthentication().isRenewalNecessary();
-                result = true;
-            }
-        };
+        IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Map<String, IotHubTransportPacket> inProgressPackets = new ConcurrentHashMap<>();
+        inProgressPackets.put("1234", mockedPacket);
+        Deencapsulation.setField(transport, "inProgressPackets", inProgressPackets);
 
         //act
-        boolean ret = Deencapsulation.invoke(transport, "isSasTokenExpired");
+        int inFlightMessageCount = transport.getInFlightMessageCount();
 
         //assert
-        assertTrue(ret);
+        assertEquals(1, inFlightMessageCount);
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_28_003: [This function shall indicate if the device's sas token is expired.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_024: [This function shall count the messages accepted in the outbound queue in the transport metrics.]
     @Test
-    public void isSasTokenExpiredAuthenticationTypeIsSasTokenAndNotExpired()
+    public void addMessageCountsQueuedMessageInMetrics()
     {
         //arrange
-        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        final InMemoryTransportMetrics metrics = new InMemoryTransportMetrics();
+        IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "connectionStatus", CONNECTED);
         new NonStrictExpectations()
         {
             {
-                mockedConfig.getAuthenticationType();
-                result = DeviceClientConfig.AuthType.SAS_TOKEN;
-                mockedConfig.getSasTokenAuthentication().isRenewalNecessary();
-                result = false;
+                mockedConfig.getTransportMetrics();
+                result = metrics;
             }
         };
 
         //act
-        boolean ret = Deencapsulation.invoke(transport, "isSasTokenExpired");
+        transport.addMessage(mockedMessage, mockedEventCallback, new Object());
 
         //assert
-        assertFalse(ret);
+        assertEquals(1, metrics.getCounter(TransportCounter.MESSAGES_QUEUED));
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_28_003: [This function shall indicate if the device's sas token is expired.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_025: [This function shall count the sent messages and their body bytes in the transport metrics, and record the time since the message was queued as the send latency.]
     @Test
-    public void isSasTokenExpiredAuthenticationTypeNotSasToken()
+    public void sendPacketUpdatesMetrics() throws TransportException
     {
         //arrange
+        final InMemoryTransportMetrics metrics = new InMemoryTransportMetrics();
         final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedHttpsIotHubConnection);
         new NonStrictExpectations()
         {
             {
-                mockedConfig.getAuthenticationType();
-                result = DeviceClientConfig.AuthType.X509_CERTIFICATE;
-                mockedConfig.getSasTokenAuthentication().isRenewalNecessary();
-                result = true;
+                mockedConfig.getTransportMetrics();
+                result = metrics;
+                mockedPacket.getMessage();
+                result = mockedMessage;
+                mockedMessage.getMessageId();
+                result = "1234";
+                mockedMessage.getBytes();
+                result = new byte[10];
+                mockedPacket.getStartTimeMillis();
+                result = System.currentTimeMillis() - 1000;
+                mockedHttpsIotHubConnection.sendMessage((Message) any);
+                result = IotHubStatusCode.OK_EMPTY;
             }
         };
 
         //act
-        boolean ret = Deencapsulation.invoke(transport, "isSasTokenExpired");
+        Deencapsulation.invoke(transport, "sendPacket", mockedPacket);
 
         //assert
-        assertFalse(ret);
+        assertEquals(1, metrics.getCounter(TransportCounter.MESSAGES_SENT));
+        assertEquals(10, metrics.getCounter(TransportCounter.BYTES_SENT));
+        assertEquals(1, metrics.getLatency(TransportLatency.SEND).getCount());
+        assertTrue(metrics.getLatency(TransportLatency.SEND).getMax() >= 1000);
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_28_002: [This function shall add the packet to the callback queue if it has a callback.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_026: [If the message was acknowledged, this function shall count it in the transport metrics and record the time since it was queued as the acknowledge latency.]
     @Test
-    public void addToCallbackQueuePacketHasCallback(@Mocked final IotHubEventCallback mockCallback)
+    public void onMessageSentUpdatesMetrics()
     {
         //arrange
+        final InMemoryTransportMetrics metrics = new InMemoryTransportMetrics();
         final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        final String messageId = "1234";
+        final Map<String, IotHubTransportPacket> inProgressPackets = new ConcurrentHashMap<>();
+        inProgressPackets.put(messageId, mockedPacket);
+        Deencapsulation.setField(transport, "connectionStatus", CONNECTED);
+        Deencapsulation.setField(transport, "inProgressPackets", inProgressPackets);
         new NonStrictExpectations()
         {
             {
-                mockedPacket.getCallback();
-                result = mockCallback;
+                mockedConfig.getTransportMetrics();
+                result = metrics;
+                mockedMessage.getMessageId();
+                result = messageId;
+                mockedPacket.getStartTimeMillis();
+                result = System.currentTimeMillis();
             }
         };
 
         //act
-        Deencapsulation.invoke(transport, "addToCallbackQueue", mockedPacket);
+        transport.onMessageSent(mockedMessage, null);
 
         //assert
-        Queue<IotHubTransportPacket> callbackPacketsQueue = Deencapsulation.getField(transport, "callbackPacketsQueue");
-        assertEquals(1, callbackPacketsQueue.size());
-        assertTrue(callbackPacketsQueue.contains(mockedPacket));
+        assertEquals(1, metrics.getCounter(TransportCounter.MESSAGES_ACKNOWLEDGED));
+        assertEquals(1, metrics.getLatency(TransportLatency.ACKNOWLEDGE).getCount());
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_28_002: [This function shall add the packet to the callback queue if it has a callback.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_027: [This function shall count the retries and the failed messages in the transport metrics.]
     @Test
-    public void addToCallbackQueuePacketNoCallback(@Mocked final IotHubEventCallback mockCallback)
+    public void handleMessageExceptionCountsFailedMessageInMetrics()
     {
         //arrange
+        final InMemoryTransportMetrics metrics = new InMemoryTransportMetrics();
         final IotHubTransport transport = new IotHubTransport(mockedConfig);
         new NonStrictExpectations()
         {
             {
-                mockedPacket.getCallback();
-                result = null;
+                mockedConfig.getTransportMetrics();
+                result = metrics;
             }
         };
 
         //act
-        Deencapsulation.invoke(transport, "addToCallbackQueue", mockedPacket);
+        Deencapsulation.invoke(transport, "handleMessageException", new Class[] {IotHubTransportPacket.class, TransportException.class}, mockedPacket, new TransportException());
 
         //assert
-        Queue<IotHubTransportPacket> callbackPacketsQueue = Deencapsulation.getField(transport, "callbackPacketsQueue");
-        assertEquals(0, callbackPacketsQueue.size());
+        assertEquals(1, metrics.getCounter(TransportCounter.MESSAGES_FAILED));
+        assertEquals(0, metrics.getCounter(TransportCounter.MESSAGE_RETRIES));
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_28_001: [This function shall set the MqttUnauthorizedException as retryable if the sas token has not expired.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_028: [This function shall count the received messages and their body bytes in the transport metrics.]
     @Test
-    public void checkForUnauthorizedExceptionInMqttUnauthroizedException()
+    public void onMessageReceivedUpdatesMetrics()
     {
         //arrange
-        final MqttUnauthorizedException testException = new MqttUnauthorizedException();
+        final InMemoryTransportMetrics metrics = new InMemoryTransportMetrics();
         final IotHubTransport transport = new IotHubTransport(mockedConfig);
-        new NonStrictExpectations(IotHubTransport.class)
+        new NonStrictExpectations()
         {
             {
-                Deencapsulation.invoke(transport, "isSasTokenExpired");
-                result = false;
+                mockedConfig.getTransportMetrics();
+                result = metrics;
+                mockedTransportMessage.getBytes();
+                result = new byte[5];
             }
         };
 
         //act
-        Deencapsulation.invoke(transport, "checkForUnauthorizedException", testException);
+        transport.onMessageReceived(mockedTransportMessage, null);
 
         //assert
-        new Verifications()
-        {
-            {
-                testException.setRetryable(true);
-                times = 1;
-            }
-        };
+        assertEquals(1, metrics.getCounter(TransportCounter.MESSAGES_RECEIVED));
+        assertEquals(5, metrics.getCounter(TransportCounter.BYTES_RECEIVED));
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_28_001: [This function shall set the MqttUnauthorizedException, UnauthorizedException or
-    //AmqpUnauthorizedAccessException as retryable if the sas token has not expired.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_029: [If the connection status changed to CONNECTED at the end of a reconnection, this function shall count it in the transport metrics and record its duration.]
     @Test
-    public void checkForUnauthorizedExceptionInUnauthorizedException()
+    public void updateStatusToConnectedAfterReconnectionUpdatesMetrics()
     {
         //arrange
-        final UnauthorizedException testException = new UnauthorizedException();
+        final InMemoryTransportMetrics metrics = new InMemoryTransportMetrics();
         final IotHubTransport transport = new IotHubTransport(mockedConfig);
-        new NonStrictExpectations(IotHubTransport.class)
+        Deencapsulation.setField(transport, "connectionStatus", IotHubConnectionStatus.DISCONNECTED_RETRYING);
+        Deencapsulation.setField(transport, "reconnectionAttemptStartTimeMillis", System.currentTimeMillis() - 2000);
+        new NonStrictExpectations()
         {
             {
-                Deencapsulation.invoke(transport, "isSasTokenExpired");
-                result = false;
+                mockedConfig.getTransportMetrics();
+                result = metrics;
             }
         };
 
         //act
-        Deencapsulation.invoke(transport, "checkForUnauthorizedException", testException);
+        Deencapsulation.invoke(transport, "updateStatus",
+                new Class[] {IotHubConnectionStatus.class, IotHubConnectionStatusChangeReason.class, Throwable.class},
+                IotHubConnectionStatus.CONNECTED, IotHubConnectionStatusChangeReason.CONNECTION_OK, null);
 
         //assert
-        new Verifications()
-        {
-            {
-                testException.setRetryable(true);
-                times = 1;
-            }
-        };
+        assertEquals(1, metrics.getCounter(TransportCounter.RECONNECTIONS));
+        assertTrue(metrics.getLatency(TransportLatency.RECONNECT).getMax() >= 2000);
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_28_001: [This function shall set the MqttUnauthorizedException, UnauthorizedException or
-    //AmqpUnauthorizedAccessException as retryable if the sas token has not expired.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_030: [If the message is a batch and the protocol is not HTTPS, this function shall add each message of the batch to the waiting queue with a callback that invokes the provided callback once, when all of them completed.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_031: [When all messages of the batch completed, the batch callback shall be invoked with OK_EMPTY, or with the status of the first message that failed.]
     @Test
-    public void checkForUnauthorizedExceptionInAmqpUnauthorizedAccessException()
+    public void addMessageSplitsBatchWithSingleCompletionOverMqtt()
     {
         //arrange
-        final AmqpUnauthorizedAccessException testException = new AmqpUnauthorizedAccessException();
+        final Object context = new Object();
         final IotHubTransport transport = new IotHubTransport(mockedConfig);
-        new NonStrictExpectations(IotHubTransport.class)
+        Deencapsulation.setField(transport, "connectionStatus", CONNECTED);
+        Queue<IotHubTransportPacket> waitingPacketsQueue = Deencapsulation.getField(transport, "waitingPacketsQueue");
+        final BatchMessage batchMessage = new BatchMessage(Arrays.asList(mockedMessage, mockedMessage, mockedMessage));
+        new NonStrictExpectations()
         {
             {
-                Deencapsulation.invoke(transport, "isSasTokenExpired");
-                result = false;
+                mockedConfig.getProtocol();
+                result = IotHubClientProtocol.MQTT;
             }
         };
 
         //act
-        Deencapsulation.invoke(transport, "checkForUnauthorizedException", testException);
+        transport.addMessage(batchMessage, mockedEventCallback, context);
 
         //assert
+        assertEquals(3, waitingPacketsQueue.size());
+        final List<IotHubEventCallback> batchCallbacks = new ArrayList<>();
         new Verifications()
         {
             {
-                testException.setRetryable(true);
+                new IotHubTransportPacket(mockedMessage, withCapture(batchCallbacks), null, null, anyLong);
+                times = 3;
+            }
+        };
+        batchCallbacks.get(0).execute(IotHubStatusCode.OK_EMPTY, null);
+        batchCallbacks.get(1).execute(IotHubStatusCode.THROTTLED, null);
+        batchCallbacks.get(2).execute(IotHubStatusCode.ERROR, null);
+        new Verifications()
+        {
+            {
+                mockedEventCallback.execute(IotHubStatusCode.THROTTLED, context);
+                times = 1;
+                mockedEventCallback.execute((IotHubStatusCode) any, any);
                 times = 1;
             }
         };
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_28_001: [This function shall set the MqttUnauthorizedException, UnauthorizedException or
-    //AmqpUnauthorizedAccessException as retryable if the sas token has not expired.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_030: [If the message is a batch and the protocol is not HTTPS, this function shall add each message of the batch to the waiting queue with a callback that invokes the provided callback once, when all of them completed.]
     @Test
-    public void checkForUnauthorizedExceptionWithExpiredSASToken()
+    public void addMessageKeepsBatchAsSinglePacketOverHttps()
     {
         //arrange
-        final UnauthorizedException testException = new UnauthorizedException();
         final IotHubTransport transport = new IotHubTransport(mockedConfig);
-        new NonStrictExpectations(IotHubTransport.class)
+        Deencapsulation.setField(transport, "connectionStatus", CONNECTED);
+        Queue<IotHubTransportPacket> waitingPacketsQueue = Deencapsulation.getField(transport, "waitingPacketsQueue");
+        final BatchMessage batchMessage = new BatchMessage(Arrays.asList(mockedMessage, mockedMessage));
+        new NonStrictExpectations()
         {
             {
-                Deencapsulation.invoke(transport, "isSasTokenExpired");
-                result = true;
+                mockedConfig.getProtocol();
+                result = IotHubClientProtocol.HTTPS;
             }
         };
 
         //act
-        Deencapsulation.invoke(transport, "checkForUnauthorizedException", testException);
+        transport.addMessage(batchMessage, mockedEventCallback, null);
 
         //assert
+        assertEquals(1, waitingPacketsQueue.size());
         new Verifications()
         {
             {
-                testException.setRetryable(true);
-                times = 0;
+                new IotHubTransportPacket(batchMessage, mockedEventCallback, null, null, anyLong);
+                times = 1;
             }
         };
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_28_001: [This function shall set the MqttUnauthorizedException, UnauthorizedException or
-    //AmqpUnauthorizedAccessException as retryable if the sas token has not expired.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_041: [If the outbound queue cannot make room for all messages of the batch, this function shall add none of them to the waiting queue, and shall add a single packet with the batch to the callback queue with status MESSAGE_CANCELLED_QUEUE_FULL.]
     @Test
-    public void checkForUnauthorizedExceptionWithOtherTransportException()
+    public void addMessageRejectsWholeBatchIfOutboundQueueCannotHoldIt()
     {
         //arrange
-        final TransportException testException = new TransportException();
+        final Object context = new Object();
         final IotHubTransport transport = new IotHubTransport(mockedConfig);
-        new NonStrictExpectations(IotHubTransport.class)
+        Deencapsulation.setField(transport, "connectionStatus", CONNECTED);
+        Queue<IotHubTransportPacket> waitingPacketsQueue = Deencapsulation.getField(transport, "waitingPacketsQueue");
+        Queue<IotHubTransportPacket> callbackPacketsQueue = Deencapsulation.getField(transport, "callbackPacketsQueue");
+        final BatchMessage batchMessage = new BatchMessage(Arrays.asList(mockedMessage, mockedMessage));
+        new NonStrictExpectations()
         {
             {
-                Deencapsulation.invoke(transport, "isSasTokenExpired");
-                result = true;
+                mockedConfig.getProtocol();
+                result = IotHubClientProtocol.AMQPS;
+                mockedConfig.getMaxOutboundQueueMessages();
+                result = 2;
+                mockedConfig.getOutboundQueueOverflowPolicy();
+                result = OutboundQueueOverflowPolicy.FAIL;
             }
         };
+        transport.addMessage(mockedMessage, mockedEventCallback, null);
 
         //act
-        Deencapsulation.invoke(transport, "checkForUnauthorizedException", testException);
+        transport.addMessage(batchMessage, mockedEventCallback, context);
 
         //assert
+        assertEquals(1, waitingPacketsQueue.size());
+        assertEquals(1, callbackPacketsQueue.size());
+        assertEquals(1, transport.getOutboundQueueMessageCount());
         new Verifications()
         {
             {
-                testException.setRetryable(true);
-                times = 0;
+                new IotHubTransportPacket(batchMessage, mockedEventCallback, context, null, anyLong);
+                times = 1;
+                mockedPacket.setStatus(IotHubStatusCode.MESSAGE_CANCELLED_QUEUE_FULL);
+                times = 1;
             }
         };
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_34_072: [This function shall check if the provided message should expect an ACK or not.]
-    //Tests_SRS_IOTHUBTRANSPORT_34_073: [This function shall send the provided message over the saved connection
-    // and save the response code.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_042: [If the overflow policy drops a message of a batch, this function shall also drop the other messages of the batch that are still in the waiting queue.]
     @Test
-    public void sendPacketHappyPathWithAck() throws TransportException
+    public void addMessageDropsWholeBatchIfPolicyIsDropOldest()
     {
         //arrange
-        IotHubTransport transport = new IotHubTransport(mockedConfig);
-        Map<String, IotHubTransportPacket> inProgressMessages = new HashMap<>();
-        Deencapsulation.setField(transport, "inProgressPackets", inProgressMessages);
-        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedHttpsIotHubConnection);
+        final IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "connectionStatus", CONNECTED);
+        Queue<IotHubTransportPacket> waitingPacketsQueue = Deencapsulation.getField(transport, "waitingPacketsQueue");
+        Queue<IotHubTransportPacket> callbackPacketsQueue = Deencapsulation.getField(transport, "callbackPacketsQueue");
+        final BatchMessage batchMessage = new BatchMessage(Arrays.asList(mockedMessage, mockedMessage));
         new NonStrictExpectations()
         {
             {
-                mockedPacket.getMessage();
-                result = mockedTransportMessage;
-
-                mockedTransportMessage.isMessageAckNeeded((IotHubClientProtocol) any);
-                result = true;
-
-                mockedHttpsIotHubConnection.sendMessage((Message) any);
-                result = IotHubStatusCode.OK_EMPTY;
+                mockedConfig.getProtocol();
+                result = IotHubClientProtocol.MQTT;
+                mockedConfig.getMaxOutboundQueueMessages();
+                result = 3;
+                mockedConfig.getOutboundQueueOverflowPolicy();
+                result = OutboundQueueOverflowPolicy.DROP_OLDEST;
             }
         };
+        transport.addMessage(batchMessage, mockedEventCallback, null);
+        List<IotHubTransportPacket> batchPackets = new ArrayList<>(waitingPacketsQueue);
+        transport.addMessage(mockedMessage, mockedEventCallback, null);
 
         //act
-        Deencapsulation.invoke(transport, "sendPacket", mockedPacket);
+        transport.addMessage(mockedMessage, mockedEventCallback, null);
 
         //assert
-        assertEquals(1, inProgressMessages.size());
+        assertEquals(2, waitingPacketsQueue.size());
+        assertEquals(2, callbackPacketsQueue.size());
+        assertTrue(callbackPacketsQueue.containsAll(batchPackets));
+        assertEquals(2, transport.getOutboundQueueMessageCount());
     }
 
-
-    //Tests_SRS_IOTHUBTRANSPORT_34_074: [If the response from sending is not OK or OK_EMPTY, this function
-    // shall invoke handleMessageException with that message.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_032: [If the config has a message compression, this function shall queue a copy of the telemetry messages with the compressed body, before they are reserved in the outbound queue and journaled, and shall not change the provided message.]
     @Test
-    public void sendPacketReceivesStatusThatIsNotOkOrOkEmpty() throws TransportException
+    public void addMessageCompressesWhenConfigured(@Mocked final MessageCompressor mockedMessageCompressor)
     {
         //arrange
-        final IotHubTransport transport = new IotHubTransport(mockedConfig);
-        Map<String, IotHubTransportPacket> inProgressMessages = new HashMap<>();
-        Deencapsulation.setField(transport, "inProgressPackets", inProgressMessages);
-        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedHttpsIotHubConnection);
-        new NonStrictExpectations(IotHubTransport.class)
+        IotHubTransport transport = new IotHubTransport(mockedConfig);
+        Deencapsulation.setField(transport, "connectionStatus", CONNECTED);
+        final Message compressedMessage = new Message();
+        new NonStrictExpectations()
         {
             {
-                mockedPacket.getMessage();
-                result = mockedTransportMessage;
-
-                mockedTransportMessage.isMessageAckNeeded((IotHubClientProtocol) any);
-                result = true;
-
-                mockedHttpsIotHubConnection.sendMessage((Message) any);
-                result = IotHubStatusCode.HUB_OR_DEVICE_ID_NOT_FOUND;
-
-                Deencapsulation.invoke(transport, "handleMessageException", new Class[] {IotHubTransportPacket.class, TransportException.class}, mockedPacket, any);
+                mockedConfig.getMessageCompression();
+                result = MessageCompression.GZIP;
+                mockedConfig.getMessageCompressionThresholdBytes();
+                result = 256;
+                MessageCompressor.compressedCopy(mockedMessage, MessageCompression.GZIP, 256);
+                result = compressedMessage;
             }
         };
 
         //act
-        Deencapsulation.invoke(transport, "sendPacket", mockedPacket);
+        transport.addMessage(mockedMessage, mockedEventCallback, new Object());
 
         //assert
-        assertEquals(0, inProgressMessages.size());
         new Verifications()
         {
             {
-                Deencapsulation.invoke(transport, "handleMessageException", new Class[] {IotHubTransportPacket.class, TransportException.class}, mockedPacket, any);
+                new IotHubTransportPacket(compressedMessage, mockedEventCallback, any, null, anyLong);
                 times = 1;
+                MessageCompressor.compress((Message) any, (MessageCompression) any, anyInt);
+                times = 0;
             }
         };
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_34_075: [If the response from sending is OK or OK_EMPTY and no ack is expected,
-    // this function shall put that set that status in the sent packet and add that packet to the callbacks queue.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_032: [If the config has a message compression, this function shall queue a copy of the telemetry messages with the compressed body, before they are reserved in the outbound queue and journaled, and shall not change the provided message.]
     @Test
-    public void sendPacketHappyPathWithoutAck() throws TransportException
+    public void addMessageDoesNotCompressWhenNotConfigured(@Mocked final MessageCompressor mockedMessageCompressor)
     {
         //arrange
         IotHubTransport transport = new IotHubTransport(mockedConfig);
-        Map<String, IotHubTransportPacket> inProgressMessages = new HashMap<>();
-        Queue<IotHubTransportPacket> callbackPacketsQueue = new ConcurrentLinkedQueue<>();
-        Deencapsulation.setField(transport, "callbackPacketsQueue", callbackPacketsQueue);
-        Deencapsulation.setField(transport, "inProgressPackets", inProgressMessages);
-        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedHttpsIotHubConnection);
+        Deencapsulation.setField(transport, "connectionStatus", CONNECTED);
         new NonStrictExpectations()
         {
             {
-                mockedPacket.getMessage();
-                result = mockedTransportMessage;
-
-                mockedTransportMessage.isMessageAckNeeded((IotHubClientProtocol) any);
-                result = false;
-
-                mockedHttpsIotHubConnection.sendMessage((Message) any);
-                result = IotHubStatusCode.OK_EMPTY;
+                mockedConfig.getMessageCompression();
+                result = null;
             }
         };
 
         //act
-        Deencapsulation.invoke(transport, "sendPacket", mockedPacket);
+        transport.addMessage(mockedMessage, mockedEventCallback, new Object());
 
         //assert
-        assertEquals(0, inProgressMessages.size());
-        assertEquals(1, callbackPacketsQueue.size());
         new Verifications()
         {
             {
-                mockedPacket.setStatus(IotHubStatusCode.OK_EMPTY);
-                times = 1;
+                MessageCompressor.compressedCopy((Message) any, (MessageCompression) any, anyInt);
+                times = 0;
             }
         };
     }
 
-
-    //Tests_SRS_IOTHUBTRANSPORT_34_076: [If an exception is encountered while sending the message, this function
-    // shall invoke handleMessageException with that packet.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_033: [This function shall decompress the received messages with a gzip or deflate content encoding, whether or not the config has a message compression. If the body is not valid for its content encoding, the message shall be delivered as it was received.]
     @Test
-    public void sendPacketFailsToSend() throws TransportException
+    public void acknowledgeReceivedMessageDecompressesWithoutOutboundCompression(@Mocked final MessageCompressor mockedMessageCompressor)
+            throws IOException, IotHubSizeExceededException, TransportException
     {
         //arrange
         final IotHubTransport transport = new IotHubTransport(mockedConfig);
-        Map<String, IotHubTransportPacket> inProgressMessages = new HashMap<>();
-        Queue<IotHubTransportPacket> callbackPacketsQueue = new ConcurrentLinkedQueue<>();
-        Deencapsulation.setField(transport, "callbackPacketsQueue", callbackPacketsQueue);
-        Deencapsulation.setField(transport, "inProgressPackets", inProgressMessages);
-        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedHttpsIotHubConnection);
-        new NonStrictExpectations(IotHubTransport.class)
+        final Object context = new Object();
+        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedIotHubTransportConnection);
+        new NonStrictExpectations()
         {
             {
-                mockedPacket.getMessage();
-                result = mockedTransportMessage;
-
-                mockedTransportMessage.isMessageAckNeeded((IotHubClientProtocol) any);
-                result = false;
-
-                mockedHttpsIotHubConnection.sendMessage((Message) any);
-                result = mockedTransportException;
-
-                Deencapsulation.invoke(transport, "handleMessageException", new Class[] {IotHubTransportPacket.class, TransportException.class}, mockedPacket, mockedTransportException);
+                mockedConfig.getMessageCompression();
+                result = null;
+                mockedConfig.getMaxDecompressedMessageBytes();
+                result = 1024;
+                mockedTransportMessage.getMessageCallback();
+                result = mockedMessageCallback;
+                mockedTransportMessage.getMessageCallbackContext();
+                result = context;
+                MessageCompressor.decompress(mockedTransportMessage, 1024);
+                result = new IOException();
+                mockedMessageCallback.execute(mockedTransportMessage, context);
+                result = IotHubMessageResult.COMPLETE;
             }
         };
 
         //act
-        Deencapsulation.invoke(transport, "sendPacket", mockedPacket);
+        Deencapsulation.invoke(transport, "acknowledgeReceivedMessage", mockedTransportMessage);
 
         //assert
-        assertEquals(0, inProgressMessages.size());
-        assertEquals(0, callbackPacketsQueue.size());
         new Verifications()
         {
             {
-                Deencapsulation.invoke(transport, "handleMessageException", new Class[] {IotHubTransportPacket.class, TransportException.class}, mockedPacket, mockedTransportException);
+                MessageCompressor.decompress(mockedTransportMessage, 1024);
+                times = 1;
+                mockedMessageCallback.execute(mockedTransportMessage, context);
+                times = 1;
+                mockedIotHubTransportConnection.sendMessageResult(mockedTransportMessage, IotHubMessageResult.COMPLETE);
                 times = 1;
             }
         };
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_34_076: [If an exception is encountered while sending the message, this function
-    // shall invoke handleMessageException with that packet.]
+    //Tests_SRS_IOTHUBTRANSPORT_21_036: [If the body of the received message decompresses to more than the maximum decompressed size of the config, this function shall reject the message without executing the callback.]
     @Test
-    public void sendPacketFailsToSendAndExpectsAck() throws TransportException
+    public void acknowledgeReceivedMessageRejectsMessageBiggerThanMaxDecompressedSize(@Mocked final MessageCompressor mockedMessageCompressor)
+            throws IOException, IotHubSizeExceededException, TransportException
     {
         //arrange
         final IotHubTransport transport = new IotHubTransport(mockedConfig);
-        Map<String, IotHubTransportPacket> inProgressMessages = new HashMap<>();
-        Queue<IotHubTransportPacket> callbackPacketsQueue = new ConcurrentLinkedQueue<>();
-        Deencapsulation.setField(transport, "callbackPacketsQueue", callbackPacketsQueue);
-        Deencapsulation.setField(transport, "inProgressPackets", inProgressMessages);
-        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedHttpsIotHubConnection);
-        new NonStrictExpectations(IotHubTransport.class)
+        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedIotHubTransportConnection);
+        new NonStrictExpectations()
         {
             {
-                mockedPacket.getMessage();
-                result = mockedTransportMessage;
-
-                mockedTransportMessage.isMessageAckNeeded((IotHubClientProtocol) any);
-                result = true;
-
-                mockedHttpsIotHubConnection.sendMessage((Message) any);
-                result = mockedTransportException;
-
-                Deencapsulation.invoke(transport, "handleMessageException", new Class[] {IotHubTransportPacket.class, TransportException.class}, mockedPacket, mockedTransportException);
+                mockedConfig.getMaxDecompressedMessageBytes();
+                result = 1024;
+                mockedTransportMessage.getMessageCallback();
+                result = mockedMessageCallback;
+                MessageCompressor.decompress(mockedTransportMessage, 1024);
+                result = new IotHubSizeExceededException();
             }
         };
 
         //act
-        Deencapsulation.invoke(transport, "sendPacket", mockedPacket);
+        Deencapsulation.invoke(transport, "acknowledgeReceivedMessage", mockedTransportMessage);
 
         //assert
-        assertEquals(0, inProgressMessages.size());
-        assertEquals(0, callbackPacketsQueue.size());
         new Verifications()
         {
             {
-                Deencapsulation.invoke(transport, "handleMessageException", new Class[] {IotHubTransportPacket.class, TransportException.class}, mockedPacket, mockedTransportException);
+                mockedMessageCallback.execute((Message) any, any);
+                times = 0;
+                mockedIotHubTransportConnection.sendMessageResult(mockedTransportMessage, IotHubMessageResult.REJECT);
                 times = 1;
             }
         };
     }
 
-    //Tests_SRS_IOTHUBTRANSPORT_34_079: [If the provided transportException is an AmqpConnectionThrottledException,
-    // this function shall set the status of the callback packet to the error code for THROTTLED.]
     @Test
-    public void handleMessageExceptionChecksForAmqpThrottling()
+    public void onMessageReceivedQueuesMessageWithoutDecompressing(@Mocked final MessageCompressor mockedMessageCompressor)
+            throws IOException, IotHubSizeExceededException
     {
         //arrange
         final IotHubTransport transport = new IotHubTransport(mockedConfig);
 
         //act
-        Deencapsulation.invoke(transport, "handleMessageException", new Class[] {IotHubTransportPacket.class, TransportException.class}, mockedPacket, new AmqpConnectionThrottledException());
+        transport.onMessageReceived(mockedTransportMessage, null);
 
         //assert
+        Queue<IotHubTransportMessage> receivedMessagesQueue = Deencapsulation.getField(transport, "receivedMessagesQueue");
+        assertEquals(1, receivedMessagesQueue.size());
         new Verifications()
         {
             {
-                mockedPacket.setStatus(IotHubStatusCode.THROTTLED);
-                times = 1;
+                MessageCompressor.decompress((Message) any, anyInt);
+                times = 0;
             }
         };
     }
-
 }
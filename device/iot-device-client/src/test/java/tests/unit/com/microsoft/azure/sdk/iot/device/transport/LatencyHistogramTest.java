@@ -0,0 +1,96 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package tests.unit.com.microsoft.azure.sdk.iot.device.transport;
+
+import com.microsoft.azure.sdk.iot.device.transport.LatencyHistogram;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Unit tests for LatencyHistogram. */
+public class LatencyHistogramTest
+{
+    private static final double DELTA = 0.0001;
+
+    // Tests_SRS_LATENCYHISTOGRAM_21_003: [The function shall return the mean of the recorded values, or zero if there is none.]
+    // Tests_SRS_LATENCYHISTOGRAM_21_005: [The function shall return the upper bound of the bucket that holds the value at the percentile, not above the maximum, or zero if there is no recorded value.]
+    @Test
+    public void emptyHistogramReturnsZero()
+    {
+        // arrange
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // act - assert
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMean(), DELTA);
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    // Tests_SRS_LATENCYHISTOGRAM_21_001: [The function shall record negative values as zero.]
+    // Tests_SRS_LATENCYHISTOGRAM_21_002: [The function shall increment the bucket of the value, the count and the sum, and update the maximum without locks.]
+    @Test
+    public void recordUpdatesCountSumAndMax()
+    {
+        // arrange
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // act
+        histogram.record(-5);
+        histogram.record(10);
+        histogram.record(20);
+
+        // assert
+        assertEquals(3, histogram.getCount());
+        assertEquals(20, histogram.getMax());
+        assertEquals(10, histogram.getMean(), DELTA);
+        assertEquals(0, histogram.getValueAtPercentile(0));
+    }
+
+    // Tests_SRS_LATENCYHISTOGRAM_21_005: [The function shall return the upper bound of the bucket that holds the value at the percentile, not above the maximum, or zero if there is no recorded value.]
+    @Test
+    public void getValueAtPercentileIsWithinBucketPrecision()
+    {
+        // arrange
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10000; value++)
+        {
+            histogram.record(value);
+        }
+
+        // act
+        long median = histogram.getValueAtPercentile(50);
+        long p99 = histogram.getValueAtPercentile(99);
+        long p100 = histogram.getValueAtPercentile(100);
+
+        // assert
+        assertTrue(median >= 5000 && median <= 5000 * 1.125);
+        assertTrue(p99 >= 9900 && p99 <= 9900 * 1.125);
+        assertEquals(10000, p100);
+        assertEquals(5, histogram.getValueAtPercentile(0.05));
+    }
+
+    // Tests_SRS_LATENCYHISTOGRAM_21_005: [The function shall return the upper bound of the bucket that holds the value at the percentile, not above the maximum, or zero if there is no recorded value.]
+    @Test
+    public void getValueAtPercentileHandlesLargeValues()
+    {
+        // arrange
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // act
+        histogram.record(Long.MAX_VALUE);
+
+        // assert
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(50));
+    }
+
+    // Tests_SRS_LATENCYHISTOGRAM_21_004: [The function shall throw IllegalArgumentException if the percentile is not between 0 and 100.]
+    @Test (expected = IllegalArgumentException.class)
+    public void getValueAtPercentileThrowsOnInvalidPercentile()
+    {
+        // act
+        new LatencyHistogram().getValueAtPercentile(101);
+    }
+}
@@ -0,0 +1,365 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package tests.unit.com.microsoft.azure.sdk.iot.device.transport;
+
+import com.microsoft.azure.sdk.iot.device.Message;
+import com.microsoft.azure.sdk.iot.device.MessagePriority;
+import com.microsoft.azure.sdk.iot.device.transport.MessageJournal;
+import mockit.Deencapsulation;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+
+import static org.junit.Assert.*;
+
+/** Unit tests for MessageJournal. */
+public class MessageJournalTest
+{
+    private static final long SMALL_SEGMENT_BYTES = 1024;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static Message createMessage(int index)
+    {
+        Message message = new Message("body" + index);
+        message.setMessageId("id" + index);
+        message.setCorrelationId("correlation" + index);
+        message.setProperty("index", Integer.toString(index));
+        return message;
+    }
+
+    private static SortedMap<Long, Message> readPendingMessages(MessageJournal journal) throws IOException
+    {
+        return journal.readMessages(journal.getPendingBodyLengths().keySet());
+    }
+
+    private List<File> getSegmentFiles(File directory)
+    {
+        List<File> segmentFiles = new ArrayList<>();
+        File[] files = directory.listFiles();
+        if (files != null)
+        {
+            for (File file : files)
+            {
+                if (file.getName().startsWith("segment-"))
+                {
+                    segmentFiles.add(file);
+                }
+            }
+        }
+
+        return segmentFiles;
+    }
+
+    // Tests_SRS_MESSAGEJOURNAL_21_001: [The constructor shall throw IllegalArgumentException if the directory is null, or any of the limits is zero or negative.]
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnNullDirectory() throws IOException
+    {
+        new MessageJournal(null);
+    }
+
+    // Tests_SRS_MESSAGEJOURNAL_21_001: [The constructor shall throw IllegalArgumentException if the directory is null, or any of the limits is zero or negative.]
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnZeroSegmentSize() throws IOException
+    {
+        new MessageJournal(temporaryFolder.getRoot(), 0, 1, 1);
+    }
+
+    // Tests_SRS_MESSAGEJOURNAL_21_002: [The constructor shall create the directory if it does not exist, and throw IOException if it cannot.]
+    // Tests_SRS_MESSAGEJOURNAL_21_004: [The constructor shall append the new records to the last segment, or to a new segment if there is no segment or the last one is full.]
+    @Test
+    public void constructorCreatesDirectoryAndSegment() throws IOException
+    {
+        // arrange
+        File directory = new File(temporaryFolder.getRoot(), "journal");
+
+        // act
+        MessageJournal journal = new MessageJournal(directory);
+
+        // assert
+        assertTrue(directory.isDirectory());
+        assertEquals(1, getSegmentFiles(directory).size());
+        assertTrue(journal.getPendingBodyLengths().isEmpty());
+        journal.close();
+    }
+
+    // Tests_SRS_MESSAGEJOURNAL_21_003: [The constructor shall read the existing segments and recover the messages that were not acknowledged.]
+    // Tests_SRS_MESSAGEJOURNAL_21_005: [The function shall return the body length of the pending messages sorted by sequence number.]
+    // Tests_SRS_MESSAGEJOURNAL_21_019: [The function shall read the pending messages with the provided sequence numbers from their segments, and skip the sequence numbers that are not pending.]
+    // Tests_SRS_MESSAGEJOURNAL_21_007: [The function shall append the message with the next sequence number and return that number.]
+    // Tests_SRS_MESSAGEJOURNAL_21_009: [The function shall append an acknowledgement for the sequence number and release the record in its segment.]
+    // Tests_SRS_MESSAGEJOURNAL_21_012: [The close shall force the written records to the disk and close the active segment.]
+    @Test
+    public void reopenRecoversPendingMessagesInOrder() throws IOException
+    {
+        // arrange
+        MessageJournal journal = new MessageJournal(temporaryFolder.getRoot());
+        long first = journal.append(createMessage(1));
+        long second = journal.append(createMessage(2));
+        long third = journal.append(createMessage(3));
+        journal.acknowledge(second);
+        journal.close();
+
+        // act
+        MessageJournal reopenedJournal = new MessageJournal(temporaryFolder.getRoot());
+
+        // assert
+        SortedMap<Long, Message> recoveredMessages = readPendingMessages(reopenedJournal);
+        assertEquals(2, recoveredMessages.size());
+        assertTrue(first < third);
+        assertEquals("id1", recoveredMessages.get(first).getMessageId());
+        assertEquals("correlation1", recoveredMessages.get(first).getCorrelationId());
+        assertEquals("1", recoveredMessages.get(first).getProperty("index"));
+        assertArrayEquals("body1".getBytes(), recoveredMessages.get(first).getBytes());
+        assertEquals("id3", recoveredMessages.get(third).getMessageId());
+        assertEquals(2, reopenedJournal.getPendingCount());
+
+        // new messages are appended after the recovered ones
+        assertTrue(reopenedJournal.append(createMessage(4)) > third);
+        reopenedJournal.close();
+    }
+
+    // Tests_SRS_MESSAGEJOURNAL_21_008: [The function shall do nothing if the sequence number is not pending.]
+    // Tests_SRS_MESSAGEJOURNAL_21_010: [The function shall return the number of messages not acknowledged.]
+    @Test
+    public void acknowledgeIgnoresUnknownSequence() throws IOException
+    {
+        // arrange
+        MessageJournal journal = new MessageJournal(temporaryFolder.getRoot());
+        long sequence = journal.append(createMessage(1));
+
+        // act
+        journal.acknowledge(sequence + 100);
+
+        // assert
+        assertEquals(1, journal.getPendingCount());
+        journal.close();
+    }
+
+    // Tests_SRS_MESSAGEJOURNAL_21_006: [The function shall throw IllegalArgumentException if the message is null.]
+    @Test (expected = IllegalArgumentException.class)
+    public void appendThrowsOnNullMessage() throws IOException
+    {
+        // arrange
+        MessageJournal journal = new MessageJournal(temporaryFolder.getRoot());
+
+        // act
+        journal.append(null);
+    }
+
+    // Tests_SRS_MESSAGEJOURNAL_21_013: [The functions shall throw IOException if the journal is closed.]
+    @Test (expected = IOException.class)
+    public void appendThrowsIfClosed() throws IOException
+    {
+        // arrange
+        MessageJournal journal = new MessageJournal(temporaryFolder.getRoot());
+        journal.close();
+
+        // act
+        journal.append(createMessage(1));
+    }
+
+    // Tests_SRS_MESSAGEJOURNAL_21_011: [The function shall force the written records to the disk, if there is any record not forced yet.]
+    // Tests_SRS_MESSAGEJOURNAL_21_014: [The journal shall force the written records to the disk after syncBatchSize records or syncIntervalMillis milliseconds.]
+    @Test
+    public void syncForcesRecordsInBatches() throws IOException
+    {
+        // arrange
+        MessageJournal journal = new MessageJournal(temporaryFolder.getRoot(), SMALL_SEGMENT_BYTES * 1024, 3, 60000);
+
+        // act - assert
+        journal.append(createMessage(1));
+        journal.append(createMessage(2));
+        assertEquals(2, (int) Deencapsulation.getField(journal, "unsyncedRecords"));
+        journal.append(createMessage(3));
+        assertEquals(0, (int) Deencapsulation.getField(journal, "unsyncedRecords"));
+        journal.append(createMessage(4));
+        journal.sync();
+        assertEquals(0, (int) Deencapsulation.getField(journal, "unsyncedRecords"));
+        journal.close();
+    }
+
+    // Tests_SRS_MESSAGEJOURNAL_21_015: [The journal shall start a new segment when the active segment reaches maxSegmentBytes, and compact the old segments.]
+    // Tests_SRS_MESSAGEJOURNAL_21_016: [The journal shall delete the oldest segments that have no pending messages.]
+    @Test
+    public void acknowledgedSegmentsAreDeleted() throws IOException
+    {
+        // arrange
+        MessageJournal journal = new MessageJournal(temporaryFolder.getRoot(), SMALL_SEGMENT_BYTES, 10, 60000);
+
+        // act
+        for (int i = 0; i < 100; i++)
+        {
+            journal.acknowledge(journal.append(createMessage(i)));
+        }
+
+        // assert
+        assertEquals(1, getSegmentFiles(temporaryFolder.getRoot()).size());
+        assertEquals(0, journal.getPendingCount());
+        journal.close();
+    }
+
+    // Tests_SRS_MESSAGEJOURNAL_21_017: [The journal shall copy the pending messages of a mostly acknowledged oldest segment to the active segment and delete it.]
+    @Test
+    public void sparseOldSegmentsAreCompacted() throws IOException
+    {
+        // arrange
+        MessageJournal journal = new MessageJournal(temporaryFolder.getRoot(), SMALL_SEGMENT_BYTES, 10, 60000);
+        long pendingSequence = journal.append(createMessage(0));
+
+        // act
+        for (int i = 1; i < 100; i++)
+        {
+            journal.acknowledge(journal.append(createMessage(i)));
+        }
+        journal.close();
+
+        // assert
+        assertTrue(getSegmentFiles(temporaryFolder.getRoot()).size() <= 2);
+        MessageJournal reopenedJournal = new MessageJournal(temporaryFolder.getRoot());
+        SortedMap<Long, Message> recoveredMessages = readPendingMessages(reopenedJournal);
+        assertEquals(1, recoveredMessages.size());
+        assertEquals("id0", recoveredMessages.get(pendingSequence).getMessageId());
+        reopenedJournal.close();
+    }
+
+    // Tests_SRS_MESSAGEJOURNAL_21_018: [The journal shall ignore and truncate a partially written record at the end of a segment.]
+    @Test
+    public void recoveryIgnoresPartiallyWrittenRecord() throws IOException
+    {
+        // arrange
+        MessageJournal journal = new MessageJournal(temporaryFolder.getRoot());
+        journal.append(createMessage(1));
+        journal.close();
+        File segmentFile = getSegmentFiles(temporaryFolder.getRoot()).get(0);
+        long validLength = segmentFile.length();
+        try (FileOutputStream output = new FileOutputStream(segmentFile, true))
+        {
+            output.write(new byte[] {0, 0, 1, 0, 1, 2, 3});
+        }
+
+        // act
+        MessageJournal reopenedJournal = new MessageJournal(temporaryFolder.getRoot());
+
+        // assert
+        assertEquals(1, readPendingMessages(reopenedJournal).size());
+        assertEquals(validLength, segmentFile.length());
+        reopenedJournal.close();
+    }
+
+    // Tests_SRS_MESSAGEJOURNAL_21_003: [The constructor shall read the existing segments and recover the messages that were not acknowledged.]
+    @Test
+    public void reopenRecoversMessagePriority() throws IOException
+    {
+        // arrange
+        MessageJournal journal = new MessageJournal(temporaryFolder.getRoot());
+        Message message = createMessage(1);
+        message.setPriority(MessagePriority.LOW);
+        long sequence = journal.append(message);
+        journal.close();
+
+        // act
+        MessageJournal reopenedJournal = new MessageJournal(temporaryFolder.getRoot());
+
+        // assert
+        assertEquals(MessagePriority.LOW, readPendingMessages(reopenedJournal).get(sequence).getPriority());
+        reopenedJournal.close();
+    }
+
+    // Tests_SRS_MESSAGEJOURNAL_21_004: [The constructor shall append the new records to the last segment, or to a new segment if there is no segment or the last one is full.]
+    @Test
+    public void reopenAppendsToLastSegment() throws IOException
+    {
+        // arrange
+        MessageJournal journal = new MessageJournal(temporaryFolder.getRoot());
+        long first = journal.append(createMessage(1));
+        journal.close();
+        File segmentFile = getSegmentFiles(temporaryFolder.getRoot()).get(0);
+
+        // act
+        MessageJournal reopenedJournal = new MessageJournal(temporaryFolder.getRoot());
+        long second = reopenedJournal.append(createMessage(2));
+        reopenedJournal.close();
+        MessageJournal thirdJournal = new MessageJournal(temporaryFolder.getRoot());
+
+        // assert
+        List<File> segmentFiles = getSegmentFiles(temporaryFolder.getRoot());
+        assertEquals(1, segmentFiles.size());
+        assertEquals(segmentFile, segmentFiles.get(0));
+        SortedMap<Long, Message> recoveredMessages = readPendingMessages(thirdJournal);
+        assertEquals(2, recoveredMessages.size());
+        assertEquals("id1", recoveredMessages.get(first).getMessageId());
+        assertEquals("id2", recoveredMessages.get(second).getMessageId());
+        thirdJournal.close();
+    }
+
+    // Tests_SRS_MESSAGEJOURNAL_21_005: [The function shall return the body length of the pending messages sorted by sequence number.]
+    @Test
+    public void getPendingBodyLengthsReturnsRecoveredBodyLengths() throws IOException
+    {
+        // arrange
+        MessageJournal journal = new MessageJournal(temporaryFolder.getRoot());
+        long first = journal.append(createMessage(1));
+        long second = journal.append(new Message(new byte[100]));
+        journal.close();
+
+        // act
+        MessageJournal reopenedJournal = new MessageJournal(temporaryFolder.getRoot());
+        SortedMap<Long, Long> bodyLengths = reopenedJournal.getPendingBodyLengths();
+
+        // assert
+        assertEquals(2, bodyLengths.size());
+        assertEquals(5L, (long) bodyLengths.get(first));
+        assertEquals(100L, (long) bodyLengths.get(second));
+        reopenedJournal.close();
+    }
+
+    // Tests_SRS_MESSAGEJOURNAL_21_019: [The function shall read the pending messages with the provided sequence numbers from their segments, and skip the sequence numbers that are not pending.]
+    @Test
+    public void readMessagesReadsOnlyRequestedPendingMessagesAcrossSegments() throws IOException
+    {
+        // arrange
+        MessageJournal journal = new MessageJournal(temporaryFolder.getRoot(), SMALL_SEGMENT_BYTES, 10, 60000);
+        List<Long> sequences = new ArrayList<>();
+        for (int i = 0; i < 30; i++)
+        {
+            sequences.add(journal.append(createMessage(i)));
+        }
+        journal.acknowledge(sequences.get(1));
+
+        // act
+        SortedMap<Long, Message> messages = journal.readMessages(Arrays.asList(sequences.get(29), sequences.get(0), sequences.get(1), 1000L));
+
+        // assert
+        assertTrue(getSegmentFiles(temporaryFolder.getRoot()).size() > 1);
+        assertEquals(2, messages.size());
+        assertEquals("id0", messages.get(sequences.get(0)).getMessageId());
+        assertEquals("id29", messages.get(sequences.get(29)).getMessageId());
+        assertArrayEquals("body29".getBytes(), messages.get(sequences.get(29)).getBytes());
+        journal.close();
+    }
+
+    // Tests_SRS_MESSAGEJOURNAL_21_013: [The functions shall throw IOException if the journal is closed.]
+    @Test (expected = IOException.class)
+    public void readMessagesThrowsIfClosed() throws IOException
+    {
+        // arrange
+        MessageJournal journal = new MessageJournal(temporaryFolder.getRoot());
+        long sequence = journal.append(createMessage(1));
+        journal.close();
+
+        // act
+        journal.readMessages(Collections.singletonList(sequence));
+    }
+}
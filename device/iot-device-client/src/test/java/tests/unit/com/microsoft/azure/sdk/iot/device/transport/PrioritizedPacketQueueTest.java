@@ -0,0 +1,156 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package tests.unit.com.microsoft.azure.sdk.iot.device.transport;
+
+import com.microsoft.azure.sdk.iot.device.Message;
+import com.microsoft.azure.sdk.iot.device.MessagePriority;
+import com.microsoft.azure.sdk.iot.device.MessageType;
+import com.microsoft.azure.sdk.iot.device.transport.IotHubTransportPacket;
+import com.microsoft.azure.sdk.iot.device.transport.PrioritizedPacketQueue;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/** Unit tests for PrioritizedPacketQueue. */
+public class PrioritizedPacketQueueTest
+{
+    private static IotHubTransportPacket createPacket(MessagePriority priority)
+    {
+        Message message = new Message("body");
+        message.setPriority(priority);
+        return new IotHubTransportPacket(message, null, null, null, System.currentTimeMillis());
+    }
+
+    // Tests_SRS_PRIORITIZEDPACKETQUEUE_21_001: [The constructor shall throw IllegalArgumentException if any of the weights is zero or negative.]
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnZeroWeight()
+    {
+        // act
+        new PrioritizedPacketQueue(1, 0, 1);
+    }
+
+    // Tests_SRS_PRIORITIZEDPACKETQUEUE_21_002: [The function shall return the priority of the packet message, or NORMAL if the packet has no message or the message has no priority.]
+    // Tests_SRS_PRIORITIZEDPACKETQUEUE_21_004: [The function shall add the packet to the tail of the lane of its priority.]
+    // Tests_SRS_PRIORITIZEDPACKETQUEUE_21_010: [The function shall return the number of packets in all lanes.]
+    // Tests_SRS_PRIORITIZEDPACKETQUEUE_21_011: [The function shall return the number of packets in the lane of the provided priority.]
+    @Test
+    public void offerAddsPacketToLaneOfItsPriority()
+    {
+        // arrange
+        PrioritizedPacketQueue queue = new PrioritizedPacketQueue();
+        Message twinMessage = new Message("body");
+        twinMessage.setMessageType(MessageType.DEVICE_TWIN);
+
+        // act
+        queue.offer(createPacket(MessagePriority.LOW));
+        queue.offer(new IotHubTransportPacket(twinMessage, null, null, null, System.currentTimeMillis()));
+        queue.offer(new IotHubTransportPacket(new Message("body"), null, null, null, System.currentTimeMillis()));
+
+        // assert
+        assertEquals(3, queue.size());
+        assertEquals(1, queue.size(MessagePriority.LOW));
+        assertEquals(1, queue.size(MessagePriority.NORMAL));
+        assertEquals(1, queue.size(MessagePriority.HIGH));
+    }
+
+    // Tests_SRS_PRIORITIZEDPACKETQUEUE_21_003: [The function shall throw NullPointerException if the packet is null.]
+    @Test (expected = NullPointerException.class)
+    public void offerThrowsOnNullPacket()
+    {
+        // act
+        new PrioritizedPacketQueue().offer(null);
+    }
+
+    // Tests_SRS_PRIORITIZEDPACKETQUEUE_21_005: [The function shall return the head of the highest priority lane that did not use its weight in the current round.]
+    // Tests_SRS_PRIORITIZEDPACKETQUEUE_21_006: [If none of the lanes with packets has weight left in the current round, the function shall start a new round.]
+    @Test
+    public void pollDrainsLanesByWeight()
+    {
+        // arrange
+        PrioritizedPacketQueue queue = new PrioritizedPacketQueue(1, 2, 3);
+        for (int i = 0; i < 10; i++)
+        {
+            queue.offer(createPacket(MessagePriority.LOW));
+            queue.offer(createPacket(MessagePriority.NORMAL));
+            queue.offer(createPacket(MessagePriority.HIGH));
+        }
+
+        // act
+        List<MessagePriority> order = new ArrayList<>();
+        for (int i = 0; i < 12; i++)
+        {
+            order.add(PrioritizedPacketQueue.getPriority(queue.poll()));
+        }
+
+        // assert
+        List<MessagePriority> expectedRound = new ArrayList<>();
+        expectedRound.add(MessagePriority.HIGH);
+        expectedRound.add(MessagePriority.HIGH);
+        expectedRound.add(MessagePriority.HIGH);
+        expectedRound.add(MessagePriority.NORMAL);
+        expectedRound.add(MessagePriority.NORMAL);
+        expectedRound.add(MessagePriority.LOW);
+        assertEquals(expectedRound, order.subList(0, 6));
+        assertEquals(expectedRound, order.subList(6, 12));
+    }
+
+    // Tests_SRS_PRIORITIZEDPACKETQUEUE_21_005: [The function shall return the head of the highest priority lane that did not use its weight in the current round.]
+    @Test
+    public void pollGivesUnusedWeightToOtherLanesInFifoOrder()
+    {
+        // arrange
+        PrioritizedPacketQueue queue = new PrioritizedPacketQueue();
+        List<IotHubTransportPacket> packets = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+        {
+            IotHubTransportPacket packet = createPacket(MessagePriority.LOW);
+            packets.add(packet);
+            queue.offer(packet);
+        }
+
+        // act - assert
+        for (IotHubTransportPacket packet : packets)
+        {
+            assertSame(packet, queue.poll());
+        }
+
+        // Tests_SRS_PRIORITIZEDPACKETQUEUE_21_007: [The function shall return null if all lanes are empty.]
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    // Tests_SRS_PRIORITIZEDPACKETQUEUE_21_008: [The function shall return the head of the highest priority lane that is not empty, or null if all lanes are empty.]
+    // Tests_SRS_PRIORITIZEDPACKETQUEUE_21_009: [The function shall remove the packet from its lane, and return true if it was in the queue.]
+    // Tests_SRS_PRIORITIZEDPACKETQUEUE_21_012: [The iterator shall go through the lanes from the highest to the lowest priority, in FIFO order in each lane.]
+    @Test
+    public void peekRemoveAndIteratorCoverAllLanes()
+    {
+        // arrange
+        PrioritizedPacketQueue queue = new PrioritizedPacketQueue();
+        IotHubTransportPacket lowPacket = createPacket(MessagePriority.LOW);
+        IotHubTransportPacket normalPacket = createPacket(MessagePriority.NORMAL);
+        IotHubTransportPacket highPacket = createPacket(MessagePriority.HIGH);
+        queue.offer(lowPacket);
+        queue.offer(normalPacket);
+        queue.offer(highPacket);
+
+        // act - assert
+        assertSame(highPacket, queue.peek());
+        Iterator<IotHubTransportPacket> iterator = queue.iterator();
+        assertSame(highPacket, iterator.next());
+        assertSame(normalPacket, iterator.next());
+        iterator.remove();
+        assertSame(lowPacket, iterator.next());
+        assertFalse(iterator.hasNext());
+        assertFalse(queue.contains(normalPacket));
+
+        assertTrue(queue.remove(lowPacket));
+        assertFalse(queue.remove(lowPacket));
+        assertEquals(1, queue.size());
+    }
+}
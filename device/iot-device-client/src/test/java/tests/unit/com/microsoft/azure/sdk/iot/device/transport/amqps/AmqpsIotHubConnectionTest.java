@@ -1268,6 +1268,7 @@ public class AmqpsIotHubConnectionTest {
 
     // Tests_SRS_AMQPSIOTHUBCONNECTION_15_030: [The event handler shall get the Transport (Proton) object from the event.]
     // Tests_SRS_AMQPSIOTHUBCONNECTION_25_049: [If websocket enabled the event handler shall configure the transport layer for websocket.]
+    // Tests_SRS_AMQPSIOTHUBCONNECTION_21_052: [The WebSocket layer shall use the maximum frame size of the config.]
     @Test
     public void onConnectionBoundWebSockets() throws TransportException, IOException
     {
@@ -1286,7 +1287,9 @@ public class AmqpsIotHubConnectionTest {
                 result = mockConnection;
                 mockConnection.getTransport();
                 result = mockTransportInternal;
-                new WebSocketImpl();
+                mockConfig.getWebSocketMaxFrameSize();
+                result = 64 * 1024;
+                new WebSocketImpl(64 * 1024);
                 result = mockWebSocket;
                 mockWebSocket.configure(anyString, anyString, anyInt, anyString, (Map<String, String>) any, (WebSocketHandler) any);
                 mockTransportInternal.addTransportLayer(mockWebSocket);
@@ -1302,6 +1305,8 @@ public class AmqpsIotHubConnectionTest {
         new Verifications()
         {
             {
+                new WebSocketImpl(64 * 1024);
+                times = 1;
                 Deencapsulation.invoke(mockAmqpsSessionManager, "onConnectionBound", mockTransportInternal);
                 times = 1;
             }
@@ -16,6 +16,7 @@ import org.junit.Test;
 
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
@@ -359,6 +360,52 @@ public class HttpsConnectionTest
         };
     }
 
+    //Tests_SRS_HTTPSCONNECTION_21_033: [The function shall set the socket factory of the connection with the given value.]
+    @Test
+    public void setSSLSocketFactorySetsSocketFactory(@Mocked final SSLSocketFactory mockedSocketFactory) throws IOException, TransportException
+    {
+        final HttpsMethod httpsMethod = HttpsMethod.POST;
+        new NonStrictExpectations()
+        {
+            {
+                mockUrl.getProtocol();
+                result = "https";
+                mockUrl.openConnection();
+                result = mockUrlConn;
+            }
+        };
+        final HttpsConnection conn = new HttpsConnection(mockUrl, httpsMethod);
+
+        Deencapsulation.invoke(conn, "setSSLSocketFactory", mockedSocketFactory);
+
+        new Verifications()
+        {
+            {
+                mockUrlConn.setSSLSocketFactory(mockedSocketFactory);
+                times = 1;
+            }
+        };
+    }
+
+    //Tests_SRS_HTTPSCONNECTION_21_032: [The function shall throw IllegalArgumentException if the socket factory is null.]
+    @Test (expected = IllegalArgumentException.class)
+    public void setSSLSocketFactoryThrowsOnNull() throws IOException, TransportException
+    {
+        final HttpsMethod httpsMethod = HttpsMethod.POST;
+        new NonStrictExpectations()
+        {
+            {
+                mockUrl.getProtocol();
+                result = "https";
+                mockUrl.openConnection();
+                result = mockUrlConn;
+            }
+        };
+        final HttpsConnection conn = new HttpsConnection(mockUrl, httpsMethod);
+
+        Deencapsulation.invoke(conn, "setSSLSocketFactory", SSLSocketFactory.class);
+    }
+
     //Tests_SRS_HTTPSCONNECTION_34_026: [If this object uses HTTP, this function shall throw an UnsupportedOperationException.]
     @Test (expected = UnsupportedOperationException.class)
     public void setSSLContextThrowsIfHttp(@Mocked final SSLContext mockedContext) throws IOException, TransportException
@@ -5,7 +5,9 @@ package tests.unit.com.microsoft.azure.sdk.iot.device.transport.https;
 
 import com.microsoft.azure.sdk.iot.device.*;
 import com.microsoft.azure.sdk.iot.device.exceptions.IotHubServiceException;
+import com.microsoft.azure.sdk.iot.device.exceptions.IotHubSizeExceededException;
 import com.microsoft.azure.sdk.iot.device.exceptions.ProtocolException;
+import com.microsoft.azure.sdk.iot.device.exceptions.RequestEntityTooLargeException;
 import com.microsoft.azure.sdk.iot.device.exceptions.TransportException;
 import com.microsoft.azure.sdk.iot.device.net.*;
 import com.microsoft.azure.sdk.iot.device.transport.IotHubListener;
@@ -15,12 +17,14 @@ import mockit.Deencapsulation;
 import mockit.Mocked;
 import mockit.NonStrictExpectations;
 import mockit.Verifications;
+import mockit.VerificationsInOrder;
 import org.junit.Before;
 import org.junit.Test;
 
 import javax.net.ssl.SSLContext;
 import java.io.IOException;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -217,7 +221,7 @@ public class HttpsIotHubConnectionTest
         };
     }
 
-    //Tests_SRS_HTTPSIOTHUBCONNECTION_25_040: [The function shall set the IotHub SSL context by calling setSSLContext on the request.]
+    //Tests_SRS_HTTPSIOTHUBCONNECTION_25_040: [The function shall set the IotHub SSL context on the request through its socket factory.]
     @Test
     public void sendEventSetsIotHubSSLContext(@Mocked final IotHubEventUri mockUri,
                                               @Mocked final SSLContext mockContext) throws IOException, TransportException
@@ -239,12 +243,43 @@ public class HttpsIotHubConnectionTest
         new Verifications()
         {
             {
-                mockRequest.setSSLContext(mockContext);
+                mockRequest.setSSLSocketFactory(mockContext.getSocketFactory());
                 times = 1;
             }
         };
     }
 
+    //Tests_SRS_HTTPSIOTHUBCONNECTION_21_075: [The function shall reuse the same socket factory for all requests while the SSL context does not change, so the TLS connections can be kept alive.]
+    @Test
+    public void sendEventReusesSocketFactoryForSameSSLContext(@Mocked final IotHubEventUri mockUri,
+                                                              @Mocked final SSLContext mockContext) throws IOException, TransportException
+    {
+        new NonStrictExpectations()
+        {
+            {
+                mockConfig.getAuthenticationType();
+                result = DeviceClientConfig.AuthType.SAS_TOKEN;
+                mockConfig.getAuthenticationProvider().getSSLContext();
+                result = mockContext;
+            }
+        };
+
+        HttpsIotHubConnection conn = new HttpsIotHubConnection(mockConfig);
+        conn.setListener(mockedListener);
+        conn.sendMessage(mockedMessage);
+        conn.sendMessage(mockedMessage);
+
+        new Verifications()
+        {
+            {
+                mockContext.getSocketFactory();
+                times = 1;
+                mockRequest.setSSLSocketFactory(mockContext.getSocketFactory());
+                times = 2;
+            }
+        };
+    }
+
     // Tests_SRS_HTTPSIOTHUBCONNECTION_11_007: [The function shall set the header field 'authorization' to be a valid SAS token generated from the configuration parameters.]
     @Test
     public void sendEventSetsAuthToSasToken(@Mocked final IotHubEventUri mockUri) throws IOException, TransportException
@@ -579,7 +614,44 @@ public class HttpsIotHubConnectionTest
         };
     }
 
-    //Tests_SRS_HTTPSIOTHUBCONNECTION_21_046: [The function shall set the IotHub SSL context by calling setSSLContext on the request.]
+    // Tests_SRS_HTTPSIOTHUBCONNECTION_21_082: [The function shall save the read timeout to use in the next requests instead of the configuration parameter readTimeoutMillis, if it is not 0.]
+    @Test
+    public void sendHttpsMessageUsesReadTimeoutOverride(@Mocked final IotHubUri mockUri) throws IOException, TransportException
+    {
+        final String uriPath = "/files";
+        final HttpsMethod httpsMethod = HttpsMethod.POST;
+        new NonStrictExpectations()
+        {
+            {
+                mockConfig.getReadTimeoutMillis();
+                result = 10;
+            }
+        };
+
+        HttpsIotHubConnection conn = new HttpsIotHubConnection(mockConfig);
+        conn.setReadTimeoutMillis(5000);
+        conn.sendHttpsMessage(mockMsg, httpsMethod, uriPath, new HashMap<String, String>());
+        conn.setReadTimeoutMillis(0);
+        conn.sendHttpsMessage(mockMsg, httpsMethod, uriPath, new HashMap<String, String>());
+
+        new VerificationsInOrder()
+        {
+            {
+                mockRequest.setReadTimeoutMillis(5000);
+                mockRequest.setReadTimeoutMillis(10);
+            }
+        };
+    }
+
+    // Tests_SRS_HTTPSIOTHUBCONNECTION_21_081: [If the read timeout is negative, the function shall throw an IllegalArgumentException.]
+    @Test (expected = IllegalArgumentException.class)
+    public void setReadTimeoutMillisThrowsOnNegativeTimeout()
+    {
+        HttpsIotHubConnection conn = new HttpsIotHubConnection(mockConfig);
+        conn.setReadTimeoutMillis(-1);
+    }
+
+    //Tests_SRS_HTTPSIOTHUBCONNECTION_21_046: [The function shall set the IotHub SSL context on the request through its socket factory.]
     @Test
     public void sendHttpsMessageSetsIotHubSSLContext(@Mocked final IotHubUri mockUri,
                                               @Mocked final SSLContext mockContext) throws IOException, TransportException
@@ -602,7 +674,7 @@ public class HttpsIotHubConnectionTest
         new Verifications()
         {
             {
-                mockRequest.setSSLContext(mockContext);
+                mockRequest.setSSLSocketFactory(mockContext.getSocketFactory());
                 times = 1;
             }
         };
@@ -948,7 +1020,7 @@ public class HttpsIotHubConnectionTest
         };
     }
 
-    //Tests_SRS_HTTPSIOTHUBCONNECTION_25_041: [The function shall set the IotHub SSL context by calling setSSLContext on the request.]
+    //Tests_SRS_HTTPSIOTHUBCONNECTION_25_041: [The function shall set the IotHub SSL context on the request through its socket factory.]
     @Test
     public void receiveMessageSetsIotHubSSLContext(@Mocked final IotHubMessageUri mockUri,
                                                    @Mocked final SSLContext mockContext) throws IOException, TransportException
@@ -969,7 +1041,7 @@ public class HttpsIotHubConnectionTest
         new Verifications()
         {
             {
-                mockRequest.setSSLContext(mockContext);
+                mockRequest.setSSLSocketFactory(mockContext.getSocketFactory());
                 times = 1;
             }
         };
@@ -1057,6 +1129,55 @@ public class HttpsIotHubConnectionTest
         assertThat(testMsg, is(expectedMsg));
     }
 
+    // Tests_SRS_HTTPSIOTHUBCONNECTION_21_076: [The function shall save the wait time requested by the IoT Hub in the 'retry-after' response header, or zero if there is no valid header.]
+    // Tests_SRS_HTTPSIOTHUBCONNECTION_21_077: [The function shall return the wait time saved by the last receive.]
+    @Test
+    public void receiveMessageSavesRetryAfter(@Mocked final IotHubMessageUri mockUri, final @Mocked IotHubStatusCode mockStatusCode) throws TransportException
+    {
+        final Map<String, String> headerFields = new HashMap<>();
+        headerFields.put("retry-after", "30");
+        new NonStrictExpectations()
+        {
+            {
+                mockResponse.getStatus();
+                result = 429;
+                IotHubStatusCode.getIotHubStatusCode(429);
+                result = IotHubStatusCode.THROTTLED;
+                mockResponse.getHeaderFields();
+                result = headerFields;
+            }
+        };
+
+        HttpsIotHubConnection conn = new HttpsIotHubConnection(mockConfig);
+        conn.receiveMessage();
+
+        assertEquals(30000L, conn.getReceiveRetryAfterMillis());
+    }
+
+    // Tests_SRS_HTTPSIOTHUBCONNECTION_21_076: [The function shall save the wait time requested by the IoT Hub in the 'retry-after' response header, or zero if there is no valid header.]
+    @Test
+    public void receiveMessageIgnoresInvalidRetryAfter(@Mocked final IotHubMessageUri mockUri, final @Mocked IotHubStatusCode mockStatusCode) throws TransportException
+    {
+        final Map<String, String> headerFields = new HashMap<>();
+        headerFields.put("retry-after", "Wed, 21 Oct 2015 07:28:00 GMT");
+        new NonStrictExpectations()
+        {
+            {
+                mockResponse.getStatus();
+                result = 204;
+                IotHubStatusCode.getIotHubStatusCode(204);
+                result = IotHubStatusCode.OK_EMPTY;
+                mockResponse.getHeaderFields();
+                result = headerFields;
+            }
+        };
+
+        HttpsIotHubConnection conn = new HttpsIotHubConnection(mockConfig);
+        conn.receiveMessage();
+
+        assertEquals(0L, conn.getReceiveRetryAfterMillis());
+    }
+
     // Tests_SRS_HTTPSIOTHUBCONNECTION_11_023: [If the IoT Hub could not be reached, the function shall throw a TransportException.]
     @Test(expected = TransportException.class)
     public void receiveMessageThrowsProtocolConnectionExceptionIfRequestFails(@Mocked final IotHubMessageUri mockUri) throws TransportException
@@ -1571,7 +1692,7 @@ public class HttpsIotHubConnectionTest
         };
     }
 
-    //Tests_SRS_HTTPSIOTHUBCONNECTION_25_042: [The function shall set the IotHub SSL context by calling setSSLContext on the request.]
+    //Tests_SRS_HTTPSIOTHUBCONNECTION_25_042: [The function shall set the IotHub SSL context on the request through its socket factory.]
     @Test
     public void sendMessageResultSetsIotHubSSLContext(@Mocked final IotHubRejectUri mockUri,
                                                       @Mocked final SSLContext mockedContext, final @Mocked IotHubStatusCode mockStatusCode) throws IOException, TransportException
@@ -1607,7 +1728,7 @@ public class HttpsIotHubConnectionTest
         new Verifications()
         {
             {
-                mockRequest.setSSLContext(mockedContext);
+                mockRequest.setSSLSocketFactory(mockedContext.getSocketFactory());
                 times = 1;
             }
         };
@@ -1997,4 +2118,64 @@ public class HttpsIotHubConnectionTest
         connection.open(null);
         connection.close(false);
     }
-}
\ No newline at end of file
+
+    // Tests_SRS_HTTPSIOTHUBCONNECTION_21_078: [If the message is a batch, the function shall send all its messages in a single request with the batch body and content type.]
+    @Test
+    public void sendBatchMessageSendsSingleBatchRequest(@Mocked final IotHubEventUri mockUri,
+                                                       @Mocked final HttpsBatchMessage mockBatch) throws TransportException, IotHubSizeExceededException
+    {
+        //arrange
+        final String batchContentType = "application/vnd.microsoft.iothub.json";
+        final BatchMessage batchMessage = new BatchMessage(Arrays.asList(mockedMessage, mockedMessage));
+        new NonStrictExpectations()
+        {
+            {
+                new IotHubEventUri((String)any, (String)any, null);
+                result = mockUri;
+                new HttpsRequest((URL)any, HttpsMethod.POST, (byte[]) any, anyString);
+                result = mockRequest;
+                mockBatch.getContentType();
+                result = batchContentType;
+                mockConfig.getAuthenticationType();
+                result = DeviceClientConfig.AuthType.SAS_TOKEN;
+            }
+        };
+        HttpsIotHubConnection conn = new HttpsIotHubConnection(mockConfig);
+        conn.setListener(mockedListener);
+
+        //act
+        conn.sendMessage(batchMessage);
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockBatch.addMessage((HttpsSingleMessage) any);
+                times = 2;
+                new HttpsRequest((URL)any, HttpsMethod.POST, (byte[]) any, anyString);
+                times = 1;
+                mockRequest.setHeaderField(withMatch("(?i)content-type"), batchContentType);
+            }
+        };
+    }
+
+    // Tests_SRS_HTTPSIOTHUBCONNECTION_21_079: [If the batch exceeds the maximum size of a request, the function shall throw the IotHubServiceException for REQUEST_ENTITY_TOO_LARGE.]
+    @Test (expected = RequestEntityTooLargeException.class)
+    public void sendBatchMessageThrowsIfBatchIsTooLarge(@Mocked final HttpsBatchMessage mockBatch) throws TransportException, IotHubSizeExceededException
+    {
+        //arrange
+        final BatchMessage batchMessage = new BatchMessage(Arrays.asList(mockedMessage));
+        new NonStrictExpectations()
+        {
+            {
+                mockBatch.addMessage((HttpsSingleMessage) any);
+                result = new IotHubSizeExceededException();
+            }
+        };
+        HttpsIotHubConnection conn = new HttpsIotHubConnection(mockConfig);
+        conn.setListener(mockedListener);
+
+        //act
+        conn.sendMessage(batchMessage);
+    }
+}
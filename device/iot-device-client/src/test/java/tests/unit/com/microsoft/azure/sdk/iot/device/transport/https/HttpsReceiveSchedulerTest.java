@@ -0,0 +1,122 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package tests.unit.com.microsoft.azure.sdk.iot.device.transport.https;
+
+import com.microsoft.azure.sdk.iot.device.transport.https.HttpsReceiveScheduler;
+import mockit.Deencapsulation;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Unit tests for HttpsReceiveScheduler. */
+public class HttpsReceiveSchedulerTest
+{
+    private static final long MAX_PERIOD_MILLIS = 25 * 60 * 1000;
+
+    // Tests_SRS_HTTPSRECEIVESCHEDULER_21_001: [The constructor shall throw IllegalArgumentException if the provided maxPeriodMillis is zero or negative.]
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnZeroMaxPeriod()
+    {
+        // act
+        new HttpsReceiveScheduler(0);
+    }
+
+    // Tests_SRS_HTTPSRECEIVESCHEDULER_21_002: [The constructor shall schedule the first poll to run immediately.]
+    // Tests_SRS_HTTPSRECEIVESCHEDULER_21_004: [The isPollDue shall return true if the current time reached the scheduled time of the next poll.]
+    @Test
+    public void constructorSchedulesFirstPollImmediately()
+    {
+        // act
+        HttpsReceiveScheduler scheduler = new HttpsReceiveScheduler(MAX_PERIOD_MILLIS);
+
+        // assert
+        assertTrue(scheduler.isPollDue());
+        assertEquals(0, scheduler.getDelayToNextPollMillis());
+    }
+
+    // Tests_SRS_HTTPSRECEIVESCHEDULER_21_005: [If the last poll returned a message, the onPollCompleted shall schedule the next poll to run immediately and restart the idle backoff.]
+    @Test
+    public void onPollCompletedWithMessagePollsBackToBack()
+    {
+        // arrange
+        HttpsReceiveScheduler scheduler = new HttpsReceiveScheduler(MAX_PERIOD_MILLIS);
+        scheduler.onPollCompleted(false, 0);
+        scheduler.onPollCompleted(false, 0);
+
+        // act
+        scheduler.onPollCompleted(true, 0);
+
+        // assert
+        assertTrue(scheduler.isPollDue());
+        assertEquals(1000L, (long) Deencapsulation.getField(scheduler, "idlePeriodMillis"));
+    }
+
+    // Tests_SRS_HTTPSRECEIVESCHEDULER_21_006: [If the last poll did not return a message, the onPollCompleted shall schedule the next poll after the idle period, and multiply the idle period up to the maximum period.]
+    @Test
+    public void onPollCompletedWithoutMessageBacksOffUpToMaxPeriod()
+    {
+        // arrange
+        HttpsReceiveScheduler scheduler = new HttpsReceiveScheduler(3000);
+
+        // act - assert
+        scheduler.onPollCompleted(false, 0);
+        assertFalse(scheduler.isPollDue());
+        assertTrue(scheduler.getDelayToNextPollMillis() <= 1000);
+        assertEquals(2000L, (long) Deencapsulation.getField(scheduler, "idlePeriodMillis"));
+
+        scheduler.onPollCompleted(false, 0);
+        assertEquals(3000L, (long) Deencapsulation.getField(scheduler, "idlePeriodMillis"));
+
+        scheduler.onPollCompleted(false, 0);
+        assertEquals(3000L, (long) Deencapsulation.getField(scheduler, "idlePeriodMillis"));
+        assertTrue(scheduler.getDelayToNextPollMillis() > 2000);
+    }
+
+    // Tests_SRS_HTTPSRECEIVESCHEDULER_21_007: [If the service provided a wait hint, the onPollCompleted shall not schedule the next poll before it.]
+    @Test
+    public void onPollCompletedHonorsServerWaitHint()
+    {
+        // arrange
+        HttpsReceiveScheduler scheduler = new HttpsReceiveScheduler(MAX_PERIOD_MILLIS);
+
+        // act
+        scheduler.onPollCompleted(true, 60000);
+
+        // assert
+        assertFalse(scheduler.isPollDue());
+        assertTrue(scheduler.getDelayToNextPollMillis() > 50000);
+    }
+
+    // Tests_SRS_HTTPSRECEIVESCHEDULER_21_003: [The setMaxPeriodMillis shall store the new maximum period and restart the idle backoff.]
+    // Tests_SRS_HTTPSRECEIVESCHEDULER_21_008: [The getDelayToNextPollMillis shall return the number of milliseconds until the next poll, or zero if it is due.]
+    @Test
+    public void setMaxPeriodMillisShortensPendingDelay()
+    {
+        // arrange
+        HttpsReceiveScheduler scheduler = new HttpsReceiveScheduler(MAX_PERIOD_MILLIS);
+        scheduler.onPollCompleted(false, 0);
+        scheduler.onPollCompleted(false, 0);
+
+        // act
+        scheduler.setMaxPeriodMillis(100);
+
+        // assert
+        assertEquals(100L, (long) Deencapsulation.getField(scheduler, "maxPeriodMillis"));
+        assertEquals(100L, (long) Deencapsulation.getField(scheduler, "idlePeriodMillis"));
+        assertTrue(scheduler.getDelayToNextPollMillis() <= 100);
+    }
+
+    // Tests_SRS_HTTPSRECEIVESCHEDULER_21_001: [The constructor shall throw IllegalArgumentException if the provided maxPeriodMillis is zero or negative.]
+    @Test (expected = IllegalArgumentException.class)
+    public void setMaxPeriodMillisThrowsOnNegativePeriod()
+    {
+        // arrange
+        HttpsReceiveScheduler scheduler = new HttpsReceiveScheduler(MAX_PERIOD_MILLIS);
+
+        // act
+        scheduler.setMaxPeriodMillis(-1);
+    }
+}
@@ -14,6 +14,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -374,6 +375,65 @@ public class HttpsRequestTest
         assertThat(testStatus, is(expectedStatus));
     }
 
+    // Tests_SRS_HTTPSREQUEST_21_023: [If the response status is not 200, the function shall read the error stream, so the connection can be kept alive and reused.]
+    @Test
+    public void sendReadsErrorReasonIfStatusIsNot200(@Mocked final HttpsConnection mockConn, final @Mocked URL mockUrl) throws TransportException
+    {
+        final HttpsMethod httpsMethod = HttpsMethod.GET;
+        final byte[] body = new byte[0];
+        final byte[] errorReason = { 1, 2, 3 };
+        new NonStrictExpectations()
+        {
+            {
+                mockUrl.getProtocol();
+                result = "https";
+                mockConn.getResponseStatus();
+                result = 404;
+                mockConn.readError();
+                result = errorReason;
+            }
+        };
+
+        HttpsRequest request =
+                new HttpsRequest(mockUrl, httpsMethod, body, "");
+        HttpsResponse response = request.send();
+
+        assertThat(response.getErrorReason(), is(errorReason));
+        new Verifications()
+        {
+            {
+                mockConn.readInput();
+                times = 0;
+            }
+        };
+    }
+
+    // Tests_SRS_HTTPSREQUEST_21_023: [If the response status is not 200, the function shall read the error stream, so the connection can be kept alive and reused.]
+    @Test
+    public void sendReturnsStatusIfErrorReasonCannotBeRead(@Mocked final HttpsConnection mockConn, final @Mocked URL mockUrl) throws TransportException
+    {
+        final HttpsMethod httpsMethod = HttpsMethod.GET;
+        final byte[] body = new byte[0];
+        new NonStrictExpectations()
+        {
+            {
+                mockUrl.getProtocol();
+                result = "https";
+                mockConn.getResponseStatus();
+                result = 500;
+                mockConn.readError();
+                result = new TransportException("error stream not accessible");
+            }
+        };
+
+        HttpsRequest request =
+                new HttpsRequest(mockUrl, httpsMethod, body, "");
+        HttpsResponse response = request.send();
+
+        assertThat(response.getStatus(), is(500));
+        assertEquals(0, response.getErrorReason().length);
+    }
+
     // Tests_SRS_HTTPSREQUEST_11_009: [The function shall return the HTTPS response received, including the status code, body (if 200 status code), header fields, and error reason (if any).]
     @Test
     public void sendReturnsBody(@Mocked final HttpsConnection mockConn, final @Mocked URL mockUrl) throws TransportException
@@ -529,6 +589,60 @@ public class HttpsRequestTest
         };
     }
 
+    //Tests_SRS_HTTPSREQUEST_21_022: [If a socket factory was provided, the function shall use it in the connection instead of the SSL context.]
+    @Test
+    public void setSSLSocketFactoryTakesPrecedenceOverSSLContext(@Mocked final HttpsConnection mockConn,
+                                                                 @Mocked final SSLContext mockedContext,
+                                                                 @Mocked final SSLSocketFactory mockedSocketFactory,
+                                                                 final @Mocked URL mockUrl) throws TransportException
+    {
+        final HttpsMethod httpsMethod = HttpsMethod.POST;
+        final byte[] body = new byte[0];
+        new NonStrictExpectations()
+        {
+            {
+                mockUrl.getProtocol();
+                result = "https";
+            }
+        };
+
+        HttpsRequest request =
+                new HttpsRequest(mockUrl, httpsMethod, body, "");
+        request.setSSLContext(mockedContext);
+        request.setSSLSocketFactory(mockedSocketFactory);
+
+        request.send();
+
+        new Verifications()
+        {
+            {
+                Deencapsulation.invoke(mockConn, "setSSLSocketFactory", mockedSocketFactory);
+                times = 1;
+                Deencapsulation.invoke(mockConn, "setSSLContext", mockedContext);
+                times = 0;
+            }
+        };
+    }
+
+    //Tests_SRS_HTTPSREQUEST_21_021: [The function shall throw IllegalArgumentException if argument is null.]
+    @Test (expected = IllegalArgumentException.class)
+    public void setSSLSocketFactoryThrowsOnNull(@Mocked final HttpsConnection mockConn, final @Mocked URL mockUrl) throws TransportException
+    {
+        final HttpsMethod httpsMethod = HttpsMethod.POST;
+        final byte[] body = new byte[0];
+        new NonStrictExpectations()
+        {
+            {
+                mockUrl.getProtocol();
+                result = "https";
+            }
+        };
+
+        HttpsRequest request =
+                new HttpsRequest(mockUrl, httpsMethod, body, "");
+        request.setSSLSocketFactory(null);
+    }
+
     //Tests_SRS_HTTPSREQUEST_25_015: [The function shall throw IllegalArgumentException if argument is null.]
     @Test (expected = IllegalArgumentException.class)
     public void setSSLContextThrowsOnNull(@Mocked final HttpsConnection mockConn, final @Mocked URL mockUrl) throws TransportException
@@ -140,6 +140,41 @@ public class HttpsTransportManagerTest
     }
 
 
+    /* Tests_SRS_HTTPSTRANSPORTMANAGER_21_031: [The setReadTimeoutMillis shall store the read timeout, and set it in the open transport connection and in the ones created by the next open.] */
+    @Test
+    public void setReadTimeoutMillisSetsItInOpenAndNextConnections()
+    {
+        // arrange
+        final HttpsIotHubConnection httpsIotHubConnection = mockConn;
+        HttpsTransportManager httpsTransportManager = Deencapsulation.newInstance(HttpsTransportManager.class, new Class[] {DeviceClientConfig.class}, mockConfig);
+        httpsTransportManager.open();
+
+        // act
+        httpsTransportManager.setReadTimeoutMillis(5000);
+        httpsTransportManager.close();
+        httpsTransportManager.open();
+
+        // assert
+        new Verifications()
+        {
+            {
+                httpsIotHubConnection.setReadTimeoutMillis(5000);
+                times = 2;
+            }
+        };
+    }
+
+    /* Tests_SRS_HTTPSTRANSPORTMANAGER_21_030: [If the read timeout is negative, the setReadTimeoutMillis shall throw IllegalArgumentException.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void setReadTimeoutMillisThrowsOnNegativeTimeout()
+    {
+        // arrange
+        HttpsTransportManager httpsTransportManager = Deencapsulation.newInstance(HttpsTransportManager.class, new Class[] {DeviceClientConfig.class}, mockConfig);
+
+        // act
+        httpsTransportManager.setReadTimeoutMillis(-1);
+    }
+
     /* Tests_SRS_HTTPSTRANSPORTMANAGER_21_007: [The send shall create a new instance of the `HttpMessage`, by parsing the Message with `parseHttpsJsonMessage` from `HttpsSingleMessage`.] */
     @Test
     public void sendCreateHttpMessageSucceed() throws IOException, TransportException
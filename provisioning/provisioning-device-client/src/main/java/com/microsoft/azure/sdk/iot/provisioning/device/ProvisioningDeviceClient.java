@@ -23,6 +23,8 @@ public class ProvisioningDeviceClient
     private ProvisioningDeviceClientConfig provisioningDeviceClientConfig;
     private ProvisioningDeviceClientContract provisioningDeviceClientContract;
     private ExecutorService executor;
+    private ProvisioningEngine provisioningEngine;
+    private ProvisioningTask provisioningTask;
 
     /**
      * Creates an instance of ProvisioningDeviceClient
@@ -35,10 +37,34 @@ public class ProvisioningDeviceClient
      */
     public static ProvisioningDeviceClient create(String globalEndpoint, String idScope, ProvisioningDeviceClientTransportProtocol protocol, SecurityProvider securityProvider) throws ProvisioningDeviceClientException
     {
-        return new ProvisioningDeviceClient(globalEndpoint, idScope, protocol, securityProvider);
+        return new ProvisioningDeviceClient(globalEndpoint, idScope, protocol, securityProvider, null);
     }
 
-    private ProvisioningDeviceClient(String globalEndpoint, String idScope, ProvisioningDeviceClientTransportProtocol protocol, SecurityProvider securityProvider) throws ProvisioningDeviceClientException
+    /**
+     * Creates an instance of ProvisioningDeviceClient that runs its registration on a shared {@link ProvisioningEngine}
+     * instead of threads of its own. Use it to register many devices at once with a bounded number of threads.
+     * @param globalEndpoint global endpoint for the service to connect to. Cannot be {@code null}.
+     * @param idScope IdScope for the instance of the service hosted by you. Cannot be {@code null}.
+     * @param protocol Protocol to communicate with the service onto. Cannot be {@code null}.
+     * @param securityProvider Security Provider for X509 or TPM flow. Cannot be {@code null}.
+     * @param provisioningEngine Engine that runs the registration. Cannot be {@code null}.
+     * @return An instance of ProvisioningDeviceClient
+     * @throws ProvisioningDeviceClientException if any of the underlying API calls fail to process.
+     */
+    public static ProvisioningDeviceClient create(String globalEndpoint, String idScope, ProvisioningDeviceClientTransportProtocol protocol, SecurityProvider securityProvider,
+                                                  ProvisioningEngine provisioningEngine) throws ProvisioningDeviceClientException
+    {
+        if (provisioningEngine == null)
+        {
+            //SRS_ProvisioningDeviceClient_21_001: [ The create shall throw IllegalArgumentException if provisioningEngine is null. ]
+            throw new IllegalArgumentException("provisioning engine cannot be null");
+        }
+
+        return new ProvisioningDeviceClient(globalEndpoint, idScope, protocol, securityProvider, provisioningEngine);
+    }
+
+    private ProvisioningDeviceClient(String globalEndpoint, String idScope, ProvisioningDeviceClientTransportProtocol protocol, SecurityProvider securityProvider,
+                                     ProvisioningEngine provisioningEngine) throws ProvisioningDeviceClientException
     {
         if (globalEndpoint == null || globalEndpoint.isEmpty())
         {
@@ -74,8 +100,16 @@ public class ProvisioningDeviceClient
 
         //SRS_ProvisioningDeviceClient_25_006: [ The constructor shall create provisioningDeviceClientContract with the given config. ]
         this.provisioningDeviceClientContract = ProvisioningDeviceClientContract.createProvisioningContract(this.provisioningDeviceClientConfig);
-        //SRS_ProvisioningDeviceClient_25_007: [ The constructor shall create an executor service with fixed thread pool of size 1. ]
-        this.executor = Executors.newFixedThreadPool(MAX_THREADS_TO_RUN);
+        if (provisioningEngine != null)
+        {
+            //SRS_ProvisioningDeviceClient_21_002: [ If a provisioning engine is provided, the constructor shall not create an executor service. ]
+            this.provisioningEngine = provisioningEngine;
+        }
+        else
+        {
+            //SRS_ProvisioningDeviceClient_25_007: [ The constructor shall create an executor service with fixed thread pool of size 1. ]
+            this.executor = Executors.newFixedThreadPool(MAX_THREADS_TO_RUN);
+        }
     }
 
     /**
@@ -96,16 +130,33 @@ public class ProvisioningDeviceClient
         //SRS_ProvisioningDeviceClient_25_009: [ This method shall set the config with the callback. ]
         this.provisioningDeviceClientConfig.setRegistrationCallback(provisioningDeviceClientRegistrationCallback, context);
 
+        if (this.provisioningEngine != null)
+        {
+            //SRS_ProvisioningDeviceClient_21_003: [ If the client was created with a provisioning engine, this method shall start the ProvisioningTask on the scheduler of the engine. ]
+            this.provisioningTask = new ProvisioningTask(this.provisioningDeviceClientConfig, this.provisioningDeviceClientContract, this.provisioningEngine.getScheduler());
+            this.provisioningTask.start();
+            return;
+        }
+
         //SRS_ProvisioningDeviceClient_25_010: [ This method shall start the executor with the ProvisioningTask. ]
         ProvisioningTask provisioningTask = new ProvisioningTask(this.provisioningDeviceClientConfig, this.provisioningDeviceClientContract);
         executor.submit(provisioningTask);
     }
 
     /**
-     * Closes all the executors opened by the client if they have not already closed.
+     * Closes all the executors opened by the client if they have not already closed. On a shared
+     * {@link ProvisioningEngine}, the registration of this client is cancelled and its connection closed, but the
+     * engine is not closed, as other clients may still be using it.
      */
     public void closeNow()
     {
+        if (this.provisioningTask != null)
+        {
+            //SRS_ProvisioningDeviceClient_21_004: [ If the client was created with a provisioning engine, this method shall cancel the registration of this client on the engine. ]
+            this.provisioningTask.cancel();
+        }
+
+
         //SRS_ProvisioningDeviceClient_25_011: [ This method shall check if executor is terminated and if not shall shutdown the executor. ]
         if (executor != null && !executor.isTerminated())
         {
@@ -0,0 +1,74 @@
+/*
+ *
+ *  Copyright (c) Microsoft. All rights reserved.
+ *  Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ *
+ */
+
+package com.microsoft.azure.sdk.iot.provisioning.device;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared threads to run the registration of many devices. Each {@link ProvisioningDeviceClient} created with an engine
+ * runs its registration as a sequence of short jobs on the engine, and waits between the status queries without
+ * holding a thread, so a small number of threads can serve a large number of concurrent registrations.
+ */
+public class ProvisioningEngine
+{
+    private static final String THREAD_NAME = "azure-iot-sdk-ProvisioningEngine-";
+
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    /**
+     * Creates an engine with a bounded number of threads.
+     * @param maxThreads the number of threads shared by all the registrations. Shall be positive.
+     * @throws IllegalArgumentException if maxThreads is not positive.
+     */
+    public ProvisioningEngine(int maxThreads)
+    {
+        if (maxThreads <= 0)
+        {
+            //SRS_ProvisioningEngine_21_001: [ The constructor shall throw IllegalArgumentException if maxThreads is not positive. ]
+            throw new IllegalArgumentException("max threads shall be positive");
+        }
+
+        //SRS_ProvisioningEngine_21_002: [ The constructor shall create a scheduled thread pool with maxThreads threads. ]
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.scheduler = new ScheduledThreadPoolExecutor(maxThreads, new ThreadFactory()
+        {
+            @Override
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, THREAD_NAME + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Getter for the scheduler shared by the registrations.
+     * @return the scheduler of this engine.
+     */
+    ScheduledExecutorService getScheduler()
+    {
+        //SRS_ProvisioningEngine_21_003: [ This method shall return the scheduler of the engine. ]
+        return this.scheduler;
+    }
+
+    /**
+     * Stops all the registrations in progress on this engine and shuts down its threads.
+     */
+    public void closeNow()
+    {
+        //SRS_ProvisioningEngine_21_004: [ This method shall shutdown the scheduler if it is not already shutdown. ]
+        if (!this.scheduler.isShutdown())
+        {
+            this.scheduler.shutdownNow();
+        }
+    }
+}
@@ -13,6 +13,8 @@ public class SDKUtils
     public static final String PROVISIONING_DEVICE_CLIENT_IDENTIFIER = "com.microsoft.azure.sdk.iot.dps.dps-device-client/";
     public static final String PROVISIONING_DEVICE_CLIENT_VERSION = "1.3.2";
 
+    private static final long MILLISECONDS_PER_SECOND = 1000L;
+
     private static String JAVA_RUNTIME = System.getProperty("java.version");
     private static String OPERATING_SYSTEM = System.getProperty("os.name");
     private static String PROCESSOR_ARCHITECTURE = System.getProperty("os.arch");
@@ -26,4 +28,27 @@ public class SDKUtils
     {
         return PROVISIONING_DEVICE_CLIENT_IDENTIFIER + PROVISIONING_DEVICE_CLIENT_VERSION + " (" + JAVA_RUNTIME + "; " + OPERATING_SYSTEM +"; " + PROCESSOR_ARCHITECTURE + ")";
     }
+
+    /**
+     * Parses the 'retry-after' value, in seconds, that the service sends with a registration or status response.
+     * @param retryAfter the value of the 'retry-after' header or property. Can be {@code null}
+     * @return the wait time in milliseconds, or zero if the value is not present or not valid.
+     */
+    public static long parseRetryAfterInMS(Object retryAfter)
+    {
+        if (retryAfter == null)
+        {
+            return 0;
+        }
+
+        try
+        {
+            return Math.max(0, Long.parseLong(retryAfter.toString().trim()) * MILLISECONDS_PER_SECOND);
+        }
+        catch (NumberFormatException e)
+        {
+            // The value may also be an HTTP date, which is not used by the service.
+            return 0;
+        }
+    }
 }
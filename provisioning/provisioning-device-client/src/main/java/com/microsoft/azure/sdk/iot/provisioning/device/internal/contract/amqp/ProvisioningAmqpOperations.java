@@ -25,6 +25,7 @@ public class ProvisioningAmqpOperations extends AmqpDeviceOperations implements
     private static final String AMQP_OP_TYPE_PROPERTY = "iotdps-operation-type";
 
     private static final String AMQP_OPERATION_ID = "iotdps-operation-id";
+    private static final String AMQP_RETRY_AFTER = "retry-after";
     private static final String API_VERSION_KEY = "com.microsoft:api-version";
     private static final String CLIENT_VERSION_IDENTIFIER_KEY = "com.microsoft:client-version";
 
@@ -93,7 +94,10 @@ public class ProvisioningAmqpOperations extends AmqpDeviceOperations implements
             byte[] msgData = message.getAmqpBody();
             if (msgData != null)
             {
-                responseCallback.run(new ResponseData(msgData, ContractState.DPS_REGISTRATION_RECEIVED, 0), callbackContext);
+                // SRS_ProvisioningAmqpOperations_21_001: [The response data shall carry the wait time of the 'retry-after' application property of the reply, or zero if there is no valid property.]
+                Map<String, Object> applicationProperties = message.getApplicationProperty();
+                long waitForStatusInMS = SDKUtils.parseRetryAfterInMS(applicationProperties == null ? null : applicationProperties.get(AMQP_RETRY_AFTER));
+                responseCallback.run(new ResponseData(msgData, ContractState.DPS_REGISTRATION_RECEIVED, waitForStatusInMS), callbackContext);
             }
         }
     }
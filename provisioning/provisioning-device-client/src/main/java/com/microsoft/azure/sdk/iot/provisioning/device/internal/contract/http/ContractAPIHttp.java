@@ -10,6 +10,7 @@ package com.microsoft.azure.sdk.iot.provisioning.device.internal.contract.http;
 import com.microsoft.azure.sdk.iot.deps.transport.http.HttpMethod;
 import com.microsoft.azure.sdk.iot.deps.transport.http.HttpRequest;
 import com.microsoft.azure.sdk.iot.deps.transport.http.HttpResponse;
+import com.microsoft.azure.sdk.iot.deps.transport.http.SSLSocketFactoryCache;
 import com.microsoft.azure.sdk.iot.deps.util.Base64;
 import com.microsoft.azure.sdk.iot.provisioning.device.internal.ProvisioningDeviceClientConfig;
 import com.microsoft.azure.sdk.iot.provisioning.device.internal.contract.ProvisioningDeviceClientContract;
@@ -34,6 +35,11 @@ public class ContractAPIHttp extends ProvisioningDeviceClientContract
     private String idScope;
     private String hostName;
 
+    /*
+     * The socket factory shared by all requests of this contract, so they can reuse the TLS connections.
+     */
+    private final SSLSocketFactoryCache sslSocketFactoryCache = new SSLSocketFactoryCache();
+
     /*
      *  Values for Http header
      */
@@ -45,6 +51,7 @@ public class ContractAPIHttp extends ProvisioningDeviceClientContract
     private static final String CONTENT_TYPE = "Content-Type";
     private static final Integer DEFAULT_HTTP_TIMEOUT_MS = Integer.MAX_VALUE;
     private static final Integer ACCEPTABLE_NONCE_HTTP_STATUS = 401;
+    private static final String RETRY_AFTER = "retry-after";
 
     @Override
     public void open(RequestData requestData) throws ProvisioningDeviceConnectionException
@@ -141,6 +148,12 @@ public class ContractAPIHttp extends ProvisioningDeviceClientContract
         return response;
     }
 
+    private static long getRetryAfterInMS(HttpResponse response)
+    {
+        Map<String, String> headerFields = response.getHeaderFields();
+        return SDKUtils.parseRetryAfterInMS(headerFields == null ? null : headerFields.get(RETRY_AFTER));
+    }
+
     /**
      * Requests hub to provide a device key to begin authentication over HTTP (Only for TPM)
      * @param responseCallback A non {@code null} value for the callback
@@ -189,7 +202,8 @@ public class ContractAPIHttp extends ProvisioningDeviceClientContract
             //SRS_ContractAPIHttp_25_005: [This method shall prepare the PUT request by setting following headers on a HttpRequest 1. User-Agent : User Agent String for the SDK 2. Accept : "application/json" 3. Content-Type: "application/json; charset=utf-8".]
             HttpRequest httpRequest = this.prepareRequest(new URL(url), HttpMethod.PUT, payload, DEFAULT_HTTP_TIMEOUT_MS, null, SDKUtils.PROVISIONING_DEVICE_CLIENT_IDENTIFIER + SDKUtils.PROVISIONING_DEVICE_CLIENT_VERSION);
             //SRS_ContractAPIHttp_25_006: [This method shall set the SSLContext for the Http Request.]
-            httpRequest.setSSLContext(requestData.getSslContext());
+            //SRS_ContractAPIHttp_21_002: [This method shall set the SSLContext through a socket factory that is reused while the SSLContext does not change, so the TLS connection can be kept alive.]
+            httpRequest.setSSLSocketFactory(this.sslSocketFactoryCache.getSocketFactory(requestData.getSslContext()));
             HttpResponse httpResponse = null;
             try
             {
@@ -276,12 +290,14 @@ public class ContractAPIHttp extends ProvisioningDeviceClientContract
             //SRS_ContractAPIHttp_25_013: [This method shall prepare the PUT request by setting following headers on a HttpRequest 1. User-Agent : User Agent String for the SDK 2. Accept : "application/json" 3. Content-Type: "application/json; charset=utf-8" 4. Authorization: specified sas token as authorization if a non null value is given.]
             HttpRequest httpRequest = this.prepareRequest(new URL(url), HttpMethod.PUT, payload, DEFAULT_HTTP_TIMEOUT_MS, headersMap, SDKUtils.PROVISIONING_DEVICE_CLIENT_IDENTIFIER + SDKUtils.PROVISIONING_DEVICE_CLIENT_VERSION);
             //SRS_ContractAPIHttp_25_014: [This method shall set the SSLContext for the Http Request.]
-            httpRequest.setSSLContext(requestData.getSslContext());
+            //SRS_ContractAPIHttp_21_002: [This method shall set the SSLContext through a socket factory that is reused while the SSLContext does not change, so the TLS connection can be kept alive.]
+            httpRequest.setSSLSocketFactory(this.sslSocketFactoryCache.getSocketFactory(requestData.getSslContext()));
             //SRS_ContractAPIHttp_25_015: [This method shall send http request and verify the status by calling 'ProvisioningDeviceClientExceptionManager.verifyHttpResponse'.]
             //SRS_ContractAPIHttp_25_017: [If service return any other status other than <300 then this method shall throw ProvisioningDeviceHubException.]
             HttpResponse httpResponse = this.sendRequest(httpRequest);
             //SRS_ContractAPIHttp_25_016: [If service return a status as < 300 then this method shall trigger the callback to the user with the response message.]
-            responseCallback.run(new ResponseData(httpResponse.getBody(), ContractState.DPS_REGISTRATION_RECEIVED, 0), dpsAuthorizationCallbackContext);
+            //SRS_ContractAPIHttp_21_001: [The response data shall carry the wait time of the 'retry-after' response header, or zero if there is no valid header.]
+            responseCallback.run(new ResponseData(httpResponse.getBody(), ContractState.DPS_REGISTRATION_RECEIVED, getRetryAfterInMS(httpResponse)), dpsAuthorizationCallbackContext);
         }
         catch (IOException e)
         {
@@ -334,12 +350,14 @@ public class ContractAPIHttp extends ProvisioningDeviceClientContract
             //SRS_ContractAPIHttp_25_020: [This method shall prepare the GET request by setting following headers on a HttpRequest 1. User-Agent : User Agent String for the SDK 2. Accept : "application/json" 3. Content-Type: "application/json; charset=utf-8" 4. Authorization: specified sas token as authorization if a non null value is given.]
             HttpRequest httpRequest = this.prepareRequest(new URL(url), HttpMethod.GET, new byte[0], DEFAULT_HTTP_TIMEOUT_MS, headersMap, SDKUtils.PROVISIONING_DEVICE_CLIENT_IDENTIFIER + SDKUtils.PROVISIONING_DEVICE_CLIENT_VERSION);
             //SRS_ContractAPIHttp_25_021: [This method shall set the SSLContext for the Http Request.]
-            httpRequest.setSSLContext(requestData.getSslContext());
+            //SRS_ContractAPIHttp_21_002: [This method shall set the SSLContext through a socket factory that is reused while the SSLContext does not change, so the TLS connection can be kept alive.]
+            httpRequest.setSSLSocketFactory(this.sslSocketFactoryCache.getSocketFactory(requestData.getSslContext()));
             //SRS_ContractAPIHttp_25_022: [This method shall send http request and verify the status by calling 'ProvisioningDeviceClientExceptionManager.verifyHttpResponse'.]
             //SRS_ContractAPIHttp_25_024: [If service return any other status other than < 300 then this method shall throw ProvisioningDeviceHubException.]
             HttpResponse httpResponse = this.sendRequest(httpRequest);
             //SRS_ContractAPIHttp_25_023: [If service return a status as < 300 then this method shall trigger the callback to the user with the response message.]
-            responseCallback.run(new ResponseData(httpResponse.getBody(),ContractState.DPS_REGISTRATION_RECEIVED, 0), dpsAuthorizationCallbackContext);
+            //SRS_ContractAPIHttp_21_001: [The response data shall carry the wait time of the 'retry-after' response header, or zero if there is no valid header.]
+            responseCallback.run(new ResponseData(httpResponse.getBody(), ContractState.DPS_REGISTRATION_RECEIVED, getRetryAfterInMS(httpResponse)), dpsAuthorizationCallbackContext);
         }
         catch (IOException e)
         {
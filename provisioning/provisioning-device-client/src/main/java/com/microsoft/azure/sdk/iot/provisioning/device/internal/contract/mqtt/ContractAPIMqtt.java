@@ -26,6 +26,8 @@ public class ContractAPIMqtt extends ProvisioningDeviceClientContract implements
     private static final String MQTT_REGISTER_MESSAGE_FMT = "$dps/registrations/PUT/iotdps-register/?$rid=%d";
     private static final String MQTT_STATUS_MESSAGE_FMT = "$dps/registrations/GET/iotdps-get-operationstatus/?$rid=%d&operationId=%s";
 
+    private static final String MQTT_RETRY_AFTER_PROPERTY = "retry-after=";
+
     private static final int MAX_WAIT_TO_SEND_MSG = 1*60*1000; // 1 minute timeout
 
     private MqttConnection mqttConnection;
@@ -85,7 +87,8 @@ public class ContractAPIMqtt extends ProvisioningDeviceClientContract implements
             {
 
                 MqttMessage message = this.receivedMessages.remove();
-                responseCallback.run(new ResponseData(message.getPayload(), ContractState.DPS_REGISTRATION_RECEIVED, 0), callbackContext);
+                // SRS_ContractAPIMqtt_21_001: [The response data shall carry the wait time of the 'retry-after' property of the response topic, or zero if there is no valid property.]
+                responseCallback.run(new ResponseData(message.getPayload(), ContractState.DPS_REGISTRATION_RECEIVED, getRetryAfterInMS(message.getTopic())), callbackContext);
             }
             else
             {
@@ -100,6 +103,26 @@ public class ContractAPIMqtt extends ProvisioningDeviceClientContract implements
 
     }
 
+    private static long getRetryAfterInMS(String topic)
+    {
+        // the response topic is $dps/registrations/res/<status>/?$rid=<rid>&retry-after=<seconds>
+        int queryStart = (topic == null) ? -1 : topic.indexOf('?');
+        if (queryStart < 0)
+        {
+            return 0;
+        }
+
+        for (String property : topic.substring(queryStart + 1).split("&"))
+        {
+            if (property.startsWith(MQTT_RETRY_AFTER_PROPERTY))
+            {
+                return SDKUtils.parseRetryAfterInMS(property.substring(MQTT_RETRY_AFTER_PROPERTY.length()));
+            }
+        }
+
+        return 0;
+    }
+
     /**
      * Indicates need to open MQTT connection
      * @param requestData Data used for the connection initialization
@@ -8,8 +8,8 @@
 package com.microsoft.azure.sdk.iot.provisioning.device.internal.parser;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.annotations.SerializedName;
+import com.microsoft.azure.sdk.iot.deps.serializer.SerializerRegistry;
 
 public class DeviceRegistrationParser
 {
@@ -109,7 +109,7 @@ public class DeviceRegistrationParser
     public String toJson()
     {
         //SRS_DeviceRegistration_25_007: [ This method shall create the expected Json with the provided Registration Id, EndorsementKey and StorageRootKey. ]
-        Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+        Gson gson = SerializerRegistry.getGsonDisableHtmlEscaping();
         return gson.toJson(this);
     }
 }
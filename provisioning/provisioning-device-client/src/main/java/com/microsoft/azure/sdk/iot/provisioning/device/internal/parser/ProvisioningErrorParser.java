@@ -5,8 +5,8 @@
 
 package com.microsoft.azure.sdk.iot.provisioning.device.internal.parser;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.annotations.SerializedName;
+import com.microsoft.azure.sdk.iot.deps.serializer.SerializerRegistry;
 import com.microsoft.azure.sdk.iot.provisioning.device.internal.exceptions.ProvisioningDeviceClientException;
 
 import java.util.Map;
@@ -37,7 +37,7 @@ public class ProvisioningErrorParser
     public static ProvisioningErrorParser createFromJson(String json)
     {
         //Codes_SRS_PROVISIONING_ERROR_PARSER_34_001: [This function shall create a ProvisioningErrorParser instance from the provided json]
-        return new GsonBuilder().create().fromJson(json, ProvisioningErrorParser.class);
+        return SerializerRegistry.getGson().fromJson(json, ProvisioningErrorParser.class);
     }
 
     /**
@@ -8,10 +8,10 @@
 package com.microsoft.azure.sdk.iot.provisioning.device.internal.parser;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonParseException;
 import com.google.gson.JsonSyntaxException;
 import com.google.gson.annotations.SerializedName;
+import com.microsoft.azure.sdk.iot.deps.serializer.SerializerRegistry;
 
 /**
  * Parses JSON which represent the RegistrationOperationStatus object.
@@ -52,7 +52,7 @@ public class RegistrationOperationStatusParser
             throw new IllegalArgumentException("JSON cannot be null or empty");
         }
 
-        Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+        Gson gson = SerializerRegistry.getGsonDisableHtmlEscaping();
         RegistrationOperationStatusParser registrationOperationStatusParser = null;
 
         try
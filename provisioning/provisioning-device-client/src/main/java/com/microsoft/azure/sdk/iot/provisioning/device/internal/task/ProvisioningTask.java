@@ -24,6 +24,7 @@ import com.microsoft.azure.sdk.iot.provisioning.security.SecurityProviderX509;
 import com.microsoft.azure.sdk.iot.provisioning.security.exceptions.SecurityProviderException;
 
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClientStatus.*;
 
@@ -32,6 +33,9 @@ public class ProvisioningTask implements Callable
     private static final int MAX_THREADS_TO_RUN = 2;
     private static final int MAX_TIME_TO_WAIT_FOR_REGISTRATION = 1000000;
     private static final int MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE = 10000;
+    private static final long DEFAULT_STATUS_POLLING_INTERVAL_IN_MS = 2000;
+    private static final long MIN_STATUS_POLLING_INTERVAL_IN_MS = 1000;
+    private static final long MAX_STATUS_POLLING_INTERVAL_IN_MS = 60000;
     private static final String THREAD_NAME = "azure-iot-sdk-ProvisioningTask";
 
     private SecurityProvider securityProvider = null;
@@ -43,8 +47,13 @@ public class ProvisioningTask implements Callable
 
     private Authorization authorization = null;
     private ProvisioningDeviceClientStatus dpsStatus = null;
+    private long waitForStatusInMS = 0;
 
     private ExecutorService executor;
+    private ScheduledExecutorService scheduler;
+    private volatile Future<?> scheduledStep = null;
+    private volatile boolean isCancelled = false;
+    private final AtomicBoolean isRegistrationCallbackInvoked = new AtomicBoolean(false);
 
     /**
      * Constructor for creating a provisioning task
@@ -90,11 +99,64 @@ public class ProvisioningTask implements Callable
         this.executor = Executors.newFixedThreadPool(MAX_THREADS_TO_RUN);
     }
 
+    /**
+     * Constructor for creating a provisioning task that runs on the shared threads of a provisioning engine. The
+     * task does not start threads of its own, it runs each step of the registration on the scheduler and waits
+     * for the next status query without holding a thread.
+     * @param provisioningDeviceClientConfig Config that contains details pertaining to Service
+     * @param provisioningDeviceClientContract Contract with the service over the specified protocol
+     * @param scheduler Scheduler of the provisioning engine. Cannot be {@code null}.
+     * @throws ProvisioningDeviceClientException If any of the input parameters are invalid then this exception is thrown
+     */
+    public ProvisioningTask(ProvisioningDeviceClientConfig provisioningDeviceClientConfig,
+                            ProvisioningDeviceClientContract provisioningDeviceClientContract,
+                            ScheduledExecutorService scheduler) throws ProvisioningDeviceClientException
+    {
+        if (provisioningDeviceClientContract == null)
+        {
+            throw new ProvisioningDeviceClientException(new IllegalArgumentException("DPS Transport cannot be null"));
+        }
+
+        if (provisioningDeviceClientConfig == null)
+        {
+            throw new ProvisioningDeviceClientException(new IllegalArgumentException("Config cannot be null"));
+        }
+
+        //SRS_ProvisioningTask_21_002: [ Constructor shall throw ProvisioningDeviceClientException if the scheduler is null. ]
+        if (scheduler == null)
+        {
+            throw new ProvisioningDeviceClientException(new IllegalArgumentException("Scheduler cannot be null"));
+        }
+
+        this.provisioningDeviceClientConfig = provisioningDeviceClientConfig;
+        this.securityProvider = provisioningDeviceClientConfig.getSecurityProvider();
+        if (this.securityProvider == null)
+        {
+            throw new ProvisioningDeviceClientException(new IllegalArgumentException("Security client cannot be null"));
+        }
+
+        this.provisioningDeviceClientContract = provisioningDeviceClientContract;
+        this.provisioningDeviceClientRegistrationCallback = provisioningDeviceClientConfig.getRegistrationCallback();
+        this.dpsRegistrationCallbackContext = provisioningDeviceClientConfig.getRegistrationCallbackContext();
+        if (this.provisioningDeviceClientRegistrationCallback == null)
+        {
+            throw new ProvisioningDeviceClientException(new IllegalArgumentException("Registration callback cannot be null"));
+        }
+
+        this.authorization = new Authorization();
+        //SRS_ProvisioningTask_21_003: [ Constructor shall not start any executor, the task shall run on the provided scheduler. ]
+        this.scheduler = scheduler;
+    }
+
     private void invokeRegistrationCallback(RegistrationResult registrationInfo, Exception e) throws ProvisioningDeviceClientException
     {
         if (this.provisioningDeviceClientRegistrationCallback != null)
         {
-            this.provisioningDeviceClientRegistrationCallback.run(registrationInfo, e, this.dpsRegistrationCallbackContext);
+            //SRS_ProvisioningTask_21_009: [ The registration callback shall be invoked only once for the task, later results of the same registration shall be ignored. ]
+            if (this.isRegistrationCallbackInvoked.compareAndSet(false, true))
+            {
+                this.provisioningDeviceClientRegistrationCallback.run(registrationInfo, e, this.dpsRegistrationCallbackContext);
+            }
         }
         else
         {
@@ -107,10 +169,26 @@ public class ProvisioningTask implements Callable
     {
         RegisterTask registerTask = new RegisterTask(this.provisioningDeviceClientConfig, securityProvider,
                                                      provisioningDeviceClientContract, authorization);
-        FutureTask<RegistrationOperationStatusParser> futureRegisterTask = new FutureTask<RegistrationOperationStatusParser>(registerTask);
-        executor.submit(futureRegisterTask);
-        RegistrationOperationStatusParser registrationOperationStatusParser =  futureRegisterTask.get(MAX_TIME_TO_WAIT_FOR_REGISTRATION,
-                                                                                                      TimeUnit.MILLISECONDS);
+        RegistrationOperationStatusParser registrationOperationStatusParser;
+        if (this.scheduler != null)
+        {
+            // on a shared scheduler the step already runs on its own thread, so there is no reason to hand it to another one
+            try
+            {
+                registrationOperationStatusParser = registerTask.call();
+            }
+            catch (Exception e)
+            {
+                throw new ExecutionException(e);
+            }
+        }
+        else
+        {
+            FutureTask<RegistrationOperationStatusParser> futureRegisterTask = new FutureTask<RegistrationOperationStatusParser>(registerTask);
+            executor.submit(futureRegisterTask);
+            registrationOperationStatusParser = futureRegisterTask.get(MAX_TIME_TO_WAIT_FOR_REGISTRATION, TimeUnit.MILLISECONDS);
+        }
+        this.waitForStatusInMS = registerTask.getWaitForStatusInMS();
        if (registrationOperationStatusParser == null)
         {
             this.dpsStatus = PROVISIONING_DEVICE_STATUS_ERROR;
@@ -138,13 +216,30 @@ public class ProvisioningTask implements Callable
     private RegistrationOperationStatusParser invokeStatus(String operationId) throws TimeoutException, InterruptedException, ExecutionException,
                                                                                       ProvisioningDeviceClientException
     {
-        // To-Do : Add appropriate wait time retrieved from Service
-        Thread.sleep(MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE);
         StatusTask statusTask = new StatusTask(securityProvider, provisioningDeviceClientContract, operationId,
                                                this.authorization);
-        FutureTask<RegistrationOperationStatusParser> futureStatusTask = new FutureTask<RegistrationOperationStatusParser>(statusTask);
-        executor.submit(futureStatusTask);
-        RegistrationOperationStatusParser statusRegistrationOperationStatusParser =  futureStatusTask.get(MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE, TimeUnit.MILLISECONDS);
+        RegistrationOperationStatusParser statusRegistrationOperationStatusParser;
+        if (this.scheduler != null)
+        {
+            // the scheduler already waited for the polling interval before running this step
+            try
+            {
+                statusRegistrationOperationStatusParser = statusTask.call();
+            }
+            catch (Exception e)
+            {
+                throw new ExecutionException(e);
+            }
+        }
+        else
+        {
+            //SRS_ProvisioningTask_21_001: [ Before each status query, this method shall wait the time the service asked for in the last response, bounded between MIN_STATUS_POLLING_INTERVAL_IN_MS and MAX_STATUS_POLLING_INTERVAL_IN_MS, or DEFAULT_STATUS_POLLING_INTERVAL_IN_MS if the service did not ask for one. ]
+            Thread.sleep(getStatusPollingIntervalInMS(this.waitForStatusInMS));
+            FutureTask<RegistrationOperationStatusParser> futureStatusTask = new FutureTask<RegistrationOperationStatusParser>(statusTask);
+            executor.submit(futureStatusTask);
+            statusRegistrationOperationStatusParser = futureStatusTask.get(MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE, TimeUnit.MILLISECONDS);
+        }
+        this.waitForStatusInMS = statusTask.getWaitForStatusInMS();
 
         if (statusRegistrationOperationStatusParser == null)
         {
@@ -168,6 +263,16 @@ public class ProvisioningTask implements Callable
         return statusRegistrationOperationStatusParser;
     }
 
+    private static long getStatusPollingIntervalInMS(long waitForStatusInMS)
+    {
+        if (waitForStatusInMS <= 0)
+        {
+            return DEFAULT_STATUS_POLLING_INTERVAL_IN_MS;
+        }
+
+        return Math.min(MAX_STATUS_POLLING_INTERVAL_IN_MS, Math.max(MIN_STATUS_POLLING_INTERVAL_IN_MS, waitForStatusInMS));
+    }
+
     private void executeStateMachineForStatus(RegistrationOperationStatusParser registrationOperationStatusParser)
             throws TimeoutException, InterruptedException, ExecutionException, ProvisioningDeviceClientException, SecurityProviderException
 
@@ -259,6 +364,13 @@ public class ProvisioningTask implements Callable
     @Override
     public Object call() throws Exception
     {
+        if (this.scheduler != null)
+        {
+            //SRS_ProvisioningTask_21_004: [ If the task runs on a shared scheduler, this method shall only schedule the registration and return. ]
+            this.start();
+            return null;
+        }
+
         Thread.currentThread().setName(THREAD_NAME);
 
         try
@@ -299,6 +411,129 @@ public class ProvisioningTask implements Callable
         return null;
     }
 
+    /**
+     * Schedules the registration on the shared scheduler. Each step of the state machine, the registration and each
+     * status query, runs as its own scheduled job, and the waits between status queries are delays of the scheduler
+     * instead of sleeping threads. The result is reported on the registration callback.
+     * @throws ProvisioningDeviceClientException if this task was not created with a scheduler.
+     */
+    public void start() throws ProvisioningDeviceClientException
+    {
+        if (this.scheduler == null)
+        {
+            throw new ProvisioningDeviceClientException("This task was not created to run on a scheduler");
+        }
+
+        //SRS_ProvisioningTask_21_005: [ This method shall schedule the open of the contract and the register task on the scheduler. ]
+        this.scheduledStep = this.scheduler.submit(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    provisioningDeviceClientContract.open(new RequestData(securityProvider.getRegistrationId(), securityProvider.getSSLContext(), securityProvider instanceof SecurityProviderX509));
+                    RegistrationOperationStatusParser registrationOperationStatusParser = invokeRegister();
+                    continueStateMachine(registrationOperationStatusParser.getOperationId(), registrationOperationStatusParser);
+                }
+                catch (Exception e)
+                {
+                    failRegistration(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Stops the registration that runs on the scheduler. The step waiting on the scheduler is cancelled, the
+     * contract is closed, and the registration callback is not invoked for a step that fails after this call.
+     */
+    public void cancel()
+    {
+        //SRS_ProvisioningTask_21_010: [ This method shall cancel the step of the registration scheduled on the scheduler and close the contract. ]
+        this.isCancelled = true;
+        Future<?> step = this.scheduledStep;
+        if (step != null)
+        {
+            step.cancel(true);
+        }
+        this.closeQuietly();
+    }
+
+    private void continueStateMachine(final String operationId, RegistrationOperationStatusParser registrationOperationStatusParser)
+            throws TimeoutException, InterruptedException, ExecutionException, ProvisioningDeviceClientException, SecurityProviderException
+    {
+        if (this.isCancelled)
+        {
+            return;
+        }
+
+        ProvisioningStatus status = ProvisioningStatus.fromString(registrationOperationStatusParser.getStatus());
+        if (status == ProvisioningStatus.UNASSIGNED || status == ProvisioningStatus.ASSIGNING)
+        {
+            //SRS_ProvisioningTask_21_006: [ Upon reaching intermediate state i.e UNASSIGNED or ASSIGNING, this method shall schedule the next status task after the polling interval, without holding a thread while it waits. ]
+            this.scheduledStep = this.scheduler.schedule(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        continueStateMachine(operationId, invokeStatus(operationId));
+                    }
+                    catch (Exception e)
+                    {
+                        failRegistration(e);
+                    }
+                }
+            }, getStatusPollingIntervalInMS(this.waitForStatusInMS), TimeUnit.MILLISECONDS);
+            if (this.isCancelled)
+            {
+                // cancel raced with the scheduling of this step
+                this.scheduledStep.cancel(true);
+            }
+            return;
+        }
+
+        //SRS_ProvisioningTask_21_007: [ Upon reaching one of the terminal states, this method shall invoke the registration callback and close the contract. ]
+        this.executeStateMachineForStatus(registrationOperationStatusParser);
+        //SRS_ProvisioningTask_21_011: [ A failure to close the contract after the registration callback shall not be reported on the registration callback. ]
+        this.closeQuietly();
+    }
+
+    private void failRegistration(Exception e)
+    {
+        //SRS_ProvisioningTask_21_008: [ If any step scheduled on the scheduler fails, this method shall invoke the registration callback with the error and close the contract. ]
+        this.dpsStatus = PROVISIONING_DEVICE_STATUS_ERROR;
+        try
+        {
+            if (!this.isCancelled)
+            {
+                invokeRegistrationCallback(new RegistrationResult(null, null, PROVISIONING_DEVICE_STATUS_ERROR), e);
+            }
+        }
+        catch (ProvisioningDeviceClientException callbackException)
+        {
+            // the constructor does not accept a null callback, so there is nobody else to report the failure to
+        }
+        finally
+        {
+            this.closeQuietly();
+        }
+    }
+
+    private void closeQuietly()
+    {
+        try
+        {
+            this.close();
+        }
+        catch (ProvisioningDeviceConnectionException closeException)
+        {
+            // the result of the registration does not depend on the connection, there is nothing else to do with it
+        }
+    }
+
     /**
      * This method shall shutdown the existing threads if not already done so.
      */
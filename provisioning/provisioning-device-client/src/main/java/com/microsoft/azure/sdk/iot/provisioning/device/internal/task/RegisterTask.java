@@ -34,7 +34,6 @@ import static com.microsoft.azure.sdk.iot.provisioning.device.internal.task.Cont
 public class RegisterTask implements Callable
 {
     private static int MAX_WAIT_FOR_REGISTRATION_RESPONSE = 90*1000; // 90 seconds
-    private static final int SLEEP_INTERVAL_WHEN_WAITING_FOR_RESPONSE = 4*1000; //4 seconds
     private static final int DEFAULT_EXPIRY_TIME_IN_SECS = 3600; // 1 Hour
     private static final String SASTOKEN_FORMAT = "SharedAccessSignature sr=%s&sig=%s&se=%s&skn=";
     private static final String THREAD_NAME = "azure-iot-sdk-RegisterTask";
@@ -43,6 +42,7 @@ public class RegisterTask implements Callable
     private Authorization authorization = null;
     private SecurityProvider securityProvider = null;
     private ProvisioningDeviceClientConfig provisioningDeviceClientConfig = null;
+    private long waitForStatusInMS = 0;
 
     private class ResponseCallbackImpl implements ResponseCallback
     {
@@ -53,8 +53,9 @@ public class RegisterTask implements Callable
             {
                 ResponseData data = (ResponseData) context;
                 data.setResponseData(responseData.getResponseData());
-                data.setContractState(responseData.getContractState());
                 data.setWaitForStatusInMS(responseData.getWaitForStatusInMS());
+                // the contract state is set last, as it wakes up the thread waiting for the response
+                data.setContractState(responseData.getContractState());
             }
             else
             {
@@ -135,6 +136,8 @@ public class RegisterTask implements Callable
 
             if (dpsRegistrationData.getResponseData() != null && dpsRegistrationData.getContractState() == DPS_REGISTRATION_RECEIVED)
             {
+                //SRS_RegisterTask_21_001: [ This method shall save the time the service asked to wait before querying the status. ]
+                this.waitForStatusInMS = dpsRegistrationData.getWaitForStatusInMS();
                 String jsonBody = new String(dpsRegistrationData.getResponseData());
                 try
                 {
@@ -224,6 +227,7 @@ public class RegisterTask implements Callable
                     responseDataForSasTokenAuth.getContractState() == DPS_REGISTRATION_RECEIVED)
             {
                 this.authorization.setSasToken(sasToken);
+                this.waitForStatusInMS = responseDataForSasTokenAuth.getWaitForStatusInMS();
 
                 String jsonBody = new String(responseDataForSasTokenAuth.getResponseData());
                 try
@@ -333,19 +337,22 @@ public class RegisterTask implements Callable
     }
 
     /**
-     * Busy waits for the provided responseData to be populated or for a timeout to occur
-     * @param responseData the responseData object to periodically check for response data
-     * @throws InterruptedException if an interrupted exception is thrown while this thread sleeps
+     * Getter for the time the service asked to wait before querying the registration status
+     * @return the wait time in milliseconds, or zero if the service did not send one.
+     */
+    long getWaitForStatusInMS()
+    {
+        return this.waitForStatusInMS;
+    }
+
+    /**
+     * Waits for the provided responseData to be populated or for a timeout to occur
+     * @param responseData the responseData object that the response callback populates
+     * @throws InterruptedException if the thread is interrupted while waiting
      */
     private void waitForResponse(ResponseData responseData) throws InterruptedException
     {
-        long millisecondsElapsed = 0;
-        long waitTimeStart = System.currentTimeMillis();
-        while (responseData.getContractState() != DPS_REGISTRATION_RECEIVED
-                && millisecondsElapsed < MAX_WAIT_FOR_REGISTRATION_RESPONSE)
-        {
-            Thread.sleep(SLEEP_INTERVAL_WHEN_WAITING_FOR_RESPONSE);
-            millisecondsElapsed = System.currentTimeMillis() - waitTimeStart;
-        }
+        //SRS_RegisterTask_21_002: [ This method shall wait for the response callback to populate the response data, up to the maximum time to wait for the registration response, without polling. ]
+        responseData.waitForResponse(MAX_WAIT_FOR_REGISTRATION_RESPONSE);
     }
 }
@@ -41,7 +41,7 @@ public class ResponseData
      * Getter for response data
      * @return  Returns the byte array of response data
      */
-    byte[] getResponseData()
+    synchronized byte[] getResponseData()
     {
         //SRS_ResponseData_25_003: [ This method shall return the saved value of responseData. ]
         return responseData;
@@ -51,7 +51,7 @@ public class ResponseData
      * Setter for Response data
      * @param responseData Value of response data to be set
      */
-    public void setResponseData(byte[] responseData)
+    public synchronized void setResponseData(byte[] responseData)
     {
         //SRS_ResponseData_25_002: [ This method shall save the value of responseData. ]
         this.responseData = responseData;
@@ -61,7 +61,7 @@ public class ResponseData
      * Getter for the contract state
      * @return Returns the value of contract state
      */
-    ContractState getContractState()
+    synchronized ContractState getContractState()
     {
         //SRS_ResponseData_25_005: [ This method shall return the saved value of contractState. ]
         return contractState;
@@ -71,17 +71,19 @@ public class ResponseData
      * Setter for the contract state
      * @param contractState Sets the value of Contract state
      */
-    public void setContractState(ContractState contractState)
+    public synchronized void setContractState(ContractState contractState)
     {
         //SRS_ResponseData_25_004: [ This method shall save the value of contractState. ]
         this.contractState = contractState;
+        //SRS_ResponseData_21_001: [ This method shall wake up the threads waiting for the response. ]
+        this.notifyAll();
     }
 
     /**
      * Getter for the Maximum Time in MilliSeconds
      * @return Maximum time value.
      */
-    long getWaitForStatusInMS()
+    synchronized long getWaitForStatusInMS()
     {
         return waitForStatusInMS;
     }
@@ -90,8 +92,27 @@ public class ResponseData
      * Setter for Maximum Time in MilliSeconds
      * @param waitForStatusInMS Maximum time value. Can be {@code null}
      */
-    public void setWaitForStatusInMS(long waitForStatusInMS)
+    public synchronized void setWaitForStatusInMS(long waitForStatusInMS)
     {
         this.waitForStatusInMS = waitForStatusInMS;
     }
+
+    /**
+     * Waits for the contract state to become DPS_REGISTRATION_RECEIVED or for the timeout to elapse, whichever
+     * happens first. The response callback sets the contract state last, so the response data and the wait time
+     * are available as soon as this method returns.
+     * @param timeoutInMS Maximum time to wait in milliseconds.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    synchronized void waitForResponse(long timeoutInMS) throws InterruptedException
+    {
+        //SRS_ResponseData_21_002: [ This method shall return as soon as the contract state is DPS_REGISTRATION_RECEIVED, or when the timeout elapses. ]
+        long deadline = System.currentTimeMillis() + timeoutInMS;
+        long remainingInMS = timeoutInMS;
+        while (this.contractState != ContractState.DPS_REGISTRATION_RECEIVED && remainingInMS > 0)
+        {
+            this.wait(remainingInMS);
+            remainingInMS = deadline - System.currentTimeMillis();
+        }
+    }
 }
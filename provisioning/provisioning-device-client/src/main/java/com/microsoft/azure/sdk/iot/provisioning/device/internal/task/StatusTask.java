@@ -27,6 +27,7 @@ public class StatusTask implements Callable
     private SecurityProvider securityProvider;
     private String operationId;
     private Authorization authorization;
+    private long waitForStatusInMS = 0;
 
     private class ResponseCallbackImpl implements ResponseCallback
     {
@@ -37,8 +38,9 @@ public class StatusTask implements Callable
             {
                 ResponseData data = (ResponseData) context;
                 data.setResponseData(responseData.getResponseData());
-                data.setContractState(responseData.getContractState());
                 data.setWaitForStatusInMS(responseData.getWaitForStatusInMS());
+                // the contract state is set last, as it wakes up the thread waiting for the response
+                data.setContractState(responseData.getContractState());
             }
             else
             {
@@ -108,12 +110,12 @@ public class StatusTask implements Callable
             //SRS_StatusTask_25_005: [ This method shall trigger getRegistrationState on the contract API and wait for response and return it. ]
             ResponseData responseData = new ResponseData();
             provisioningDeviceClientContract.getRegistrationStatus(requestData, new ResponseCallbackImpl(), responseData);
-            if (responseData.getResponseData() == null || responseData.getContractState() != ContractState.DPS_REGISTRATION_RECEIVED)
-            {
-                Thread.sleep(MAX_WAIT_FOR_STATUS_RESPONSE);
-            }
+            //SRS_StatusTask_21_001: [ This method shall wait for the response callback to populate the response data, up to MAX_WAIT_FOR_STATUS_RESPONSE, without polling. ]
+            responseData.waitForResponse(MAX_WAIT_FOR_STATUS_RESPONSE);
             if (responseData.getResponseData() != null && responseData.getContractState() == ContractState.DPS_REGISTRATION_RECEIVED)
             {
+                //SRS_StatusTask_21_002: [ This method shall save the time the service asked to wait before querying the status again. ]
+                this.waitForStatusInMS = responseData.getWaitForStatusInMS();
                 String jsonBody = new String(responseData.getResponseData());
                 try
                 {
@@ -139,6 +141,15 @@ public class StatusTask implements Callable
         }
     }
 
+    /**
+     * Getter for the time the service asked to wait before querying the registration status again
+     * @return the wait time in milliseconds, or zero if the service did not send one.
+     */
+    long getWaitForStatusInMS()
+    {
+        return this.waitForStatusInMS;
+    }
+
     /**
      * Implementation of callable for this task. This task queries for status
      * with the service
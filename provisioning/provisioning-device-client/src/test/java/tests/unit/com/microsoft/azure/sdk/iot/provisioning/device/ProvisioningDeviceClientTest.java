@@ -9,6 +9,7 @@ package tests.unit.com.microsoft.azure.sdk.iot.provisioning.device;
 
 import com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClient;
 import com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClientRegistrationCallback;
+import com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningEngine;
 import com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClientTransportProtocol;
 import com.microsoft.azure.sdk.iot.provisioning.device.internal.ProvisioningDeviceClientConfig;
 import com.microsoft.azure.sdk.iot.provisioning.device.internal.contract.ProvisioningDeviceClientContract;
@@ -24,6 +25,7 @@ import org.junit.runner.RunWith;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 /*
     Unit tests for ProvisioningDeviceClient
@@ -156,6 +158,76 @@ public class ProvisioningDeviceClientTest
         };
     }
 
+    //SRS_ProvisioningDeviceClient_21_002: [ If a provisioning engine is provided, the constructor shall not create an executor service. ]
+    //SRS_ProvisioningDeviceClient_21_003: [ If the client was created with a provisioning engine, this method shall start the ProvisioningTask on the scheduler of the engine. ]
+    @Test
+    public void registerWithEngineStartsTaskOnEngine(@Mocked final ProvisioningEngine mockedProvisioningEngine) throws ProvisioningDeviceClientException
+    {
+        //arrange
+        ProvisioningDeviceClient testProvisioningDeviceClient = ProvisioningDeviceClient.create(END_POINT, SCOPE_ID, TEST_PROTOCOL, mockedSecurityProvider, mockedProvisioningEngine);
+        //act
+        testProvisioningDeviceClient.registerDevice(mockedRegistrationCB, null);
+
+        //assert
+        new Verifications()
+        {
+            {
+                Executors.newFixedThreadPool(anyInt);
+                times = 0;
+                new ProvisioningTask((ProvisioningDeviceClientConfig) any, (ProvisioningDeviceClientContract) any, (ScheduledExecutorService) any);
+                times = 1;
+                mockedProvisioningTask.start();
+                times = 1;
+                mockedExecutorService.submit((ProvisioningTask) any);
+                times = 0;
+            }
+        };
+    }
+
+    //SRS_ProvisioningDeviceClient_21_001: [ The create shall throw IllegalArgumentException if provisioningEngine is null. ]
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnNullEngine() throws ProvisioningDeviceClientException
+    {
+        //act
+        ProvisioningDeviceClient.create(END_POINT, SCOPE_ID, TEST_PROTOCOL, mockedSecurityProvider, null);
+    }
+
+    @Test
+    public void closeNowDoesNotCloseSharedEngine(@Mocked final ProvisioningEngine mockedProvisioningEngine) throws ProvisioningDeviceClientException
+    {
+        //arrange
+        ProvisioningDeviceClient testProvisioningDeviceClient = ProvisioningDeviceClient.create(END_POINT, SCOPE_ID, TEST_PROTOCOL, mockedSecurityProvider, mockedProvisioningEngine);
+        //act
+        testProvisioningDeviceClient.closeNow();
+        //assert
+        new Verifications()
+        {
+            {
+                mockedProvisioningEngine.closeNow();
+                times = 0;
+            }
+        };
+    }
+
+    //SRS_ProvisioningDeviceClient_21_004: [ If the client was created with a provisioning engine, this method shall cancel the registration of this client on the engine. ]
+    @Test
+    public void closeNowCancelsRegistrationOnEngine(@Mocked final ProvisioningEngine mockedProvisioningEngine) throws ProvisioningDeviceClientException
+    {
+        //arrange
+        ProvisioningDeviceClient testProvisioningDeviceClient = ProvisioningDeviceClient.create(END_POINT, SCOPE_ID, TEST_PROTOCOL, mockedSecurityProvider, mockedProvisioningEngine);
+        testProvisioningDeviceClient.registerDevice(mockedRegistrationCB, null);
+        //act
+        testProvisioningDeviceClient.closeNow();
+        //assert
+        new Verifications()
+        {
+            {
+                mockedProvisioningTask.cancel();
+                times = 1;
+            }
+        };
+    }
+
     //SRS_ProvisioningDeviceClient_25_008: [ This method shall throw IllegalArgumentException if provisioningDeviceClientRegistrationCallback is null. ]
     @Test (expected = IllegalArgumentException.class)
     public void registerThrowsOnNullCB() throws ProvisioningDeviceClientException
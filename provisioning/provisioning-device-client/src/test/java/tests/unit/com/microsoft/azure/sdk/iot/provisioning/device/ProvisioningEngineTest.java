@@ -0,0 +1,80 @@
+/*
+ *
+ *  Copyright (c) Microsoft. All rights reserved.
+ *  Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ *
+ */
+
+package tests.unit.com.microsoft.azure.sdk.iot.provisioning.device;
+
+import com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningEngine;
+import mockit.Deencapsulation;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/*
+    Unit tests for ProvisioningEngine
+    Coverage : 100% methods, 100% lines
+ */
+public class ProvisioningEngineTest
+{
+    //SRS_ProvisioningEngine_21_001: [ The constructor shall throw IllegalArgumentException if maxThreads is not positive. ]
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnZeroThreads()
+    {
+        //act
+        new ProvisioningEngine(0);
+    }
+
+    //SRS_ProvisioningEngine_21_002: [ The constructor shall create a scheduled thread pool with maxThreads threads. ]
+    //SRS_ProvisioningEngine_21_003: [ This method shall return the scheduler of the engine. ]
+    @Test
+    public void constructorCreatesBoundedScheduler() throws InterruptedException
+    {
+        //arrange
+        ProvisioningEngine testProvisioningEngine = new ProvisioningEngine(3);
+        final String[] threadName = new String[1];
+        final CountDownLatch ran = new CountDownLatch(1);
+
+        //act
+        ScheduledExecutorService scheduler = Deencapsulation.invoke(testProvisioningEngine, "getScheduler");
+        scheduler.execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                threadName[0] = Thread.currentThread().getName();
+                ran.countDown();
+            }
+        });
+
+        //assert
+        assertTrue(ran.await(10, TimeUnit.SECONDS));
+        assertEquals(3, ((ScheduledThreadPoolExecutor) scheduler).getCorePoolSize());
+        assertTrue(threadName[0].startsWith("azure-iot-sdk-ProvisioningEngine-"));
+        testProvisioningEngine.closeNow();
+    }
+
+    //SRS_ProvisioningEngine_21_004: [ This method shall shutdown the scheduler if it is not already shutdown. ]
+    @Test
+    public void closeNowShutsDownScheduler()
+    {
+        //arrange
+        ProvisioningEngine testProvisioningEngine = new ProvisioningEngine(1);
+        ScheduledExecutorService scheduler = Deencapsulation.invoke(testProvisioningEngine, "getScheduler");
+
+        //act
+        testProvisioningEngine.closeNow();
+        testProvisioningEngine.closeNow();
+
+        //assert
+        assertTrue(scheduler.isShutdown());
+    }
+}
@@ -16,6 +16,7 @@ import com.microsoft.azure.sdk.iot.provisioning.device.internal.contract.Respons
 import com.microsoft.azure.sdk.iot.provisioning.device.internal.contract.amqp.ProvisioningAmqpOperations;
 import com.microsoft.azure.sdk.iot.provisioning.device.internal.exceptions.ProvisioningDeviceClientException;
 import com.microsoft.azure.sdk.iot.provisioning.device.internal.exceptions.ProvisioningDeviceConnectionException;
+import com.microsoft.azure.sdk.iot.provisioning.device.internal.task.ResponseData;
 import mockit.Deencapsulation;
 import mockit.Mocked;
 import mockit.NonStrictExpectations;
@@ -27,6 +28,8 @@ import org.junit.runner.RunWith;
 
 import javax.net.ssl.SSLContext;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.LinkedBlockingQueue;
 
 import static org.junit.Assert.assertEquals;
@@ -382,6 +385,49 @@ public class ProvisioningAmqpOperationsTest
         //assert
     }
 
+    // SRS_ProvisioningAmqpOperations_21_001: [The response data shall carry the wait time of the 'retry-after' application property of the reply, or zero if there is no valid property.]
+    @Test
+    public void sendStatusMessageSendsRetryAfterToCallback() throws Exception
+    {
+        //arrange
+        ProvisioningAmqpOperations provisioningAmqpOperations = new ProvisioningAmqpOperations(TEST_SCOPE_ID, TEST_HOST_NAME);
+        new NonStrictExpectations()
+        {
+            {
+                mockedAmqpConnection.setListener((AmqpListener)any);
+                mockedAmqpConnection.open();
+            }
+        };
+        provisioningAmqpOperations.open(TEST_REGISTRATION_ID, mockedSSLContext, null, false);
+
+        setupSendReceiveMocks();
+        final Map<String, Object> applicationProperties = new HashMap<>();
+        applicationProperties.put("retry-after", "3");
+        new NonStrictExpectations()
+        {
+            {
+                mockedAmqpMessage.getAmqpBody();
+                result = "{}".getBytes();
+                mockedAmqpMessage.getApplicationProperty();
+                result = applicationProperties;
+            }
+        };
+
+        //act
+        provisioningAmqpOperations.sendStatusMessage(TEST_OPERATION_ID, mockedResponseCallback, null);
+
+        //assert
+        new Verifications()
+        {
+            {
+                ResponseData responseData;
+                mockedResponseCallback.run(responseData = withCapture(), null);
+                times = 1;
+                assertEquals(3000L, (long) Deencapsulation.invoke(responseData, "getWaitForStatusInMS"));
+            }
+        };
+    }
+
     // SRS_ProvisioningAmqpOperations_07_018: [This method shall throw ProvisioningDeviceClientException if any failure is encountered.]
     @Test (expected = ProvisioningDeviceClientException.class)
     public void sendStatusMessageThrowsOnWaitLock() throws Exception
@@ -27,8 +27,10 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
 import java.io.IOException;
 import java.net.URL;
+import java.util.HashMap;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
@@ -277,7 +279,7 @@ public class ContractAPIHttpTest
                 times = 1;
                 mockedUrlPathBuilder.generateRegisterUrl(TEST_REGISTRATION_ID);
                 times = 1;
-                mockedHttpRequest.setSSLContext(mockedSslContext);
+                mockedHttpRequest.setSSLSocketFactory((SSLSocketFactory) any);
                 times = 1;
                 mockedResponseCallback.run((ResponseData) any, null);
                 times = 1;
@@ -607,7 +609,7 @@ public class ContractAPIHttpTest
                 times = 1;
                 mockedUrlPathBuilder.generateRegisterUrl(TEST_REGISTRATION_ID);
                 times = 1;
-                mockedHttpRequest.setSSLContext(mockedSslContext);
+                mockedHttpRequest.setSSLSocketFactory((SSLSocketFactory) any);
                 times = 1;
                 mockedResponseCallback.run((ResponseData) any, null);
                 times = 1;
@@ -661,7 +663,7 @@ public class ContractAPIHttpTest
                 times = 1;
                 mockedUrlPathBuilder.generateRegisterUrl(TEST_REGISTRATION_ID);
                 times = 1;
-                mockedHttpRequest.setSSLContext(mockedSslContext);
+                mockedHttpRequest.setSSLSocketFactory((SSLSocketFactory) any);
                 times = 1;
                 mockedResponseCallback.run((ResponseData) any, null);
                 times = 1;
@@ -712,7 +714,7 @@ public class ContractAPIHttpTest
                 times = 1;
                 mockedUrlPathBuilder.generateRegisterUrl(TEST_REGISTRATION_ID);
                 times = 1;
-                mockedHttpRequest.setSSLContext(mockedSslContext);
+                mockedHttpRequest.setSSLSocketFactory((SSLSocketFactory) any);
                 times = 1;
                 mockedResponseCallback.run((ResponseData) any, null);
                 times = 0;
@@ -765,7 +767,7 @@ public class ContractAPIHttpTest
                 times = 1;
                 mockedUrlPathBuilder.generateRegisterUrl(TEST_REGISTRATION_ID);
                 times = 1;
-                mockedHttpRequest.setSSLContext(mockedSslContext);
+                mockedHttpRequest.setSSLSocketFactory((SSLSocketFactory) any);
                 times = 1;
                 mockedResponseCallback.run((ResponseData) any, null);
                 times = 1;
@@ -938,7 +940,7 @@ public class ContractAPIHttpTest
                 times = 1;
                 mockedUrlPathBuilder.generateRequestUrl(TEST_REGISTRATION_ID, TEST_OPERATION_ID);
                 times = 1;
-                mockedHttpRequest.setSSLContext(mockedSslContext);
+                mockedHttpRequest.setSSLSocketFactory((SSLSocketFactory) any);
                 times = 1;
                 mockedResponseCallback.run((ResponseData) any, null);
                 times = 1;
@@ -981,7 +983,7 @@ public class ContractAPIHttpTest
                 times = 1;
                 mockedUrlPathBuilder.generateRequestUrl(TEST_REGISTRATION_ID, TEST_OPERATION_ID);
                 times = 1;
-                mockedHttpRequest.setSSLContext(mockedSslContext);
+                mockedHttpRequest.setSSLSocketFactory((SSLSocketFactory) any);
                 times = 1;
                 mockedResponseCallback.run((ResponseData) any, null);
                 times = 1;
@@ -989,6 +991,127 @@ public class ContractAPIHttpTest
         };
     }
 
+    //SRS_ContractAPIHttp_21_002: [This method shall set the SSLContext through a socket factory that is reused while the SSLContext does not change, so the TLS connection can be kept alive.]
+    @Test
+    public void getRegistrationStatusReusesSocketFactory(@Mocked final SSLSocketFactory mockedSslSocketFactory) throws IOException, ProvisioningDeviceClientException
+    {
+        //arrange
+        ContractAPIHttp contractAPIHttp = createContractClass();
+        prepareRequestExpectations();
+        new NonStrictExpectations()
+        {
+            {
+                mockedRequestData.getOperationId();
+                result = TEST_OPERATION_ID;
+                mockedRequestData.getRegistrationId();
+                result = TEST_REGISTRATION_ID;
+                mockedRequestData.getSslContext();
+                result = mockedSslContext;
+                mockedSslContext.getSocketFactory();
+                result = mockedSslSocketFactory;
+                mockedRequestData.getSasToken();
+                result = null;
+                mockedHttpRequest.send();
+                result = mockedHttpResponse;
+            }
+        };
+
+        //act
+        contractAPIHttp.getRegistrationStatus(mockedRequestData, mockedResponseCallback, null);
+        contractAPIHttp.getRegistrationStatus(mockedRequestData, mockedResponseCallback, null);
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockedSslContext.getSocketFactory();
+                times = 1;
+                mockedHttpRequest.setSSLSocketFactory(mockedSslSocketFactory);
+                times = 2;
+            }
+        };
+    }
+
+    //SRS_ContractAPIHttp_21_001: [The response data shall carry the wait time of the 'retry-after' response header, or zero if there is no valid header.]
+    @Test
+    public void getRegistrationStatusSendsRetryAfterToCallback() throws IOException, ProvisioningDeviceClientException
+    {
+        //arrange
+        ContractAPIHttp contractAPIHttp = createContractClass();
+        prepareRequestExpectations();
+        final Map<String, String> headerFields = new HashMap<>();
+        headerFields.put("retry-after", "3");
+        new NonStrictExpectations()
+        {
+            {
+                mockedRequestData.getOperationId();
+                result = TEST_OPERATION_ID;
+                mockedRequestData.getRegistrationId();
+                result = TEST_REGISTRATION_ID;
+                mockedRequestData.getSslContext();
+                result = mockedSslContext;
+                mockedHttpRequest.send();
+                result = mockedHttpResponse;
+                mockedHttpResponse.getHeaderFields();
+                result = headerFields;
+            }
+        };
+
+        //act
+        contractAPIHttp.getRegistrationStatus(mockedRequestData, mockedResponseCallback, null);
+
+        //assert
+        new Verifications()
+        {
+            {
+                ResponseData responseData;
+                mockedResponseCallback.run(responseData = withCapture(), null);
+                times = 1;
+                assertEquals(3000L, (long) Deencapsulation.invoke(responseData, "getWaitForStatusInMS"));
+            }
+        };
+    }
+
+    //SRS_ContractAPIHttp_21_001: [The response data shall carry the wait time of the 'retry-after' response header, or zero if there is no valid header.]
+    @Test
+    public void getRegistrationStatusIgnoresInvalidRetryAfter() throws IOException, ProvisioningDeviceClientException
+    {
+        //arrange
+        ContractAPIHttp contractAPIHttp = createContractClass();
+        prepareRequestExpectations();
+        final Map<String, String> headerFields = new HashMap<>();
+        headerFields.put("retry-after", "Wed, 21 Oct 2015 07:28:00 GMT");
+        new NonStrictExpectations()
+        {
+            {
+                mockedRequestData.getOperationId();
+                result = TEST_OPERATION_ID;
+                mockedRequestData.getRegistrationId();
+                result = TEST_REGISTRATION_ID;
+                mockedRequestData.getSslContext();
+                result = mockedSslContext;
+                mockedHttpRequest.send();
+                result = mockedHttpResponse;
+                mockedHttpResponse.getHeaderFields();
+                result = headerFields;
+            }
+        };
+
+        //act
+        contractAPIHttp.getRegistrationStatus(mockedRequestData, mockedResponseCallback, null);
+
+        //assert
+        new Verifications()
+        {
+            {
+                ResponseData responseData;
+                mockedResponseCallback.run(responseData = withCapture(), null);
+                times = 1;
+                assertEquals(0L, (long) Deencapsulation.invoke(responseData, "getWaitForStatusInMS"));
+            }
+        };
+    }
+
     //SRS_ContractAPIHttp_25_024: [If service return any other status other than < 300 then this method shall throw ProvisioningDeviceHubException.]
     @Test (expected = ProvisioningDeviceHubException.class)
     public void getRegistrationStatusThrowsOnFailureStatus() throws IOException, ProvisioningDeviceClientException
@@ -1031,7 +1154,7 @@ public class ContractAPIHttpTest
                     times = 1;
                     mockedUrlPathBuilder.generateRequestUrl(TEST_REGISTRATION_ID, TEST_OPERATION_ID);
                     times = 1;
-                    mockedHttpRequest.setSSLContext(mockedSslContext);
+                    mockedHttpRequest.setSSLSocketFactory((SSLSocketFactory) any);
                     times = 1;
                     mockedResponseCallback.run((ResponseData) any, null);
                     times = 0;
@@ -16,6 +16,7 @@ import com.microsoft.azure.sdk.iot.provisioning.device.internal.contract.Respons
 import com.microsoft.azure.sdk.iot.provisioning.device.internal.contract.mqtt.ContractAPIMqtt;
 import com.microsoft.azure.sdk.iot.provisioning.device.internal.exceptions.ProvisioningDeviceClientException;
 import com.microsoft.azure.sdk.iot.provisioning.device.internal.task.RequestData;
+import com.microsoft.azure.sdk.iot.provisioning.device.internal.task.ContractState;
 import com.microsoft.azure.sdk.iot.provisioning.device.internal.task.ResponseData;
 import mockit.Mocked;
 import mockit.NonStrictExpectations;
@@ -448,6 +449,76 @@ public class ContractAPIMqttTest
         };
     }
 
+    // SRS_ContractAPIMqtt_21_001: [The response data shall carry the wait time of the 'retry-after' property of the response topic, or zero if there is no valid property.]
+    @Test
+    public void authenticateWithProvisioningServiceSendsRetryAfterToCallback() throws ProvisioningDeviceClientException, IOException, InterruptedException
+    {
+        //arrange
+        ContractAPIMqtt contractAPIMqtt = createContractClass();
+        openContractAPI(contractAPIMqtt);
+
+        new NonStrictExpectations()
+        {
+            {
+                mockedMqttConnection.isMqttConnected();
+                result = true;
+
+                mockedObjectLock.waitLock(anyInt);
+
+                mockedMqttMessage.getTopic();
+                result = "$dps/registrations/res/202/?$rid=1&retry-after=3";
+            }
+        };
+        contractAPIMqtt.messageReceived(mockedMqttMessage);
+
+        //act
+        contractAPIMqtt.authenticateWithProvisioningService(mockedRequestData, mockedResponseCallback, null);
+
+        //assert
+        new Verifications()
+        {
+            {
+                new ResponseData((byte[]) any, ContractState.DPS_REGISTRATION_RECEIVED, 3000L);
+                times = 1;
+            }
+        };
+    }
+
+    // SRS_ContractAPIMqtt_21_001: [The response data shall carry the wait time of the 'retry-after' property of the response topic, or zero if there is no valid property.]
+    @Test
+    public void authenticateWithProvisioningServiceWithoutRetryAfterSucceeds() throws ProvisioningDeviceClientException, IOException, InterruptedException
+    {
+        //arrange
+        ContractAPIMqtt contractAPIMqtt = createContractClass();
+        openContractAPI(contractAPIMqtt);
+
+        new NonStrictExpectations()
+        {
+            {
+                mockedMqttConnection.isMqttConnected();
+                result = true;
+
+                mockedObjectLock.waitLock(anyInt);
+
+                mockedMqttMessage.getTopic();
+                result = "$dps/registrations/res/200/?$rid=1";
+            }
+        };
+        contractAPIMqtt.messageReceived(mockedMqttMessage);
+
+        //act
+        contractAPIMqtt.authenticateWithProvisioningService(mockedRequestData, mockedResponseCallback, null);
+
+        //assert
+        new Verifications()
+        {
+            {
+                new ResponseData((byte[]) any, ContractState.DPS_REGISTRATION_RECEIVED, 0L);
+                times = 1;
+            }
+        };
+    }
+
     // SRS_ContractAPIMqtt_07_009: [If requestData is null this method shall throw ProvisioningDeviceClientException.]
     @Test (expected = ProvisioningDeviceClientException.class)
     public void getRegistrationStatusThrowsOnRequestNull() throws ProvisioningDeviceClientException, IOException, InterruptedException {
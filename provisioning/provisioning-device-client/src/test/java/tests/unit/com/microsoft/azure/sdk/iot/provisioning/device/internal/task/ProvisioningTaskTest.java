@@ -17,6 +17,7 @@ import com.microsoft.azure.sdk.iot.provisioning.device.internal.parser.TpmRegist
 import com.microsoft.azure.sdk.iot.provisioning.security.SecurityProvider;
 import com.microsoft.azure.sdk.iot.provisioning.device.internal.contract.ProvisioningDeviceClientContract;
 import com.microsoft.azure.sdk.iot.provisioning.device.internal.exceptions.ProvisioningDeviceClientException;
+import com.microsoft.azure.sdk.iot.provisioning.device.internal.exceptions.ProvisioningDeviceConnectionException;
 import com.microsoft.azure.sdk.iot.provisioning.device.internal.parser.DeviceRegistrationResultParser;
 import com.microsoft.azure.sdk.iot.provisioning.device.internal.task.*;
 import com.microsoft.azure.sdk.iot.provisioning.security.SecurityProviderTpm;
@@ -26,12 +27,15 @@ import mockit.integration.junit4.JMockit;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.*;
 
 import static com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClientStatus.*;
 import static com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClientStatus.PROVISIONING_DEVICE_STATUS_ERROR;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 /*
   Unit test for ProvisioningTask
@@ -370,6 +374,101 @@ public class ProvisioningTaskTest
         };
     }
 
+    //SRS_ProvisioningTask_21_001: [ Before each status query, this method shall wait the time the service asked for in the last response, bounded between MIN_STATUS_POLLING_INTERVAL_IN_MS and MAX_STATUS_POLLING_INTERVAL_IN_MS, or DEFAULT_STATUS_POLLING_INTERVAL_IN_MS if the service did not ask for one. ]
+    @Test
+    public void invokeStatusWaitsForRetryAfterSucceeds() throws Exception
+    {
+        // arrange
+        constructorExpectations();
+        // Register expectations
+        registerExpectations();
+
+        // Moving from status register assigning to status assigning
+        new StrictExpectations()
+        {
+            {
+                mockedRegistrationOperationStatusParser.getStatus();
+                result = "assigning";
+                mockedRegistrationOperationStatusParser.getStatus();
+                result = "assigning";
+                mockedRegistrationOperationStatusParser.getStatus();
+                result = "assigning";
+            }
+        };
+
+        // Invoke Status expectations
+        new NonStrictExpectations()
+        {
+            {
+                Deencapsulation.invoke(mockedRegisterTask, "getWaitForStatusInMS");
+                result = 3000L;
+                Deencapsulation.invoke(mockedStatusTask, "getWaitForStatusInMS");
+                result = 500L;
+                mockedRegistrationOperationStatusParser.getOperationId();
+                result = TEST_OPERATION_ID;
+                mockedFutureTask.get(MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE, TimeUnit.MILLISECONDS);
+                result = mockedRegistrationOperationStatusParser;
+            }
+        };
+
+        // Moving from status assigning to status assigned
+        new StrictExpectations()
+        {
+            {
+                mockedRegistrationOperationStatusParser.getStatus();
+                result = "assigning";
+                mockedRegistrationOperationStatusParser.getStatus();
+                result = "assigning";
+            }
+        };
+
+        // State machine expectations
+        new StrictExpectations()
+        {
+            {
+                mockedRegistrationOperationStatusParser.getStatus();
+                result = "assigned";
+                mockedRegistrationOperationStatusParser.getStatus();
+                result = "assigned";
+                mockedRegistrationOperationStatusParser.getStatus();
+                result = "assigned";
+            }
+        };
+
+        new NonStrictExpectations()
+        {
+            {
+                mockedRegistrationOperationStatusParser.getRegistrationState();
+                result = mockedDeviceRegistrationResultParser;
+                mockedDeviceRegistrationResultParser.getAssignedHub();
+                result = TEST_HUB;
+                mockedDeviceRegistrationResultParser.getDeviceId();
+                result = TEST_DEVICE_ID;
+                Deencapsulation.newInstance(RegistrationResult.class, new Class[] {String.class, String.class, ProvisioningDeviceClientStatus.class},
+                        TEST_HUB, TEST_DEVICE_ID, PROVISIONING_DEVICE_STATUS_ASSIGNED);
+                result = mockedRegistrationData;
+            }
+        };
+        ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig,
+                mockedProvisioningDeviceClientContract);
+
+        //act
+        testProvisioningTask.call();
+
+        //assert
+        new Verifications()
+        {
+            {
+                Thread.sleep(3000L);
+                times = 1;
+                Thread.sleep(1000L);
+                times = 1;
+                mockedProvisioningDeviceClientRegistrationCallback.run((ProvisioningDeviceClientRegistrationResult)any, null, null);
+                times = 1;
+            }
+        };
+    }
+
     @Test
     public void invokeStatusAssigningToFailedSucceeds() throws Exception
     {
@@ -2146,6 +2245,326 @@ public class ProvisioningTaskTest
         };
     }
 
+    //SRS_ProvisioningTask_21_003: [ Constructor shall not start any executor, the task shall run on the provided scheduler. ]
+    @Test
+    public void constructorWithSchedulerDoesNotStartExecutor(@Mocked final ScheduledExecutorService mockedScheduler) throws ProvisioningDeviceClientException
+    {
+        //arrange
+        constructorExpectations();
+        //act
+        ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract, mockedScheduler);
+        //assert
+        new Verifications()
+        {
+            {
+                Executors.newFixedThreadPool(anyInt);
+                times = 0;
+            }
+        };
+        assertEquals(mockedScheduler, Deencapsulation.getField(testProvisioningTask, "scheduler"));
+        assertNull(Deencapsulation.getField(testProvisioningTask, "executor"));
+    }
+
+    //SRS_ProvisioningTask_21_002: [ Constructor shall throw ProvisioningDeviceClientException if the scheduler is null. ]
+    @Test (expected = ProvisioningDeviceClientException.class)
+    public void constructorWithSchedulerThrowsOnNullScheduler() throws ProvisioningDeviceClientException
+    {
+        //arrange
+        constructorExpectations();
+        //act
+        new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract, null);
+    }
+
+    @Test (expected = ProvisioningDeviceClientException.class)
+    public void startThrowsWithoutScheduler() throws ProvisioningDeviceClientException
+    {
+        //arrange
+        constructorExpectations();
+        ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract);
+        //act
+        testProvisioningTask.start();
+    }
+
+    //SRS_ProvisioningTask_21_005: [ This method shall schedule the open of the contract and the register task on the scheduler. ]
+    //SRS_ProvisioningTask_21_007: [ Upon reaching one of the terminal states, this method shall invoke the registration callback and close the contract. ]
+    @Test
+    public void startRunsRegisterOnSchedulerToAssigned(@Mocked final ScheduledExecutorService mockedScheduler) throws Exception
+    {
+        //arrange
+        constructorExpectations();
+        new NonStrictExpectations()
+        {
+            {
+                mockedRegisterTask.call();
+                result = mockedRegistrationOperationStatusParser;
+                mockedRegistrationOperationStatusParser.getOperationId();
+                result = TEST_OPERATION_ID;
+                mockedRegistrationOperationStatusParser.getStatus();
+                result = "assigned";
+            }
+        };
+        registrationStatusJsonExpectations(TEST_HUB, TEST_DEVICE_ID, null, null);
+        ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract, mockedScheduler);
+
+        //act
+        testProvisioningTask.start();
+        final List<Runnable> steps = new ArrayList<>();
+        new Verifications()
+        {
+            {
+                mockedScheduler.submit(withCapture(steps));
+                times = 1;
+            }
+        };
+        steps.get(0).run();
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockedProvisioningDeviceClientContract.open((RequestData) any);
+                times = 1;
+                mockedFutureTask.get(anyLong, (TimeUnit) any);
+                times = 0;
+                mockedProvisioningDeviceClientRegistrationCallback.run((ProvisioningDeviceClientRegistrationResult) any, null, null);
+                times = 1;
+                mockedProvisioningDeviceClientContract.close();
+                times = 1;
+            }
+        };
+    }
+
+    //SRS_ProvisioningTask_21_006: [ Upon reaching intermediate state i.e UNASSIGNED or ASSIGNING, this method shall schedule the next status task after the polling interval, without holding a thread while it waits. ]
+    @Test
+    public void startSchedulesStatusWhileAssigning(@Mocked final ScheduledExecutorService mockedScheduler) throws Exception
+    {
+        //arrange
+        constructorExpectations();
+        new NonStrictExpectations()
+        {
+            {
+                mockedRegisterTask.call();
+                result = mockedRegistrationOperationStatusParser;
+                mockedStatusTask.call();
+                result = mockedRegistrationOperationStatusParser;
+                Deencapsulation.invoke(mockedStatusTask, "getWaitForStatusInMS");
+                result = 5000L;
+                mockedRegistrationOperationStatusParser.getOperationId();
+                result = TEST_OPERATION_ID;
+                mockedRegistrationOperationStatusParser.getStatus();
+                result = "assigning";
+            }
+        };
+        ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract, mockedScheduler);
+        testProvisioningTask.start();
+        final List<Runnable> steps = new ArrayList<>();
+        new Verifications()
+        {
+            {
+                mockedScheduler.submit(withCapture(steps));
+            }
+        };
+
+        //act
+        steps.get(0).run();
+        new Verifications()
+        {
+            {
+                mockedScheduler.schedule(withCapture(steps), 2000L, TimeUnit.MILLISECONDS);
+                times = 1;
+            }
+        };
+        steps.get(1).run();
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockedScheduler.schedule((Runnable) any, 5000L, TimeUnit.MILLISECONDS);
+                times = 1;
+                Thread.sleep(anyLong);
+                times = 0;
+                mockedProvisioningDeviceClientRegistrationCallback.run((ProvisioningDeviceClientRegistrationResult) any, (Exception) any, any);
+                times = 0;
+                mockedProvisioningDeviceClientContract.close();
+                times = 0;
+            }
+        };
+    }
+
+    //SRS_ProvisioningTask_21_008: [ If any step scheduled on the scheduler fails, this method shall invoke the registration callback with the error and close the contract. ]
+    @Test
+    public void startReportsFailureOfScheduledStep(@Mocked final ScheduledExecutorService mockedScheduler) throws Exception
+    {
+        //arrange
+        constructorExpectations();
+        new NonStrictExpectations()
+        {
+            {
+                mockedRegisterTask.call();
+                result = mockProvisioningDeviceClientException;
+            }
+        };
+        ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract, mockedScheduler);
+        testProvisioningTask.start();
+        final List<Runnable> steps = new ArrayList<>();
+        new Verifications()
+        {
+            {
+                mockedScheduler.submit(withCapture(steps));
+            }
+        };
+
+        //act
+        steps.get(0).run();
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockedProvisioningDeviceClientRegistrationCallback.run((ProvisioningDeviceClientRegistrationResult) any, (ExecutionException) any, any);
+                times = 1;
+                mockedProvisioningDeviceClientContract.close();
+                times = 1;
+            }
+        };
+    }
+
+    //SRS_ProvisioningTask_21_009: [ The registration callback shall be invoked only once for the task, later results of the same registration shall be ignored. ]
+    //SRS_ProvisioningTask_21_011: [ A failure to close the contract after the registration callback shall not be reported on the registration callback. ]
+    @Test
+    public void startDoesNotReportCloseFailureAfterAssigned(@Mocked final ScheduledExecutorService mockedScheduler) throws Exception
+    {
+        //arrange
+        constructorExpectations();
+        new NonStrictExpectations()
+        {
+            {
+                mockedRegisterTask.call();
+                result = mockedRegistrationOperationStatusParser;
+                mockedRegistrationOperationStatusParser.getOperationId();
+                result = TEST_OPERATION_ID;
+                mockedRegistrationOperationStatusParser.getStatus();
+                result = "assigned";
+                mockedProvisioningDeviceClientContract.close();
+                result = new ProvisioningDeviceConnectionException("close failed");
+            }
+        };
+        registrationStatusJsonExpectations(TEST_HUB, TEST_DEVICE_ID, null, null);
+        ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract, mockedScheduler);
+        testProvisioningTask.start();
+        final List<Runnable> steps = new ArrayList<>();
+        new Verifications()
+        {
+            {
+                mockedScheduler.submit(withCapture(steps));
+            }
+        };
+
+        //act
+        steps.get(0).run();
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockedProvisioningDeviceClientRegistrationCallback.run((ProvisioningDeviceClientRegistrationResult) any, null, null);
+                times = 1;
+                mockedProvisioningDeviceClientRegistrationCallback.run((ProvisioningDeviceClientRegistrationResult) any, (Exception) any, any);
+                times = 1;
+            }
+        };
+    }
+
+    //SRS_ProvisioningTask_21_009: [ The registration callback shall be invoked only once for the task, later results of the same registration shall be ignored. ]
+    @Test
+    public void startInvokesCallbackOnceIfCallbackThrows(@Mocked final ScheduledExecutorService mockedScheduler) throws Exception
+    {
+        //arrange
+        constructorExpectations();
+        new NonStrictExpectations()
+        {
+            {
+                mockedRegisterTask.call();
+                result = mockedRegistrationOperationStatusParser;
+                mockedRegistrationOperationStatusParser.getOperationId();
+                result = TEST_OPERATION_ID;
+                mockedRegistrationOperationStatusParser.getStatus();
+                result = "assigned";
+                mockedProvisioningDeviceClientRegistrationCallback.run((ProvisioningDeviceClientRegistrationResult) any, (Exception) any, any);
+                result = new IllegalStateException("callback failed");
+            }
+        };
+        registrationStatusJsonExpectations(TEST_HUB, TEST_DEVICE_ID, null, null);
+        ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract, mockedScheduler);
+        testProvisioningTask.start();
+        final List<Runnable> steps = new ArrayList<>();
+        new Verifications()
+        {
+            {
+                mockedScheduler.submit(withCapture(steps));
+            }
+        };
+
+        //act
+        steps.get(0).run();
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockedProvisioningDeviceClientRegistrationCallback.run((ProvisioningDeviceClientRegistrationResult) any, (Exception) any, any);
+                times = 1;
+                mockedProvisioningDeviceClientContract.close();
+                times = 1;
+            }
+        };
+    }
+
+    //SRS_ProvisioningTask_21_010: [ This method shall cancel the step of the registration scheduled on the scheduler and close the contract. ]
+    @Test
+    public void cancelCancelsScheduledStepAndClosesContract(@Mocked final ScheduledExecutorService mockedScheduler,
+                                                            @Mocked final Future<?> mockedFuture) throws Exception
+    {
+        //arrange
+        constructorExpectations();
+        new NonStrictExpectations()
+        {
+            {
+                mockedScheduler.submit((Runnable) any);
+                result = mockedFuture;
+                mockedRegisterTask.call();
+                result = mockProvisioningDeviceClientException;
+            }
+        };
+        ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract, mockedScheduler);
+        testProvisioningTask.start();
+        final List<Runnable> steps = new ArrayList<>();
+        new Verifications()
+        {
+            {
+                mockedScheduler.submit(withCapture(steps));
+            }
+        };
+
+        //act
+        testProvisioningTask.cancel();
+        steps.get(0).run();
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockedFuture.cancel(true);
+                times = 1;
+                mockedProvisioningDeviceClientRegistrationCallback.run((ProvisioningDeviceClientRegistrationResult) any, (Exception) any, any);
+                times = 0;
+                mockedProvisioningDeviceClientContract.close();
+                minTimes = 1;
+            }
+        };
+    }
+
     private void registerExpectations() throws InterruptedException, ExecutionException, TimeoutException
     {
         new NonStrictExpectations()
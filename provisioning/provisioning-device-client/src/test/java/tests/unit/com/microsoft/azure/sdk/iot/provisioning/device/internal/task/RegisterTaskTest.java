@@ -978,8 +978,7 @@ public class RegisterTaskTest
             {
                 Deencapsulation.newInstance(ResponseData.class);
                 result = mockedResponseData;
-                Deencapsulation.invoke(mockedResponseData, "getContractState");
-                result = DPS_REGISTRATION_RECEIVED;
+                Deencapsulation.invoke(mockedResponseData, "waitForResponse", 50L);
                 Deencapsulation.invoke(mockedResponseData, "getContractState");
                 result = DPS_REGISTRATION_RECEIVED;
             }
@@ -14,10 +14,12 @@ import mockit.integration.junit4.JMockit;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import static com.microsoft.azure.sdk.iot.provisioning.device.internal.task.ContractState.DPS_REGISTRATION_RECEIVED;
 import static com.microsoft.azure.sdk.iot.provisioning.device.internal.task.ContractState.DPS_REGISTRATION_UNKNOWN;
 import static mockit.Deencapsulation.*;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /*
     Unit test for Response Data
@@ -66,4 +68,55 @@ public class ResponseDataTest
         //assert
         assertEquals(testData, invoke(testResponseData, "getResponseData"));
     }
+
+    //SRS_ResponseData_21_001: [ This method shall wake up the threads waiting for the response. ]
+    //SRS_ResponseData_21_002: [ This method shall return as soon as the contract state is DPS_REGISTRATION_RECEIVED, or when the timeout elapses. ]
+    @Test
+    public void waitForResponseReturnsWhenResponseIsReceived() throws Exception
+    {
+        //arrange
+        final ResponseData testResponseData = newInstance(ResponseData.class);
+        Thread responseThread = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    Thread.sleep(50);
+                }
+                catch (InterruptedException e)
+                {
+                    // deliver the response right away
+                }
+                invoke(testResponseData, "setContractState", DPS_REGISTRATION_RECEIVED);
+            }
+        });
+        long startTime = System.currentTimeMillis();
+
+        //act
+        responseThread.start();
+        invoke(testResponseData, "waitForResponse", 10000L);
+
+        //assert
+        assertTrue(System.currentTimeMillis() - startTime < 10000);
+        assertEquals(DPS_REGISTRATION_RECEIVED, invoke(testResponseData, "getContractState"));
+        responseThread.join();
+    }
+
+    //SRS_ResponseData_21_002: [ This method shall return as soon as the contract state is DPS_REGISTRATION_RECEIVED, or when the timeout elapses. ]
+    @Test
+    public void waitForResponseReturnsOnTimeout() throws Exception
+    {
+        //arrange
+        ResponseData testResponseData = newInstance(ResponseData.class);
+        long startTime = System.currentTimeMillis();
+
+        //act
+        invoke(testResponseData, "waitForResponse", 50L);
+
+        //assert
+        assertTrue(System.currentTimeMillis() - startTime >= 50);
+        assertEquals(DPS_REGISTRATION_UNKNOWN, invoke(testResponseData, "getContractState"));
+    }
 }
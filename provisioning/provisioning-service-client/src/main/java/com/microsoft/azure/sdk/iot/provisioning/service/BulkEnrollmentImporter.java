@@ -0,0 +1,271 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.provisioning.service;
+
+import com.microsoft.azure.sdk.iot.provisioning.service.configs.BulkEnrollmentOperationResult;
+import com.microsoft.azure.sdk.iot.provisioning.service.configs.BulkOperationMode;
+import com.microsoft.azure.sdk.iot.provisioning.service.configs.IndividualEnrollment;
+import com.microsoft.azure.sdk.iot.provisioning.service.exceptions.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bulk Enrollment Importer
+ *
+ * <p> This is the inner class that runs a bulk operation over a large source of individualEnrollments. It reads the
+ *     source one chunk at a time, sends each chunk in a single bulk operation, and combines the results of all the
+ *     chunks in a single {@link BulkEnrollmentOperationResult}.
+ * <p> Up to {@code maxParallelOperations} chunks are sent at the same time, so no more than that many chunks are
+ *     in memory. A chunk that the Device Provisioning Service throttles or fails with a transient error is sent
+ *     again with an exponential back off, and while the service is throttling, no other chunk is sent.
+ * <p> If a chunk fails for good, no new chunk is read, and the run throws a
+ *     {@link ProvisioningServiceClientBulkImportException} with the combined result of the chunks that succeeded
+ *     and the individualEnrollments of the chunks that failed.
+ * <p> For the public API, please see {@link ProvisioningServiceClient}.
+ *
+ * @see <a href="https://docs.microsoft.com/en-us/azure/iot-dps/about-iot-dps#quotas">Device Provisioning Service quotas</a>
+ */
+public final class BulkEnrollmentImporter
+{
+    /**
+     * The maximum number of individualEnrollments that the Device Provisioning Service accepts in a single bulk operation.
+     */
+    public static final int MAX_ENROLLMENTS_PER_BULK_OPERATION = 10;
+
+    /**
+     * The number of bulk operations that runs at the same time if the user do not provide one.
+     */
+    public static final int DEFAULT_MAX_PARALLEL_OPERATIONS = 4;
+
+    private static final int MAX_RETRIES = 5;
+    private static final long RETRY_BASE_DELAY_IN_MILLISECONDS = 1000;
+    private static final long RETRY_MAX_DELAY_IN_MILLISECONDS = 30000;
+
+    private static final Random random = new Random();
+
+    private final IndividualEnrollmentManager individualEnrollmentManager;
+    private final int maxParallelOperations;
+    private long retryBaseDelayInMilliseconds = RETRY_BASE_DELAY_IN_MILLISECONDS;
+
+    private final AtomicLong throttledUntilMilliseconds = new AtomicLong(0);
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param individualEnrollmentManager is the {@link IndividualEnrollmentManager} that sends each bulk operation. It cannot be {@code null}.
+     * @param maxParallelOperations is the maximum number of bulk operations that runs at the same time. It shall be positive.
+     * @throws IllegalArgumentException if one of the parameters is not correct.
+     */
+    BulkEnrollmentImporter(IndividualEnrollmentManager individualEnrollmentManager, int maxParallelOperations)
+    {
+        /* SRS_BULK_ENROLLMENT_IMPORTER_21_001: [The constructor shall throw IllegalArgumentException if the provided individualEnrollmentManager is null.] */
+        if(individualEnrollmentManager == null)
+        {
+            throw new IllegalArgumentException("individualEnrollmentManager cannot be null");
+        }
+
+        /* SRS_BULK_ENROLLMENT_IMPORTER_21_002: [The constructor shall throw IllegalArgumentException if the provided maxParallelOperations is not positive.] */
+        if(maxParallelOperations <= 0)
+        {
+            throw new IllegalArgumentException("maxParallelOperations shall be positive");
+        }
+
+        this.individualEnrollmentManager = individualEnrollmentManager;
+        this.maxParallelOperations = maxParallelOperations;
+    }
+
+    /**
+     * Run the bulk operation over all the individualEnrollments in the source.
+     *
+     * @see ProvisioningServiceClient#runBulkEnrollmentImport(BulkOperationMode, Iterator, int)
+     *
+     * @param bulkOperationMode the {@link BulkOperationMode} that defines the single operation to do over the individualEnrollments. It cannot be {@code null}.
+     * @param individualEnrollments the {@code Iterator} that provides the individualEnrollments. It cannot be {@code null} or empty.
+     * @return The {@link BulkEnrollmentOperationResult} with the combined result of all the bulk operations.
+     * @throws IllegalArgumentException if the provided parameters are not correct.
+     * @throws ProvisioningServiceClientBulkImportException if one of the bulk operations failed. It contains the result of the ones that succeeded.
+     * @throws ProvisioningServiceClientException if the import was interrupted.
+     */
+    BulkEnrollmentOperationResult run(final BulkOperationMode bulkOperationMode, Iterator<IndividualEnrollment> individualEnrollments)
+            throws ProvisioningServiceClientException
+    {
+        /* SRS_BULK_ENROLLMENT_IMPORTER_21_003: [The run shall throw IllegalArgumentException if the provided bulkOperationMode is null.] */
+        if(bulkOperationMode == null)
+        {
+            throw new IllegalArgumentException("bulkOperationMode cannot be null.");
+        }
+
+        /* SRS_BULK_ENROLLMENT_IMPORTER_21_004: [The run shall throw IllegalArgumentException if the provided individualEnrollments is null or empty.] */
+        if((individualEnrollments == null) || !individualEnrollments.hasNext())
+        {
+            throw new IllegalArgumentException("individualEnrollments cannot be null or empty.");
+        }
+
+        final Semaphore freeOperations = new Semaphore(this.maxParallelOperations);
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        List<Future<BulkEnrollmentOperationResult>> pendingResults = new LinkedList<>();
+        List<List<IndividualEnrollment>> pendingChunks = new LinkedList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(this.maxParallelOperations);
+        try
+        {
+            while(individualEnrollments.hasNext() && (failure.get() == null))
+            {
+                /* SRS_BULK_ENROLLMENT_IMPORTER_21_005: [The run shall read the individualEnrollments in chunks of up to MAX_ENROLLMENTS_PER_BULK_OPERATION.] */
+                final List<IndividualEnrollment> chunk = new ArrayList<>(MAX_ENROLLMENTS_PER_BULK_OPERATION);
+                while(individualEnrollments.hasNext() && (chunk.size() < MAX_ENROLLMENTS_PER_BULK_OPERATION))
+                {
+                    chunk.add(individualEnrollments.next());
+                }
+
+                /* SRS_BULK_ENROLLMENT_IMPORTER_21_006: [The run shall not send more than maxParallelOperations bulk operations at the same time.] */
+                freeOperations.acquire();
+                if(failure.get() != null)
+                {
+                    /* SRS_BULK_ENROLLMENT_IMPORTER_21_010: [If one of the bulk operations fails, the run shall stop reading the individualEnrollments.] */
+                    freeOperations.release();
+                    pendingChunks.add(chunk);
+                    pendingResults.add(null);
+                    break;
+                }
+
+                pendingChunks.add(chunk);
+                pendingResults.add(executor.submit(new Callable<BulkEnrollmentOperationResult>()
+                {
+                    @Override
+                    public BulkEnrollmentOperationResult call() throws Exception
+                    {
+                        try
+                        {
+                            return runChunk(bulkOperationMode, chunk);
+                        }
+                        catch (Exception e)
+                        {
+                            failure.compareAndSet(null, e);
+                            throw e;
+                        }
+                        finally
+                        {
+                            freeOperations.release();
+                        }
+                    }
+                }));
+            }
+
+            /* SRS_BULK_ENROLLMENT_IMPORTER_21_011: [The run shall return a BulkEnrollmentOperationResult that combines the results of all the bulk operations, in the order of the individualEnrollments.] */
+            Collection<BulkEnrollmentOperationResult> results = new ArrayList<>(pendingResults.size());
+            List<IndividualEnrollment> failedEnrollments = new ArrayList<>();
+            Iterator<List<IndividualEnrollment>> chunks = pendingChunks.iterator();
+            for (Future<BulkEnrollmentOperationResult> pendingResult : pendingResults)
+            {
+                List<IndividualEnrollment> chunk = chunks.next();
+                if(pendingResult == null)
+                {
+                    // Read, but not sent because an other chunk failed in the meantime.
+                    failedEnrollments.addAll(chunk);
+                    continue;
+                }
+
+                try
+                {
+                    results.add(pendingResult.get());
+                }
+                catch (ExecutionException e)
+                {
+                    failedEnrollments.addAll(chunk);
+                    Throwable cause = e.getCause();
+                    if(cause instanceof Error)
+                    {
+                        throw (Error)cause;
+                    }
+                    else if(cause != failure.get())
+                    {
+                        failure.get().addSuppressed(cause);
+                    }
+                }
+            }
+
+            /* SRS_BULK_ENROLLMENT_IMPORTER_21_012: [If one of the bulk operations fails, the run shall throw ProvisioningServiceClientBulkImportException with the exception of the first failure as its cause, the combined result of the bulk operations that succeeded, and the individualEnrollments of the chunks that failed.] */
+            Exception firstFailure = failure.get();
+            if(firstFailure != null)
+            {
+                throw new ProvisioningServiceClientBulkImportException(
+                        "Bulk enrollment import failed for " + failedEnrollments.size() + " individualEnrollments",
+                        firstFailure,
+                        results.isEmpty() ? null : BulkEnrollmentOperationResult.combine(results),
+                        failedEnrollments);
+            }
+
+            return BulkEnrollmentOperationResult.combine(results);
+        }
+        catch (InterruptedException e)
+        {
+            /* SRS_BULK_ENROLLMENT_IMPORTER_21_013: [If the thread is interrupted, the run shall stop the bulk operations and throw ProvisioningServiceClientException.] */
+            Thread.currentThread().interrupt();
+            throw new ProvisioningServiceClientException("Bulk enrollment import interrupted");
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private BulkEnrollmentOperationResult runChunk(BulkOperationMode bulkOperationMode, Collection<IndividualEnrollment> chunk)
+            throws ProvisioningServiceClientException, InterruptedException
+    {
+        int retry = 0;
+        while(true)
+        {
+            waitThrottling();
+            try
+            {
+                /* SRS_BULK_ENROLLMENT_IMPORTER_21_007: [The run shall send each chunk by calling the bulkOperation in the individualEnrollmentManager.] */
+                return this.individualEnrollmentManager.bulkOperation(bulkOperationMode, chunk);
+            }
+            catch (ProvisioningServiceClientTooManyRequestsException | ProvisioningServiceClientTransientException e)
+            {
+                /* SRS_BULK_ENROLLMENT_IMPORTER_21_009: [If the chunk still fails after MAX_RETRIES retries, the run shall fail with the last exception.] */
+                if(retry >= MAX_RETRIES)
+                {
+                    throw e;
+                }
+
+                /* SRS_BULK_ENROLLMENT_IMPORTER_21_008: [If the bulkOperation throws ProvisioningServiceClientTooManyRequestsException or ProvisioningServiceClientTransientException, the run shall send the chunk again after an exponential back off, and if it was throttled, no other chunk shall be sent before the back off ends.] */
+                long delay = Math.min(RETRY_MAX_DELAY_IN_MILLISECONDS, this.retryBaseDelayInMilliseconds << retry);
+                delay += (long)(random.nextDouble() * delay / 2);
+                long retryAt = System.currentTimeMillis() + delay;
+                if(e instanceof ProvisioningServiceClientTooManyRequestsException)
+                {
+                    long throttledUntil;
+                    do
+                    {
+                        throttledUntil = this.throttledUntilMilliseconds.get();
+                    }
+                    while((throttledUntil < retryAt) && !this.throttledUntilMilliseconds.compareAndSet(throttledUntil, retryAt));
+                }
+                else
+                {
+                    Thread.sleep(delay);
+                }
+                retry++;
+            }
+        }
+    }
+
+    private void waitThrottling() throws InterruptedException
+    {
+        long waitTime;
+        while((waitTime = this.throttledUntilMilliseconds.get() - System.currentTimeMillis()) > 0)
+        {
+            Thread.sleep(waitTime);
+        }
+    }
+}
@@ -11,6 +11,7 @@ import com.microsoft.azure.sdk.iot.provisioning.service.configs.*;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 
 /**
@@ -163,6 +164,28 @@ public class IndividualEnrollmentManager
         return new BulkEnrollmentOperationResult(new String(body));
     }
 
+    /**
+     * Run a bulk individualEnrollment operation over a large source of individualEnrollments.
+     *
+     * @see ProvisioningServiceClient#runBulkEnrollmentImport(BulkOperationMode, Iterator, int)
+     *
+     * @param bulkOperationMode the {@link BulkOperationMode} that defines the single operation to do over the individualEnrollments. It cannot be {@code null}.
+     * @param individualEnrollments the {@code Iterator} that provides the individualEnrollments. It cannot be {@code null} or empty.
+     * @param maxParallelOperations the {@code int} with the maximum number of bulk operations that runs at the same time. It shall be positive.
+     * @return An {@link BulkEnrollmentOperationResult} with the combined result of all the bulk operations.
+     * @throws IllegalArgumentException if the provided parameters are not correct.
+     * @throws ProvisioningServiceClientBulkImportException if one of the bulk operations failed. It contains the result of the ones that succeeded.
+     * @throws ProvisioningServiceClientException if the import was interrupted.
+     */
+    BulkEnrollmentOperationResult bulkImport(
+            BulkOperationMode bulkOperationMode, Iterator<IndividualEnrollment> individualEnrollments, int maxParallelOperations)
+            throws ProvisioningServiceClientException
+    {
+        /* SRS_INDIVIDUAL_ENROLLMENT_MANAGER_21_046: [The bulkImport shall throw IllegalArgumentException if the provided maxParallelOperations is not positive.] */
+        /* SRS_INDIVIDUAL_ENROLLMENT_MANAGER_21_047: [The bulkImport shall run the bulk operation in chunks using a new BulkEnrollmentImporter.] */
+        return new BulkEnrollmentImporter(this, maxParallelOperations).run(bulkOperationMode, individualEnrollments);
+    }
+
     /**
      * Get individualEnrollment information.
      *
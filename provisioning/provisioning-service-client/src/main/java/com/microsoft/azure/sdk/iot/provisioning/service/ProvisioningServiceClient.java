@@ -6,6 +6,7 @@ package com.microsoft.azure.sdk.iot.provisioning.service;
 import com.microsoft.azure.sdk.iot.provisioning.service.auth.ProvisioningConnectionString;
 import com.microsoft.azure.sdk.iot.provisioning.service.auth.ProvisioningConnectionStringBuilder;
 import com.microsoft.azure.sdk.iot.provisioning.service.contract.ContractApiHttp;
+import com.microsoft.azure.sdk.iot.provisioning.service.exceptions.ProvisioningServiceClientBulkImportException;
 import com.microsoft.azure.sdk.iot.provisioning.service.exceptions.ProvisioningServiceClientException;
 import com.microsoft.azure.sdk.iot.provisioning.service.configs.*;
 import com.microsoft.azure.sdk.iot.provisioning.service.exceptions.ProvisioningServiceClientExceptionManager;
@@ -13,6 +14,8 @@ import com.microsoft.azure.sdk.iot.provisioning.service.exceptions.ProvisioningS
 import com.microsoft.azure.sdk.iot.provisioning.service.exceptions.ProvisioningServiceClientTransportException;
 
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.stream.Stream;
 
 /**
  * Device Provisioning Service Client.
@@ -309,6 +312,73 @@ public final class ProvisioningServiceClient
         return individualEnrollmentManager.bulkOperation(bulkOperationMode, individualEnrollments);
     }
 
+    /**
+     * Create, update or delete a large set of individual Device Enrollments.
+     *
+     * <p> This API does the same single operation as {@link #runBulkEnrollmentOperation(BulkOperationMode, Collection)},
+     *     but over a source of individualEnrollments of any size. It reads the individualEnrollments from the provided
+     *     {@code Iterator} in chunks of up to {@link BulkEnrollmentImporter#MAX_ENROLLMENTS_PER_BULK_OPERATION}, that is
+     *     the maximum size of a bulk operation in the Device Provisioning Service, and sends up to
+     *     {@link BulkEnrollmentImporter#DEFAULT_MAX_PARALLEL_OPERATIONS} chunks at the same time. Only the chunks that
+     *     are being sent are kept in memory.
+     *
+     * <p> If the Device Provisioning Service throttles a chunk, or fails it with a transient error, the chunk is sent
+     *     again after an exponential back off. If one chunk fails for good, no new chunk is read, and this API throws
+     *     a {@link ProvisioningServiceClientBulkImportException} caused by the exception of that chunk. The exception
+     *     contains the combined result of the chunks that succeeded, and the individualEnrollments of the chunks that
+     *     failed; the individualEnrollments that were not read are still in the {@code Iterator}.
+     *
+     * <p> <b>Sample:</b>
+     * <p> The follow code will create all the individualEnrollments in a large list using the bulk import.
+     * <pre>
+     * {@code
+     * // Create all the individualEnrollments, 10 per bulk operation.
+     * BulkEnrollmentOperationResult bulkEnrollmentOperationResult =
+     *     provisioningServiceClient.runBulkEnrollmentImport(BulkOperationMode.CREATE, individualEnrollments.iterator());
+     * for (BulkEnrollmentOperationError error : bulkEnrollmentOperationResult.getErrors())
+     * {
+     *     System.out.println(error.getRegistrationId() + ": " + error.getErrorStatus());
+     * }
+     * }
+     * </pre>
+     *
+     * @param bulkOperationMode the {@link BulkOperationMode} that defines the single operation to do over the individualEnrollments. It cannot be {@code null}.
+     * @param individualEnrollments the {@code Iterator} that provides the individualEnrollments. It cannot be {@code null} or empty.
+     * @return A {@link BulkEnrollmentOperationResult} object with the combined result of operation for each enrollment.
+     * @throws IllegalArgumentException if the provided parameters are not correct.
+     * @throws ProvisioningServiceClientBulkImportException if one of the bulk operations failed. It contains the result of the ones that succeeded.
+     * @throws ProvisioningServiceClientException if the import was interrupted.
+     */
+    public BulkEnrollmentOperationResult runBulkEnrollmentImport(
+            BulkOperationMode bulkOperationMode, Iterator<IndividualEnrollment> individualEnrollments)
+            throws ProvisioningServiceClientException
+    {
+        /* SRS_PROVISIONING_SERVICE_CLIENT_21_029: [The runBulkEnrollmentImport shall do a Provisioning operation over the individualEnrollments by calling the bulkImport in the individualEnrollmentManager with DEFAULT_MAX_PARALLEL_OPERATIONS.] */
+        return individualEnrollmentManager.bulkImport(
+                bulkOperationMode, individualEnrollments, BulkEnrollmentImporter.DEFAULT_MAX_PARALLEL_OPERATIONS);
+    }
+
+    /**
+     * Create, update or delete a large set of individual Device Enrollments with the provided parallelism.
+     *
+     * @see #runBulkEnrollmentImport(BulkOperationMode, Iterator)
+     *
+     * @param bulkOperationMode the {@link BulkOperationMode} that defines the single operation to do over the individualEnrollments. It cannot be {@code null}.
+     * @param individualEnrollments the {@code Iterator} that provides the individualEnrollments. It cannot be {@code null} or empty.
+     * @param maxParallelOperations the {@code int} with the maximum number of bulk operations that runs at the same time. It shall be positive.
+     * @return A {@link BulkEnrollmentOperationResult} object with the combined result of operation for each enrollment.
+     * @throws IllegalArgumentException if the provided parameters are not correct.
+     * @throws ProvisioningServiceClientBulkImportException if one of the bulk operations failed. It contains the result of the ones that succeeded.
+     * @throws ProvisioningServiceClientException if the import was interrupted.
+     */
+    public BulkEnrollmentOperationResult runBulkEnrollmentImport(
+            BulkOperationMode bulkOperationMode, Iterator<IndividualEnrollment> individualEnrollments, int maxParallelOperations)
+            throws ProvisioningServiceClientException
+    {
+        /* SRS_PROVISIONING_SERVICE_CLIENT_21_030: [The runBulkEnrollmentImport shall do a Provisioning operation over the individualEnrollments by calling the bulkImport in the individualEnrollmentManager with the provided maxParallelOperations.] */
+        return individualEnrollmentManager.bulkImport(bulkOperationMode, individualEnrollments, maxParallelOperations);
+    }
+
     /**
      * Retrieve the individualEnrollment information.
      *
@@ -549,6 +619,52 @@ public final class ProvisioningServiceClient
         return individualEnrollmentManager.createQuery(querySpecification, pageSize);
     }
 
+    /**
+     * Factory to create a individualEnrollment query item iterator.
+     *
+     * <p> This method will create a new individualEnrollment query for Device Provisioning Service and return it
+     *     as a {@link QueryIterator} of {@link IndividualEnrollment}, that walks over all the items in all the pages
+     *     of the query, requesting the next page in background while the current one is consumed.
+     *
+     * <p> If the query only needs information besides the attestation, like the registrationId or provisioningStatus,
+     *     use {@code includeAttestation} {@code false} to skip the attestation keys and certificates while decoding
+     *     the individualEnrollments.
+     *
+     * @param querySpecification the {@link QuerySpecification} with the SQL query. It cannot be {@code null}.
+     * @param pageSize the {@code int} with the maximum number of items per page. It can be 0 for default, but not negative.
+     * @param includeAttestation the {@code boolean} that defines if the attestation of the individualEnrollments shall be decoded.
+     * @return The {@link QueryIterator} of individualEnrollments.
+     * @throws IllegalArgumentException if the provided parameters are not correct.
+     */
+    public QueryIterator<IndividualEnrollment> createIndividualEnrollmentQueryIterator(
+            QuerySpecification querySpecification, int pageSize, boolean includeAttestation)
+    {
+        /* SRS_PROVISIONING_SERVICE_CLIENT_21_031: [The createIndividualEnrollmentQueryIterator shall create a new QueryIterator of IndividualEnrollment over the query created by the createQuery in the individualEnrollmentManager.] */
+        return new QueryIterator<>(
+                individualEnrollmentManager.createQuery(querySpecification, pageSize), IndividualEnrollment.class, includeAttestation);
+    }
+
+    /**
+     * Factory to create a individualEnrollment query stream.
+     *
+     * <p> This method will create the same query item iterator as
+     *     {@link #createIndividualEnrollmentQueryIterator(QuerySpecification, int, boolean)}, and return it as a
+     *     sequential {@link Stream} of {@link IndividualEnrollment}. Close the stream to stop the background
+     *     request if the stream is not consumed until its end.
+     *
+     * @param querySpecification the {@link QuerySpecification} with the SQL query. It cannot be {@code null}.
+     * @param pageSize the {@code int} with the maximum number of items per page. It can be 0 for default, but not negative.
+     * @param includeAttestation the {@code boolean} that defines if the attestation of the individualEnrollments shall be decoded.
+     * @return The {@link Stream} of individualEnrollments.
+     * @throws IllegalArgumentException if the provided parameters are not correct.
+     */
+    public Stream<IndividualEnrollment> createIndividualEnrollmentQueryStream(
+            QuerySpecification querySpecification, int pageSize, boolean includeAttestation)
+    {
+        /* SRS_PROVISIONING_SERVICE_CLIENT_21_034: [The createIndividualEnrollmentQueryStream shall return the stream of the QueryIterator created by the createIndividualEnrollmentQueryIterator.] */
+        return createIndividualEnrollmentQueryIterator(querySpecification, pageSize, includeAttestation).stream();
+    }
+
     /**
      * Create or update an enrollment group record.
      *
@@ -860,6 +976,51 @@ public final class ProvisioningServiceClient
         return enrollmentGroupManager.createQuery(querySpecification, pageSize);
     }
 
+    /**
+     * Factory to create an enrollmentGroup query item iterator.
+     *
+     * <p> This method will create a new enrollment group query for Device Provisioning Service and return it
+     *     as a {@link QueryIterator} of {@link EnrollmentGroup}, that walks over all the items in all the pages
+     *     of the query, requesting the next page in background while the current one is consumed.
+     *
+     * <p> Use {@code includeAttestation} {@code false} to skip the attestation certificates while decoding the
+     *     enrollmentGroups.
+     *
+     * @param querySpecification the {@link QuerySpecification} with the SQL query. It cannot be {@code null}.
+     * @param pageSize the {@code int} with the maximum number of items per page. It can be 0 for default, but not negative.
+     * @param includeAttestation the {@code boolean} that defines if the attestation of the enrollmentGroups shall be decoded.
+     * @return The {@link QueryIterator} of enrollmentGroups.
+     * @throws IllegalArgumentException if the provided parameters are not correct.
+     */
+    public QueryIterator<EnrollmentGroup> createEnrollmentGroupQueryIterator(
+            QuerySpecification querySpecification, int pageSize, boolean includeAttestation)
+    {
+        /* SRS_PROVISIONING_SERVICE_CLIENT_21_032: [The createEnrollmentGroupQueryIterator shall create a new QueryIterator of EnrollmentGroup over the query created by the createQuery in the enrollmentGroupManager.] */
+        return new QueryIterator<>(
+                enrollmentGroupManager.createQuery(querySpecification, pageSize), EnrollmentGroup.class, includeAttestation);
+    }
+
+    /**
+     * Factory to create an enrollmentGroup query stream.
+     *
+     * <p> This method will create the same query item iterator as
+     *     {@link #createEnrollmentGroupQueryIterator(QuerySpecification, int, boolean)}, and return it as a
+     *     sequential {@link Stream} of {@link EnrollmentGroup}. Close the stream to stop the background request if
+     *     the stream is not consumed until its end.
+     *
+     * @param querySpecification the {@link QuerySpecification} with the SQL query. It cannot be {@code null}.
+     * @param pageSize the {@code int} with the maximum number of items per page. It can be 0 for default, but not negative.
+     * @param includeAttestation the {@code boolean} that defines if the attestation of the enrollmentGroups shall be decoded.
+     * @return The {@link Stream} of enrollmentGroups.
+     * @throws IllegalArgumentException if the provided parameters are not correct.
+     */
+    public Stream<EnrollmentGroup> createEnrollmentGroupQueryStream(
+            QuerySpecification querySpecification, int pageSize, boolean includeAttestation)
+    {
+        /* SRS_PROVISIONING_SERVICE_CLIENT_21_035: [The createEnrollmentGroupQueryStream shall return the stream of the QueryIterator created by the createEnrollmentGroupQueryIterator.] */
+        return createEnrollmentGroupQueryIterator(querySpecification, pageSize, includeAttestation).stream();
+    }
+
     /**
      * Retrieve the registration status information.
      *
@@ -1144,6 +1305,49 @@ public final class ProvisioningServiceClient
         return registrationStatusManager.createEnrollmentGroupQuery(querySpecification, enrollmentGroupId, pageSize);
     }
 
+    /**
+     * Factory to create a registration state query item iterator.
+     *
+     * <p> This method will create a new registration state query for a specific enrollment group on the Device
+     *     Provisioning Service and return it as a {@link QueryIterator} of {@link DeviceRegistrationState}, that walks
+     *     over all the items in all the pages of the query, requesting the next page in background while the current
+     *     one is consumed.
+     *
+     * @param querySpecification the {@link QuerySpecification} with the SQL query. It cannot be {@code null}.
+     * @param enrollmentGroupId the {@code String} that identifies the enrollmentGroup. It cannot be {@code null} or empty.
+     * @param pageSize the {@code int} with the maximum number of items per page. It can be 0 for default, but not negative.
+     * @return The {@link QueryIterator} of deviceRegistrationStates.
+     * @throws IllegalArgumentException if the provided parameters are not correct.
+     */
+    public QueryIterator<DeviceRegistrationState> createEnrollmentGroupRegistrationStateQueryIterator(
+            QuerySpecification querySpecification, String enrollmentGroupId, int pageSize)
+    {
+        /* SRS_PROVISIONING_SERVICE_CLIENT_21_033: [The createEnrollmentGroupRegistrationStateQueryIterator shall create a new QueryIterator of DeviceRegistrationState over the query created by the createEnrollmentGroupQuery in the registrationStatusManager.] */
+        return new QueryIterator<>(
+                registrationStatusManager.createEnrollmentGroupQuery(querySpecification, enrollmentGroupId, pageSize), DeviceRegistrationState.class, true);
+    }
+
+    /**
+     * Factory to create a registration state query stream.
+     *
+     * <p> This method will create the same query item iterator as
+     *     {@link #createEnrollmentGroupRegistrationStateQueryIterator(QuerySpecification, String, int)}, and return it
+     *     as a sequential {@link Stream} of {@link DeviceRegistrationState}. Close the stream to stop the background
+     *     request if the stream is not consumed until its end.
+     *
+     * @param querySpecification the {@link QuerySpecification} with the SQL query. It cannot be {@code null}.
+     * @param enrollmentGroupId the {@code String} that identifies the enrollmentGroup. It cannot be {@code null} or empty.
+     * @param pageSize the {@code int} with the maximum number of items per page. It can be 0 for default, but not negative.
+     * @return The {@link Stream} of deviceRegistrationStates.
+     * @throws IllegalArgumentException if the provided parameters are not correct.
+     */
+    public Stream<DeviceRegistrationState> createEnrollmentGroupRegistrationStateQueryStream(
+            QuerySpecification querySpecification, String enrollmentGroupId, int pageSize)
+    {
+        /* SRS_PROVISIONING_SERVICE_CLIENT_21_036: [The createEnrollmentGroupRegistrationStateQueryStream shall return the stream of the QueryIterator created by the createEnrollmentGroupRegistrationStateQueryIterator.] */
+        return createEnrollmentGroupRegistrationStateQueryIterator(querySpecification, enrollmentGroupId, pageSize).stream();
+    }
+
     /**
      * @deprecated As of release 1.0.0, replaced by {@link #createEnrollmentGroupRegistrationStateQuery(QuerySpecification, String, int)} ()}
      * @param querySpecification the {@link QuerySpecification} with the SQL query. It cannot be {@code null}.
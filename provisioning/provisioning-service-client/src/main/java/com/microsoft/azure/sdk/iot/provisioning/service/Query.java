@@ -71,6 +71,7 @@ public class Query implements Iterator
     private String querySpecificationJson;
     private int pageSize;
     private String continuationToken;
+    private String itemType;
     private ContractApiHttp contractApiHttp;
     private boolean hasNext;
     private String queryPath;
@@ -169,6 +170,23 @@ public class Query implements Iterator
      */
     @Override
     public QueryResult next()
+    {
+        byte[] body = nextPageBody();
+
+        /* SRS_QUERY_21_016: [The next shall create and return a new instance of the QueryResult using the `x-ms-item-type` as type, `x-ms-continuation` as the next continuationToken, and the message body.] */
+        return new QueryResult(this.itemType, new String(body), this.continuationToken);
+    }
+
+    /**
+     * Request the next page of result for the query, without parsing it.
+     *
+     * <p> It updates the continuationToken, the item type, and the hasNext with the information in the response.
+     *
+     * @return The {@code byte[]} with the body of the response, that is a JSON array with the items in the page.
+     * @throws NoSuchElementException if the query does no have more pages to return.
+     * @throws IllegalArgumentException if the request failed, or if the response contains a null body.
+     */
+    byte[] nextPageBody()
     {
         /* SRS_QUERY_21_011: [The next shall throw NoSuchElementException if the hasNext is false.] */
         if(!hasNext)
@@ -212,16 +230,25 @@ public class Query implements Iterator
         {
             throw new IllegalArgumentException("Http response for next cannot contains a null body");
         }
-        /* SRS_QUERY_21_016: [The next shall create and return a new instance of the QueryResult using the `x-ms-item-type` as type, `x-ms-continuation` as the next continuationToken, and the message body.] */
-        String bodyStr = new String(body);
         Map<String, String> headers = httpResponse.getHeaderFields();
-        String type = headers.get(ITEM_TYPE_KEY);
+        this.itemType = headers.get(ITEM_TYPE_KEY);
         this.continuationToken = headers.get(CONTINUATION_TOKEN_KEY);
 
         /* SRS_QUERY_21_017: [The next shall set hasNext as true if the continuationToken is not null, or false if it is null.] */
         hasNext = (this.continuationToken != null);
 
-        return new QueryResult(type, bodyStr, this.continuationToken);
+        return body;
+    }
+
+    /**
+     * Getter for the type of the items in the last page.
+     *
+     * @return The {@code String} with the `x-ms-item-type` of the last page, or {@code null} if no page was requested.
+     */
+    String getItemType()
+    {
+        /* SRS_QUERY_21_025: [The getItemType shall return the `x-ms-item-type` of the last page.] */
+        return this.itemType;
     }
 
     /**
@@ -0,0 +1,324 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.provisioning.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.microsoft.azure.sdk.iot.deps.serializer.SerializerRegistry;
+import com.microsoft.azure.sdk.iot.provisioning.service.configs.QuerySpecification;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The query item iterator.
+ *
+ * <p> The {@code QueryIterator} walks over all the items of a {@link Query}, one item at a time, across all the
+ *     pages of the query. It is the result of the query iterator factories
+ * <table>
+ *     <caption>Query iterator factories</caption>
+ *     <tr>
+ *         <td><b>IndividualEnrollment:</b></td>
+ *         <td>{@link ProvisioningServiceClient#createIndividualEnrollmentQueryIterator(QuerySpecification, int, boolean)}</td>
+ *     </tr>
+ *     <tr>
+ *         <td><b>EnrollmentGroup:</b></td>
+ *         <td>{@link ProvisioningServiceClient#createEnrollmentGroupQueryIterator(QuerySpecification, int, boolean)}</td>
+ *     </tr>
+ *     <tr>
+ *         <td><b>DeviceRegistrationState:</b></td>
+ *         <td>{@link ProvisioningServiceClient#createEnrollmentGroupRegistrationStateQueryIterator(QuerySpecification, String, int)}</td>
+ *     </tr>
+ * </table>
+ *
+ * <p> While the items of one page are consumed, the next page is requested in background, so the time to walk a
+ *     large query is not the sum of the latency of all the pages. The items in a page are decoded one by one when
+ *     {@link #next()} is called, so only the raw JSON of the current and the next pages are kept in memory.
+ *
+ * <p> If the iterator is created without attestation, the {@code attestation} of each item is skipped while
+ *     decoding it, and the {@code getAttestation} of the items will return {@code null}. It saves memory and time
+ *     when the query only needs the other information of the enrollments, like the registrationId and status.
+ *
+ * <p> Call {@link #close()} to stop the background request if the query is abandoned before its end. The same
+ *     query can be consumed as a sequential {@link Stream} with {@link #stream()}, closing the stream closes the
+ *     iterator.
+ *
+ * @param <T> the type of the items in the query.
+ */
+public final class QueryIterator<T> implements Iterator<T>, Closeable
+{
+    private static final String ATTESTATION_TAG = "attestation";
+    private static final long PREFETCH_THREAD_KEEP_ALIVE_IN_SECONDS = 30;
+
+    private final Query query;
+    private final Class<T> itemClass;
+    private final boolean includeAttestation;
+    private final Gson gson;
+    private final JsonParser jsonParser;
+    private final ThreadPoolExecutor prefetchExecutor;
+
+    private Future<byte[]> nextPage;
+    private JsonReader pageReader;
+    private boolean closed;
+
+    /**
+     * INTERNAL CONSTRUCTOR
+     *
+     * <p> Use one of the factories in the {@link ProvisioningServiceClient} to create a new query iterator.
+     *
+     * @param query the {@link Query} that requests the pages. It cannot be {@code null}.
+     * @param itemClass the {@code Class} of the items in the query. It cannot be {@code null}.
+     * @param includeAttestation the {@code boolean} that defines if the attestation of the items shall be decoded.
+     * @throws IllegalArgumentException if one of the parameters is invalid.
+     */
+    QueryIterator(Query query, Class<T> itemClass, boolean includeAttestation)
+    {
+        /* SRS_QUERY_ITERATOR_21_001: [The constructor shall throw IllegalArgumentException if the provided query is null.] */
+        if(query == null)
+        {
+            throw new IllegalArgumentException("query cannot be null.");
+        }
+
+        /* SRS_QUERY_ITERATOR_21_002: [The constructor shall throw IllegalArgumentException if the provided itemClass is null.] */
+        if(itemClass == null)
+        {
+            throw new IllegalArgumentException("itemClass cannot be null.");
+        }
+
+        this.query = query;
+        this.itemClass = itemClass;
+        this.includeAttestation = includeAttestation;
+        this.gson = SerializerRegistry.getGsonExposeOnlyDisableHtmlEscaping();
+        this.jsonParser = new JsonParser();
+        this.prefetchExecutor = new ThreadPoolExecutor(
+                1, 1, PREFETCH_THREAD_KEEP_ALIVE_IN_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory()
+                {
+                    @Override
+                    public Thread newThread(Runnable runnable)
+                    {
+                        Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        this.prefetchExecutor.allowCoreThreadTimeOut(true);
+
+        /* SRS_QUERY_ITERATOR_21_003: [The constructor shall start requesting the first page in background.] */
+        prefetch();
+    }
+
+    /**
+     * Check if the query has more items.
+     *
+     * <p> It waits for the next page if all the items of the current page were already returned.
+     *
+     * @return The {@code boolean} {@code true} if {@link #next()} will return another item.
+     * @throws IllegalArgumentException if the request for the next page failed.
+     * @throws JsonSyntaxException if the page is not a valid JSON array.
+     */
+    @Override
+    public boolean hasNext()
+    {
+        if(this.closed)
+        {
+            /* SRS_QUERY_ITERATOR_21_004: [If the iterator is closed, the hasNext shall return false.] */
+            return false;
+        }
+
+        while(!currentPageHasNext())
+        {
+            if(this.nextPage == null)
+            {
+                /* SRS_QUERY_ITERATOR_21_006: [If the query has no more pages, the hasNext shall close the iterator and return false.] */
+                close();
+                return false;
+            }
+
+            /* SRS_QUERY_ITERATOR_21_005: [If all the items in the current page were returned, the hasNext shall wait for the next page, and start requesting the following page in background.] */
+            byte[] body = waitNextPage();
+            prefetch();
+            openPage(body);
+        }
+
+        return true;
+    }
+
+    /**
+     * Return the next item of the query.
+     *
+     * @return The next item of the query.
+     * @throws NoSuchElementException if the query does not have more items.
+     * @throws IllegalArgumentException if the request for the next page failed.
+     * @throws JsonSyntaxException if the item is not valid.
+     */
+    @Override
+    public T next()
+    {
+        /* SRS_QUERY_ITERATOR_21_008: [The next shall throw NoSuchElementException if the hasNext is false.] */
+        if(!hasNext())
+        {
+            throw new NoSuchElementException("There are no more pending elements");
+        }
+
+        if(this.includeAttestation)
+        {
+            /* SRS_QUERY_ITERATOR_21_009: [The next shall decode and return the next item in the current page.] */
+            return this.gson.fromJson(this.pageReader, this.itemClass);
+        }
+
+        /* SRS_QUERY_ITERATOR_21_010: [If the iterator was created without attestation, the next shall skip the attestation of the item.] */
+        try
+        {
+            JsonObject item = new JsonObject();
+            this.pageReader.beginObject();
+            while(this.pageReader.hasNext())
+            {
+                String name = this.pageReader.nextName();
+                if(ATTESTATION_TAG.equals(name))
+                {
+                    this.pageReader.skipValue();
+                }
+                else
+                {
+                    item.add(name, this.jsonParser.parse(this.pageReader));
+                }
+            }
+            this.pageReader.endObject();
+            return this.gson.fromJson(item, this.itemClass);
+        }
+        catch (IOException | IllegalStateException e)
+        {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    /**
+     * Return the remaining items of the query as a sequential, ordered {@link Stream}.
+     *
+     * <p> The stream consumes this iterator, so the iterator shall not be used after the stream is created. Closing
+     *     the stream, for instance with a try-with-resources, closes this iterator.
+     *
+     * @return The {@link Stream} of the items of the query.
+     */
+    public Stream<T> stream()
+    {
+        /* SRS_QUERY_ITERATOR_21_014: [The stream shall return a sequential and ordered stream over the remaining items of this iterator, that closes this iterator when it is closed.] */
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(this::close);
+    }
+
+    /**
+     * The query iterator do not support remove.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public void remove()
+    {
+        /* SRS_QUERY_ITERATOR_21_011: [The remove shall throw UnsupportedOperationException.] */
+        throw new UnsupportedOperationException("remove is not supported by the query iterator");
+    }
+
+    /**
+     * Stop the query.
+     *
+     * <p> It cancels the background request for the next page, if any. After close, {@link #hasNext()} returns
+     *     {@code false}.
+     */
+    @Override
+    public void close()
+    {
+        /* SRS_QUERY_ITERATOR_21_012: [The close shall cancel the background request and release the current page.] */
+        this.closed = true;
+        this.nextPage = null;
+        this.pageReader = null;
+        this.prefetchExecutor.shutdownNow();
+    }
+
+    private boolean currentPageHasNext()
+    {
+        try
+        {
+            return (this.pageReader != null) && this.pageReader.hasNext();
+        }
+        catch (IOException | IllegalStateException e)
+        {
+            close();
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    private void openPage(byte[] body)
+    {
+        try
+        {
+            this.pageReader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8));
+            this.pageReader.beginArray();
+        }
+        catch (IOException | IllegalStateException e)
+        {
+            /* SRS_QUERY_ITERATOR_21_007: [The hasNext shall throw JsonSyntaxException if the page is not a valid JSON array.] */
+            close();
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    private void prefetch()
+    {
+        if(this.query.hasNext())
+        {
+            this.nextPage = this.prefetchExecutor.submit(new Callable<byte[]>()
+            {
+                @Override
+                public byte[] call()
+                {
+                    return query.nextPageBody();
+                }
+            });
+        }
+        else
+        {
+            this.nextPage = null;
+        }
+    }
+
+    private byte[] waitNextPage()
+    {
+        try
+        {
+            return this.nextPage.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            close();
+            throw new IllegalStateException("Interrupted while waiting for the next page of the query", e);
+        }
+        catch (ExecutionException e)
+        {
+            /* SRS_QUERY_ITERATOR_21_013: [If the request for a page failed, the hasNext shall close the iterator and throw the exception of the request.] */
+            close();
+            if(e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException)e.getCause();
+            }
+            throw new IllegalArgumentException(e.getCause());
+        }
+    }
+}
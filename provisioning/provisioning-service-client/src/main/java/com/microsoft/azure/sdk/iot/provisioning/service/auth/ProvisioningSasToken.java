@@ -123,6 +123,17 @@ public final class ProvisioningSasToken
         return expiresOnDate / ONE_SECOND_IN_MILLISECONDS;
     }
 
+    /**
+     * Getter for the expiry time of the SAS token.
+     *
+     * @return The time, as a UNIX timestamp in seconds, after which the token is no longer valid.
+     */
+    public long getExpiryTime()
+    {
+        // Codes_SRS_PROVISIONING_SERVICE_SASTOKEN_21_009: [The getExpiryTime shall return the expiry time of the token, as a UNIX timestamp in seconds.]
+        return this.expiryTime;
+    }
+
     /**
      * Returns the string representation of the SAS token.
      *
@@ -4,11 +4,15 @@
 package com.microsoft.azure.sdk.iot.provisioning.service.configs;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+import com.microsoft.azure.sdk.iot.deps.serializer.SerializerRegistry;
 import com.microsoft.azure.sdk.iot.provisioning.service.ProvisioningServiceClient;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
@@ -70,7 +74,8 @@ public final class BulkEnrollmentOperation
      * Serializer
      *
      * <p> Creates a {@code String}, whose content represents the mode and the collection of
-     *     individualEnrollments in a JSON format.
+     *     individualEnrollments in a JSON format. The individualEnrollments are written one by one,
+     *     without building the JSON tree of the whole bulk in memory.
      *
      * @param mode the {@link BulkOperationMode} that defines the single operation to do over the individualEnrollments.
      * @param individualEnrollments the collection of {@link IndividualEnrollment} that contains the description of each individualEnrollment.
@@ -79,9 +84,34 @@ public final class BulkEnrollmentOperation
      */
     public static String toJson(BulkOperationMode mode, Collection<IndividualEnrollment> individualEnrollments)
     {
-        /* SRS_BULK_OPERATION_21_001: [The toJson shall return a String with the mode and the collection of individualEnrollments using a JSON format.] */
         /* SRS_BULK_OPERATION_21_002: [The toJson shall throw IllegalArgumentException if the provided mode is null or the collection of individualEnrollments is null or empty.] */
-        return BulkEnrollmentOperation.toJsonElement(mode, individualEnrollments).toString();
+        BulkEnrollmentOperation.validate(mode, individualEnrollments);
+
+        /* SRS_BULK_OPERATION_21_001: [The toJson shall return a String with the mode and the collection of individualEnrollments using a JSON format.] */
+        Gson gson = SerializerRegistry.getGsonExposeOnlyDisableHtmlEscaping();
+        StringWriter stringWriter = new StringWriter();
+        try
+        {
+            JsonWriter jsonWriter = gson.newJsonWriter(stringWriter);
+            jsonWriter.beginObject();
+            jsonWriter.name(BULK_OPERATION_MODE_TAG);
+            gson.toJson(gson.toJsonTree(mode), jsonWriter);
+            jsonWriter.name(ENROLLMENTS_TAG);
+            jsonWriter.beginArray();
+            for (IndividualEnrollment individualEnrollment : individualEnrollments)
+            {
+                gson.toJson(individualEnrollment.toJsonElement(), jsonWriter);
+            }
+            jsonWriter.endArray();
+            jsonWriter.endObject();
+            jsonWriter.flush();
+        }
+        catch (IOException e)
+        {
+            throw new JsonIOException(e);
+        }
+
+        return stringWriter.toString();
     }
 
     /**
@@ -99,7 +129,7 @@ public final class BulkEnrollmentOperation
     {
         /* SRS_BULK_OPERATION_21_003: [The toString shall return a String with the mode and the collection of individualEnrollments using a pretty print JSON format.] */
         /* SRS_BULK_OPERATION_21_004: [The toString shall throw IllegalArgumentException if the provided mode is null or the collection of individualEnrollments is null or empty.] */
-        Gson gson = new GsonBuilder().disableHtmlEscaping().setPrettyPrinting().create();
+        Gson gson = SerializerRegistry.getGsonPrettyPrinting();
         return gson.toJson(BulkEnrollmentOperation.toJsonElement(mode, individualEnrollments));
     }
 
@@ -120,17 +150,10 @@ public final class BulkEnrollmentOperation
     public static JsonElement toJsonElement(BulkOperationMode mode, Collection<IndividualEnrollment> individualEnrollments)
     {
         /* SRS_BULK_OPERATION_21_005: [The toJsonElement shall throw IllegalArgumentException if the provided mode is null or the collection of individualEnrollments is null or empty.] */
-        if(mode == null)
-        {
-            throw new IllegalArgumentException("mode cannot be null");
-        }
-        if((individualEnrollments == null) || individualEnrollments.isEmpty())
-        {
-            throw new IllegalArgumentException("individualEnrollments cannot be null or empty");
-        }
+        BulkEnrollmentOperation.validate(mode, individualEnrollments);
 
         /* SRS_BULK_OPERATION_21_006: [The toJsonElement shall return a JsonElement with the mode and the collection of individualEnrollments using a JSON format.] */
-        Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().disableHtmlEscaping().create();
+        Gson gson = SerializerRegistry.getGsonExposeOnlyDisableHtmlEscaping();
         JsonObject twinJson = new JsonObject();
 
         twinJson.add(BULK_OPERATION_MODE_TAG, gson.toJsonTree(mode));
@@ -146,4 +169,16 @@ public final class BulkEnrollmentOperation
 
         return twinJson;
     }
+
+    private static void validate(BulkOperationMode mode, Collection<IndividualEnrollment> individualEnrollments)
+    {
+        if(mode == null)
+        {
+            throw new IllegalArgumentException("mode cannot be null");
+        }
+        if((individualEnrollments == null) || individualEnrollments.isEmpty())
+        {
+            throw new IllegalArgumentException("individualEnrollments cannot be null or empty");
+        }
+    }
 }
@@ -4,13 +4,14 @@
 package com.microsoft.azure.sdk.iot.provisioning.service.configs;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
 import com.microsoft.azure.sdk.iot.deps.serializer.ParserUtility;
+import com.microsoft.azure.sdk.iot.deps.serializer.SerializerRegistry;
 import com.microsoft.azure.sdk.iot.provisioning.service.Tools;
 import com.microsoft.azure.sdk.iot.provisioning.service.ProvisioningServiceClient;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -80,7 +81,7 @@ public class BulkEnrollmentOperationResult
 
         /* SRS_BULK_OPERATION_RESULT_21_002: [The constructor shall throw JsonSyntaxException if the JSON is invalid.] */
         /* SRS_BULK_OPERATION_RESULT_21_003: [The constructor shall deserialize the provided JSON for the enrollment class and subclasses.] */
-        Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().disableHtmlEscaping().create();
+        Gson gson = SerializerRegistry.getGsonExposeOnlyDisableHtmlEscaping();
         BulkEnrollmentOperationResult result = gson.fromJson(json, BulkEnrollmentOperationResult.class);
 
         /* SRS_BULK_OPERATION_RESULT_21_004: [The constructor shall throw IllegalArgumentException if the JSON do not contains isSuccessful.] */
@@ -98,6 +99,50 @@ public class BulkEnrollmentOperationResult
         this.errors = result.errors;
     }
 
+    /**
+     * Combine results
+     *
+     * <p> Creates a single result with the results of the bulk operations that were sent for the chunks of a
+     *     bulk import. The combined result is successful only if all the results are successful, and it
+     *     contains the errors of all the results.
+     *
+     * @param results the collection of {@link BulkEnrollmentOperationResult} to combine. It cannot be {@code null} or empty.
+     * @return The {@code BulkEnrollmentOperationResult} with the combined result.
+     * @throws IllegalArgumentException If the provided collection is null, empty, or contains a null result.
+     */
+    public static BulkEnrollmentOperationResult combine(Collection<BulkEnrollmentOperationResult> results)
+    {
+        /* SRS_BULK_OPERATION_RESULT_21_012: [The combine shall throw IllegalArgumentException if the collection of results is null, empty, or contains a null result.] */
+        if((results == null) || results.isEmpty())
+        {
+            throw new IllegalArgumentException("results cannot be null or empty");
+        }
+
+        boolean successful = true;
+        List<BulkEnrollmentOperationError> combinedErrors = new ArrayList<>();
+        for (BulkEnrollmentOperationResult result : results)
+        {
+            if(result == null)
+            {
+                throw new IllegalArgumentException("results cannot contain a null result");
+            }
+
+            /* SRS_BULK_OPERATION_RESULT_21_013: [The combine shall return a result that is successful only if all the results are successful.] */
+            successful &= result.isSuccessful;
+
+            /* SRS_BULK_OPERATION_RESULT_21_014: [The combine shall return a result with the errors of all the results, in the order of the results.] */
+            if(result.errors != null)
+            {
+                combinedErrors.addAll(Arrays.asList(result.errors));
+            }
+        }
+
+        BulkEnrollmentOperationResult combinedResult = new BulkEnrollmentOperationResult();
+        combinedResult.isSuccessful = successful;
+        combinedResult.errors = combinedErrors.toArray(new BulkEnrollmentOperationError[combinedErrors.size()]);
+        return combinedResult;
+    }
+
     /**
      * Getter for the Bulk Operation successful.
      *
@@ -129,7 +174,7 @@ public class BulkEnrollmentOperationResult
     public String toString()
     {
         /* SRS_BULK_OPERATION_RESULT_21_010: [The toString shall return a String with the information into this class in a pretty print JSON.] */
-        Gson gson = new GsonBuilder().disableHtmlEscaping().setPrettyPrinting().create();
+        Gson gson = SerializerRegistry.getGsonPrettyPrinting();
         return gson.toJson(this);
     }
 
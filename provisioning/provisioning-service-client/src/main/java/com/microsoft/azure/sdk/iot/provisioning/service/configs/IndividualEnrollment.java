@@ -7,6 +7,7 @@ import com.google.gson.*;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
 import com.microsoft.azure.sdk.iot.deps.serializer.ParserUtility;
+import com.microsoft.azure.sdk.iot.deps.serializer.SerializerRegistry;
 import com.microsoft.azure.sdk.iot.deps.twin.DeviceCapabilities;
 import com.microsoft.azure.sdk.iot.provisioning.service.Tools;
 import com.microsoft.azure.sdk.iot.provisioning.service.ProvisioningServiceClient;
@@ -225,7 +226,7 @@ public class IndividualEnrollment extends Serializable
 
         /* SRS_INDIVIDUAL_ENROLLMENT_21_003: [The constructor shall throw JsonSyntaxException if the JSON is invalid.] */
         /* SRS_INDIVIDUAL_ENROLLMENT_21_004: [The constructor shall deserialize the provided JSON for the enrollment class and subclasses.] */
-        Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().disableHtmlEscaping().create();
+        Gson gson = SerializerRegistry.getGsonExposeOnlyDisableHtmlEscaping();
         IndividualEnrollment result = gson.fromJson(json, IndividualEnrollment.class);
 
         /* SRS_INDIVIDUAL_ENROLLMENT_21_005: [The constructor shall judge and store the provided mandatory parameters `registrationId` and `attestation` using the IndividualEnrollment setters.] */
@@ -301,7 +302,7 @@ public class IndividualEnrollment extends Serializable
     public JsonElement toJsonElement()
     {
         /* SRS_INDIVIDUAL_ENROLLMENT_21_013: [The toJsonElement shall return a JsonElement with the information in this class in a JSON format.] */
-        Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().disableHtmlEscaping().create();
+        Gson gson = SerializerRegistry.getGsonExposeOnlyDisableHtmlEscaping();
         JsonObject enrollmentJson = gson.toJsonTree(this).getAsJsonObject();
 
         /* SRS_INDIVIDUAL_ENROLLMENT_21_014: [If the initialTwin is not null, the toJsonElement shall include its content in the final JSON.] */
@@ -407,11 +408,19 @@ public class IndividualEnrollment extends Serializable
     /**
      * Getter for the attestation mechanism.
      *
-     * @return The {@code Attestation} with the attestation content. It cannot be {@code null}.
+     * @return The {@code Attestation} with the attestation content. It is {@code null} only if the attestation
+     *         was not provided, for instance, in the items of a {@link com.microsoft.azure.sdk.iot.provisioning.service.QueryIterator}
+     *         created without attestation.
      * @throws ProvisioningServiceClientException If the type of the attestation mechanism is unknown.
      */
     public Attestation getAttestation() throws ProvisioningServiceClientException
     {
+        /* SRS_INDIVIDUAL_ENROLLMENT_21_052: [If the attestation was not provided, the getAttestation shall return null.] */
+        if(this.attestation == null)
+        {
+            return null;
+        }
+
         /* SRS_INDIVIDUAL_ENROLLMENT_21_025: [The getAttestation shall return a AttestationMechanism with the stored attestation.] */
         return this.attestation.getAttestation();
     }
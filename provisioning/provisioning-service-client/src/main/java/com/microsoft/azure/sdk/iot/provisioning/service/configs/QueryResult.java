@@ -4,6 +4,7 @@
 package com.microsoft.azure.sdk.iot.provisioning.service.configs;
 
 import com.google.gson.*;
+import com.microsoft.azure.sdk.iot.deps.serializer.SerializerRegistry;
 import com.microsoft.azure.sdk.iot.provisioning.service.Tools;
 
 /**
@@ -92,7 +93,7 @@ public class QueryResult
     {
         /* SRS_QUERY_RESULT_21_001: [The constructor shall throw IllegalArgumentException if the provided type is null, empty, or not parsed to QueryResultType.] */
         QueryResultType queryResultType = QueryResultType.fromString(type);
-        Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().disableHtmlEscaping().create();
+        Gson gson = SerializerRegistry.getGsonExposeOnlyDisableHtmlEscaping();
 
         /* SRS_QUERY_RESULT_21_002: [The constructor shall throw IllegalArgumentException if the provided body is null or empty and the type is not `unknown`.] */
         if((queryResultType != QueryResultType.UNKNOWN) && Tools.isNullOrEmpty(body))
@@ -197,7 +198,7 @@ public class QueryResult
     public String toString()
     {
         /* SRS_QUERY_RESULT_21_015: [The toString shall return a String with the information in this class in a pretty print JSON.] */
-        Gson gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+        Gson gson = SerializerRegistry.getGsonPrettyPrinting();
         return gson.toJson(this);
     }
 
@@ -54,6 +54,10 @@ import java.util.Map;
  * }
  * </pre>
  *
+ * <p> The SAS token is signed once and reused by all the requests until it is close to expire, and the requests
+ *     are not serialized, so parallel requests can use parallel connections. The TLS connections are kept alive
+ *     and reused by the JDK keep-alive cache, which requires the response streams to be completely read, as the
+ *     {@code HttpRequest} does.
  */
 public class ContractApiHttp
 {
@@ -75,8 +79,15 @@ public class ContractApiHttp
     private static final String HEADER_FIELD_VALUE_CONTENT_TYPE = "application/json";
     private static final String HEADER_FIELD_VALUE_CHARSET = "utf-8";
 
+    private static final long SAS_TOKEN_RENEWAL_MARGIN_IN_SECONDS = 24 * 60 * 60;
+    private static final long ONE_SECOND_IN_MILLISECONDS = 1000;
+
     private ProvisioningConnectionString provisioningConnectionString;
 
+    private final Object sasTokenLock = new Object();
+    private String sasToken;
+    private long sasTokenRenewalTime;
+
     /**
      * PRIVATE CONSTRUCTOR
      *
@@ -118,6 +129,9 @@ public class ContractApiHttp
      *    We highly recommend that you uses the APis under <b>{@link ProvisioningServiceClient}</b>
      *    instead of directly access the rest API using this class.
      * </p>
+     * <p>
+     *    This function is thread safe, and concurrent calls are sent in parallel.
+     * </p>
      *
      * @param httpMethod is the http verb in the request (GET, POST, PUT, DELETE, PATCH).
      * @param path is the path to the resource in the service that will compose the URL.
@@ -128,7 +142,7 @@ public class ContractApiHttp
      * @throws ProvisioningServiceClientException if the Provisioning Service response contains an error message.
      * @throws IllegalArgumentException if the provided parameters are not correct.
      */
-    public synchronized HttpResponse request(
+    public HttpResponse request(
             HttpMethod httpMethod,
             String path,
             Map<String, String> headerParameters,
@@ -137,7 +151,7 @@ public class ContractApiHttp
     {
         /* SRS_HTTP_DEVICE_REGISTRATION_CLIENT_21_005: [The request shall create a SAS token based on the connection string.*/
         /* SRS_HTTP_DEVICE_REGISTRATION_CLIENT_21_006: [If the request get problem to create the SAS token, it shall throw IllegalArgumentException.*/
-        String sasTokenString = new ProvisioningSasToken(this.provisioningConnectionString).toString();
+        String sasTokenString = getSasToken();
 
         /* SRS_HTTP_DEVICE_REGISTRATION_CLIENT_21_007: [The request shall create a HTTP URL based on the Device Registration path.*/
         URL url = getUrlForPath(path);
@@ -163,6 +177,22 @@ public class ContractApiHttp
         return httpResponse;
     }
 
+    private String getSasToken()
+    {
+        synchronized (this.sasTokenLock)
+        {
+            /* SRS_HTTP_DEVICE_REGISTRATION_CLIENT_21_017: [The request shall reuse the SAS token of the previous requests, and only create a new one when the previous one is less than SAS_TOKEN_RENEWAL_MARGIN_IN_SECONDS from its expiry time.] */
+            long now = System.currentTimeMillis() / ONE_SECOND_IN_MILLISECONDS;
+            if((this.sasToken == null) || (now >= this.sasTokenRenewalTime))
+            {
+                ProvisioningSasToken provisioningSasToken = new ProvisioningSasToken(this.provisioningConnectionString);
+                this.sasToken = provisioningSasToken.toString();
+                this.sasTokenRenewalTime = provisioningSasToken.getExpiryTime() - SAS_TOKEN_RENEWAL_MARGIN_IN_SECONDS;
+            }
+            return this.sasToken;
+        }
+    }
+
     private HttpRequest createRequest(URL url, HttpMethod method, Map<String, String> headerParameters, byte[] payload, String sasToken) throws ProvisioningServiceClientTransportException
     {
         /* SRS_HTTP_DEVICE_REGISTRATION_CLIENT_21_011: [If the request get problem creating the HttpRequest, it shall throw ProvisioningServiceClientTransportException.*/
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.sdk.iot.provisioning.service.exceptions;
+
+import com.microsoft.azure.sdk.iot.provisioning.service.configs.BulkEnrollmentOperationResult;
+import com.microsoft.azure.sdk.iot.provisioning.service.configs.IndividualEnrollment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bulk import exception
+ *
+ * <p> Thrown by the bulk import when one or more chunks of individualEnrollments fail for good. The cause is the
+ *     exception of the first chunk that failed. The exception keeps the combined result of the chunks that the
+ *     Device Provisioning Service executed, and the individualEnrollments of the chunks that failed, so the caller
+ *     can retry only those. The individualEnrollments that the import did not read are still in the source.
+ */
+public class ProvisioningServiceClientBulkImportException extends ProvisioningServiceClientException
+{
+    private final BulkEnrollmentOperationResult partialResult;
+    private final List<IndividualEnrollment> failedEnrollments;
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param message the {@code String} with the description of the failure.
+     * @param cause the {@code Throwable} that failed the first chunk.
+     * @param partialResult the {@link BulkEnrollmentOperationResult} with the combined result of the chunks that succeeded. It can be {@code null} if no chunk succeeded.
+     * @param failedEnrollments the {@code List} of individualEnrollments in the chunks that failed. It can be {@code null}.
+     */
+    public ProvisioningServiceClientBulkImportException(String message, Throwable cause,
+                                                        BulkEnrollmentOperationResult partialResult,
+                                                        List<IndividualEnrollment> failedEnrollments)
+    {
+        super(message, cause);
+        this.partialResult = partialResult;
+        this.failedEnrollments = (failedEnrollments == null) ?
+                Collections.<IndividualEnrollment>emptyList() :
+                Collections.unmodifiableList(new ArrayList<>(failedEnrollments));
+    }
+
+    /**
+     * Getter for the partial result.
+     *
+     * @return The {@link BulkEnrollmentOperationResult} with the combined result of the chunks that succeeded. It can be {@code null} if no chunk succeeded.
+     */
+    public BulkEnrollmentOperationResult getPartialResult()
+    {
+        return this.partialResult;
+    }
+
+    /**
+     * Getter for the failed individualEnrollments.
+     *
+     * @return The unmodifiable {@code List} with the individualEnrollments of the chunks that failed, in the order of the source. It cannot be {@code null}.
+     */
+    public List<IndividualEnrollment> getFailedEnrollments()
+    {
+        return this.failedEnrollments;
+    }
+}
@@ -14,6 +14,8 @@ package com.microsoft.azure.sdk.iot.provisioning.service.exceptions;
  *     |
  *     +-->ProvisioningServiceClientTransportException [any transport layer exception]
  *     |
+ *     +-->ProvisioningServiceClientBulkImportException [one or more chunks of a bulk import failed]
+ *     |
  *     +-->ProvisioningServiceClientServiceException [any exception reported in the http response]
  *             |
  *             |
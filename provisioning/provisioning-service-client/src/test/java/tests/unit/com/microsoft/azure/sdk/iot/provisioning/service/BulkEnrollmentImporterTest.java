@@ -0,0 +1,337 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package tests.unit.com.microsoft.azure.sdk.iot.provisioning.service;
+
+import com.microsoft.azure.sdk.iot.provisioning.service.BulkEnrollmentImporter;
+import com.microsoft.azure.sdk.iot.provisioning.service.IndividualEnrollmentManager;
+import com.microsoft.azure.sdk.iot.provisioning.service.configs.BulkEnrollmentOperationResult;
+import com.microsoft.azure.sdk.iot.provisioning.service.configs.BulkOperationMode;
+import com.microsoft.azure.sdk.iot.provisioning.service.configs.IndividualEnrollment;
+import com.microsoft.azure.sdk.iot.provisioning.service.exceptions.*;
+import mockit.Deencapsulation;
+import mockit.Delegate;
+import mockit.Mocked;
+import mockit.NonStrictExpectations;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for Bulk Enrollment Importer.
+ * 100% methods, 100% lines covered
+ */
+public class BulkEnrollmentImporterTest
+{
+    private static final String VALID_REGISTRATION_ID = "8be9cd0e-8934-4991-9cbf-cc3b6c7ac647";
+    private static final String SUCCESSFUL_RESULT_JSON = "{\"isSuccessful\":true, \"errors\":[]}";
+    private static final String FAILED_RESULT_JSON =
+            "{\"isSuccessful\":false, \"errors\":[{\"registrationId\":\"" + VALID_REGISTRATION_ID + "\", \"errorCode\":409, \"errorStatus\":\"Conflict\"}]}";
+
+    @Mocked
+    private IndividualEnrollmentManager mockedIndividualEnrollmentManager;
+
+    @Mocked
+    private IndividualEnrollment mockedIndividualEnrollment;
+
+    private BulkEnrollmentImporter createImporter(int maxParallelOperations)
+    {
+        BulkEnrollmentImporter bulkEnrollmentImporter = Deencapsulation.newInstance(
+                BulkEnrollmentImporter.class,
+                new Class[]{IndividualEnrollmentManager.class, int.class},
+                mockedIndividualEnrollmentManager, maxParallelOperations);
+        Deencapsulation.setField(bulkEnrollmentImporter, "retryBaseDelayInMilliseconds", 1L);
+        return bulkEnrollmentImporter;
+    }
+
+    private Iterator<IndividualEnrollment> makeEnrollments(int count)
+    {
+        List<IndividualEnrollment> individualEnrollments = new LinkedList<>();
+        for (int i = 0; i < count; i++)
+        {
+            individualEnrollments.add(mockedIndividualEnrollment);
+        }
+        return individualEnrollments.iterator();
+    }
+
+    private BulkEnrollmentOperationResult run(BulkEnrollmentImporter bulkEnrollmentImporter, BulkOperationMode mode, Iterator<IndividualEnrollment> individualEnrollments)
+    {
+        return Deencapsulation.invoke(bulkEnrollmentImporter, "run",
+                new Class[] {BulkOperationMode.class, Iterator.class}, mode, individualEnrollments);
+    }
+
+    private void expectBulkOperation(final Object delegate)
+    {
+        new NonStrictExpectations()
+        {
+            {
+                Deencapsulation.invoke(mockedIndividualEnrollmentManager, "bulkOperation",
+                        new Class[] {BulkOperationMode.class, Collection.class}, BulkOperationMode.CREATE, (Collection)any);
+                result = delegate;
+            }
+        };
+    }
+
+    /* SRS_BULK_ENROLLMENT_IMPORTER_21_001: [The constructor shall throw IllegalArgumentException if the provided individualEnrollmentManager is null.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnNullManager()
+    {
+        // arrange
+        // act
+        Deencapsulation.newInstance(BulkEnrollmentImporter.class,
+                new Class[]{IndividualEnrollmentManager.class, int.class}, (IndividualEnrollmentManager)null, 1);
+
+        // assert
+    }
+
+    /* SRS_BULK_ENROLLMENT_IMPORTER_21_002: [The constructor shall throw IllegalArgumentException if the provided maxParallelOperations is not positive.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnZeroMaxParallelOperations()
+    {
+        // arrange
+        // act
+        createImporter(0);
+
+        // assert
+    }
+
+    /* SRS_BULK_ENROLLMENT_IMPORTER_21_003: [The run shall throw IllegalArgumentException if the provided bulkOperationMode is null.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void runThrowsOnNullBulkOperationMode()
+    {
+        // arrange
+        BulkEnrollmentImporter bulkEnrollmentImporter = createImporter(1);
+
+        // act
+        run(bulkEnrollmentImporter, null, makeEnrollments(1));
+
+        // assert
+    }
+
+    /* SRS_BULK_ENROLLMENT_IMPORTER_21_004: [The run shall throw IllegalArgumentException if the provided individualEnrollments is null or empty.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void runThrowsOnNullEnrollments()
+    {
+        // arrange
+        BulkEnrollmentImporter bulkEnrollmentImporter = createImporter(1);
+
+        // act
+        run(bulkEnrollmentImporter, BulkOperationMode.CREATE, null);
+
+        // assert
+    }
+
+    /* SRS_BULK_ENROLLMENT_IMPORTER_21_004: [The run shall throw IllegalArgumentException if the provided individualEnrollments is null or empty.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void runThrowsOnEmptyEnrollments()
+    {
+        // arrange
+        BulkEnrollmentImporter bulkEnrollmentImporter = createImporter(1);
+
+        // act
+        run(bulkEnrollmentImporter, BulkOperationMode.CREATE, makeEnrollments(0));
+
+        // assert
+    }
+
+    /* SRS_BULK_ENROLLMENT_IMPORTER_21_005: [The run shall read the individualEnrollments in chunks of up to MAX_ENROLLMENTS_PER_BULK_OPERATION.] */
+    /* SRS_BULK_ENROLLMENT_IMPORTER_21_006: [The run shall not send more than maxParallelOperations bulk operations at the same time.] */
+    /* SRS_BULK_ENROLLMENT_IMPORTER_21_007: [The run shall send each chunk by calling the bulkOperation in the individualEnrollmentManager.] */
+    /* SRS_BULK_ENROLLMENT_IMPORTER_21_011: [The run shall return a BulkEnrollmentOperationResult that combines the results of all the bulk operations, in the order of the individualEnrollments.] */
+    @Test
+    public void runSendsChunksAndCombinesResults()
+    {
+        // arrange
+        final List<Integer> chunkSizes = Collections.synchronizedList(new ArrayList<Integer>());
+        final AtomicInteger running = new AtomicInteger(0);
+        final AtomicInteger maxRunning = new AtomicInteger(0);
+        BulkEnrollmentImporter bulkEnrollmentImporter = createImporter(2);
+        expectBulkOperation(new Delegate()
+        {
+            BulkEnrollmentOperationResult bulkOperation(BulkOperationMode mode, Collection<IndividualEnrollment> chunk) throws InterruptedException
+            {
+                int nowRunning = running.incrementAndGet();
+                synchronized (maxRunning)
+                {
+                    maxRunning.set(Math.max(maxRunning.get(), nowRunning));
+                }
+                Thread.sleep(10);
+                chunkSizes.add(chunk.size());
+                running.decrementAndGet();
+                return new BulkEnrollmentOperationResult((chunk.size() < BulkEnrollmentImporter.MAX_ENROLLMENTS_PER_BULK_OPERATION) ? FAILED_RESULT_JSON : SUCCESSFUL_RESULT_JSON);
+            }
+        });
+
+        // act
+        BulkEnrollmentOperationResult result = run(bulkEnrollmentImporter, BulkOperationMode.CREATE, makeEnrollments(45));
+
+        // assert
+        Collections.sort(chunkSizes);
+        assertEquals(Arrays.asList(5, 10, 10, 10, 10), chunkSizes);
+        assertTrue(maxRunning.get() <= 2);
+        assertFalse(result.getSuccessful());
+        assertEquals(1, result.getErrors().size());
+        assertEquals(VALID_REGISTRATION_ID, result.getErrors().get(0).getRegistrationId());
+    }
+
+    /* SRS_BULK_ENROLLMENT_IMPORTER_21_008: [If the bulkOperation throws ProvisioningServiceClientTooManyRequestsException or ProvisioningServiceClientTransientException, the run shall send the chunk again after an exponential back off, and if it was throttled, no other chunk shall be sent before the back off ends.] */
+    @Test
+    public void runRetriesThrottledChunk()
+    {
+        // arrange
+        final AtomicInteger calls = new AtomicInteger(0);
+        BulkEnrollmentImporter bulkEnrollmentImporter = createImporter(1);
+        expectBulkOperation(new Delegate()
+        {
+            BulkEnrollmentOperationResult bulkOperation(BulkOperationMode mode, Collection<IndividualEnrollment> chunk) throws ProvisioningServiceClientException
+            {
+                if(calls.incrementAndGet() == 1)
+                {
+                    throw new ProvisioningServiceClientTooManyRequestsException("throttled");
+                }
+                return new BulkEnrollmentOperationResult(SUCCESSFUL_RESULT_JSON);
+            }
+        });
+
+        // act
+        BulkEnrollmentOperationResult result = run(bulkEnrollmentImporter, BulkOperationMode.CREATE, makeEnrollments(3));
+
+        // assert
+        assertEquals(2, calls.get());
+        assertTrue(result.getSuccessful());
+    }
+
+    /* SRS_BULK_ENROLLMENT_IMPORTER_21_009: [If the chunk still fails after MAX_RETRIES retries, the run shall fail with the last exception.] */
+    /* SRS_BULK_ENROLLMENT_IMPORTER_21_012: [If one of the bulk operations fails, the run shall throw ProvisioningServiceClientBulkImportException with the exception of the first failure as its cause, the combined result of the bulk operations that succeeded, and the individualEnrollments of the chunks that failed.] */
+    @Test
+    public void runThrowsAfterMaxRetries()
+    {
+        // arrange
+        final AtomicInteger calls = new AtomicInteger(0);
+        BulkEnrollmentImporter bulkEnrollmentImporter = createImporter(1);
+        expectBulkOperation(new Delegate()
+        {
+            BulkEnrollmentOperationResult bulkOperation(BulkOperationMode mode, Collection<IndividualEnrollment> chunk) throws ProvisioningServiceClientException
+            {
+                calls.incrementAndGet();
+                throw new ProvisioningServiceClientTransientException("transient");
+            }
+        });
+
+        // act
+        try
+        {
+            run(bulkEnrollmentImporter, BulkOperationMode.CREATE, makeEnrollments(3));
+            fail("run shall throw ProvisioningServiceClientBulkImportException");
+        }
+        catch (Exception e)
+        {
+            assertTrue(e instanceof ProvisioningServiceClientBulkImportException);
+            assertTrue(e.getCause() instanceof ProvisioningServiceClientTransientException);
+            assertNull(((ProvisioningServiceClientBulkImportException)e).getPartialResult());
+            assertEquals(3, ((ProvisioningServiceClientBulkImportException)e).getFailedEnrollments().size());
+        }
+
+        // assert
+        assertEquals((int)Deencapsulation.getField(BulkEnrollmentImporter.class, "MAX_RETRIES") + 1, calls.get());
+    }
+
+    /* SRS_BULK_ENROLLMENT_IMPORTER_21_010: [If one of the bulk operations fails, the run shall stop reading the individualEnrollments.] */
+    /* SRS_BULK_ENROLLMENT_IMPORTER_21_012: [If one of the bulk operations fails, the run shall throw ProvisioningServiceClientBulkImportException with the exception of the first failure as its cause, the combined result of the bulk operations that succeeded, and the individualEnrollments of the chunks that failed.] */
+    @Test
+    public void runStopsOnFailure()
+    {
+        // arrange
+        final AtomicInteger calls = new AtomicInteger(0);
+        BulkEnrollmentImporter bulkEnrollmentImporter = createImporter(1);
+        expectBulkOperation(new Delegate()
+        {
+            BulkEnrollmentOperationResult bulkOperation(BulkOperationMode mode, Collection<IndividualEnrollment> chunk) throws ProvisioningServiceClientException
+            {
+                calls.incrementAndGet();
+                throw new ProvisioningServiceClientBadFormatException("bad format");
+            }
+        });
+
+        // act
+        try
+        {
+            run(bulkEnrollmentImporter, BulkOperationMode.CREATE, makeEnrollments(50));
+            fail("run shall throw ProvisioningServiceClientBulkImportException");
+        }
+        catch (Exception e)
+        {
+            assertTrue(e instanceof ProvisioningServiceClientBulkImportException);
+            assertTrue(e.getCause() instanceof ProvisioningServiceClientBadFormatException);
+        }
+
+        // assert
+        assertEquals(1, calls.get());
+    }
+
+    /* SRS_BULK_ENROLLMENT_IMPORTER_21_010: [If one of the bulk operations fails, the run shall stop reading the individualEnrollments.] */
+    /* SRS_BULK_ENROLLMENT_IMPORTER_21_012: [If one of the bulk operations fails, the run shall throw ProvisioningServiceClientBulkImportException with the exception of the first failure as its cause, the combined result of the bulk operations that succeeded, and the individualEnrollments of the chunks that failed.] */
+    @Test
+    public void runKeepsPartialResultWhenMiddleChunkFails()
+    {
+        // arrange
+        final AtomicInteger calls = new AtomicInteger(0);
+        final IndividualEnrollment failedEnrollment = Deencapsulation.newInstance(IndividualEnrollment.class);
+        List<IndividualEnrollment> individualEnrollments = new LinkedList<>();
+        for (int i = 0; i < 50; i++)
+        {
+            individualEnrollments.add(((i >= 10) && (i < 20)) ? failedEnrollment : mockedIndividualEnrollment);
+        }
+        Iterator<IndividualEnrollment> source = individualEnrollments.iterator();
+        BulkEnrollmentImporter bulkEnrollmentImporter = createImporter(1);
+        expectBulkOperation(new Delegate()
+        {
+            BulkEnrollmentOperationResult bulkOperation(BulkOperationMode mode, Collection<IndividualEnrollment> chunk) throws ProvisioningServiceClientException
+            {
+                if(calls.incrementAndGet() == 2)
+                {
+                    throw new ProvisioningServiceClientBadFormatException("bad format");
+                }
+                return new BulkEnrollmentOperationResult(FAILED_RESULT_JSON);
+            }
+        });
+
+        // act
+        ProvisioningServiceClientBulkImportException bulkImportException = null;
+        try
+        {
+            run(bulkEnrollmentImporter, BulkOperationMode.CREATE, source);
+            fail("run shall throw ProvisioningServiceClientBulkImportException");
+        }
+        catch (Exception e)
+        {
+            assertTrue(e instanceof ProvisioningServiceClientBulkImportException);
+            bulkImportException = (ProvisioningServiceClientBulkImportException)e;
+        }
+
+        // assert
+        assertEquals(2, calls.get());
+        assertTrue(bulkImportException.getCause() instanceof ProvisioningServiceClientBadFormatException);
+        BulkEnrollmentOperationResult partialResult = bulkImportException.getPartialResult();
+        assertNotNull(partialResult);
+        assertFalse(partialResult.getSuccessful());
+        assertEquals(1, partialResult.getErrors().size());
+        assertEquals(VALID_REGISTRATION_ID, partialResult.getErrors().get(0).getRegistrationId());
+        List<IndividualEnrollment> failedEnrollments = bulkImportException.getFailedEnrollments();
+        for (int i = 0; i < 10; i++)
+        {
+            assertSame(failedEnrollment, failedEnrollments.get(i));
+        }
+        // A chunk read while the failed one was in flight is reported as failed, the other ones stay in the source.
+        int notRead = 0;
+        while (source.hasNext())
+        {
+            source.next();
+            notRead++;
+        }
+        assertEquals(40, failedEnrollments.size() + notRead);
+    }
+}
@@ -14,6 +14,7 @@ import org.junit.Test;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map;
 
@@ -396,6 +397,61 @@ public class IndividualEnrollmentManagerTest
         // assert
     }
 
+    /* SRS_INDIVIDUAL_ENROLLMENT_MANAGER_21_046: [The bulkImport shall throw IllegalArgumentException if the provided maxParallelOperations is not positive.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void bulkImportThrowsOnZeroMaxParallelOperations(
+            @Mocked final IndividualEnrollment mockedIndividualEnrollment) throws ProvisioningServiceClientException
+    {
+        // arrange
+        final Collection<IndividualEnrollment> individualEnrollments = new LinkedList<>();
+        individualEnrollments.add(mockedIndividualEnrollment);
+        IndividualEnrollmentManager individualEnrollmentManager = createIndividualEnrollmentManager();
+
+        // act
+        Deencapsulation.invoke(individualEnrollmentManager, "bulkImport",
+                new Class[] {BulkOperationMode.class, Iterator.class, int.class}, BulkOperationMode.CREATE, individualEnrollments.iterator(), 0);
+
+        // assert
+    }
+
+    /* SRS_INDIVIDUAL_ENROLLMENT_MANAGER_21_047: [The bulkImport shall run the bulk operation in chunks using a new BulkEnrollmentImporter.] */
+    @Test
+    public void bulkImportRunsBulkEnrollmentImporter(
+            @Mocked final IndividualEnrollment mockedIndividualEnrollment,
+            @Mocked final BulkEnrollmentImporter mockedBulkEnrollmentImporter,
+            @Mocked final BulkEnrollmentOperationResult mockedBulkEnrollmentOperationResult) throws ProvisioningServiceClientException
+    {
+        // arrange
+        final Collection<IndividualEnrollment> individualEnrollments = new LinkedList<>();
+        individualEnrollments.add(mockedIndividualEnrollment);
+        final Iterator<IndividualEnrollment> iterator = individualEnrollments.iterator();
+        final IndividualEnrollmentManager individualEnrollmentManager = createIndividualEnrollmentManager();
+        new NonStrictExpectations()
+        {
+            {
+                Deencapsulation.invoke(mockedBulkEnrollmentImporter, "run",
+                        new Class[] {BulkOperationMode.class, Iterator.class}, BulkOperationMode.CREATE, iterator);
+                result = mockedBulkEnrollmentOperationResult;
+                times = 1;
+            }
+        };
+
+        // act
+        BulkEnrollmentOperationResult bulkEnrollmentOperationResult = Deencapsulation.invoke(individualEnrollmentManager, "bulkImport",
+                new Class[] {BulkOperationMode.class, Iterator.class, int.class}, BulkOperationMode.CREATE, iterator, 3);
+
+        // assert
+        assertEquals(mockedBulkEnrollmentOperationResult, bulkEnrollmentOperationResult);
+        new Verifications()
+        {
+            {
+                Deencapsulation.newInstance(BulkEnrollmentImporter.class,
+                        new Class[] {IndividualEnrollmentManager.class, int.class}, individualEnrollmentManager, 3);
+                times = 1;
+            }
+        };
+    }
+
     /* SRS_INDIVIDUAL_ENROLLMENT_MANAGER_21_017: [The bulkOperation shall throw ProvisioningServiceClientTransportException if the request failed. Threw by the callee.] */
     @Test (expected = ProvisioningServiceClientTransportException.class)
     public void bulkOperationRequestTransportFailed(
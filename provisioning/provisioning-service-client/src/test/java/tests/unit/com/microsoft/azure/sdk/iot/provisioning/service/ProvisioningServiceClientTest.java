@@ -12,8 +12,10 @@ import com.microsoft.azure.sdk.iot.provisioning.service.exceptions.ProvisioningS
 import mockit.Deencapsulation;
 import mockit.Mocked;
 import mockit.NonStrictExpectations;
+import mockit.Verifications;
 import org.junit.Test;
 
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -311,6 +313,63 @@ public class ProvisioningServiceClientTest
         assertNotNull(result);
     }
 
+    /* SRS_PROVISIONING_SERVICE_CLIENT_21_029: [The runBulkEnrollmentImport shall do a Provisioning operation over the individualEnrollments by calling the bulkImport in the individualEnrollmentManager with DEFAULT_MAX_PARALLEL_OPERATIONS.] */
+    @Test
+    public void runBulkEnrollmentImportSucceed(
+            @Mocked final IndividualEnrollment mockedIndividualEnrollment,
+            @Mocked final BulkEnrollmentOperationResult mockedBulkEnrollmentOperationResult)
+            throws ProvisioningServiceClientException
+    {
+        // arrange
+        final List<IndividualEnrollment> individualEnrollments = new LinkedList<>();
+        individualEnrollments.add(mockedIndividualEnrollment);
+        final Iterator<IndividualEnrollment> iterator = individualEnrollments.iterator();
+        ProvisioningServiceClient provisioningServiceClient = createClient();
+        new NonStrictExpectations()
+        {
+            {
+                Deencapsulation.invoke(mockedIndividualEnrollmentManager, "bulkImport",
+                        BulkOperationMode.CREATE, iterator, BulkEnrollmentImporter.DEFAULT_MAX_PARALLEL_OPERATIONS);
+                result = mockedBulkEnrollmentOperationResult;
+                times = 1;
+            }
+        };
+
+        // act
+        BulkEnrollmentOperationResult result = provisioningServiceClient.runBulkEnrollmentImport(BulkOperationMode.CREATE, iterator);
+
+        // assert
+        assertNotNull(result);
+    }
+
+    /* SRS_PROVISIONING_SERVICE_CLIENT_21_030: [The runBulkEnrollmentImport shall do a Provisioning operation over the individualEnrollments by calling the bulkImport in the individualEnrollmentManager with the provided maxParallelOperations.] */
+    @Test
+    public void runBulkEnrollmentImportWithMaxParallelOperationsSucceed(
+            @Mocked final IndividualEnrollment mockedIndividualEnrollment,
+            @Mocked final BulkEnrollmentOperationResult mockedBulkEnrollmentOperationResult)
+            throws ProvisioningServiceClientException
+    {
+        // arrange
+        final List<IndividualEnrollment> individualEnrollments = new LinkedList<>();
+        individualEnrollments.add(mockedIndividualEnrollment);
+        final Iterator<IndividualEnrollment> iterator = individualEnrollments.iterator();
+        ProvisioningServiceClient provisioningServiceClient = createClient();
+        new NonStrictExpectations()
+        {
+            {
+                Deencapsulation.invoke(mockedIndividualEnrollmentManager, "bulkImport", BulkOperationMode.CREATE, iterator, 8);
+                result = mockedBulkEnrollmentOperationResult;
+                times = 1;
+            }
+        };
+
+        // act
+        BulkEnrollmentOperationResult result = provisioningServiceClient.runBulkEnrollmentImport(BulkOperationMode.CREATE, iterator, 8);
+
+        // assert
+        assertNotNull(result);
+    }
+
     /* SRS_PROVISIONING_SERVICE_CLIENT_21_010: [The getIndividualEnrollment shall retrieve the individualEnrollment information for the provided registrationId by calling the get in the individualEnrollmentManager.] */
     @Test
     public void getIndividualEnrollmentSucceed(
@@ -750,4 +809,139 @@ public class ProvisioningServiceClientTest
         // assert
         assertNotNull(query);
     }
+
+    /* SRS_PROVISIONING_SERVICE_CLIENT_21_031: [The createIndividualEnrollmentQueryIterator shall create a new QueryIterator of IndividualEnrollment over the query created by the createQuery in the individualEnrollmentManager.] */
+    @Test
+    public void createIndividualEnrollmentQueryIteratorSucceed(
+            @Mocked final QuerySpecification mockedQuerySpecification,
+            @Mocked final Query mockedQuery,
+            @Mocked final QueryIterator<IndividualEnrollment> mockedQueryIterator)
+            throws ProvisioningServiceClientException
+    {
+        // arrange
+        ProvisioningServiceClient provisioningServiceClient = createClient();
+        new NonStrictExpectations()
+        {
+            {
+                Deencapsulation.invoke(mockedIndividualEnrollmentManager, "createQuery", mockedQuerySpecification, 10);
+                result = mockedQuery;
+                times = 1;
+            }
+        };
+
+        // act
+        QueryIterator<IndividualEnrollment> queryIterator = provisioningServiceClient.createIndividualEnrollmentQueryIterator(mockedQuerySpecification, 10, false);
+
+        // assert
+        assertNotNull(queryIterator);
+        new Verifications()
+        {
+            {
+                Deencapsulation.newInstance(QueryIterator.class, new Class[]{Query.class, Class.class, boolean.class}, mockedQuery, IndividualEnrollment.class, false);
+                times = 1;
+            }
+        };
+    }
+
+    /* SRS_PROVISIONING_SERVICE_CLIENT_21_032: [The createEnrollmentGroupQueryIterator shall create a new QueryIterator of EnrollmentGroup over the query created by the createQuery in the enrollmentGroupManager.] */
+    @Test
+    public void createEnrollmentGroupQueryIteratorSucceed(
+            @Mocked final QuerySpecification mockedQuerySpecification,
+            @Mocked final Query mockedQuery,
+            @Mocked final QueryIterator<EnrollmentGroup> mockedQueryIterator)
+            throws ProvisioningServiceClientException
+    {
+        // arrange
+        ProvisioningServiceClient provisioningServiceClient = createClient();
+        new NonStrictExpectations()
+        {
+            {
+                Deencapsulation.invoke(mockedEnrollmentGroupManager, "createQuery", mockedQuerySpecification, 10);
+                result = mockedQuery;
+                times = 1;
+            }
+        };
+
+        // act
+        QueryIterator<EnrollmentGroup> queryIterator = provisioningServiceClient.createEnrollmentGroupQueryIterator(mockedQuerySpecification, 10, true);
+
+        // assert
+        assertNotNull(queryIterator);
+        new Verifications()
+        {
+            {
+                Deencapsulation.newInstance(QueryIterator.class, new Class[]{Query.class, Class.class, boolean.class}, mockedQuery, EnrollmentGroup.class, true);
+                times = 1;
+            }
+        };
+    }
+
+    /* SRS_PROVISIONING_SERVICE_CLIENT_21_033: [The createEnrollmentGroupRegistrationStateQueryIterator shall create a new QueryIterator of DeviceRegistrationState over the query created by the createEnrollmentGroupQuery in the registrationStatusManager.] */
+    @Test
+    public void createEnrollmentGroupRegistrationStateQueryIteratorSucceed(
+            @Mocked final QuerySpecification mockedQuerySpecification,
+            @Mocked final Query mockedQuery,
+            @Mocked final QueryIterator<DeviceRegistrationState> mockedQueryIterator)
+            throws ProvisioningServiceClientException
+    {
+        // arrange
+        final String enrollmentGroupId = "valid-enrollmentGroupId";
+        ProvisioningServiceClient provisioningServiceClient = createClient();
+        new NonStrictExpectations()
+        {
+            {
+                Deencapsulation.invoke(mockedRegistrationStatusManager, "createEnrollmentGroupQuery", mockedQuerySpecification, enrollmentGroupId, 10);
+                result = mockedQuery;
+                times = 1;
+            }
+        };
+
+        // act
+        QueryIterator<DeviceRegistrationState> queryIterator =
+                provisioningServiceClient.createEnrollmentGroupRegistrationStateQueryIterator(mockedQuerySpecification, enrollmentGroupId, 10);
+
+        // assert
+        assertNotNull(queryIterator);
+        new Verifications()
+        {
+            {
+                Deencapsulation.newInstance(QueryIterator.class, new Class[]{Query.class, Class.class, boolean.class}, mockedQuery, DeviceRegistrationState.class, true);
+                times = 1;
+            }
+        };
+    }
+
+    /* SRS_PROVISIONING_SERVICE_CLIENT_21_034: [The createIndividualEnrollmentQueryStream shall return the stream of the QueryIterator created by the createIndividualEnrollmentQueryIterator.] */
+    /* SRS_PROVISIONING_SERVICE_CLIENT_21_035: [The createEnrollmentGroupQueryStream shall return the stream of the QueryIterator created by the createEnrollmentGroupQueryIterator.] */
+    /* SRS_PROVISIONING_SERVICE_CLIENT_21_036: [The createEnrollmentGroupRegistrationStateQueryStream shall return the stream of the QueryIterator created by the createEnrollmentGroupRegistrationStateQueryIterator.] */
+    @Test
+    public void createQueryStreamsReturnStreamOfQueryIterator(
+            @Mocked final QuerySpecification mockedQuerySpecification,
+            @Mocked final Query mockedQuery,
+            @Mocked final QueryIterator<?> mockedQueryIterator)
+            throws ProvisioningServiceClientException
+    {
+        // arrange
+        ProvisioningServiceClient provisioningServiceClient = createClient();
+
+        // act
+        provisioningServiceClient.createIndividualEnrollmentQueryStream(mockedQuerySpecification, 10, false);
+        provisioningServiceClient.createEnrollmentGroupQueryStream(mockedQuerySpecification, 10, true);
+        provisioningServiceClient.createEnrollmentGroupRegistrationStateQueryStream(mockedQuerySpecification, "valid-enrollmentGroupId", 10);
+
+        // assert
+        new Verifications()
+        {
+            {
+                Deencapsulation.newInstance(QueryIterator.class, new Class[]{Query.class, Class.class, boolean.class}, (Query) any, IndividualEnrollment.class, false);
+                times = 1;
+                Deencapsulation.newInstance(QueryIterator.class, new Class[]{Query.class, Class.class, boolean.class}, (Query) any, EnrollmentGroup.class, true);
+                times = 1;
+                Deencapsulation.newInstance(QueryIterator.class, new Class[]{Query.class, Class.class, boolean.class}, (Query) any, DeviceRegistrationState.class, true);
+                times = 1;
+                mockedQueryIterator.stream();
+                times = 3;
+            }
+        };
+    }
 }
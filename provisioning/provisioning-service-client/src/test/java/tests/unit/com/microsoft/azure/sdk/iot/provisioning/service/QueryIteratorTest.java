@@ -0,0 +1,311 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package tests.unit.com.microsoft.azure.sdk.iot.provisioning.service;
+
+import com.google.gson.JsonSyntaxException;
+import com.microsoft.azure.sdk.iot.provisioning.service.Query;
+import com.microsoft.azure.sdk.iot.provisioning.service.QueryIterator;
+import com.microsoft.azure.sdk.iot.provisioning.service.configs.IndividualEnrollment;
+import com.microsoft.azure.sdk.iot.provisioning.service.configs.TpmAttestation;
+import com.microsoft.azure.sdk.iot.provisioning.service.exceptions.ProvisioningServiceClientException;
+import mockit.*;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for Query item iterator.
+ * 100% methods, 100% lines covered
+ */
+public class QueryIteratorTest
+{
+    private static final String VALID_ENDORSEMENT_KEY = "76cadbbd-67af-49ab-b112-0c2e6a8445b0";
+
+    @Mocked
+    private Query mockedQuery;
+
+    private static String makeEnrollmentJson(String registrationId)
+    {
+        return "{\"registrationId\":\"" + registrationId + "\"," +
+                "\"attestation\":{\"type\":\"tpm\",\"tpm\":{\"endorsementKey\":\"" + VALID_ENDORSEMENT_KEY + "\"}}," +
+                "\"provisioningStatus\":\"enabled\"}";
+    }
+
+    private static byte[] makePage(String... registrationIds)
+    {
+        StringBuilder page = new StringBuilder("[");
+        for (int i = 0; i < registrationIds.length; i++)
+        {
+            if(i > 0)
+            {
+                page.append(",");
+            }
+            page.append(makeEnrollmentJson(registrationIds[i]));
+        }
+        return page.append("]").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private QueryIterator<IndividualEnrollment> createIterator(boolean includeAttestation)
+    {
+        return Deencapsulation.newInstance(QueryIterator.class,
+                new Class[]{Query.class, Class.class, boolean.class}, mockedQuery, IndividualEnrollment.class, includeAttestation);
+    }
+
+    private void expectPages(final byte[]... pages)
+    {
+        final Boolean[] hasNext = new Boolean[pages.length + 1];
+        Arrays.fill(hasNext, true);
+        hasNext[pages.length] = false;
+        new NonStrictExpectations()
+        {
+            {
+                mockedQuery.hasNext();
+                returns(hasNext[0], Arrays.copyOfRange(hasNext, 1, hasNext.length));
+                Deencapsulation.invoke(mockedQuery, "nextPageBody");
+                returns(pages[0], Arrays.copyOfRange(pages, 1, pages.length));
+            }
+        };
+    }
+
+    /* SRS_QUERY_ITERATOR_21_001: [The constructor shall throw IllegalArgumentException if the provided query is null.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnNullQuery()
+    {
+        // arrange
+        // act
+        Deencapsulation.newInstance(QueryIterator.class,
+                new Class[]{Query.class, Class.class, boolean.class}, null, IndividualEnrollment.class, true);
+
+        // assert
+    }
+
+    /* SRS_QUERY_ITERATOR_21_002: [The constructor shall throw IllegalArgumentException if the provided itemClass is null.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnNullItemClass()
+    {
+        // arrange
+        // act
+        Deencapsulation.newInstance(QueryIterator.class,
+                new Class[]{Query.class, Class.class, boolean.class}, mockedQuery, null, true);
+
+        // assert
+    }
+
+    /* SRS_QUERY_ITERATOR_21_003: [The constructor shall start requesting the first page in background.] */
+    @Test
+    public void constructorPrefetchesFirstPage() throws InterruptedException
+    {
+        // arrange
+        final CountDownLatch requested = new CountDownLatch(1);
+        new NonStrictExpectations()
+        {
+            {
+                mockedQuery.hasNext();
+                result = true;
+                Deencapsulation.invoke(mockedQuery, "nextPageBody");
+                result = new Delegate()
+                {
+                    byte[] nextPageBody()
+                    {
+                        requested.countDown();
+                        return makePage();
+                    }
+                };
+            }
+        };
+
+        // act
+        QueryIterator<IndividualEnrollment> queryIterator = createIterator(true);
+
+        // assert
+        assertTrue(requested.await(5, TimeUnit.SECONDS));
+        queryIterator.close();
+    }
+
+    /* SRS_QUERY_ITERATOR_21_005: [If all the items in the current page were returned, the hasNext shall wait for the next page, and start requesting the following page in background.] */
+    /* SRS_QUERY_ITERATOR_21_006: [If the query has no more pages, the hasNext shall close the iterator and return false.] */
+    /* SRS_QUERY_ITERATOR_21_009: [The next shall decode and return the next item in the current page.] */
+    @Test
+    public void iteratorReturnsItemsOfAllPages() throws ProvisioningServiceClientException
+    {
+        // arrange
+        expectPages(makePage("registration-1", "registration-2"), makePage(), makePage("registration-3"));
+        QueryIterator<IndividualEnrollment> queryIterator = createIterator(true);
+
+        // act
+        List<String> registrationIds = new ArrayList<>();
+        IndividualEnrollment lastEnrollment = null;
+        while(queryIterator.hasNext())
+        {
+            lastEnrollment = queryIterator.next();
+            registrationIds.add(lastEnrollment.getRegistrationId());
+        }
+
+        // assert
+        assertEquals(Arrays.asList("registration-1", "registration-2", "registration-3"), registrationIds);
+        assertTrue(lastEnrollment.getAttestation() instanceof TpmAttestation);
+        assertFalse(queryIterator.hasNext());
+        new Verifications()
+        {
+            {
+                Deencapsulation.invoke(mockedQuery, "nextPageBody");
+                times = 3;
+            }
+        };
+    }
+
+    /* SRS_QUERY_ITERATOR_21_010: [If the iterator was created without attestation, the next shall skip the attestation of the item.] */
+    @Test
+    public void nextSkipsAttestation() throws ProvisioningServiceClientException
+    {
+        // arrange
+        expectPages(makePage("registration-1"));
+        QueryIterator<IndividualEnrollment> queryIterator = createIterator(false);
+
+        // act
+        IndividualEnrollment individualEnrollment = queryIterator.next();
+
+        // assert
+        assertEquals("registration-1", individualEnrollment.getRegistrationId());
+        assertNull(individualEnrollment.getAttestation());
+        assertFalse(queryIterator.hasNext());
+    }
+
+    /* SRS_QUERY_ITERATOR_21_008: [The next shall throw NoSuchElementException if the hasNext is false.] */
+    @Test (expected = NoSuchElementException.class)
+    public void nextThrowsOnNoMoreItems()
+    {
+        // arrange
+        expectPages(makePage("registration-1"));
+        QueryIterator<IndividualEnrollment> queryIterator = createIterator(true);
+        queryIterator.next();
+
+        // act
+        queryIterator.next();
+
+        // assert
+    }
+
+    /* SRS_QUERY_ITERATOR_21_004: [If the iterator is closed, the hasNext shall return false.] */
+    /* SRS_QUERY_ITERATOR_21_012: [The close shall cancel the background request and release the current page.] */
+    @Test
+    public void hasNextReturnsFalseAfterClose()
+    {
+        // arrange
+        expectPages(makePage("registration-1", "registration-2"));
+        QueryIterator<IndividualEnrollment> queryIterator = createIterator(true);
+        queryIterator.next();
+
+        // act
+        queryIterator.close();
+
+        // assert
+        assertFalse(queryIterator.hasNext());
+    }
+
+    /* SRS_QUERY_ITERATOR_21_013: [If the request for a page failed, the hasNext shall close the iterator and throw the exception of the request.] */
+    @Test
+    public void hasNextThrowsOnRequestFailure()
+    {
+        // arrange
+        new NonStrictExpectations()
+        {
+            {
+                mockedQuery.hasNext();
+                result = true;
+                Deencapsulation.invoke(mockedQuery, "nextPageBody");
+                result = new IllegalArgumentException("request failed");
+            }
+        };
+        QueryIterator<IndividualEnrollment> queryIterator = createIterator(true);
+
+        // act
+        try
+        {
+            queryIterator.hasNext();
+            fail("hasNext shall throw IllegalArgumentException");
+        }
+        catch (IllegalArgumentException expected)
+        {
+            // expected
+        }
+
+        // assert
+        assertFalse(queryIterator.hasNext());
+    }
+
+    /* SRS_QUERY_ITERATOR_21_007: [The hasNext shall throw JsonSyntaxException if the page is not a valid JSON array.] */
+    @Test (expected = JsonSyntaxException.class)
+    public void hasNextThrowsOnInvalidPage()
+    {
+        // arrange
+        expectPages("{\"registrationId\":\"registration-1\"}".getBytes(StandardCharsets.UTF_8));
+        QueryIterator<IndividualEnrollment> queryIterator = createIterator(true);
+
+        // act
+        queryIterator.hasNext();
+
+        // assert
+    }
+
+    /* SRS_QUERY_ITERATOR_21_014: [The stream shall return a sequential and ordered stream over the remaining items of this iterator, that closes this iterator when it is closed.] */
+    @Test
+    public void streamReturnsItemsOfAllPagesInOrder()
+    {
+        // arrange
+        expectPages(makePage("registration-1", "registration-2"), makePage("registration-3"));
+        QueryIterator<IndividualEnrollment> queryIterator = createIterator(false);
+
+        // act
+        List<String> registrationIds;
+        try (Stream<IndividualEnrollment> stream = queryIterator.stream())
+        {
+            assertFalse(stream.isParallel());
+            registrationIds = stream.map(IndividualEnrollment::getRegistrationId).collect(Collectors.toList());
+        }
+
+        // assert
+        assertEquals(Arrays.asList("registration-1", "registration-2", "registration-3"), registrationIds);
+    }
+
+    /* SRS_QUERY_ITERATOR_21_014: [The stream shall return a sequential and ordered stream over the remaining items of this iterator, that closes this iterator when it is closed.] */
+    @Test
+    public void closeStreamClosesIterator()
+    {
+        // arrange
+        expectPages(makePage("registration-1", "registration-2"), makePage("registration-3"));
+        QueryIterator<IndividualEnrollment> queryIterator = createIterator(true);
+        Stream<IndividualEnrollment> stream = queryIterator.stream();
+        assertEquals("registration-1", stream.findFirst().get().getRegistrationId());
+
+        // act
+        stream.close();
+
+        // assert
+        assertFalse(queryIterator.hasNext());
+    }
+
+    /* SRS_QUERY_ITERATOR_21_011: [The remove shall throw UnsupportedOperationException.] */
+    @Test (expected = UnsupportedOperationException.class)
+    public void removeThrows()
+    {
+        // arrange
+        QueryIterator<IndividualEnrollment> queryIterator = createIterator(true);
+
+        // act
+        queryIterator.remove();
+
+        // assert
+    }
+}
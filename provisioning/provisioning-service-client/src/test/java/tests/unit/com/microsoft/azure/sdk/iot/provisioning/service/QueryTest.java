@@ -788,4 +788,43 @@ public class QueryTest
         // assert
         assertEquals(20, (int)Deencapsulation.getField(query, "pageSize"));
     }
+
+    /* SRS_QUERY_21_025: [The getItemType shall return the `x-ms-item-type` of the last page.] */
+    @Test
+    public void getItemTypeReturnsTypeOfLastPage() throws ProvisioningServiceClientException
+    {
+        // arrange
+        final String targetPath = "enrollments";
+        final String querySpecificationJson = "{\"query\":\"select * from enrollments\"}";
+        final Map<String, String> headersResult = new HashMap<String, String>()
+        {
+            {
+                put("x-ms-item-type", "enrollment");
+            }
+        };
+        new NonStrictExpectations()
+        {
+            {
+                mockedQuerySpecification.toJson();
+                result = querySpecificationJson;
+                mockedContractApiHttp.request(HttpMethod.POST, anyString, (Map)any, querySpecificationJson);
+                result = mockedHttpResponse;
+                mockedHttpResponse.getBody();
+                result = "[]".getBytes();
+                mockedHttpResponse.getHeaderFields();
+                result = headersResult;
+            }
+        };
+        Query query = Deencapsulation.newInstance(Query.class, new Class[]{ContractApiHttp.class, String.class, QuerySpecification.class, Integer.class},
+                mockedContractApiHttp, targetPath, mockedQuerySpecification, 0);
+        assertNull(Deencapsulation.invoke(query, "getItemType"));
+
+        // act
+        byte[] body = Deencapsulation.invoke(query, "nextPageBody");
+
+        // assert
+        assertArrayEquals("[]".getBytes(), body);
+        assertEquals("enrollment", Deencapsulation.invoke(query, "getItemType"));
+        assertFalse(query.hasNext());
+    }
 }
@@ -19,6 +19,7 @@ import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Unit test for Provisioning Service SasToken
@@ -122,4 +123,23 @@ public class ProvisioningServiceSasTokenTest
         Deencapsulation.setField(provisioningConnectionString, "hostName", null);
         ProvisioningSasToken provisioningServiceSasToken = new ProvisioningSasToken(provisioningConnectionString);
     }
+
+    // Tests_SRS_PROVISIONING_SERVICE_SASTOKEN_21_009: [The getExpiryTime shall return the expiry time of the token, as a UNIX timestamp in seconds.]
+    @Test
+    public void getExpiryTimeReturnsExpiryOfToken() throws Exception
+    {
+        // Arrange
+        String hostName = "HOSTNAME.b.c.d";
+        String sharedAccessKey = Base64.encodeBase64StringLocal("key".getBytes());
+        String connectionString = "HostName=" + hostName + ";SharedAccessKeyName=ACCESSKEYNAME;SharedAccessKey=" + sharedAccessKey;
+        ProvisioningConnectionString provisioningConnectionString = ProvisioningConnectionStringBuilder.createConnectionString(connectionString);
+        ProvisioningSasToken provisioningServiceSasToken = new ProvisioningSasToken(provisioningConnectionString);
+
+        // Act
+        long expiryTime = provisioningServiceSasToken.getExpiryTime();
+
+        // Assert
+        assertTrue(expiryTime > System.currentTimeMillis() / 1000);
+        assertTrue(provisioningServiceSasToken.toString().contains("&se=" + expiryTime + "&"));
+    }
 }
@@ -13,6 +13,8 @@ import mockit.Verifications;
 import org.junit.Test;
 import tests.unit.com.microsoft.azure.sdk.iot.provisioning.service.Helpers;
 
+import java.util.Arrays;
+import java.util.LinkedList;
 import java.util.List;
 
 import static org.junit.Assert.*;
@@ -233,4 +235,65 @@ public class BulkEnrollmentOperationResultTest
         // assert
         assertNotNull(bulkEnrollmentOperationResult);
     }
+
+    /* SRS_BULK_OPERATION_RESULT_21_012: [The combine shall throw IllegalArgumentException if the collection of results is null, empty, or contains a null result.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void combineThrowsOnNullResults()
+    {
+        // arrange
+
+        // act
+        BulkEnrollmentOperationResult.combine(null);
+
+        // assert
+    }
+
+    /* SRS_BULK_OPERATION_RESULT_21_012: [The combine shall throw IllegalArgumentException if the collection of results is null, empty, or contains a null result.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void combineThrowsOnEmptyResults()
+    {
+        // arrange
+
+        // act
+        BulkEnrollmentOperationResult.combine(new LinkedList<BulkEnrollmentOperationResult>());
+
+        // assert
+    }
+
+    /* SRS_BULK_OPERATION_RESULT_21_012: [The combine shall throw IllegalArgumentException if the collection of results is null, empty, or contains a null result.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void combineThrowsOnNullResult()
+    {
+        // arrange
+        BulkEnrollmentOperationResult bulkEnrollmentOperationResult = new BulkEnrollmentOperationResult(VALID_JSON);
+
+        // act
+        BulkEnrollmentOperationResult.combine(Arrays.asList(bulkEnrollmentOperationResult, null));
+
+        // assert
+    }
+
+    /* SRS_BULK_OPERATION_RESULT_21_013: [The combine shall return a result that is successful only if all the results are successful.] */
+    /* SRS_BULK_OPERATION_RESULT_21_014: [The combine shall return a result with the errors of all the results, in the order of the results.] */
+    @Test
+    public void combineMergesResults()
+    {
+        // arrange
+        BulkEnrollmentOperationResult successfulResult = new BulkEnrollmentOperationResult(
+                "{\"isSuccessful\":true, \"errors\": [" + VALID_ERROR_JSON_1 + "]}");
+        BulkEnrollmentOperationResult failedResult = new BulkEnrollmentOperationResult(
+                "{\"isSuccessful\":false, \"errors\": [" + VALID_ERROR_JSON_2 + "]}");
+
+        // act
+        BulkEnrollmentOperationResult result = BulkEnrollmentOperationResult.combine(Arrays.asList(successfulResult, successfulResult, failedResult));
+
+        // assert
+        assertFalse(result.getSuccessful());
+        List<BulkEnrollmentOperationError> errors = result.getErrors();
+        assertEquals(3, errors.size());
+        assertEquals(VALID_REGISTRATION_ID_1, errors.get(0).getRegistrationId());
+        assertEquals(VALID_REGISTRATION_ID_1, errors.get(1).getRegistrationId());
+        assertEquals(VALID_REGISTRATION_ID_2, errors.get(2).getRegistrationId());
+        assertTrue(BulkEnrollmentOperationResult.combine(Arrays.asList(successfulResult, successfulResult)).getSuccessful());
+    }
 }
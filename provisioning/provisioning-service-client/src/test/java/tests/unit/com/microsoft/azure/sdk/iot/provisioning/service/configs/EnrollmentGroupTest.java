@@ -1299,4 +1299,15 @@ public class EnrollmentGroupTest
         assertNotNull(enrollmentGroup);
     }
 
+
+    /* SRS_ENROLLMENT_GROUP_21_043: [If the attestation was not provided, the getAttestation shall return null.] */
+    @Test
+    public void getAttestationReturnsNullWithoutAttestation() throws ProvisioningServiceClientException
+    {
+        // arrange
+        EnrollmentGroup enrollmentGroup = Deencapsulation.newInstance(EnrollmentGroup.class);
+
+        // act - assert
+        assertNull(enrollmentGroup.getAttestation());
+    }
 }
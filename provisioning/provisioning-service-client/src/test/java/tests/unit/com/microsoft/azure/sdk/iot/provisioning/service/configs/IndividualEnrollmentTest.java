@@ -1367,4 +1367,15 @@ public class IndividualEnrollmentTest
         // assert
         assertNotNull(individualEnrollment);
     }
+
+    /* SRS_INDIVIDUAL_ENROLLMENT_21_052: [If the attestation was not provided, the getAttestation shall return null.] */
+    @Test
+    public void getAttestationReturnsNullWithoutAttestation() throws ProvisioningServiceClientException
+    {
+        // arrange
+        IndividualEnrollment individualEnrollment = Deencapsulation.newInstance(IndividualEnrollment.class);
+
+        // act - assert
+        assertNull(individualEnrollment.getAttestation());
+    }
 }
@@ -167,6 +167,67 @@ public class ContractApiHttpTest
         };
     }
 
+    /* SRS_HTTP_DEVICE_REGISTRATION_CLIENT_21_017: [The request shall reuse the SAS token of the previous requests, and only create a new one when the previous one is less than SAS_TOKEN_RENEWAL_MARGIN_IN_SECONDS from its expiry time.] */
+    @Test
+    public void requestReusesValidSasToken() throws ProvisioningServiceClientException, IOException
+    {
+        // arrange
+        ContractApiHttp contractApiHttp = ContractApiHttp.createFromConnectionString(mockedProvisioningConnectionString);
+        requestNonStrictExpectations();
+        new NonStrictExpectations()
+        {
+            {
+                mockedProvisioningSasToken.getExpiryTime();
+                result = (System.currentTimeMillis() / 1000) + (365 * 24 * 60 * 60);
+            }
+        };
+
+        // act
+        contractApiHttp.request(HttpMethod.PUT, VALID_PATH, VALID_HEADER, VALID_PAYLOAD);
+        contractApiHttp.request(HttpMethod.PUT, VALID_PATH, VALID_HEADER, VALID_PAYLOAD);
+        contractApiHttp.request(HttpMethod.PUT, VALID_PATH, VALID_HEADER, VALID_PAYLOAD);
+
+        // assert
+        new Verifications()
+        {
+            {
+                new ProvisioningSasToken(mockedProvisioningConnectionString);
+                times = 1;
+                mockedHttpRequest.setHeaderField("authorization", VALID_SASTOKEN);
+                times = 3;
+            }
+        };
+    }
+
+    /* SRS_HTTP_DEVICE_REGISTRATION_CLIENT_21_017: [The request shall reuse the SAS token of the previous requests, and only create a new one when the previous one is less than SAS_TOKEN_RENEWAL_MARGIN_IN_SECONDS from its expiry time.] */
+    @Test
+    public void requestRenewsSasTokenCloseToExpire() throws ProvisioningServiceClientException, IOException
+    {
+        // arrange
+        ContractApiHttp contractApiHttp = ContractApiHttp.createFromConnectionString(mockedProvisioningConnectionString);
+        requestNonStrictExpectations();
+        new NonStrictExpectations()
+        {
+            {
+                mockedProvisioningSasToken.getExpiryTime();
+                result = (System.currentTimeMillis() / 1000) + 60;
+            }
+        };
+
+        // act
+        contractApiHttp.request(HttpMethod.PUT, VALID_PATH, VALID_HEADER, VALID_PAYLOAD);
+        contractApiHttp.request(HttpMethod.PUT, VALID_PATH, VALID_HEADER, VALID_PAYLOAD);
+
+        // assert
+        new Verifications()
+        {
+            {
+                new ProvisioningSasToken(mockedProvisioningConnectionString);
+                times = 2;
+            }
+        };
+    }
+
     /* SRS_HTTP_DEVICE_REGISTRATION_CLIENT_21_006: [If the request get problem to create the SAS token, it shall throw IllegalArgumentException.*/
     @Test (expected = IllegalArgumentException.class)
     public void requestThrowsOnSasToken() throws ProvisioningServiceClientException, IOException
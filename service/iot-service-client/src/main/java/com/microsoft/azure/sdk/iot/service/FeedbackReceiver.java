@@ -97,6 +97,19 @@ public class FeedbackReceiver extends Receiver
         this.amqpReceive = new AmqpReceive(hostName, userName, sasToken, iotHubServiceClientProtocol);
     }
         
+    /**
+     * Sets the maximum size of the WebSocket frames when the protocol is AMQPS_WS. Bigger frames send big messages in
+     * less frames, at the cost of bigger buffers for each connection. It applies from the next call to open.
+     *
+     * @param maxFrameSize the maximum size, in bytes, of a WebSocket frame, including its header.
+     * @throws IllegalArgumentException if the size cannot fit a frame header and its payload.
+     */
+    public void setWebSocketMaxFrameSize(int maxFrameSize) throws IllegalArgumentException
+    {
+        // Codes_SRS_SERVICE_SDK_JAVA_FEEDBACKRECEIVER_21_015: [The function shall set the WebSocket maximum frame size of the AMQP receiver.]
+        this.amqpReceive.setWebSocketMaxFrameSize(maxFrameSize);
+    }
+
     /**
      * Open AmqpReceive object
      *
@@ -15,21 +15,19 @@ import com.microsoft.azure.sdk.iot.service.exceptions.IotHubException;
 import com.microsoft.azure.sdk.iot.service.exceptions.IotHubExceptionManager;
 import com.microsoft.azure.sdk.iot.service.transport.http.HttpMethod;
 import com.microsoft.azure.sdk.iot.service.transport.http.HttpRequest;
+import com.microsoft.azure.sdk.iot.service.transport.http.HttpRequestDispatcher;
 import com.microsoft.azure.sdk.iot.service.transport.http.HttpResponse;
 
-import javax.json.Json;
-import javax.json.JsonArray;
-import javax.json.JsonObject;
-import javax.json.JsonReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.StringReader;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * Use the RegistryManager class to manage the identity registry in IoT Hubs.
@@ -37,8 +35,8 @@ import java.util.concurrent.Executors;
 public class RegistryManager
 {
     private final Integer DEFAULT_HTTP_TIMEOUT_MS = 24000;
-    private static final int EXECUTOR_THREAD_POOL_SIZE = 10;
-    private ExecutorService executor;
+    private static final int MAX_CONCURRENT_REQUESTS_PER_HOST = 10;
+    private HttpRequestDispatcher dispatcher;
     private IotHubConnectionString iotHubConnectionString;
 
     /**
@@ -62,8 +60,8 @@ public class RegistryManager
         RegistryManager iotHubRegistryManager = new RegistryManager();
         iotHubRegistryManager.iotHubConnectionString = iotHubConnectionString;
 
-        // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_34_090: [The function shall start this object's executor service]
-        iotHubRegistryManager.executor = Executors.newFixedThreadPool(EXECUTOR_THREAD_POOL_SIZE);
+        // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_34_090: [The function shall create this object's HTTP request dispatcher]
+        iotHubRegistryManager.dispatcher = new HttpRequestDispatcher(MAX_CONCURRENT_REQUESTS_PER_HOST);
 
         return iotHubRegistryManager;
     }
@@ -78,14 +76,14 @@ public class RegistryManager
     }
 
     /**
-     * Gracefully close running threads, and then shutdown the underlying executor service
+     * Close the underlying HTTP request dispatcher. Requests in flight are completed, queued requests are cancelled
      */
     public void close()
     {
-        // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_34_087: [The function shall tell this object's executor service to shutdown]
-        if (executor != null && !executor.isTerminated())
+        // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_34_087: [The function shall close this object's HTTP request dispatcher]
+        if (dispatcher != null)
         {
-            this.executor.shutdownNow();
+            this.dispatcher.close();
         }
     }
 
@@ -148,20 +146,7 @@ public class RegistryManager
         }
 
         // Codes_SRS_SERVICE_SDK_JAVA_ REGISTRYMANAGER_12_013: [The function shall create an async wrapper around the addDevice() function call, handle the return value or delegate exception]
-        final CompletableFuture<Device> future = new CompletableFuture<>();
-        executor.submit(() ->
-        {
-            try
-            {
-                Device responseDevice = addDevice(device);
-                future.complete(responseDevice);
-            }
-            catch (IOException | IotHubException e)
-            {
-                future.completeExceptionally(e);
-            }
-        });
-        return future;
+        return dispatcher.dispatch(iotHubConnectionString.getHostName(), () -> addDevice(device));
     }
 
     /**
@@ -218,20 +203,7 @@ public class RegistryManager
         }
 
         // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_12_022: [The function shall create an async wrapper around the addDevice() function call, handle the return value or delegate exception]
-        final CompletableFuture<Device> future = new CompletableFuture<>();
-        executor.submit(() ->
-        {
-            try
-            {
-                Device responseDevice = getDevice(deviceId);
-                future.complete(responseDevice);
-            }
-            catch (IotHubException | IOException e)
-            {
-                future.completeExceptionally(e);
-            }
-        });
-        return future;
+        return dispatcher.dispatch(iotHubConnectionString.getHostName(), () -> getDevice(deviceId));
     }
 
     /**
@@ -269,20 +241,12 @@ public class RegistryManager
         IotHubExceptionManager.httpResponseVerification(response);
 
         // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_12_029: [The function shall create a new ArrayList<Device> object from the response and return with it]
-        String bodyStr = new String(response.getBody(), StandardCharsets.UTF_8);
-        try (JsonReader jsonReader = Json.createReader(new StringReader(bodyStr)))
+        ArrayList<Device> deviceList = new ArrayList<>();
+        for (DeviceParser deviceParser : DeviceParser.createFromJsonArray(createBodyReader(response)))
         {
-            ArrayList<Device> deviceList = new ArrayList<>();
-            JsonArray deviceArray = jsonReader.readArray();
-            
-            for (int i = 0; i < deviceArray.size(); i++)
-            {
-                JsonObject jsonObject = deviceArray.getJsonObject(i);
-                Device iotHubDevice = new Device(new DeviceParser(jsonObject.toString()));
-                deviceList.add(iotHubDevice);
-            }
-            return deviceList;
+            deviceList.add(new Device(deviceParser));
         }
+        return deviceList;
     }
 
     /**
@@ -307,20 +271,7 @@ public class RegistryManager
         }
 
         // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_12_031: [The function shall create an async wrapper around the getDevices() function call, handle the return value or delegate exception]
-        final CompletableFuture<ArrayList<Device>> future = new CompletableFuture<>();
-        executor.submit(() ->
-        {
-            try
-            {
-                ArrayList<Device> response = getDevices(maxCount);
-                future.complete(response);
-            }
-            catch (IotHubException | IOException e)
-            {
-                future.completeExceptionally(e);
-            }
-        });
-        return future;
+        return dispatcher.dispatch(iotHubConnectionString.getHostName(), () -> getDevices(maxCount));
     }
 
     /**
@@ -434,20 +385,7 @@ public class RegistryManager
             throw new IllegalArgumentException("device cannot be null");
         }
         // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_12_043: [The function shall create an async wrapper around the updateDevice() function call, handle the return value or delegate exception]
-        final CompletableFuture<Device> future = new CompletableFuture<>();
-        executor.submit(() ->
-        {
-            try
-            {
-                Device responseDevice = updateDevice(device);
-                future.complete(responseDevice);
-            }
-            catch (IotHubException | IOException e)
-            {
-                future.completeExceptionally(e);
-            }
-        });
-        return future;
+        return dispatcher.dispatch(iotHubConnectionString.getHostName(), () -> updateDevice(device));
     }
 
     /**
@@ -467,20 +405,7 @@ public class RegistryManager
             throw new IllegalArgumentException("device cannot be null");
         }
         // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_12_045: [The function shall create an async wrapper around the updateDevice(Device, device, Boolean forceUpdate) function call, handle the return value or delegate exception]
-        final CompletableFuture<Device> future = new CompletableFuture<>();
-        executor.submit(() ->
-        {
-            try
-            {
-                Device responseDevice = updateDevice(device, forceUpdate);
-                future.complete(responseDevice);
-            }
-            catch (IotHubException | IOException e)
-            {
-                future.completeExceptionally(e);
-            }
-        });
-        return future;
+        return dispatcher.dispatch(iotHubConnectionString.getHostName(), () -> updateDevice(device, forceUpdate));
     }
 
     /**
@@ -575,20 +500,11 @@ public class RegistryManager
         }
 
         // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_12_053: [The function shall create an async wrapper around the removeDevice() function call, handle the return value or delegate exception]
-        final CompletableFuture<Boolean> future = new CompletableFuture<Boolean>();
-        executor.submit(() ->
+        return dispatcher.dispatch(iotHubConnectionString.getHostName(), () ->
         {
-            try
-            {
-                removeDevice(deviceId);
-                future.complete(true);
-            }
-            catch (IotHubException | IOException e)
-            {
-                future.completeExceptionally(e);
-            }
+            removeDevice(deviceId);
+            return true;
         });
-        return future;
     }
 
     /**
@@ -631,20 +547,7 @@ public class RegistryManager
     public CompletableFuture<RegistryStatistics> getStatisticsAsync() throws IOException, IotHubException
     {
         // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_12_060: [The function shall create an async wrapper around the getStatistics() function call, handle the return value or delegate exception]
-        final CompletableFuture<RegistryStatistics> future = new CompletableFuture<>();
-        executor.submit(() ->
-        {
-            try
-            {
-                RegistryStatistics responseDevice = getStatistics();
-                future.complete(responseDevice);
-            }
-            catch (IotHubException | IOException e)
-            {
-                future.completeExceptionally(e);
-            }
-        });
-        return future;
+        return dispatcher.dispatch(iotHubConnectionString.getHostName(), () -> getStatistics());
     }
 
     /**
@@ -702,20 +605,7 @@ public class RegistryManager
     {
         // CODES_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_15_068: [The function shall create an async wrapper around the
         // exportDevices() function call, handle the return value or delegate exception]
-        final CompletableFuture<JobProperties> future = new CompletableFuture<>();
-        executor.submit(() ->
-        {
-            try
-            {
-                JobProperties responseJobProperties = exportDevices(exportBlobContainerUri, excludeKeys);
-                future.complete(responseJobProperties);
-            }
-            catch (IllegalArgumentException | IotHubException | IOException e)
-            {
-                future.completeExceptionally(e);
-            }
-        });
-        return future;
+        return dispatcher.dispatch(iotHubConnectionString.getHostName(), () -> exportDevices(exportBlobContainerUri, excludeKeys));
     }
 
     /**
@@ -773,20 +663,7 @@ public class RegistryManager
     {
         // CODES_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_15_076: [The function shall create an async wrapper around
         // the importDevices() function call, handle the return value or delegate exception]
-        final CompletableFuture<JobProperties> future = new CompletableFuture<>();
-        executor.submit(() ->
-        {
-            try
-            {
-                JobProperties responseJobProperties = importDevices(importBlobContainerUri, outputBlobContainerUri);
-                future.complete(responseJobProperties);
-            }
-            catch (IllegalArgumentException | IotHubException | IOException e)
-            {
-                future.completeExceptionally(e);
-            }
-        });
-        return future;
+        return dispatcher.dispatch(iotHubConnectionString.getHostName(), () -> importDevices(importBlobContainerUri, outputBlobContainerUri));
     }
 
     /**
@@ -839,20 +716,7 @@ public class RegistryManager
     {
         // CODES_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_15_084: [The function shall create an async wrapper around
         // the getJob() function call, handle the return value or delegate exception]
-        final CompletableFuture<JobProperties> future = new CompletableFuture<>();
-        executor.submit(() ->
-        {
-            try
-            {
-                JobProperties responseJobProperties = getJob(jobId);
-                future.complete(responseJobProperties);
-            }
-            catch (IllegalArgumentException | IotHubException | IOException e)
-            {
-                future.completeExceptionally(e);
-            }
-        });
-        return future;
+        return dispatcher.dispatch(iotHubConnectionString.getHostName(), () -> getJob(jobId));
     }
 
     /**
@@ -950,6 +814,28 @@ public class RegistryManager
      * @throws IotHubException This exception is thrown if the response verification failed
      */
     public List<Module> getModulesOnDevice(String deviceId) throws IOException, IotHubException, JsonSyntaxException
+    {
+        List<Module> moduleList = new ArrayList<>();
+        Iterator<Module> moduleIterator = getModulesOnDeviceIterator(deviceId);
+        while (moduleIterator.hasNext())
+        {
+            moduleList.add(moduleIterator.next());
+        }
+        return moduleList;
+    }
+
+    /**
+     * Get modules data by device Id from IotHub as an iterator.
+     *
+     * <p>The response body is read in full before this function returns, but each module is decoded from
+     * it only when the iterator reaches it, so the modules are not materialized as a full list.
+     *
+     * @param deviceId The id of requested device
+     * @return The iterator over the module objects on the specific device
+     * @throws IOException This exception is thrown if the IO operation failed
+     * @throws IotHubException This exception is thrown if the response verification failed
+     */
+    public Iterator<Module> getModulesOnDeviceIterator(String deviceId) throws IOException, IotHubException
     {
         // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_28_017: [The constructor shall throw IllegalArgumentException if the input string is null or empty]
         if (Tools.isNullOrEmpty(deviceId))
@@ -972,20 +858,21 @@ public class RegistryManager
         IotHubExceptionManager.httpResponseVerification(response);
 
         // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_28_023: [The function shall create a new List<Modules> object from the response and return with it]
-        String bodyStr = new String(response.getBody(), StandardCharsets.UTF_8);
-        try (JsonReader jsonReader = Json.createReader(new StringReader(bodyStr)))
+        final Iterator<DeviceParser> deviceParserIterator = DeviceParser.createJsonArrayIterator(createBodyReader(response));
+        return new Iterator<Module>()
         {
-            List<Module> moduleList = new ArrayList<>();
-            JsonArray deviceArray = jsonReader.readArray();
+            @Override
+            public boolean hasNext()
+            {
+                return deviceParserIterator.hasNext();
+            }
 
-            for (int i = 0; i < deviceArray.size(); i++)
+            @Override
+            public Module next()
             {
-                JsonObject jsonObject = deviceArray.getJsonObject(i);
-                Module iotHubModule = new Module(new DeviceParser(jsonObject.toString()));
-                moduleList.add(iotHubModule);
+                return new Module(deviceParserIterator.next());
             }
-            return moduleList;
-        }
+        };
     }
 
     /**
@@ -1219,6 +1106,28 @@ public class RegistryManager
      * @throws IotHubException This exception is thrown if the response verification failed
      */
     public List<Configuration> getConfigurations(Integer maxCount) throws IOException, IotHubException, JsonSyntaxException
+    {
+        List<Configuration> configurationList = new ArrayList<>();
+        Iterator<Configuration> configurationIterator = getConfigurationsIterator(maxCount);
+        while (configurationIterator.hasNext())
+        {
+            configurationList.add(configurationIterator.next());
+        }
+        return configurationList;
+    }
+
+    /**
+     * Get list of Configuration as an iterator.
+     *
+     * <p>The response body is read in full before this function returns, but each configuration is decoded
+     * from it only when the iterator reaches it, so the configurations are not materialized as a full list.
+     *
+     * @param maxCount The requested count of configurations
+     * @return The iterator over the requested configuration objects
+     * @throws IOException This exception is thrown if the IO operation failed
+     * @throws IotHubException This exception is thrown if the response verification failed
+     */
+    public Iterator<Configuration> getConfigurationsIterator(Integer maxCount) throws IOException, IotHubException
     {
         // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_28_056: [The function shall throw IllegalArgumentException if the input count number is less than 1]
         if (maxCount < 1)
@@ -1241,20 +1150,21 @@ public class RegistryManager
         IotHubExceptionManager.httpResponseVerification(response);
 
         // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_28_062: [The function shall create a new ArrayList<Configuration> object from the response and return with it]
-        String bodyStr = new String(response.getBody(), StandardCharsets.UTF_8);
-        try (JsonReader jsonReader = Json.createReader(new StringReader(bodyStr)))
+        final Iterator<ConfigurationParser> configurationParserIterator = ConfigurationParser.createJsonArrayIterator(createBodyReader(response));
+        return new Iterator<Configuration>()
         {
-            List<Configuration> configurationList = new ArrayList<>();
-            JsonArray deviceArray = jsonReader.readArray();
+            @Override
+            public boolean hasNext()
+            {
+                return configurationParserIterator.hasNext();
+            }
 
-            for (int i = 0; i < deviceArray.size(); i++)
+            @Override
+            public Configuration next()
             {
-                JsonObject jsonObject = deviceArray.getJsonObject(i);
-                Configuration iotHubConfiguration = new Configuration(new ConfigurationParser(jsonObject.toString()));
-                configurationList.add(iotHubConfiguration);
+                return new Configuration(configurationParserIterator.next());
             }
-            return configurationList;
-        }
+        };
     }
 
     /**
@@ -1446,6 +1356,11 @@ public class RegistryManager
         return resultJobProperties;
     }
 
+    private static Reader createBodyReader(HttpResponse response)
+    {
+        return new InputStreamReader(new ByteArrayInputStream(response.getBody()), StandardCharsets.UTF_8);
+    }
+
     private HttpRequest CreateRequest(URL url, HttpMethod method, byte[] payload, String sasToken) throws IOException
     {
         HttpRequest request = new HttpRequest(url, method, payload);
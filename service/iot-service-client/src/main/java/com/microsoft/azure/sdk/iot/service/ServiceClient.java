@@ -5,6 +5,7 @@
 
 package com.microsoft.azure.sdk.iot.service;
 
+import com.microsoft.azure.sdk.iot.deps.ws.impl.WebSocketImpl;
 import com.microsoft.azure.sdk.iot.service.auth.IotHubServiceSasToken;
 import com.microsoft.azure.sdk.iot.service.exceptions.IotHubException;
 import com.microsoft.azure.sdk.iot.service.transport.amqps.AmqpSend;
@@ -27,6 +28,7 @@ public class ServiceClient
     private final String sasToken;
     protected IotHubConnectionString iotHubConnectionString;
     private IotHubServiceClientProtocol iotHubServiceClientProtocol;
+    private int webSocketMaxFrameSize = WebSocketImpl.DEFAULT_MAX_FRAME_SIZE;
 
     /**
      * Create ServiceClient from the specified connection string
@@ -79,6 +81,22 @@ public class ServiceClient
         this.amqpMessageSender = new AmqpSend(hostName, userName, sasToken, this.iotHubServiceClientProtocol);
     }
 
+    /**
+     * Sets the maximum size of the WebSocket frames when the protocol is AMQPS_WS. Bigger frames send big messages in
+     * less frames, at the cost of bigger buffers for each connection. It applies to the sender from its next call to
+     * open, and to the receivers created after this call.
+     *
+     * @param maxFrameSize the maximum size, in bytes, of a WebSocket frame, including its header.
+     * @throws IllegalArgumentException if the size cannot fit a frame header and its payload.
+     */
+    public void setWebSocketMaxFrameSize(int maxFrameSize) throws IllegalArgumentException
+    {
+        // Codes_SRS_SERVICE_SDK_JAVA_SERVICECLIENT_21_003: [The function shall set the WebSocket maximum frame size of
+        // the AMQP sender, and save it for the receivers created by this client.]
+        this.amqpMessageSender.setWebSocketMaxFrameSize(maxFrameSize);
+        this.webSocketMaxFrameSize = maxFrameSize;
+    }
+
     /**
      * Open AMQP sender
      * @throws IOException This exception is thrown if the AmqpSender object is not initialized
@@ -221,6 +239,7 @@ public class ServiceClient
     {
         // Codes_SRS_SERVICE_SDK_JAVA_SERVICECLIENT_12_017: [The function shall create a FeedbackReceiver object and returns with it. This API is deprecated.]
         FeedbackReceiver feedbackReceiver = new FeedbackReceiver(hostName, userName, sasToken, iotHubServiceClientProtocol, deviceId);
+        feedbackReceiver.setWebSocketMaxFrameSize(this.webSocketMaxFrameSize);
         return feedbackReceiver;
     }
     
@@ -235,6 +254,8 @@ public class ServiceClient
     {
         // Codes_SRS_SERVICE_SDK_JAVA_SERVICECLIENT_12_018: [The function shall create a FeedbackReceiver object and returns with it. This API doesn't need deviceId as an input parameter]
         FeedbackReceiver feedbackReceiver = new FeedbackReceiver(hostName, userName, sasToken, iotHubServiceClientProtocol);
+        // Codes_SRS_SERVICE_SDK_JAVA_SERVICECLIENT_21_004: [The function shall set the WebSocket maximum frame size of the created receiver.]
+        feedbackReceiver.setWebSocketMaxFrameSize(this.webSocketMaxFrameSize);
         return feedbackReceiver;
     }
 
@@ -245,7 +266,10 @@ public class ServiceClient
      */
     public FileUploadNotificationReceiver getFileUploadNotificationReceiver()
     {
-        return new FileUploadNotificationReceiver(hostName, userName, sasToken, iotHubServiceClientProtocol);
+        // Codes_SRS_SERVICE_SDK_JAVA_SERVICECLIENT_21_004: [The function shall set the WebSocket maximum frame size of the created receiver.]
+        FileUploadNotificationReceiver fileUploadNotificationReceiver = new FileUploadNotificationReceiver(hostName, userName, sasToken, iotHubServiceClientProtocol);
+        fileUploadNotificationReceiver.setWebSocketMaxFrameSize(this.webSocketMaxFrameSize);
+        return fileUploadNotificationReceiver;
     }
     
 }
@@ -45,6 +45,7 @@ public class AmqpFeedbackReceivedHandler extends BaseHandler
 
     protected final IotHubServiceClientProtocol iotHubServiceClientProtocol;
     protected final String webSocketHostName;
+    private int webSocketMaxFrameSize = WebSocketImpl.DEFAULT_MAX_FRAME_SIZE;
 
     private AmqpFeedbackReceivedEvent amqpFeedbackReceivedEvent;
 
@@ -101,6 +102,18 @@ public class AmqpFeedbackReceivedHandler extends BaseHandler
         return domain;
     }
 
+    /**
+     * Setter for the maximum size of the WebSocket frames, used if the protocol is AMQPS_WS.
+     *
+     * @param maxFrameSize the maximum size of a WebSocket frame, including its header.
+     * @throws IllegalArgumentException if the size cannot fit a frame header and its payload.
+     */
+    public void setWebSocketMaxFrameSize(int maxFrameSize) throws IllegalArgumentException
+    {
+        WebSocketImpl.validateMaxFrameSize(maxFrameSize);
+        this.webSocketMaxFrameSize = maxFrameSize;
+    }
+
     /**
      * Event handler for the on delivery event
      * @param event The proton event object
@@ -122,6 +135,8 @@ public class AmqpFeedbackReceivedHandler extends BaseHandler
             // Codes_SRS_SERVICE_SDK_JAVA_AMQPFEEDBACKRECEIVEDHANDLER_12_006: [The event handler shall create a Message (Proton) object from the decoded buffer]
             org.apache.qpid.proton.message.Message msg = Proton.message();
             msg.decode(buffer, 0, read);
+            // Codes_SRS_SERVICE_SDK_JAVA_AMQPFEEDBACKRECEIVEDHANDLER_21_021: [The event handler shall decompress the body of the message if its content encoding is gzip or deflate.]
+            AmqpMessageDecompressor.decompress(msg);
           
             // Codes_SRS_SERVICE_SDK_JAVA_AMQPFEEDBACKRECEIVEDHANDLER_12_007: [The event handler shall settle the Delivery with the Accepted outcome]
             delivery.disposition(Accepted.getInstance());
@@ -149,7 +164,8 @@ public class AmqpFeedbackReceivedHandler extends BaseHandler
         {
             if (this.iotHubServiceClientProtocol == IotHubServiceClientProtocol.AMQPS_WS)
             {
-                WebSocketImpl webSocket = new WebSocketImpl();
+                // Codes_SRS_SERVICE_SDK_JAVA_AMQPFEEDBACKRECEIVEDHANDLER_21_020: [The WebSocket layer shall use the maximum frame size set for the handler.]
+                WebSocketImpl webSocket = new WebSocketImpl(this.webSocketMaxFrameSize);
                 webSocket.configure(this.webSocketHostName, WEBSOCKET_PATH, 0, WEBSOCKET_SUB_PROTOCOL, null, null);
                 ((TransportInternal)transport).addTransportLayer(webSocket);
             }
@@ -6,6 +6,7 @@
 package com.microsoft.azure.sdk.iot.service.transport.amqps;
 
 import com.microsoft.azure.sdk.iot.deps.serializer.FileUploadNotificationParser;
+import com.microsoft.azure.sdk.iot.deps.ws.impl.WebSocketImpl;
 import com.microsoft.azure.sdk.iot.service.FileUploadNotification;
 import com.microsoft.azure.sdk.iot.service.IotHubServiceClientProtocol;
 import org.apache.qpid.proton.Proton;
@@ -29,6 +30,7 @@ public class AmqpFileUploadNotificationReceive extends BaseHandler implements Am
     private final String sasToken;
     private AmqpFileUploadNotificationReceivedHandler amqpReceiveHandler;
     private IotHubServiceClientProtocol iotHubServiceClientProtocol;
+    private int webSocketMaxFrameSize = WebSocketImpl.DEFAULT_MAX_FRAME_SIZE;
     private Reactor reactor = null;
     private FileUploadNotification fileUploadNotification;
     private Queue<FileUploadNotification> fileUploadNotificationQueue;
@@ -68,6 +70,19 @@ public class AmqpFileUploadNotificationReceive extends BaseHandler implements Am
         event.getReactor().connection(amqpReceiveHandler);
     }
 
+    /**
+     * Setter for the maximum size of the WebSocket frames, used if the protocol is AMQPS_WS. It applies from the
+     * next call to {@link #open()}.
+     *
+     * @param maxFrameSize the maximum size of a WebSocket frame, including its header.
+     * @throws IllegalArgumentException if the size cannot fit a frame header and its payload.
+     */
+    public void setWebSocketMaxFrameSize(int maxFrameSize) throws IllegalArgumentException
+    {
+        WebSocketImpl.validateMaxFrameSize(maxFrameSize);
+        this.webSocketMaxFrameSize = maxFrameSize;
+    }
+
     /**
      * Create AmqpsReceiveHandler and store it in a member variable
      * @throws IOException If underlying layers throws it for any reason
@@ -78,6 +93,8 @@ public class AmqpFileUploadNotificationReceive extends BaseHandler implements Am
         if (amqpReceiveHandler == null)
         {
             amqpReceiveHandler = new AmqpFileUploadNotificationReceivedHandler(this.hostName, this.userName, this.sasToken, this.iotHubServiceClientProtocol, this);
+            // Codes_SRS_SERVICE_SDK_JAVA_AMQPFILEUPLOADNOTIFICATIONRECEIVE_21_011: [The function shall set the WebSocket maximum frame size of the handler.]
+            amqpReceiveHandler.setWebSocketMaxFrameSize(this.webSocketMaxFrameSize);
             this.fileUploadNotificationQueue = new LinkedBlockingDeque<>();
         }
     }
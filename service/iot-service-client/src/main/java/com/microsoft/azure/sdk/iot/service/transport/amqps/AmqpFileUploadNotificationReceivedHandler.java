@@ -46,6 +46,7 @@ public class AmqpFileUploadNotificationReceivedHandler extends BaseHandler
 
     private final IotHubServiceClientProtocol iotHubServiceClientProtocol;
     private final String webSocketHostName;
+    private int webSocketMaxFrameSize = WebSocketImpl.DEFAULT_MAX_FRAME_SIZE;
 
     private AmqpFeedbackReceivedEvent amqpFeedbackReceivedEvent;
 
@@ -108,6 +109,18 @@ public class AmqpFileUploadNotificationReceivedHandler extends BaseHandler
         return domain;
     }
 
+    /**
+     * Setter for the maximum size of the WebSocket frames, used if the protocol is AMQPS_WS.
+     *
+     * @param maxFrameSize the maximum size of a WebSocket frame, including its header.
+     * @throws IllegalArgumentException if the size cannot fit a frame header and its payload.
+     */
+    public void setWebSocketMaxFrameSize(int maxFrameSize) throws IllegalArgumentException
+    {
+        WebSocketImpl.validateMaxFrameSize(maxFrameSize);
+        this.webSocketMaxFrameSize = maxFrameSize;
+    }
+
     /**
      * Event handler for the on delivery event
      * @param event The proton event object
@@ -130,6 +143,8 @@ public class AmqpFileUploadNotificationReceivedHandler extends BaseHandler
             // Codes_SRS_SERVICE_SDK_JAVA_AMQPFILEUPLOADNOTIFICATIONRECEIVEDHANDLER_25_006: [The event handler shall create a Message (Proton) object from the decoded buffer]
             org.apache.qpid.proton.message.Message msg = Proton.message();
             msg.decode(buffer, 0, read);
+            // Codes_SRS_SERVICE_SDK_JAVA_AMQPFILEUPLOADNOTIFICATIONRECEIVEDHANDLER_21_025: [The event handler shall decompress the body of the message if its content encoding is gzip or deflate.]
+            AmqpMessageDecompressor.decompress(msg);
           
             // Codes_SRS_SERVICE_SDK_JAVA_AMQPFILEUPLOADNOTIFICATIONRECEIVEDHANDLER_25_007: [The event handler shall settle the Delivery with the Accepted outcome]
             delivery.disposition(Accepted.getInstance());
@@ -162,7 +177,8 @@ public class AmqpFileUploadNotificationReceivedHandler extends BaseHandler
             if (this.iotHubServiceClientProtocol == IotHubServiceClientProtocol.AMQPS_WS)
             {
                 // Codes_SRS_SERVICE_SDK_JAVA_AMQPFILEUPLOADNOTIFICATIONRECEIVEDHANDLER_25_020: [** The event handler shall not initialize WebSocket if the protocol is AMQP **]
-                WebSocketImpl webSocket = new WebSocketImpl();
+                // Codes_SRS_SERVICE_SDK_JAVA_AMQPFILEUPLOADNOTIFICATIONRECEIVEDHANDLER_21_024: [The WebSocket layer shall use the maximum frame size set for the handler.]
+                WebSocketImpl webSocket = new WebSocketImpl(this.webSocketMaxFrameSize);
                 webSocket.configure(this.webSocketHostName, WEBSOCKET_PATH, 0, WEBSOCKET_SUB_PROTOCOL, null, null);
                 ((TransportInternal)transport).addTransportLayer(webSocket);
             }
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.sdk.iot.service.transport.amqps;
+
+import com.microsoft.azure.sdk.iot.deps.util.Compression;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.message.Message;
+
+import java.io.IOException;
+
+/**
+ * Inflates the body of the AMQP messages received from the IoT Hub when their content encoding is gzip or deflate,
+ * so the receivers parse the same body whether or not it was compressed.
+ */
+public final class AmqpMessageDecompressor
+{
+    private AmqpMessageDecompressor()
+    {
+    }
+
+    /**
+     * Decompresses the Data body of the message if its content encoding is a supported compression, and clears the
+     * content encoding. The message is not changed if it is not compressed, or if the decompression fails.
+     *
+     * @param message the received message. It cannot be {@code null}.
+     * @return {@code true} if the body was decompressed.
+     * @throws IllegalArgumentException if the message is null.
+     */
+    public static boolean decompress(Message message) throws IllegalArgumentException
+    {
+        // Codes_SRS_SERVICE_SDK_JAVA_AMQPMESSAGEDECOMPRESSOR_21_001: [The function shall throw IllegalArgumentException if the message is null.]
+        if (message == null)
+        {
+            throw new IllegalArgumentException("message cannot be null");
+        }
+
+        // Codes_SRS_SERVICE_SDK_JAVA_AMQPMESSAGEDECOMPRESSOR_21_002: [The function shall not change the message if its content encoding is not a supported compression, or its body is not a Data section.]
+        String contentEncoding = Compression.toSupportedContentEncoding(message.getContentEncoding());
+        if (contentEncoding == null || !(message.getBody() instanceof Data))
+        {
+            return false;
+        }
+
+        Binary body = ((Data) message.getBody()).getValue();
+        byte[] compressedBody = new byte[body.getLength()];
+        System.arraycopy(body.getArray(), body.getArrayOffset(), compressedBody, 0, body.getLength());
+        try
+        {
+            // Codes_SRS_SERVICE_SDK_JAVA_AMQPMESSAGEDECOMPRESSOR_21_003: [The function shall replace the body with the decompressed one and clear the content encoding.]
+            byte[] decompressedBody = Compression.decompress(compressedBody, contentEncoding, Compression.DEFAULT_MAX_DECOMPRESSED_BYTES);
+            message.setBody(new Data(new Binary(decompressedBody)));
+            message.setContentEncoding(null);
+            return true;
+        }
+        catch (IOException e)
+        {
+            // Codes_SRS_SERVICE_SDK_JAVA_AMQPMESSAGEDECOMPRESSOR_21_004: [If the body is not valid for its content
+            // encoding, or inflates to more than the maximum size of an IoT Hub message, the function shall not change the message.]
+            return false;
+        }
+    }
+}
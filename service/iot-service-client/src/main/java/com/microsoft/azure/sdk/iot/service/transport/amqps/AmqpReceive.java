@@ -5,6 +5,7 @@
 
 package com.microsoft.azure.sdk.iot.service.transport.amqps;
 
+import com.microsoft.azure.sdk.iot.deps.ws.impl.WebSocketImpl;
 import com.microsoft.azure.sdk.iot.service.FeedbackBatch;
 import com.microsoft.azure.sdk.iot.service.FeedbackBatchMessage;
 import com.microsoft.azure.sdk.iot.service.IotHubServiceClientProtocol;
@@ -27,6 +28,7 @@ public class AmqpReceive extends BaseHandler implements AmqpFeedbackReceivedEven
     private final String sasToken;
     private AmqpFeedbackReceivedHandler amqpReceiveHandler;
     private IotHubServiceClientProtocol iotHubServiceClientProtocol;
+    private int webSocketMaxFrameSize = WebSocketImpl.DEFAULT_MAX_FRAME_SIZE;
     private Reactor reactor = null;
     private FeedbackBatch feedbackBatch;
     private static final int REACTOR_TIMEOUT = 3141; // reactor timeout in milliseconds
@@ -64,6 +66,19 @@ public class AmqpReceive extends BaseHandler implements AmqpFeedbackReceivedEven
         event.getReactor().connection(amqpReceiveHandler);
     }
 
+    /**
+     * Setter for the maximum size of the WebSocket frames, used if the protocol is AMQPS_WS. It applies from the
+     * next call to {@link #open()}.
+     *
+     * @param maxFrameSize the maximum size of a WebSocket frame, including its header.
+     * @throws IllegalArgumentException if the size cannot fit a frame header and its payload.
+     */
+    public void setWebSocketMaxFrameSize(int maxFrameSize) throws IllegalArgumentException
+    {
+        WebSocketImpl.validateMaxFrameSize(maxFrameSize);
+        this.webSocketMaxFrameSize = maxFrameSize;
+    }
+
     /**
      * Create AmqpsReceiveHandler and store it in a member variable
      */
@@ -71,6 +86,8 @@ public class AmqpReceive extends BaseHandler implements AmqpFeedbackReceivedEven
     {
         // Codes_SRS_SERVICE_SDK_JAVA_AMQPRECEIVE_12_003: [The function shall create an AmqpsReceiveHandler object to handle reactor events]
         amqpReceiveHandler = new AmqpFeedbackReceivedHandler(this.hostName, this.userName, this.sasToken, this.iotHubServiceClientProtocol, this);
+        // Codes_SRS_SERVICE_SDK_JAVA_AMQPRECEIVE_21_011: [The function shall set the WebSocket maximum frame size of the handler.]
+        amqpReceiveHandler.setWebSocketMaxFrameSize(this.webSocketMaxFrameSize);
     }
 
     /**
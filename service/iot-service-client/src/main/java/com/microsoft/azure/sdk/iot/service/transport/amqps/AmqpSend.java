@@ -5,6 +5,7 @@
 
 package com.microsoft.azure.sdk.iot.service.transport.amqps;
 
+import com.microsoft.azure.sdk.iot.deps.ws.impl.WebSocketImpl;
 import com.microsoft.azure.sdk.iot.service.IotHubServiceClientProtocol;
 import com.microsoft.azure.sdk.iot.service.Message;
 import com.microsoft.azure.sdk.iot.service.Tools;
@@ -30,6 +31,7 @@ public class AmqpSend extends BaseHandler
     protected Reactor reactor = null;
     protected AmqpSendHandler amqpSendHandler;
     protected IotHubServiceClientProtocol iotHubServiceClientProtocol;
+    private int webSocketMaxFrameSize = WebSocketImpl.DEFAULT_MAX_FRAME_SIZE;
 
     /**
      * Constructor to set up connection parameters
@@ -83,6 +85,19 @@ public class AmqpSend extends BaseHandler
         event.getReactor().connection(amqpSendHandler);
     }
 
+    /**
+     * Setter for the maximum size of the WebSocket frames, used if the protocol is AMQPS_WS. It applies from the
+     * next call to {@link #open()}.
+     *
+     * @param maxFrameSize the maximum size of a WebSocket frame, including its header.
+     * @throws IllegalArgumentException if the size cannot fit a frame header and its payload.
+     */
+    public void setWebSocketMaxFrameSize(int maxFrameSize) throws IllegalArgumentException
+    {
+        WebSocketImpl.validateMaxFrameSize(maxFrameSize);
+        this.webSocketMaxFrameSize = maxFrameSize;
+    }
+
     /**
      * Create AmqpsSendHandler and store it in a member variable
      */
@@ -90,6 +105,8 @@ public class AmqpSend extends BaseHandler
     {
         // Codes_SRS_SERVICE_SDK_JAVA_AMQPSEND_12_004: [The function shall create an AmqpsSendHandler object to handle reactor events]
         amqpSendHandler = new AmqpSendHandler(this.hostName, this.userName, this.sasToken, this.iotHubServiceClientProtocol);
+        // Codes_SRS_SERVICE_SDK_JAVA_AMQPSEND_21_007: [The function shall set the WebSocket maximum frame size of the handler.]
+        amqpSendHandler.setWebSocketMaxFrameSize(this.webSocketMaxFrameSize);
     }
 
     /**
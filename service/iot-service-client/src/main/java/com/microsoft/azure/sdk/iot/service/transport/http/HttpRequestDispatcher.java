@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.sdk.iot.service.transport.http;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dispatches HTTP operations asynchronously on a JVM wide pool of I/O workers.
+ * <p>
+ * Each dispatcher caps the number of operations in flight per host. Operations above the cap wait in a
+ * queue without holding a thread, and a worker that completes an operation picks the next queued operation
+ * for the same host. Keeping the number of parallel requests to a host small lets them share the connections
+ * in the JVM keep-alive cache instead of opening a new TLS session per call. The returned futures are completed
+ * by the worker that ran the I/O.
+ * <p>
+ * The pool is bounded by the sum of the per host caps of the hosts with operations in flight, in all dispatchers.
+ */
+public class HttpRequestDispatcher implements Closeable
+{
+    private static final int DEFAULT_MAX_CONCURRENT_REQUESTS_PER_HOST = 10;
+    private static final long WORKER_KEEP_ALIVE_SECONDS = 60;
+    private static final String WORKER_THREAD_NAME_PREFIX = "azure-iot-sdk-HttpRequestDispatcher-";
+
+    private static final ThreadPoolExecutor WORKERS = createWorkers();
+    private static final Object WORKERS_LOCK = new Object();
+    private static int workersLimit = 0;
+
+    private final int maxConcurrentRequestsPerHost;
+    private final Map<String, HostQueue> hostQueues = new HashMap<>();
+    private boolean isClosed = false;
+
+    private static class HostQueue
+    {
+        private int activeRequests = 0;
+        private final Queue<PendingRequest> pendingRequests = new ArrayDeque<>();
+    }
+
+    private static class PendingRequest
+    {
+        private final Runnable task;
+        private final CompletableFuture<?> future;
+
+        private PendingRequest(Runnable task, CompletableFuture<?> future)
+        {
+            this.task = task;
+            this.future = future;
+        }
+    }
+
+    /**
+     * Constructor with the default limit of concurrent requests per host.
+     */
+    public HttpRequestDispatcher()
+    {
+        this(DEFAULT_MAX_CONCURRENT_REQUESTS_PER_HOST);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxConcurrentRequestsPerHost the maximum number of requests in flight at the same time to the same host.
+     * @throws IllegalArgumentException if the provided limit is less than 1.
+     */
+    public HttpRequestDispatcher(int maxConcurrentRequestsPerHost)
+    {
+        // Codes_SRS_SERVICE_SDK_JAVA_HTTPREQUESTDISPATCHER_21_001: [The constructor shall throw IllegalArgumentException if the provided maxConcurrentRequestsPerHost is less than 1.]
+        if (maxConcurrentRequestsPerHost < 1)
+        {
+            throw new IllegalArgumentException("maxConcurrentRequestsPerHost cannot be less than 1");
+        }
+
+        this.maxConcurrentRequestsPerHost = maxConcurrentRequestsPerHost;
+    }
+
+    /**
+     * Dispatch the provided HTTP operation asynchronously.
+     *
+     * @param host the host that the operation talks to. Used to limit the concurrent requests per host.
+     * @param operation the blocking HTTP operation to run.
+     * @param <T> the type of the operation result.
+     * @return the future that will be completed with the result of the operation, or with the exception thrown by it.
+     * @throws IllegalArgumentException if the host is null or empty, or the operation is null.
+     * @throws IllegalStateException if this dispatcher is closed.
+     */
+    public <T> CompletableFuture<T> dispatch(String host, Callable<T> operation) throws IllegalArgumentException, IllegalStateException
+    {
+        // Codes_SRS_SERVICE_SDK_JAVA_HTTPREQUESTDISPATCHER_21_002: [The function shall throw IllegalArgumentException if the provided host is null or empty, or the provided operation is null.]
+        if (host == null || host.isEmpty())
+        {
+            throw new IllegalArgumentException("host cannot be null or empty");
+        }
+
+        if (operation == null)
+        {
+            throw new IllegalArgumentException("operation cannot be null");
+        }
+
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable task = () ->
+        {
+            // Codes_SRS_SERVICE_SDK_JAVA_HTTPREQUESTDISPATCHER_21_004: [The function shall complete the future with the result of the operation, or exceptionally with the exception or error thrown by it.]
+            if (!future.isDone())
+            {
+                try
+                {
+                    future.complete(operation.call());
+                }
+                catch (Throwable e)
+                {
+                    future.completeExceptionally(e);
+                }
+            }
+        };
+
+        synchronized (this)
+        {
+            // Codes_SRS_SERVICE_SDK_JAVA_HTTPREQUESTDISPATCHER_21_003: [The function shall throw IllegalStateException if this dispatcher is closed.]
+            if (this.isClosed)
+            {
+                throw new IllegalStateException("The HTTP request dispatcher is closed");
+            }
+
+            HostQueue hostQueue = this.hostQueues.get(host);
+            if (hostQueue == null)
+            {
+                // Codes_SRS_SERVICE_SDK_JAVA_HTTPREQUESTDISPATCHER_21_009: [The worker pool shall be bounded by the sum of the limits of the hosts with operations in flight.]
+                hostQueue = new HostQueue();
+                this.hostQueues.put(host, hostQueue);
+                resizeWorkers(this.maxConcurrentRequestsPerHost);
+            }
+
+            // Codes_SRS_SERVICE_SDK_JAVA_HTTPREQUESTDISPATCHER_21_005: [If the number of requests in flight to the host reached the limit, the function shall queue the operation without holding a thread.]
+            if (hostQueue.activeRequests >= this.maxConcurrentRequestsPerHost)
+            {
+                hostQueue.pendingRequests.add(new PendingRequest(task, future));
+                return future;
+            }
+
+            hostQueue.activeRequests++;
+        }
+
+        WORKERS.execute(() -> runHostQueue(host, task));
+        return future;
+    }
+
+    /**
+     * Getter for the number of operations that are waiting for a free slot to the provided host.
+     *
+     * @param host the host to check.
+     * @return the number of queued operations.
+     */
+    public synchronized int getQueuedRequestCount(String host)
+    {
+        // Codes_SRS_SERVICE_SDK_JAVA_HTTPREQUESTDISPATCHER_21_006: [The function shall return the number of operations queued for the provided host.]
+        HostQueue hostQueue = this.hostQueues.get(host);
+        return hostQueue == null ? 0 : hostQueue.pendingRequests.size();
+    }
+
+    /**
+     * Close the dispatcher. Operations already running are completed, queued operations are cancelled and new
+     * operations are rejected.
+     */
+    @Override
+    public void close()
+    {
+        Queue<PendingRequest> cancelledRequests = new ArrayDeque<>();
+        synchronized (this)
+        {
+            this.isClosed = true;
+            for (HostQueue hostQueue : this.hostQueues.values())
+            {
+                cancelledRequests.addAll(hostQueue.pendingRequests);
+                hostQueue.pendingRequests.clear();
+            }
+        }
+
+        // Codes_SRS_SERVICE_SDK_JAVA_HTTPREQUESTDISPATCHER_21_007: [The close shall cancel the futures of all queued operations.]
+        for (PendingRequest pendingRequest : cancelledRequests)
+        {
+            pendingRequest.future.cancel(false);
+        }
+    }
+
+    private void runHostQueue(String host, Runnable firstTask)
+    {
+        Runnable task = firstTask;
+        try
+        {
+            while (task != null)
+            {
+                task.run();
+                task = nextTaskOrRelease(host);
+            }
+        }
+        finally
+        {
+            // Codes_SRS_SERVICE_SDK_JAVA_HTTPREQUESTDISPATCHER_21_008: [If running an operation fails, the worker shall release its slot to the host, or hand it to the next queued operation.]
+            if (task != null)
+            {
+                Runnable nextTask = nextTaskOrRelease(host);
+                if (nextTask != null)
+                {
+                    WORKERS.execute(() -> runHostQueue(host, nextTask));
+                }
+            }
+        }
+    }
+
+    private synchronized Runnable nextTaskOrRelease(String host)
+    {
+        HostQueue hostQueue = this.hostQueues.get(host);
+        PendingRequest pendingRequest = hostQueue.pendingRequests.poll();
+        if (pendingRequest != null)
+        {
+            return pendingRequest.task;
+        }
+
+        hostQueue.activeRequests--;
+        if (hostQueue.activeRequests == 0)
+        {
+            this.hostQueues.remove(host);
+            resizeWorkers(-this.maxConcurrentRequestsPerHost);
+        }
+
+        return null;
+    }
+
+    private static void resizeWorkers(int delta)
+    {
+        synchronized (WORKERS_LOCK)
+        {
+            workersLimit += delta;
+            int poolSize = Math.max(1, workersLimit);
+            if (poolSize > WORKERS.getMaximumPoolSize())
+            {
+                WORKERS.setMaximumPoolSize(poolSize);
+                WORKERS.setCorePoolSize(poolSize);
+            }
+            else
+            {
+                WORKERS.setCorePoolSize(poolSize);
+                WORKERS.setMaximumPoolSize(poolSize);
+            }
+        }
+    }
+
+    /**
+     * Getter for the maximum number of workers of the pool shared by all dispatchers.
+     *
+     * @return the current bound of the worker pool.
+     */
+    public static int getMaxWorkerCount()
+    {
+        // Codes_SRS_SERVICE_SDK_JAVA_HTTPREQUESTDISPATCHER_21_010: [The function shall return the current bound of the worker pool.]
+        return WORKERS.getMaximumPoolSize();
+    }
+
+    private static ThreadPoolExecutor createWorkers()
+    {
+        final AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable ->
+        {
+            Thread thread = new Thread(runnable, WORKER_THREAD_NAME_PREFIX + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        // The pool size follows the per host limits of the dispatchers through resizeWorkers, so a host queue never
+        // waits for a thread for long. Idle workers are released after the keep alive time.
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(1, 1, WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        workers.allowCoreThreadTimeOut(true);
+        return workers;
+    }
+}
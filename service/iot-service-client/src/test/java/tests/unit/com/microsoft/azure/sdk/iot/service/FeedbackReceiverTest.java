@@ -751,4 +751,22 @@ public class FeedbackReceiverTest
         CompletableFuture<FeedbackBatch> completableFuture = feedbackReceiver.receiveAsync(timeoutMs);
         completableFuture.get();
     }
+
+    // Tests_SRS_SERVICE_SDK_JAVA_FEEDBACKRECEIVER_21_015: [The function shall set the WebSocket maximum frame size of the AMQP receiver.]
+    @Test
+    public void setWebSocketMaxFrameSize_call_receiver_setter() throws Exception
+    {
+        // Arrange
+        IotHubServiceClientProtocol iotHubServiceClientProtocol = IotHubServiceClientProtocol.AMQPS_WS;
+        FeedbackReceiver feedbackReceiver = new FeedbackReceiver("xxx", "xxx", "xxx", iotHubServiceClientProtocol);
+        // Assert
+        new Expectations()
+        {
+            {
+                amqpReceive.setWebSocketMaxFrameSize(32 * 1024);
+            }
+        };
+        // Act
+        feedbackReceiver.setWebSocketMaxFrameSize(32 * 1024);
+    }
 }
@@ -360,4 +360,23 @@ public class FileUploadNotificationReceiverTest
         };
 
     }
+
+    // Tests_SRS_SERVICE_SDK_JAVA_FILEUPLOADNOTIFICATIONRECEIVER_21_014: [The function shall set the WebSocket maximum frame size of the AMQP receiver.]
+    @Test
+    public void setWebSocketMaxFrameSizeCallReceiverSetter() throws Exception
+    {
+        // Arrange
+        IotHubServiceClientProtocol iotHubServiceClientProtocol = IotHubServiceClientProtocol.AMQPS_WS;
+        FileUploadNotificationReceiver fileUploadNotificationReceiver = Deencapsulation.newInstance(FileUploadNotificationReceiver.class, "xxx", "xxx", "xxx", iotHubServiceClientProtocol);
+        // Act
+        fileUploadNotificationReceiver.setWebSocketMaxFrameSize(32 * 1024);
+        // Assert
+        new Verifications()
+        {
+            {
+                amqpFileUploadNotificationReceive.setWebSocketMaxFrameSize(32 * 1024);
+                times = 1;
+            }
+        };
+    }
 }
@@ -15,6 +15,7 @@ import com.microsoft.azure.sdk.iot.service.exceptions.IotHubException;
 import com.microsoft.azure.sdk.iot.service.exceptions.IotHubExceptionManager;
 import com.microsoft.azure.sdk.iot.service.transport.http.HttpMethod;
 import com.microsoft.azure.sdk.iot.service.transport.http.HttpRequest;
+import com.microsoft.azure.sdk.iot.service.transport.http.HttpRequestDispatcher;
 import com.microsoft.azure.sdk.iot.service.transport.http.HttpResponse;
 import mockit.*;
 import mockit.integration.junit4.JMockit;
@@ -24,9 +25,9 @@ import org.junit.runner.RunWith;
 import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
 
 import static junit.framework.TestCase.assertNotNull;
 import static org.junit.Assert.*;
@@ -56,8 +57,6 @@ public class RegistryManagerTest
     @Mocked
     HttpRequest mockHttpRequest;
     @Mocked
-    ExecutorService mockExecutorService;
-    @Mocked
     Module module;
     @Mocked
     Configuration config;
@@ -172,7 +171,7 @@ public class RegistryManagerTest
 
     // Tests_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_12_002: [The constructor shall create an IotHubConnectionString object from the given connection string]
     // Tests_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_12_003: [The constructor shall create a new RegistryManager, stores the created IotHubConnectionString object and return with it]
-    // Tests_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_34_090: [The function shall start this object's executor service]
+    // Tests_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_34_090: [The function shall create this object's HTTP request dispatcher]
     @Test
     public void constructor_good_case() throws Exception
     {
@@ -190,7 +189,7 @@ public class RegistryManagerTest
 
         assertNotNull(registryManager);
         assertNotNull(Deencapsulation.getField(registryManager, "iotHubConnectionString"));
-        assertNotNull(Deencapsulation.getField(registryManager, "executor"));
+        assertNotNull(Deencapsulation.getField(registryManager, "dispatcher"));
     }
 
     // Tests_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_12_004: [The constructor shall throw IllegalArgumentException if the input device is null]
@@ -1420,9 +1419,9 @@ public class RegistryManagerTest
         completableFuture.get();
     }
 
-    // Tests_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_34_087: [The function shall tell this object's executor service to shutdown]
+    // Tests_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_34_087: [The function shall close this object's HTTP request dispatcher]
     @Test
-    public void closeShutsDownExecutorService() throws IOException
+    public void closeClosesDispatcher(@Mocked HttpRequestDispatcher mockDispatcher) throws IOException
     {
         //arrange
         String connectionString = "HostName=aaa.bbb.ccc;SharedAccessKeyName=XXX;SharedAccessKey=YYY";
@@ -1435,7 +1434,7 @@ public class RegistryManagerTest
         };
 
         RegistryManager registryManager = RegistryManager.createFromConnectionString(connectionString);
-        Deencapsulation.setField(registryManager,"executor", mockExecutorService);
+        Deencapsulation.setField(registryManager,"dispatcher", mockDispatcher);
 
         //act
         registryManager.close();
@@ -1443,7 +1442,7 @@ public class RegistryManagerTest
         new Verifications()
         {
             {
-                mockExecutorService.shutdownNow();
+                mockDispatcher.close();
             }
         };
     }
@@ -1600,6 +1599,27 @@ public class RegistryManagerTest
         assertEquals(3, modules.size());
     }
 
+    // Tests_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_28_023: [The function shall create a new ArrayList<Module> object from the response and return with it]
+    @Test
+    public void getModulesOnDeviceIterator_decodes_lazily() throws Exception
+    {
+        String connectionString = "HostName=aaa.bbb.ccc;SharedAccessKeyName=XXX;SharedAccessKey=YYY";
+        String deviceId = "somedevice";
+
+        getModulesExpectations(connectionString, deviceId);
+
+        RegistryManager registryManager = RegistryManager.createFromConnectionString(connectionString);
+        Iterator<Module> modules = registryManager.getModulesOnDeviceIterator(deviceId);
+
+        int count = 0;
+        while (modules.hasNext())
+        {
+            assertNotNull(modules.next());
+            count++;
+        }
+        assertEquals(3, count);
+    }
+
     // Tests_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_28_024: [The function shall throw IllegalArgumentException if the input device is null]
     // Assert
     @Test (expected = IllegalArgumentException.class)
@@ -1994,6 +2014,27 @@ public class RegistryManagerTest
         assertEquals(2, configs.size());
     }
 
+    // Tests_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_28_062: [The function shall create a new ArrayList<Device> object from the response and return with it]
+    @Test
+    public void getConfigurationsIterator_decodes_lazily() throws Exception
+    {
+        String connectionString = "HostName=aaa.bbb.ccc;SharedAccessKeyName=XXX;SharedAccessKey=YYY";
+        int numberOfConfigs = 10;
+
+        getConfigsExpectations(connectionString, numberOfConfigs);
+
+        RegistryManager registryManager = RegistryManager.createFromConnectionString(connectionString);
+        Iterator<Configuration> configs = registryManager.getConfigurationsIterator(numberOfConfigs);
+
+        int count = 0;
+        while (configs.hasNext())
+        {
+            assertNotNull(configs.next());
+            count++;
+        }
+        assertEquals(2, count);
+    }
+
     // Tests_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_28_063: [The function shall throw IllegalArgumentException if the input device is null]
     // Assert
     @Test (expected = IllegalArgumentException.class)
@@ -2310,6 +2351,8 @@ public class RegistryManagerTest
             {
                 IotHubConnectionStringBuilder.createConnectionString(connectionString);
                 result = iotHubConnectionString;
+                iotHubConnectionString.getHostName();
+                result = "aaa.bbb.ccc";
                 iotHubConnectionString.getUrlDevice(deviceId);
                 result = mockUrl;
                 mockHttpRequest.send();
@@ -2350,6 +2393,8 @@ public class RegistryManagerTest
             {
                 IotHubConnectionStringBuilder.createConnectionString(connectionString);
                 result = iotHubConnectionString;
+                iotHubConnectionString.getHostName();
+                result = "aaa.bbb.ccc";
                 iotHubConnectionString.getUrlDeviceList(numberOfDevices);
                 result = mockUrl;
                 mockHttpRequest.send();
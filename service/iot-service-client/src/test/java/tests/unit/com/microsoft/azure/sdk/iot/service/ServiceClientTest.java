@@ -530,4 +530,48 @@ public class ServiceClientTest
         // Assert
         assertNotEquals(null, feedbackReceiver);
     }
+
+    // Tests_SRS_SERVICE_SDK_JAVA_SERVICECLIENT_21_003: [The function shall set the WebSocket maximum frame size of the AMQP sender, and save it for the receivers created by this client.]
+    // Tests_SRS_SERVICE_SDK_JAVA_SERVICECLIENT_21_004: [The function shall set the WebSocket maximum frame size of the created receiver.]
+    @Test
+    public void setWebSocketMaxFrameSize_sets_sender_and_receivers(@Mocked final FileUploadNotificationReceiver mockFileUploadNotificationReceiver) throws Exception
+    {
+        // Arrange
+        String connectionString = "HostName=HOSTNAME.IOTHUBNAME;SharedAccessKeyName=ACCESSKEYNAME;SharedAccessKey=1234567890abcdefghijklmnopqrstvwxyz=";
+        IotHubServiceClientProtocol iotHubServiceClientProtocol = IotHubServiceClientProtocol.AMQPS_WS;
+        ServiceClient serviceClient = ServiceClient.createFromConnectionString(connectionString, iotHubServiceClientProtocol);
+        // Act
+        serviceClient.setWebSocketMaxFrameSize(32 * 1024);
+        serviceClient.getFeedbackReceiver();
+        serviceClient.getFileUploadNotificationReceiver();
+        // Assert
+        new Verifications()
+        {
+            {
+                amqpSend.setWebSocketMaxFrameSize(32 * 1024);
+                times = 1;
+                feedbackReceiver.setWebSocketMaxFrameSize(32 * 1024);
+                times = 1;
+                mockFileUploadNotificationReceiver.setWebSocketMaxFrameSize(32 * 1024);
+                times = 1;
+            }
+        };
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void setWebSocketMaxFrameSize_throws_if_sender_rejects_size() throws Exception
+    {
+        // Arrange
+        String connectionString = "HostName=HOSTNAME.IOTHUBNAME;SharedAccessKeyName=ACCESSKEYNAME;SharedAccessKey=1234567890abcdefghijklmnopqrstvwxyz=";
+        ServiceClient serviceClient = ServiceClient.createFromConnectionString(connectionString, IotHubServiceClientProtocol.AMQPS_WS);
+        new Expectations()
+        {
+            {
+                amqpSend.setWebSocketMaxFrameSize(8);
+                result = new IllegalArgumentException();
+            }
+        };
+        // Act
+        serviceClient.setWebSocketMaxFrameSize(8);
+    }
 }
@@ -10,6 +10,7 @@ import com.microsoft.azure.sdk.iot.service.IotHubServiceClientProtocol;
 import com.microsoft.azure.sdk.iot.service.exceptions.IotHubException;
 import com.microsoft.azure.sdk.iot.service.transport.amqps.AmqpFeedbackReceivedEvent;
 import com.microsoft.azure.sdk.iot.service.transport.amqps.AmqpFeedbackReceivedHandler;
+import com.microsoft.azure.sdk.iot.service.transport.amqps.AmqpMessageDecompressor;
 import mockit.Deencapsulation;
 import mockit.Expectations;
 import mockit.Mocked;
@@ -104,8 +105,9 @@ public class AmqpFeedbackReceivedHandlerTest
     // Tests_SRS_SERVICE_SDK_JAVA_AMQPFEEDBACKRECEIVEDHANDLER_12_007: [** The event handler shall settle the Delivery with the Accepted outcome **]**
     // Tests_SRS_SERVICE_SDK_JAVA_AMQPFEEDBACKRECEIVEDHANDLER_12_008: [The event handler shall close the Session and Connection (Proton)]
     // Tests_SRS_SERVICE_SDK_JAVA_AMQPFEEDBACKRECEIVEDHANDLER_12_009: [The event handler shall call the FeedbackReceived callback if it has been initialized]
+    // Tests_SRS_SERVICE_SDK_JAVA_AMQPFEEDBACKRECEIVEDHANDLER_21_021: [The event handler shall decompress the body of the message if its content encoding is gzip or deflate.]
     @Test
-    public void onDelivery_call_flow_and_init_ok()
+    public void onDelivery_call_flow_and_init_ok(@Mocked final AmqpMessageDecompressor mockedDecompressor)
     {
         // Arrange
         final String hostName = "aaa";
@@ -128,6 +130,7 @@ public class AmqpFeedbackReceivedHandlerTest
                 byte[] buffer = new byte[1024];
                 receiver.recv(buffer, 0, buffer.length);
                 message.decode(withAny(buffer), 0, anyInt);
+                AmqpMessageDecompressor.decompress(message);
                 delivery.disposition(Accepted.getInstance()); // send disposition frame and settle the outcome
                 delivery.settle();
                 session = receiver.getSession();
@@ -172,6 +175,7 @@ public class AmqpFeedbackReceivedHandlerTest
     // Tests_SRS_SERVICE_SDK_JAVA_AMQPFEEDBACKRECEIVEDHANDLER_12_009: [The event handler shall set the SASL PLAIN authentication on the Transport using the given user name and sas token]
     // Tests_SRS_SERVICE_SDK_JAVA_AMQPFEEDBACKRECEIVEDHANDLER_12_010: [The event handler shall set VERIFY_PEER authentication mode on the domain of the Transport]
     // Tests_SRS_SERVICE_SDK_JAVA_AMQPFEEDBACKRECEIVEDHANDLER_12_018: [The event handler shall initialize WebSocket if the protocol is AMQP_WS]
+    // Tests_SRS_SERVICE_SDK_JAVA_AMQPFEEDBACKRECEIVEDHANDLER_21_020: [The WebSocket layer shall use the maximum frame size set for the handler.]
     @Test
     public void onConnectionBound_call_flow_and_init_ok_amqps()
     {
@@ -181,6 +185,7 @@ public class AmqpFeedbackReceivedHandlerTest
         final String sasToken = "ccc";
         IotHubServiceClientProtocol iotHubServiceClientProtocol = IotHubServiceClientProtocol.AMQPS_WS;
         AmqpFeedbackReceivedHandler amqpReceiveHandler = new AmqpFeedbackReceivedHandler(hostName, userName, sasToken, iotHubServiceClientProtocol, null);
+        amqpReceiveHandler.setWebSocketMaxFrameSize(32 * 1024);
         // Assert
         new Expectations()
         {
@@ -189,7 +194,7 @@ public class AmqpFeedbackReceivedHandlerTest
                 result = connection;
                 connection.getTransport();
                 result = transportInternal;
-                new WebSocketImpl();
+                new WebSocketImpl(32 * 1024);
                 result = webSocket;
                 webSocket.configure(anyString, anyString, 0, anyString, null, null);
                 transportInternal.addTransportLayer(webSocket);
@@ -200,4 +200,26 @@ public class AmqpFileUploadNotificationReceiveTest
         };
     }
 
+    // Tests_SRS_SERVICE_SDK_JAVA_AMQPFILEUPLOADNOTIFICATIONRECEIVE_21_011: [The function shall set the WebSocket maximum frame size of the handler.]
+    @Test
+    public void openSetsWebSocketMaxFrameSizeOnReceiveHandler() throws IOException
+    {
+        // Arrange
+        AmqpFileUploadNotificationReceive amqpFileUploadNotificationReceive = new AmqpFileUploadNotificationReceive("aaa", "bbb", "ccc", IotHubServiceClientProtocol.AMQPS_WS);
+        amqpFileUploadNotificationReceive.setWebSocketMaxFrameSize(32 * 1024);
+        // Act
+        amqpFileUploadNotificationReceive.open();
+        // Assert
+        Object handler = Deencapsulation.getField(amqpFileUploadNotificationReceive, "amqpReceiveHandler");
+        assertEquals(32 * 1024, (int)Deencapsulation.getField(handler, "webSocketMaxFrameSize"));
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void setWebSocketMaxFrameSizeThrowsIfFrameTooSmall()
+    {
+        // Arrange
+        AmqpFileUploadNotificationReceive amqpFileUploadNotificationReceive = new AmqpFileUploadNotificationReceive("aaa", "bbb", "ccc", IotHubServiceClientProtocol.AMQPS_WS);
+        // Act
+        amqpFileUploadNotificationReceive.setWebSocketMaxFrameSize(8);
+    }
 }
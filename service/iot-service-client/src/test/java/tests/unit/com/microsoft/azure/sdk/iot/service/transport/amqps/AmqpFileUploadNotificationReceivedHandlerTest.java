@@ -10,6 +10,7 @@ import com.microsoft.azure.sdk.iot.service.IotHubServiceClientProtocol;
 import com.microsoft.azure.sdk.iot.service.exceptions.IotHubException;
 import com.microsoft.azure.sdk.iot.service.transport.amqps.AmqpFeedbackReceivedEvent;
 import com.microsoft.azure.sdk.iot.service.transport.amqps.AmqpFileUploadNotificationReceivedHandler;
+import com.microsoft.azure.sdk.iot.service.transport.amqps.AmqpMessageDecompressor;
 import mockit.Deencapsulation;
 import mockit.Expectations;
 import mockit.Mocked;
@@ -183,8 +184,9 @@ public class AmqpFileUploadNotificationReceivedHandlerTest
     // Tests_SRS_SERVICE_SDK_JAVA_AMQPFILEUPLOADNOTIFICATIONRECEIVEDHANDLER_25_007: [The event handler shall settle the Delivery with the Accepted outcome ]
     // Tests_SRS_SERVICE_SDK_JAVA_AMQPFILEUPLOADNOTIFICATIONRECEIVEDHANDLER_25_008: [The event handler shall close the Session and Connection (Proton)]
     // Tests_SRS_SERVICE_SDK_JAVA_AMQPFILEUPLOADNOTIFICATIONRECEIVEDHANDLER_25_009: [The event handler shall call the FeedbackReceived callback if it has been initialized]
+    // Tests_SRS_SERVICE_SDK_JAVA_AMQPFILEUPLOADNOTIFICATIONRECEIVEDHANDLER_21_025: [The event handler shall decompress the body of the message if its content encoding is gzip or deflate.]
     @Test
-    public void onDeliveryCallFlowAndInitOk(@Mocked Data mockData)
+    public void onDeliveryCallFlowAndInitOk(@Mocked Data mockData, @Mocked final AmqpMessageDecompressor mockedDecompressor)
     {
         // Arrange
         final String hostName = "aaa";
@@ -207,6 +209,7 @@ public class AmqpFileUploadNotificationReceivedHandlerTest
                 byte[] buffer = new byte[1024];
                 receiver.recv(buffer, 0, buffer.length);
                 message.decode(withAny(buffer), 0, anyInt);
+                AmqpMessageDecompressor.decompress(message);
                 delivery.disposition(Accepted.getInstance()); // send disposition frame and settle the outcome
                 delivery.settle();
                 session = receiver.getSession();
@@ -254,6 +257,7 @@ public class AmqpFileUploadNotificationReceivedHandlerTest
     // Tests_SRS_SERVICE_SDK_JAVA_AMQPFILEUPLOADNOTIFICATIONRECEIVEDHANDLER_25_009: [The event handler shall set the SASL PLAIN authentication on the Transport using the given user name and sas token]
     // Tests_SRS_SERVICE_SDK_JAVA_AMQPFILEUPLOADNOTIFICATIONRECEIVEDHANDLER_25_010: [The event handler shall set VERIFY_PEER authentication mode on the domain of the Transport]
     // Tests_SRS_SERVICE_SDK_JAVA_AMQPFILEUPLOADNOTIFICATIONRECEIVEDHANDLER_25_018: [The event handler shall initialize WebSocket if the protocol is AMQP_WS]
+    // Tests_SRS_SERVICE_SDK_JAVA_AMQPFILEUPLOADNOTIFICATIONRECEIVEDHANDLER_21_024: [The WebSocket layer shall use the maximum frame size set for the handler.]
     @Test
     public void onConnectionBoundCallFlowAndInitOkAmqps()
     {
@@ -263,6 +267,7 @@ public class AmqpFileUploadNotificationReceivedHandlerTest
         final String sasToken = "ccc";
         IotHubServiceClientProtocol iotHubServiceClientProtocol = IotHubServiceClientProtocol.AMQPS_WS;
         Object amqpReceiveHandler = Deencapsulation.newInstance(AmqpFileUploadNotificationReceivedHandler.class, hostName, userName, sasToken, iotHubServiceClientProtocol, amqpFeedbackReceivedEvent);
+        Deencapsulation.invoke(amqpReceiveHandler, "setWebSocketMaxFrameSize", 32 * 1024);
 
         // Assert
         new Expectations()
@@ -272,7 +277,7 @@ public class AmqpFileUploadNotificationReceivedHandlerTest
                 result = connection;
                 connection.getTransport();
                 result = transportInternal;
-                new WebSocketImpl();
+                new WebSocketImpl(32 * 1024);
                 result = webSocket;
                 webSocket.configure(anyString, anyString, 0, anyString, null, null);
                 transportInternal.addTransportLayer(webSocket);
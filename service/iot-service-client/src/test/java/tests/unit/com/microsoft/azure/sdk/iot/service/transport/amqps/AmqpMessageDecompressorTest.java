@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package tests.unit.com.microsoft.azure.sdk.iot.service.transport.amqps;
+
+import com.microsoft.azure.sdk.iot.deps.util.Compression;
+import com.microsoft.azure.sdk.iot.service.transport.amqps.AmqpMessageDecompressor;
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.messaging.AmqpValue;
+import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.message.Message;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/** Unit tests for AmqpMessageDecompressor */
+public class AmqpMessageDecompressorTest
+{
+    private static final byte[] BODY = "[{\"statusCode\":\"Success\",\"deviceId\":\"device\"}]".getBytes(StandardCharsets.UTF_8);
+
+    private static byte[] getBody(Message message)
+    {
+        Binary binary = ((Data) message.getBody()).getValue();
+        byte[] body = new byte[binary.getLength()];
+        System.arraycopy(binary.getArray(), binary.getArrayOffset(), body, 0, binary.getLength());
+        return body;
+    }
+
+    // Tests_SRS_SERVICE_SDK_JAVA_AMQPMESSAGEDECOMPRESSOR_21_001: [The function shall throw IllegalArgumentException if the message is null.]
+    @Test (expected = IllegalArgumentException.class)
+    public void decompressThrowsOnNullMessage()
+    {
+        // Act
+        AmqpMessageDecompressor.decompress(null);
+    }
+
+    // Tests_SRS_SERVICE_SDK_JAVA_AMQPMESSAGEDECOMPRESSOR_21_003: [The function shall replace the body with the decompressed one and clear the content encoding.]
+    @Test
+    public void decompressInflatesGzipAndDeflateBodies()
+    {
+        for (String contentEncoding : new String[] {Compression.GZIP, Compression.DEFLATE})
+        {
+            // Arrange
+            Message message = Proton.message();
+            message.setBody(new Data(new Binary(Compression.compress(BODY, contentEncoding))));
+            message.setContentEncoding(contentEncoding);
+
+            // Act
+            boolean decompressed = AmqpMessageDecompressor.decompress(message);
+
+            // Assert
+            assertTrue(decompressed);
+            assertArrayEquals(BODY, getBody(message));
+            assertNull(message.getContentEncoding());
+        }
+    }
+
+    // Tests_SRS_SERVICE_SDK_JAVA_AMQPMESSAGEDECOMPRESSOR_21_002: [The function shall not change the message if its content encoding is not a supported compression, or its body is not a Data section.]
+    @Test
+    public void decompressSkipsUncompressedMessages()
+    {
+        // Arrange
+        Message plainMessage = Proton.message();
+        plainMessage.setBody(new Data(new Binary(BODY)));
+        Message valueMessage = Proton.message();
+        valueMessage.setBody(new AmqpValue("value"));
+        valueMessage.setContentEncoding(Compression.GZIP);
+
+        // Act
+        boolean plainDecompressed = AmqpMessageDecompressor.decompress(plainMessage);
+        boolean valueDecompressed = AmqpMessageDecompressor.decompress(valueMessage);
+
+        // Assert
+        assertFalse(plainDecompressed);
+        assertArrayEquals(BODY, getBody(plainMessage));
+        assertFalse(valueDecompressed);
+        assertEquals(Compression.GZIP, valueMessage.getContentEncoding());
+    }
+
+    // Tests_SRS_SERVICE_SDK_JAVA_AMQPMESSAGEDECOMPRESSOR_21_004: [If the body is not valid for its content encoding, or inflates to more than the maximum size of an IoT Hub message, the function shall not change the message.]
+    @Test
+    public void decompressKeepsInvalidBody()
+    {
+        // Arrange
+        Message message = Proton.message();
+        message.setBody(new Data(new Binary(BODY)));
+        message.setContentEncoding(Compression.DEFLATE);
+
+        // Act
+        boolean decompressed = AmqpMessageDecompressor.decompress(message);
+
+        // Assert
+        assertFalse(decompressed);
+        assertArrayEquals(BODY, getBody(message));
+        assertEquals(Compression.DEFLATE, message.getContentEncoding());
+    }
+}
@@ -184,4 +184,27 @@ public class AmqpReceiveTest
         // Act
         amqpReceive.onFeedbackReceived(jsonData);
     }
+
+    // Tests_SRS_SERVICE_SDK_JAVA_AMQPRECEIVE_21_011: [The function shall set the WebSocket maximum frame size of the handler.]
+    @Test
+    public void open_sets_WebSocketMaxFrameSize_on_ReceiveHandler() throws IOException
+    {
+        // Arrange
+        AmqpReceive amqpReceive = new AmqpReceive("aaa", "bbb", "ccc", IotHubServiceClientProtocol.AMQPS_WS);
+        amqpReceive.setWebSocketMaxFrameSize(32 * 1024);
+        // Act
+        amqpReceive.open();
+        // Assert
+        Object handler = Deencapsulation.getField(amqpReceive, "amqpReceiveHandler");
+        assertEquals(32 * 1024, (int)Deencapsulation.getField(handler, "webSocketMaxFrameSize"));
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void setWebSocketMaxFrameSize_throws_if_frame_too_small()
+    {
+        // Arrange
+        AmqpReceive amqpReceive = new AmqpReceive("aaa", "bbb", "ccc", IotHubServiceClientProtocol.AMQPS_WS);
+        // Act
+        amqpReceive.setWebSocketMaxFrameSize(8);
+    }
 }
@@ -325,4 +325,27 @@ public class AmqpSendTest
         // Act
         amqpSend.send(deviceId, moduleId, message);
     }
+
+    // Tests_SRS_SERVICE_SDK_JAVA_AMQPSEND_21_007: [The function shall set the WebSocket maximum frame size of the handler.]
+    @Test
+    public void open_sets_WebSocketMaxFrameSize_on_SendHandler() throws IOException
+    {
+        // Arrange
+        AmqpSend amqpSend = new AmqpSend("aaa", "bbb", "ccc", IotHubServiceClientProtocol.AMQPS_WS);
+        amqpSend.setWebSocketMaxFrameSize(32 * 1024);
+        // Act
+        amqpSend.open();
+        // Assert
+        Object handler = Deencapsulation.getField(amqpSend, "amqpSendHandler");
+        assertEquals(32 * 1024, (int)Deencapsulation.getField(handler, "webSocketMaxFrameSize"));
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void setWebSocketMaxFrameSize_throws_if_frame_too_small()
+    {
+        // Arrange
+        AmqpSend amqpSend = new AmqpSend("aaa", "bbb", "ccc", IotHubServiceClientProtocol.AMQPS_WS);
+        // Act
+        amqpSend.setWebSocketMaxFrameSize(8);
+    }
 }
@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package tests.unit.com.microsoft.azure.sdk.iot.service.transport.http;
+
+import com.microsoft.azure.sdk.iot.service.transport.http.HttpRequestDispatcher;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** Unit tests for HttpRequestDispatcher. */
+public class HttpRequestDispatcherTest
+{
+    private static final String HOST = "aaa.bbb.ccc";
+    private static final long TIMEOUT_SECONDS = 10;
+
+    // Tests_SRS_SERVICE_SDK_JAVA_HTTPREQUESTDISPATCHER_21_001: [The constructor shall throw IllegalArgumentException if the provided maxConcurrentRequestsPerHost is less than 1.]
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnZeroMaxConcurrentRequests()
+    {
+        // Act
+        new HttpRequestDispatcher(0);
+    }
+
+    // Tests_SRS_SERVICE_SDK_JAVA_HTTPREQUESTDISPATCHER_21_002: [The function shall throw IllegalArgumentException if the provided host is null or empty, or the provided operation is null.]
+    @Test (expected = IllegalArgumentException.class)
+    public void dispatchThrowsOnNullHost()
+    {
+        // Arrange
+        HttpRequestDispatcher dispatcher = new HttpRequestDispatcher();
+
+        // Act
+        dispatcher.dispatch(null, () -> "result");
+    }
+
+    // Tests_SRS_SERVICE_SDK_JAVA_HTTPREQUESTDISPATCHER_21_002: [The function shall throw IllegalArgumentException if the provided host is null or empty, or the provided operation is null.]
+    @Test (expected = IllegalArgumentException.class)
+    public void dispatchThrowsOnNullOperation()
+    {
+        // Arrange
+        HttpRequestDispatcher dispatcher = new HttpRequestDispatcher();
+
+        // Act
+        dispatcher.dispatch(HOST, null);
+    }
+
+    // Tests_SRS_SERVICE_SDK_JAVA_HTTPREQUESTDISPATCHER_21_003: [The function shall throw IllegalStateException if this dispatcher is closed.]
+    @Test (expected = IllegalStateException.class)
+    public void dispatchThrowsOnClosedDispatcher()
+    {
+        // Arrange
+        HttpRequestDispatcher dispatcher = new HttpRequestDispatcher();
+        dispatcher.close();
+
+        // Act
+        dispatcher.dispatch(HOST, () -> "result");
+    }
+
+    // Tests_SRS_SERVICE_SDK_JAVA_HTTPREQUESTDISPATCHER_21_004: [The function shall complete the future with the result of the operation, or exceptionally with the exception or error thrown by it.]
+    @Test
+    public void dispatchCompletesFutureWithResult() throws Exception
+    {
+        // Arrange
+        HttpRequestDispatcher dispatcher = new HttpRequestDispatcher();
+
+        // Act
+        CompletableFuture<String> future = dispatcher.dispatch(HOST, () -> "result");
+
+        // Assert
+        assertEquals("result", future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    // Tests_SRS_SERVICE_SDK_JAVA_HTTPREQUESTDISPATCHER_21_004: [The function shall complete the future with the result of the operation, or exceptionally with the exception or error thrown by it.]
+    @Test
+    public void dispatchCompletesFutureWithException() throws Exception
+    {
+        // Arrange
+        HttpRequestDispatcher dispatcher = new HttpRequestDispatcher();
+
+        // Act
+        CompletableFuture<String> future = dispatcher.dispatch(HOST, () ->
+        {
+            throw new IOException();
+        });
+
+        // Assert
+        try
+        {
+            future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            fail("The future shall complete exceptionally");
+        }
+        catch (ExecutionException e)
+        {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    // Tests_SRS_SERVICE_SDK_JAVA_HTTPREQUESTDISPATCHER_21_005: [If the number of requests in flight to the host reached the limit, the function shall queue the operation without holding a thread.]
+    // Tests_SRS_SERVICE_SDK_JAVA_HTTPREQUESTDISPATCHER_21_006: [The function shall return the number of operations queued for the provided host.]
+    @Test
+    public void dispatchQueuesOperationsAboveTheHostLimit() throws Exception
+    {
+        // Arrange
+        HttpRequestDispatcher dispatcher = new HttpRequestDispatcher(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicInteger inFlight = new AtomicInteger();
+
+        CompletableFuture<Integer> first = dispatcher.dispatch(HOST, () ->
+        {
+            maxInFlight.set(Math.max(maxInFlight.get(), inFlight.incrementAndGet()));
+            started.countDown();
+            release.await();
+            inFlight.decrementAndGet();
+            return 1;
+        });
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        // Act
+        CompletableFuture<Integer> second = dispatcher.dispatch(HOST, () ->
+        {
+            maxInFlight.set(Math.max(maxInFlight.get(), inFlight.incrementAndGet()));
+            inFlight.decrementAndGet();
+            return 2;
+        });
+        CompletableFuture<Integer> otherHost = dispatcher.dispatch("other.host", () -> 3);
+
+        // Assert
+        assertEquals(1, dispatcher.getQueuedRequestCount(HOST));
+        assertEquals(3, (int)otherHost.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        release.countDown();
+        assertEquals(1, (int)first.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(2, (int)second.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(1, maxInFlight.get());
+        assertEquals(0, dispatcher.getQueuedRequestCount(HOST));
+    }
+
+    // Tests_SRS_SERVICE_SDK_JAVA_HTTPREQUESTDISPATCHER_21_007: [The close shall cancel the futures of all queued operations.]
+    @Test
+    public void closeCancelsQueuedOperations() throws Exception
+    {
+        // Arrange
+        HttpRequestDispatcher dispatcher = new HttpRequestDispatcher(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> running = dispatcher.dispatch(HOST, () ->
+        {
+            started.countDown();
+            release.await();
+            return 1;
+        });
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        CompletableFuture<Integer> queued = dispatcher.dispatch(HOST, () -> 2);
+
+        // Act
+        dispatcher.close();
+
+        // Assert
+        assertTrue(queued.isCancelled());
+        release.countDown();
+        assertEquals(1, (int)running.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    // Tests_SRS_SERVICE_SDK_JAVA_HTTPREQUESTDISPATCHER_21_004: [The function shall complete the future with the result of the operation, or exceptionally with the exception or error thrown by it.]
+    // Tests_SRS_SERVICE_SDK_JAVA_HTTPREQUESTDISPATCHER_21_008: [If running an operation fails, the worker shall release its slot to the host, or hand it to the next queued operation.]
+    @Test
+    public void dispatchCompletesFutureWithErrorAndRunsNextOperation() throws Exception
+    {
+        // Arrange
+        HttpRequestDispatcher dispatcher = new HttpRequestDispatcher(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> failing = dispatcher.dispatch(HOST, () ->
+        {
+            started.countDown();
+            release.await();
+            throw new StackOverflowError();
+        });
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        CompletableFuture<Integer> queued = dispatcher.dispatch(HOST, () -> 2);
+
+        // Act
+        release.countDown();
+
+        // Assert
+        try
+        {
+            failing.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            fail("The future shall complete exceptionally");
+        }
+        catch (ExecutionException e)
+        {
+            assertTrue(e.getCause() instanceof StackOverflowError);
+        }
+        assertEquals(2, (int)queued.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(2, (int)dispatcher.dispatch(HOST, () -> 2).get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    // Tests_SRS_SERVICE_SDK_JAVA_HTTPREQUESTDISPATCHER_21_009: [The worker pool shall be bounded by the sum of the limits of the hosts with operations in flight.]
+    // Tests_SRS_SERVICE_SDK_JAVA_HTTPREQUESTDISPATCHER_21_010: [The function shall return the current bound of the worker pool.]
+    @Test
+    public void workerPoolIsBoundedByTheLimitsOfTheActiveHosts() throws Exception
+    {
+        // Arrange
+        HttpRequestDispatcher dispatcher = new HttpRequestDispatcher(3);
+        HttpRequestDispatcher otherDispatcher = new HttpRequestDispatcher(2);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        int initialMaxWorkerCount = HttpRequestDispatcher.getMaxWorkerCount();
+
+        // Act
+        CompletableFuture<Integer> first = dispatcher.dispatch(HOST, () ->
+        {
+            started.countDown();
+            release.await();
+            return 1;
+        });
+        CompletableFuture<Integer> second = otherDispatcher.dispatch(HOST, () ->
+        {
+            started.countDown();
+            release.await();
+            return 2;
+        });
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        // Assert
+        int activeMaxWorkerCount = HttpRequestDispatcher.getMaxWorkerCount();
+        assertTrue(activeMaxWorkerCount >= 5);
+        assertTrue(activeMaxWorkerCount <= Math.max(initialMaxWorkerCount, 1) + 5);
+        release.countDown();
+        assertEquals(1, (int)first.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(2, (int)second.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        int releasedMaxWorkerCount = Math.max(activeMaxWorkerCount - 5, 1);
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS);
+        while (HttpRequestDispatcher.getMaxWorkerCount() > releasedMaxWorkerCount && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(10);
+        }
+        assertTrue(HttpRequestDispatcher.getMaxWorkerCount() <= releasedMaxWorkerCount);
+    }
+}